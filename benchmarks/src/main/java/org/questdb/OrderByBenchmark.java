@@ -0,0 +1,129 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.questdb;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolUtils;
+import io.questdb.std.Files;
+import io.questdb.std.str.Path;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares single-threaded radix sort ORDER BY with the parallel one
+ * (cairo.sql.parallel.orderby.enabled) over a single long column.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderByBenchmark {
+    private static final int WORKER_COUNT = 4;
+    @Param({"false", "true"})
+    public boolean parallel;
+    @Param({"10000000"})
+    public long size;
+    private CairoEngine engine;
+    private RecordCursorFactory factory;
+    private String root;
+    private SqlExecutionContext sqlExecutionContext;
+    private WorkerPool workerPool;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(OrderByBenchmark.class.getSimpleName())
+                .warmupIterations(2)
+                .measurementIterations(5)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws SqlException {
+        root = System.getProperty("java.io.tmpdir") + Files.SEPARATOR + "order-by-benchmark";
+        try (Path path = new Path().of(root)) {
+            Files.mkdirs(path.slash(), 509);
+        }
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+            @Override
+            public boolean isSqlParallelOrderByEnabled() {
+                return parallel;
+            }
+        };
+        engine = new CairoEngine(configuration);
+        workerPool = new WorkerPool(() -> WORKER_COUNT);
+        WorkerPoolUtils.setupQueryJobs(workerPool, engine);
+        workerPool.start();
+        sqlExecutionContext = new SqlExecutionContextImpl(engine, WORKER_COUNT)
+                .with(
+                        configuration.getFactoryProvider().getSecurityContextFactory().getRootContext(),
+                        null,
+                        null,
+                        -1,
+                        null
+                );
+        engine.execute("drop table if exists x", sqlExecutionContext);
+        engine.execute(
+                "create table x as (select rnd_long() l, (x * 1000)::timestamp ts from long_sequence(" + size + ")) timestamp(ts) partition by day",
+                sqlExecutionContext
+        );
+        try (SqlCompiler compiler = engine.getSqlCompiler()) {
+            factory = compiler.compile("select * from x order by l", sqlExecutionContext).getRecordCursorFactory();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SqlException {
+        factory.close();
+        engine.execute("drop table x", sqlExecutionContext);
+        workerPool.halt();
+        engine.close();
+    }
+
+    @Benchmark
+    public void testOrderBy(Blackhole bh) throws SqlException {
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            while (cursor.hasNext()) {
+                bh.consume(cursor.getRecord().getLong(0));
+            }
+        }
+    }
+}
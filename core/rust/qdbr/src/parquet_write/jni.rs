@@ -133,7 +133,12 @@ pub extern "system" fn Java_io_questdb_griffin_engine_table_parquet_PartitionUpd
     row_count: jlong,
 ) {
     let orig_row_group_id = row_group_id;
-    let row_group_id = Some(row_group_id);
+    // a negative id appends a new row group
+    let row_group_id = if row_group_id < 0 {
+        None
+    } else {
+        Some(row_group_id)
+    };
 
     assert!(
         !parquet_updater.is_null(),
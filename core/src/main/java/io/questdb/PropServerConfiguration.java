@@ -149,6 +149,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final String backupRoot;
     private final CharSequence backupTempDirName;
     private final int binaryEncodingMaxLength;
+    private final int bloomFilterBitsPerRow;
+    private final boolean bloomFilterEnabled;
     private final BuildInformation buildInformation;
     private final boolean cairoAttachPartitionCopy;
     private final String cairoAttachPartitionSuffix;
@@ -311,6 +313,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int o3CallbackQueueCapacity;
     private final int o3ColumnMemorySize;
     private final int o3CopyQueueCapacity;
+    private final boolean o3DedupSkipUnchangedEnabled;
     private final int o3LagCalculationWindowsSize;
     private final int o3LastPartitionMaxSplits;
     private final long o3MaxLagUs;
@@ -409,14 +412,25 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean sqlOrderBySortEnabled;
     private final int sqlPageFrameMaxRows;
     private final int sqlPageFrameMinRows;
+    private final boolean sqlPageFramePrefetchEnabled;
+    private final int sqlPageFramePrefetchFrames;
+    private final int sqlPageFramePrefetchQueueDepth;
+    private final boolean sqlParallelAsOfJoinEnabled;
     private final boolean sqlParallelFilterEnabled;
     private final boolean sqlParallelFilterPreTouchEnabled;
     private final boolean sqlParallelGroupByEnabled;
+    private final long sqlParallelHashJoinBuildThreshold;
+    private final boolean sqlParallelHashJoinEnabled;
+    private final boolean sqlParallelOrderByEnabled;
     private final boolean sqlParallelReadParquetEnabled;
+    private final boolean sqlParallelSampleByFillEnabled;
     private final int sqlParallelWorkStealingThreshold;
     private final int sqlParquetFrameCacheCapacity;
     private final int sqlQueryRegistryPoolSize;
     private final int sqlRenameTableModelPoolCapacity;
+    private final boolean sqlResultCacheEnabled;
+    private final long sqlResultCacheMaxResultSize;
+    private final long sqlResultCacheMemoryLimit;
     private final boolean sqlSampleByDefaultAlignment;
     private final int sqlSampleByIndexSearchPageSize;
     private final boolean sqlSampleByValidateFillType;
@@ -428,6 +442,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long sqlSortLightValuePageSize;
     private final int sqlSortValueMaxPages;
     private final int sqlSortValuePageSize;
+    private final long sqlSpillMemoryBudget;
+    private final int sqlSpillPartitionCount;
+    private final CharSequence sqlSpillRoot;
     private final int sqlStrFunctionBufferMaxSize;
     private final int sqlTxnScoreboardEntryCount;
     private final int sqlUnorderedMapMaxEntrySize;
@@ -464,9 +481,12 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final PropertyValidator validator;
     private final int vectorAggregateQueueCapacity;
     private final VolumeDefinitions volumeDefinitions = new VolumeDefinitions();
+    private final int walApplyCoalesceTxnCount;
     private final boolean walApplyEnabled;
     private final int walApplyLookAheadTransactionCount;
+    private final boolean walApplyParallelDecodeEnabled;
     private final WorkerPoolConfiguration walApplyPoolConfiguration = new PropWalApplyPoolConfiguration();
+    private final int walApplyScheduleBatchSize;
     private final long walApplySleepTimeout;
     private final long walApplyTableTimeQuota;
     private final int[] walApplyWorkerAffinity;
@@ -476,6 +496,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long walApplyWorkerSleepThreshold;
     private final long walApplyWorkerYieldThreshold;
     private final boolean walEnabledDefault;
+    private final long walMaxApplyLagTxnCount;
     private final long walMaxLagSize;
     private final int walMaxLagTxnCount;
     private final int walMaxSegmentFileDescriptorsCache;
@@ -484,6 +505,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int walPurgeWaitBeforeDelete;
     private final int walRecreateDistressedSequencerAttempts;
     private final long walSegmentRolloverRowCount;
+    private final boolean walSharedSymbolCacheEnabled;
     private final double walSquashUncommittedRowsMultiplier;
     private final boolean walSupported;
     private final int walTxnNotificationQueueCapacity;
@@ -502,6 +524,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long writerMiscAppendPageSize;
     private final boolean writerMixedIOEnabled;
     private final int writerTickRowsCountMod;
+    private final int zoneMapBlockRowCount;
+    private final boolean zoneMapEnabled;
     protected HttpServerConfiguration httpMinServerConfiguration = new PropHttpMinServerConfiguration();
     protected HttpFullFatServerConfiguration httpServerConfiguration = new PropHttpServerConfiguration();
     protected JsonQueryProcessorConfiguration jsonQueryProcessorConfiguration = new PropJsonQueryProcessorConfiguration();
@@ -564,6 +588,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long lineTcpNetConnectionTimeout;
     private int lineTcpRecvBufferSize;
     private LineTcpTimestampAdapter lineTcpTimestampAdapter;
+    private String lineTcpWalShardColumn;
+    private long lineTcpWalShardRebalanceEventCount;
     private int lineTcpWriterQueueCapacity;
     private int[] lineTcpWriterWorkerAffinity;
     private int lineTcpWriterWorkerCount;
@@ -604,6 +630,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long pgNetIdleConnectionTimeout;
     private String pgPassword;
     private int pgPendingWritersCacheCapacity;
+    private int pgPortalPrefetchBufferSize;
     private String pgReadOnlyPassword;
     private boolean pgReadOnlySecurityContext;
     private boolean pgReadOnlyUserEnabled;
@@ -772,6 +799,11 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.walMaxSegmentFileDescriptorsCache = getInt(properties, env, PropertyKey.CAIRO_WAL_MAX_SEGMENT_FILE_DESCRIPTORS_CACHE, 30);
         this.walApplyTableTimeQuota = getMillis(properties, env, PropertyKey.CAIRO_WAL_APPLY_TABLE_TIME_QUOTA, 1000);
         this.walApplyLookAheadTransactionCount = getInt(properties, env, PropertyKey.CAIRO_WAL_APPLY_LOOK_AHEAD_TXN_COUNT, 20);
+        this.walApplyCoalesceTxnCount = getInt(properties, env, PropertyKey.CAIRO_WAL_APPLY_COALESCE_TXN_COUNT, 1);
+        this.walApplyScheduleBatchSize = getInt(properties, env, PropertyKey.CAIRO_WAL_APPLY_SCHEDULE_BATCH_SIZE, 1);
+        this.walMaxApplyLagTxnCount = getLong(properties, env, PropertyKey.CAIRO_WAL_MAX_APPLY_LAG_TXN_COUNT, 0);
+        this.walSharedSymbolCacheEnabled = getBoolean(properties, env, PropertyKey.CAIRO_WAL_SHARED_SYMBOL_CACHE_ENABLED, true);
+        this.o3DedupSkipUnchangedEnabled = getBoolean(properties, env, PropertyKey.CAIRO_O3_DEDUP_SKIP_UNCHANGED_ENABLED, false);
         this.tableTypeConversionEnabled = getBoolean(properties, env, PropertyKey.TABLE_TYPE_CONVERSION_ENABLED, true);
         this.tempRenamePendingTablePrefix = getString(properties, env, PropertyKey.CAIRO_WAL_TEMP_PENDING_RENAME_TABLE_PREFIX, "temp_5822f658-31f6-11ee-be56-0242ac120002");
         this.sequencerCheckInterval = getMillis(properties, env, PropertyKey.CAIRO_WAL_SEQUENCER_CHECK_INTERVAL, 10_000);
@@ -1228,6 +1260,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.pgNetConnectionSndBuf = getIntSize(properties, env, PropertyKey.PG_NET_SEND_BUF_SIZE, -1);
                 this.pgNetConnectionSndBuf = getIntSize(properties, env, PropertyKey.PG_NET_CONNECTION_SNDBUF, pgNetConnectionSndBuf);
                 this.pgSendBufferSize = getIntSize(properties, env, PropertyKey.PG_SEND_BUFFER_SIZE, Numbers.SIZE_1MB);
+                this.pgPortalPrefetchBufferSize = getIntSize(properties, env, PropertyKey.PG_PORTAL_PREFETCH_BUFFER_SIZE, Numbers.SIZE_1MB);
 
                 final String dateLocale = getString(properties, env, PropertyKey.PG_DATE_LOCALE, "en");
                 this.pgDefaultLocale = DateLocaleFactory.INSTANCE.getLocale(dateLocale);
@@ -1365,6 +1398,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlMaxSymbolNotEqualsCount = getInt(properties, env, PropertyKey.CAIRO_SQL_MAX_SYMBOL_NOT_EQUALS_COUNT, 100);
             this.sqlBindVariablePoolSize = getInt(properties, env, PropertyKey.CAIRO_SQL_BIND_VARIABLE_POOL_SIZE, 8);
             this.sqlQueryRegistryPoolSize = getInt(properties, env, PropertyKey.CAIRO_SQL_QUERY_REGISTRY_POOL_SIZE, 32);
+            this.sqlResultCacheEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_ENABLED, false);
+            this.sqlResultCacheMaxResultSize = getLongSize(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_MAX_RESULT_SIZE, Numbers.SIZE_1MB);
+            this.sqlResultCacheMemoryLimit = getLongSize(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_MEMORY_LIMIT, 64 * Numbers.SIZE_1MB);
             this.sqlCountDistinctCapacity = getInt(properties, env, PropertyKey.CAIRO_SQL_COUNT_DISTINCT_CAPACITY, 3);
             this.sqlCountDistinctLoadFactor = getDouble(properties, env, PropertyKey.CAIRO_SQL_COUNT_DISTINCT_LOAD_FACTOR, "0.75");
             final String sqlCopyFormatsFile = getString(properties, env, PropertyKey.CAIRO_SQL_COPY_FORMATS_FILE, "/text_loader.json");
@@ -1377,6 +1413,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlDistinctTimestampLoadFactor = getDouble(properties, env, PropertyKey.CAIRO_SQL_DISTINCT_TIMESTAMP_LOAD_FACTOR, "0.5");
             this.sqlPageFrameMinRows = getInt(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_MIN_ROWS, 100_000);
             this.sqlPageFrameMaxRows = getInt(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, 1_000_000);
+            this.sqlPageFramePrefetchEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_PREFETCH_ENABLED, false);
+            this.sqlPageFramePrefetchFrames = Math.max(getInt(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_PREFETCH_FRAMES, 8), 1);
+            this.sqlPageFramePrefetchQueueDepth = Numbers.ceilPow2(Math.max(getInt(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_PREFETCH_QUEUE_DEPTH, 64), 1));
 
             this.sqlJitMode = getSqlJitMode(properties, env);
             this.sqlJitIRMemoryPageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_JIT_IR_MEMORY_PAGE_SIZE, 8 * 1024);
@@ -1548,6 +1587,8 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.lineTcpWriterWorkerNapThreshold = getLong(properties, env, PropertyKey.LINE_TCP_WRITER_WORKER_NAP_THRESHOLD, 7_000);
                 this.lineTcpWriterWorkerSleepThreshold = getLong(properties, env, PropertyKey.LINE_TCP_WRITER_WORKER_SLEEP_THRESHOLD, 10_000);
                 this.symbolCacheWaitBeforeReload = getMicros(properties, env, PropertyKey.LINE_TCP_SYMBOL_CACHE_WAIT_BEFORE_RELOAD, 500_000);
+                this.lineTcpWalShardColumn = getString(properties, env, PropertyKey.LINE_TCP_WAL_SHARD_COLUMN, null);
+                this.lineTcpWalShardRebalanceEventCount = getLong(properties, env, PropertyKey.LINE_TCP_WAL_SHARD_REBALANCE_EVENT_COUNT, 100_000);
                 this.lineTcpIOWorkerCount = getInt(properties, env, PropertyKey.LINE_TCP_IO_WORKER_COUNT, cpuIoWorkers);
                 this.lineTcpIOWorkerAffinity = getAffinity(properties, env, PropertyKey.LINE_TCP_IO_WORKER_AFFINITY, lineTcpIOWorkerCount);
                 this.lineTcpIOWorkerPoolHaltOnError = getBoolean(properties, env, PropertyKey.LINE_TCP_IO_HALT_ON_ERROR, false);
@@ -1644,10 +1685,23 @@ public class PropServerConfiguration implements ServerConfiguration {
             final boolean defaultParallelSqlEnabled = sharedWorkerCount >= 4;
             this.sqlParallelFilterEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_ENABLED, defaultParallelSqlEnabled);
             this.sqlParallelGroupByEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_ENABLED, defaultParallelSqlEnabled);
+            this.sqlParallelOrderByEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_ORDERBY_ENABLED, false);
+            this.sqlParallelSampleByFillEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_SAMPLEBY_FILL_ENABLED, false);
+            this.sqlParallelHashJoinEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_HASHJOIN_ENABLED, false);
+            this.sqlParallelHashJoinBuildThreshold = getLong(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_HASHJOIN_BUILD_THRESHOLD, 1_000_000);
+            this.sqlParallelAsOfJoinEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_ASOFJOIN_ENABLED, false);
+            this.sqlSpillMemoryBudget = getLongSize(properties, env, PropertyKey.CAIRO_SQL_SPILL_MEMORY_BUDGET, 0);
+            this.sqlSpillPartitionCount = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_SQL_SPILL_PARTITION_COUNT, 16));
+            this.sqlSpillRoot = getString(properties, env, PropertyKey.CAIRO_SQL_SPILL_ROOT, tmpRoot);
             this.sqlParallelReadParquetEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_READ_PARQUET_ENABLED, defaultParallelSqlEnabled);
             this.walParallelExecutionEnabled = getBoolean(properties, env, PropertyKey.CAIRO_WAL_APPLY_PARALLEL_SQL_ENABLED, true);
+            this.walApplyParallelDecodeEnabled = getBoolean(properties, env, PropertyKey.CAIRO_WAL_APPLY_PARALLEL_DECODE_ENABLED, false);
             this.matViewParallelExecutionEnabled = getBoolean(properties, env, PropertyKey.CAIRO_MAT_VIEW_PARALLEL_SQL_ENABLED, true);
             this.sqlParallelWorkStealingThreshold = getInt(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD, 16);
+            this.zoneMapEnabled = getBoolean(properties, env, PropertyKey.CAIRO_ZONE_MAP_ENABLED, false);
+            this.zoneMapBlockRowCount = Math.max(getInt(properties, env, PropertyKey.CAIRO_ZONE_MAP_BLOCK_ROW_COUNT, 100_000), 1024);
+            this.bloomFilterEnabled = getBoolean(properties, env, PropertyKey.CAIRO_BLOOM_FILTER_ENABLED, false);
+            this.bloomFilterBitsPerRow = Math.min(Math.max(getInt(properties, env, PropertyKey.CAIRO_BLOOM_FILTER_BITS_PER_ROW, 10), 1), 64);
             // TODO(puzpuzpuz): consider increasing default Parquet cache capacity
             this.sqlParquetFrameCacheCapacity = Math.max(getInt(properties, env, PropertyKey.CAIRO_SQL_PARQUET_FRAME_CACHE_CAPACITY, 3), 3);
             this.sqlOrderBySortEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_ORDER_BY_SORT_ENABLED, true);
@@ -2583,6 +2637,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlBindVariablePoolSize;
         }
 
+        @Override
+        public int getBloomFilterBitsPerRow() {
+            return bloomFilterBitsPerRow;
+        }
+
         @Override
         public @NotNull BuildInformation getBuildInformation() {
             return buildInformation;
@@ -3331,6 +3390,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlPageFrameMinRows;
         }
 
+        @Override
+        public int getSqlPageFramePrefetchFrames() {
+            return sqlPageFramePrefetchFrames;
+        }
+
+        @Override
+        public int getSqlPageFramePrefetchQueueDepth() {
+            return sqlPageFramePrefetchQueueDepth;
+        }
+
+        @Override
+        public long getSqlParallelHashJoinBuildThreshold() {
+            return sqlParallelHashJoinBuildThreshold;
+        }
+
         @Override
         public int getSqlParallelWorkStealingThreshold() {
             return sqlParallelWorkStealingThreshold;
@@ -3341,6 +3415,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlParquetFrameCacheCapacity;
         }
 
+        @Override
+        public long getSqlResultCacheMaxResultSize() {
+            return sqlResultCacheMaxResultSize;
+        }
+
+        @Override
+        public long getSqlResultCacheMemoryLimit() {
+            return sqlResultCacheMemoryLimit;
+        }
+
         @Override
         public int getSqlSmallMapKeyCapacity() {
             return sqlSmallMapKeyCapacity;
@@ -3381,6 +3465,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlSortValuePageSize;
         }
 
+        @Override
+        public long getSqlSpillMemoryBudget() {
+            return sqlSpillMemoryBudget;
+        }
+
+        @Override
+        public int getSqlSpillPartitionCount() {
+            return sqlSpillPartitionCount;
+        }
+
+        @Override
+        public CharSequence getSqlSpillRoot() {
+            return sqlSpillRoot;
+        }
+
         @Override
         public int getSqlUnorderedMapMaxEntrySize() {
             return sqlUnorderedMapMaxEntrySize;
@@ -3495,11 +3594,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return volumeDefinitions;
         }
 
+        @Override
+        public int getWalApplyCoalesceTxnCount() {
+            return walApplyCoalesceTxnCount;
+        }
+
         @Override
         public int getWalApplyLookAheadTransactionCount() {
             return walApplyLookAheadTransactionCount;
         }
 
+        @Override
+        public int getWalApplyScheduleBatchSize() {
+            return walApplyScheduleBatchSize;
+        }
+
         @Override
         public long getWalApplyTableTimeQuota() {
             return walApplyTableTimeQuota;
@@ -3525,6 +3634,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return walSquashUncommittedRowsMultiplier;
         }
 
+        @Override
+        public long getWalMaxApplyLagTxnCount() {
+            return walMaxApplyLagTxnCount;
+        }
+
         @Override
         public long getWalMaxLagSize() {
             return walMaxLagSize;
@@ -3620,6 +3734,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return writerTickRowsCountMod;
         }
 
+        @Override
+        public int getZoneMapBlockRowCount() {
+            return zoneMapBlockRowCount;
+        }
+
+        @Override
+        public boolean isBloomFilterEnabled() {
+            return bloomFilterEnabled;
+        }
+
         @Override
         public boolean isCheckpointRecoveryEnabled() {
             return checkpointRecoveryEnabled;
@@ -3655,6 +3779,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return false;
         }
 
+        @Override
+        public boolean isO3DedupSkipUnchangedEnabled() {
+            return o3DedupSkipUnchangedEnabled;
+        }
+
         @Override
         public boolean isO3QuickSortEnabled() {
             return o3QuickSortEnabled;
@@ -3695,6 +3824,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlOrderBySortEnabled;
         }
 
+        @Override
+        public boolean isSqlPageFramePrefetchEnabled() {
+            return sqlPageFramePrefetchEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelAsOfJoinEnabled() {
+            return sqlParallelAsOfJoinEnabled;
+        }
+
         @Override
         public boolean isSqlParallelFilterEnabled() {
             return sqlParallelFilterEnabled;
@@ -3710,11 +3849,31 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlParallelGroupByEnabled;
         }
 
+        @Override
+        public boolean isSqlParallelHashJoinEnabled() {
+            return sqlParallelHashJoinEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelOrderByEnabled() {
+            return sqlParallelOrderByEnabled;
+        }
+
         @Override
         public boolean isSqlParallelReadParquetEnabled() {
             return sqlParallelReadParquetEnabled;
         }
 
+        @Override
+        public boolean isSqlParallelSampleByFillEnabled() {
+            return sqlParallelSampleByFillEnabled;
+        }
+
+        @Override
+        public boolean isSqlResultCacheEnabled() {
+            return sqlResultCacheEnabled;
+        }
+
         @Override
         public boolean isTableTypeConversionEnabled() {
             return tableTypeConversionEnabled;
@@ -3730,11 +3889,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return walApplyEnabled;
         }
 
+        @Override
+        public boolean isWalApplyParallelDecodeEnabled() {
+            return walApplyParallelDecodeEnabled;
+        }
+
         @Override
         public boolean isWalApplyParallelSqlEnabled() {
             return walParallelExecutionEnabled;
         }
 
+        @Override
+        public boolean isWalSharedSymbolCacheEnabled() {
+            return walSharedSymbolCacheEnabled;
+        }
+
         public boolean isWalSupported() {
             return walSupported;
         }
@@ -3744,6 +3913,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return writerMixedIOEnabled;
         }
 
+        @Override
+        public boolean isZoneMapEnabled() {
+            return zoneMapEnabled;
+        }
+
         @Override
         public boolean mangleTableDirNames() {
             return false;
@@ -4607,6 +4781,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineTcpTimestampAdapter;
         }
 
+        @Override
+        public CharSequence getWalShardColumn() {
+            return lineTcpWalShardColumn;
+        }
+
+        @Override
+        public long getWalShardRebalanceEventCount() {
+            return lineTcpWalShardRebalanceEventCount;
+        }
+
         @Override
         public long getWriterIdleTimeout() {
             return minIdleMsBeforeWriterRelease;
@@ -5056,6 +5240,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return pgPendingWritersCacheCapacity;
         }
 
+        @Override
+        public int getPortalPrefetchBufferSize() {
+            return pgPortalPrefetchBufferSize;
+        }
+
         @Override
         public String getPoolName() {
             return "pgwire";
@@ -102,8 +102,20 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_SQL_PARALLEL_GROUPBY_PRESIZE_ENABLED("cairo.sql.parallel.groupby.presize.enabled"),
     CAIRO_SQL_PARALLEL_GROUPBY_PRESIZE_MAX_CAPACITY("cairo.sql.parallel.groupby.presize.max.capacity"),
     CAIRO_SQL_PARALLEL_GROUPBY_PRESIZE_MAX_HEAP_SIZE("cairo.sql.parallel.groupby.presize.max.heap.size"),
+    CAIRO_SQL_PARALLEL_ORDERBY_ENABLED("cairo.sql.parallel.orderby.enabled"),
+    CAIRO_SQL_PARALLEL_SAMPLEBY_FILL_ENABLED("cairo.sql.parallel.sampleby.fill.enabled"),
+    CAIRO_SQL_PARALLEL_HASHJOIN_ENABLED("cairo.sql.parallel.hashjoin.enabled"),
+    CAIRO_SQL_PARALLEL_HASHJOIN_BUILD_THRESHOLD("cairo.sql.parallel.hashjoin.build.threshold"),
+    CAIRO_SQL_PARALLEL_ASOFJOIN_ENABLED("cairo.sql.parallel.asofjoin.enabled"),
+    CAIRO_SQL_SPILL_MEMORY_BUDGET("cairo.sql.spill.memory.budget"),
+    CAIRO_SQL_SPILL_PARTITION_COUNT("cairo.sql.spill.partition.count"),
+    CAIRO_SQL_SPILL_ROOT("cairo.sql.spill.root"),
     CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD("cairo.sql.parallel.work.stealing.threshold"),
     CAIRO_SQL_PARALLEL_READ_PARQUET_ENABLED("cairo.sql.parallel.read.parquet.enabled"),
+    CAIRO_ZONE_MAP_ENABLED("cairo.zone.map.enabled"),
+    CAIRO_ZONE_MAP_BLOCK_ROW_COUNT("cairo.zone.map.block.row.count"),
+    CAIRO_BLOOM_FILTER_ENABLED("cairo.bloom.filter.enabled"),
+    CAIRO_BLOOM_FILTER_BITS_PER_ROW("cairo.bloom.filter.bits.per.row"),
     CAIRO_SQL_PARQUET_FRAME_CACHE_CAPACITY("cairo.sql.parquet.frame.cache.capacity"),
     CAIRO_PAGE_FRAME_SHARD_COUNT("cairo.page.frame.shard.count"),
     CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY("cairo.page.frame.task.pool.capacity"),
@@ -140,6 +152,9 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_SQL_MAX_SYMBOL_NOT_EQUALS_COUNT("cairo.sql.max.symbol.not.equals.count"),
     CAIRO_SQL_BIND_VARIABLE_POOL_SIZE("cairo.sql.bind.variable.pool.size"),
     CAIRO_SQL_QUERY_REGISTRY_POOL_SIZE("cairo.sql.query.registry.pool.size"),
+    CAIRO_SQL_RESULT_CACHE_ENABLED("cairo.sql.result.cache.enabled"),
+    CAIRO_SQL_RESULT_CACHE_MAX_RESULT_SIZE("cairo.sql.result.cache.max.result.size"),
+    CAIRO_SQL_RESULT_CACHE_MEMORY_LIMIT("cairo.sql.result.cache.memory.limit"),
     CAIRO_SQL_COUNT_DISTINCT_CAPACITY("cairo.sql.count.distinct.capacity"),
     CAIRO_SQL_COUNT_DISTINCT_LOAD_FACTOR("cairo.sql.count.distinct.load.factor"),
     CAIRO_DATE_LOCALE("cairo.date.locale"),
@@ -147,6 +162,9 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_SQL_DISTINCT_TIMESTAMP_LOAD_FACTOR("cairo.sql.distinct.timestamp.load.factor"),
     CAIRO_SQL_PAGE_FRAME_MIN_ROWS("cairo.sql.page.frame.min.rows"),
     CAIRO_SQL_PAGE_FRAME_MAX_ROWS("cairo.sql.page.frame.max.rows"),
+    CAIRO_SQL_PAGE_FRAME_PREFETCH_ENABLED("cairo.sql.page.frame.prefetch.enabled"),
+    CAIRO_SQL_PAGE_FRAME_PREFETCH_FRAMES("cairo.sql.page.frame.prefetch.frames"),
+    CAIRO_SQL_PAGE_FRAME_PREFETCH_QUEUE_DEPTH("cairo.sql.page.frame.prefetch.queue.depth"),
     CAIRO_SQL_JIT_IR_MEMORY_PAGE_SIZE("cairo.sql.jit.ir.memory.page.size"),
     CAIRO_SQL_JIT_IR_MEMORY_MAX_PAGES("cairo.sql.jit.ir.memory.max.pages"),
     CAIRO_SQL_JIT_BIND_VARS_MEMORY_PAGE_SIZE("cairo.sql.jit.bind.vars.memory.page.size"),
@@ -353,6 +371,8 @@ public enum PropertyKey implements ConfigPropertyKey {
     LINE_TCP_WRITER_WORKER_NAP_THRESHOLD("line.tcp.writer.worker.nap.threshold"),
     LINE_TCP_WRITER_WORKER_SLEEP_THRESHOLD("line.tcp.writer.worker.sleep.threshold"),
     LINE_TCP_SYMBOL_CACHE_WAIT_BEFORE_RELOAD("line.tcp.symbol.cache.wait.before.reload"),
+    LINE_TCP_WAL_SHARD_COLUMN("line.tcp.wal.shard.column"),
+    LINE_TCP_WAL_SHARD_REBALANCE_EVENT_COUNT("line.tcp.wal.shard.rebalance.event.count"),
     LINE_TCP_IO_WORKER_COUNT("line.tcp.io.worker.count"),
     LINE_TCP_IO_WORKER_AFFINITY("line.tcp.io.worker.affinity"),
     LINE_TCP_IO_HALT_ON_ERROR("line.tcp.io.halt.on.error"),
@@ -422,6 +442,7 @@ public enum PropertyKey implements ConfigPropertyKey {
     PG_NAMED_STATEMENT_CACHE_CAPACITY("pg.named.statement.cache.capacity"),
     PG_NAMED_STATEMENT_POOL_CAPACITY("pg.named.statement.pool.capacity"),
     PG_PENDING_WRITERS_CACHE_CAPACITY("pg.pending.writers.cache.capacity"),
+    PG_PORTAL_PREFETCH_BUFFER_SIZE("pg.portal.prefetch.buffer.size"),
     PG_NET_CONNECTION_SNDBUF("pg.net.connection.sndbuf"),
     DEBUG_FORCE_SEND_FRAGMENTATION_CHUNK_SIZE("debug.force.send.fragmentation.chunk.size", false, true),
     DEBUG_FORCE_RECV_FRAGMENTATION_CHUNK_SIZE("debug.force.recv.fragmentation.chunk.size", false, true),
@@ -484,9 +505,15 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_WAL_MAX_SEGMENT_FILE_DESCRIPTORS_CACHE("cairo.wal.max.segment.file.descriptors.cache"),
     CAIRO_WAL_APPLY_TABLE_TIME_QUOTA("cairo.wal.apply.table.time.quota"),
     CAIRO_WAL_APPLY_LOOK_AHEAD_TXN_COUNT("cairo.wal.apply.look.ahead.txn.count"),
+    CAIRO_WAL_APPLY_COALESCE_TXN_COUNT("cairo.wal.apply.coalesce.txn.count"),
+    CAIRO_WAL_APPLY_SCHEDULE_BATCH_SIZE("cairo.wal.apply.schedule.batch.size"),
+    CAIRO_WAL_MAX_APPLY_LAG_TXN_COUNT("cairo.wal.max.apply.lag.txn.count"),
+    CAIRO_WAL_SHARED_SYMBOL_CACHE_ENABLED("cairo.wal.shared.symbol.cache.enabled"),
+    CAIRO_O3_DEDUP_SKIP_UNCHANGED_ENABLED("cairo.o3.dedup.skip.unchanged.enabled"),
     CAIRO_WAL_TEMP_PENDING_RENAME_TABLE_PREFIX("cairo.wal.temp.pending.rename.table.prefix"),
     CAIRO_WAL_WRITER_POOL_MAX_SEGMENTS("cairo.wal.writer.pool.max.segments"),
     CAIRO_WAL_APPLY_PARALLEL_SQL_ENABLED("cairo.wal.apply.parallel.sql.enabled"),
+    CAIRO_WAL_APPLY_PARALLEL_DECODE_ENABLED("cairo.wal.apply.parallel.decode.enabled"),
     READ_ONLY_INSTANCE("readonly"),
     CAIRO_TABLE_REGISTRY_AUTO_RELOAD_FREQUENCY("cairo.table.registry.auto.reload.frequency"),
     CAIRO_TABLE_REGISTRY_COMPACTION_THRESHOLD("cairo.table.registry.compaction.threshold"),
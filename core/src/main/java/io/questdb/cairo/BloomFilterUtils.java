@@ -0,0 +1,142 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.Hash;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.Utf8Sequence;
+
+import static io.questdb.cairo.TableUtils.COLUMN_NAME_TXN_NONE;
+
+/**
+ * Bloom filter file layout. Like zone maps, bloom filters summarise a column of a native
+ * partition in blocks of fixed row count, one bit set per block. Null values are not added.
+ * <p>
+ * Header:
+ * <pre>
+ * [block row count: long][block count: long][block size in bytes: long][hash count: long]
+ * </pre>
+ * followed by block count bit sets of the block size each. Block size is a power of two,
+ * so bit positions are derived from the value hash with a mask. Only full blocks are written,
+ * see {@link ZoneMapUtils} for the visibility rules.
+ */
+public final class BloomFilterUtils {
+    public static final String FILE_SUFFIX_BF = ".bf";
+    public static final long HEADER_OFFSET_BLOCK_COUNT = Long.BYTES;
+    public static final long HEADER_OFFSET_BLOCK_ROW_COUNT = 0;
+    public static final long HEADER_OFFSET_BLOCK_SIZE = 2 * Long.BYTES;
+    public static final long HEADER_OFFSET_HASH_COUNT = 3 * Long.BYTES;
+    public static final long HEADER_SIZE = 4 * Long.BYTES;
+    private static final long MIN_BLOCK_SIZE = 64;
+    private static final long M = 0x517cc1b727220a95L;
+
+    private BloomFilterUtils() {
+    }
+
+    public static void add(long blockAddr, long blockSize, int hashCount, long hash) {
+        final long mask = (blockSize << 3) - 1;
+        final long h1 = hash & 0xffffffffL;
+        final long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = (h1 + i * h2) & mask;
+            final long addr = blockAddr + (bit >>> 3);
+            Unsafe.getUnsafe().putByte(addr, (byte) (Unsafe.getUnsafe().getByte(addr) | (1 << (bit & 7))));
+        }
+    }
+
+    public static LPSZ bfFile(Path path, CharSequence columnName, long columnNameTxn) {
+        path.concat(columnName).put(FILE_SUFFIX_BF);
+        if (columnNameTxn > COLUMN_NAME_TXN_NONE) {
+            path.put('.').put(columnNameTxn);
+        }
+        return path.$();
+    }
+
+    public static long getBlockOffset(long blockSize, long blockIndex) {
+        return HEADER_SIZE + blockIndex * blockSize;
+    }
+
+    /**
+     * Returns bit set size for a block, rounded up to a power of two.
+     */
+    public static long getBlockSize(long blockRowCount, int bitsPerRow) {
+        return Math.max(Numbers.ceilPow2((blockRowCount * bitsPerRow + 7) >>> 3), MIN_BLOCK_SIZE);
+    }
+
+    /**
+     * Returns the number of hash functions that minimises false positive rate for the given block geometry.
+     */
+    public static int getHashCount(long blockRowCount, long blockSize) {
+        final double bitsPerRow = (double) (blockSize << 3) / blockRowCount;
+        return (int) Math.max(1, Math.min(16, Math.round(bitsPerRow * Math.log(2))));
+    }
+
+    public static long hashSymbolKey(int key) {
+        return Hash.hashLong64(key);
+    }
+
+    public static long hashUtf8(Utf8Sequence value) {
+        long h = 0;
+        for (int i = 0, n = value.size(); i < n; i++) {
+            h = h * M + value.byteAt(i);
+        }
+        return Hash.hashLong64(h);
+    }
+
+    public static long hashUuid(long lo, long hi) {
+        return Hash.hashLong128_64(lo, hi);
+    }
+
+    /**
+     * Returns true for the column types that bloom filters are maintained for.
+     */
+    public static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.SYMBOL:
+            case ColumnType.UUID:
+            case ColumnType.VARCHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public static boolean mightContain(long blockAddr, long blockSize, int hashCount, long hash) {
+        final long mask = (blockSize << 3) - 1;
+        final long h1 = hash & 0xffffffffL;
+        final long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = (h1 + i * h2) & mask;
+            if ((Unsafe.getUnsafe().getByte(blockAddr + (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Uuid;
+import io.questdb.std.Vect;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8SplitString;
+
+import static io.questdb.cairo.BloomFilterUtils.*;
+
+/**
+ * Maintains bloom filter files of native partition columns. Follows the same append-only
+ * protocol as {@link ZoneMapWriter}: new full blocks are written first, and the block count
+ * in the header is published last.
+ */
+public class BloomFilterWriter implements QuietCloseable {
+    private static final Log LOG = LogFactory.getLog(BloomFilterWriter.class);
+    private final long blockRowCount;
+    private final long blockSize;
+    private final FilesFacade ff;
+    private final long fileOpts;
+    private final int hashCount;
+    private final Utf8SplitString utf8View = new Utf8SplitString();
+    private long bufferAddr;
+
+    public BloomFilterWriter(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.blockRowCount = configuration.getZoneMapBlockRowCount();
+        this.fileOpts = configuration.getWriterFileOpenOpts();
+        this.blockSize = getBlockSize(blockRowCount, configuration.getBloomFilterBitsPerRow());
+        this.hashCount = getHashCount(blockRowCount, blockSize);
+        this.bufferAddr = Unsafe.malloc(blockSize, MemoryTag.NATIVE_TABLE_WRITER);
+    }
+
+    @Override
+    public void close() {
+        if (bufferAddr != 0) {
+            bufferAddr = Unsafe.free(bufferAddr, blockSize, MemoryTag.NATIVE_TABLE_WRITER);
+        }
+    }
+
+    /**
+     * Brings the bloom filter of a partition column in line with the committed partition row count.
+     *
+     * @param path              path to the partition directory, left unchanged on exit
+     * @param columnName        column name
+     * @param columnNameTxn     column version
+     * @param columnType        column type, must be supported by {@link BloomFilterUtils#isSupported(int)}
+     * @param columnTop         column top in the partition
+     * @param partitionRowCount committed row count of the partition
+     */
+    public void update(
+            Path path,
+            CharSequence columnName,
+            long columnNameTxn,
+            int columnType,
+            long columnTop,
+            long partitionRowCount
+    ) {
+        final int pathLen = path.size();
+        final long blockCount = partitionRowCount / blockRowCount;
+        long bfFd = -1;
+        try {
+            bfFd = TableUtils.openRW(ff, bfFile(path, columnName, columnNameTxn), LOG, fileOpts);
+            final long fileSize = ff.length(bfFd);
+            long existingBlockCount = 0;
+            if (
+                    fileSize >= HEADER_SIZE
+                            && ff.readNonNegativeLong(bfFd, HEADER_OFFSET_BLOCK_ROW_COUNT) == blockRowCount
+                            && ff.readNonNegativeLong(bfFd, HEADER_OFFSET_BLOCK_SIZE) == blockSize
+                            && ff.readNonNegativeLong(bfFd, HEADER_OFFSET_HASH_COUNT) == hashCount
+            ) {
+                existingBlockCount = Math.max(
+                        0,
+                        Math.min(ff.readNonNegativeLong(bfFd, HEADER_OFFSET_BLOCK_COUNT), (fileSize - HEADER_SIZE) / blockSize)
+                );
+            } else {
+                // new file or filter geometry has been reconfigured, start from scratch
+                writeLong(bfFd, HEADER_OFFSET_BLOCK_COUNT, 0);
+                writeLong(bfFd, HEADER_OFFSET_BLOCK_ROW_COUNT, blockRowCount);
+                writeLong(bfFd, HEADER_OFFSET_BLOCK_SIZE, blockSize);
+                writeLong(bfFd, HEADER_OFFSET_HASH_COUNT, hashCount);
+            }
+
+            if (existingBlockCount > blockCount) {
+                // partition got shorter, rows beyond its end may be rewritten in place
+                writeLong(bfFd, HEADER_OFFSET_BLOCK_COUNT, blockCount);
+                ff.truncate(bfFd, getBlockOffset(blockSize, blockCount));
+            } else if (existingBlockCount < blockCount) {
+                path.trimTo(pathLen);
+                writeBlocks(path, columnName, columnNameTxn, columnType, columnTop, bfFd, existingBlockCount, blockCount);
+                writeLong(bfFd, HEADER_OFFSET_BLOCK_COUNT, blockCount);
+            }
+        } finally {
+            path.trimTo(pathLen);
+            if (bfFd > -1) {
+                ff.close(bfFd);
+            }
+        }
+    }
+
+    private void addRows(int columnType, long auxAddr, long auxLim, long dataAddr, long dataLim, long rowLo, long rowHi) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.SYMBOL:
+                for (long row = rowLo; row < rowHi; row++) {
+                    final int key = Unsafe.getUnsafe().getInt(dataAddr + (row << 2));
+                    if (key != SymbolTable.VALUE_IS_NULL) {
+                        add(bufferAddr, blockSize, hashCount, hashSymbolKey(key));
+                    }
+                }
+                break;
+            case ColumnType.UUID:
+                for (long row = rowLo; row < rowHi; row++) {
+                    final long lo = Unsafe.getUnsafe().getLong(dataAddr + (row << 4));
+                    final long hi = Unsafe.getUnsafe().getLong(dataAddr + (row << 4) + Long.BYTES);
+                    if (!Uuid.isNull(lo, hi)) {
+                        add(bufferAddr, blockSize, hashCount, hashUuid(lo, hi));
+                    }
+                }
+                break;
+            default:
+                // VARCHAR
+                for (long row = rowLo; row < rowHi; row++) {
+                    final Utf8Sequence value = VarcharTypeDriver.getSplitValue(auxAddr, auxLim, dataAddr, dataLim, row, utf8View);
+                    if (value != null) {
+                        add(bufferAddr, blockSize, hashCount, hashUtf8(value));
+                    }
+                }
+                break;
+        }
+    }
+
+    private void writeBlocks(
+            Path path,
+            CharSequence columnName,
+            long columnNameTxn,
+            int columnType,
+            long columnTop,
+            long bfFd,
+            long blockLo,
+            long blockHi
+    ) {
+        final boolean varchar = ColumnType.isVarchar(columnType);
+        final int pathLen = path.size();
+        final long dataRowHi = blockHi * blockRowCount - columnTop;
+        long auxFd = -1;
+        long auxAddr = 0;
+        long auxSize = 0;
+        long dataFd = -1;
+        long dataAddr = 0;
+        long dataSize = 0;
+        try {
+            if (dataRowHi > 0) {
+                if (varchar) {
+                    auxFd = TableUtils.openRO(ff, TableUtils.iFile(path.trimTo(pathLen), columnName, columnNameTxn), LOG);
+                    auxSize = VarcharTypeDriver.INSTANCE.getAuxVectorSize(dataRowHi);
+                    auxAddr = TableUtils.mapRO(ff, auxFd, auxSize, MemoryTag.MMAP_TABLE_WRITER);
+                    dataSize = VarcharTypeDriver.INSTANCE.getDataVectorSizeAt(auxAddr, dataRowHi - 1);
+                } else {
+                    dataSize = dataRowHi << ColumnType.pow2SizeOf(columnType);
+                }
+                if (dataSize > 0) {
+                    dataFd = TableUtils.openRO(ff, TableUtils.dFile(path.trimTo(pathLen), columnName, columnNameTxn), LOG);
+                    dataAddr = TableUtils.mapRO(ff, dataFd, dataSize, MemoryTag.MMAP_TABLE_WRITER);
+                }
+            }
+
+            for (long block = blockLo; block < blockHi; block++) {
+                Vect.memset(bufferAddr, blockSize, 0);
+                final long dataLo = Math.max(block * blockRowCount, columnTop) - columnTop;
+                final long dataHi = Math.max((block + 1) * blockRowCount - columnTop, dataLo);
+                if (dataHi > dataLo) {
+                    addRows(columnType, auxAddr, auxAddr + auxSize, dataAddr, dataAddr + dataSize, dataLo, dataHi);
+                }
+                if (ff.write(bfFd, bufferAddr, blockSize, getBlockOffset(blockSize, block)) != blockSize) {
+                    throw CairoException.critical(ff.errno()).put("could not write bloom filter [fd=").put(bfFd)
+                            .put(", block=").put(block)
+                            .put(']');
+                }
+            }
+        } finally {
+            path.trimTo(pathLen);
+            if (dataAddr != 0) {
+                ff.munmap(dataAddr, dataSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+            if (dataFd > -1) {
+                ff.close(dataFd);
+            }
+            if (auxAddr != 0) {
+                ff.munmap(auxAddr, auxSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+            if (auxFd > -1) {
+                ff.close(auxFd);
+            }
+        }
+    }
+
+    private void writeLong(long bfFd, long offset, long value) {
+        Unsafe.getUnsafe().putLong(bufferAddr, value);
+        if (ff.write(bfFd, bufferAddr, Long.BYTES, offset) != Long.BYTES) {
+            throw CairoException.critical(ff.errno()).put("could not write bloom filter header [fd=").put(bfFd)
+                    .put(", offset=").put(offset)
+                    .put(']');
+        }
+    }
+}
@@ -109,6 +109,8 @@ public interface CairoConfiguration {
 
     int getBindVariablePoolSize();
 
+    int getBloomFilterBitsPerRow();
+
     @NotNull
     BuildInformation getBuildInformation();
 
@@ -498,10 +500,20 @@ public interface CairoConfiguration {
 
     int getSqlPageFrameMinRows();
 
+    int getSqlPageFramePrefetchFrames();
+
+    int getSqlPageFramePrefetchQueueDepth();
+
+    long getSqlParallelHashJoinBuildThreshold();
+
     int getSqlParallelWorkStealingThreshold();
 
     int getSqlParquetFrameCacheCapacity();
 
+    long getSqlResultCacheMaxResultSize();
+
+    long getSqlResultCacheMemoryLimit();
+
     int getSqlSmallMapKeyCapacity();
 
     long getSqlSmallMapPageSize();
@@ -518,6 +530,12 @@ public interface CairoConfiguration {
 
     int getSqlSortValuePageSize();
 
+    long getSqlSpillMemoryBudget();
+
+    int getSqlSpillPartitionCount();
+
+    CharSequence getSqlSpillRoot();
+
     int getSqlUnorderedMapMaxEntrySize();
 
     int getSqlWindowInitialRangeBufferSize();
@@ -568,8 +586,12 @@ public interface CairoConfiguration {
     @NotNull
     VolumeDefinitions getVolumeDefinitions();
 
+    int getWalApplyCoalesceTxnCount();
+
     int getWalApplyLookAheadTransactionCount();
 
+    int getWalApplyScheduleBatchSize();
+
     long getWalApplyTableTimeQuota();
 
     long getWalDataAppendPageSize();
@@ -580,6 +602,8 @@ public interface CairoConfiguration {
 
     double getWalLagRowsMultiplier();
 
+    long getWalMaxApplyLagTxnCount();
+
     long getWalMaxLagSize();
 
     int getWalMaxLagTxnCount();
@@ -632,11 +656,15 @@ public interface CairoConfiguration {
 
     int getWriterTickRowsCountMod();
 
+    int getZoneMapBlockRowCount();
+
     /**
      * A flag to enable/disable checkpoint recovery mechanism. Defaults to {@code true}.
      *
      * @return enable/disable flag for recovering from the checkpoint
      */
+    boolean isBloomFilterEnabled();
+
     boolean isCheckpointRecoveryEnabled();
 
     boolean isDevModeEnabled();
@@ -651,6 +679,8 @@ public interface CairoConfiguration {
 
     boolean isMultiKeyDedupEnabled();
 
+    boolean isO3DedupSkipUnchangedEnabled();
+
     boolean isO3QuickSortEnabled();
 
     boolean isParallelIndexingEnabled();
@@ -667,14 +697,26 @@ public interface CairoConfiguration {
 
     boolean isSqlOrderBySortEnabled();
 
+    boolean isSqlPageFramePrefetchEnabled();
+
+    boolean isSqlParallelAsOfJoinEnabled();
+
     boolean isSqlParallelFilterEnabled();
 
     boolean isSqlParallelFilterPreTouchEnabled();
 
     boolean isSqlParallelGroupByEnabled();
 
+    boolean isSqlParallelHashJoinEnabled();
+
+    boolean isSqlParallelOrderByEnabled();
+
     boolean isSqlParallelReadParquetEnabled();
 
+    boolean isSqlParallelSampleByFillEnabled();
+
+    boolean isSqlResultCacheEnabled();
+
     boolean isTableTypeConversionEnabled();
 
     /**
@@ -703,12 +745,18 @@ public interface CairoConfiguration {
 
     boolean isWalApplyEnabled();
 
+    boolean isWalApplyParallelDecodeEnabled();
+
     boolean isWalApplyParallelSqlEnabled();
 
+    boolean isWalSharedSymbolCacheEnabled();
+
     boolean isWalSupported();
 
     boolean isWriterMixedIOEnabled();
 
+    boolean isZoneMapEnabled();
+
     /**
      * This is a flag to enable/disable making table directory names different to table names for non-WAL tables.
      * When it is enabled directory name of table TRADE becomes TRADE~, so that ~ sign is added at the end.
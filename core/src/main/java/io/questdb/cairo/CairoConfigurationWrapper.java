@@ -116,6 +116,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getBindVariablePoolSize();
     }
 
+    @Override
+    public int getBloomFilterBitsPerRow() {
+        return getDelegate().getBloomFilterBitsPerRow();
+    }
+
     @Override
     public @NotNull BuildInformation getBuildInformation() {
         return getDelegate().getBuildInformation();
@@ -861,6 +866,21 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getSqlPageFrameMinRows();
     }
 
+    @Override
+    public int getSqlPageFramePrefetchFrames() {
+        return getDelegate().getSqlPageFramePrefetchFrames();
+    }
+
+    @Override
+    public int getSqlPageFramePrefetchQueueDepth() {
+        return getDelegate().getSqlPageFramePrefetchQueueDepth();
+    }
+
+    @Override
+    public long getSqlParallelHashJoinBuildThreshold() {
+        return getDelegate().getSqlParallelHashJoinBuildThreshold();
+    }
+
     @Override
     public int getSqlParallelWorkStealingThreshold() {
         return getDelegate().getSqlParallelWorkStealingThreshold();
@@ -871,6 +891,16 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getSqlParquetFrameCacheCapacity();
     }
 
+    @Override
+    public long getSqlResultCacheMaxResultSize() {
+        return getDelegate().getSqlResultCacheMaxResultSize();
+    }
+
+    @Override
+    public long getSqlResultCacheMemoryLimit() {
+        return getDelegate().getSqlResultCacheMemoryLimit();
+    }
+
     @Override
     public int getSqlSmallMapKeyCapacity() {
         return getDelegate().getSqlSmallMapKeyCapacity();
@@ -911,6 +941,21 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getSqlSortValuePageSize();
     }
 
+    @Override
+    public long getSqlSpillMemoryBudget() {
+        return getDelegate().getSqlSpillMemoryBudget();
+    }
+
+    @Override
+    public int getSqlSpillPartitionCount() {
+        return getDelegate().getSqlSpillPartitionCount();
+    }
+
+    @Override
+    public CharSequence getSqlSpillRoot() {
+        return getDelegate().getSqlSpillRoot();
+    }
+
     @Override
     public int getSqlUnorderedMapMaxEntrySize() {
         return getDelegate().getSqlUnorderedMapMaxEntrySize();
@@ -1026,11 +1071,21 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getVolumeDefinitions();
     }
 
+    @Override
+    public int getWalApplyCoalesceTxnCount() {
+        return getDelegate().getWalApplyCoalesceTxnCount();
+    }
+
     @Override
     public int getWalApplyLookAheadTransactionCount() {
         return getDelegate().getWalApplyLookAheadTransactionCount();
     }
 
+    @Override
+    public int getWalApplyScheduleBatchSize() {
+        return getDelegate().getWalApplyScheduleBatchSize();
+    }
+
     @Override
     public long getWalApplyTableTimeQuota() {
         return getDelegate().getWalApplyTableTimeQuota();
@@ -1056,6 +1111,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getWalLagRowsMultiplier();
     }
 
+    @Override
+    public long getWalMaxApplyLagTxnCount() {
+        return getDelegate().getWalMaxApplyLagTxnCount();
+    }
+
     @Override
     public long getWalMaxLagSize() {
         return getDelegate().getWalMaxLagSize();
@@ -1151,6 +1211,16 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getWriterTickRowsCountMod();
     }
 
+    @Override
+    public int getZoneMapBlockRowCount() {
+        return getDelegate().getZoneMapBlockRowCount();
+    }
+
+    @Override
+    public boolean isBloomFilterEnabled() {
+        return getDelegate().isBloomFilterEnabled();
+    }
+
     @Override
     public boolean isCheckpointRecoveryEnabled() {
         return getDelegate().isCheckpointRecoveryEnabled();
@@ -1186,6 +1256,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isMultiKeyDedupEnabled();
     }
 
+    @Override
+    public boolean isO3DedupSkipUnchangedEnabled() {
+        return getDelegate().isO3DedupSkipUnchangedEnabled();
+    }
+
     @Override
     public boolean isO3QuickSortEnabled() {
         return getDelegate().isO3QuickSortEnabled();
@@ -1226,6 +1301,16 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isSqlOrderBySortEnabled();
     }
 
+    @Override
+    public boolean isSqlPageFramePrefetchEnabled() {
+        return getDelegate().isSqlPageFramePrefetchEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelAsOfJoinEnabled() {
+        return getDelegate().isSqlParallelAsOfJoinEnabled();
+    }
+
     @Override
     public boolean isSqlParallelFilterEnabled() {
         return getDelegate().isSqlParallelFilterEnabled();
@@ -1241,11 +1326,31 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isSqlParallelGroupByEnabled();
     }
 
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return getDelegate().isSqlParallelHashJoinEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelOrderByEnabled() {
+        return getDelegate().isSqlParallelOrderByEnabled();
+    }
+
     @Override
     public boolean isSqlParallelReadParquetEnabled() {
         return getDelegate().isSqlParallelReadParquetEnabled();
     }
 
+    @Override
+    public boolean isSqlParallelSampleByFillEnabled() {
+        return getDelegate().isSqlParallelSampleByFillEnabled();
+    }
+
+    @Override
+    public boolean isSqlResultCacheEnabled() {
+        return getDelegate().isSqlResultCacheEnabled();
+    }
+
     @Override
     public boolean isTableTypeConversionEnabled() {
         return getDelegate().isTableTypeConversionEnabled();
@@ -1261,11 +1366,21 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isWalApplyEnabled();
     }
 
+    @Override
+    public boolean isWalApplyParallelDecodeEnabled() {
+        return getDelegate().isWalApplyParallelDecodeEnabled();
+    }
+
     @Override
     public boolean isWalApplyParallelSqlEnabled() {
         return getDelegate().isWalApplyParallelSqlEnabled();
     }
 
+    @Override
+    public boolean isWalSharedSymbolCacheEnabled() {
+        return getDelegate().isWalSharedSymbolCacheEnabled();
+    }
+
     public boolean isWalSupported() {
         return getDelegate().isWalSupported();
     }
@@ -1275,6 +1390,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isWriterMixedIOEnabled();
     }
 
+    @Override
+    public boolean isZoneMapEnabled() {
+        return getDelegate().isZoneMapEnabled();
+    }
+
     @Override
     public boolean mangleTableDirNames() {
         return getDelegate().mangleTableDirNames();
@@ -61,6 +61,7 @@ import io.questdb.cairo.sql.TableReferenceOutOfDateException;
 import io.questdb.cairo.vm.api.MemoryMARW;
 import io.questdb.cairo.wal.DefaultWalDirectoryPolicy;
 import io.questdb.cairo.wal.DefaultWalListener;
+import io.questdb.cairo.wal.SharedSymbolCache;
 import io.questdb.cairo.wal.WalDirectoryPolicy;
 import io.questdb.cairo.wal.WalListener;
 import io.questdb.cairo.wal.WalReader;
@@ -80,6 +81,7 @@ import io.questdb.griffin.SqlCompilerFactoryImpl;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.QueryResultCache;
 import io.questdb.griffin.engine.ops.CreateMatViewOperation;
 import io.questdb.griffin.engine.ops.Operation;
 import io.questdb.griffin.engine.ops.UpdateOperation;
@@ -140,9 +142,11 @@ public class CairoEngine implements Closeable, WriterSource {
     private final Metrics metrics;
     private final PartitionOverwriteControl partitionOverwriteControl = new PartitionOverwriteControl();
     private final QueryRegistry queryRegistry;
+    private final QueryResultCache queryResultCache;
     private final ReaderPool readerPool;
     private final SqlExecutionContext rootExecutionContext;
     private final SequencerMetadataPool sequencerMetadataPool;
+    private final SharedSymbolCache sharedSymbolCache;
     private final SqlCompilerPool sqlCompilerPool;
     private final TableFlagResolver tableFlagResolver;
     private final IDGenerator tableIdGenerator;
@@ -192,6 +196,8 @@ public class CairoEngine implements Closeable, WriterSource {
             this.tableIdGenerator = IDGeneratorFactory.newIDGenerator(configuration, TableUtils.TAB_INDEX_FILE_NAME, 1);
             this.checkpointAgent = new DatabaseCheckpointAgent(this);
             this.queryRegistry = new QueryRegistry(configuration);
+            this.queryResultCache = new QueryResultCache(configuration);
+            this.sharedSymbolCache = new SharedSymbolCache(configuration.isWalSharedSymbolCacheEnabled());
             this.rootExecutionContext = new SqlExecutionContextImpl(this, 1)
                     .with(AllowAllSecurityContext.INSTANCE);
 
@@ -376,6 +382,8 @@ public class CairoEngine implements Closeable, WriterSource {
         boolean b5 = walWriterPool.releaseAll();
         boolean b6 = tableMetadataPool.releaseAll();
         partitionOverwriteControl.clear();
+        queryResultCache.clear();
+        sharedSymbolCache.clear();
         return b1 & b2 & b3 & b4 & b5 & b6;
     }
 
@@ -394,6 +402,7 @@ public class CairoEngine implements Closeable, WriterSource {
         Misc.free(tableNameRegistry);
         Misc.free(checkpointAgent);
         Misc.free(metadataCache);
+        Misc.free(queryResultCache);
     }
 
     @TestOnly
@@ -612,6 +621,10 @@ public class CairoEngine implements Closeable, WriterSource {
         return queryRegistry;
     }
 
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
     public TableReader getReader(CharSequence tableName) {
         TableToken tableToken = verifyTableNameForRead(tableName);
         // Do not call getReader(TableToken tableToken), it will do unnecessary token verification
@@ -712,6 +725,10 @@ public class CairoEngine implements Closeable, WriterSource {
         return metadata;
     }
 
+    public SharedSymbolCache getSharedSymbolCache() {
+        return sharedSymbolCache;
+    }
+
     public SqlCompiler getSqlCompiler() {
         return sqlCompilerPool.get();
     }
@@ -1022,6 +1039,7 @@ public class CairoEngine implements Closeable, WriterSource {
 
     public void notifyDropped(TableToken tableToken) {
         tableNameRegistry.dropTable(tableToken);
+        sharedSymbolCache.dropTable(tableToken);
     }
 
     public void notifyMatViewBaseCommit(MatViewRefreshTask task, long seqTxn) {
@@ -44,6 +44,7 @@ public class CairoTable implements Sinkable {
     private int timestampIndex;
     private TableToken token;
     private int ttlHoursOrMonths;
+    private int walPriority;
 
     public CairoTable(@NotNull TableToken token) {
         setTableToken(token);
@@ -63,6 +64,7 @@ public class CairoTable implements Sinkable {
         this.o3MaxLag = fromTab.getO3MaxLag();
         this.timestampIndex = fromTab.getTimestampIndex();
         this.ttlHoursOrMonths = fromTab.getTtlHoursOrMonths();
+        this.walPriority = fromTab.getWalPriority();
         this.isSoftLink = fromTab.getIsSoftLink();
         this.isDedup = fromTab.getIsDedup();
     }
@@ -163,6 +165,10 @@ public class CairoTable implements Sinkable {
         return getTableToken().isWal();
     }
 
+    public int getWalPriority() {
+        return walPriority;
+    }
+
     public void setIsDedup(boolean isDedup) {
         this.isDedup = isDedup;
     }
@@ -199,6 +205,10 @@ public class CairoTable implements Sinkable {
         this.ttlHoursOrMonths = ttlHoursOrMonths;
     }
 
+    public void setWalPriority(int walPriority) {
+        this.walPriority = walPriority;
+    }
+
     @Override
     public void toSink(@NotNull CharSink<?> sink) {
         sink.put("CairoTable [");
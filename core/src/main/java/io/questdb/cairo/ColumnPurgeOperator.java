@@ -326,6 +326,22 @@ public class ColumnPurgeOperator implements Closeable {
                     }
                 }
 
+                if (ZoneMapUtils.isSupported(columnType)) {
+                    path.trimTo(pathTrimToPartition);
+                    if (couldNotRemove(ff, ZoneMapUtils.zmFile(path, columnName, columnVersion))) {
+                        allDone = false;
+                        continue;
+                    }
+                }
+
+                if (BloomFilterUtils.isSupported(columnType)) {
+                    path.trimTo(pathTrimToPartition);
+                    if (couldNotRemove(ff, BloomFilterUtils.bfFile(path, columnName, columnVersion))) {
+                        allDone = false;
+                        continue;
+                    }
+                }
+
                 // Check if it's symbol, try remove .k and .v files in the partition
                 if (ColumnType.isSymbol(columnType)) {
                     if (isSymbolRootFiles) {
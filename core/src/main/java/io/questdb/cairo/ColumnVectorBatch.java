@@ -0,0 +1,111 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+
+/**
+ * Describes a run of rows held in native column vectors, ready to be appended with
+ * {@link TableWriterAPI#appendColumnBatch(ColumnVectorBatch)}. Vectors use the storage
+ * layout of the target column: fixed-size values back to back, var-size values as a data
+ * vector plus an aux vector, exactly as in the column files, with aux offsets relative to
+ * the data vector address. The designated timestamp is a separate vector of longs.
+ * <p>
+ * The batch does not own the memory it points to, the caller must keep the vectors
+ * alive until the append returns.
+ */
+public class ColumnVectorBatch implements Mutable {
+    private final LongList auxAddresses = new LongList();
+    private final IntList columnIndexes = new IntList();
+    private final LongList dataAddresses = new LongList();
+    private long rowCount;
+    private long timestampAddress;
+
+    public ColumnVectorBatch addColumn(int columnIndex, long dataAddress) {
+        return addColumn(columnIndex, dataAddress, 0);
+    }
+
+    public ColumnVectorBatch addColumn(int columnIndex, long dataAddress, long auxAddress) {
+        columnIndexes.add(columnIndex);
+        dataAddresses.add(dataAddress);
+        auxAddresses.add(auxAddress);
+        return this;
+    }
+
+    @Override
+    public void clear() {
+        columnIndexes.clear();
+        dataAddresses.clear();
+        auxAddresses.clear();
+        rowCount = 0;
+        timestampAddress = 0;
+    }
+
+    public long getAuxAddress(int index) {
+        return auxAddresses.getQuick(index);
+    }
+
+    public int getColumnCount() {
+        return columnIndexes.size();
+    }
+
+    public int getColumnIndex(int index) {
+        return columnIndexes.getQuick(index);
+    }
+
+    public long getDataAddress(int index) {
+        return dataAddresses.getQuick(index);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getTimestamp(long row) {
+        return Unsafe.getUnsafe().getLong(timestampAddress + (row << 3));
+    }
+
+    public long getTimestampAddress() {
+        return timestampAddress;
+    }
+
+    /**
+     * Starts a new batch, dropping the columns of the previous one.
+     *
+     * @param timestampAddress address of rowCount designated timestamps, ignored for tables without one
+     * @param rowCount         number of rows in every vector of the batch
+     * @return this batch
+     */
+    public ColumnVectorBatch of(long timestampAddress, long rowCount) {
+        clear();
+        this.timestampAddress = timestampAddress;
+        this.rowCount = rowCount;
+        return this;
+    }
+}
@@ -68,6 +68,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
     private final LongSupplier importIDSupplier = () -> getRandom().nextPositiveLong();
     private final String installRoot;
     private final CharSequence legacyCheckpointRoot;
+    private final CharSequence spillRoot;
     private final DefaultTelemetryConfiguration telemetryConfiguration = new DefaultTelemetryConfiguration();
     private final TextConfiguration textConfiguration;
     private final VolumeDefinitions volumeDefinitions = new VolumeDefinitions();
@@ -84,6 +85,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         this.textConfiguration = new DefaultTextConfiguration(Chars.toString(confRoot));
         this.checkpointRoot = PropServerConfiguration.rootSubdir(dbRoot, TableUtils.CHECKPOINT_DIRECTORY);
         this.legacyCheckpointRoot = PropServerConfiguration.rootSubdir(dbRoot, TableUtils.LEGACY_CHECKPOINT_DIRECTORY);
+        this.spillRoot = PropServerConfiguration.rootSubdir(dbRoot, PropServerConfiguration.TMP_DIRECTORY);
         Rnd rnd = new Rnd(NanosecondClockImpl.INSTANCE.getTicks(), MicrosecondClockImpl.INSTANCE.getTicks());
         this.databaseIdLo = rnd.nextLong();
         this.databaseIdHi = rnd.nextLong();
@@ -149,6 +151,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 8;
     }
 
+    @Override
+    public int getBloomFilterBitsPerRow() {
+        return 10;
+    }
+
     @Override
     public @NotNull BuildInformation getBuildInformation() {
         return buildInformation;
@@ -890,6 +897,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1_000;
     }
 
+    @Override
+    public int getSqlPageFramePrefetchFrames() {
+        return 8;
+    }
+
+    @Override
+    public int getSqlPageFramePrefetchQueueDepth() {
+        return 64;
+    }
+
+    @Override
+    public long getSqlParallelHashJoinBuildThreshold() {
+        return 1_000_000;
+    }
+
     @Override
     public int getSqlParallelWorkStealingThreshold() {
         return 16;
@@ -900,6 +922,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 3;
     }
 
+    @Override
+    public long getSqlResultCacheMaxResultSize() {
+        return Numbers.SIZE_1MB;
+    }
+
+    @Override
+    public long getSqlResultCacheMemoryLimit() {
+        return 64 * Numbers.SIZE_1MB;
+    }
+
     @Override
     public int getSqlSmallMapKeyCapacity() {
         return 64;
@@ -940,6 +972,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return Numbers.SIZE_1MB * 16;
     }
 
+    @Override
+    public long getSqlSpillMemoryBudget() {
+        return 0;
+    }
+
+    @Override
+    public int getSqlSpillPartitionCount() {
+        return 16;
+    }
+
+    @Override
+    public CharSequence getSqlSpillRoot() {
+        return spillRoot;
+    }
+
     @Override
     public int getSqlUnorderedMapMaxEntrySize() {
         return 16;
@@ -1055,11 +1102,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return volumeDefinitions;
     }
 
+    @Override
+    public int getWalApplyCoalesceTxnCount() {
+        return 1;
+    }
+
     @Override
     public int getWalApplyLookAheadTransactionCount() {
         return 20;
     }
 
+    @Override
+    public int getWalApplyScheduleBatchSize() {
+        return 1;
+    }
+
     @Override
     public long getWalApplyTableTimeQuota() {
         return 1000L;
@@ -1085,6 +1142,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 20;
     }
 
+    @Override
+    public long getWalMaxApplyLagTxnCount() {
+        return 0;
+    }
+
     @Override
     public long getWalMaxLagSize() {
         return 75 * Numbers.SIZE_1MB;
@@ -1179,6 +1241,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024 - 1;
     }
 
+    @Override
+    public int getZoneMapBlockRowCount() {
+        return 100_000;
+    }
+
+    @Override
+    public boolean isBloomFilterEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isCheckpointRecoveryEnabled() {
         return false;
@@ -1214,6 +1286,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return false;
     }
 
+    @Override
+    public boolean isO3DedupSkipUnchangedEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isO3QuickSortEnabled() {
         return false;
@@ -1254,6 +1331,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSqlPageFramePrefetchEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlParallelAsOfJoinEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isSqlParallelFilterEnabled() {
         return true;
@@ -1269,11 +1356,31 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlParallelOrderByEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isSqlParallelReadParquetEnabled() {
         return true;
     }
 
+    @Override
+    public boolean isSqlParallelSampleByFillEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlResultCacheEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isTableTypeConversionEnabled() {
         return true;
@@ -1284,11 +1391,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isWalApplyParallelDecodeEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isWalApplyParallelSqlEnabled() {
         return true;
     }
 
+    @Override
+    public boolean isWalSharedSymbolCacheEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isWalSupported() {
         return true;
@@ -1299,6 +1416,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return writerMixedIOEnabled;
     }
 
+    @Override
+    public boolean isZoneMapEnabled() {
+        return false;
+    }
+
     @Override
     public boolean mangleTableDirNames() {
         return false;
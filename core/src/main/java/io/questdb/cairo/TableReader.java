@@ -331,6 +331,13 @@ public class TableReader implements Closeable, SymbolTableSource {
         return parquetPartitions.getQuick(partitionIndex).addressOf(0);
     }
 
+    /**
+     * Returns previously open Parquet partition's file descriptor or -1 in case of a native partition.
+     */
+    public long getParquetFd(int partitionIndex) {
+        return parquetPartitions.getQuick(partitionIndex).getFd();
+    }
+
     /**
      * Returns previously open Parquet partition read size or -1 in case of a native partition.
      */
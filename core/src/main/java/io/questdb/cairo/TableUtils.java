@@ -48,6 +48,7 @@ import io.questdb.cairo.vm.api.MemoryMARW;
 import io.questdb.cairo.vm.api.MemoryMR;
 import io.questdb.cairo.vm.api.MemoryMW;
 import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.cairo.wal.WalApplyPriority;
 import io.questdb.griffin.AnyRecordMetadata;
 import io.questdb.griffin.FunctionParser;
 import io.questdb.griffin.SqlException;
@@ -117,6 +118,8 @@ public final class TableUtils {
     public static final long META_OFFSET_WAL_ENABLED = 40; // BOOLEAN
     public static final long META_OFFSET_META_FORMAT_MINOR_VERSION = META_OFFSET_WAL_ENABLED + 1; // INT
     public static final long META_OFFSET_TTL_HOURS_OR_MONTHS = META_OFFSET_META_FORMAT_MINOR_VERSION + 4; // INT
+    // WAL apply priority + 1, zero in tables written before the field existed reads as normal priority
+    public static final long META_OFFSET_WAL_PRIORITY = META_OFFSET_TTL_HOURS_OR_MONTHS + 4; // INT
     public static final String META_PREV_FILE_NAME = "_meta.prev";
     /**
      * TXN file structure
@@ -1856,6 +1859,7 @@ public final class TableUtils {
         mem.putBool(tableStruct.isWalEnabled());
         mem.putInt(TableUtils.calculateMetaFormatMinorVersionField(0, count));
         mem.putInt(tableStruct.getTtlHoursOrMonths());
+        mem.putInt(WalApplyPriority.NORMAL + 1);
         mem.jumpTo(TableUtils.META_OFFSET_COLUMN_TYPES);
 
         assert count > 0;
@@ -1983,6 +1987,11 @@ public final class TableUtils {
         return isMetaFormatUpToDate(metaMem) ? metaMem.getInt(TableUtils.META_OFFSET_TTL_HOURS_OR_MONTHS) : 0;
     }
 
+    static int getWalPriority(MemoryR metaMem) {
+        final int value = isMetaFormatUpToDate(metaMem) ? metaMem.getInt(TableUtils.META_OFFSET_WAL_PRIORITY) : 0;
+        return value > 0 && value <= WalApplyPriority.COUNT ? value - 1 : WalApplyPriority.NORMAL;
+    }
+
     static boolean isColumnDedupKey(MemoryR metaMem, int columnIndex) {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_DEDUP_KEY) != 0;
     }
@@ -110,11 +110,13 @@ import io.questdb.std.WeakClosableObjectPool;
 import io.questdb.std.datetime.DateFormat;
 import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.datetime.millitime.DateFormatUtils;
+import io.questdb.std.str.DirectString;
 import io.questdb.std.str.DirectUtf8Sequence;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.Path;
 import io.questdb.std.str.Sinkable;
 import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8SplitString;
 import io.questdb.std.str.Utf8String;
 import io.questdb.std.str.Utf8StringSink;
 import io.questdb.std.str.Utf8s;
@@ -125,6 +127,7 @@ import io.questdb.tasks.O3OpenColumnTask;
 import io.questdb.tasks.O3PartitionTask;
 import io.questdb.tasks.TableWriterTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
 import java.io.Closeable;
@@ -173,6 +176,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     };
     private static final Row NOOP_ROW = new NoOpRow();
     private static final int O3_ERRNO_FATAL = Integer.MAX_VALUE - 1;
+    // max rows with equal timestamp to compare an O3 row against when checking for unchanged partitions
+    private static final int O3_UNCHANGED_MAX_SCAN_ROWS = 1024;
     private static final int ROW_ACTION_NO_PARTITION = 1;
     private static final int ROW_ACTION_NO_TIMESTAMP = 2;
     private static final int ROW_ACTION_O3 = 3;
@@ -183,7 +188,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     // Publisher source is identified by a long value
     private final AlterOperation alterOp = new AlterOperation();
     private final LongConsumer appendTimestampSetter;
+    private final DirectString batchStrView = new DirectString();
+    private final Utf8SplitString batchVarcharView = new Utf8SplitString();
+    private final BloomFilterWriter bloomFilterWriter;
     private final DatabaseCheckpointStatus checkpointStatus;
+    private final LongList columnSummaryPartitions = new LongList();
     private final ColumnVersionWriter columnVersionWriter;
     private final MPSequence commandPubSeq;
     private final RingQueue<TableWriterTask> commandQueue;
@@ -223,6 +232,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final long[] o3LastTimestampSpreads;
     private final AtomicLong o3PartitionUpdRemaining = new AtomicLong();
     private final boolean o3QuickSortEnabled;
+    // per column: fixed or aux vector address and size, data vector address and size
+    private final LongList o3UnchangedCheckMappings = new LongList();
+    private final Utf8SplitString o3VarcharViewA = new Utf8SplitString();
+    private final Utf8SplitString o3VarcharViewB = new Utf8SplitString();
     private final Path other;
     private final MessageBus ownMessageBus;
     private final boolean parallelIndexerEnabled;
@@ -241,7 +254,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final LongList rowValueIsNotNull = new LongList();
     private final TxReader slaveTxReader;
     private final ObjList<MapWriter> symbolMapWriters;
-    private final IntList symbolRewriteMap = new IntList();
+    private final IntList symbolRewriteCleanCounts = new IntList();
+    private final ObjList<IntList> symbolRewriteMaps = new ObjList<>();
     private final MemoryMARW todoMem = Vm.getCMARWInstance();
     private final TxWriter txWriter;
     private final TxnScoreboard txnScoreboard;
@@ -254,6 +268,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private final WeakClosableObjectPool<LongList> walFdCacheListPool = new WeakClosableObjectPool<>(LongList::new, 5, true);
     private final LongObjHashMap.LongObjConsumer<LongList> walFdCloseCachedFdAction;
     private final ObjList<MemoryCMOR> walMappedColumns = new ObjList<>();
+    private final ZoneMapWriter zoneMapWriter;
     private ObjList<? extends MemoryA> activeColumns;
     private ObjList<Runnable> activeNullSetters;
     private ColumnVersionReader attachColumnVersionReader;
@@ -266,6 +281,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private long avgRecordSize;
     private boolean avoidIndexOnCommit = false;
     private int columnCount;
+    private long columnSummaryLastBlockCount = -1;
+    private long columnSummaryLastColumnVersion = -1;
+    private long columnSummaryLastMetadataVersion = -1;
+    private long columnSummaryLastPartitionNameTxn = -1;
+    private long columnSummaryLastPartitionTimestamp = Long.MIN_VALUE;
     private long committedMasterRef;
     private ConvertOperatorImpl convertOperatorImpl;
     private DedupColumnCommitAddresses dedupColumnCommitAddresses;
@@ -306,10 +326,12 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     private PurgingOperator purgingOperator;
     private boolean removeDirOnCancelRow = true;
     private int rowAction = ROW_ACTION_OPEN_PARTITION;
+    private Path symbolRewriteWalPath;
     private TableToken tableToken;
     private final ColumnTaskHandler cthAppendWalColumnToLastPartition = this::cthAppendWalColumnToLastPartition;
     private final ColumnTaskHandler cthO3SortColumnRef = this::cthO3SortColumn;
     private final ColumnTaskHandler cthMergeWalColumnWithLag = this::cthMergeWalColumnWithLag;
+    private final ColumnTaskHandler cthRemapWalSymbols = this::cthRemapWalSymbols;
     private final ColumnTaskHandler cthO3MoveUncommittedRef = this::cthO3MoveUncommitted;
     private final ColumnTaskHandler cthO3ShiftColumnInLagToTopRef = this::cthO3ShiftColumnInLagToTop;
     private long tempMem16b = Unsafe.malloc(16, MemoryTag.NATIVE_TABLE_WRITER);
@@ -380,6 +402,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             this.o3ColumnOverrides = metadata.isWalEnabled() ? new ObjList<>() : null;
             this.parquetStatBuffers = new RowGroupStatBuffers(MemoryTag.NATIVE_TABLE_WRITER);
             this.parquetColumnIdsAndTypes = new DirectIntList(2, MemoryTag.NATIVE_TABLE_WRITER);
+            this.zoneMapWriter = configuration.isZoneMapEnabled() && PartitionBy.isPartitioned(partitionBy) ? new ZoneMapWriter(configuration) : null;
+            this.bloomFilterWriter = configuration.isBloomFilterEnabled() && PartitionBy.isPartitioned(partitionBy) ? new BloomFilterWriter(configuration) : null;
 
             if (metadata.isWalEnabled()) {
                 // O3 columns will be allocated to the size of the transaction, not reason to over allocate.
@@ -743,6 +767,37 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    /**
+     * Appends the batch row by row. Rows of a non-WAL table are routed to partitions and to the
+     * O3 area one by one, so there is nothing to gain from block copies here.
+     */
+    @Override
+    public void appendColumnBatch(ColumnVectorBatch batch) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        for (int i = 0, n = batch.getColumnCount(); i < n; i++) {
+            final int columnIndex = batch.getColumnIndex(i);
+            final int columnType = columnIndex > -1 && columnIndex < columnCount ? metadata.getColumnType(columnIndex) : -1;
+            if (columnType < 0 || columnIndex == timestampIndex || ColumnType.isSymbol(columnType)
+                    || (ColumnType.isVarSize(columnType) && batch.getAuxAddress(i) == 0)) {
+                throw CairoException.nonCritical().put("column cannot be appended from a vector [table=").put(tableToken.getTableName())
+                        .put(", columnIndex=").put(columnIndex).put(']');
+            }
+        }
+
+        for (long r = 0, rowCount = batch.getRowCount(); r < rowCount; r++) {
+            final Row row = timestampIndex > -1 ? newRow(batch.getTimestamp(r)) : newRow();
+            try {
+                for (int i = 0, n = batch.getColumnCount(); i < n; i++) {
+                    putBatchValue(row, batch, i, r);
+                }
+                row.append();
+            } catch (Throwable th) {
+                row.cancel();
+                throw th;
+            }
+        }
+    }
+
     @Override
     public long apply(AlterOperation alterOp, boolean contextAllowsAnyStructureChanges) throws AlterTableContextException {
         return alterOp.apply(this, contextAllowsAnyStructureChanges);
@@ -1096,6 +1151,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             syncColumns();
         }
         txWriter.commit(denseSymbolMapWriters);
+        updateColumnSummaries();
     }
 
     public long commitWalTransaction(
@@ -1107,6 +1163,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             long o3TimestampMax,
             SymbolMapDiffCursor mapDiffCursor,
             long seqTxn,
+            int txnCount,
             O3JobParallelismRegulator regulator
     ) {
         if (hasO3() || columnVersionWriter.hasChanges()) {
@@ -1123,6 +1180,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         LOG.info().$("processing WAL [path=").$substr(pathRootSize, walPath).$(", roLo=").$(rowLo)
                 .$(", roHi=").$(rowHi)
                 .$(", seqTxn=").$(seqTxn)
+                .$(", txnCount=").$(txnCount)
                 .$(", tsMin=").$ts(o3TimestampMin).$(", tsMax=").$ts(o3TimestampMax)
                 .$(", commitToTs=").$ts(commitToTimestamp)
                 .I$();
@@ -1144,6 +1202,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     commitToTimestamp,
                     walSegmentId,
                     isLastSegmentUsage,
+                    txnCount,
                     regulator
             );
         } catch (CairoException e) {
@@ -1171,6 +1230,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             lastWalCommitTimestampMicros = configuration.getMicrosecondClock().getTicks();
 
             squashSplitPartitions(minSplitPartitionTimestamp, txWriter.maxTimestamp, configuration.getO3LastPartitionMaxSplits());
+            updateColumnSummaries();
 
             // Bookmark masterRef to track how many rows is in uncommitted state
             committedMasterRef = masterRef;
@@ -2114,6 +2174,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return metadata.getMaxUncommittedRows();
     }
 
+    public int getMetaWalPriority() {
+        return metadata.getWalPriority();
+    }
+
     @Override
     public TableMetadata getMetadata() {
         return metadata;
@@ -2434,6 +2498,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             long commitToTimestamp,
             long walSegmentId,
             boolean isLastSegmentUsage,
+            int txnCount,
             O3JobParallelismRegulator regulator
     ) {
         int walRootPathLen = walPath.size();
@@ -2533,7 +2598,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     txWriter.setLagOrdered(lagOrderedNew);
                     txWriter.setLagMinTimestamp(newMinLagTimestamp);
                     txWriter.setLagMaxTimestamp(Math.max(o3TimestampMax, txWriter.getLagMaxTimestamp()));
-                    txWriter.setLagTxnCount(txWriter.getLagTxnCount() + 1);
+                    txWriter.setLagTxnCount(txWriter.getLagTxnCount() + txnCount);
 
                     if (canFastCommitNew) {
                         applyFromWalLagToLastPartition(commitToTimestamp, false);
@@ -2977,6 +3042,13 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         writeMetadataToDisk();
     }
 
+    @Override
+    public void setMetaWalPriority(int walPriority) {
+        commit();
+        metadata.setWalPriority(walPriority);
+        writeMetadataToDisk();
+    }
+
     public void setSeqTxn(long seqTxn) {
         assert txWriter.getLagRowCount() == 0 && txWriter.getLagTxnCount() == 0;
         txWriter.setSeqTxn(seqTxn);
@@ -3198,6 +3270,97 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void putBatchValue(Row row, ColumnVectorBatch batch, int index, long r) {
+        final int columnIndex = batch.getColumnIndex(index);
+        final int columnType = metadata.getColumnType(columnIndex);
+        final long dataAddr = batch.getDataAddress(index);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                row.putByte(columnIndex, Unsafe.getUnsafe().getByte(dataAddr + r));
+                break;
+            case ColumnType.GEOBYTE:
+                row.putGeoHash(columnIndex, Unsafe.getUnsafe().getByte(dataAddr + r));
+                break;
+            case ColumnType.SHORT:
+                row.putShort(columnIndex, Unsafe.getUnsafe().getShort(dataAddr + (r << 1)));
+                break;
+            case ColumnType.CHAR:
+                row.putChar(columnIndex, Unsafe.getUnsafe().getChar(dataAddr + (r << 1)));
+                break;
+            case ColumnType.GEOSHORT:
+                row.putGeoHash(columnIndex, Unsafe.getUnsafe().getShort(dataAddr + (r << 1)));
+                break;
+            case ColumnType.INT:
+                row.putInt(columnIndex, Unsafe.getUnsafe().getInt(dataAddr + (r << 2)));
+                break;
+            case ColumnType.IPv4:
+                row.putIPv4(columnIndex, Unsafe.getUnsafe().getInt(dataAddr + (r << 2)));
+                break;
+            case ColumnType.GEOINT:
+                row.putGeoHash(columnIndex, Unsafe.getUnsafe().getInt(dataAddr + (r << 2)));
+                break;
+            case ColumnType.FLOAT:
+                row.putFloat(columnIndex, Unsafe.getUnsafe().getFloat(dataAddr + (r << 2)));
+                break;
+            case ColumnType.LONG:
+                row.putLong(columnIndex, Unsafe.getUnsafe().getLong(dataAddr + (r << 3)));
+                break;
+            case ColumnType.DATE:
+                row.putDate(columnIndex, Unsafe.getUnsafe().getLong(dataAddr + (r << 3)));
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(columnIndex, Unsafe.getUnsafe().getLong(dataAddr + (r << 3)));
+                break;
+            case ColumnType.GEOLONG:
+                row.putGeoHash(columnIndex, Unsafe.getUnsafe().getLong(dataAddr + (r << 3)));
+                break;
+            case ColumnType.DOUBLE:
+                row.putDouble(columnIndex, Unsafe.getUnsafe().getDouble(dataAddr + (r << 3)));
+                break;
+            case ColumnType.LONG128:
+            case ColumnType.UUID: {
+                final long addr = dataAddr + (r << 4);
+                row.putLong128(columnIndex, Unsafe.getUnsafe().getLong(addr), Unsafe.getUnsafe().getLong(addr + Long.BYTES));
+                break;
+            }
+            case ColumnType.LONG256: {
+                final long addr = dataAddr + (r << 5);
+                row.putLong256(
+                        columnIndex,
+                        Unsafe.getUnsafe().getLong(addr),
+                        Unsafe.getUnsafe().getLong(addr + Long.BYTES),
+                        Unsafe.getUnsafe().getLong(addr + 2 * Long.BYTES),
+                        Unsafe.getUnsafe().getLong(addr + 3 * Long.BYTES)
+                );
+                break;
+            }
+            case ColumnType.STRING: {
+                final long addr = dataAddr + Unsafe.getUnsafe().getLong(batch.getAuxAddress(index) + (r << 3));
+                final int len = Unsafe.getUnsafe().getInt(addr);
+                if (len != TableUtils.NULL_LEN) {
+                    row.putStr(columnIndex, batchStrView.of(addr + Integer.BYTES, len));
+                }
+                break;
+            }
+            case ColumnType.BINARY: {
+                final long addr = dataAddr + Unsafe.getUnsafe().getLong(batch.getAuxAddress(index) + (r << 3));
+                final long len = Unsafe.getUnsafe().getLong(addr);
+                if (len != TableUtils.NULL_LEN) {
+                    row.putBin(columnIndex, addr + Long.BYTES, len);
+                }
+                break;
+            }
+            case ColumnType.VARCHAR:
+                // the vectors are not bounded by the batch, the limits only guard reads past the values
+                row.putVarchar(columnIndex, VarcharTypeDriver.getSplitValue(batch.getAuxAddress(index), Long.MAX_VALUE, dataAddr, Long.MAX_VALUE, r, batchVarcharView));
+                break;
+            default:
+                throw CairoException.nonCritical().put("unsupported column type [table=").put(tableToken.getTableName())
+                        .put(", type=").put(ColumnType.nameOf(columnType)).put(']');
+        }
+    }
+
     private static void removeFileOrLog(FilesFacade ff, LPSZ name) {
         if (!ff.removeQuiet(name)) {
             LOG.error()
@@ -3968,6 +4131,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
 
             // Check if partitions are split into too many pieces and merge few of them back.
             squashSplitPartitions(minSplitPartitionTimestamp, txWriter.getMaxTimestamp(), configuration.getO3LastPartitionMaxSplits());
+            updateColumnSummaries();
 
             // Bookmark masterRef to track how many rows is in uncommitted state
             this.committedMasterRef = masterRef;
@@ -4922,6 +5086,36 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void cthRemapWalSymbols(
+            int columnIndex,
+            int columnType,
+            long timestampColumnIndex,
+            long rowLo,
+            long rowHi,
+            long ignore1,
+            long ignore2,
+            long ignore3
+    ) {
+        final int cleanSymbolCount = symbolRewriteCleanCounts.getQuick(columnIndex);
+        if (cleanSymbolCount < 0 || o3ErrorCount.get() > 0) {
+            return;
+        }
+        try {
+            remapWalSymbolColumn(columnIndex, cleanSymbolCount, rowLo, rowHi, symbolRewriteWalPath);
+        } catch (Throwable th) {
+            handleColumnTaskException(
+                    "could not remap WAL symbols",
+                    columnIndex,
+                    columnType,
+                    rowLo,
+                    rowHi,
+                    cleanSymbolCount,
+                    IGNORE,
+                    th
+            );
+        }
+    }
+
     private long deduplicateSortedIndex(long longIndexLength, long indexSrcAddr, long indexDstAddr, long tempIndexAddr, long lagRows) {
         LOG.info().$("WAL dedup sorted commit index [table=").$(tableToken).$(", totalRows=").$(longIndexLength).$(", lagRows=").$(lagRows).I$();
         int dedupKeyIndex = 0;
@@ -5092,6 +5286,8 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         Misc.free(parquetDecoder);
         Misc.free(parquetStatBuffers);
         Misc.free(parquetColumnIdsAndTypes);
+        Misc.free(zoneMapWriter);
+        Misc.free(bloomFilterWriter);
         closeWalFiles();
         updateOperatorImpl = Misc.free(updateOperatorImpl);
         convertOperatorImpl = Misc.free(convertOperatorImpl);
@@ -5391,6 +5587,15 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return columns.getQuick(getSecondaryColumnIndex(column));
     }
 
+    private IntList getSymbolRewriteMap(int columnIndex) {
+        IntList symbolRewriteMap = symbolRewriteMaps.getQuiet(columnIndex);
+        if (symbolRewriteMap == null) {
+            symbolRewriteMap = new IntList();
+            symbolRewriteMaps.extendAndSet(columnIndex, symbolRewriteMap);
+        }
+        return symbolRewriteMap;
+    }
+
     private long getWalMaxLagRows() {
         return Math.min(
                 Math.max(0L, (long) configuration.getWalLagRowsMultiplier() * metadata.getMaxUncommittedRows()),
@@ -5664,6 +5869,149 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         return false;
     }
 
+    /**
+     * Checks if every O3 row of the partition is an exact copy of a row the partition already has.
+     * Rows are looked up by binary search on the timestamp column and compared column by column with
+     * the rows sharing the timestamp. Deduplication collapses every existing row with the upsert key
+     * of an O3 row, so the copy must also be the only row with that timestamp and upsert key, e.g.
+     * duplicates written before deduplication was enabled make the partition change. Partitions with
+     * column tops are never reported as unchanged.
+     * Only the timestamp column is mapped up front, the other columns are mapped when the first
+     * row comparison reaches them, so a partition with new timestamps or an early column mismatch
+     * doesn't pay for mapping the whole partition.
+     */
+    private boolean isO3PartitionUnchanged(
+            long partitionTimestamp,
+            long srcNameTxn,
+            long srcDataMax,
+            long sortedTimestampsAddr,
+            long srcOooLo,
+            long srcOooHi
+    ) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        final Path path = Path.getThreadLocal(this.path);
+        setPathForNativePartition(path, partitionBy, partitionTimestamp, srcNameTxn);
+        final int plen = path.size();
+        final LongList mappings = o3UnchangedCheckMappings;
+        mappings.setAll(columnCount * 4, 0);
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                if (metadata.getColumnType(i) > 0 && getColumnTop(partitionTimestamp, i, -1) != 0) {
+                    return false;
+                }
+            }
+
+            // All O3 timestamps must be present in the partition before any other column is looked at.
+            mapO3UnchangedCheckColumn(path, plen, partitionTimestamp, srcDataMax, timestampIndex, mappings);
+            final long timestampAddr = mappings.getQuick(timestampIndex * 4);
+            for (long o3Row = srcOooLo; o3Row <= srcOooHi; o3Row++) {
+                final long timestamp = getTimestampIndexValue(sortedTimestampsAddr, o3Row);
+                if (Vect.binarySearch64Bit(timestampAddr, timestamp, 0, srcDataMax - 1, Vect.BIN_SEARCH_SCAN_UP) < 0) {
+                    return false;
+                }
+            }
+
+            for (long o3Row = srcOooLo; o3Row <= srcOooHi; o3Row++) {
+                final long timestamp = getTimestampIndexValue(sortedTimestampsAddr, o3Row);
+                final long rowLo = Vect.binarySearch64Bit(timestampAddr, timestamp, 0, srcDataMax - 1, Vect.BIN_SEARCH_SCAN_UP);
+                long rowHi = rowLo + 1;
+                while (rowHi < srcDataMax && Unsafe.getUnsafe().getLong(timestampAddr + rowHi * Long.BYTES) == timestamp) {
+                    if (rowHi - rowLo == O3_UNCHANGED_MAX_SCAN_ROWS) {
+                        return false;
+                    }
+                    rowHi++;
+                }
+
+                long keyRow = -1;
+                for (long dataRow = rowLo; dataRow < rowHi; dataRow++) {
+                    if (isO3RowUnchanged(path, plen, partitionTimestamp, srcDataMax, o3Row, dataRow, true, mappings)) {
+                        if (keyRow != -1) {
+                            // dedup would collapse both rows into one
+                            return false;
+                        }
+                        keyRow = dataRow;
+                    }
+                }
+                if (keyRow == -1 || !isO3RowUnchanged(path, plen, partitionTimestamp, srcDataMax, o3Row, keyRow, false, mappings)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            for (int i = 0, n = mappings.size(); i < n; i += 2) {
+                O3Utils.unmap(ff, mappings.getQuick(i), mappings.getQuick(i + 1));
+            }
+            mappings.clear();
+        }
+    }
+
+    private boolean isO3RowUnchanged(
+            Path path,
+            int plen,
+            long partitionTimestamp,
+            long srcDataMax,
+            long o3Row,
+            long dataRow,
+            boolean dedupKeysOnly,
+            LongList mappings
+    ) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (columnType < 0 || i == timestampIndex || (dedupKeysOnly && !metadata.isDedupKey(i))) {
+                continue;
+            }
+            final int offset = i * 4;
+            if (mappings.getQuick(offset) == 0) {
+                mapO3UnchangedCheckColumn(path, plen, partitionTimestamp, srcDataMax, i, mappings);
+            }
+            final MemoryCR o3Mem = o3Columns.getQuick(getPrimaryColumnIndex(i));
+            if (ColumnType.isVarchar(columnType)) {
+                final MemoryCR o3AuxMem = o3Columns.getQuick(getSecondaryColumnIndex(i));
+                final long auxAddr = mappings.getQuick(offset);
+                final long dataAddr = mappings.getQuick(offset + 2);
+                final Utf8Sequence value = VarcharTypeDriver.getSplitValue(
+                        auxAddr,
+                        auxAddr + mappings.getQuick(offset + 1),
+                        dataAddr,
+                        dataAddr + mappings.getQuick(offset + 3),
+                        dataRow,
+                        o3VarcharViewA
+                );
+                final Utf8Sequence o3Value = VarcharTypeDriver.getSplitValue(
+                        o3AuxMem.addressOf(0),
+                        o3AuxMem.addressHi(),
+                        o3Mem.addressOf(0),
+                        o3Mem.addressHi(),
+                        o3Row,
+                        o3VarcharViewB
+                );
+                if (value == null ? o3Value != null : o3Value == null || !Utf8s.equals(value, o3Value)) {
+                    return false;
+                }
+            } else if (ColumnType.isVarSize(columnType)) {
+                final ColumnTypeDriver driver = ColumnType.getDriver(columnType);
+                final long auxAddr = mappings.getQuick(offset);
+                final long o3AuxAddr = o3Columns.getQuick(getSecondaryColumnIndex(i)).addressOf(0);
+                final long size = driver.getDataVectorSize(auxAddr, dataRow, dataRow);
+                if (size != driver.getDataVectorSize(o3AuxAddr, o3Row, o3Row)
+                        || !Vect.memeq(
+                        mappings.getQuick(offset + 2) + driver.getDataVectorOffset(auxAddr, dataRow),
+                        o3Mem.addressOf(0) + driver.getDataVectorOffset(o3AuxAddr, o3Row),
+                        size
+                )) {
+                    return false;
+                }
+            } else {
+                final int shl = ColumnType.pow2SizeOf(columnType);
+                if (!Vect.memeq(mappings.getQuick(offset) + (dataRow << shl), o3Mem.addressOf(o3Row << shl), 1L << shl)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     private void lock() {
         try {
             path.trimTo(pathSize);
@@ -5701,6 +6049,36 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void mapO3UnchangedCheckColumn(
+            Path path,
+            int plen,
+            long partitionTimestamp,
+            long srcDataMax,
+            int columnIndex,
+            LongList mappings
+    ) {
+        final int columnType = metadata.getColumnType(columnIndex);
+        final CharSequence columnName = metadata.getColumnName(columnIndex);
+        final long columnNameTxn = getColumnNameTxn(partitionTimestamp, columnIndex);
+        final int offset = columnIndex * 4;
+        if (ColumnType.isVarSize(columnType)) {
+            final ColumnTypeDriver driver = ColumnType.getDriver(columnType);
+            final long auxSize = driver.getAuxVectorSize(srcDataMax);
+            final long auxAddr = mapRO(ff, iFile(path.trimTo(plen), columnName, columnNameTxn), LOG, auxSize, MemoryTag.MMAP_O3);
+            mappings.setQuick(offset, auxAddr);
+            mappings.setQuick(offset + 1, auxSize);
+            final long dataSize = driver.getDataVectorSizeAt(auxAddr, srcDataMax - 1);
+            if (dataSize > 0) {
+                mappings.setQuick(offset + 2, mapRO(ff, dFile(path.trimTo(plen), columnName, columnNameTxn), LOG, dataSize, MemoryTag.MMAP_O3));
+                mappings.setQuick(offset + 3, dataSize);
+            }
+        } else {
+            final long size = srcDataMax << ColumnType.pow2SizeOf(columnType);
+            mappings.setQuick(offset, mapRO(ff, dFile(path.trimTo(plen), columnName, columnNameTxn), LOG, size, MemoryTag.MMAP_O3));
+            mappings.setQuick(offset + 1, size);
+        }
+    }
+
     private void mmapWalColsEager() {
         for (int i = 0, n = walMappedColumns.size(); i < n; i++) {
             MemoryCR columnMem = o3Columns.get(i);
@@ -6092,6 +6470,9 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 final long o3SplitPartitionSize = Unsafe.getUnsafe().getLong(blockAddress + 5 * Long.BYTES);
 
                 txWriter.minTimestamp = Math.min(timestampMin, txWriter.minTimestamp);
+                if (zoneMapWriter != null || bloomFilterWriter != null) {
+                    columnSummaryPartitions.add(partitionTimestamp);
+                }
                 int partitionIndexRaw = txWriter.findAttachedPartitionRawIndexByLoTimestamp(partitionTimestamp);
 
                 final long newPartitionTimestamp = partitionTimestamp;
@@ -6102,6 +6483,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                     // The new partition overlaps in time with the previous one.
                     partitionTimestamp = txWriter.getPartitionTimestampByTimestamp(partitionTimestamp);
                     partitionIndexRaw = txWriter.findAttachedPartitionRawIndexByLoTimestamp(partitionTimestamp);
+                    if (zoneMapWriter != null || bloomFilterWriter != null) {
+                        // part1 keeps its directory but loses its tail
+                        columnSummaryPartitions.add(partitionTimestamp);
+                    }
                 }
 
                 if (partitionTimestamp == lastPartitionTimestamp && newPartitionTimestamp == partitionTimestamp) {
@@ -6778,6 +7163,22 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                                 .$();
                         continue;
                     }
+
+                    if (!append
+                            && !isParquet
+                            && srcDataMax > 0
+                            && isDeduplicationEnabled()
+                            && configuration.isO3DedupSkipUnchangedEnabled()
+                            && isO3PartitionUnchanged(partitionTimestamp, srcNameTxn, srcDataMax, sortedTimestampsAddr, srcOooLo, srcOooHi)
+                    ) {
+                        // deduplication would replace the rows with themselves
+                        LOG.info()
+                                .$("o3 skipping unchanged partition [table=").utf8(tableToken.getTableName())
+                                .$(", timestamp=").$ts(partitionTimestamp)
+                                .$(", numRows=").$(srcOooBatchRowSize)
+                                .I$();
+                        continue;
+                    }
                     final O3Basket o3Basket = o3BasketPool.next();
                     o3Basket.checkCapacity(configuration, columnCount, indexCount);
                     AtomicInteger columnCounter = o3ColumnCounters.next();
@@ -7392,6 +7793,34 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    // Rewrites WAL symbol keys of the given column into table symbol keys. The keys are taken from the
+    // mapped WAL column and written to the in-memory O3 column, which is set up by remapWalSymbols().
+    private void remapWalSymbolColumn(int columnIndex, int cleanSymbolCount, long rowLo, long rowHi, @Nullable Path walPath) {
+        final int primaryColumnIndex = getPrimaryColumnIndex(columnIndex);
+        final MemoryCR o3SymbolColumn = o3Columns.getQuick(primaryColumnIndex);
+        final MemoryCARW symbolColumnDest = o3MemColumns1.get(primaryColumnIndex);
+        final IntList symbolRewriteMap = symbolRewriteMaps.getQuick(columnIndex);
+        for (long rowId = rowLo; rowId < rowHi; rowId++) {
+            int symKey = o3SymbolColumn.getInt(rowId << 2);
+            assert (symKey >= 0 || symKey == SymbolTable.VALUE_IS_NULL);
+            if (symKey >= cleanSymbolCount) {
+                int newKey = symbolRewriteMap.getQuick(symKey - cleanSymbolCount);
+                if (newKey < 0) {
+                    // This symbol was not mapped in WAL
+                    // WAL is invalid
+                    throw CairoException.critical(0).put("WAL symbol key not mapped [columnIndex=").put(columnIndex)
+                            .put(", columnKey=").put(symKey)
+                            .put(", walPath=").put(walPath)
+                            .put(", walRowId=").put(rowId)
+                            .put(']');
+                }
+                symKey = newKey;
+            }
+            symbolColumnDest.putInt((rowId - rowLo) << 2, symKey);
+        }
+        symbolColumnDest.shiftAddressRight(rowLo << 2);
+    }
+
     private ReadOnlyObjList<? extends MemoryCR> remapWalSymbols(
             SymbolMapDiffCursor symbolMapDiffCursor,
             long rowLo,
@@ -7400,6 +7829,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
     ) {
         o3ColumnOverrides.clear();
         if (symbolMapDiffCursor != null) {
+            final boolean parallel = configuration.isWalApplyParallelDecodeEnabled();
+            if (parallel) {
+                symbolRewriteCleanCounts.setAll(columnCount, -1);
+            }
+            int parallelColumnCount = 0;
             SymbolMapDiff symbolMapDiff;
             while ((symbolMapDiff = symbolMapDiffCursor.nextSymbolMapDiff()) != null) {
                 int columnIndex = symbolMapDiff.getColumnIndex();
@@ -7415,11 +7849,13 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                             .put(", walPath=").put(walPath)
                             .put(']');
                 }
+                // Symbol map writers are not thread-safe, so new symbols are always added on this thread.
+                // Only the per-row key rewrite below may run on the O3 pool.
+                final IntList symbolRewriteMap = getSymbolRewriteMap(columnIndex);
                 boolean identical = createWalSymbolMapping(symbolMapDiff, columnIndex, symbolRewriteMap);
 
                 if (!identical) {
                     int primaryColumnIndex = getPrimaryColumnIndex(columnIndex);
-                    MemoryCR o3SymbolColumn = o3Columns.getQuick(primaryColumnIndex);
                     final MemoryCARW symbolColumnDest;
 
                     // Column is read-only mapped memory, so we need to take in RAM column and remap values into it
@@ -7434,26 +7870,22 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
 
                     o3ColumnOverrides.setQuick(primaryColumnIndex, symbolColumnDest);
                     final int cleanSymbolCount = symbolMapDiff.getCleanSymbolCount();
-                    for (long rowId = rowLo; rowId < rowHi; rowId++) {
-
-                        int symKey = o3SymbolColumn.getInt(rowId << 2);
-                        assert (symKey >= 0 || symKey == SymbolTable.VALUE_IS_NULL);
-                        if (symKey >= cleanSymbolCount) {
-                            int newKey = symbolRewriteMap.getQuick(symKey - cleanSymbolCount);
-                            if (newKey < 0) {
-                                // This symbol was not mapped in WAL
-                                // WAL is invalid
-                                throw CairoException.critical(0).put("WAL symbol key not mapped [columnIndex=").put(columnIndex)
-                                        .put(", columnKey=").put(symKey)
-                                        .put(", walPath=").put(walPath)
-                                        .put(", walRowId=").put(rowId)
-                                        .put(']');
-                            }
-                            symKey = newKey;
-                        }
-                        symbolColumnDest.putInt((rowId - rowLo) << 2, symKey);
+                    if (parallel) {
+                        symbolRewriteCleanCounts.setQuick(columnIndex, cleanSymbolCount);
+                        parallelColumnCount++;
+                    } else {
+                        remapWalSymbolColumn(columnIndex, cleanSymbolCount, rowLo, rowHi, walPath);
                     }
-                    symbolColumnDest.shiftAddressRight(rowLo << 2);
+                }
+            }
+
+            if (parallelColumnCount > 0) {
+                // column tasks are consumed before dispatch returns, the path stays valid for their duration
+                symbolRewriteWalPath = walPath;
+                try {
+                    dispatchColumnTasks(rowLo, rowHi, IGNORE, IGNORE, IGNORE, cthRemapWalSymbols);
+                } finally {
+                    symbolRewriteWalPath = null;
                 }
             }
         }
@@ -7844,6 +8276,7 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             ddlMem.putBool(metadata.isWalEnabled());
             ddlMem.putInt(TableUtils.calculateMetaFormatMinorVersionField(version, columnCount));
             ddlMem.putInt(metadata.getTtlHoursOrMonths());
+            ddlMem.putInt(metadata.getWalPriority() + 1);
 
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
@@ -8408,6 +8841,83 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
         }
     }
 
+    private void updateColumnSummaries() {
+        if ((zoneMapWriter == null && bloomFilterWriter == null) || txWriter.getPartitionCount() == 0) {
+            return;
+        }
+        try {
+            for (int i = 0, n = columnSummaryPartitions.size(); i < n; i++) {
+                updateColumnSummaries(columnSummaryPartitions.getQuick(i), false);
+            }
+            updateColumnSummaries(txWriter.getPartitionTimestampByIndex(txWriter.getPartitionCount() - 1), true);
+        } catch (CairoException e) {
+            // zone maps and bloom filters are optional, queries fall back to scanning when they are missing
+            LOG.error().$("could not update column summaries [table=").utf8(tableToken.getTableName())
+                    .$(", msg=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .I$();
+        } finally {
+            columnSummaryPartitions.clear();
+            path.trimTo(pathSize);
+        }
+    }
+
+    private void updateColumnSummaries(long partitionTimestamp, boolean lastPartition) {
+        final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+        if (partitionIndex < 0 || txWriter.isPartitionParquet(partitionIndex) || txWriter.isPartitionReadOnly(partitionIndex)) {
+            return;
+        }
+        final long partitionRowCount = txWriter.getPartitionSize(partitionIndex);
+        final long partitionNameTxn = txWriter.getPartitionNameTxn(partitionIndex);
+        final long blockCount = partitionRowCount / configuration.getZoneMapBlockRowCount();
+        if (lastPartition) {
+            // most commits append less than a block to the last partition, skip them cheaply
+            if (columnSummaryLastPartitionTimestamp == partitionTimestamp
+                    && columnSummaryLastPartitionNameTxn == partitionNameTxn
+                    && columnSummaryLastBlockCount == blockCount
+                    && columnSummaryLastColumnVersion == columnVersionWriter.getVersion()
+                    && columnSummaryLastMetadataVersion == metadata.getMetadataVersion()) {
+                return;
+            }
+            columnSummaryLastPartitionTimestamp = Long.MIN_VALUE;
+        }
+
+        setPathForNativePartition(path.trimTo(pathSize), partitionBy, partitionTimestamp, partitionNameTxn);
+        final int timestampIndex = metadata.getTimestampIndex();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (columnType < 0 || i == timestampIndex) {
+                continue;
+            }
+            final boolean zoneMap = zoneMapWriter != null && ZoneMapUtils.isSupported(columnType);
+            final boolean bloomFilter = bloomFilterWriter != null
+                    && BloomFilterUtils.isSupported(columnType)
+                    && !metadata.isColumnIndexed(i);
+            if (!zoneMap && !bloomFilter) {
+                continue;
+            }
+            final long columnTop = columnVersionWriter.getColumnTop(partitionTimestamp, i);
+            if (columnTop < 0) {
+                continue;
+            }
+            final CharSequence columnName = metadata.getColumnName(i);
+            final long columnNameTxn = columnVersionWriter.getColumnNameTxn(partitionTimestamp, i);
+            if (zoneMap) {
+                zoneMapWriter.update(path, columnName, columnNameTxn, columnType, columnTop, partitionRowCount);
+            } else {
+                bloomFilterWriter.update(path, columnName, columnNameTxn, columnType, columnTop, partitionRowCount);
+            }
+        }
+
+        if (lastPartition) {
+            columnSummaryLastPartitionTimestamp = partitionTimestamp;
+            columnSummaryLastPartitionNameTxn = partitionNameTxn;
+            columnSummaryLastBlockCount = blockCount;
+            columnSummaryLastColumnVersion = columnVersionWriter.getVersion();
+            columnSummaryLastMetadataVersion = metadata.getMetadataVersion();
+        }
+    }
+
     private void updateIndexes() {
         if (indexCount == 0 || avoidIndexOnCommit) {
             avoidIndexOnCommit = false;
@@ -80,6 +80,15 @@ public interface TableWriterAPI extends Closeable {
             boolean isSequential
     );
 
+    /**
+     * Appends all rows of the batch to the pending transaction, as if each row was added via
+     * {@link #newRow(long)}. Table columns missing from the batch are set to null. Symbol
+     * columns cannot be appended from vectors because their keys are local to the writer.
+     *
+     * @param batch column vectors and timestamps of the rows to append
+     */
+    void appendColumnBatch(ColumnVectorBatch batch);
+
     long apply(AlterOperation alterOp, boolean contextAllowsAnyStructureChanges) throws AlterTableContextException;
 
     long apply(UpdateOperation operation);
@@ -42,6 +42,7 @@ public class TableWriterMetadata extends AbstractRecordMetadata implements Table
     private TableToken tableToken;
     private int ttlHoursOrMonths;
     private boolean walEnabled;
+    private int walPriority;
 
     public TableWriterMetadata(TableToken tableToken) {
         this.tableToken = tableToken;
@@ -116,6 +117,10 @@ public class TableWriterMetadata extends AbstractRecordMetadata implements Table
         return ttlHoursOrMonths;
     }
 
+    public int getWalPriority() {
+        return walPriority;
+    }
+
     @Override
     public boolean isIndexed(int columnIndex) {
         return getColumnMetadata(columnIndex).isSymbolIndexFlag();
@@ -139,6 +144,7 @@ public class TableWriterMetadata extends AbstractRecordMetadata implements Table
         this.metadataVersion = metaMem.getLong(TableUtils.META_OFFSET_METADATA_VERSION);
         this.walEnabled = metaMem.getBool(TableUtils.META_OFFSET_WAL_ENABLED);
         this.ttlHoursOrMonths = TableUtils.getTtlHoursOrMonths(metaMem);
+        this.walPriority = TableUtils.getWalPriority(metaMem);
 
         long offset = TableUtils.getColumnNameOffset(columnCount);
         this.symbolMapCount = 0;
@@ -190,6 +196,10 @@ public class TableWriterMetadata extends AbstractRecordMetadata implements Table
         this.ttlHoursOrMonths = ttlHoursOrMonths;
     }
 
+    public void setWalPriority(int walPriority) {
+        this.walPriority = walPriority;
+    }
+
     public void updateTableToken(TableToken tableToken) {
         this.tableToken = tableToken;
     }
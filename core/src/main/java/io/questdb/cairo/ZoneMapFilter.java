@@ -0,0 +1,682 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.PartitionFormat;
+import io.questdb.cairo.sql.StaticSymbolTable;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.TablePageFrameCursor;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.NumericException;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Uuid;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8StringSink;
+
+import static io.questdb.cairo.ZoneMapUtils.*;
+
+/**
+ * Prunes native page frames using zone maps and bloom filters. The filter holds a conjunction
+ * of simple predicates taken from the query filter: <code>column op constant</code> predicates
+ * checked against zone maps, and <code>column = constant</code> or <code>column IN (constants)</code>
+ * predicates checked against bloom filters. A frame is skipped when, for every block it
+ * overlaps, at least one predicate cannot hold for any row of the block. Frames that are not
+ * fully covered by summarised blocks are never skipped, so missing or lagging files only cost
+ * the pruning, not correctness.
+ * <p>
+ * The filter is not thread-safe, it is meant to be called by the thread that builds
+ * the page frame sequence.
+ */
+public class ZoneMapFilter implements QuietCloseable {
+    public static final int OP_EQ = 0;
+    public static final int OP_GE = 4;
+    public static final int OP_GT = 3;
+    public static final int OP_LE = 2;
+    public static final int OP_LT = 1;
+    private static final double DOUBLE_MARGIN = 1e-9;
+    private static final int HEADER_BLOCK_COUNT = 1;
+    private static final int HEADER_BLOCK_ROW_COUNT = 0;
+    private static final int HEADER_BLOCK_SIZE = 2;
+    private static final int HEADER_HASH_COUNT = 3;
+    private static final Log LOG = LogFactory.getLog(ZoneMapFilter.class);
+    private final IntList bloomActive = new IntList();
+    private final IntList bloomColumnIndexes = new IntList();
+    private final LongList bloomFds = new LongList();
+    private final ObjList<LongList> bloomHashes = new ObjList<>();
+    private final LongList bloomHeaders = new LongList();
+    private final LongList bloomMapAddrs = new LongList();
+    private final LongList bloomMapSizes = new LongList();
+    private final IntList bloomReaderIndexes = new IntList();
+    private final ObjList<ObjList<Function>> bloomValues = new ObjList<>();
+    private final IntList columnIndexes = new IntList();
+    private final ObjList<Function> constants = new ObjList<>();
+    private final LongList doubleValues = new LongList();
+    private final LongList excludedBlocks = new LongList();
+    private final FilesFacade ff;
+    private final LongList longValues = new LongList();
+    private final IntList ops = new IntList();
+    private final Path path = new Path();
+    private final LongList predicateBlockCounts = new LongList();
+    private final LongList predicateFds = new LongList();
+    private final IntList predicateReaderIndexes = new IntList();
+    private final String root;
+    private final Utf8StringSink utf8Sink = new Utf8StringSink();
+    private long bufferAddr;
+    private long bufferSize;
+    private int currentPartitionIndex = -1;
+    private long frameBlockHi;
+    private long frameBlockLo;
+    private long frameBlockRowCount;
+    private TableReader reader;
+    private long skippedFrameCount;
+
+    public ZoneMapFilter(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getDbRoot();
+    }
+
+    public static int flip(int op) {
+        switch (op) {
+            case OP_LT:
+                return OP_GT;
+            case OP_LE:
+                return OP_GE;
+            case OP_GT:
+                return OP_LT;
+            case OP_GE:
+                return OP_LE;
+            default:
+                return op;
+        }
+    }
+
+    public static boolean isSupportedBloomConstantType(int columnType, int constantType) {
+        if (!BloomFilterUtils.isSupported(columnType)) {
+            return false;
+        }
+        switch (ColumnType.tagOf(constantType)) {
+            case ColumnType.STRING:
+            case ColumnType.VARCHAR:
+            case ColumnType.SYMBOL:
+                return true;
+            case ColumnType.UUID:
+                return ColumnType.tagOf(columnType) == ColumnType.UUID;
+            default:
+                return false;
+        }
+    }
+
+    public static boolean isSupportedConstantType(int columnType, int constantType) {
+        if (!isSupported(columnType) || !isSupported(constantType)) {
+            return false;
+        }
+        final int columnTag = ColumnType.tagOf(columnType);
+        final int constantTag = ColumnType.tagOf(constantType);
+        final boolean columnIsTime = columnTag == ColumnType.DATE || columnTag == ColumnType.TIMESTAMP;
+        final boolean constantIsTime = constantTag == ColumnType.DATE || constantTag == ColumnType.TIMESTAMP;
+        if (columnIsTime || constantIsTime) {
+            // dates are in millis and timestamps are in micros, don't mix them up
+            return columnType == constantType;
+        }
+        return true;
+    }
+
+    /**
+     * Adds <code>column op constant</code> predicate. The filter takes ownership of the constant function.
+     *
+     * @param columnIndex index of the column in the page frame cursor's metadata
+     * @param op          one of OP_* constants
+     * @param constant    constant or runtime constant function
+     */
+    public void add(int columnIndex, int op, Function constant) {
+        columnIndexes.add(columnIndex);
+        ops.add(op);
+        constants.add(constant);
+    }
+
+    /**
+     * Adds <code>column IN (values)</code> predicate, equality is a single value list.
+     * The filter takes ownership of the value functions.
+     *
+     * @param columnIndex index of the column in the page frame cursor's metadata
+     * @param values      constant or runtime constant functions
+     */
+    public void addBloom(int columnIndex, ObjList<Function> values) {
+        bloomColumnIndexes.add(columnIndex);
+        bloomValues.add(values);
+        bloomHashes.add(new LongList(values.size()));
+    }
+
+    /**
+     * Returns true when the frame provably has no rows matching the filter.
+     */
+    public boolean canSkip(PageFrame frame) {
+        if (reader == null || frame.getFormat() != PartitionFormat.NATIVE) {
+            return false;
+        }
+        final int partitionIndex = frame.getPartitionIndex();
+        if (partitionIndex != currentPartitionIndex) {
+            closePartition();
+            currentPartitionIndex = partitionIndex;
+        }
+        final long lo = frame.getPartitionLo();
+        final long hi = frame.getPartitionHi();
+        if (hi <= lo) {
+            return false;
+        }
+
+        frameBlockRowCount = -1;
+        int loaded = 0;
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            if (longValues.getQuick(i) == Numbers.LONG_NULL && Double.isNaN(Double.longBitsToDouble(doubleValues.getQuick(i)))) {
+                // null constant, leave it to the row filter
+                continue;
+            }
+            final long fd = openZoneMap(i, partitionIndex);
+            if (fd < 0 || !prepareFrameBlocks(lo, hi, predicateBlockCounts.getQuick(2 * i + 1), predicateBlockCounts.getQuick(2 * i))) {
+                continue;
+            }
+            final long len = (frameBlockHi - frameBlockLo) * BLOCK_ENTRY_SIZE;
+            ensureBuffer(len);
+            if (ff.read(fd, bufferAddr, len, getBlockOffset(frameBlockLo)) != len) {
+                continue;
+            }
+            loaded++;
+            final int columnType = reader.getMetadata().getColumnType(predicateReaderIndexes.getQuick(i));
+            for (int b = 0, m = excludedBlocks.size(); b < m; b++) {
+                if (excludedBlocks.getQuick(b) == 0 && excludes(i, columnType, bufferAddr + b * BLOCK_ENTRY_SIZE, frameBlockRowCount)) {
+                    excludedBlocks.setQuick(b, 1);
+                }
+            }
+        }
+
+        for (int i = 0, n = bloomColumnIndexes.size(); i < n; i++) {
+            if (bloomActive.getQuick(i) == 0 || !openBloomFilter(i, partitionIndex)) {
+                continue;
+            }
+            final int headerBase = 4 * i;
+            if (!prepareFrameBlocks(lo, hi, bloomHeaders.getQuick(headerBase + HEADER_BLOCK_ROW_COUNT), bloomHeaders.getQuick(headerBase + HEADER_BLOCK_COUNT))) {
+                continue;
+            }
+            loaded++;
+            final long blockSize = bloomHeaders.getQuick(headerBase + HEADER_BLOCK_SIZE);
+            final int hashCount = (int) bloomHeaders.getQuick(headerBase + HEADER_HASH_COUNT);
+            final long mapAddr = bloomMapAddrs.getQuick(i);
+            final LongList hashes = bloomHashes.getQuick(i);
+            for (int b = 0, m = excludedBlocks.size(); b < m; b++) {
+                if (excludedBlocks.getQuick(b) != 0) {
+                    continue;
+                }
+                final long blockAddr = mapAddr + BloomFilterUtils.getBlockOffset(blockSize, frameBlockLo + b);
+                boolean mightContain = false;
+                for (int h = 0, k = hashes.size(); h < k; h++) {
+                    if (BloomFilterUtils.mightContain(blockAddr, blockSize, hashCount, hashes.getQuick(h))) {
+                        mightContain = true;
+                        break;
+                    }
+                }
+                if (!mightContain) {
+                    excludedBlocks.setQuick(b, 1);
+                }
+            }
+        }
+
+        if (loaded == 0) {
+            return false;
+        }
+        for (int b = 0, m = excludedBlocks.size(); b < m; b++) {
+            if (excludedBlocks.getQuick(b) == 0) {
+                return false;
+            }
+        }
+        skippedFrameCount++;
+        return true;
+    }
+
+    public void clear() {
+        closePartition();
+        reader = null;
+        path.trimTo(0);
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjListAndClear(constants);
+        for (int i = 0, n = bloomValues.size(); i < n; i++) {
+            Misc.freeObjListAndClear(bloomValues.getQuick(i));
+        }
+        bloomValues.clear();
+        Misc.free(path);
+        if (bufferAddr != 0) {
+            bufferAddr = Unsafe.free(bufferAddr, bufferSize, MemoryTag.NATIVE_DEFAULT);
+            bufferSize = 0;
+        }
+    }
+
+    public long getSkippedFrameCount() {
+        return skippedFrameCount;
+    }
+
+    /**
+     * Prepares the filter for a page frame cursor. Zone maps and bloom filters are used only with
+     * table page frame cursors, the filter turns itself off for any other cursor.
+     */
+    public void of(PageFrameCursor frameCursor, SqlExecutionContext executionContext) throws SqlException {
+        clear();
+        skippedFrameCount = 0;
+        if (!(frameCursor instanceof TablePageFrameCursor)) {
+            return;
+        }
+        Function.init(constants, frameCursor, executionContext);
+        for (int i = 0, n = bloomValues.size(); i < n; i++) {
+            Function.init(bloomValues.getQuick(i), frameCursor, executionContext);
+        }
+        final TablePageFrameCursor tableFrameCursor = (TablePageFrameCursor) frameCursor;
+        final TableReader tableReader = tableFrameCursor.getTableReader();
+        if (!PartitionBy.isPartitioned(tableReader.getPartitionedBy())) {
+            return;
+        }
+        predicateReaderIndexes.clear();
+        longValues.clear();
+        doubleValues.clear();
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            predicateReaderIndexes.add(frameCursor.getColumnIndexes().getQuick(columnIndexes.getQuick(i)));
+            final Function constant = constants.getQuick(i);
+            long longValue = Numbers.LONG_NULL;
+            double doubleValue = Double.NaN;
+            switch (ColumnType.tagOf(constant.getType())) {
+                case ColumnType.BYTE:
+                    longValue = constant.getByte(null);
+                    doubleValue = longValue;
+                    break;
+                case ColumnType.SHORT:
+                    longValue = constant.getShort(null);
+                    doubleValue = longValue;
+                    break;
+                case ColumnType.INT: {
+                    final int value = constant.getInt(null);
+                    if (value != Numbers.INT_NULL) {
+                        longValue = value;
+                        doubleValue = value;
+                    }
+                    break;
+                }
+                case ColumnType.FLOAT:
+                    doubleValue = constant.getFloat(null);
+                    break;
+                case ColumnType.DOUBLE:
+                    doubleValue = constant.getDouble(null);
+                    break;
+                default:
+                    // LONG, DATE, TIMESTAMP
+                    longValue = constant.getLong(null);
+                    if (longValue != Numbers.LONG_NULL) {
+                        doubleValue = longValue;
+                    }
+                    break;
+            }
+            longValues.add(longValue);
+            doubleValues.add(Double.doubleToRawLongBits(doubleValue));
+        }
+        predicateFds.setAll(columnIndexes.size(), -1);
+        predicateBlockCounts.setAll(2 * columnIndexes.size(), -1);
+
+        bloomReaderIndexes.clear();
+        bloomActive.clear();
+        for (int i = 0, n = bloomColumnIndexes.size(); i < n; i++) {
+            final int columnIndex = bloomColumnIndexes.getQuick(i);
+            final int readerIndex = frameCursor.getColumnIndexes().getQuick(columnIndex);
+            bloomReaderIndexes.add(readerIndex);
+            final int columnType = tableReader.getMetadata().getColumnType(readerIndex);
+            final LongList hashes = bloomHashes.getQuick(i);
+            hashes.clear();
+            bloomActive.add(
+                    hashValues(
+                            columnType,
+                            bloomValues.getQuick(i),
+                            ColumnType.isSymbol(columnType) ? tableFrameCursor.getSymbolTable(columnIndex) : null,
+                            hashes
+                    ) ? 1 : 0
+            );
+        }
+        bloomFds.setAll(bloomColumnIndexes.size(), -1);
+        bloomMapAddrs.setAll(bloomColumnIndexes.size(), 0);
+        bloomMapSizes.setAll(bloomColumnIndexes.size(), 0);
+        bloomHeaders.setAll(4 * bloomColumnIndexes.size(), -1);
+
+        path.of(root).concat(tableReader.getTableToken().getDirName());
+        reader = tableReader;
+    }
+
+    public int size() {
+        return columnIndexes.size() + bloomColumnIndexes.size();
+    }
+
+    private void closePartition() {
+        for (int i = 0, n = predicateFds.size(); i < n; i++) {
+            final long fd = predicateFds.getQuick(i);
+            if (fd > -1) {
+                ff.close(fd);
+            }
+            predicateFds.setQuick(i, -1);
+        }
+        for (int i = 0, n = predicateBlockCounts.size(); i < n; i++) {
+            predicateBlockCounts.setQuick(i, -1);
+        }
+        for (int i = 0, n = bloomFds.size(); i < n; i++) {
+            final long addr = bloomMapAddrs.getQuick(i);
+            if (addr != 0) {
+                ff.munmap(addr, bloomMapSizes.getQuick(i), MemoryTag.MMAP_DEFAULT);
+                bloomMapAddrs.setQuick(i, 0);
+            }
+            final long fd = bloomFds.getQuick(i);
+            if (fd > -1) {
+                ff.close(fd);
+                bloomFds.setQuick(i, -1);
+            }
+        }
+        for (int i = 0, n = bloomHeaders.size(); i < n; i++) {
+            bloomHeaders.setQuick(i, -1);
+        }
+        currentPartitionIndex = -1;
+    }
+
+    private void ensureBuffer(long size) {
+        if (size > bufferSize) {
+            bufferAddr = Unsafe.realloc(bufferAddr, bufferSize, size, MemoryTag.NATIVE_DEFAULT);
+            bufferSize = size;
+        }
+    }
+
+    private boolean excludes(int predicateIndex, int columnType, long entryAddr, long blockRowCount) {
+        final long nullCount = Unsafe.getUnsafe().getLong(entryAddr + BLOCK_OFFSET_NULL_COUNT);
+        final int op = ops.getQuick(predicateIndex);
+        if (nullCount > 0) {
+            // nulls never equal a non-null constant, but the ordering of nulls is type specific
+            return op == OP_EQ && nullCount == blockRowCount;
+        }
+        final long min = Unsafe.getUnsafe().getLong(entryAddr + BLOCK_OFFSET_MIN);
+        final long max = Unsafe.getUnsafe().getLong(entryAddr + BLOCK_OFFSET_MAX);
+        final long longValue = longValues.getQuick(predicateIndex);
+        if (!isFloatingPoint(columnType) && longValue != Numbers.LONG_NULL) {
+            switch (op) {
+                case OP_EQ:
+                    return longValue < min || longValue > max;
+                case OP_LT:
+                    return min >= longValue;
+                case OP_LE:
+                    return min > longValue;
+                case OP_GT:
+                    return max <= longValue;
+                default:
+                    return max < longValue;
+            }
+        }
+
+        final double value = Double.longBitsToDouble(doubleValues.getQuick(predicateIndex));
+        final double lo = isFloatingPoint(columnType) ? Double.longBitsToDouble(min) : min;
+        final double hi = isFloatingPoint(columnType) ? Double.longBitsToDouble(max) : max;
+        if (Double.isNaN(value) || Double.isNaN(lo) || Double.isNaN(hi)) {
+            return false;
+        }
+        // be conservative, float comparisons may use tolerance or lower precision
+        final double margin = Math.max(Numbers.DOUBLE_TOLERANCE, Math.abs(value) * DOUBLE_MARGIN);
+        switch (op) {
+            case OP_EQ:
+                return value < lo - margin || value > hi + margin;
+            case OP_LT:
+                return lo >= value + margin;
+            case OP_LE:
+                return lo > value + margin;
+            case OP_GT:
+                return hi <= value - margin;
+            default:
+                return hi < value - margin;
+        }
+    }
+
+    /**
+     * Hashes value list of a bloom predicate. Returns false when the predicate can't be used,
+     * e.g. when one of the values is null. Symbol values missing from the symbol table
+     * can't be present in the table and are not hashed.
+     */
+    private boolean hashValues(int columnType, ObjList<Function> values, StaticSymbolTable symbolTable, LongList hashes) {
+        for (int i = 0, n = values.size(); i < n; i++) {
+            final Function value = values.getQuick(i);
+            final int valueType = value.getType();
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.SYMBOL: {
+                    final CharSequence cs = ColumnType.isSymbol(valueType) ? value.getSymbol(null) : value.getStrA(null);
+                    if (cs == null || symbolTable == null) {
+                        return false;
+                    }
+                    final int key = symbolTable.keyOf(cs);
+                    if (key == SymbolTable.VALUE_IS_NULL) {
+                        return false;
+                    }
+                    if (key != SymbolTable.VALUE_NOT_FOUND) {
+                        hashes.add(BloomFilterUtils.hashSymbolKey(key));
+                    }
+                    break;
+                }
+                case ColumnType.UUID: {
+                    long lo;
+                    long hi;
+                    if (ColumnType.tagOf(valueType) == ColumnType.UUID) {
+                        lo = value.getLong128Lo(null);
+                        hi = value.getLong128Hi(null);
+                    } else {
+                        final CharSequence cs = ColumnType.isSymbol(valueType) ? value.getSymbol(null) : value.getStrA(null);
+                        if (cs == null) {
+                            return false;
+                        }
+                        try {
+                            Uuid.checkDashesAndLength(cs);
+                            lo = Uuid.parseLo(cs);
+                            hi = Uuid.parseHi(cs);
+                        } catch (NumericException e) {
+                            return false;
+                        }
+                    }
+                    if (Uuid.isNull(lo, hi)) {
+                        return false;
+                    }
+                    hashes.add(BloomFilterUtils.hashUuid(lo, hi));
+                    break;
+                }
+                default: {
+                    // VARCHAR
+                    final Utf8Sequence us;
+                    if (ColumnType.isVarchar(valueType)) {
+                        us = value.getVarcharA(null);
+                    } else {
+                        final CharSequence cs = ColumnType.isSymbol(valueType) ? value.getSymbol(null) : value.getStrA(null);
+                        if (cs == null) {
+                            return false;
+                        }
+                        utf8Sink.clear();
+                        utf8Sink.put(cs);
+                        us = utf8Sink;
+                    }
+                    if (us == null) {
+                        return false;
+                    }
+                    hashes.add(BloomFilterUtils.hashUtf8(us));
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean openBloomFilter(int predicateIndex, int partitionIndex) {
+        final int headerBase = 4 * predicateIndex;
+        if (bloomMapAddrs.getQuick(predicateIndex) != 0) {
+            return true;
+        }
+        if (bloomHeaders.getQuick(headerBase + HEADER_BLOCK_COUNT) == 0) {
+            // bloom filter is missing or empty, already checked
+            return false;
+        }
+        bloomHeaders.setQuick(headerBase + HEADER_BLOCK_COUNT, 0);
+
+        final int readerIndex = bloomReaderIndexes.getQuick(predicateIndex);
+        final TableReaderMetadata metadata = reader.getMetadata();
+        if (!BloomFilterUtils.isSupported(metadata.getColumnType(readerIndex))) {
+            return false;
+        }
+        final long partitionTimestamp = reader.getPartitionTimestampByIndex(partitionIndex);
+        final long partitionNameTxn = reader.getTxFile().getPartitionNameTxn(partitionIndex);
+        final long columnNameTxn = reader.getColumnVersionReader().getColumnNameTxn(partitionTimestamp, metadata.getWriterIndex(readerIndex));
+        final int pathLen = path.size();
+        final long fd;
+        try {
+            TableUtils.setPathForNativePartition(path, reader.getPartitionedBy(), partitionTimestamp, partitionNameTxn);
+            fd = ff.openRO(BloomFilterUtils.bfFile(path, metadata.getColumnName(readerIndex), columnNameTxn));
+        } finally {
+            path.trimTo(pathLen);
+        }
+        if (fd < 0) {
+            return false;
+        }
+        bloomFds.setQuick(predicateIndex, fd);
+        final long fileSize = ff.length(fd);
+        if (fileSize < BloomFilterUtils.HEADER_SIZE) {
+            return false;
+        }
+        final long blockRowCount = ff.readNonNegativeLong(fd, BloomFilterUtils.HEADER_OFFSET_BLOCK_ROW_COUNT);
+        final long blockSize = ff.readNonNegativeLong(fd, BloomFilterUtils.HEADER_OFFSET_BLOCK_SIZE);
+        final long hashCount = ff.readNonNegativeLong(fd, BloomFilterUtils.HEADER_OFFSET_HASH_COUNT);
+        if (blockRowCount < 1 || blockSize < 1 || Long.bitCount(blockSize) != 1 || hashCount < 1) {
+            return false;
+        }
+        final long blockCount = Math.min(
+                ff.readNonNegativeLong(fd, BloomFilterUtils.HEADER_OFFSET_BLOCK_COUNT),
+                (fileSize - BloomFilterUtils.HEADER_SIZE) / blockSize
+        );
+        if (blockCount < 1) {
+            return false;
+        }
+        final long mapSize = BloomFilterUtils.getBlockOffset(blockSize, blockCount);
+        bloomMapAddrs.setQuick(predicateIndex, TableUtils.mapRO(ff, fd, mapSize, MemoryTag.MMAP_DEFAULT));
+        bloomMapSizes.setQuick(predicateIndex, mapSize);
+        bloomHeaders.setQuick(headerBase + HEADER_BLOCK_ROW_COUNT, blockRowCount);
+        bloomHeaders.setQuick(headerBase + HEADER_BLOCK_COUNT, blockCount);
+        bloomHeaders.setQuick(headerBase + HEADER_BLOCK_SIZE, blockSize);
+        bloomHeaders.setQuick(headerBase + HEADER_HASH_COUNT, hashCount);
+        LOG.debug().$("using bloom filter [table=").utf8(reader.getTableToken().getTableName())
+                .$(", column=").utf8(metadata.getColumnName(readerIndex))
+                .$(", partitionIndex=").$(partitionIndex)
+                .$(", blockCount=").$(blockCount)
+                .I$();
+        return true;
+    }
+
+    private long openZoneMap(int predicateIndex, int partitionIndex) {
+        long fd = predicateFds.getQuick(predicateIndex);
+        if (fd > -1) {
+            return fd;
+        }
+        if (predicateBlockCounts.getQuick(2 * predicateIndex) == 0) {
+            // zone map is missing or empty, already checked
+            return -1;
+        }
+        predicateBlockCounts.setQuick(2 * predicateIndex, 0);
+
+        final int readerIndex = predicateReaderIndexes.getQuick(predicateIndex);
+        final TableReaderMetadata metadata = reader.getMetadata();
+        final int columnType = metadata.getColumnType(readerIndex);
+        if (!ZoneMapUtils.isSupported(columnType) || readerIndex == metadata.getTimestampIndex()) {
+            return -1;
+        }
+        final long partitionTimestamp = reader.getPartitionTimestampByIndex(partitionIndex);
+        final long partitionNameTxn = reader.getTxFile().getPartitionNameTxn(partitionIndex);
+        final long columnNameTxn = reader.getColumnVersionReader().getColumnNameTxn(partitionTimestamp, metadata.getWriterIndex(readerIndex));
+        final int pathLen = path.size();
+        try {
+            TableUtils.setPathForNativePartition(path, reader.getPartitionedBy(), partitionTimestamp, partitionNameTxn);
+            fd = ff.openRO(zmFile(path, metadata.getColumnName(readerIndex), columnNameTxn));
+        } finally {
+            path.trimTo(pathLen);
+        }
+        if (fd < 0) {
+            return -1;
+        }
+        final long fileSize = ff.length(fd);
+        if (fileSize < HEADER_SIZE) {
+            ff.close(fd);
+            return -1;
+        }
+        final long blockRowCount = ff.readNonNegativeLong(fd, HEADER_OFFSET_BLOCK_ROW_COUNT);
+        final long blockCount = Math.min(ff.readNonNegativeLong(fd, HEADER_OFFSET_BLOCK_COUNT), (fileSize - HEADER_SIZE) / BLOCK_ENTRY_SIZE);
+        if (blockRowCount < 1 || blockCount < 1) {
+            ff.close(fd);
+            return -1;
+        }
+        LOG.debug().$("using zone map [table=").utf8(reader.getTableToken().getTableName())
+                .$(", column=").utf8(metadata.getColumnName(readerIndex))
+                .$(", partitionIndex=").$(partitionIndex)
+                .$(", blockCount=").$(blockCount)
+                .I$();
+        predicateFds.setQuick(predicateIndex, fd);
+        predicateBlockCounts.setQuick(2 * predicateIndex, blockCount);
+        predicateBlockCounts.setQuick(2 * predicateIndex + 1, blockRowCount);
+        return fd;
+    }
+
+    /**
+     * Maps the frame onto blocks of the given size. All summaries used for a frame must share
+     * the block size of the first one. Returns false when the summary can't be used for the frame.
+     */
+    private boolean prepareFrameBlocks(long lo, long hi, long blockRowCount, long blockCount) {
+        if (frameBlockRowCount == -1) {
+            frameBlockRowCount = blockRowCount;
+            frameBlockLo = lo / blockRowCount;
+            frameBlockHi = (hi + blockRowCount - 1) / blockRowCount;
+            excludedBlocks.setAll((int) (frameBlockHi - frameBlockLo), 0);
+        } else if (frameBlockRowCount != blockRowCount) {
+            return false;
+        }
+        // the frame's tail may not be summarised yet
+        return frameBlockHi <= blockCount;
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+import static io.questdb.cairo.TableUtils.COLUMN_NAME_TXN_NONE;
+
+/**
+ * Zone map file layout. A zone map summarises a column of a native partition in blocks
+ * of fixed row count. Each block entry holds min and max of the non-null values and
+ * the number of nulls in the block, including the rows below the column top.
+ * <p>
+ * Header:
+ * <pre>
+ * [block row count: long][block count: long]
+ * </pre>
+ * followed by block count entries:
+ * <pre>
+ * [min: long][max: long][null count: long]
+ * </pre>
+ * Min and max are stored as longs for integer column types and as raw double bits for
+ * FLOAT and DOUBLE columns. Only full blocks are written, and rows in a full block of
+ * a partition directory never change, so a reader may use any entry it can see
+ * as long as the block lies below the partition row count of its own transaction.
+ */
+public final class ZoneMapUtils {
+    public static final long BLOCK_ENTRY_SIZE = 3 * Long.BYTES;
+    public static final long BLOCK_OFFSET_MAX = Long.BYTES;
+    public static final long BLOCK_OFFSET_MIN = 0;
+    public static final long BLOCK_OFFSET_NULL_COUNT = 2 * Long.BYTES;
+    public static final String FILE_SUFFIX_ZM = ".zm";
+    public static final long HEADER_OFFSET_BLOCK_COUNT = Long.BYTES;
+    public static final long HEADER_OFFSET_BLOCK_ROW_COUNT = 0;
+    public static final long HEADER_SIZE = 2 * Long.BYTES;
+
+    private ZoneMapUtils() {
+    }
+
+    public static long getBlockOffset(long blockIndex) {
+        return HEADER_SIZE + blockIndex * BLOCK_ENTRY_SIZE;
+    }
+
+    public static boolean isFloatingPoint(int columnType) {
+        final int tag = ColumnType.tagOf(columnType);
+        return tag == ColumnType.FLOAT || tag == ColumnType.DOUBLE;
+    }
+
+    /**
+     * Returns true for fixed-size numeric column types that zone maps are maintained for.
+     */
+    public static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public static LPSZ zmFile(Path path, CharSequence columnName, long columnNameTxn) {
+        path.concat(columnName).put(FILE_SUFFIX_ZM);
+        if (columnNameTxn > COLUMN_NAME_TXN_NONE) {
+            path.put('.').put(columnNameTxn);
+        }
+        return path.$();
+    }
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Numbers;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.str.Path;
+
+import static io.questdb.cairo.ZoneMapUtils.*;
+
+/**
+ * Maintains zone map files of native partition columns. The writer is append-only:
+ * on each update it summarises full blocks that are not in the file yet and only then
+ * publishes the new block count in the header, so that concurrent readers never observe
+ * a block count that covers unwritten entries.
+ */
+public class ZoneMapWriter implements QuietCloseable {
+    private static final int BUFFER_BLOCK_CAPACITY = 256;
+    private static final Log LOG = LogFactory.getLog(ZoneMapWriter.class);
+    private final long blockRowCount;
+    private final long bufferSize;
+    private final FilesFacade ff;
+    private final long fileOpts;
+    private long bufferAddr;
+
+    public ZoneMapWriter(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.blockRowCount = configuration.getZoneMapBlockRowCount();
+        this.fileOpts = configuration.getWriterFileOpenOpts();
+        this.bufferSize = BUFFER_BLOCK_CAPACITY * BLOCK_ENTRY_SIZE;
+        this.bufferAddr = Unsafe.malloc(bufferSize, MemoryTag.NATIVE_TABLE_WRITER);
+    }
+
+    @Override
+    public void close() {
+        if (bufferAddr != 0) {
+            bufferAddr = Unsafe.free(bufferAddr, bufferSize, MemoryTag.NATIVE_TABLE_WRITER);
+        }
+    }
+
+    public long getBlockRowCount() {
+        return blockRowCount;
+    }
+
+    /**
+     * Brings the zone map of a partition column in line with the committed partition row count.
+     * Blocks that lie beyond the row count, e.g. after a partition split, are discarded.
+     *
+     * @param path              path to the partition directory, left unchanged on exit
+     * @param columnName        column name
+     * @param columnNameTxn     column version
+     * @param columnType        column type, must be supported by {@link ZoneMapUtils#isSupported(int)}
+     * @param columnTop         column top in the partition
+     * @param partitionRowCount committed row count of the partition
+     */
+    public void update(
+            Path path,
+            CharSequence columnName,
+            long columnNameTxn,
+            int columnType,
+            long columnTop,
+            long partitionRowCount
+    ) {
+        final int pathLen = path.size();
+        final long blockCount = partitionRowCount / blockRowCount;
+        long zmFd = -1;
+        try {
+            zmFd = TableUtils.openRW(ff, zmFile(path, columnName, columnNameTxn), LOG, fileOpts);
+            final long fileSize = ff.length(zmFd);
+            long existingBlockCount = 0;
+            if (fileSize >= HEADER_SIZE && ff.readNonNegativeLong(zmFd, HEADER_OFFSET_BLOCK_ROW_COUNT) == blockRowCount) {
+                existingBlockCount = Math.max(
+                        0,
+                        Math.min(ff.readNonNegativeLong(zmFd, HEADER_OFFSET_BLOCK_COUNT), (fileSize - HEADER_SIZE) / BLOCK_ENTRY_SIZE)
+                );
+            } else {
+                // new file or block size has been reconfigured, start from scratch
+                writeLong(zmFd, HEADER_OFFSET_BLOCK_COUNT, 0);
+                writeLong(zmFd, HEADER_OFFSET_BLOCK_ROW_COUNT, blockRowCount);
+            }
+
+            if (existingBlockCount > blockCount) {
+                // partition got shorter, rows beyond its end may be rewritten in place
+                writeLong(zmFd, HEADER_OFFSET_BLOCK_COUNT, blockCount);
+                ff.truncate(zmFd, getBlockOffset(blockCount));
+            } else if (existingBlockCount < blockCount) {
+                path.trimTo(pathLen);
+                writeBlocks(path, columnName, columnNameTxn, columnType, columnTop, zmFd, existingBlockCount, blockCount);
+                writeLong(zmFd, HEADER_OFFSET_BLOCK_COUNT, blockCount);
+            }
+        } finally {
+            path.trimTo(pathLen);
+            if (zmFd > -1) {
+                ff.close(zmFd);
+            }
+        }
+    }
+
+    private void computeBlock(int columnType, long dataAddr, long dataCount, long nullCount, long entryAddr) {
+        long min = Numbers.LONG_NULL;
+        long max = Numbers.LONG_NULL;
+        long nonNullCount = 0;
+        if (dataCount > 0) {
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BYTE: {
+                    byte lo = Byte.MAX_VALUE;
+                    byte hi = Byte.MIN_VALUE;
+                    for (long i = 0; i < dataCount; i++) {
+                        final byte v = Unsafe.getUnsafe().getByte(dataAddr + i);
+                        lo = (byte) Math.min(lo, v);
+                        hi = (byte) Math.max(hi, v);
+                    }
+                    min = lo;
+                    max = hi;
+                    nonNullCount = dataCount;
+                    break;
+                }
+                case ColumnType.SHORT:
+                    min = Vect.minShort(dataAddr, dataCount);
+                    max = Vect.maxShort(dataAddr, dataCount);
+                    nonNullCount = dataCount;
+                    break;
+                case ColumnType.INT:
+                    nonNullCount = Vect.countInt(dataAddr, dataCount);
+                    if (nonNullCount > 0) {
+                        min = Vect.minInt(dataAddr, dataCount);
+                        max = Vect.maxInt(dataAddr, dataCount);
+                    }
+                    break;
+                case ColumnType.FLOAT: {
+                    float lo = Float.POSITIVE_INFINITY;
+                    float hi = Float.NEGATIVE_INFINITY;
+                    for (long i = 0; i < dataCount; i++) {
+                        final float v = Unsafe.getUnsafe().getFloat(dataAddr + (i << 2));
+                        if (!Float.isNaN(v)) {
+                            lo = Math.min(lo, v);
+                            hi = Math.max(hi, v);
+                            nonNullCount++;
+                        }
+                    }
+                    min = Double.doubleToRawLongBits(nonNullCount > 0 ? lo : Double.NaN);
+                    max = Double.doubleToRawLongBits(nonNullCount > 0 ? hi : Double.NaN);
+                    break;
+                }
+                case ColumnType.DOUBLE:
+                    nonNullCount = Vect.countDouble(dataAddr, dataCount);
+                    min = Double.doubleToRawLongBits(nonNullCount > 0 ? Vect.minDouble(dataAddr, dataCount) : Double.NaN);
+                    max = Double.doubleToRawLongBits(nonNullCount > 0 ? Vect.maxDouble(dataAddr, dataCount) : Double.NaN);
+                    break;
+                default:
+                    // LONG, DATE, TIMESTAMP
+                    nonNullCount = Vect.countLong(dataAddr, dataCount);
+                    if (nonNullCount > 0) {
+                        min = Vect.minLong(dataAddr, dataCount);
+                        max = Vect.maxLong(dataAddr, dataCount);
+                    }
+                    break;
+            }
+        } else if (isFloatingPoint(columnType)) {
+            min = max = Double.doubleToRawLongBits(Double.NaN);
+        }
+        Unsafe.getUnsafe().putLong(entryAddr + BLOCK_OFFSET_MIN, min);
+        Unsafe.getUnsafe().putLong(entryAddr + BLOCK_OFFSET_MAX, max);
+        Unsafe.getUnsafe().putLong(entryAddr + BLOCK_OFFSET_NULL_COUNT, nullCount + dataCount - nonNullCount);
+    }
+
+    private void writeBlocks(
+            Path path,
+            CharSequence columnName,
+            long columnNameTxn,
+            int columnType,
+            long columnTop,
+            long zmFd,
+            long blockLo,
+            long blockHi
+    ) {
+        final int shl = ColumnType.pow2SizeOf(columnType);
+        final long dataRowHi = blockHi * blockRowCount - columnTop;
+        long dataFd = -1;
+        long dataAddr = 0;
+        long dataSize = 0;
+        try {
+            if (dataRowHi > 0) {
+                dataFd = TableUtils.openRO(ff, TableUtils.dFile(path, columnName, columnNameTxn), LOG);
+                dataSize = dataRowHi << shl;
+                dataAddr = TableUtils.mapRO(ff, dataFd, dataSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+
+            long flushBlockLo = blockLo;
+            int buffered = 0;
+            for (long block = blockLo; block < blockHi; block++) {
+                final long rowLo = block * blockRowCount;
+                final long rowHi = rowLo + blockRowCount;
+                final long dataLo = Math.max(rowLo, columnTop) - columnTop;
+                final long dataHi = Math.max(rowHi - columnTop, dataLo);
+                computeBlock(
+                        columnType,
+                        dataAddr + (dataLo << shl),
+                        dataHi - dataLo,
+                        blockRowCount - (dataHi - dataLo),
+                        bufferAddr + buffered * BLOCK_ENTRY_SIZE
+                );
+                if (++buffered == BUFFER_BLOCK_CAPACITY) {
+                    writeBuffer(zmFd, flushBlockLo, buffered);
+                    flushBlockLo += buffered;
+                    buffered = 0;
+                }
+            }
+            if (buffered > 0) {
+                writeBuffer(zmFd, flushBlockLo, buffered);
+            }
+        } finally {
+            if (dataAddr != 0) {
+                ff.munmap(dataAddr, dataSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+            if (dataFd > -1) {
+                ff.close(dataFd);
+            }
+        }
+    }
+
+    private void writeBuffer(long zmFd, long blockLo, int blockCount) {
+        final long len = blockCount * BLOCK_ENTRY_SIZE;
+        if (ff.write(zmFd, bufferAddr, len, getBlockOffset(blockLo)) != len) {
+            throw CairoException.critical(ff.errno()).put("could not write zone map [fd=").put(zmFd)
+                    .put(", offset=").put(getBlockOffset(blockLo))
+                    .put(", len=").put(len)
+                    .put(']');
+        }
+    }
+
+    private void writeLong(long zmFd, long offset, long value) {
+        Unsafe.getUnsafe().putLong(bufferAddr, value);
+        if (ff.write(zmFd, bufferAddr, Long.BYTES, offset) != Long.BYTES) {
+            throw CairoException.critical(ff.errno()).put("could not write zone map header [fd=").put(zmFd)
+                    .put(", offset=").put(offset)
+                    .put(']');
+        }
+    }
+}
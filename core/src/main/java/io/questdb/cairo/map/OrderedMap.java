@@ -323,6 +323,61 @@ public class OrderedMap implements Map, Reopenable {
         mergeRef.merge((OrderedMap) srcMap, mergeFunc);
     }
 
+    /**
+     * Merges entries previously written by {@link #spill(OrderedMapSpill)} into this map.
+     *
+     * @param lo        address of the first spilled entry
+     * @param size      size of the spilled entries in bytes
+     * @param mergeFunc function used to merge values of the existing keys
+     */
+    public void mergeSpilled(long lo, long size, MapValueMergeFunction mergeFunc) {
+        final long hi = lo + size;
+        long srcEntryAddress = lo;
+        while (srcEntryAddress < hi) {
+            final int hashCodeLo = Unsafe.getUnsafe().getInt(srcEntryAddress);
+            final long entrySize = Unsafe.getUnsafe().getInt(srcEntryAddress + Integer.BYTES);
+            final long srcStartAddress = srcEntryAddress + OrderedMapSpill.ENTRY_HEADER_SIZE;
+            final long srcKeySize = keySize != -1 ? keySize : Unsafe.getUnsafe().getInt(srcStartAddress);
+            srcEntryAddress = srcStartAddress + Bytes.align8b(entrySize);
+
+            int index = hashCodeLo & mask;
+            long destOffset;
+            boolean found = false;
+            while ((destOffset = getOffset(offsets, index)) > -1) {
+                final long destStartAddress = heapStart + destOffset;
+                if (
+                        hashCodeLo == getHashCodeLo(offsets, index)
+                                && (keySize != -1 || Unsafe.getUnsafe().getInt(destStartAddress) == srcKeySize)
+                                && Vect.memeq(destStartAddress + keyOffset, srcStartAddress + keyOffset, srcKeySize)
+                ) {
+                    // Match found, merge values.
+                    mergeFunc.merge(
+                            valueOf(destStartAddress, destStartAddress + keyOffset + srcKeySize, false, value),
+                            value2.of(srcStartAddress, srcStartAddress + keyOffset + srcKeySize, hi, false)
+                    );
+                    found = true;
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+            if (found) {
+                continue;
+            }
+
+            if (kPos + entrySize > heapLimit) {
+                resize(entrySize, kPos);
+            }
+            Vect.memcpy(kPos, srcStartAddress, entrySize);
+            setOffset(offsets, index, kPos - heapStart);
+            setHashCodeLo(offsets, index, hashCodeLo);
+            kPos = Bytes.align8b(kPos + entrySize);
+            size++;
+            if (--free == 0) {
+                rehash();
+            }
+        }
+    }
+
     @Override
     public void reopen(int keyCapacity, long heapSize) {
         if (heapStart == 0) {
@@ -374,6 +429,24 @@ public class OrderedMap implements Map, Reopenable {
         return size;
     }
 
+    /**
+     * Writes all entries to the given spill and clears the map.
+     */
+    public void spill(OrderedMapSpill spill) {
+        for (int i = 0, k = (int) (offsets.size() >>> 1); i < k; i++) {
+            final long offset = getOffset(offsets, i);
+            if (offset < 0) {
+                continue;
+            }
+            final long startAddress = heapStart + offset;
+            final long entrySize = keySize != -1
+                    ? keySize + valueSize
+                    : keyOffset + Unsafe.getUnsafe().getInt(startAddress) + valueSize;
+            spill.append(getHashCodeLo(offsets, i), startAddress, entrySize);
+        }
+        clear();
+    }
+
     @Override
     public MapValue valueAt(long startAddress) {
         long keySize = this.keySize;
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.map;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.bytes.Bytes;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Temporary on-disk storage for {@link OrderedMap} entries evicted under memory pressure.
+ * <p>
+ * The entries are hash partitioned into a power of 2 number of files, so that each partition
+ * holds a disjoint subset of keys. Once all input is consumed, the partitions are merged back
+ * into the map one by one with {@link #mergePartition(int, OrderedMap, MapValueMergeFunction)},
+ * so that only a single partition needs to fit in memory at a time.
+ * <p>
+ * Each spilled entry has the following layout:
+ * <pre>
+ * | hash code 32 LSBs | entry size | OrderedMap entry (key-value pair) |
+ * +-------------------+------------+----------------------------------+
+ * |      4 bytes      |  4 bytes   |  entry size bytes, 8b aligned    |
+ * +-------------------+------------+----------------------------------+
+ * </pre>
+ * The files are created lazily on the first spill and are removed on {@link #clear()}. The spill
+ * may be used again after {@link #close()}.
+ */
+public class OrderedMapSpill implements Mutable, Closeable {
+    static final long ENTRY_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final AtomicLong ID_SEQ = new AtomicLong();
+    private static final Log LOG = LogFactory.getLog(OrderedMapSpill.class);
+    private final FilesFacade ff;
+    private final int mkDirMode;
+    private final long pageSize;
+    private final int partitionCount;
+    private final int partitionShift;
+    private final ObjList<MemoryCMARW> partitions;
+    private final CharSequence root;
+    private long id = -1;
+    private Path path;
+    private long spilledSize;
+
+    public OrderedMapSpill(@NotNull CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.pageSize = configuration.getSqlSmallMapPageSize();
+        this.root = configuration.getSqlSpillRoot();
+        this.partitionCount = Numbers.ceilPow2(Math.max(configuration.getSqlSpillPartitionCount(), 2));
+        this.partitionShift = Integer.SIZE - Numbers.msb(partitionCount);
+        this.partitions = new ObjList<>(partitionCount);
+    }
+
+    @Override
+    public void clear() {
+        if (id != -1) {
+            for (int i = 0, n = partitions.size(); i < n; i++) {
+                Misc.free(partitions.getQuick(i));
+                ff.removeQuiet(partitionPath(i).$());
+            }
+            LOG.debug().$("removed spill files [id=").$(id).$(", size=").$(spilledSize).I$();
+            id = -1;
+        }
+        spilledSize = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjList(partitions);
+        partitions.clear();
+        path = Misc.free(path);
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Returns total size of the spilled entries in bytes.
+     */
+    public long getSpilledSize() {
+        return spilledSize;
+    }
+
+    public boolean isEmpty() {
+        return spilledSize == 0;
+    }
+
+    /**
+     * Merges all entries of the given partition into the map. The map is expected
+     * to be cleared by the caller beforehand.
+     */
+    public void mergePartition(int partition, OrderedMap map, MapValueMergeFunction mergeFunc) {
+        if (id == -1) {
+            return;
+        }
+        final MemoryCMARW mem = partitions.getQuick(partition);
+        final long size = mem.getAppendOffset();
+        if (size > 0) {
+            map.mergeSpilled(mem.addressOf(0), size, mergeFunc);
+        }
+    }
+
+    void append(int hashCodeLo, long entryAddress, long entrySize) {
+        if (id == -1) {
+            open();
+        }
+        final MemoryCMARW mem = partitions.getQuick(partitionOf(hashCodeLo));
+        final long alignedEntrySize = Bytes.align8b(entrySize);
+        final long address = mem.appendAddressFor(ENTRY_HEADER_SIZE + alignedEntrySize);
+        Unsafe.getUnsafe().putInt(address, hashCodeLo);
+        Unsafe.getUnsafe().putInt(address + Integer.BYTES, (int) entrySize);
+        Vect.memcpy(address + ENTRY_HEADER_SIZE, entryAddress, entrySize);
+        spilledSize += ENTRY_HEADER_SIZE + alignedEntrySize;
+    }
+
+    private void open() {
+        if (path == null) {
+            path = new Path();
+        }
+        path.of(root).slash();
+        if (!ff.exists(path.$()) && ff.mkdirs(path, mkDirMode) != 0) {
+            throw CairoException.critical(ff.errno()).put("could not create spill directory [path=").put(path).put(']');
+        }
+        id = ID_SEQ.incrementAndGet();
+        for (int i = 0; i < partitionCount; i++) {
+            if (partitions.size() == i) {
+                partitions.add(Vm.getCMARWInstance());
+            }
+            partitions.getQuick(i).of(ff, partitionPath(i).$(), pageSize, MemoryTag.MMAP_DEFAULT, CairoConfiguration.O_NONE);
+        }
+        LOG.info().$("spilling map to disk [id=").$(id).$(", partitions=").$(partitionCount).I$();
+    }
+
+    private int partitionOf(int hashCodeLo) {
+        // Fibonacci hashing, so that the partition doesn't correlate
+        // with the lowest hash code bits used as the map index
+        return (hashCodeLo * 0x9E3779B9) >>> partitionShift;
+    }
+
+    private Path partitionPath(int partition) {
+        return path.of(root).concat("groupby_spill_").put(id).put('_').put(partition).put(".d");
+    }
+}
@@ -217,6 +217,31 @@ public class Unordered8Map implements Map, Reopenable {
         }
     }
 
+    /**
+     * Looks up the value for the given raw 8-byte key. Unlike {@link #withKey()}, this method
+     * doesn't write to the shared key memory, so it may be called by multiple threads concurrently
+     * as long as the map is not modified at the same time.
+     *
+     * @param key raw key value, i.e. the key columns packed into a long
+     * @return address of the value or 0 if there is no such key in the map
+     */
+    public long findValueAddress(long key) {
+        if (key == 0) {
+            return hasZero ? zeroMemStart + KEY_SIZE : 0;
+        }
+
+        long startAddress = getStartAddress(Hash.hashLong64(key) & mask);
+        for (; ; ) {
+            long k = Unsafe.getUnsafe().getLong(startAddress);
+            if (k == 0) {
+                return 0;
+            } else if (k == key) {
+                return startAddress + KEY_SIZE;
+            }
+            startAddress = getNextAddress(startAddress);
+        }
+    }
+
     @Override
     public MapRecordCursor getCursor() {
         if (hasZero) {
@@ -38,6 +38,7 @@ import io.questdb.std.Chars;
 import io.questdb.std.Mutable;
 import io.questdb.std.Numbers;
 import io.questdb.std.NumericException;
+import io.questdb.std.ObjList;
 import io.questdb.std.datetime.TimeZoneRules;
 import io.questdb.std.datetime.microtime.TimestampFormatUtils;
 import io.questdb.std.datetime.microtime.Timestamps;
@@ -52,6 +53,11 @@ public class MatViewDefinition implements Mutable {
     public static final int INCREMENTAL_REFRESH_TYPE = 0;
     public static final String MAT_VIEW_DEFINITION_FILE_NAME = "_mv";
     public static final int MAT_VIEW_DEFINITION_FORMAT_MSG_TYPE = 0;
+    public static final int MAT_VIEW_MERGE_PLAN_FORMAT_MSG_TYPE = 1;
+    // merge aggregate function per view column, null for key columns;
+    // empty for SAMPLE BY views and keyed views that can't be refreshed incrementally
+    private final ObjList<String> mergeColumnFunctions = new ObjList<>();
+    private final ObjList<String> mergeColumnNames = new ObjList<>();
     private String baseTableName;
     // is not persisted, parsed from timeZoneOffset
     private long fixedOffset;
@@ -82,6 +88,17 @@ public class MatViewDefinition implements Mutable {
         final AppendableBlock block = writer.append();
         append(matViewDefinition, block);
         block.commit(MAT_VIEW_DEFINITION_FORMAT_MSG_TYPE);
+        final int mergeColumnCount = matViewDefinition.getMergeColumnCount();
+        if (mergeColumnCount > 0) {
+            // Merge plan goes into a separate block, so that older versions skip it.
+            final AppendableBlock mergeBlock = writer.append();
+            mergeBlock.putInt(mergeColumnCount);
+            for (int i = 0; i < mergeColumnCount; i++) {
+                mergeBlock.putStr(matViewDefinition.getMergeColumnName(i));
+                mergeBlock.putStr(matViewDefinition.getMergeColumnFunction(i));
+            }
+            mergeBlock.commit(MAT_VIEW_MERGE_PLAN_FORMAT_MSG_TYPE);
+        }
         writer.commit();
     }
 
@@ -95,19 +112,33 @@ public class MatViewDefinition implements Mutable {
         path.trimTo(rootLen).concat(matViewToken.getDirName()).concat(MatViewDefinition.MAT_VIEW_DEFINITION_FILE_NAME);
         reader.of(path.$());
         final BlockFileReader.BlockCursor cursor = reader.getCursor();
-        // Iterate through the block until we find the one we recognize.
+        // Iterate through the blocks, the definition block always goes before the merge plan one.
+        boolean found = false;
         while (cursor.hasNext()) {
-            if (loadMatViewDefinition(destDefinition, cursor.next(), matViewToken)) {
-                return;
+            final ReadableBlock block = cursor.next();
+            if (!found) {
+                found = loadMatViewDefinition(destDefinition, block, matViewToken);
+            } else {
+                loadMergePlan(destDefinition, block);
             }
         }
+        if (found) {
+            return;
+        }
         throw CairoException.critical(0)
                 .put("cannot read materialized view definition, block not found [path=").put(path)
                 .put(']');
     }
 
+    public void addMergeColumn(@NotNull String columnName, @Nullable String mergeFunction) {
+        mergeColumnNames.add(columnName);
+        mergeColumnFunctions.add(mergeFunction);
+    }
+
     @Override
     public void clear() {
+        mergeColumnNames.clear();
+        mergeColumnFunctions.clear();
         matViewToken = null;
         baseTableName = null;
         matViewSql = null;
@@ -137,6 +168,22 @@ public class MatViewDefinition implements Mutable {
         return matViewToken;
     }
 
+    public int getMergeColumnCount() {
+        return mergeColumnNames.size();
+    }
+
+    /**
+     * Returns the aggregate function used to merge already aggregated view rows
+     * with the freshly aggregated ones, or null for the key columns.
+     */
+    public @Nullable String getMergeColumnFunction(int index) {
+        return mergeColumnFunctions.getQuick(index);
+    }
+
+    public String getMergeColumnName(int index) {
+        return mergeColumnNames.getQuick(index);
+    }
+
     public int getRefreshType() {
         return refreshType;
     }
@@ -157,7 +204,10 @@ public class MatViewDefinition implements Mutable {
         return timeZoneOffset;
     }
 
-    public TimestampSampler getTimestampSampler() {
+    /**
+     * Returns null for keyed GROUP BY views that have no sampling interval.
+     */
+    public @Nullable TimestampSampler getTimestampSampler() {
         return timestampSampler;
     }
 
@@ -184,15 +234,20 @@ public class MatViewDefinition implements Mutable {
         this.timeZone = timeZone;
         this.timeZoneOffset = timeZoneOffset;
 
-        try {
-            this.timestampSampler = TimestampSamplerFactory.getInstance(
-                    samplingInterval,
-                    samplingIntervalUnit,
-                    0
-            );
-        } catch (SqlException e) {
-            throw CairoException.critical(0).put("invalid sampling interval and/or unit: ").put(samplingInterval)
-                    .put(", ").put(samplingIntervalUnit);
+        if (samplingInterval > 0) {
+            try {
+                this.timestampSampler = TimestampSamplerFactory.getInstance(
+                        samplingInterval,
+                        samplingIntervalUnit,
+                        0
+                );
+            } catch (SqlException e) {
+                throw CairoException.critical(0).put("invalid sampling interval and/or unit: ").put(samplingInterval)
+                        .put(", ").put(samplingIntervalUnit);
+            }
+        } else {
+            // keyed GROUP BY view
+            this.timestampSampler = null;
         }
 
         if (timeZone != null) {
@@ -279,4 +334,26 @@ public class MatViewDefinition implements Mutable {
         );
         return true;
     }
+
+    private static void loadMergePlan(MatViewDefinition destDefinition, ReadableBlock block) {
+        if (block.type() != MAT_VIEW_MERGE_PLAN_FORMAT_MSG_TYPE) {
+            // Unknown block.
+            return;
+        }
+
+        long offset = 0;
+        final int columnCount = block.getInt(offset);
+        offset += Integer.BYTES;
+
+        destDefinition.mergeColumnNames.clear();
+        destDefinition.mergeColumnFunctions.clear();
+        for (int i = 0; i < columnCount; i++) {
+            final CharSequence columnName = block.getStr(offset);
+            offset += Vm.getStorageLength(columnName);
+            final String columnNameStr = Chars.toString(columnName);
+            final CharSequence mergeFunction = block.getStr(offset);
+            offset += Vm.getStorageLength(mergeFunction);
+            destDefinition.addMergeColumn(columnNameStr, Chars.toString(mergeFunction));
+        }
+    }
 }
@@ -36,6 +36,7 @@ import io.questdb.cairo.file.BlockFileWriter;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.TableRecordMetadata;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
 import io.questdb.cairo.wal.seq.SeqTxnTracker;
 import io.questdb.griffin.CompiledQuery;
@@ -47,13 +48,16 @@ import io.questdb.griffin.engine.groupby.TimestampSampler;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.Job;
+import io.questdb.std.Chars;
 import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
 import io.questdb.std.ObjList;
 import io.questdb.std.QuietCloseable;
 import io.questdb.std.datetime.TimeZoneRules;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.TestOnly;
 
@@ -67,6 +71,7 @@ public class MatViewRefreshJob implements Job, QuietCloseable {
     private final Path dbRoot;
     private final int dbRootLen;
     private final CairoEngine engine;
+    private final StringSink mergeSql = new StringSink();
     private final MicrosecondClock microsecondClock;
     private final MatViewRefreshExecutionContext refreshExecutionContext;
     private final MatViewRefreshTask refreshTask = new MatViewRefreshTask();
@@ -113,6 +118,136 @@ public class MatViewRefreshJob implements Job, QuietCloseable {
         return processNotifications();
     }
 
+    /**
+     * Builds the query that merges the view rows with the view query results over the new base table rows:
+     * <pre>
+     * select k, sum(c) c, max(ts) ts from (
+     *     select k, c, ts from view
+     *     union all
+     *     select k, c, ts from (view query)
+     * )
+     * </pre>
+     * The union's left side goes first, so first()/last() keep their semantics. When only the changed
+     * keys are merged, the view rows are joined with the keys of the new rows:
+     * <pre>
+     *     select v.k k, v.c c, v.ts ts from view v join (select k from (view query)) n on (k)
+     * </pre>
+     */
+    private static void buildMergeSql(MatViewDefinition viewDef, boolean changedKeysOnly, StringSink sink) {
+        sink.clear();
+        sink.put("select ");
+        for (int i = 0, n = viewDef.getMergeColumnCount(); i < n; i++) {
+            if (i > 0) {
+                sink.put(", ");
+            }
+            final String mergeFunction = viewDef.getMergeColumnFunction(i);
+            if (mergeFunction != null) {
+                sink.put(mergeFunction).put('(');
+                putQuoted(sink, viewDef.getMergeColumnName(i));
+                sink.put(") ");
+            }
+            putQuoted(sink, viewDef.getMergeColumnName(i));
+        }
+        sink.put(" from (");
+        if (changedKeysOnly && hasMergeKeys(viewDef)) {
+            sink.put("select ");
+            for (int i = 0, n = viewDef.getMergeColumnCount(); i < n; i++) {
+                if (i > 0) {
+                    sink.put(", ");
+                }
+                sink.put("\"v\".");
+                putQuoted(sink, viewDef.getMergeColumnName(i));
+                sink.put(' ');
+                putQuoted(sink, viewDef.getMergeColumnName(i));
+            }
+            sink.put(" from ");
+            putQuoted(sink, viewDef.getMatViewToken().getTableName());
+            sink.put(" \"v\" join (");
+            putMergeKeys(sink, viewDef);
+            sink.put(" from (").put(viewDef.getMatViewSql()).put(")) \"n\" on (");
+            putMergeKeyNames(sink, viewDef);
+            sink.put(')');
+        } else {
+            putMergeColumns(sink, viewDef);
+            sink.put(" from ");
+            putQuoted(sink, viewDef.getMatViewToken().getTableName());
+        }
+        sink.put(" union all ");
+        putMergeColumns(sink, viewDef);
+        sink.put(" from (").put(viewDef.getMatViewSql()).put("))");
+    }
+
+    private static boolean hasMergeKeys(MatViewDefinition viewDef) {
+        for (int i = 0, n = viewDef.getMergeColumnCount(); i < n; i++) {
+            if (viewDef.getMergeColumnFunction(i) == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the view rows of the changed keys can be replaced through the view's dedup keys.
+     * That's the case when the merge can't move the designated timestamp of an existing key:
+     * the timestamp is a key itself or the first() value over the rows that come in timestamp order.
+     */
+    private static boolean isUpsertMergeable(MatViewDefinition viewDef, TableRecordMetadata viewMetadata) {
+        final int timestampIndex = viewMetadata.getTimestampIndex();
+        if (timestampIndex < 0) {
+            return false;
+        }
+        final CharSequence timestampName = viewMetadata.getColumnName(timestampIndex);
+        boolean timestampStable = false;
+        for (int i = 0, n = viewDef.getMergeColumnCount(); i < n; i++) {
+            final String mergeFunction = viewDef.getMergeColumnFunction(i);
+            final String columnName = viewDef.getMergeColumnName(i);
+            if (Chars.equalsIgnoreCase(columnName, timestampName)) {
+                timestampStable = mergeFunction == null
+                        || Chars.equals(mergeFunction, "first")
+                        || Chars.equals(mergeFunction, "first_not_null");
+            } else if (mergeFunction == null) {
+                // rows of the same key must collide on the view's dedup keys to be replaced
+                final int columnIndex = viewMetadata.getColumnIndexQuiet(columnName);
+                if (columnIndex < 0 || !viewMetadata.isDedupKey(columnIndex)) {
+                    return false;
+                }
+            }
+        }
+        return timestampStable;
+    }
+
+    private static void putMergeColumns(StringSink sink, MatViewDefinition viewDef) {
+        sink.put("select ");
+        for (int i = 0, n = viewDef.getMergeColumnCount(); i < n; i++) {
+            if (i > 0) {
+                sink.put(", ");
+            }
+            putQuoted(sink, viewDef.getMergeColumnName(i));
+        }
+    }
+
+    private static void putMergeKeyNames(StringSink sink, MatViewDefinition viewDef) {
+        boolean first = true;
+        for (int i = 0, n = viewDef.getMergeColumnCount(); i < n; i++) {
+            if (viewDef.getMergeColumnFunction(i) == null) {
+                if (!first) {
+                    sink.put(", ");
+                }
+                putQuoted(sink, viewDef.getMergeColumnName(i));
+                first = false;
+            }
+        }
+    }
+
+    private static void putMergeKeys(StringSink sink, MatViewDefinition viewDef) {
+        sink.put("select ");
+        putMergeKeyNames(sink, viewDef);
+    }
+
+    private static void putQuoted(StringSink sink, CharSequence name) {
+        sink.put('"').put(name).put('"');
+    }
+
     private void enqueueInvalidateDependentViews(TableToken viewToken, String invalidationReason) {
         childViewSink2.clear();
         viewGraph.getDependentMatViews(viewToken, childViewSink2);
@@ -277,6 +412,85 @@ public class MatViewRefreshJob implements Job, QuietCloseable {
         return rowCount > 0;
     }
 
+    private boolean insertMergedAsSelect(
+            MatViewRefreshState state,
+            MatViewDefinition viewDef,
+            TableWriterAPI tableWriter,
+            boolean upsert,
+            long baseTableTxn,
+            long refreshTriggeredTimestamp
+    ) throws SqlException {
+        assert state.isLocked();
+
+        final long batchSize = configuration.getMatViewInsertAsSelectBatchSize();
+        final long refreshTimestamp = microsecondClock.getTicks();
+        buildMergeSql(viewDef, upsert, mergeSql);
+
+        long rowCount = 0;
+        try (SqlCompiler compiler = engine.getSqlCompiler()) {
+            final RecordCursorFactory factory;
+            try {
+                LOG.info().$("compiling materialized view merge query [view=").$(viewDef.getMatViewToken()).I$();
+                final CompiledQuery compiledQuery = compiler.compile(mergeSql, refreshExecutionContext);
+                assert compiledQuery.getType() == CompiledQuery.SELECT;
+                factory = compiledQuery.getRecordCursorFactory();
+            } catch (SqlException e) {
+                LOG.error().$("error refreshing materialized view, merge query compilation error [view=").$(viewDef.getMatViewToken())
+                        .$(", error=").$(e.getFlyweightMessage())
+                        .I$();
+                refreshFailState(state, refreshTimestamp, e.getMessage());
+                return false;
+            }
+
+            try (factory) {
+                final RecordToRowCopier copier = getRecordToRowCopier(tableWriter, factory, compiler);
+                final CharSequence timestampName = tableWriter.getMetadata().getColumnName(tableWriter.getMetadata().getTimestampIndex());
+                final int cursorTimestampIndex = factory.getMetadata().getColumnIndex(timestampName);
+                assert cursorTimestampIndex > -1;
+
+                try (RecordCursor cursor = factory.getCursor(refreshExecutionContext)) {
+                    if (!upsert) {
+                        // The merged rows replace all view rows. The cursor reads the view rows
+                        // through a table reader, so the truncation isn't visible to it.
+                        tableWriter.truncateSoft();
+                    }
+                    // else: the merged rows of the changed keys replace their view rows via dedup
+                    final Record record = cursor.getRecord();
+                    long deadline = batchSize;
+                    while (cursor.hasNext()) {
+                        TableWriter.Row row = tableWriter.newRow(record.getTimestamp(cursorTimestampIndex));
+                        copier.copy(record, row);
+                        row.append();
+                        if (++rowCount >= deadline) {
+                            tableWriter.ic();
+                            deadline = rowCount + batchSize;
+                        }
+                    }
+                }
+            }
+            tableWriter.commit();
+        } catch (TableReferenceOutOfDateException e) {
+            LOG.info().$("base table is under DDL changes, will reattempt refresh later [view=").$(viewDef.getMatViewToken()).I$();
+            viewGraph.enqueueIncrementalRefresh(viewDef.getMatViewToken());
+            return false;
+        } catch (Throwable th) {
+            LOG.error().$("error refreshing materialized view [view=").$(viewDef.getMatViewToken()).$(", error=").$(th).I$();
+            refreshFailState(state, refreshTimestamp, th.getMessage());
+            throw th;
+        }
+
+        // Keep the cached view query factory intact.
+        state.refreshSuccess(
+                state.acquireRecordFactory(),
+                state.getRecordToRowCopier(),
+                state.getRecordRowCopierMetadataVersion(),
+                refreshTimestamp,
+                refreshTriggeredTimestamp,
+                baseTableTxn
+        );
+        return rowCount > 0;
+    }
+
     private void invalidateDependentViews(TableToken baseTableToken, MatViewGraph viewGraph, String invalidationReason) {
         childViewSink.clear();
         viewGraph.getDependentMatViews(baseTableToken, childViewSink);
@@ -482,6 +696,7 @@ public class MatViewRefreshJob implements Job, QuietCloseable {
                     final MatViewDefinition viewDef = state.getViewDefinition();
                     insertAsSelect(state, viewDef, commitWriter, toBaseTxn, refreshTriggeredTimestamp);
                     resetInvalidState(state);
+                    state.setLastRefreshBaseMaxTimestamp(baseTableReader.getMaxTimestamp());
                     writeLastRefreshBaseTableTxn(state, toBaseTxn);
                 }
             } finally {
@@ -561,6 +776,9 @@ public class MatViewRefreshJob implements Job, QuietCloseable {
             refreshExecutionContext.of(baseTableReader);
             try {
                 final MatViewDefinition viewDef = state.getViewDefinition();
+                if (viewDef.getTimestampSampler() == null) {
+                    return refreshKeyedIncremental(state, baseTableReader, viewDef, fromBaseTxn, refreshTriggeredTimestamp);
+                }
                 if (findCommitTimestampRanges(refreshExecutionContext, baseTableReader, viewDef, fromBaseTxn)) {
                     toBaseTxn = baseTableReader.getSeqTxn();
 
@@ -580,6 +798,72 @@ public class MatViewRefreshJob implements Job, QuietCloseable {
         return false;
     }
 
+    /**
+     * Refreshes keyed GROUP BY view, i.e. the one without a sampling interval. Such view has no time
+     * buckets to recompute, so it's either refreshed in full or, when all new base table rows go after
+     * the rows seen by the previous refresh, the view rows are merged with the aggregates over the new rows.
+     * If the merge can't move the designated timestamp of a key, only the rows of the changed keys are
+     * written and they replace the old ones through the view's dedup keys. Otherwise, all view rows are
+     * rewritten, since there is no other way to remove the stale row of a key.
+     */
+    private boolean refreshKeyedIncremental(
+            @NotNull MatViewRefreshState state,
+            @NotNull TableReader baseTableReader,
+            @NotNull MatViewDefinition viewDef,
+            long fromBaseTxn,
+            long refreshTriggeredTimestamp
+    ) throws SqlException {
+        final TableToken viewToken = viewDef.getMatViewToken();
+        final long toBaseTxn = baseTableReader.getSeqTxn();
+        final long lastMaxTimestamp = state.getLastRefreshBaseMaxTimestamp();
+
+        boolean merge = false;
+        if (fromBaseTxn > 0) {
+            txnRangeLoader.load(engine, Path.PATH.get(), baseTableReader.getTableToken(), fromBaseTxn, toBaseTxn);
+            final long minTs = txnRangeLoader.getMinTimestamp();
+            if (minTs > txnRangeLoader.getMaxTimestamp()) {
+                // No new rows.
+                return false;
+            }
+            // O3 rows may replace or land in between the already aggregated rows, so they can't be merged.
+            // The view also must have all previous refreshes applied, since the merge query reads the view rows.
+            if (viewDef.getMergeColumnCount() > 0 && lastMaxTimestamp != Numbers.LONG_NULL && minTs > lastMaxTimestamp) {
+                try (TableReader viewReader = engine.getReader(viewToken)) {
+                    merge = viewReader.getSeqTxn() == engine.getTableSequencerAPI().lastTxn(viewToken);
+                }
+            }
+        }
+
+        final boolean changed;
+        try (TableWriterAPI tableWriter = engine.getTableWriterAPI(viewToken, "Mat View refresh")) {
+            if (merge) {
+                refreshExecutionContext.setRange(lastMaxTimestamp + 1, Long.MAX_VALUE);
+                final boolean upsert = isUpsertMergeable(viewDef, tableWriter.getMetadata());
+                LOG.info().$("refreshing materialized view, merge [view=").$(viewToken)
+                        .$(", base=").$(baseTableReader.getTableToken())
+                        .$(", fromTxn=").$(fromBaseTxn)
+                        .$(", toTxn=").$(toBaseTxn)
+                        .$(", ts>").$ts(lastMaxTimestamp)
+                        .$(", upsert=").$(upsert)
+                        .I$();
+                changed = insertMergedAsSelect(state, viewDef, tableWriter, upsert, toBaseTxn, refreshTriggeredTimestamp);
+            } else {
+                refreshExecutionContext.setRange(Long.MIN_VALUE + 1, Long.MAX_VALUE);
+                LOG.info().$("refreshing materialized view, full refresh [view=").$(viewToken)
+                        .$(", base=").$(baseTableReader.getTableToken())
+                        .$(", toTxn=").$(toBaseTxn)
+                        .I$();
+                tableWriter.truncateSoft();
+                changed = insertAsSelect(state, viewDef, tableWriter, toBaseTxn, refreshTriggeredTimestamp);
+            }
+        }
+        if (changed) {
+            state.setLastRefreshBaseMaxTimestamp(baseTableReader.getMaxTimestamp());
+            writeLastRefreshBaseTableTxn(state, toBaseTxn);
+        }
+        return changed;
+    }
+
     private void resetInvalidState(MatViewRefreshState state) {
         state.markAsValid(blockFileWriter, dbRoot.trimTo(dbRootLen));
     }
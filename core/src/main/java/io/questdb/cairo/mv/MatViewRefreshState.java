@@ -45,6 +45,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import static io.questdb.TelemetrySystemEvent.*;
 
 public class MatViewRefreshState implements QuietCloseable {
+    public static final int MAT_VIEW_STATE_BASE_MAX_TIMESTAMP_MSG_TYPE = 1;
     public static final String MAT_VIEW_STATE_FILE_NAME = "_mv.s";
     public static final int MAT_VIEW_STATE_FORMAT_MSG_TYPE = 0;
 
@@ -56,6 +57,8 @@ public class MatViewRefreshState implements QuietCloseable {
     private volatile boolean dropped;
     private volatile boolean invalid;
     private volatile String invalidationReason;
+    // base table max timestamp seen by the last refresh, written under the lock
+    private volatile long lastRefreshBaseMaxTimestamp = Numbers.LONG_NULL;
     private volatile long lastRefreshBaseTxn = -1;
     private volatile long lastRefreshTimestamp = Numbers.LONG_NULL;
     private volatile boolean pendingInvalidation;
@@ -77,6 +80,10 @@ public class MatViewRefreshState implements QuietCloseable {
         final AppendableBlock block = writer.append();
         append(refreshState, block);
         block.commit(MAT_VIEW_STATE_FORMAT_MSG_TYPE);
+        // The base table max timestamp goes into a separate block, so that older versions skip it.
+        final AppendableBlock maxTimestampBlock = writer.append();
+        maxTimestampBlock.putLong(refreshState != null ? refreshState.lastRefreshBaseMaxTimestamp : Numbers.LONG_NULL);
+        maxTimestampBlock.commit(MAT_VIEW_STATE_BASE_MAX_TIMESTAMP_MSG_TYPE);
         writer.commit();
     }
 
@@ -94,16 +101,25 @@ public class MatViewRefreshState implements QuietCloseable {
 
     public static void readFrom(@NotNull BlockFileReader reader, @NotNull MatViewRefreshState refreshState) {
         final BlockFileReader.BlockCursor cursor = reader.getCursor();
-        // Iterate through the block until we find the one we recognize.
+        // Iterate through the blocks, the state block always goes before the base table max timestamp one.
+        boolean found = false;
+        refreshState.lastRefreshBaseMaxTimestamp = Numbers.LONG_NULL;
         while (cursor.hasNext()) {
             final ReadableBlock block = cursor.next();
-            if (block.type() != MAT_VIEW_STATE_FORMAT_MSG_TYPE) {
-                // Unknown block, skip.
-                continue;
+            if (!found) {
+                if (block.type() != MAT_VIEW_STATE_FORMAT_MSG_TYPE) {
+                    // Unknown block, skip.
+                    continue;
+                }
+                refreshState.invalid = block.getBool(0);
+                refreshState.lastRefreshBaseTxn = block.getLong(Byte.BYTES);
+                refreshState.invalidationReason = Chars.toString(block.getStr(Long.BYTES + Byte.BYTES));
+                found = true;
+            } else if (block.type() == MAT_VIEW_STATE_BASE_MAX_TIMESTAMP_MSG_TYPE) {
+                refreshState.lastRefreshBaseMaxTimestamp = block.getLong(0);
             }
-            refreshState.invalid = block.getBool(0);
-            refreshState.lastRefreshBaseTxn = block.getLong(Byte.BYTES);
-            refreshState.invalidationReason = Chars.toString(block.getStr(Long.BYTES + Byte.BYTES));
+        }
+        if (found) {
             return;
         }
         final TableToken matViewToken = refreshState.getViewDefinition().getMatViewToken();
@@ -129,6 +145,10 @@ public class MatViewRefreshState implements QuietCloseable {
         return invalidationReason;
     }
 
+    public long getLastRefreshBaseMaxTimestamp() {
+        return lastRefreshBaseMaxTimestamp;
+    }
+
     public long getLastRefreshBaseTxn() {
         return lastRefreshBaseTxn;
     }
@@ -181,6 +201,7 @@ public class MatViewRefreshState implements QuietCloseable {
             this.invalidationReason = invalidationReason;
         }
         this.invalid = true;
+        this.lastRefreshBaseMaxTimestamp = Numbers.LONG_NULL;
         if (wasValid || invalidationReasonChanged) {
             updateInvalidationStatus(blockFileWriter, dbRoot);
             telemetryFacade.store(MAT_VIEW_INVALIDATE, viewDefinition.getMatViewToken(), Numbers.LONG_NULL, invalidationReason, 0);
@@ -230,6 +251,11 @@ public class MatViewRefreshState implements QuietCloseable {
         );
     }
 
+    public void setLastRefreshBaseMaxTimestamp(long lastRefreshBaseMaxTimestamp) {
+        assert latch.get();
+        this.lastRefreshBaseMaxTimestamp = lastRefreshBaseMaxTimestamp;
+    }
+
     public void tryCloseIfDropped() {
         if (dropped && tryLock()) {
             try {
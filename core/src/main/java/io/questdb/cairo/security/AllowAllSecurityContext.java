@@ -89,6 +89,10 @@ public class AllowAllSecurityContext implements SecurityContext {
     public void authorizeAlterTableSetType(TableToken tableToken) {
     }
 
+    @Override
+    public void authorizeAlterTableSetWalPriority(TableToken tableToken) {
+    }
+
     @Override
     public void authorizeCopyCancel(SecurityContext cancellingSecurityContext) {
     }
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.sql.async;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PartitionFormat;
+import io.questdb.cairo.vm.api.MemoryCR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.IOURing;
+import io.questdb.std.IOURingFacade;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.LongLongHashMap;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Os;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.TestOnly;
+
+/**
+ * Reads column files of page frames via io_uring ahead of the frames being reduced.
+ * Reduce jobs access the data through mmapped memory, so on cold partitions each of them
+ * stalls on page faults one at a time. The prefetcher keeps many reads in flight instead,
+ * so that the page cache is populated by the time the frame is reduced. The data is read
+ * into a scratch buffer and discarded.
+ * <p>
+ * Native frames are prefetched column by column. Parquet row groups are prefetched as
+ * a whole; their byte range is estimated from the row counts as the column chunk offsets
+ * are not available outside the decoder.
+ * <p>
+ * The prefetcher is best-effort and is not thread-safe, it's meant to be used by
+ * the page frame sequence owner thread only.
+ */
+public class PageFramePrefetcher implements QuietCloseable, Mutable {
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final Log LOG = LogFactory.getLog(PageFramePrefetcher.class);
+    private final int capacity;
+    // fd -> [lo, hi) file range already scheduled for read
+    private final LongLongHashMap fdHis = new LongLongHashMap();
+    private final LongLongHashMap fdLos = new LongLongHashMap();
+    // index of the first read of each frame
+    private final IntList frameReadIndexes = new IntList();
+    // [fd, offset, length] triples
+    private final LongList reads = new LongList();
+    private final IOURingFacade rf;
+    private long bufAddr;
+    private boolean disabled;
+    private int inFlight;
+    private int nextRead;
+    private long nextReadOffset;
+    private IOURing ring;
+
+    public PageFramePrefetcher(CairoConfiguration configuration) {
+        this.rf = configuration.getIOURingFacade();
+        this.capacity = configuration.getSqlPageFramePrefetchQueueDepth();
+    }
+
+    public static boolean isEnabled(CairoConfiguration configuration) {
+        return configuration.isSqlPageFramePrefetchEnabled()
+                && configuration.isIOURingEnabled()
+                && configuration.getIOURingFacade().isAvailable();
+    }
+
+    /**
+     * Schedules reads for the given frame. Must be called for all frames in their dispatch order.
+     */
+    public void addFrame(PageFrame frame, TableReader reader, IntList columnIndexes) {
+        frameReadIndexes.add(reads.size() / 3);
+        if (disabled) {
+            return;
+        }
+
+        final int partitionIndex = frame.getPartitionIndex();
+        if (frame.getFormat() == PartitionFormat.NATIVE) {
+            final int base = reader.getColumnBase(partitionIndex);
+            for (int i = 0, n = frame.getColumnCount(); i < n; i++) {
+                final int readerColIndex = TableReader.getPrimaryColumnIndex(base, columnIndexes.getQuick(i));
+                addPage(reader.getColumn(readerColIndex), frame.getPageAddress(i), frame.getPageSize(i));
+                final long auxPageAddress = frame.getAuxPageAddress(i);
+                if (auxPageAddress != 0) {
+                    addPage(reader.getColumn(readerColIndex + 1), auxPageAddress, frame.getAuxPageSize(i));
+                }
+            }
+        } else {
+            final long fd = reader.getParquetFd(partitionIndex);
+            final long rowCount = reader.getPartitionRowCount(partitionIndex);
+            if (fd != -1 && rowCount > 0) {
+                final double bytesPerRow = (double) frame.getParquetFileSize() / rowCount;
+                addRange(fd, (long) (frame.getPartitionLo() * bytesPerRow), (long) Math.ceil(frame.getPartitionHi() * bytesPerRow));
+            }
+        }
+    }
+
+    /**
+     * Schedules a read of the [lo, hi) range of the file. The part of the range that overlaps
+     * the range already scheduled for the same file is not read again.
+     */
+    public void addRange(long fd, long lo, long hi) {
+        final int index = fdLos.keyIndex(fd);
+        if (index < 0) {
+            final long scheduledLo = fdLos.valueAt(index);
+            final long scheduledHi = fdHis.get(fd);
+            if (lo <= scheduledHi && hi >= scheduledLo) {
+                // e.g. var-size column data shared by the frames of the same partition;
+                // read the uncovered head and tail, either of them may be empty
+                addRead(fd, lo, Math.min(hi, scheduledLo));
+                addRead(fd, Math.max(lo, scheduledHi), hi);
+                fdLos.putAt(index, fd, Math.min(lo, scheduledLo));
+                fdHis.put(fd, Math.max(hi, scheduledHi));
+                return;
+            }
+            // disjoint ranges, track the new one so that the gap between them is not taken as read
+        }
+        fdLos.putAt(index, fd, lo);
+        fdHis.put(fd, hi);
+        addRead(fd, lo, hi);
+    }
+
+    @Override
+    public void clear() {
+        awaitInFlight();
+        reads.clear();
+        frameReadIndexes.clear();
+        fdLos.clear();
+        fdHis.clear();
+        nextRead = 0;
+        nextReadOffset = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        ring = Misc.free(ring);
+        if (bufAddr != 0) {
+            bufAddr = Unsafe.free(bufAddr, CHUNK_SIZE, MemoryTag.NATIVE_DEFAULT);
+        }
+    }
+
+    @TestOnly
+    public LongList getReads() {
+        return reads;
+    }
+
+    /**
+     * Collects completed reads and issues new ones for the frames below the given index.
+     */
+    public void prefetch(int frameIndexHi) {
+        if (disabled || nextRead == reads.size() / 3) {
+            return;
+        }
+        if (ring == null && !init()) {
+            return;
+        }
+
+        while (inFlight > 0 && ring.nextCqe()) {
+            // Read errors are fine, the data will be read via mmap.
+            inFlight--;
+        }
+
+        final int readHi = frameIndexHi > -1 && frameIndexHi < frameReadIndexes.size() ? frameReadIndexes.getQuick(frameIndexHi) : reads.size() / 3;
+        int enqueued = 0;
+        while (nextRead < readHi && inFlight < capacity) {
+            final long fd = reads.getQuick(3 * nextRead);
+            final long offset = reads.getQuick(3 * nextRead + 1) + nextReadOffset;
+            final long remaining = reads.getQuick(3 * nextRead + 2) - nextReadOffset;
+            final int len = (int) Math.min(remaining, CHUNK_SIZE);
+            if (ring.enqueueRead(fd, offset, bufAddr, len) == -1) {
+                break;
+            }
+            inFlight++;
+            enqueued++;
+            if (len < remaining) {
+                nextReadOffset += len;
+            } else {
+                nextRead++;
+                nextReadOffset = 0;
+            }
+        }
+        if (enqueued > 0) {
+            ring.submit();
+        }
+    }
+
+    private void addPage(MemoryCR mem, long pageAddress, long pageSize) {
+        if (pageAddress == 0 || pageSize <= 0) {
+            return;
+        }
+        final long fd = mem.getFd();
+        final long baseAddress = mem.getPageAddress(0);
+        if (fd == -1 || baseAddress == 0) {
+            return;
+        }
+        // reader maps column files from the very beginning
+        final long lo = pageAddress - baseAddress;
+        addRange(fd, lo, lo + pageSize);
+    }
+
+    private void addRead(long fd, long lo, long hi) {
+        if (hi > lo) {
+            reads.add(fd);
+            reads.add(lo);
+            reads.add(hi - lo);
+        }
+    }
+
+    private void awaitInFlight() {
+        while (inFlight > 0) {
+            // the kernel writes into the scratch buffer until the reads complete
+            if (ring.nextCqe()) {
+                inFlight--;
+            } else {
+                Os.pause();
+            }
+        }
+    }
+
+    private boolean init() {
+        try {
+            ring = rf.newInstance(capacity);
+            bufAddr = Unsafe.malloc(CHUNK_SIZE, MemoryTag.NATIVE_DEFAULT);
+            return true;
+        } catch (CairoException e) {
+            LOG.error().$("could not create io_uring, page frame prefetch is disabled [errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            disabled = true;
+            return false;
+        }
+    }
+}
@@ -27,6 +27,7 @@ package io.questdb.cairo.sql.async;
 import io.questdb.MessageBus;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ZoneMapFilter;
 import io.questdb.cairo.sql.PageFrame;
 import io.questdb.cairo.sql.PageFrameAddressCache;
 import io.questdb.cairo.sql.PageFrameCursor;
@@ -35,6 +36,7 @@ import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreakerWrapper;
 import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.cairo.sql.TablePageFrameCursor;
 import io.questdb.cairo.sql.SymbolTableSource;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
@@ -50,6 +52,8 @@ import io.questdb.std.Os;
 import io.questdb.std.Rnd;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.io.Closeable;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -67,12 +71,15 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
     private final LongList frameRowCounts = new LongList();
     private final PageFrameReduceTaskFactory localTaskFactory;
     private final MessageBus messageBus;
+    private final int prefetchFrames;
+    private final PageFramePrefetcher prefetcher;
     private final AtomicInteger reduceFinishedCounter = new AtomicInteger(0);
     private final AtomicInteger reduceStartedCounter = new AtomicInteger(0);
     private final PageFrameReducer reducer;
     private final byte taskType; // PageFrameReduceTask.TYPE_*
     private final AtomicBoolean valid = new AtomicBoolean(true);
     private final WorkStealingStrategy workStealingStrategy;
+    private final ZoneMapFilter zoneMapFilter;
     public volatile boolean done;
     private long circuitBreakerFd;
     private SCSequence collectSubSeq;
@@ -100,6 +107,19 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
             PageFrameReduceTaskFactory localTaskFactory,
             int sharedWorkerCount,
             byte taskType
+    ) {
+        this(configuration, messageBus, atom, reducer, localTaskFactory, sharedWorkerCount, taskType, null);
+    }
+
+    public PageFrameSequence(
+            CairoConfiguration configuration,
+            MessageBus messageBus,
+            T atom,
+            PageFrameReducer reducer,
+            PageFrameReduceTaskFactory localTaskFactory,
+            int sharedWorkerCount,
+            byte taskType,
+            @Nullable ZoneMapFilter zoneMapFilter
     ) {
         this.frameAddressCache = new PageFrameAddressCache(configuration);
         this.messageBus = messageBus;
@@ -110,6 +130,9 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         this.workStealingStrategy = WorkStealingStrategyFactory.getInstance(configuration, sharedWorkerCount);
         this.taskType = taskType;
         this.workStealCircuitBreaker = new SqlExecutionCircuitBreakerWrapper(configuration.getCircuitBreakerConfiguration());
+        this.zoneMapFilter = zoneMapFilter;
+        this.prefetcher = PageFramePrefetcher.isEnabled(configuration) ? new PageFramePrefetcher(configuration) : null;
+        this.prefetchFrames = configuration.getSqlPageFramePrefetchFrames();
     }
 
     /**
@@ -196,6 +219,13 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         frameRowCounts.clear();
         frameAddressCache.clear();
         atom.clear();
+        if (zoneMapFilter != null) {
+            zoneMapFilter.clear();
+        }
+        if (prefetcher != null) {
+            // in-flight reads must complete before the column files are released
+            prefetcher.clear();
+        }
         frameCursor = Misc.freeIfCloseable(frameCursor);
         // collect sequence may not be set here when
         // factory is closed without using cursor
@@ -215,6 +245,8 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         workStealCircuitBreaker = Misc.free(workStealCircuitBreaker);
         localTask = Misc.free(localTask);
         Misc.free(atom);
+        Misc.free(zoneMapFilter);
+        Misc.free(prefetcher);
     }
 
     public void collect(long cursor, boolean forceCollect) {
@@ -388,6 +420,9 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
             // this has to be separate pass to ensure there no cache reads
             // while cache might be resizing
             frameAddressCache.of(base.getMetadata(), frameCursor.getColumnIndexes());
+            if (zoneMapFilter != null) {
+                zoneMapFilter.of(frameCursor, executionContext);
+            }
 
             this.collectSubSeq = collectSubSeq;
             id = ID_SEQ.incrementAndGet();
@@ -474,10 +509,22 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
     }
 
     private void buildAddressCache() {
+        final TablePageFrameCursor tableFrameCursor = prefetcher != null && frameCursor instanceof TablePageFrameCursor
+                ? (TablePageFrameCursor) frameCursor
+                : null;
         PageFrame frame;
         while ((frame = frameCursor.next()) != null) {
+            if (zoneMapFilter != null && zoneMapFilter.canSkip(frame)) {
+                continue;
+            }
             frameRowCounts.add(frame.getPartitionHi() - frame.getPartitionLo());
             frameAddressCache.add(frameCount++, frame);
+            if (tableFrameCursor != null) {
+                prefetcher.addFrame(frame, tableFrameCursor.getTableReader(), tableFrameCursor.getColumnIndexes());
+            }
+        }
+        if (tableFrameCursor != null) {
+            prefetcher.prefetch(prefetchFrames);
         }
 
         // dispatch tasks only if there is anything to dispatch
@@ -513,6 +560,10 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
 
         final int collectedFrameCount = collectedFrameIndex + 1;
 
+        if (prefetcher != null) {
+            prefetcher.prefetch(dispatchStartFrameIndex + prefetchFrames);
+        }
+
         long cursor;
         int i = dispatchStartFrameIndex;
         OUT:
@@ -51,8 +51,12 @@ import io.questdb.mp.AbstractQueueConsumerJob;
 import io.questdb.mp.Job;
 import io.questdb.std.Files;
 import io.questdb.std.FilesFacade;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
 import io.questdb.std.Misc;
 import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Os;
 import io.questdb.std.Rnd;
 import io.questdb.std.Transient;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
@@ -82,6 +86,10 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
     public static final String WAL_2_TABLE_RESUME_REASON = "Resume WAL Data Application";
     private static final Log LOG = LogFactory.getLog(ApplyWal2TableJob.class);
     private static final String WAL_2_TABLE_WRITE_REASON = "WAL Data Application";
+    private final int coalesceTxnCount;
+    private final WalEventReader coalesceEventReader;
+    // per column symbol diff header of the first coalesced transaction, cleanSymbolCount * 2 + nullFlag or -1
+    private final IntList coalesceSymbolDiffs = new IntList();
     private final CairoEngine engine;
     private final int lookAheadTransactionCount;
     private final WalMetrics metrics;
@@ -89,12 +97,20 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
     private final MatViewRefreshTask mvRefreshTask = new MatViewRefreshTask();
     private final OperationExecutor operationExecutor;
     private final Rnd rnd = new Rnd();
+    private final int scheduleBatchSize;
+    // apply deadlines of the scheduled tables, ascending, see SeqTxnTracker.getApplyDeadline()
+    private final LongList scheduleDeadlines = new LongList();
+    private final ObjList<TableToken> scheduleTokens = new ObjList<>();
     private final long tableTimeQuotaMicros;
     private final Telemetry<TelemetryTask> telemetry;
     private final TelemetryFacade telemetryFacade;
     private final WalEventReader walEventReader;
     private final Telemetry<TelemetryWalTask> walTelemetry;
     private final WalTelemetryFacade walTelemetryFacade;
+    private boolean coalescedInOrder;
+    private long coalescedMaxTimestamp;
+    private long coalescedMinTimestamp;
+    private long coalescedRowHi;
     private long lastAttemptSeqTxn;
 
     public ApplyWal2TableJob(CairoEngine engine, int workerCount, int sharedWorkerCount) {
@@ -108,15 +124,19 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
         CairoConfiguration configuration = engine.getConfiguration();
         microClock = configuration.getMicrosecondClock();
         walEventReader = new WalEventReader(configuration.getFilesFacade());
+        coalesceEventReader = new WalEventReader(configuration.getFilesFacade());
+        coalesceTxnCount = configuration.getWalApplyCoalesceTxnCount();
         metrics = engine.getMetrics().walMetrics();
         lookAheadTransactionCount = configuration.getWalApplyLookAheadTransactionCount();
         tableTimeQuotaMicros = configuration.getWalApplyTableTimeQuota() >= 0 ? configuration.getWalApplyTableTimeQuota() * 1000L : Timestamps.DAY_MICROS;
+        scheduleBatchSize = Math.max(1, configuration.getWalApplyScheduleBatchSize());
     }
 
     @Override
     public void close() {
         Misc.free(operationExecutor);
         Misc.free(walEventReader);
+        Misc.free(coalesceEventReader);
     }
 
     private static void cleanDroppedTableDirectory(CairoEngine engine, Path tempPath, TableToken tableToken) {
@@ -252,6 +272,7 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
      * @param operationExecutor operation executor
      * @param tempPath          temporary path
      * @param runStatus         run status
+     * @param timeQuotaMicros   time after which the remaining transactions are left for the next scheduling round
      */
     private void applyOutstandingWalTransactions(
             TableToken tableToken,
@@ -260,7 +281,8 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
             OperationExecutor operationExecutor,
             Path tempPath,
             RunStatus runStatus,
-            O3JobParallelismRegulator regulator
+            O3JobParallelismRegulator regulator,
+            long timeQuotaMicros
     ) {
         final TableSequencerAPI tableSequencerAPI = engine.getTableSequencerAPI();
         boolean isTerminating;
@@ -287,7 +309,7 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
                 writer.readWalTxnDetails(transactionLogCursor);
                 transactionLogCursor.toTop();
                 isTerminating = runStatus.isTerminating();
-                final long timeLimit = microClock.getTicks() + tableTimeQuotaMicros;
+                final long timeLimit = microClock.getTicks() + timeQuotaMicros;
                 boolean firstRun = true;
 
                 try {
@@ -390,7 +412,9 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
                                 isTerminating = runStatus.isTerminating();
                                 final long added = processWalCommit(
                                         writer,
+                                        transactionLogCursor,
                                         walId,
+                                        segmentId,
                                         tempPath,
                                         segmentTxn,
                                         operationExecutor,
@@ -449,6 +473,64 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
         }
     }
 
+    // Extends the data transaction at seqTxn with the following transactions of the same WAL segment,
+    // so that the table writer merges them in one go. A transaction joins when its rows continue the
+    // row range, its commit-to timestamp is known, and it adds no symbols: its keys then are table keys
+    // and the symbol diff of the first transaction remaps the whole range correctly. Leaves the
+    // transaction log cursor at the last coalesced transaction and returns its seqTxn.
+    private long coalesceWalCommits(
+            WalTxnDetails walTxnDetails,
+            TransactionLogCursor transactionLogCursor,
+            int walId,
+            int segmentId,
+            @Transient Path walPath,
+            long segmentTxn,
+            long seqTxn,
+            WalEventCursor.DataInfo dataInfo
+    ) {
+        coalescedRowHi = dataInfo.getEndRowID();
+        coalescedMinTimestamp = dataInfo.getMinTimestamp();
+        coalescedMaxTimestamp = dataInfo.getMaxTimestamp();
+        coalescedInOrder = !dataInfo.isOutOfOrder();
+        if (coalesceTxnCount < 2 || !walTxnDetails.hasRecord(seqTxn + 1)) {
+            return seqTxn;
+        }
+
+        long lastSeqTxn = seqTxn;
+        try (WalEventReader eventReader = coalesceEventReader) {
+            final WalEventCursor eventCursor = eventReader.of(walPath, WAL_FORMAT_VERSION, segmentTxn);
+            readCoalesceSymbolDiffs(eventCursor.getDataInfo());
+            while (lastSeqTxn - seqTxn + 1 < coalesceTxnCount
+                    && walTxnDetails.hasRecord(lastSeqTxn + 1)
+                    && transactionLogCursor.hasNext()
+                    && transactionLogCursor.getWalId() == walId
+                    && transactionLogCursor.getSegmentId() == segmentId
+                    && transactionLogCursor.getSegmentTxn() == segmentTxn + lastSeqTxn - seqTxn + 1
+                    && eventCursor.hasNext()
+                    && eventCursor.getType() == DATA
+            ) {
+                final WalEventCursor.DataInfo nextDataInfo = eventCursor.getDataInfo();
+                if (nextDataInfo.getStartRowID() != coalescedRowHi || !hasNoNewSymbols(nextDataInfo)) {
+                    break;
+                }
+                coalescedInOrder &= !nextDataInfo.isOutOfOrder() && nextDataInfo.getMinTimestamp() >= coalescedMaxTimestamp;
+                coalescedRowHi = nextDataInfo.getEndRowID();
+                coalescedMinTimestamp = Math.min(coalescedMinTimestamp, nextDataInfo.getMinTimestamp());
+                coalescedMaxTimestamp = Math.max(coalescedMaxTimestamp, nextDataInfo.getMaxTimestamp());
+                lastSeqTxn++;
+            }
+        }
+        transactionLogCursor.setPosition(lastSeqTxn);
+        if (lastSeqTxn > seqTxn) {
+            LOG.debug().$("coalesced WAL transactions [path=").$(walPath)
+                    .$(", seqTxnLo=").$(seqTxn)
+                    .$(", seqTxnHi=").$(lastSeqTxn)
+                    .$(", rowHi=").$(coalescedRowHi)
+                    .I$();
+        }
+        return lastSeqTxn;
+    }
+
     private void doStoreTelemetry(short event, short origin) {
         TelemetryTask.store(telemetry, origin, event);
     }
@@ -501,9 +583,33 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
         }
     }
 
+    private boolean hasNoNewSymbols(WalEventCursor.DataInfo dataInfo) {
+        SymbolMapDiff symbolMapDiff;
+        while ((symbolMapDiff = dataInfo.nextSymbolMapDiff()) != null) {
+            final int columnIndex = symbolMapDiff.getColumnIndex();
+            final int firstDiff = columnIndex < coalesceSymbolDiffs.size() ? coalesceSymbolDiffs.getQuick(columnIndex) : -1;
+            final boolean hasNullValue = symbolMapDiff.hasNullValue();
+            if (symbolMapDiff.getSize() > 0) {
+                return false;
+            }
+            if (firstDiff == -1) {
+                // no diff to remap the column, keys are stored as is
+                if (hasNullValue) {
+                    return false;
+                }
+            } else if ((firstDiff >> 1) != symbolMapDiff.getCleanSymbolCount() || (hasNullValue && (firstDiff & 1) == 0)) {
+                return false;
+            }
+            symbolMapDiff.drain();
+        }
+        return true;
+    }
+
     private long processWalCommit(
             TableWriter writer,
+            TransactionLogCursor transactionLogCursor,
             int walId,
+            int segmentId,
             @Transient Path walPath,
             long segmentTxn,
             OperationExecutor operationExecutor,
@@ -518,24 +624,26 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
                 case DATA:
                     final WalEventCursor.DataInfo dataInfo = walEventCursor.getDataInfo();
                     if (writer.getWalTnxDetails().hasRecord(seqTxn)) {
-                        long rowCount = dataInfo.getEndRowID() - dataInfo.getStartRowID();
+                        final long lastSeqTxn = coalesceWalCommits(writer.getWalTnxDetails(), transactionLogCursor, walId, segmentId, walPath, segmentTxn, seqTxn, dataInfo);
+                        long rowCount = coalescedRowHi - dataInfo.getStartRowID();
                         final long start = microClock.getTicks();
-                        walTelemetryFacade.store(WAL_TXN_APPLY_START, writer.getTableToken(), walId, seqTxn, -1L, -1L, start - commitTimestamp);
+                        walTelemetryFacade.store(WAL_TXN_APPLY_START, writer.getTableToken(), walId, lastSeqTxn, -1L, -1L, start - commitTimestamp);
                         final long rowsAdded = writer.commitWalTransaction(
                                 walPath,
-                                !dataInfo.isOutOfOrder(),
+                                coalescedInOrder,
                                 dataInfo.getStartRowID(),
-                                dataInfo.getEndRowID(),
-                                dataInfo.getMinTimestamp(),
-                                dataInfo.getMaxTimestamp(),
+                                coalescedRowHi,
+                                coalescedMinTimestamp,
+                                coalescedMaxTimestamp,
                                 dataInfo,
-                                seqTxn,
+                                lastSeqTxn,
+                                (int) (lastSeqTxn - seqTxn + 1),
                                 regulator
                         );
                         final long latency = microClock.getTicks() - start;
                         long physicalRowCount = writer.getPhysicallyWrittenRowsSinceLastCommit();
                         metrics.addApplyRowsWritten(rowCount, physicalRowCount, latency);
-                        walTelemetryFacade.store(WAL_TXN_DATA_APPLIED, writer.getTableToken(), walId, seqTxn, rowsAdded, physicalRowCount, latency);
+                        walTelemetryFacade.store(WAL_TXN_DATA_APPLIED, writer.getTableToken(), walId, lastSeqTxn, rowsAdded, physicalRowCount, latency);
                         return rowCount;
                     } else {
                         // re-build wal transaction details
@@ -569,6 +677,19 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
         }
     }
 
+    private void readCoalesceSymbolDiffs(WalEventCursor.DataInfo dataInfo) {
+        coalesceSymbolDiffs.clear();
+        SymbolMapDiff symbolMapDiff;
+        while ((symbolMapDiff = dataInfo.nextSymbolMapDiff()) != null) {
+            final int columnIndex = symbolMapDiff.getColumnIndex();
+            while (coalesceSymbolDiffs.size() <= columnIndex) {
+                coalesceSymbolDiffs.add(-1);
+            }
+            coalesceSymbolDiffs.setQuick(columnIndex, (symbolMapDiff.getCleanSymbolCount() << 1) | (symbolMapDiff.hasNullValue() ? 1 : 0));
+            symbolMapDiff.drain();
+        }
+    }
+
     private long processWalSql(TableWriter tableWriter, WalEventCursor.SqlInfo sqlInfo, OperationExecutor operationExecutor, long seqTxn) {
         final int cmdType = sqlInfo.getCmdType();
         final CharSequence sql = sqlInfo.getSql();
@@ -648,6 +769,40 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
         }
     }
 
+    private void schedule(long cursor, long nowMicros) {
+        final TableToken tableToken;
+        try {
+            final WalTxnNotificationTask task = queue.get(cursor);
+            tableToken = task.getTableToken();
+        } finally {
+            // Do not hold the queue while transactions are applied to the table
+            subSeq.done(cursor);
+        }
+
+        for (int i = 0, n = scheduleTokens.size(); i < n; i++) {
+            if (scheduleTokens.getQuick(i).equals(tableToken)) {
+                // duplicate notification, the table is applied once per round
+                return;
+            }
+        }
+
+        // dropped tables are purged first, there is nothing to apply to them
+        final long deadline = scheduleBatchSize == 1 || engine.isTableDropped(tableToken)
+                ? Long.MIN_VALUE
+                : engine.getTableSequencerAPI().getTxnTracker(tableToken).getApplyDeadline(nowMicros);
+        int i = scheduleTokens.size();
+        scheduleTokens.add(tableToken);
+        scheduleDeadlines.add(deadline);
+        // insertion sort, the batch is small
+        while (i > 0 && scheduleDeadlines.getQuick(i - 1) > deadline) {
+            scheduleTokens.setQuick(i, scheduleTokens.getQuick(i - 1));
+            scheduleDeadlines.setQuick(i, scheduleDeadlines.getQuick(i - 1));
+            i--;
+        }
+        scheduleTokens.setQuick(i, tableToken);
+        scheduleDeadlines.setQuick(i, deadline);
+    }
+
     private void storeTelemetryNoOp(short event, short origin) {
     }
 
@@ -685,7 +840,10 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
                         // rely on CheckWalTransactionsJob to notify us when to apply transactions
                         return;
                     }
-                    applyOutstandingWalTransactions(tableToken, writer, engine, operationExecutor, tempPath, runStatus, txnTracker);
+                    final long timeQuotaMicros = WalApplyPriority.getTimeQuotaMicros(txnTracker.getWalPriority(), tableTimeQuotaMicros);
+                    applyOutstandingWalTransactions(tableToken, writer, engine, operationExecutor, tempPath, runStatus, txnTracker, timeQuotaMicros);
+                    // ALTER TABLE SET WAL PRIORITY is applied via the WAL, pick up the persisted value
+                    txnTracker.setWalPriority(writer.getMetaWalPriority());
                     txnTracker.hadEnoughMemory(tableToken.getTableName(), rnd);
                     writerTxn = writer.getSeqTxn();
                     dirtyWriterTxn = writer.getAppliedSeqTxn();
@@ -727,16 +885,30 @@ public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificati
 
     @Override
     protected boolean doRun(int workerId, long cursor, RunStatus runStatus) {
-        final TableToken tableToken;
-        try {
-            final WalTxnNotificationTask task = queue.get(cursor);
-            tableToken = task.getTableToken();
-        } finally {
-            // Do not hold the queue while transactions are applied to the table
-            subSeq.done(cursor);
+        // Take the notifications that are already waiting in the queue and apply
+        // the tables in deadline order, so that a table with a long backlog does not
+        // hold up the tables with higher WAL priority queued behind it.
+        final long nowMicros = microClock.getTicks();
+        scheduleTokens.clear();
+        scheduleDeadlines.clear();
+        schedule(cursor, nowMicros);
+        while (scheduleTokens.size() < scheduleBatchSize) {
+            final long nextCursor = subSeq.next();
+            if (nextCursor == -1) {
+                break;
+            }
+            if (nextCursor > -1) {
+                schedule(nextCursor, nowMicros);
+            } else {
+                Os.pause();
+            }
         }
 
-        applyWal(tableToken, engine, operationExecutor, runStatus);
+        for (int i = 0, n = scheduleTokens.size(); i < n; i++) {
+            final TableToken tableToken = scheduleTokens.getQuick(i);
+            scheduleTokens.setQuick(i, null);
+            applyWal(tableToken, engine, operationExecutor, runStatus);
+        }
         return true;
     }
 
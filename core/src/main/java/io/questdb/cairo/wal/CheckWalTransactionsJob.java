@@ -46,11 +46,14 @@ public class CheckWalTransactionsJob extends SynchronizedJob {
     private final CharSequence dbRoot;
     private final CairoEngine engine;
     private final FilesFacade ff;
+    private final long[] lagTxnsByPriority = new long[WalApplyPriority.COUNT];
+    private final WalMetrics metrics;
     private final MillisecondClock millisecondClock;
     private final long spinLockTimeout;
     private final ObjHashSet<TableToken> tableTokenBucket = new ObjHashSet<>();
     // Empty list means that all tables should be checked.
     private final TxReader txReader;
+    private long lastLagUpdateMs;
     private long lastProcessedCount = 0;
     private long lastRunMs;
     private boolean notificationQueueIsFull = false;
@@ -66,6 +69,7 @@ public class CheckWalTransactionsJob extends SynchronizedJob {
         checkNotifyOutstandingTxnInWalRef = (tableToken, txn, txn2) -> checkNotifyOutstandingTxnInWal(txn, txn2);
         checkInterval = engine.getConfiguration().getSequencerCheckInterval();
         lastRunMs = millisecondClock.getTicks();
+        metrics = engine.getMetrics().walMetrics();
     }
 
     public void checkMissingWalTransactions() {
@@ -113,6 +117,11 @@ public class CheckWalTransactionsJob extends SynchronizedJob {
 
     @Override
     public boolean runSerially() {
+        final long now = millisecondClock.getTicks();
+        if (lastLagUpdateMs + checkInterval < now) {
+            lastLagUpdateMs = now;
+            updateLagMetrics();
+        }
         long unpublishedWalTxnCount = engine.getUnpublishedWalTxnCount();
         if (unpublishedWalTxnCount == lastProcessedCount || notificationQueueIsFull) {
             // when notification queue was full last run, re-evalute tables after a timeout
@@ -141,4 +150,21 @@ public class CheckWalTransactionsJob extends SynchronizedJob {
         }
         return true;
     }
+
+    private void updateLagMetrics() {
+        engine.getTableTokens(tableTokenBucket, false);
+        for (int i = 0; i < WalApplyPriority.COUNT; i++) {
+            lagTxnsByPriority[i] = 0;
+        }
+        for (int i = 0, n = tableTokenBucket.size(); i < n; i++) {
+            final TableToken tableToken = tableTokenBucket.get(i);
+            if (tableToken.isWal()) {
+                final SeqTxnTracker tracker = engine.getTableSequencerAPI().getTxnTracker(tableToken);
+                lagTxnsByPriority[tracker.getWalPriority()] += tracker.getUnappliedTxnCount();
+            }
+        }
+        for (int i = 0; i < WalApplyPriority.COUNT; i++) {
+            metrics.setApplyLagTxns(i, lagTxnsByPriority[i]);
+        }
+    }
 }
@@ -171,6 +171,11 @@ public interface MetadataService {
      */
     void setMetaTtlHoursOrMonths(int metaTtlHoursOrMonths);
 
+    /**
+     * Sets the WAL apply priority of this table, one of the {@link WalApplyPriority} constants.
+     */
+    void setMetaWalPriority(int walPriority);
+
     void squashPartitions();
 
     void tick();
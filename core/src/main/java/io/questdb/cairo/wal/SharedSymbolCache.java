@@ -0,0 +1,119 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.StaticSymbolTable;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Chars;
+import io.questdb.std.ConcurrentHashMap;
+import io.questdb.std.Mutable;
+
+/**
+ * Symbol value to key cache shared by all ILP connections of WAL tables. Symbol tables of
+ * WAL tables are never truncated, so once a value is resolved to a table key, the mapping
+ * holds for the lifetime of the column. Caches are keyed by the table directory, the column
+ * writer index and the column name txn, which tells apart a dropped and re-added column.
+ * <p>
+ * Lookups are lock-free. A cache is pre-warmed from the symbol table once, by its first user.
+ * Users must not pass on keys that are above the symbol count watermark of their WAL writer.
+ */
+public class SharedSymbolCache implements Mutable {
+    private final ConcurrentHashMap<ColumnCache> caches = new ConcurrentHashMap<>();
+    private final boolean enabled;
+
+    public SharedSymbolCache(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void clear() {
+        caches.clear();
+    }
+
+    public void dropTable(TableToken tableToken) {
+        if (!enabled) {
+            return;
+        }
+        final String prefix = tableToken.getDirName() + '/';
+        for (CharSequence key : caches.keySet()) {
+            if (Chars.startsWith(key, prefix)) {
+                caches.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the cache of a symbol column, or null when shared caches are disabled or the
+     * table is not a WAL table.
+     */
+    public ColumnCache getColumnCache(TableToken tableToken, int columnWriterIndex, long columnNameTxn) {
+        if (!enabled || !tableToken.isWal()) {
+            return null;
+        }
+        final String key = tableToken.getDirName() + '/' + columnWriterIndex + '/' + columnNameTxn;
+        return caches.computeIfAbsent(key, k -> new ColumnCache());
+    }
+
+    public static class ColumnCache {
+        private final ConcurrentHashMap<Integer> valueToKey = new ConcurrentHashMap<>();
+        private volatile int warmedSymbolCount;
+
+        public int keyOf(CharSequence value) {
+            final Integer key = valueToKey.get(value);
+            return key != null ? key : SymbolTable.VALUE_NOT_FOUND;
+        }
+
+        /**
+         * Loads values of the first symbolCount keys from the symbol table. Only the first
+         * caller loads the values, subsequent calls are no-op unless the symbol table grew.
+         */
+        public void prewarm(StaticSymbolTable symbolTable, int symbolCount) {
+            if (warmedSymbolCount >= symbolCount) {
+                return;
+            }
+            synchronized (this) {
+                for (int key = warmedSymbolCount; key < symbolCount; key++) {
+                    final CharSequence value = symbolTable.valueOf(key);
+                    if (value != null) {
+                        valueToKey.putIfAbsent(Chars.toString(value), key);
+                    }
+                }
+                if (symbolCount > warmedSymbolCount) {
+                    warmedSymbolCount = symbolCount;
+                }
+            }
+        }
+
+        public void put(CharSequence value, int key) {
+            valueToKey.putIfAbsent(Chars.toString(value), key);
+        }
+
+        public int size() {
+            return valueToKey.size();
+        }
+    }
+}
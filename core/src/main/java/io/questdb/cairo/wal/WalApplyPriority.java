@@ -0,0 +1,72 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.std.Chars;
+import io.questdb.std.datetime.microtime.Timestamps;
+
+/**
+ * WAL apply priority classes of a table, set with <code>ALTER TABLE ... SET WAL PRIORITY</code>.
+ * The class defines how long the table may wait for the apply job before it is overdue, and how
+ * much of the apply time quota it gets per scheduling round.
+ */
+public final class WalApplyPriority {
+    public static final int COUNT = 3;
+    public static final int HIGH = 2;
+    public static final int LOW = 0;
+    public static final int NORMAL = 1;
+    private static final String[] NAMES = {"LOW", "NORMAL", "HIGH"};
+    private static final long[] TARGET_LAG_MICROS = {10 * Timestamps.SECOND_MICROS, Timestamps.SECOND_MICROS, 100 * Timestamps.MILLI_MICROS};
+    // time quota multiplier, in quarters of the configured table time quota
+    private static final int[] TIME_QUOTA_QUARTERS = {2, 4, 8};
+
+    private WalApplyPriority() {
+    }
+
+    public static String getName(int priority) {
+        return NAMES[priority];
+    }
+
+    public static long getTargetLagMicros(int priority) {
+        return TARGET_LAG_MICROS[priority];
+    }
+
+    public static long getTimeQuotaMicros(int priority, long tableTimeQuotaMicros) {
+        return tableTimeQuotaMicros / 4 * TIME_QUOTA_QUARTERS[priority];
+    }
+
+    /**
+     * Returns priority class by its case-insensitive name or -1 when the name is unknown.
+     */
+    public static int resolve(CharSequence name) {
+        for (int i = 0; i < COUNT; i++) {
+            if (Chars.equalsIgnoreCase(NAMES[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -32,6 +32,8 @@ import io.questdb.std.Mutable;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class WalMetrics implements Mutable {
+    // sum of committed, not yet applied, transactions of the tables in each WAL priority class
+    private final LongGauge[] applyLagTxnsGauges = new LongGauge[WalApplyPriority.COUNT];
     private final Counter applyPhysicallyWrittenRowsCounter;
     private final LongGauge applyRowsWriteRateGauge;
     private final Counter applyRowsWrittenCounter;
@@ -44,6 +46,9 @@ public class WalMetrics implements Mutable {
         this.applyRowsWrittenCounter = metricsRegistry.newCounter("wal_apply_written_rows");
         this.applyRowsWriteRateGauge = metricsRegistry.newLongGauge("wal_apply_rows_per_second");
         this.rowsWrittenCounter = metricsRegistry.newCounter("wal_written_rows");
+        for (int i = 0; i < WalApplyPriority.COUNT; i++) {
+            applyLagTxnsGauges[i] = metricsRegistry.newLongGauge("wal_apply_lag_txns_" + WalApplyPriority.getName(i).toLowerCase());
+        }
     }
 
     public void addApplyRowsWritten(long rows, long physicallyWrittenRows, long timeMicros) {
@@ -59,8 +64,15 @@ public class WalMetrics implements Mutable {
         rowsWrittenCounter.add(rows);
     }
 
+    public void setApplyLagTxns(int priority, long lagTxns) {
+        applyLagTxnsGauges[priority].setValue(lagTxns);
+    }
+
     @Override
     public void clear() {
+        for (int i = 0; i < WalApplyPriority.COUNT; i++) {
+            applyLagTxnsGauges[i].setValue(0);
+        }
         applyPhysicallyWrittenRowsCounter.reset();
         applyRowsWriteRateGauge.setValue(0);
         applyRowsWrittenCounter.reset();
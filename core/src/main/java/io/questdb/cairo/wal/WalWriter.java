@@ -31,6 +31,7 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.ColumnTypeDriver;
+import io.questdb.cairo.ColumnVectorBatch;
 import io.questdb.cairo.ColumnVersionReader;
 import io.questdb.cairo.CommitMode;
 import io.questdb.cairo.DdlListener;
@@ -50,6 +51,7 @@ import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.sql.TableRecordMetadata;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
 import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
 import io.questdb.cairo.vm.api.MemoryMA;
 import io.questdb.cairo.vm.api.MemoryMAR;
 import io.questdb.cairo.vm.api.NullMemory;
@@ -134,6 +136,7 @@ public class WalWriter implements TableWriterAPI {
     private final WalDirectoryPolicy walDirectoryPolicy;
     private final int walId;
     private final String walName;
+    private MemoryCARW auxShiftMem;
     private SegmentColumnRollSink columnConversionSink;
     private int columnCount;
     private ColumnVersionReader columnVersionReader;
@@ -247,6 +250,101 @@ public class WalWriter implements TableWriterAPI {
         );
     }
 
+    /**
+     * Appends the batch with one block copy per column. Designated timestamps are expanded into
+     * the (timestamp, row id) pairs of the WAL timestamp column in a single pass that also tracks
+     * the transaction min/max timestamps and the out-of-order flag.
+     */
+    @Override
+    public void appendColumnBatch(ColumnVectorBatch batch) {
+        checkDistressed();
+        final long rowCount = batch.getRowCount();
+        if (rowCount < 1) {
+            return;
+        }
+        // validate upfront, a rejected batch leaves the segment untouched
+        for (int i = 0, n = batch.getColumnCount(); i < n; i++) {
+            final int columnIndex = batch.getColumnIndex(i);
+            final int columnType = columnIndex > -1 && columnIndex < columnCount ? metadata.getColumnType(columnIndex) : -1;
+            if (columnType < 0 || columnIndex == timestampIndex || ColumnType.isSymbol(columnType)
+                    || (ColumnType.isVarSize(columnType) && batch.getAuxAddress(i) == 0)) {
+                throw CairoException.nonCritical().put("column cannot be appended from a vector [table=").put(tableToken.getTableName())
+                        .put(", columnIndex=").put(columnIndex).put(']');
+            }
+        }
+
+        try {
+            if (rollSegmentOnNextRow) {
+                rollSegment();
+                rollSegmentOnNextRow = false;
+            }
+
+            final long rowLo = segmentRowCount;
+            final long rowHi = rowLo + rowCount - 1;
+            long minTimestamp = Long.MAX_VALUE;
+            long maxTimestamp = Long.MIN_VALUE;
+            boolean outOfOrder = false;
+            if (timestampIndex != -1) {
+                final MemoryMA timestampMem = getDataColumn(timestampIndex);
+                long prevTimestamp = Long.MIN_VALUE;
+                for (long r = 0; r < rowCount; r++) {
+                    final long timestamp = batch.getTimestamp(r);
+                    timestampMem.putLong128(timestamp, rowLo + r);
+                    outOfOrder |= timestamp < prevTimestamp;
+                    minTimestamp = Math.min(minTimestamp, timestamp);
+                    maxTimestamp = Math.max(maxTimestamp, timestamp);
+                    prevTimestamp = timestamp;
+                }
+                if (minTimestamp < Timestamps.O3_MIN_TS) {
+                    throw CairoException.nonCritical().put("timestamp before 1970-01-01 is not allowed");
+                }
+                rowValueIsNotNull.setQuick(timestampIndex, rowHi);
+            }
+
+            for (int i = 0, n = batch.getColumnCount(); i < n; i++) {
+                final int columnIndex = batch.getColumnIndex(i);
+                final int columnType = metadata.getColumnType(columnIndex);
+                final MemoryMA dataMem = getDataColumn(columnIndex);
+                if (ColumnType.isVarSize(columnType)) {
+                    appendVarSizeVectors(columnType, dataMem, getAuxColumn(columnIndex), batch.getDataAddress(i), batch.getAuxAddress(i), rowCount);
+                } else {
+                    dataMem.putBlockOfBytes(batch.getDataAddress(i), rowCount << ColumnType.pow2SizeOf(columnType));
+                }
+                rowValueIsNotNull.setQuick(columnIndex, rowHi);
+            }
+
+            // columns absent from the batch
+            for (int i = 0; i < columnCount; i++) {
+                if (rowValueIsNotNull.getQuick(i) < rowLo) {
+                    final Runnable nullSetter = nullSetters.getQuick(i);
+                    for (long r = 0; r < rowCount; r++) {
+                        nullSetter.run();
+                    }
+                    rowValueIsNotNull.setQuick(i, rowHi);
+                }
+            }
+
+            if (timestampIndex != -1) {
+                // same rules as the row by row path, starting from the last appended timestamp
+                txnOutOfOrder |= outOfOrder || batch.getTimestamp(0) < txnMaxTimestamp;
+                txnMaxTimestamp = Math.max(txnMaxTimestamp, maxTimestamp);
+                txnMinTimestamp = Math.min(txnMinTimestamp, minTimestamp);
+            }
+            segmentRowCount += rowCount;
+        } catch (CairoException e) {
+            if (e.isCritical()) {
+                distressed = true;
+            } else {
+                // discard the partially copied vectors, same as a cancelled row
+                setAppendPosition(segmentRowCount);
+            }
+            throw e;
+        } catch (Throwable th) {
+            distressed = true;
+            throw th;
+        }
+    }
+
     @Override
     public long apply(AlterOperation alterOp, boolean contextAllowsAnyStructureChanges) throws AlterTableContextException {
         try {
@@ -350,6 +448,7 @@ public class WalWriter implements TableWriterAPI {
             }
 
             freeColumns(truncate);
+            auxShiftMem = Misc.free(auxShiftMem);
 
             releaseSegmentLock(segmentId, segmentLockFd, segmentRowCount);
 
@@ -785,6 +884,23 @@ public class WalWriter implements TableWriterAPI {
         apply(alterOp, true);
     }
 
+    private void appendVarSizeVectors(int columnType, MemoryMA dataMem, MemoryMA auxMem, long dataAddr, long auxAddr, long rowCount) {
+        final ColumnTypeDriver driver = ColumnType.getDriver(columnType);
+        final long dataSize = driver.getDataVectorSizeAt(auxAddr, rowCount - 1);
+        final long auxSize = driver.getAuxVectorSize(rowCount);
+        if (auxShiftMem == null) {
+            auxShiftMem = Vm.getCARWInstance(ff.getPageSize(), Integer.MAX_VALUE, MemoryTag.NATIVE_TABLE_WAL_WRITER);
+        }
+        auxShiftMem.jumpTo(0);
+        final long shiftedAuxAddr = auxShiftMem.appendAddressFor(auxSize);
+        // rebase the offsets onto the end of the data written so far
+        driver.shiftCopyAuxVector(-dataMem.getAppendOffset(), auxAddr, 0, rowCount - 1, shiftedAuxAddr, auxSize);
+        dataMem.putBlockOfBytes(dataAddr, dataSize);
+        // N+1 aux vectors already hold the leading offset
+        final long auxBytes = driver.auxRowsToBytes(rowCount);
+        auxMem.putBlockOfBytes(shiftedAuxAddr + auxSize - auxBytes, auxBytes);
+    }
+
     private void applyMetadataChangeLog(long structureVersionHi) {
         try (TableMetadataChangeLog log = sequencer.getMetadataChangeLog(tableToken, getColumnStructureVersion())) {
             long structVer = getColumnStructureVersion();
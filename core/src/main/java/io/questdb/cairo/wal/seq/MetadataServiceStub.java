@@ -116,6 +116,11 @@ public interface MetadataServiceStub extends MetadataService {
         throw CairoException.critical(0).put("change of TTL does not update sequencer metadata");
     }
 
+    @Override
+    default void setMetaWalPriority(int walPriority) {
+        throw CairoException.critical(0).put("change of WAL priority does not update sequencer metadata");
+    }
+
     @Override
     default void squashPartitions() {
         throw CairoException.critical(0).put("partition squash does not update sequencer metadata");
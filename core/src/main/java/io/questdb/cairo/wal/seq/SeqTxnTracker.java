@@ -26,11 +26,12 @@ package io.questdb.cairo.wal.seq;
 
 import io.questdb.cairo.ErrorTag;
 import io.questdb.cairo.wal.O3JobParallelismRegulator;
+import io.questdb.cairo.wal.WalApplyPriority;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.Rnd;
 import io.questdb.std.Unsafe;
-import io.questdb.std.datetime.microtime.MicrosecondClockImpl;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
 import org.jetbrains.annotations.TestOnly;
 
 public class SeqTxnTracker implements O3JobParallelismRegulator {
@@ -39,9 +40,12 @@ public class SeqTxnTracker implements O3JobParallelismRegulator {
     private static final long SEQ_TXN_OFFSET = Unsafe.getFieldOffset(SeqTxnTracker.class, "seqTxn");
     private static final long SUSPENDED_STATE_OFFSET = Unsafe.getFieldOffset(SeqTxnTracker.class, "suspendedState");
     private static final long WRITER_TXN_OFFSET = Unsafe.getFieldOffset(SeqTxnTracker.class, "writerTxn");
+    private final MicrosecondClock microsecondClock;
     private volatile long dirtyWriterTxn;
     private volatile String errorMessage = "";
     private volatile ErrorTag errorTag = ErrorTag.NONE;
+    // time when the table started waiting for the apply job, 0 when there is nothing to apply
+    private volatile long lagStartMicros;
     private int maxRecordedInFlightPartitions = 1;
     // positive int: holds max parallelism
     // negative int: holds backoff counter
@@ -53,8 +57,22 @@ public class SeqTxnTracker implements O3JobParallelismRegulator {
     // 1 not suspended
     private volatile int suspendedState = 0;
     private volatile long walBackoffUntil = -1;
+    private volatile int walPriority = WalApplyPriority.NORMAL;
     private volatile long writerTxn = UNINITIALIZED_TXN;
 
+    public SeqTxnTracker(MicrosecondClock microsecondClock) {
+        this.microsecondClock = microsecondClock;
+    }
+
+    /**
+     * Returns the time by which the apply job should pick up the table, given its WAL priority
+     * and how long it has been waiting. Tables with earlier deadlines are applied first.
+     */
+    public long getApplyDeadline(long nowMicros) {
+        final long start = lagStartMicros;
+        return (start > 0 ? start : nowMicros) + WalApplyPriority.getTargetLagMicros(walPriority);
+    }
+
     public String getErrorMessage() {
         return errorMessage;
     }
@@ -81,11 +99,23 @@ public class SeqTxnTracker implements O3JobParallelismRegulator {
         return 1;
     }
 
-    @TestOnly
     public long getSeqTxn() {
         return seqTxn;
     }
 
+    /**
+     * Returns the number of committed transactions that the apply job has not yet applied to the table.
+     * Returns 0 until the tracker is initialised by the apply job.
+     */
+    public long getUnappliedTxnCount() {
+        final long wtxn = writerTxn;
+        return wtxn == UNINITIALIZED_TXN ? 0 : Math.max(0, seqTxn - wtxn);
+    }
+
+    public int getWalPriority() {
+        return walPriority;
+    }
+
     @TestOnly
     public long getWriterTxn() {
         return writerTxn;
@@ -143,7 +173,7 @@ public class SeqTxnTracker implements O3JobParallelismRegulator {
         while (newSeqTxn > stxn && !Unsafe.cas(this, SEQ_TXN_OFFSET, stxn, newSeqTxn)) {
             stxn = seqTxn;
         }
-        return writerTxn < seqTxn && suspendedState > 0 && MicrosecondClockImpl.INSTANCE.getTicks() > walBackoffUntil;
+        return writerTxn < seqTxn && suspendedState > 0 && microsecondClock.getTicks() > walBackoffUntil;
     }
 
     public boolean notifyOnCommit(long newSeqTxn) {
@@ -156,6 +186,9 @@ public class SeqTxnTracker implements O3JobParallelismRegulator {
             }
             stxn = seqTxn;
         }
+        if (lagStartMicros == 0) {
+            lagStartMicros = microsecondClock.getTicks();
+        }
         // Return that Apply job notification is needed
         // when there is some new work for ApplyWal2Table job
         // Notify on transactions that are first move seqTxn from -1 or 0
@@ -218,6 +251,10 @@ public class SeqTxnTracker implements O3JobParallelismRegulator {
         this.errorMessage = "";
     }
 
+    public void setWalPriority(int walPriority) {
+        this.walPriority = walPriority;
+    }
+
     public boolean shouldBackOffDueToMemoryPressure(long nowMicros) {
         return nowMicros < walBackoffUntil;
     }
@@ -246,9 +283,16 @@ public class SeqTxnTracker implements O3JobParallelismRegulator {
         this.dirtyWriterTxn = dirtyWriterTxn;
 
         // Progress made means table is not suspended
-        if (writerTxn > prevWriterTxn || dirtyWriterTxn > prevDirtyWriterTxn) {
+        final boolean progressed = writerTxn > prevWriterTxn || dirtyWriterTxn > prevDirtyWriterTxn;
+        if (progressed) {
             suspendedState = 1;
         }
+        if (writerTxn >= seqTxn) {
+            lagStartMicros = 0;
+        } else if (progressed) {
+            // the table got its time slice, it queues up again behind the tables that are still waiting
+            lagStartMicros = microsecondClock.getTicks();
+        }
         return writerTxn < seqTxn;
     }
 }
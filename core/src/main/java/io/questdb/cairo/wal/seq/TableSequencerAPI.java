@@ -27,7 +27,9 @@ package io.questdb.cairo.wal.seq;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoException;
+import io.questdb.cairo.CairoTable;
 import io.questdb.cairo.ErrorTag;
+import io.questdb.cairo.MetadataCacheReader;
 import io.questdb.cairo.TableStructure;
 import io.questdb.cairo.TableToken;
 import io.questdb.cairo.TableUtils;
@@ -69,7 +71,7 @@ public class TableSequencerAPI implements QuietCloseable {
         this.engine = engine;
         this.inactiveTtlUs = configuration.getInactiveWalWriterTTL() * 1000;
         this.recreateDistressedSequencerAttempts = configuration.getWalRecreateDistressedSequencerAttempts();
-        this.createTxnTracker = dir -> new SeqTxnTracker();
+        this.createTxnTracker = dir -> new SeqTxnTracker(configuration.getMicrosecondClock());
     }
 
     public void applyRename(TableToken tableToken) {
@@ -246,6 +248,13 @@ public class TableSequencerAPI implements QuietCloseable {
     public boolean initTxnTracker(TableToken tableToken, long writerTxn, long seqTxn) {
         SeqTxnTracker seqTxnTracker = getSeqTxnTracker(tableToken);
         final boolean isSuspended = isSuspended(tableToken);
+        try (MetadataCacheReader metadataRO = engine.getMetadataCache().readLock()) {
+            final CairoTable table = metadataRO.getTable(tableToken);
+            if (table != null) {
+                // the priority is persisted in the table metadata, restore it before the first apply run
+                seqTxnTracker.setWalPriority(table.getWalPriority());
+            }
+        }
         return seqTxnTracker.initTxns(writerTxn, seqTxn, isSuspended);
     }
 
@@ -30,6 +30,7 @@ import io.questdb.HttpClientConfiguration;
 import io.questdb.client.impl.ConfStringParser;
 import io.questdb.cutlass.auth.AuthUtils;
 import io.questdb.cutlass.line.LineChannel;
+import io.questdb.cutlass.line.LineColumnarFormat;
 import io.questdb.cutlass.line.LineSenderException;
 import io.questdb.cutlass.line.LineTcpSender;
 import io.questdb.cutlass.line.http.LineHttpSender;
@@ -452,6 +453,7 @@ public interface Sender extends Closeable {
         private int port = PARAMETER_NOT_SET_EXPLICITLY;
         private PrivateKey privateKey;
         private int protocol = PARAMETER_NOT_SET_EXPLICITLY;
+        private int protocolVersion = PARAMETER_NOT_SET_EXPLICITLY;
         private int retryTimeoutMillis = PARAMETER_NOT_SET_EXPLICITLY;
         private boolean shouldDestroyPrivKey;
         private boolean tlsEnabled;
@@ -657,7 +659,8 @@ public interface Sender extends Closeable {
                     assert (trustStorePath == null) == (trustStorePassword == null); //either both null or both non-null
                     tlsConfig = new ClientTlsConfiguration(trustStorePath, trustStorePassword, tlsValidationMode == TlsValidationMode.DEFAULT ? ClientTlsConfiguration.TLS_VALIDATION_MODE_FULL : ClientTlsConfiguration.TLS_VALIDATION_MODE_NONE);
                 }
-                return new LineHttpSender(host, port, httpPath, httpClientConfiguration, tlsConfig, actualAutoFlushRows, httpToken, username, password, actualMaxRetriesNanos, actualMinRequestThroughput, actualAutoFlushIntervalMillis);
+                int actualProtocolVersion = protocolVersion == PARAMETER_NOT_SET_EXPLICITLY ? LineColumnarFormat.PROTOCOL_VERSION_V1 : protocolVersion;
+                return new LineHttpSender(host, port, httpPath, httpClientConfiguration, tlsConfig, actualAutoFlushRows, httpToken, username, password, actualMaxRetriesNanos, actualMinRequestThroughput, actualAutoFlushIntervalMillis, actualProtocolVersion);
             }
             assert protocol == PROTOCOL_TCP;
             LineChannel channel = new PlainTcpLineChannel(nf, host, port, bufferCapacity * 2);
@@ -938,6 +941,31 @@ public interface Sender extends Closeable {
             return this;
         }
 
+        /**
+         * Selects the ILP protocol version.
+         * <br>
+         * Version 1 is the text protocol. Version 2 sends rows as binary column vectors, which the server
+         * appends without text parsing. Version 2 requires a server that supports it and is only available
+         * over HTTP transport.
+         * <p>
+         * Default value: 1.
+         *
+         * @param protocolVersion protocol version, either 1 or 2
+         * @return this instance for method chaining
+         */
+        public LineSenderBuilder protocolVersion(int protocolVersion) {
+            if (this.protocolVersion != PARAMETER_NOT_SET_EXPLICITLY) {
+                throw new LineSenderException("protocol version was already configured ")
+                        .put("[protocolVersion=").put(this.protocolVersion).put("]");
+            }
+            if (protocolVersion != LineColumnarFormat.PROTOCOL_VERSION_V1 && protocolVersion != LineColumnarFormat.PROTOCOL_VERSION_V2) {
+                throw new LineSenderException("unsupported protocol version ")
+                        .put("[protocolVersion=").put(protocolVersion).put("]");
+            }
+            this.protocolVersion = protocolVersion;
+            return this;
+        }
+
         /**
          * Configures the maximum time the Sender will spend retrying upon receiving a recoverable error from the server.
          * <br>
@@ -1228,6 +1256,9 @@ public interface Sender extends Closeable {
                     pos = getValue(configurationString, pos, sink, "request_min_throughput");
                     int requestMinThroughput = parseIntValue(sink, "request_min_throughput");
                     minRequestThroughput(requestMinThroughput);
+                } else if (Chars.equals("protocol_version", sink)) {
+                    pos = getValue(configurationString, pos, sink, "protocol_version");
+                    protocolVersion(parseIntValue(sink, "protocol_version"));
                 } else {
                     // ignore unknown keys, unless they are malformed
                     if ((pos = ConfStringParser.value(configurationString, pos, sink)) < 0) {
@@ -1339,6 +1370,9 @@ public interface Sender extends Closeable {
                 if (autoFlushIntervalMillis != PARAMETER_NOT_SET_EXPLICITLY) {
                     throw new LineSenderException("auto flush interval is not supported for TCP protocol");
                 }
+                if (protocolVersion == LineColumnarFormat.PROTOCOL_VERSION_V2) {
+                    throw new LineSenderException("protocol version 2 is not supported for TCP protocol");
+                }
             } else {
                 throw new LineSenderException("unsupported protocol ")
                         .put("[protocol=").put(protocol).put("]");
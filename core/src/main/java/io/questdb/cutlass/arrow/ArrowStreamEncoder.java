@@ -0,0 +1,964 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.arrow;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.PageFrameMemory;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.StaticSymbolTable;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.BinarySequence;
+import io.questdb.std.IntList;
+import io.questdb.std.Interval;
+import io.questdb.std.Long256;
+import io.questdb.std.Long256Impl;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Uuid;
+import io.questdb.std.Vect;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.std.str.Utf8Sequence;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Encodes query results as an Apache Arrow IPC stream: a schema message, one dictionary batch
+ * per dictionary-encoded symbol column, record batches and the end-of-stream marker.
+ * <p>
+ * Each message is described as a list of memory segments that the caller copies to the
+ * network, see {@link #getSegmentAddress()}. Record batches are built either row by row from
+ * a {@link Record}, or from page frame memory. In the latter case, fixed-width column data
+ * is sent straight from the column memory, only the validity bitmaps are computed.
+ * <p>
+ * Types without an Arrow counterpart, e.g. UUID, LONG256, IPv4 and geohashes, are sent as
+ * UTF-8 strings formatted the same way as in CSV export. Symbols backed by a static symbol
+ * table are dictionary-encoded with int32 keys.
+ */
+public class ArrowStreamEncoder implements Mutable, QuietCloseable {
+    private static final int BUFFER_PAGE_SIZE = 64 * 1024;
+    private static final byte DATE_UNIT_MILLISECOND = 1;
+    private static final short FLOAT_PRECISION_DOUBLE = 2;
+    private static final short FLOAT_PRECISION_SINGLE = 1;
+    private static final byte HEADER_DICTIONARY_BATCH = 2;
+    private static final byte HEADER_RECORD_BATCH = 3;
+    private static final byte HEADER_SCHEMA = 1;
+    private static final int LAYOUT_BOOL = 1;
+    private static final int LAYOUT_FIXED = 2;
+    private static final int LAYOUT_NULL = 0;
+    private static final int LAYOUT_VAR = 3;
+    // record batches end early once a variable size column holds this many bytes, offsets are int32
+    private static final long MAX_VAR_DATA_SIZE = Integer.MAX_VALUE / 2;
+    private static final short METADATA_VERSION_V5 = 4;
+    private static final int SCRATCH_EOS = 16;
+    private static final int SCRATCH_PREFIX = 0;
+    private static final int SCRATCH_SIZE = 24;
+    private static final int SCRATCH_ZEROS = 8;
+    private static final short TIME_UNIT_MICROSECOND = 2;
+    private static final byte TYPE_BINARY = 4;
+    private static final byte TYPE_BOOL = 6;
+    private static final byte TYPE_DATE = 8;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_NULL = 1;
+    private static final byte TYPE_TIMESTAMP = 10;
+    private static final byte TYPE_UTF8 = 5;
+    // address and size pairs of the current message body
+    private final LongList bodyBuffers = new LongList();
+    private final FlatBufferBuilder builder = new FlatBufferBuilder();
+    private final ObjList<ColumnBuffers> columnBuffers = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final ObjList<StaticSymbolTable> dictionaries = new ObjList<>();
+    private final ColumnBuffers dictionaryBuffers = new ColumnBuffers();
+    private final IntList fieldOffsets = new IntList();
+    // length and null count pairs of the current record batch
+    private final LongList nodes = new LongList();
+    // address and size pairs of the message being sent
+    private final LongList segments = new LongList();
+    private final DirectUtf8Sink valueSink = new DirectUtf8Sink(64);
+    private boolean batchEncoded;
+    private int batchRowCount;
+    private int dictionaryIndex;
+    private RecordMetadata metadata;
+    private long scratch;
+    private int segmentIndex;
+    private long segmentOffset;
+    private long varDataSize;
+
+    public ArrowStreamEncoder() {
+        try {
+            scratch = Unsafe.malloc(SCRATCH_SIZE, MemoryTag.NATIVE_DEFAULT);
+            Vect.memset(scratch, SCRATCH_SIZE, 0);
+            Unsafe.getUnsafe().putInt(scratch + SCRATCH_PREFIX, -1);
+            Unsafe.getUnsafe().putInt(scratch + SCRATCH_EOS, -1);
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    /**
+     * Returns true when the page frame path can encode all columns of the metadata,
+     * i.e. all of them are fixed size and have an Arrow counterpart.
+     */
+    public static boolean supportsPageFrames(RecordMetadata metadata) {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            switch (ColumnType.tagOf(metadata.getColumnType(i))) {
+                case ColumnType.BOOLEAN:
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                case ColumnType.SYMBOL:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Advances the send position after the caller copied bytes of the current segment.
+     */
+    public void advance(int byteCount) {
+        segmentOffset += byteCount;
+        if (segmentOffset == segments.getQuick(segmentIndex * 2 + 1)) {
+            segmentIndex++;
+            segmentOffset = 0;
+        }
+    }
+
+    /**
+     * Appends a row to the record batch under construction.
+     */
+    public void appendRecord(Record record) {
+        if (batchEncoded) {
+            resetBatch();
+        }
+        final int row = batchRowCount;
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final ColumnBuffers buffers = columnBuffers.getQuick(i);
+            final int columnType = columnTypes.getQuick(i);
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BOOLEAN:
+                    putBit(buffers.values, row, record.getBool(i));
+                    break;
+                case ColumnType.BYTE:
+                    buffers.values.putByte(record.getByte(i));
+                    break;
+                case ColumnType.SHORT:
+                    buffers.values.putShort(record.getShort(i));
+                    break;
+                case ColumnType.INT: {
+                    final int value = record.getInt(i);
+                    putValidity(buffers, row, value != Numbers.INT_NULL);
+                    buffers.values.putInt(value);
+                    break;
+                }
+                case ColumnType.LONG: {
+                    final long value = record.getLong(i);
+                    putValidity(buffers, row, value != Numbers.LONG_NULL);
+                    buffers.values.putLong(value);
+                    break;
+                }
+                case ColumnType.DATE: {
+                    final long value = record.getDate(i);
+                    putValidity(buffers, row, value != Numbers.LONG_NULL);
+                    buffers.values.putLong(value);
+                    break;
+                }
+                case ColumnType.TIMESTAMP: {
+                    final long value = record.getTimestamp(i);
+                    putValidity(buffers, row, value != Numbers.LONG_NULL);
+                    buffers.values.putLong(value);
+                    break;
+                }
+                case ColumnType.FLOAT: {
+                    final float value = record.getFloat(i);
+                    putValidity(buffers, row, !Float.isNaN(value));
+                    buffers.values.putFloat(value);
+                    break;
+                }
+                case ColumnType.DOUBLE: {
+                    final double value = record.getDouble(i);
+                    putValidity(buffers, row, !Double.isNaN(value));
+                    buffers.values.putDouble(value);
+                    break;
+                }
+                case ColumnType.SYMBOL:
+                    if (dictionaries.getQuick(i) != null) {
+                        final int key = record.getInt(i);
+                        final boolean valid = key != SymbolTable.VALUE_IS_NULL;
+                        putValidity(buffers, row, valid);
+                        buffers.values.putInt(key);
+                    } else {
+                        putStr(buffers, row, record.getSymA(i));
+                    }
+                    break;
+                case ColumnType.STRING:
+                    putStr(buffers, row, record.getStrA(i));
+                    break;
+                case ColumnType.VARCHAR: {
+                    final Utf8Sequence value = record.getVarcharA(i);
+                    if (value == null) {
+                        putVarNull(buffers, row);
+                    } else {
+                        valueSink.clear();
+                        valueSink.put(value);
+                        putVarSink(buffers, row);
+                    }
+                    break;
+                }
+                case ColumnType.BINARY: {
+                    final BinarySequence value = record.getBin(i);
+                    if (value == null) {
+                        putVarNull(buffers, row);
+                    } else {
+                        putValidity(buffers, row, true);
+                        final long size = value.length();
+                        final long offset = buffers.data.getAppendOffset();
+                        value.copyTo(buffers.data.appendAddressFor(size), 0, size);
+                        putVarOffset(buffers, offset + size);
+                    }
+                    break;
+                }
+                case ColumnType.NULL:
+                    buffers.nullCount++;
+                    break;
+                default:
+                    valueSink.clear();
+                    if (formatValue(record, i, columnType)) {
+                        putVarSink(buffers, row);
+                    } else {
+                        putVarNull(buffers, row);
+                    }
+                    break;
+            }
+        }
+        batchRowCount++;
+    }
+
+    @Override
+    public void clear() {
+        columnTypes.clear();
+        dictionaries.clear();
+        for (int i = 0, n = columnBuffers.size(); i < n; i++) {
+            columnBuffers.getQuick(i).clear();
+        }
+        dictionaryBuffers.clear();
+        builder.clear();
+        bodyBuffers.clear();
+        nodes.clear();
+        segments.clear();
+        segmentIndex = 0;
+        segmentOffset = 0;
+        batchRowCount = 0;
+        batchEncoded = false;
+        dictionaryIndex = 0;
+        varDataSize = 0;
+        metadata = null;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjListAndClear(columnBuffers);
+        Misc.free(dictionaryBuffers);
+        Misc.free(builder);
+        Misc.free(valueSink);
+        scratch = Unsafe.free(scratch, SCRATCH_SIZE, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    /**
+     * Encodes the rows appended via {@link #appendRecord(Record)} as a record batch message.
+     */
+    public void encodeBatch() {
+        bodyBuffers.clear();
+        nodes.clear();
+        final int rowCount = batchRowCount;
+        final long bitmapSize = (rowCount + 7) >>> 3;
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final ColumnBuffers buffers = columnBuffers.getQuick(i);
+            nodes.add(rowCount, buffers.nullCount);
+            switch (getLayout(i)) {
+                case LAYOUT_BOOL:
+                    bodyBuffers.add(0, 0);
+                    bodyBuffers.add(buffers.values.getPageAddress(0), bitmapSize);
+                    break;
+                case LAYOUT_FIXED:
+                    addValidity(buffers, bitmapSize);
+                    bodyBuffers.add(buffers.values.getPageAddress(0), buffers.values.getAppendOffset());
+                    break;
+                case LAYOUT_VAR:
+                    addValidity(buffers, bitmapSize);
+                    bodyBuffers.add(buffers.offsets.getPageAddress(0), buffers.offsets.getAppendOffset());
+                    bodyBuffers.add(buffers.data.getPageAddress(0), buffers.data.getAppendOffset());
+                    break;
+                default:
+                    break;
+            }
+        }
+        encodeRecordBatch(rowCount, -1);
+        batchEncoded = true;
+    }
+
+    public void encodeEndOfStream() {
+        resetSegments();
+        addSegment(scratch + SCRATCH_EOS, 2 * Integer.BYTES);
+    }
+
+    /**
+     * Encodes a page frame as a record batch message. Fixed-width column memory is sent as is,
+     * so the frame memory must stay valid until the message is sent.
+     */
+    public void encodeFrame(PageFrameMemory frameMemory, long rowCount) {
+        resetBatch();
+        bodyBuffers.clear();
+        nodes.clear();
+        final long bitmapSize = (rowCount + 7) >>> 3;
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final ColumnBuffers buffers = columnBuffers.getQuick(i);
+            final int tag = ColumnType.tagOf(columnTypes.getQuick(i));
+            final long address = frameMemory.getPageAddress(i);
+            if (tag == ColumnType.BOOLEAN) {
+                final long bitmap = buffers.values.appendAddressFor(bitmapSize);
+                Vect.memset(bitmap, bitmapSize, 0);
+                if (address != 0) {
+                    for (long r = 0; r < rowCount; r++) {
+                        if (Unsafe.getUnsafe().getByte(address + r) != 0) {
+                            final long p = bitmap + (r >>> 3);
+                            Unsafe.getUnsafe().putByte(p, (byte) (Unsafe.getUnsafe().getByte(p) | (1 << (r & 7))));
+                        }
+                    }
+                }
+                nodes.add(rowCount, 0);
+                bodyBuffers.add(0, 0);
+                bodyBuffers.add(bitmap, bitmapSize);
+                continue;
+            }
+
+            final int width = ColumnType.sizeOf(columnTypes.getQuick(i));
+            final long valuesSize = rowCount * width;
+            if (address == 0) {
+                // column top, the column was added after these rows had been written
+                final long values = buffers.values.appendAddressFor(valuesSize);
+                Vect.memset(values, valuesSize, 0);
+                if (tag == ColumnType.BYTE || tag == ColumnType.SHORT) {
+                    nodes.add(rowCount, 0);
+                    bodyBuffers.add(0, 0);
+                } else {
+                    final long bitmap = buffers.validity.appendAddressFor(bitmapSize);
+                    Vect.memset(bitmap, bitmapSize, 0);
+                    nodes.add(rowCount, rowCount);
+                    bodyBuffers.add(bitmap, bitmapSize);
+                }
+                bodyBuffers.add(values, valuesSize);
+                continue;
+            }
+
+            final long nullCount = scanValidity(buffers, tag, address, rowCount);
+            nodes.add(rowCount, nullCount);
+            if (nullCount > 0) {
+                bodyBuffers.add(buffers.validity.getPageAddress(0), bitmapSize);
+            } else {
+                bodyBuffers.add(0, 0);
+            }
+            bodyBuffers.add(address, valuesSize);
+        }
+        encodeRecordBatch(rowCount, -1);
+        batchEncoded = true;
+    }
+
+    /**
+     * Encodes the dictionary batch of the next dictionary-encoded symbol column.
+     *
+     * @return false when all dictionaries have been encoded
+     */
+    public boolean encodeNextDictionary() {
+        for (int n = dictionaries.size(); dictionaryIndex < n; dictionaryIndex++) {
+            final StaticSymbolTable symbolTable = dictionaries.getQuick(dictionaryIndex);
+            if (symbolTable == null) {
+                continue;
+            }
+            final ColumnBuffers buffers = dictionaryBuffers;
+            buffers.clear();
+            buffers.offsets.putInt(0);
+            final int symbolCount = symbolTable.getSymbolCount();
+            for (int key = 0; key < symbolCount; key++) {
+                valueSink.clear();
+                valueSink.put(symbolTable.valueOf(key));
+                buffers.data.putBlockOfBytes(valueSink.ptr(), valueSink.size());
+                buffers.offsets.putInt((int) buffers.data.getAppendOffset());
+            }
+            bodyBuffers.clear();
+            nodes.clear();
+            nodes.add(symbolCount, 0);
+            bodyBuffers.add(0, 0);
+            bodyBuffers.add(buffers.offsets.getPageAddress(0), buffers.offsets.getAppendOffset());
+            bodyBuffers.add(buffers.data.getPageAddress(0), buffers.data.getAppendOffset());
+            encodeRecordBatch(symbolCount, dictionaryIndex++);
+            return true;
+        }
+        return false;
+    }
+
+    public void encodeSchema() {
+        builder.clear();
+        fieldOffsets.clear();
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            fieldOffsets.add(createField(i));
+        }
+        builder.startVector(Integer.BYTES, fieldOffsets.size(), Integer.BYTES);
+        for (int i = fieldOffsets.size() - 1; i > -1; i--) {
+            builder.addOffset(fieldOffsets.getQuick(i));
+        }
+        final int fields = builder.endVector();
+        builder.startTable(4);
+        // endianness is little, which is the default
+        builder.addOffset(1, fields);
+        final int schema = builder.endTable();
+        finishMessage(HEADER_SCHEMA, schema, 0);
+        resetSegments();
+        addMessageSegments(0);
+    }
+
+    public int getBatchRowCount() {
+        return batchEncoded ? 0 : batchRowCount;
+    }
+
+    /**
+     * Returns the address of the unsent part of the current segment.
+     */
+    public long getSegmentAddress() {
+        return segments.getQuick(segmentIndex * 2) + segmentOffset;
+    }
+
+    /**
+     * Returns the number of unsent bytes of the current segment.
+     */
+    public int getSegmentRemaining() {
+        return (int) (segments.getQuick(segmentIndex * 2 + 1) - segmentOffset);
+    }
+
+    public boolean isBatchFull(int maxRowCount) {
+        return !batchEncoded && (batchRowCount >= maxRowCount || varDataSize >= MAX_VAR_DATA_SIZE);
+    }
+
+    /**
+     * Returns true when the current message has been sent in full.
+     */
+    public boolean isSent() {
+        return segmentIndex * 2 >= segments.size();
+    }
+
+    /**
+     * Prepares the encoder for the given result set.
+     *
+     * @param metadata          metadata of the result set
+     * @param symbolTableSource source of symbol tables, symbol columns with a static symbol table
+     *                          are dictionary-encoded, the rest are sent as strings
+     */
+    public void of(RecordMetadata metadata, @Nullable SymbolTableSource symbolTableSource) {
+        clear();
+        this.metadata = metadata;
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            StaticSymbolTable dictionary = null;
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BOOLEAN:
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.CHAR:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                case ColumnType.STRING:
+                case ColumnType.VARCHAR:
+                case ColumnType.BINARY:
+                case ColumnType.LONG256:
+                case ColumnType.GEOBYTE:
+                case ColumnType.GEOSHORT:
+                case ColumnType.GEOINT:
+                case ColumnType.GEOLONG:
+                case ColumnType.UUID:
+                case ColumnType.IPv4:
+                case ColumnType.INTERVAL:
+                case ColumnType.NULL:
+                    break;
+                case ColumnType.SYMBOL:
+                    if (symbolTableSource != null) {
+                        try {
+                            final SymbolTable symbolTable = symbolTableSource.getSymbolTable(i);
+                            if (symbolTable instanceof StaticSymbolTable) {
+                                dictionary = (StaticSymbolTable) symbolTable;
+                            }
+                        } catch (UnsupportedOperationException ignore) {
+                            // symbols are sent as strings
+                        }
+                    }
+                    break;
+                default:
+                    throw CairoException.nonCritical().put("column type is not supported by Arrow export [column=")
+                            .put(metadata.getColumnName(i)).put(", type=").put(ColumnType.nameOf(columnType)).put(']');
+            }
+            columnTypes.add(columnType);
+            dictionaries.add(dictionary);
+            if (columnBuffers.size() == i) {
+                columnBuffers.add(new ColumnBuffers());
+            }
+        }
+        resetBatch();
+    }
+
+    private static void putBit(MemoryCARW mem, int row, boolean bit) {
+        if ((row & 7) == 0) {
+            mem.putByte((byte) 0);
+        }
+        if (bit) {
+            final long p = mem.addressOf(row >>> 3);
+            Unsafe.getUnsafe().putByte(p, (byte) (Unsafe.getUnsafe().getByte(p) | (1 << (row & 7))));
+        }
+    }
+
+    private void addMessageSegments(long bodyLength) {
+        final int metadataSize = builder.size();
+        final int paddedSize = (metadataSize + 7) & ~7;
+        Unsafe.getUnsafe().putInt(scratch + SCRATCH_PREFIX + Integer.BYTES, paddedSize);
+        addSegment(scratch + SCRATCH_PREFIX, 2 * Integer.BYTES);
+        addSegment(builder.getAddress(), metadataSize);
+        addSegment(scratch + SCRATCH_ZEROS, paddedSize - metadataSize);
+        if (bodyLength > 0) {
+            for (int i = 0, n = bodyBuffers.size(); i < n; i += 2) {
+                final long size = bodyBuffers.getQuick(i + 1);
+                addSegment(bodyBuffers.getQuick(i), size);
+                addSegment(scratch + SCRATCH_ZEROS, ((size + 7) & ~7) - size);
+            }
+        }
+    }
+
+    private void addSegment(long address, long size) {
+        if (size > 0) {
+            segments.add(address, size);
+        }
+    }
+
+    private void addValidity(ColumnBuffers buffers, long bitmapSize) {
+        if (buffers.nullCount > 0) {
+            bodyBuffers.add(buffers.validity.getPageAddress(0), bitmapSize);
+        } else {
+            bodyBuffers.add(0, 0);
+        }
+    }
+
+    private int createField(int columnIndex) {
+        final int columnType = columnTypes.getQuick(columnIndex);
+        final int name = builder.createString(metadata.getColumnName(columnIndex));
+        final byte typeType;
+        final int type;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                typeType = TYPE_BOOL;
+                type = createEmptyTable();
+                break;
+            case ColumnType.BYTE:
+                typeType = TYPE_INT;
+                type = createIntType(8);
+                break;
+            case ColumnType.SHORT:
+                typeType = TYPE_INT;
+                type = createIntType(16);
+                break;
+            case ColumnType.INT:
+                typeType = TYPE_INT;
+                type = createIntType(32);
+                break;
+            case ColumnType.LONG:
+                typeType = TYPE_INT;
+                type = createIntType(64);
+                break;
+            case ColumnType.FLOAT:
+                typeType = TYPE_FLOATING_POINT;
+                builder.startTable(1);
+                builder.addShort(0, FLOAT_PRECISION_SINGLE, 0);
+                type = builder.endTable();
+                break;
+            case ColumnType.DOUBLE:
+                typeType = TYPE_FLOATING_POINT;
+                builder.startTable(1);
+                builder.addShort(0, FLOAT_PRECISION_DOUBLE, 0);
+                type = builder.endTable();
+                break;
+            case ColumnType.DATE:
+                typeType = TYPE_DATE;
+                builder.startTable(1);
+                builder.addShort(0, DATE_UNIT_MILLISECOND, DATE_UNIT_MILLISECOND);
+                type = builder.endTable();
+                break;
+            case ColumnType.TIMESTAMP: {
+                typeType = TYPE_TIMESTAMP;
+                final int timezone = builder.createString("UTC");
+                builder.startTable(2);
+                builder.addShort(0, TIME_UNIT_MICROSECOND, 0);
+                builder.addOffset(1, timezone);
+                type = builder.endTable();
+                break;
+            }
+            case ColumnType.BINARY:
+                typeType = TYPE_BINARY;
+                type = createEmptyTable();
+                break;
+            case ColumnType.NULL:
+                typeType = TYPE_NULL;
+                type = createEmptyTable();
+                break;
+            default:
+                typeType = TYPE_UTF8;
+                type = createEmptyTable();
+                break;
+        }
+
+        int dictionary = 0;
+        if (dictionaries.getQuick(columnIndex) != null) {
+            final int indexType = createIntType(32);
+            builder.startTable(4);
+            builder.addLong(0, columnIndex, 0);
+            builder.addOffset(1, indexType);
+            dictionary = builder.endTable();
+        }
+
+        // readers expect the children vector to be present
+        builder.startVector(Integer.BYTES, 0, Integer.BYTES);
+        final int children = builder.endVector();
+
+        builder.startTable(7);
+        builder.addOffset(0, name);
+        builder.addBool(1, isNullable(columnType), false);
+        builder.addByte(2, typeType, 0);
+        builder.addOffset(3, type);
+        builder.addOffset(4, dictionary);
+        builder.addOffset(5, children);
+        return builder.endTable();
+    }
+
+    private int createEmptyTable() {
+        builder.startTable(0);
+        return builder.endTable();
+    }
+
+    private int createIntType(int bitWidth) {
+        builder.startTable(2);
+        builder.addInt(0, bitWidth, 0);
+        builder.addBool(1, true, false);
+        return builder.endTable();
+    }
+
+    private void encodeRecordBatch(long rowCount, int dictionaryId) {
+        builder.clear();
+        builder.startVector(2 * Long.BYTES, nodes.size() / 2, Long.BYTES);
+        for (int i = nodes.size() - 2; i > -1; i -= 2) {
+            builder.addStructOfLongs(nodes.getQuick(i), nodes.getQuick(i + 1));
+        }
+        final int nodesOffset = builder.endVector();
+
+        long bodyLength = 0;
+        for (int i = 0, n = bodyBuffers.size(); i < n; i += 2) {
+            bodyLength += (bodyBuffers.getQuick(i + 1) + 7) & ~7;
+        }
+        builder.startVector(2 * Long.BYTES, bodyBuffers.size() / 2, Long.BYTES);
+        long bufferOffset = bodyLength;
+        for (int i = bodyBuffers.size() - 2; i > -1; i -= 2) {
+            final long size = bodyBuffers.getQuick(i + 1);
+            bufferOffset -= (size + 7) & ~7;
+            builder.addStructOfLongs(bufferOffset, size);
+        }
+        final int buffersOffset = builder.endVector();
+
+        builder.startTable(5);
+        builder.addLong(0, rowCount, 0);
+        builder.addOffset(1, nodesOffset);
+        builder.addOffset(2, buffersOffset);
+        int header = builder.endTable();
+
+        byte headerType = HEADER_RECORD_BATCH;
+        if (dictionaryId > -1) {
+            builder.startTable(3);
+            builder.addLong(0, dictionaryId, 0);
+            builder.addOffset(1, header);
+            header = builder.endTable();
+            headerType = HEADER_DICTIONARY_BATCH;
+        }
+        finishMessage(headerType, header, bodyLength);
+        resetSegments();
+        addMessageSegments(bodyLength);
+    }
+
+    private void finishMessage(byte headerType, int header, long bodyLength) {
+        builder.startTable(5);
+        builder.addShort(0, METADATA_VERSION_V5, 0);
+        builder.addByte(1, headerType, 0);
+        builder.addOffset(2, header);
+        builder.addLong(3, bodyLength, 0);
+        builder.finish(builder.endTable());
+    }
+
+    // renders types without an Arrow counterpart as text, returns false for null values
+    private boolean formatValue(Record record, int col, int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.CHAR: {
+                final char value = record.getChar(col);
+                if (value == 0) {
+                    return false;
+                }
+                valueSink.put(value);
+                return true;
+            }
+            case ColumnType.LONG256: {
+                final Long256 value = record.getLong256A(col);
+                if (Long256Impl.isNull(value)) {
+                    return false;
+                }
+                Numbers.appendLong256(value, valueSink);
+                return true;
+            }
+            case ColumnType.GEOBYTE:
+                return formatGeoHash(record.getGeoByte(col), columnType);
+            case ColumnType.GEOSHORT:
+                return formatGeoHash(record.getGeoShort(col), columnType);
+            case ColumnType.GEOINT:
+                return formatGeoHash(record.getGeoInt(col), columnType);
+            case ColumnType.GEOLONG:
+                return formatGeoHash(record.getGeoLong(col), columnType);
+            case ColumnType.UUID: {
+                final long lo = record.getLong128Lo(col);
+                final long hi = record.getLong128Hi(col);
+                if (Uuid.isNull(lo, hi)) {
+                    return false;
+                }
+                Numbers.appendUuid(lo, hi, valueSink);
+                return true;
+            }
+            case ColumnType.IPv4: {
+                final int value = record.getIPv4(col);
+                if (value == Numbers.IPv4_NULL) {
+                    return false;
+                }
+                Numbers.intToIPv4Sink(valueSink, value);
+                return true;
+            }
+            case ColumnType.INTERVAL: {
+                final Interval value = record.getInterval(col);
+                if (Interval.NULL.equals(value)) {
+                    return false;
+                }
+                value.toSink(valueSink);
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    private boolean formatGeoHash(long value, int columnType) {
+        if (value == GeoHashes.NULL) {
+            return false;
+        }
+        final int bitFlags = GeoHashes.getBitFlags(columnType);
+        if (bitFlags < 0) {
+            GeoHashes.appendCharsUnsafe(value, -bitFlags, valueSink);
+        } else {
+            GeoHashes.appendBinaryStringUnsafe(value, bitFlags, valueSink);
+        }
+        return true;
+    }
+
+    private int getLayout(int columnIndex) {
+        switch (ColumnType.tagOf(columnTypes.getQuick(columnIndex))) {
+            case ColumnType.NULL:
+                return LAYOUT_NULL;
+            case ColumnType.BOOLEAN:
+                return LAYOUT_BOOL;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return LAYOUT_FIXED;
+            case ColumnType.SYMBOL:
+                return dictionaries.getQuick(columnIndex) != null ? LAYOUT_FIXED : LAYOUT_VAR;
+            default:
+                return LAYOUT_VAR;
+        }
+    }
+
+    private boolean isNullable(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private void putStr(ColumnBuffers buffers, int row, CharSequence value) {
+        if (value == null) {
+            putVarNull(buffers, row);
+        } else {
+            valueSink.clear();
+            valueSink.put(value);
+            putVarSink(buffers, row);
+        }
+    }
+
+    private void putValidity(ColumnBuffers buffers, int row, boolean valid) {
+        putBit(buffers.validity, row, valid);
+        if (!valid) {
+            buffers.nullCount++;
+        }
+    }
+
+    private void putVarNull(ColumnBuffers buffers, int row) {
+        putValidity(buffers, row, false);
+        buffers.offsets.putInt((int) buffers.data.getAppendOffset());
+    }
+
+    private void putVarOffset(ColumnBuffers buffers, long offset) {
+        buffers.offsets.putInt((int) offset);
+        if (offset > varDataSize) {
+            varDataSize = offset;
+        }
+    }
+
+    private void putVarSink(ColumnBuffers buffers, int row) {
+        putValidity(buffers, row, true);
+        buffers.data.putBlockOfBytes(valueSink.ptr(), valueSink.size());
+        putVarOffset(buffers, buffers.data.getAppendOffset());
+    }
+
+    private void resetBatch() {
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final ColumnBuffers buffers = columnBuffers.getQuick(i);
+            buffers.clear();
+            if (getLayout(i) == LAYOUT_VAR) {
+                buffers.offsets.putInt(0);
+            }
+        }
+        batchRowCount = 0;
+        batchEncoded = false;
+        varDataSize = 0;
+    }
+
+    private void resetSegments() {
+        segments.clear();
+        segmentIndex = 0;
+        segmentOffset = 0;
+    }
+
+    // builds the validity bitmap of a page frame column, returns the null count
+    private long scanValidity(ColumnBuffers buffers, int tag, long address, long rowCount) {
+        final long bitmap = buffers.validity.appendAddressFor((rowCount + 7) >>> 3);
+        long nullCount = 0;
+        int bits = 0;
+        for (long r = 0; r < rowCount; r++) {
+            final boolean valid;
+            switch (tag) {
+                case ColumnType.INT:
+                case ColumnType.SYMBOL:
+                    valid = Unsafe.getUnsafe().getInt(address + (r << 2)) != Numbers.INT_NULL;
+                    break;
+                case ColumnType.FLOAT:
+                    valid = !Float.isNaN(Unsafe.getUnsafe().getFloat(address + (r << 2)));
+                    break;
+                case ColumnType.DOUBLE:
+                    valid = !Double.isNaN(Unsafe.getUnsafe().getDouble(address + (r << 3)));
+                    break;
+                default:
+                    valid = Unsafe.getUnsafe().getLong(address + (r << 3)) != Numbers.LONG_NULL;
+                    break;
+            }
+            if (valid) {
+                bits |= 1 << (r & 7);
+            } else {
+                nullCount++;
+            }
+            if ((r & 7) == 7) {
+                Unsafe.getUnsafe().putByte(bitmap + (r >>> 3), (byte) bits);
+                bits = 0;
+            }
+        }
+        if ((rowCount & 7) != 0) {
+            Unsafe.getUnsafe().putByte(bitmap + (rowCount >>> 3), (byte) bits);
+        }
+        return nullCount;
+    }
+
+    private static class ColumnBuffers implements Mutable, QuietCloseable {
+        private final MemoryCARW data = Vm.getCARWInstance(BUFFER_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        private final MemoryCARW offsets = Vm.getCARWInstance(BUFFER_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        private final MemoryCARW validity = Vm.getCARWInstance(BUFFER_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        private final MemoryCARW values = Vm.getCARWInstance(BUFFER_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        private long nullCount;
+
+        @Override
+        public void clear() {
+            data.truncate();
+            offsets.truncate();
+            validity.truncate();
+            values.truncate();
+            nullCount = 0;
+        }
+
+        @Override
+        public void close() {
+            Misc.free(data);
+            Misc.free(offsets);
+            Misc.free(validity);
+            Misc.free(values);
+        }
+    }
+}
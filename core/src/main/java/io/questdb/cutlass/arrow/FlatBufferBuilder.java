@@ -0,0 +1,270 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.arrow;
+
+import io.questdb.std.IntList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Mutable;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.str.Utf8StringSink;
+
+/**
+ * Minimal FlatBuffers builder that writes into native memory. As with the reference
+ * implementation, the buffer is filled back to front: child objects (strings, vectors, tables)
+ * are created before the tables that reference them and are addressed by offsets from the end
+ * of the buffer. Vtables are not deduplicated, messages built here are small.
+ */
+public class FlatBufferBuilder implements Mutable, QuietCloseable {
+    private static final int INITIAL_CAPACITY = 1024;
+    private final Utf8StringSink utf8Sink = new Utf8StringSink();
+    private final IntList vtable = new IntList();
+    private long buffer;
+    private int capacity;
+    private int minAlign = 1;
+    private int objectStart;
+    // the data occupies [buffer + space, buffer + capacity)
+    private int space;
+    private int vectorElementCount;
+
+    public FlatBufferBuilder() {
+        this.buffer = Unsafe.malloc(INITIAL_CAPACITY, MemoryTag.NATIVE_DEFAULT);
+        this.capacity = INITIAL_CAPACITY;
+        this.space = INITIAL_CAPACITY;
+    }
+
+    public void addBool(int field, boolean value, boolean defaultValue) {
+        if (value != defaultValue) {
+            addByte(value ? 1 : 0);
+            slot(field);
+        }
+    }
+
+    public void addByte(int field, int value, int defaultValue) {
+        if (value != defaultValue) {
+            addByte(value);
+            slot(field);
+        }
+    }
+
+    public void addInt(int field, int value, int defaultValue) {
+        if (value != defaultValue) {
+            addInt(value);
+            slot(field);
+        }
+    }
+
+    public void addLong(int field, long value, long defaultValue) {
+        if (value != defaultValue) {
+            prep(Long.BYTES, 0);
+            putLong(value);
+            slot(field);
+        }
+    }
+
+    public void addOffset(int field, int offset) {
+        if (offset != 0) {
+            addOffset(offset);
+            slot(field);
+        }
+    }
+
+    /**
+     * Prepends a reference to the given object, to be used between {@link #startVector(int, int, int)}
+     * and {@link #endVector()} to fill a vector of tables or strings.
+     */
+    public void addOffset(int offset) {
+        prep(Integer.BYTES, 0);
+        assert offset <= offset();
+        putInt(offset() - offset + Integer.BYTES);
+    }
+
+    public void addShort(int field, int value, int defaultValue) {
+        if (value != defaultValue) {
+            addShort(value);
+            slot(field);
+        }
+    }
+
+    /**
+     * Prepends a struct of two longs, the layout of both Arrow FieldNode and Buffer structs.
+     */
+    public void addStructOfLongs(long first, long second) {
+        prep(Long.BYTES, 2 * Long.BYTES);
+        putLong(second);
+        putLong(first);
+    }
+
+    @Override
+    public void clear() {
+        space = capacity;
+        minAlign = 1;
+        vtable.clear();
+        objectStart = 0;
+        vectorElementCount = 0;
+    }
+
+    @Override
+    public void close() {
+        buffer = Unsafe.free(buffer, capacity, MemoryTag.NATIVE_DEFAULT);
+        capacity = 0;
+        space = 0;
+    }
+
+    public int createString(CharSequence value) {
+        utf8Sink.clear();
+        utf8Sink.put(value);
+        final int size = utf8Sink.size();
+        addByte(0);
+        startVector(1, size, 1);
+        space -= size;
+        for (int i = 0; i < size; i++) {
+            Unsafe.getUnsafe().putByte(buffer + space + i, utf8Sink.byteAt(i));
+        }
+        return endVector();
+    }
+
+    public int endTable() {
+        addInt(0);
+        final int tableOffset = offset();
+        int n = vtable.size() - 1;
+        while (n >= 0 && vtable.getQuick(n) == 0) {
+            n--;
+        }
+        final int fieldCount = n + 1;
+        for (int i = n; i >= 0; i--) {
+            final int fieldOffset = vtable.getQuick(i);
+            addShort(fieldOffset != 0 ? tableOffset - fieldOffset : 0);
+        }
+        addShort(tableOffset - objectStart);
+        addShort((fieldCount + 2) * Short.BYTES);
+        // the table starts with the signed distance to its vtable
+        Unsafe.getUnsafe().putInt(buffer + capacity - tableOffset, offset() - tableOffset);
+        vtable.clear();
+        return tableOffset;
+    }
+
+    public int endVector() {
+        putInt(vectorElementCount);
+        return offset();
+    }
+
+    public void finish(int rootTable) {
+        prep(minAlign, Integer.BYTES);
+        addOffset(rootTable);
+    }
+
+    /**
+     * Returns the address of the finished buffer, it is valid until the next call that modifies the builder.
+     */
+    public long getAddress() {
+        return buffer + space;
+    }
+
+    public int size() {
+        return capacity - space;
+    }
+
+    public void startTable(int fieldCount) {
+        vtable.clear();
+        vtable.setAll(fieldCount, 0);
+        objectStart = offset();
+    }
+
+    public void startVector(int elementSize, int elementCount, int alignment) {
+        vectorElementCount = elementCount;
+        prep(Integer.BYTES, elementSize * elementCount);
+        prep(alignment, elementSize * elementCount);
+    }
+
+    private void addByte(int value) {
+        prep(Byte.BYTES, 0);
+        space -= Byte.BYTES;
+        Unsafe.getUnsafe().putByte(buffer + space, (byte) value);
+    }
+
+    private void addInt(int value) {
+        prep(Integer.BYTES, 0);
+        putInt(value);
+    }
+
+    private void addShort(int value) {
+        prep(Short.BYTES, 0);
+        space -= Short.BYTES;
+        Unsafe.getUnsafe().putShort(buffer + space, (short) value);
+    }
+
+    private void grow(int required) {
+        int newCapacity = capacity;
+        while (newCapacity - size() < required) {
+            newCapacity *= 2;
+        }
+        final long newBuffer = Unsafe.malloc(newCapacity, MemoryTag.NATIVE_DEFAULT);
+        final int size = size();
+        Vect.memcpy(newBuffer + newCapacity - size, buffer + space, size);
+        Unsafe.free(buffer, capacity, MemoryTag.NATIVE_DEFAULT);
+        buffer = newBuffer;
+        space = newCapacity - size;
+        capacity = newCapacity;
+    }
+
+    private int offset() {
+        return capacity - space;
+    }
+
+    private void pad(int byteCount) {
+        for (int i = 0; i < byteCount; i++) {
+            Unsafe.getUnsafe().putByte(buffer + --space, (byte) 0);
+        }
+    }
+
+    // aligns the buffer so that a value of the given size is aligned after additional bytes are written
+    private void prep(int size, int additionalBytes) {
+        if (size > minAlign) {
+            minAlign = size;
+        }
+        final int alignSize = (~(capacity - space + additionalBytes) + 1) & (size - 1);
+        if (space < alignSize + size + additionalBytes) {
+            grow(alignSize + size + additionalBytes);
+        }
+        pad(alignSize);
+    }
+
+    private void putInt(int value) {
+        space -= Integer.BYTES;
+        Unsafe.getUnsafe().putInt(buffer + space, value);
+    }
+
+    private void putLong(long value) {
+        space -= Long.BYTES;
+        Unsafe.getUnsafe().putLong(buffer + space, value);
+    }
+
+    private void slot(int field) {
+        vtable.setQuick(field, offset());
+    }
+}
@@ -864,5 +864,6 @@ public class HttpResponseSink implements Closeable, Mutable {
         httpStatusMap.put(HTTP_RANGE_NOT_SATISFIABLE, "Request range not satisfiable");
         httpStatusMap.put(HTTP_REQUEST_HEADER_FIELDS_TOO_LARGE, "Headers too large");
         httpStatusMap.put(HTTP_INTERNAL_ERROR, "Internal server error");
+        httpStatusMap.put(HTTP_UNAVAILABLE, "Service Unavailable");
     }
 }
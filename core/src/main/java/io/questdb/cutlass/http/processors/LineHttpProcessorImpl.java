@@ -31,6 +31,7 @@ import io.questdb.cutlass.http.HttpException;
 import io.questdb.cutlass.http.HttpMultipartContentListener;
 import io.questdb.cutlass.http.HttpRequestHeader;
 import io.questdb.cutlass.http.LocalValue;
+import io.questdb.cutlass.line.LineColumnarFormat;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.network.PeerDisconnectedException;
@@ -48,6 +49,8 @@ public class LineHttpProcessorImpl implements LineHttpProcessor, HttpMultipartCo
     private static final Utf8String CONTENT_ENCODING = new Utf8String("Content-Encoding");
     private static final Log LOG = LogFactory.getLog(StaticContentProcessor.class);
     private static final LocalValue<LineHttpProcessorState> LV = new LocalValue<>();
+    // hint for clients on how long to back off when the table is lagging behind WAL apply
+    private static final int RETRY_AFTER_SECONDS = 1;
     private static final Utf8String URL_PARAM_PRECISION = new Utf8String("precision");
     private final LineHttpProcessorConfiguration configuration;
     private final CairoEngine engine;
@@ -128,7 +131,9 @@ public class LineHttpProcessorImpl implements LineHttpProcessor, HttpMultipartCo
             timestampPrecision = ENTITY_UNIT_NANO;
         }
 
-        state.of(context.getFd(), timestampPrecision, context.getSecurityContext());
+        // columnar batches carry microsecond timestamps, the precision parameter applies to text only
+        final boolean columnar = Utf8s.equalsNcAscii(LineColumnarFormat.CONTENT_TYPE, requestHeader.getContentType());
+        state.of(context.getFd(), timestampPrecision, context.getSecurityContext(), columnar);
     }
 
     @Override
@@ -197,6 +202,9 @@ public class LineHttpProcessorImpl implements LineHttpProcessor, HttpMultipartCo
     private void sendErrorHeader(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
         HttpChunkedResponse response = context.getChunkedResponse();
         response.status(state.getHttpResponseCode(), CONTENT_TYPE_JSON);
+        if (state.isWalApplyLagging()) {
+            response.headers().putAscii("Retry-After: ").put(RETRY_AFTER_SECONDS).putEOL();
+        }
         response.sendHeader();
     }
 }
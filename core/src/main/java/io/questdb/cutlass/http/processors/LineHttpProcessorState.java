@@ -29,7 +29,9 @@ import io.questdb.cairo.CairoException;
 import io.questdb.cairo.CommitFailedException;
 import io.questdb.cairo.SecurityContext;
 import io.questdb.cutlass.http.ConnectionAware;
+import io.questdb.cutlass.line.LineMetrics;
 import io.questdb.cutlass.line.tcp.DefaultColumnTypes;
+import io.questdb.cutlass.line.tcp.LineColumnarParser;
 import io.questdb.cutlass.line.tcp.LineProtocolException;
 import io.questdb.cutlass.line.tcp.LineTcpParser;
 import io.questdb.cutlass.line.tcp.LineWalAppender;
@@ -44,6 +46,7 @@ import io.questdb.std.QuietCloseable;
 import io.questdb.std.Unsafe;
 import io.questdb.std.Vect;
 import io.questdb.std.WeakClosableObjectPool;
+import io.questdb.std.str.DirectUtf8Sequence;
 import io.questdb.std.str.StringSink;
 import io.questdb.std.str.Utf8Sink;
 
@@ -56,8 +59,10 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
     @SuppressWarnings("FieldMayBeFinal")
     private static Log LOG = LogFactory.getLog(LineHttpProcessorState.class);
     private final LineWalAppender appender;
+    private final LineColumnarParser columnarParser = new LineColumnarParser();
     private final StringSink error = new StringSink();
     private final LineHttpTudCache ilpTudCache;
+    private final LineMetrics lineMetrics;
     private final boolean logMessageOnError;
     private final int maxResponseErrorMessageLength;
     private final LineTcpParser parser;
@@ -65,10 +70,14 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
     private final WeakClosableObjectPool<SymbolCache> symbolCachePool;
     int errorLine = -1;
     private long buffer;
+    // the request body is a sequence of columnar blocks rather than text lines
+    private boolean columnar;
     private Status currentStatus = Status.OK;
     private long errorId;
     private long fd = -1;
     private int line = 0;
+    // end of the data being parsed, either in the local buffer or in the receive buffer
+    private long parseHi;
     private long recvBufEnd;
     private long recvBufPos;
     private long recvBufStartOfMeasurement;
@@ -106,12 +115,14 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
                 5
         );
         this.logMessageOnError = configuration.logMessageOnError();
+        this.lineMetrics = engine.getMetrics().lineMetrics();
     }
 
     public void clear() {
         ilpTudCache.clear();
         Vect.memset(buffer, recvBufSize, 0);
         parser.of(buffer);
+        columnarParser.clear();
         recvBufPos = buffer;
         error.clear();
         currentStatus = Status.OK;
@@ -166,8 +177,13 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
         return currentStatus == Status.OK;
     }
 
-    public void of(long fd, byte timestampPrecision, SecurityContext securityContext) {
+    public boolean isWalApplyLagging() {
+        return currentStatus == Status.WAL_APPLY_LAG;
+    }
+
+    public void of(long fd, byte timestampPrecision, SecurityContext securityContext, boolean columnar) {
         this.fd = fd;
+        this.columnar = columnar;
         this.securityContext = securityContext;
         this.appender.setTimestampAdapter(timestampPrecision);
     }
@@ -179,6 +195,15 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
     }
 
     public void onMessageComplete() {
+        if (currentStatus == Status.NEEDS_READ && columnar) {
+            // unlike a text line, a columnar block cannot be terminated implicitly
+            errorLine = ++line;
+            int errorPos = error.length();
+            error.put("\nerror in block ").put(errorLine).put(": truncated block");
+            logBlockError(errorPos);
+            currentStatus = Status.PARSE_ERROR;
+            return;
+        }
         if (currentStatus == Status.NEEDS_READ) {
             // Last line did not have \n as a last character
             // this is allowed by the protocol, no error in Influx
@@ -201,8 +226,18 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
 
         long pos = lo;
         while (pos < hi) {
-            pos = copyToLocalBuffer(pos, hi);
-            currentStatus = processLocalBuffer();
+            if (columnar) {
+                pos = copyToLocalBuffer(pos, hi);
+                currentStatus = processColumnarBuffer();
+            } else if (recvBufPos > buffer) {
+                // a measurement is split across chunks, complete it in the local buffer
+                pos = copyLineToLocalBuffer(pos, hi);
+                currentStatus = processLocalBuffer();
+            } else {
+                // parse the chunk in place, values are copied straight from it to the WAL columns
+                currentStatus = processRecvBuffer(pos, hi);
+                pos = hi;
+            }
             if (stopParse()) {
                 return;
             }
@@ -224,8 +259,47 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
         return UUID.randomUUID().toString().substring(24, 36);
     }
 
+    private Status appendColumnarBlock() throws LineHttpTudCache.TableCreateException {
+        WalTableUpdateDetails tud = this.ilpTudCache.getTableUpdateDetails(securityContext, columnarParser.getTableName(), symbolCachePool);
+        if (tud.isWalApplyLagging()) {
+            return handleWalApplyLag(tud);
+        }
+        try {
+            appender.appendToWal(securityContext, columnarParser, tud);
+            return Status.OK;
+        } catch (LineProtocolException e) {
+            errorLine = ++line;
+            int errorStartPos = error.length();
+            error.put("\nerror in block ").put(errorLine).put(": ");
+            error.put(e.getFlyweightMessage());
+            logBlockError(errorStartPos);
+            return Status.APPEND_ERROR;
+        } catch (CommitFailedException ex) {
+            if (ex.isTableDropped()) {
+                tud.setIsDropped();
+                return Status.OK;
+            } else {
+                ilpTudCache.setDistressed();
+                return handleCommitError(ex.getReason());
+            }
+        } catch (CairoException e) {
+            if (e.isTableDropped()) {
+                tud.setIsDropped();
+                return Status.OK;
+            }
+            ilpTudCache.setDistressed();
+            throw e;
+        } catch (Throwable th) {
+            ilpTudCache.setDistressed();
+            throw th;
+        }
+    }
+
     private Status appendMeasurement() throws LineHttpTudCache.TableCreateException {
         WalTableUpdateDetails tud = this.ilpTudCache.getTableUpdateDetails(securityContext, parser, symbolCachePool);
+        if (tud.isWalApplyLagging()) {
+            return handleWalApplyLag(tud);
+        }
         try {
             appender.appendToWal(securityContext, parser, tud);
             return Status.OK;
@@ -269,6 +343,15 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
         return recvBufPos < recvBufEnd;
     }
 
+    private long copyLineToLocalBuffer(long lo, long hi) {
+        // copy up to the end of the current line only, the rest of the chunk can be parsed in place
+        long eol = lo;
+        while (eol < hi && Unsafe.getUnsafe().getByte(eol) != '\n') {
+            eol++;
+        }
+        return copyToLocalBuffer(lo, Math.min(eol + 1, hi));
+    }
+
     private long copyToLocalBuffer(long lo, long hi) {
         long copyLen = Math.min(hi - lo, recvBufEnd - recvBufPos);
         assert copyLen > 0;
@@ -278,7 +361,42 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
     }
 
     private long getErrorLogLineHi(LineTcpParser parser) {
-        return Math.min(parser.getBufferAddress() + 1, recvBufPos);
+        return Math.min(parser.getBufferAddress() + 1, parseHi);
+    }
+
+    private DirectUtf8Sequence getTableName() {
+        return columnar ? columnarParser.getTableName() : parser.getMeasurementName();
+    }
+
+    private Status handleBlockError(LineHttpTudCache.TableCreateException ex) {
+        errorLine = ++line;
+        int errorPos = error.length();
+        error.put("\nerror in block ").put(errorLine);
+        error.put(": table: ").put(columnarParser.getTableName());
+        if (ex.getMsg() != null) {
+            error.put("; ").put(ex.getMsg());
+        }
+        if (ex.getToken() != null) {
+            error.put(": ").put(ex.getToken());
+        }
+        logBlockError(errorPos);
+        return Status.PARSE_ERROR;
+    }
+
+    private Status handleBlockError(CairoException ex) {
+        errorId = ERROR_COUNT.incrementAndGet();
+        final LogRecord errorRec = ex.isCritical() ? LOG.critical() : LOG.error();
+        errorRec
+                .$('[').$(fd).$("] could not process columnar block [table=").$(columnarParser.getTableName())
+                .$(", errorId=").$(ERROR_ID).$('-').$(errorId)
+                .$(", errno=").$(ex.getErrno())
+                .$(", ex=").$(ex.getFlyweightMessage()).I$();
+
+        error.put("write error: ").put(columnarParser.getTableName())
+                .put(", errno: ").put(ex.getErrno())
+                .put(", error: ").put(ex.getFlyweightMessage());
+        errorLine = line + 1;
+        return ex.isAuthorizationError() ? Status.SECURITY_ERROR : Status.INTERNAL_ERROR;
     }
 
     private Status handleCommitError(Throwable ex) {
@@ -287,7 +405,7 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
 
         final Status status;
         final LogRecord errorRec;
-        error.put("commit error for table: ").put(parser.getMeasurementName());
+        error.put("commit error for table: ").put(getTableName());
         if (ex instanceof CairoException) {
             CairoException exception = (CairoException) ex;
             error.put(", errno: ").put(exception.getErrno()).put(", error: ").put(exception.getFlyweightMessage());
@@ -304,7 +422,7 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
             status = Status.INTERNAL_ERROR;
         }
 
-        errorRec.$('[').$(fd).$("] could not commit [table=").$(parser.getMeasurementName())
+        errorRec.$('[').$(fd).$("] could not commit [table=").$(getTableName())
                 .$(", errorId=").$(ERROR_ID).$('-').$(errorId)
                 .$(", ex=").$(ex.getMessage())
                 .I$();
@@ -385,19 +503,45 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
     private Status handleUnknownParseError(Throwable ex) {
         errorId = ERROR_COUNT.incrementAndGet();
         final LogRecord errorRec = LOG.critical()
-                .$('[').$(fd).$("] could not process line data [table=").$(parser.getMeasurementName())
+                .$('[').$(fd).$("] could not process line data [table=").$(getTableName())
                 .$(", errorId=").$(ERROR_ID).$('-').$(errorId);
-        if (logMessageOnError) {
+        if (logMessageOnError && !columnar) {
             errorRec.$(", mangledLine=`").$utf8(recvBufStartOfMeasurement == 0 ? buffer : recvBufStartOfMeasurement, getErrorLogLineHi(parser)).$('`');
         }
         errorRec.$(", ex=").$(ex.getMessage()).I$();
 
-        error.put("write error: ").put(parser.getMeasurementName())
+        error.put("write error: ").put(getTableName())
                 .put(", error: ").put(ex.getClass().getCanonicalName());
         errorLine = line + 1;
         return Status.INTERNAL_ERROR;
     }
 
+    private Status handleWalApplyLag(WalTableUpdateDetails tud) {
+        errorId = ERROR_COUNT.incrementAndGet();
+        errorLine = -1;
+        final long lagTxnCount = tud.getWalApplyLagTxnCount();
+        lineMetrics.walApplyLagThrottleCounter().inc();
+        lineMetrics.walApplyLagGauge().setValue(lagTxnCount);
+        LOG.info().$('[').$(fd).$("] rejecting request, WAL apply is lagging [table=").$(tud.getTableToken())
+                .$(", lagTxnCount=").$(lagTxnCount)
+                .$(", errorId=").$(ERROR_ID).$('-').$(errorId)
+                .I$();
+        error.put("table is busy applying WAL transactions, retry later [table=").put(tud.getTableNameUtf16())
+                .put(", lagTxnCount=").put(lagTxnCount)
+                .put(']');
+        return Status.WAL_APPLY_LAG;
+    }
+
+    private void logBlockError(int errorPos) {
+        errorId = ERROR_COUNT.incrementAndGet();
+        LOG.info().$("parse error [errorId=").$(ERROR_ID).$('-').$(errorId)
+                .$(", table=").$(columnarParser.getTableName())
+                .$(", block=").$(errorLine)
+                .$(", error=").$(error.subSequence(errorPos, error.length()))
+                .$(", fd=").$(fd)
+                .I$();
+    }
+
     private void logError(LineTcpParser parser, int errorPos) {
         logError(parser, errorPos, false);
     }
@@ -424,8 +568,54 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
                 .I$();
     }
 
+    private Status processColumnarBuffer() {
+        long lo = buffer;
+        try {
+            while (lo < recvBufPos) {
+                final long blockSize = LineColumnarParser.getBlockSize(lo, recvBufPos);
+                if (blockSize < 0 || lo + blockSize > recvBufPos) {
+                    if (blockSize > recvBufSize) {
+                        errorLine = ++line;
+                        int errorPos = error.length();
+                        error.put("unable to read data: columnar block does not fit QuestDB ILP buffer size");
+                        logBlockError(errorPos);
+                        return Status.MESSAGE_TOO_LARGE;
+                    }
+                    // keep the partial block at the start of the buffer until the rest of it arrives
+                    final long len = recvBufPos - lo;
+                    Vect.memmove(buffer, lo, len);
+                    recvBufPos = buffer + len;
+                    return Status.NEEDS_READ;
+                }
+                columnarParser.of(lo, lo + blockSize);
+                final Status status = appendColumnarBlock();
+                if (status != Status.OK) {
+                    return status;
+                }
+                line++;
+                lo += blockSize;
+            }
+            recvBufPos = buffer;
+            return Status.OK;
+        } catch (LineHttpTudCache.TableCreateException e) {
+            return handleBlockError(e);
+        } catch (LineProtocolException e) {
+            // the block is malformed
+            errorLine = ++line;
+            int errorPos = error.length();
+            error.put("\nerror in block ").put(errorLine).put(": ").put(e.getFlyweightMessage());
+            logBlockError(errorPos);
+            return Status.PARSE_ERROR;
+        } catch (CairoException e) {
+            return handleBlockError(e);
+        } catch (Throwable ex) {
+            return handleUnknownParseError(ex);
+        }
+    }
+
     private Status processLocalBuffer() {
         Status status = Status.OK;
+        parseHi = recvBufPos;
         while (recvBufPos > buffer) {
             try {
                 LineTcpParser.ParseResult rc = parser.parseMeasurement(recvBufPos);
@@ -465,6 +655,65 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
         return status;
     }
 
+    private Status processRecvBuffer(long lo, long hi) {
+        parseHi = hi;
+        recvBufStartOfMeasurement = lo;
+        parser.of(lo);
+        try {
+            Status status;
+            while (parser.getBufferAddress() < hi) {
+                LineTcpParser.ParseResult rc = parser.parseMeasurement(hi);
+                switch (rc) {
+                    case MEASUREMENT_COMPLETE: {
+                        if ((status = appendMeasurement()) != Status.OK) {
+                            return status;
+                        }
+                        line++;
+                        parser.startNextMeasurement();
+                        recvBufStartOfMeasurement = parser.getBufferAddress();
+                        break;
+                    }
+
+                    case ERROR: {
+                        return handleLineError(parser);
+                    }
+
+                    case BUFFER_UNDERFLOW: {
+                        return retainPartialMeasurement(hi);
+                    }
+                }
+            }
+            // the whole chunk is consumed
+            recvBufStartOfMeasurement = buffer;
+            parser.of(buffer);
+            return Status.OK;
+        } catch (LineHttpTudCache.TableCreateException parseException) {
+            return handleLineError(parser, parseException);
+        } catch (CairoException parseException) {
+            return handleLineError(parser, parseException);
+        } catch (Throwable ex) {
+            return handleUnknownParseError(ex);
+        }
+    }
+
+    private Status retainPartialMeasurement(long hi) {
+        // the measurement continues in the next chunk, move its head to the local buffer
+        // and let the parser resume from there
+        final long len = hi - recvBufStartOfMeasurement;
+        if (len >= recvBufSize) {
+            errorLine = ++line;
+            int errorPos = error.length();
+            error.put("unable to read data: ILP line does not fit QuestDB ILP buffer size");
+            logError(parser, errorPos, true);
+            return Status.MESSAGE_TOO_LARGE;
+        }
+        Vect.memcpy(buffer, recvBufStartOfMeasurement, len);
+        parser.shl(recvBufStartOfMeasurement - buffer);
+        recvBufPos = buffer + len;
+        recvBufStartOfMeasurement = buffer;
+        return Status.NEEDS_READ;
+    }
+
     private void startNewMeasurement() {
         parser.startNextMeasurement();
         recvBufStartOfMeasurement = parser.getBufferAddress();
@@ -492,6 +741,7 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
         INTERNAL_ERROR("internal error", 500),
         MESSAGE_TOO_LARGE("request too large", 413),
         COLUMN_ADD_ERROR("invalid", 400),
+        WAL_APPLY_LAG("busy", 503),
         COMMITTED(null, 204);
 
         private final String codeStr;
@@ -44,6 +44,7 @@ import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 import io.questdb.std.Pool;
 import io.questdb.std.QuietCloseable;
+import io.questdb.std.str.DirectUtf8Sequence;
 import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
 import io.questdb.std.str.Utf8Sequence;
@@ -51,6 +52,7 @@ import io.questdb.std.str.Utf8String;
 import io.questdb.std.str.Utf8s;
 import io.questdb.tasks.TelemetryTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class LineHttpTudCache implements QuietCloseable {
     private final boolean autoCreateNewColumns;
@@ -150,36 +152,19 @@ public class LineHttpTudCache implements QuietCloseable {
             @NotNull LineTcpParser parser,
             Pool<SymbolCache> symbolCachePool
     ) throws TableCreateException {
-        int key = tableUpdateDetails.keyIndex(parser.getMeasurementName());
-        if (key < 0) {
-            return tableUpdateDetails.valueAt(key);
-        }
-
-        tableNameUtf16.clear();
-        Utf8s.utf8ToUtf16(parser.getMeasurementName(), tableNameUtf16);
-        TableToken tableToken = getOrCreateTable(securityContext, parser, tableNameUtf16);
-        if (!engine.isWalTable(tableToken)) {
-            throw parseException.of("cannot insert in non-WAL table", null);
-        }
-
-        TelemetryTask.store(telemetry, TelemetryOrigin.ILP_TCP, TelemetrySystemEvent.ILP_RESERVE_WRITER);
-        // check if table on disk is WAL
-        path.of(engine.getConfiguration().getDbRoot());
-        Utf8String nameUtf8 = Utf8String.newInstance(parser.getMeasurementName());
-        WalTableUpdateDetails tud = new WalTableUpdateDetails(
-                engine,
-                securityContext,
-                engine.getWalWriter(tableToken),
-                defaultColumnTypes,
-                nameUtf8,
-                symbolCachePool,
-                -1,
-                false,
-                Long.MAX_VALUE
-        );
+        return getTableUpdateDetails(securityContext, parser.getMeasurementName(), parser, symbolCachePool);
+    }
 
-        tableUpdateDetails.putAt(key, nameUtf8, tud);
-        return tud;
+    /**
+     * Looks up the table of a columnar block. A missing table is created with the designated
+     * timestamp only, the block columns are added when the block is appended.
+     */
+    public WalTableUpdateDetails getTableUpdateDetails(
+            SecurityContext securityContext,
+            @NotNull DirectUtf8Sequence tableName,
+            Pool<SymbolCache> symbolCachePool
+    ) throws TableCreateException {
+        return getTableUpdateDetails(securityContext, tableName, null, symbolCachePool);
     }
 
     public void reset() {
@@ -196,7 +181,7 @@ public class LineHttpTudCache implements QuietCloseable {
         this.distressed = true;
     }
 
-    private TableToken getOrCreateTable(SecurityContext securityContext, @NotNull LineTcpParser parser, StringSink tableNameUtf16) throws TableCreateException {
+    private TableToken getOrCreateTable(SecurityContext securityContext, @Nullable LineTcpParser parser, StringSink tableNameUtf16) throws TableCreateException {
         int maxFileNameLength = engine.getConfiguration().getMaxFileNameLength();
         if (!TableUtils.isValidTableName(tableNameUtf16, maxFileNameLength)) {
             throw parseException.of("invalid table name", null);
@@ -211,7 +196,7 @@ public class LineHttpTudCache implements QuietCloseable {
                 throw parseException.of("table does not exist, cannot create table, creating new columns is disabled", null);
             }
             // validate that parser entities do not contain NULLs
-            TableStructureAdapter tsa = tableStructureAdapter.of(tableNameUtf16, parser);
+            TableStructureAdapter tsa = parser != null ? tableStructureAdapter.of(tableNameUtf16, parser) : tableStructureAdapter.of(tableNameUtf16);
 
             for (int i = 0, n = tsa.getColumnCount(); i < n; i++) {
                 CharSequence columnName = tsa.getColumnNameNoValidation(i);
@@ -230,6 +215,44 @@ public class LineHttpTudCache implements QuietCloseable {
         return tableToken;
     }
 
+    private WalTableUpdateDetails getTableUpdateDetails(
+            SecurityContext securityContext,
+            @NotNull DirectUtf8Sequence tableName,
+            @Nullable LineTcpParser parser,
+            Pool<SymbolCache> symbolCachePool
+    ) throws TableCreateException {
+        int key = tableUpdateDetails.keyIndex(tableName);
+        if (key < 0) {
+            return tableUpdateDetails.valueAt(key);
+        }
+
+        tableNameUtf16.clear();
+        Utf8s.utf8ToUtf16(tableName, tableNameUtf16);
+        TableToken tableToken = getOrCreateTable(securityContext, parser, tableNameUtf16);
+        if (!engine.isWalTable(tableToken)) {
+            throw parseException.of("cannot insert in non-WAL table", null);
+        }
+
+        TelemetryTask.store(telemetry, TelemetryOrigin.ILP_TCP, TelemetrySystemEvent.ILP_RESERVE_WRITER);
+        // check if table on disk is WAL
+        path.of(engine.getConfiguration().getDbRoot());
+        Utf8String nameUtf8 = Utf8String.newInstance(tableName);
+        WalTableUpdateDetails tud = new WalTableUpdateDetails(
+                engine,
+                securityContext,
+                engine.getWalWriter(tableToken),
+                defaultColumnTypes,
+                nameUtf8,
+                symbolCachePool,
+                -1,
+                false,
+                Long.MAX_VALUE
+        );
+
+        tableUpdateDetails.putAt(key, nameUtf8, tud);
+        return tud;
+    }
+
     public static class TableCreateException extends Exception {
         private String msg;
         private CharSequence token;
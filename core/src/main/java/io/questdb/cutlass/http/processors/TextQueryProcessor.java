@@ -26,6 +26,7 @@ package io.questdb.cutlass.http.processors;
 
 import io.questdb.Metrics;
 import io.questdb.TelemetryOrigin;
+import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoError;
 import io.questdb.cairo.CairoException;
@@ -34,8 +35,15 @@ import io.questdb.cairo.DataUnavailableException;
 import io.questdb.cairo.GeoHashes;
 import io.questdb.cairo.ImplicitCastException;
 import io.questdb.cairo.sql.NetworkSqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameAddressCache;
+import io.questdb.cairo.sql.PageFrameMemory;
+import io.questdb.cairo.sql.PageFrameMemoryPool;
+import io.questdb.cairo.sql.PartitionFrameCursorFactory;
 import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
+import io.questdb.cutlass.arrow.ArrowStreamEncoder;
 import io.questdb.cutlass.http.HttpChunkedResponse;
 import io.questdb.cutlass.http.HttpConnectionContext;
 import io.questdb.cutlass.http.HttpException;
@@ -46,6 +54,7 @@ import io.questdb.griffin.CompiledQuery;
 import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.table.parquet.ParquetExporter;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.log.LogRecord;
@@ -54,6 +63,7 @@ import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
 import io.questdb.network.QueryPausedException;
 import io.questdb.network.ServerDisconnectException;
+import io.questdb.std.FilesFacade;
 import io.questdb.std.FlyweightMessageContainer;
 import io.questdb.std.Interval;
 import io.questdb.std.MemoryTag;
@@ -63,11 +73,13 @@ import io.questdb.std.NumericException;
 import io.questdb.std.Uuid;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.str.DirectUtf8Sequence;
+import io.questdb.std.str.Path;
 import io.questdb.std.str.Utf8Sequence;
 import io.questdb.std.str.Utf8s;
 import org.jetbrains.annotations.TestOnly;
 
 import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static io.questdb.cutlass.http.HttpConstants.*;
 
@@ -79,6 +91,8 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     // by the same thread that executes the dispatcher.
     private static final LocalValue<TextQueryProcessorState> LV = new LocalValue<>();
     private static final Log LOG = LogFactory.getLog(TextQueryProcessor.class);
+    private static final AtomicLong PARQUET_EXPORT_ID_SEQ = new AtomicLong();
+    private final int arrowBatchRowCount;
     private final NetworkSqlExecutionCircuitBreaker circuitBreaker;
     private final MillisecondClock clock;
     private final JsonQueryProcessorConfiguration configuration;
@@ -114,6 +128,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         this.metrics = engine.getMetrics();
         this.engine = engine;
         maxSqlRecompileAttempts = engine.getConfiguration().getMaxSqlRecompileAttempts();
+        arrowBatchRowCount = engine.getConfiguration().getSqlPageFrameMaxRows();
         requiredAuthType = configuration.getRequiredAuthType();
     }
 
@@ -160,7 +175,11 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                     boolean runQuery = true;
                     for (int retries = 0; runQuery; retries++) {
                         try {
-                            state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            if (state.arrow && canExportPageFrames(state)) {
+                                state.pageFrameCursor = state.recordCursorFactory.getPageFrameCursor(sqlExecutionContext, PartitionFrameCursorFactory.ORDER_ASC);
+                            } else {
+                                state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            }
                             runQuery = false;
                         } catch (TableReferenceOutOfDateException e) {
                             if (retries == maxSqlRecompileAttempts) {
@@ -249,6 +268,16 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
     }
 
+    private static boolean canExportPageFrames(TextQueryProcessorState state) {
+        // page frames carry all rows of the table scan, limits are applied on the record path
+        final RecordCursorFactory factory = state.recordCursorFactory;
+        return state.skip == 0
+                && state.stop == Long.MAX_VALUE
+                && factory.supportsPageFrameCursor()
+                && factory.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                && ArrowStreamEncoder.supportsPageFrames(factory.getMetadata());
+    }
+
     private static boolean isExpUrl(Utf8Sequence tok) {
         if (tok.size() != 4) {
             return false;
@@ -316,6 +345,20 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                 .$(", totalBytesSent=").$(context.getTotalBytesSent()).I$();
     }
 
+    private static void sendArrowMessage(
+            HttpChunkedResponse response,
+            ArrowStreamEncoder encoder
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        while (!encoder.isSent()) {
+            final int remaining = encoder.getSegmentRemaining();
+            final int written = response.writeBytes(encoder.getSegmentAddress(), remaining);
+            encoder.advance(written);
+            if (written < remaining) {
+                response.sendChunk(false);
+            }
+        }
+    }
+
     private LogRecord critical(TextQueryProcessorState state) {
         return LOG.critical().$('[').$(state.getFd()).$("] ");
     }
@@ -339,6 +382,16 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
 
         final HttpChunkedResponse response = context.getChunkedResponse();
+        if (state.arrow) {
+            doResumeSendArrow(response, state);
+            readyForNextRequest(context);
+            return;
+        }
+        if (state.parquet) {
+            doResumeSendParquet(response, state);
+            readyForNextRequest(context);
+            return;
+        }
         final int columnCount = state.metadata.getColumnCount();
 
         OUT:
@@ -444,6 +497,162 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         readyForNextRequest(context);
     }
 
+    private void doResumeSendArrow(
+            HttpChunkedResponse response,
+            TextQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
+        ArrowStreamEncoder encoder = state.arrowEncoder;
+        try {
+            while (true) {
+                switch (state.queryState) {
+                    case JsonQueryProcessorState.QUERY_SETUP_FIRST_RECORD:
+                        if (encoder == null) {
+                            encoder = state.arrowEncoder = new ArrowStreamEncoder();
+                        }
+                        if (state.pageFrameCursor != null) {
+                            encoder.of(state.metadata, state.pageFrameCursor);
+                            if (state.frameAddressCache == null) {
+                                state.frameAddressCache = new PageFrameAddressCache(engine.getConfiguration());
+                            }
+                            if (state.frameMemoryPool == null) {
+                                state.frameMemoryPool = new PageFrameMemoryPool(1);
+                            }
+                            state.frameAddressCache.of(state.metadata, state.pageFrameCursor.getColumnIndexes());
+                            state.frameMemoryPool.of(state.frameAddressCache);
+                        } else {
+                            encoder.of(state.metadata, state.cursor);
+                        }
+                        header(response, state, 200);
+                        encoder.encodeSchema();
+                        state.queryState = JsonQueryProcessorState.QUERY_METADATA;
+                        // fall through
+                    case JsonQueryProcessorState.QUERY_METADATA:
+                        // schema first, then a dictionary batch per dictionary-encoded symbol column
+                        do {
+                            sendArrowMessage(response, encoder);
+                        } while (encoder.encodeNextDictionary());
+                        state.queryState = JsonQueryProcessorState.QUERY_RECORD_START;
+                        // fall through
+                    case JsonQueryProcessorState.QUERY_RECORD_START:
+                        if (state.pageFrameCursor != null) {
+                            final PageFrame frame = state.pageFrameCursor.next();
+                            if (frame == null) {
+                                state.queryState = JsonQueryProcessorState.QUERY_SUFFIX;
+                                break;
+                            }
+                            final int frameIndex = state.frameIndex++;
+                            state.frameAddressCache.add(frameIndex, frame);
+                            final PageFrameMemory frameMemory = state.frameMemoryPool.navigateTo(frameIndex);
+                            encoder.encodeFrame(frameMemory, state.frameAddressCache.getFrameSize(frameIndex));
+                        } else {
+                            final Record record = state.cursor.getRecord();
+                            while (!encoder.isBatchFull(arrowBatchRowCount)) {
+                                if (state.count >= state.stop || !state.cursor.hasNext()) {
+                                    state.arrowLastBatch = true;
+                                    break;
+                                }
+                                if (++state.count > state.skip) {
+                                    encoder.appendRecord(record);
+                                }
+                            }
+                            if (encoder.getBatchRowCount() == 0) {
+                                state.queryState = JsonQueryProcessorState.QUERY_SUFFIX;
+                                break;
+                            }
+                            encoder.encodeBatch();
+                        }
+                        state.queryState = JsonQueryProcessorState.QUERY_RECORD;
+                        // fall through
+                    case JsonQueryProcessorState.QUERY_RECORD:
+                        sendArrowMessage(response, encoder);
+                        state.queryState = state.arrowLastBatch
+                                ? JsonQueryProcessorState.QUERY_SUFFIX
+                                : JsonQueryProcessorState.QUERY_RECORD_START;
+                        break;
+                    case JsonQueryProcessorState.QUERY_SUFFIX:
+                        // release the table before the client sees the end of the stream
+                        state.cursor = Misc.free(state.cursor);
+                        Misc.clear(state.frameMemoryPool);
+                        state.pageFrameCursor = Misc.free(state.pageFrameCursor);
+                        encoder.encodeEndOfStream();
+                        state.queryState = JsonQueryProcessorState.QUERY_RECORD_SUFFIX;
+                        // fall through
+                    case JsonQueryProcessorState.QUERY_RECORD_SUFFIX:
+                        sendArrowMessage(response, encoder);
+                        sendDone(response, state);
+                        return;
+                    default:
+                        return;
+                }
+            }
+        } catch (DataUnavailableException e) {
+            throw QueryPausedException.instance(e.getEvent(), sqlExecutionContext.getCircuitBreaker());
+        }
+    }
+
+    private void doResumeSendParquet(
+            HttpChunkedResponse response,
+            TextQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
+        try {
+            switch (state.queryState) {
+                case JsonQueryProcessorState.QUERY_SETUP_FIRST_RECORD:
+                    openParquetExport(state);
+                    state.queryState = JsonQueryProcessorState.QUERY_RECORD_START;
+                    // fall through
+                case JsonQueryProcessorState.QUERY_RECORD_START: {
+                    // rows stay buffered in the exporter when the cursor pauses on cold storage,
+                    // the file is complete before anything is sent to the client
+                    final ParquetExporter exporter = state.parquetExporter;
+                    final Record record = state.cursor.getRecord();
+                    while (state.count < state.stop && state.cursor.hasNext()) {
+                        circuitBreaker.statefulThrowExceptionIfTripped();
+                        if (++state.count > state.skip) {
+                            exporter.append(record);
+                        }
+                    }
+                    state.cursor = Misc.free(state.cursor);
+                    if (exporter.getRowCount() == 0) {
+                        // the encoder cannot write a file without row groups
+                        info(state).$("query returned no rows, nothing to export [q=`").utf8(state.query).$("`]").$();
+                        state.queryState = JsonQueryProcessorState.QUERY_DONE;
+                        sendException(response, 0, "query returned no rows, there is nothing to export", state);
+                        break;
+                    }
+                    exporter.finish();
+                    state.mapParquetFile(LOG);
+                    state.queryState = JsonQueryProcessorState.QUERY_PREFIX;
+                }
+                // fall through
+                case JsonQueryProcessorState.QUERY_PREFIX:
+                    // headers always fit into the send buffer, move on before sending them, so that
+                    // resume after the peer catches up does not send them twice
+                    state.queryState = JsonQueryProcessorState.QUERY_RECORD;
+                    header(response, state, 200);
+                    // fall through
+                case JsonQueryProcessorState.QUERY_RECORD:
+                    while (state.parquetOffset < state.parquetSize) {
+                        final int remaining = (int) Math.min(Integer.MAX_VALUE, state.parquetSize - state.parquetOffset);
+                        final int written = response.writeBytes(state.parquetAddr + state.parquetOffset, remaining);
+                        state.parquetOffset += written;
+                        if (written < remaining) {
+                            response.sendChunk(false);
+                        }
+                    }
+                    state.queryState = JsonQueryProcessorState.QUERY_SUFFIX;
+                    // fall through
+                case JsonQueryProcessorState.QUERY_SUFFIX:
+                    state.releaseParquetFile();
+                    sendDone(response, state);
+                    break;
+                default:
+                    break;
+            }
+        } catch (DataUnavailableException e) {
+            throw QueryPausedException.instance(e.getEvent(), sqlExecutionContext.getCircuitBreaker());
+        }
+    }
+
     private LogRecord error(TextQueryProcessorState state) {
         return LOG.error().$('[').$(state.getFd()).$("] ");
     }
@@ -498,6 +707,27 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
     }
 
+    private void openParquetExport(TextQueryProcessorState state) {
+        final CairoConfiguration cairoConfiguration = engine.getConfiguration();
+        final FilesFacade ff = cairoConfiguration.getFilesFacade();
+        if (state.parquetExporter == null) {
+            state.parquetExporter = new ParquetExporter(cairoConfiguration);
+        }
+        final Path path = state.parquetPath = new Path();
+        path.of(cairoConfiguration.getSqlSpillRoot()).slash();
+        if (!ff.exists(path.$()) && ff.mkdirs(path, cairoConfiguration.getMkDirMode()) != 0) {
+            throw CairoException.critical(ff.errno()).put("could not create export directory [path=").put(path).put(']');
+        }
+        path.concat("export_").put(PARQUET_EXPORT_ID_SEQ.incrementAndGet()).put(".parquet");
+        state.parquetFf = ff;
+
+        final RecordCursorFactory factory = state.recordCursorFactory;
+        final int timestampIndex = factory.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                ? state.metadata.getTimestampIndex()
+                : -1;
+        state.parquetExporter.of(state.metadata, timestampIndex, path.$());
+    }
+
     private boolean parseUrl(
             HttpChunkedResponse response,
             HttpRequestHeader request,
@@ -566,6 +796,8 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         state.count = 0L;
         state.stop = stop;
         state.noMeta = Utf8s.equalsNcAscii("true", request.getUrlParam(URL_PARAM_NM));
+        state.arrow = Utf8s.equalsNcAscii("arrow", request.getUrlParam(URL_PARAM_FMT));
+        state.parquet = Utf8s.equalsNcAscii("parquet", request.getUrlParam(URL_PARAM_FMT));
         state.countRows = Utf8s.equalsNcAscii("true", request.getUrlParam(URL_PARAM_COUNT));
         return true;
     }
@@ -711,11 +943,23 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             TextQueryProcessorState state,
             int statusCode
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        response.status(statusCode, CONTENT_TYPE_CSV);
+        final String contentType;
+        final String extension;
+        if (state.arrow) {
+            contentType = CONTENT_TYPE_ARROW_STREAM;
+            extension = ".arrow\"";
+        } else if (state.parquet) {
+            contentType = CONTENT_TYPE_PARQUET;
+            extension = ".parquet\"";
+        } else {
+            contentType = CONTENT_TYPE_CSV;
+            extension = ".csv\"";
+        }
+        response.status(statusCode, contentType);
         if (state.fileName != null && !state.fileName.isEmpty()) {
-            response.headers().putAscii("Content-Disposition: attachment; filename=\"").put(state.fileName).putAscii(".csv\"").putEOL();
+            response.headers().putAscii("Content-Disposition: attachment; filename=\"").put(state.fileName).putAscii(extension).putEOL();
         } else {
-            response.headers().putAscii("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).putAscii(".csv\"").putEOL();
+            response.headers().putAscii("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).putAscii(extension).putEOL();
         }
         response.headers().setKeepAlive(configuration.getKeepAliveHeader());
         response.sendHeader();
@@ -24,14 +24,25 @@
 
 package io.questdb.cutlass.http.processors;
 
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.sql.PageFrameAddressCache;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.PageFrameMemoryPool;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cutlass.arrow.ArrowStreamEncoder;
 import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.griffin.engine.table.parquet.ParquetExporter;
+import io.questdb.log.Log;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
 import io.questdb.std.Rnd;
+import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
 
 import java.io.Closeable;
@@ -39,15 +50,31 @@ import java.io.Closeable;
 public class TextQueryProcessorState implements Mutable, Closeable {
     final StringSink query = new StringSink();
     private final HttpConnectionContext httpConnectionContext;
+    boolean arrow;
+    ArrowStreamEncoder arrowEncoder;
+    boolean arrowLastBatch;
     int columnIndex;
     long count;
     boolean countRows = false;
     RecordCursor cursor;
     char delimiter = ',';
     String fileName;
+    PageFrameAddressCache frameAddressCache;
+    int frameIndex;
+    PageFrameMemoryPool frameMemoryPool;
     boolean hasNext;
     RecordMetadata metadata;
     boolean noMeta = false;
+    PageFrameCursor pageFrameCursor;
+    boolean parquet;
+    long parquetAddr;
+    ParquetExporter parquetExporter;
+    long parquetFd = -1;
+    FilesFacade parquetFf;
+    long parquetOffset;
+    // temporary file the parquet export is written to, null when there is none
+    Path parquetPath;
+    long parquetSize;
     boolean pausedQuery = false;
     int queryState;
     Record record;
@@ -70,6 +97,12 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         rnd = null;
         record = null;
         cursor = Misc.free(cursor);
+        Misc.clear(frameMemoryPool);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        Misc.clear(frameAddressCache);
+        Misc.clear(arrowEncoder);
+        Misc.clear(parquetExporter);
+        releaseParquetFile();
         if (recordCursorFactory != null) {
             if (queryCacheable) {
                 httpConnectionContext.getSelectCache().put(query, recordCursorFactory);
@@ -88,11 +121,20 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         noMeta = false;
         countRows = false;
         pausedQuery = false;
+        arrow = false;
+        arrowLastBatch = false;
+        frameIndex = 0;
+        parquet = false;
     }
 
     @Override
     public void close() {
         cursor = Misc.free(cursor);
+        frameMemoryPool = Misc.free(frameMemoryPool);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        arrowEncoder = Misc.free(arrowEncoder);
+        parquetExporter = Misc.free(parquetExporter);
+        releaseParquetFile();
         recordCursorFactory = Misc.free(recordCursorFactory);
     }
 
@@ -100,6 +142,33 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         return httpConnectionContext.getFd();
     }
 
+    void mapParquetFile(Log log) {
+        parquetFd = TableUtils.openRO(parquetFf, parquetPath.$(), log);
+        parquetSize = parquetFf.length(parquetFd);
+        if (parquetSize < 0) {
+            throw CairoException.critical(parquetFf.errno()).put("could not get export file length [path=").put(parquetPath).put(']');
+        }
+        parquetAddr = TableUtils.mapRO(parquetFf, parquetFd, parquetSize, MemoryTag.MMAP_DEFAULT);
+        parquetOffset = 0;
+    }
+
+    void releaseParquetFile() {
+        if (parquetAddr != 0) {
+            parquetFf.munmap(parquetAddr, parquetSize, MemoryTag.MMAP_DEFAULT);
+            parquetAddr = 0;
+        }
+        if (parquetFd != -1) {
+            parquetFf.close(parquetFd);
+            parquetFd = -1;
+        }
+        if (parquetPath != null) {
+            parquetFf.removeQuiet(parquetPath.$());
+            parquetPath = Misc.free(parquetPath);
+        }
+        parquetSize = 0;
+        parquetOffset = 0;
+    }
+
     void setQueryCacheable(boolean queryCacheable) {
         this.queryCacheable = queryCacheable;
     }
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line;
+
+/**
+ * Constants of the columnar ILP batch format (protocol version 2). A batch is a sequence
+ * of little-endian table blocks, each carrying the column vectors of a run of rows:
+ * <pre>
+ * int blockSize (excluding this field)
+ * int tableNameSize, byte[] tableName (UTF-8)
+ * int rowCount
+ * int columnCount
+ * column * columnCount:
+ *     int nameSize, byte[] name (UTF-8, empty for the designated timestamp)
+ *     byte type
+ *     payload
+ * </pre>
+ * Fixed-size payloads are rowCount values of 1 (boolean) or 8 bytes, with Long.MIN_VALUE
+ * and NaN standing for null. A designated timestamp of Long.MIN_VALUE is replaced with
+ * the server time. Symbol payload is the dictionary (int count, then int size and UTF-8
+ * bytes per value) followed by rowCount int keys. String payload is rowCount int lengths
+ * followed by int dataSize and the UTF-8 data. Negative keys and lengths are nulls.
+ */
+public final class LineColumnarFormat {
+    public static final String CONTENT_TYPE = "application/x-questdb-ilp-columnar";
+    public static final int NULL_LENGTH = -1;
+    public static final int PROTOCOL_VERSION_V1 = 1;
+    public static final int PROTOCOL_VERSION_V2 = 2;
+    public static final byte TYPE_BOOLEAN = 1;
+    public static final byte TYPE_DESIGNATED_TIMESTAMP = 2;
+    public static final byte TYPE_DOUBLE = 3;
+    public static final byte TYPE_LONG = 4;
+    public static final byte TYPE_STRING = 5;
+    public static final byte TYPE_SYMBOL = 6;
+    public static final byte TYPE_TIMESTAMP = 7;
+
+    private LineColumnarFormat() {
+    }
+
+    public static String nameOf(byte type) {
+        switch (type) {
+            case TYPE_BOOLEAN:
+                return "BOOLEAN";
+            case TYPE_DESIGNATED_TIMESTAMP:
+                return "DESIGNATED_TIMESTAMP";
+            case TYPE_DOUBLE:
+                return "DOUBLE";
+            case TYPE_LONG:
+                return "LONG";
+            case TYPE_STRING:
+                return "STRING";
+            case TYPE_SYMBOL:
+                return "SYMBOL";
+            case TYPE_TIMESTAMP:
+                return "TIMESTAMP";
+            default:
+                return "UNKNOWN";
+        }
+    }
+
+    public static int valueSize(byte type) {
+        switch (type) {
+            case TYPE_BOOLEAN:
+                return Byte.BYTES;
+            case TYPE_STRING:
+            case TYPE_SYMBOL:
+                return Integer.BYTES;
+            default:
+                return Long.BYTES;
+        }
+    }
+}
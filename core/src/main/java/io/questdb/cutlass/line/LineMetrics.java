@@ -38,6 +38,9 @@ public class LineMetrics implements Mutable {
     private final LongGauge tcpConnectionCountGauge;
     private final LongGauge totalIlpHttpBytesGauge;
     private final LongGauge totalIlpTcpBytesGauge;
+    private final LongGauge walApplyLagGauge;
+    private final Counter walApplyLagThrottleCounter;
+    private final Counter walApplyLagThrottleMillisCounter;
 
     public LineMetrics(MetricsRegistry metricsRegistry) {
         this.httpConnectionCountGauge = metricsRegistry.newAtomicLongGauge("line_http_connections");
@@ -46,6 +49,9 @@ public class LineMetrics implements Mutable {
         this.totalIlpHttpBytesGauge = metricsRegistry.newLongGauge("line_http_recv_bytes");
         this.aboveMaxConnectionCountCounter = metricsRegistry.newCounter("line_tcp_above_max_connection_count");
         this.belowMaxConnectionCountCounter = metricsRegistry.newCounter("line_tcp_below_max_connection_count");
+        this.walApplyLagGauge = metricsRegistry.newLongGauge("line_wal_apply_lag_txns");
+        this.walApplyLagThrottleCounter = metricsRegistry.newCounter("line_wal_apply_lag_throttled");
+        this.walApplyLagThrottleMillisCounter = metricsRegistry.newCounter("line_wal_apply_lag_throttle_millis");
     }
 
     public Counter aboveMaxConnectionCountCounter() {
@@ -64,6 +70,9 @@ public class LineMetrics implements Mutable {
         totalIlpHttpBytesGauge.setValue(0);
         aboveMaxConnectionCountCounter.reset();
         belowMaxConnectionCountCounter.reset();
+        walApplyLagGauge.setValue(0);
+        walApplyLagThrottleCounter.reset();
+        walApplyLagThrottleMillisCounter.reset();
     }
 
     public AtomicLongGauge httpConnectionCountGauge() {
@@ -81,4 +90,26 @@ public class LineMetrics implements Mutable {
     public LongGauge totalIlpTcpBytesGauge() {
         return totalIlpTcpBytesGauge;
     }
+
+    /**
+     * WAL apply lag, in transactions, of the table that last made ILP apply back-pressure.
+     */
+    public LongGauge walApplyLagGauge() {
+        return walApplyLagGauge;
+    }
+
+    /**
+     * Number of times ILP applied back-pressure because of WAL apply lag: ILP/TCP read pauses
+     * and rejected ILP/HTTP requests.
+     */
+    public Counter walApplyLagThrottleCounter() {
+        return walApplyLagThrottleCounter;
+    }
+
+    /**
+     * Total time ILP/TCP connections spent paused because of WAL apply lag.
+     */
+    public Counter walApplyLagThrottleMillisCounter() {
+        return walApplyLagThrottleMillisCounter;
+    }
 }
@@ -0,0 +1,372 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.http;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cutlass.line.LineColumnarFormat;
+import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.std.CharSequenceIntHashMap;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Utf8Sink;
+import io.questdb.std.str.Utf8StringSink;
+
+/**
+ * Accumulates rows as per-table column vectors and encodes them in the columnar
+ * ILP format, see {@link LineColumnarFormat}. Columns missing from a row are padded
+ * with nulls, so that every column vector of a table block has the same row count.
+ */
+public class LineColumnarBatch implements QuietCloseable {
+    private static final int PAGE_SIZE = 64 * 1024;
+    private final MemoryCARW encodeMem = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_ILP_RSS);
+    private final ObjList<TableBatch> tables = new ObjList<>();
+    private final CharSequenceObjHashMap<TableBatch> tablesByName = new CharSequenceObjHashMap<>();
+    private final Utf8StringSink utf8Sink = new Utf8StringSink();
+    private TableBatch currentTable;
+
+    public void at(long timestampMicros) {
+        currentTable.timestamps.prepare(currentTable.rowCount);
+        currentTable.timestamps.values.putLong(timestampMicros);
+        currentTable.rowCount++;
+        currentTable = null;
+    }
+
+    public void boolColumn(CharSequence name, boolean value) {
+        final ColumnBatch column = currentTable.column(name, LineColumnarFormat.TYPE_BOOLEAN);
+        if (column.prepare(currentTable.rowCount)) {
+            column.values.putBool(value);
+        }
+    }
+
+    public void cancelRow() {
+        if (currentTable != null) {
+            currentTable.truncate();
+            currentTable = null;
+        }
+    }
+
+    public void clear() {
+        for (int i = 0, n = tables.size(); i < n; i++) {
+            tables.getQuick(i).clear();
+        }
+        currentTable = null;
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjListAndClear(tables);
+        tablesByName.clear();
+        Misc.free(encodeMem);
+    }
+
+    public void doubleColumn(CharSequence name, double value) {
+        final ColumnBatch column = currentTable.column(name, LineColumnarFormat.TYPE_DOUBLE);
+        if (column.prepare(currentTable.rowCount)) {
+            column.values.putDouble(value);
+        }
+    }
+
+    /**
+     * Writes a block per table with pending rows to the sink. The batch is left intact,
+     * call {@link #clear()} once the encoded content is no longer needed.
+     */
+    public void encode(Utf8Sink sink) {
+        encodeMem.jumpTo(0);
+        for (int i = 0, n = tables.size(); i < n; i++) {
+            final TableBatch table = tables.getQuick(i);
+            if (table.rowCount > 0) {
+                table.encode(encodeMem, utf8Sink);
+            }
+        }
+        final long size = encodeMem.getAppendOffset();
+        if (size > 0) {
+            final long lo = encodeMem.addressOf(0);
+            sink.putNonAscii(lo, lo + size);
+        }
+    }
+
+    public void longColumn(CharSequence name, long value) {
+        final ColumnBatch column = currentTable.column(name, LineColumnarFormat.TYPE_LONG);
+        if (column.prepare(currentTable.rowCount)) {
+            column.values.putLong(value);
+        }
+    }
+
+    public void stringColumn(CharSequence name, CharSequence value) {
+        final ColumnBatch column = currentTable.column(name, LineColumnarFormat.TYPE_STRING);
+        if (column.prepare(currentTable.rowCount)) {
+            utf8Sink.clear();
+            utf8Sink.put(value);
+            column.values.putInt(utf8Sink.size());
+            putBytes(column.data, utf8Sink);
+        }
+    }
+
+    public void symbol(CharSequence name, CharSequence value) {
+        final ColumnBatch column = currentTable.column(name, LineColumnarFormat.TYPE_SYMBOL);
+        if (column.prepare(currentTable.rowCount)) {
+            final int index = column.dictionary.keyIndex(value);
+            int key;
+            if (index > -1) {
+                key = column.dictionary.size();
+                column.dictionary.putAt(index, value.toString(), key);
+                utf8Sink.clear();
+                utf8Sink.put(value);
+                column.data.putInt(utf8Sink.size());
+                putBytes(column.data, utf8Sink);
+            } else {
+                key = column.dictionary.valueAt(index);
+            }
+            column.values.putInt(key);
+        }
+    }
+
+    public void table(CharSequence name) {
+        TableBatch table = tablesByName.get(name);
+        if (table == null) {
+            table = new TableBatch(name.toString());
+            tables.add(table);
+            tablesByName.put(table.name, table);
+        }
+        currentTable = table;
+    }
+
+    public void timestampColumn(CharSequence name, long valueMicros) {
+        final ColumnBatch column = currentTable.column(name, LineColumnarFormat.TYPE_TIMESTAMP);
+        if (column.prepare(currentTable.rowCount)) {
+            column.values.putLong(valueMicros);
+        }
+    }
+
+    private static void putBytes(MemoryCARW mem, Utf8StringSink sink) {
+        for (int i = 0, n = sink.size(); i < n; i++) {
+            mem.putByte(sink.byteAt(i));
+        }
+    }
+
+    private static void putName(MemoryCARW mem, Utf8StringSink sink, CharSequence name) {
+        sink.clear();
+        sink.put(name);
+        mem.putInt(sink.size());
+        putBytes(mem, sink);
+    }
+
+    private static class ColumnBatch implements QuietCloseable {
+        private final MemoryCARW data;
+        private final CharSequenceIntHashMap dictionary;
+        private final String name;
+        private final byte type;
+        private final int valueSize;
+        private final MemoryCARW values = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_ILP_RSS);
+        private int size;
+
+        private ColumnBatch(String name, byte type) {
+            this.name = name;
+            this.type = type;
+            this.valueSize = LineColumnarFormat.valueSize(type);
+            if (type == LineColumnarFormat.TYPE_STRING || type == LineColumnarFormat.TYPE_SYMBOL) {
+                // string bytes or the encoded symbol dictionary
+                this.data = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_ILP_RSS);
+            } else {
+                this.data = null;
+            }
+            this.dictionary = type == LineColumnarFormat.TYPE_SYMBOL ? new CharSequenceIntHashMap() : null;
+        }
+
+        @Override
+        public void close() {
+            Misc.free(values);
+            Misc.free(data);
+        }
+
+        private void clear() {
+            values.jumpTo(0);
+            if (data != null) {
+                data.jumpTo(0);
+            }
+            if (dictionary != null) {
+                dictionary.clear();
+            }
+            size = 0;
+        }
+
+        private void encode(MemoryCARW mem, Utf8StringSink sink, int rowCount) {
+            pad(rowCount);
+            if (type == LineColumnarFormat.TYPE_DESIGNATED_TIMESTAMP) {
+                mem.putInt(0);
+            } else {
+                putName(mem, sink, name);
+            }
+            mem.putByte(type);
+            switch (type) {
+                case LineColumnarFormat.TYPE_SYMBOL:
+                    mem.putInt(dictionary.size());
+                    putBlock(mem, data, data.getAppendOffset());
+                    putBlock(mem, values, (long) rowCount * valueSize);
+                    break;
+                case LineColumnarFormat.TYPE_STRING:
+                    putBlock(mem, values, (long) rowCount * valueSize);
+                    mem.putInt((int) data.getAppendOffset());
+                    putBlock(mem, data, data.getAppendOffset());
+                    break;
+                default:
+                    putBlock(mem, values, (long) rowCount * valueSize);
+                    break;
+            }
+        }
+
+        private void pad(int rowCount) {
+            while (size < rowCount) {
+                putNull();
+                size++;
+            }
+        }
+
+        // pads the vector up to the row and reports whether the row still lacks a value
+        private boolean prepare(int row) {
+            if (size > row) {
+                // the column is repeated in the row, the first value wins
+                return false;
+            }
+            pad(row);
+            size++;
+            return true;
+        }
+
+        private void putBlock(MemoryCARW mem, MemoryCARW block, long len) {
+            if (len > 0) {
+                mem.putBlockOfBytes(block.addressOf(0), len);
+            }
+        }
+
+        private void putNull() {
+            switch (type) {
+                case LineColumnarFormat.TYPE_BOOLEAN:
+                    values.putByte((byte) 0);
+                    break;
+                case LineColumnarFormat.TYPE_DOUBLE:
+                    values.putDouble(Double.NaN);
+                    break;
+                case LineColumnarFormat.TYPE_STRING:
+                case LineColumnarFormat.TYPE_SYMBOL:
+                    values.putInt(LineColumnarFormat.NULL_LENGTH);
+                    break;
+                default:
+                    values.putLong(Long.MIN_VALUE);
+                    break;
+            }
+        }
+
+        private void truncate(int rowCount) {
+            if (size <= rowCount) {
+                return;
+            }
+            if (type == LineColumnarFormat.TYPE_STRING) {
+                long dataSize = 0;
+                for (int i = 0; i < rowCount; i++) {
+                    dataSize += Math.max(0, Unsafe.getUnsafe().getInt(values.addressOf((long) i * valueSize)));
+                }
+                data.jumpTo(dataSize);
+            }
+            // dictionary entries of the cancelled row stay, they are harmless
+            values.jumpTo((long) rowCount * valueSize);
+            size = rowCount;
+        }
+    }
+
+    private static class TableBatch implements QuietCloseable {
+        private final ObjList<ColumnBatch> columns = new ObjList<>();
+        private final CharSequenceObjHashMap<ColumnBatch> columnsByName = new CharSequenceObjHashMap<>();
+        private final String name;
+        private final ColumnBatch timestamps = new ColumnBatch("", LineColumnarFormat.TYPE_DESIGNATED_TIMESTAMP);
+        private int rowCount;
+
+        private TableBatch(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void close() {
+            Misc.freeObjListAndClear(columns);
+            columnsByName.clear();
+            Misc.free(timestamps);
+        }
+
+        private void clear() {
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                columns.getQuick(i).clear();
+            }
+            timestamps.clear();
+            rowCount = 0;
+        }
+
+        private ColumnBatch column(CharSequence name, byte type) {
+            ColumnBatch column = columnsByName.get(name);
+            if (column == null) {
+                column = new ColumnBatch(name.toString(), type);
+                columns.add(column);
+                columnsByName.put(column.name, column);
+            } else if (column.type != type) {
+                throw new LineSenderException("column type cannot change within a batch [table=").put(this.name)
+                        .put(", column=").put(name).put(']');
+            }
+            return column;
+        }
+
+        private void encode(MemoryCARW mem, Utf8StringSink sink) {
+            final long blockOffset = mem.getAppendOffset();
+            mem.putInt(0);
+            putName(mem, sink, name);
+            mem.putInt(rowCount);
+            final long columnCountOffset = mem.getAppendOffset();
+            mem.putInt(0);
+            int columnCount = 0;
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                final ColumnBatch column = columns.getQuick(i);
+                // columns not seen since the last flush are left out
+                if (column.size > 0) {
+                    column.encode(mem, sink, rowCount);
+                    columnCount++;
+                }
+            }
+            timestamps.encode(mem, sink, rowCount);
+            columnCount++;
+            mem.putInt(columnCountOffset, columnCount);
+            mem.putInt(blockOffset, (int) (mem.getAppendOffset() - blockOffset - Integer.BYTES));
+        }
+
+        private void truncate() {
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                columns.getQuick(i).truncate(rowCount);
+            }
+            timestamps.truncate(rowCount);
+        }
+    }
+}
@@ -38,10 +38,13 @@ import io.questdb.cutlass.http.client.Response;
 import io.questdb.cutlass.json.JsonException;
 import io.questdb.cutlass.json.JsonLexer;
 import io.questdb.cutlass.json.JsonParser;
+import io.questdb.cutlass.line.LineColumnarFormat;
 import io.questdb.cutlass.line.LineSenderException;
 import io.questdb.std.Chars;
 import io.questdb.std.Misc;
 import io.questdb.std.NanosecondClockImpl;
+import io.questdb.std.Numbers;
+import io.questdb.std.NumericException;
 import io.questdb.std.Os;
 import io.questdb.std.Rnd;
 import io.questdb.std.datetime.microtime.MicrosecondClockImpl;
@@ -64,6 +67,8 @@ public final class LineHttpSender implements Sender {
     private final String authToken;
     private final int autoFlushRows;
     private final int baseTimeoutMillis;
+    // null unless the sender speaks the columnar protocol
+    private final LineColumnarBatch columnarBatch;
     private final long flushIntervalNanos;
     private final String host;
     private final long maxRetriesNanos;
@@ -127,6 +132,38 @@ public final class LineHttpSender implements Sender {
             long maxRetriesNanos,
             long minRequestThroughput,
             long flushIntervalNanos
+    ) {
+        this(
+                host,
+                port,
+                path,
+                clientConfiguration,
+                tlsConfig,
+                autoFlushRows,
+                authToken,
+                username,
+                password,
+                maxRetriesNanos,
+                minRequestThroughput,
+                flushIntervalNanos,
+                LineColumnarFormat.PROTOCOL_VERSION_V1
+        );
+    }
+
+    public LineHttpSender(
+            String host,
+            int port,
+            String path,
+            HttpClientConfiguration clientConfiguration,
+            ClientTlsConfiguration tlsConfig,
+            int autoFlushRows,
+            String authToken,
+            String username,
+            String password,
+            long maxRetriesNanos,
+            long minRequestThroughput,
+            long flushIntervalNanos,
+            int protocolVersion
     ) {
         assert authToken == null || (username == null && password == null);
         this.maxRetriesNanos = maxRetriesNanos;
@@ -148,11 +185,16 @@ public final class LineHttpSender implements Sender {
             this.url = "http://" + host + ":" + port + this.path;
         }
         this.questdbVersion = new BuildInformationHolder().getSwVersion();
+        this.columnarBatch = protocolVersion == LineColumnarFormat.PROTOCOL_VERSION_V2 ? new LineColumnarBatch() : null;
         this.request = newRequest();
     }
 
     @Override
     public void at(long timestamp, ChronoUnit unit) {
+        if (columnarBatch != null) {
+            completeColumnarRow(Timestamps.toMicros(timestamp, unit));
+            return;
+        }
         request.putAscii(' ').put(Timestamps.toMicros(timestamp, unit)).put('t');
         atNow();
     }
@@ -160,12 +202,21 @@ public final class LineHttpSender implements Sender {
     @Override
     public void at(Instant timestamp) {
         long micros = timestamp.getEpochSecond() * Timestamps.SECOND_MICROS + timestamp.getNano() / 1_000;
+        if (columnarBatch != null) {
+            completeColumnarRow(micros);
+            return;
+        }
         request.putAscii(' ').put(micros).put('t');
         atNow();
     }
 
     @Override
     public void atNow() {
+        if (columnarBatch != null) {
+            // the server substitutes its own clock for the null timestamp
+            completeColumnarRow(Long.MIN_VALUE);
+            return;
+        }
         switch (state) {
             case EMPTY:
                 throw new LineSenderException("no table name was provided");
@@ -185,6 +236,11 @@ public final class LineHttpSender implements Sender {
 
     @Override
     public Sender boolColumn(CharSequence name, boolean value) {
+        if (columnarBatch != null) {
+            beginColumn(name);
+            columnarBatch.boolColumn(name, value);
+            return this;
+        }
         writeFieldName(name);
         request.put(value ? 't' : 'f');
         return this;
@@ -193,7 +249,11 @@ public final class LineHttpSender implements Sender {
     @Override
     public void cancelRow() {
         validateNotClosed();
-        request.trimContentToLen(rowBookmark);
+        if (columnarBatch != null) {
+            columnarBatch.cancelRow();
+        } else {
+            request.trimContentToLen(rowBookmark);
+        }
         state = RequestState.EMPTY;
     }
 
@@ -210,6 +270,7 @@ public final class LineHttpSender implements Sender {
             }
         } finally {
             Misc.free(jsonErrorParser);
+            Misc.free(columnarBatch);
             closed = true;
             client = Misc.free(client);
         }
@@ -217,6 +278,11 @@ public final class LineHttpSender implements Sender {
 
     @Override
     public Sender doubleColumn(CharSequence name, double value) {
+        if (columnarBatch != null) {
+            beginColumn(name);
+            columnarBatch.doubleColumn(name, value);
+            return this;
+        }
         writeFieldName(name);
         request.put(value);
         return this;
@@ -229,6 +295,11 @@ public final class LineHttpSender implements Sender {
 
     @Override
     public Sender longColumn(CharSequence name, long value) {
+        if (columnarBatch != null) {
+            beginColumn(name);
+            columnarBatch.longColumn(name, value);
+            return this;
+        }
         writeFieldName(name);
         request.put(value);
         request.put('i');
@@ -246,6 +317,11 @@ public final class LineHttpSender implements Sender {
 
     @Override
     public Sender stringColumn(CharSequence name, CharSequence value) {
+        if (columnarBatch != null) {
+            beginColumn(name);
+            columnarBatch.stringColumn(name, value);
+            return this;
+        }
         writeFieldName(name);
         request.put('"');
         escapeString(value);
@@ -265,10 +341,14 @@ public final class LineHttpSender implements Sender {
                 // fall through
             case ADDING_SYMBOLS:
                 validateColumnName(name);
-                request.putAscii(',');
-                escapeQuotedString(name);
-                request.putAscii('=');
-                escapeQuotedString(value);
+                if (columnarBatch != null) {
+                    columnarBatch.symbol(name, value);
+                } else {
+                    request.putAscii(',');
+                    escapeQuotedString(name);
+                    request.putAscii('=');
+                    escapeQuotedString(value);
+                }
                 state = RequestState.ADDING_SYMBOLS;
                 break;
             default:
@@ -289,12 +369,21 @@ public final class LineHttpSender implements Sender {
             throw new LineSenderException("table name cannot be empty");
         }
         state = RequestState.TABLE_NAME_SET;
-        escapeQuotedString(table);
+        if (columnarBatch != null) {
+            columnarBatch.table(table);
+        } else {
+            escapeQuotedString(table);
+        }
         return this;
     }
 
     @Override
     public Sender timestampColumn(CharSequence name, long value, ChronoUnit unit) {
+        if (columnarBatch != null) {
+            beginColumn(name);
+            columnarBatch.timestampColumn(name, Timestamps.toMicros(value, unit));
+            return this;
+        }
         // micros
         writeFieldName(name).put(Timestamps.toMicros(value, unit)).put('t');
         return this;
@@ -302,6 +391,11 @@ public final class LineHttpSender implements Sender {
 
     @Override
     public Sender timestampColumn(CharSequence name, Instant value) {
+        if (columnarBatch != null) {
+            beginColumn(name);
+            columnarBatch.timestampColumn(name, value.getEpochSecond() * Timestamps.SECOND_MICROS + value.getNano() / 1000L);
+            return this;
+        }
         // micros
         writeFieldName(name).put((value.getEpochSecond() * Timestamps.SECOND_MICROS + value.getNano() / 1000L)).put('t');
         return this;
@@ -318,6 +412,18 @@ public final class LineHttpSender implements Sender {
         }
     }
 
+    private static long getRetryAfterMillis(HttpClient.ResponseHeaders response) {
+        DirectUtf8Sequence retryAfter = response.getHeader(HttpConstants.HEADER_RETRY_AFTER);
+        if (retryAfter != null) {
+            try {
+                return Math.max(0, Numbers.parseLong(retryAfter)) * 1000L;
+            } catch (NumericException ignore) {
+                // an HTTP date is not supported, use the default backoff
+            }
+        }
+        return 0;
+    }
+
     private static boolean isSuccessResponse(DirectUtf8Sequence statusCode) {
         return statusCode != null && statusCode.size() == 3 && statusCode.byteAt(0) == '2';
     }
@@ -334,6 +440,35 @@ public final class LineHttpSender implements Sender {
         return Math.min(RETRY_MAX_BACKOFF_MS, backoff * RETRY_BACKOFF_MULTIPLIER);
     }
 
+    private void beginColumn(CharSequence name) {
+        validateColumnName(name);
+        switch (state) {
+            case EMPTY:
+                throw new LineSenderException("table name must be set first");
+            case ADDING_SYMBOLS:
+            case TABLE_NAME_SET:
+                state = RequestState.ADDING_COLUMNS;
+                break;
+        }
+    }
+
+    private void completeColumnarRow(long timestampMicros) {
+        switch (state) {
+            case EMPTY:
+                throw new LineSenderException("no table name was provided");
+            case TABLE_NAME_SET:
+                throw new LineSenderException("no symbols or columns were provided");
+            case ADDING_SYMBOLS:
+            case ADDING_COLUMNS:
+                columnarBatch.at(timestampMicros);
+                state = RequestState.EMPTY;
+                break;
+        }
+        if (rowAdded()) {
+            flush();
+        }
+    }
+
     private void consumeChunkedResponse(HttpClient.ResponseHeaders response) {
         if (!response.isChunked()) {
             return;
@@ -387,6 +522,12 @@ public final class LineHttpSender implements Sender {
         if (pendingRows == 0) {
             return;
         }
+        if (columnarBatch != null) {
+            // a row left unfinished on close is not sent
+            columnarBatch.cancelRow();
+            columnarBatch.encode(request);
+            columnarBatch.clear();
+        }
 
         long retryingDeadlineNanos = Long.MIN_VALUE;
         int retryBackoff = RETRY_INITIAL_BACKOFF_MS;
@@ -427,8 +568,10 @@ public final class LineHttpSender implements Sender {
                     if (nowNanos >= retryingDeadlineNanos) {
                         throwOnHttpErrorResponse(statusCode, response);
                     }
+                    // the server may ask to back off for longer, e.g. while the table is catching up on WAL apply
+                    int retryAfterMillis = (int) Math.min(getRetryAfterMillis(response), (retryingDeadlineNanos - nowNanos) / 1_000_000L);
                     client.disconnect(); // forces reconnect, just in case
-                    retryBackoff = backoff(retryBackoff);
+                    retryBackoff = backoff(Math.max(retryBackoff, retryAfterMillis));
                     continue;
                 }
                 throwOnHttpErrorResponse(statusCode, response);
@@ -453,7 +596,14 @@ public final class LineHttpSender implements Sender {
     }
 
     private boolean isRetryableHttpStatus(DirectUtf8Sequence statusCode) {
-        if (statusCode == null || statusCode.size() != 3 || statusCode.byteAt(0) != '5') {
+        if (statusCode == null || statusCode.size() != 3) {
+            return false;
+        }
+        if (statusCode.byteAt(0) == '4') {
+            // 429: Too Many Requests
+            return statusCode.byteAt(1) == '2' && statusCode.byteAt(2) == '9';
+        }
+        if (statusCode.byteAt(0) != '5') {
             return false;
         }
 
@@ -489,6 +639,9 @@ public final class LineHttpSender implements Sender {
         } else if (authToken != null) {
             r.authToken(null, authToken);
         }
+        if (columnarBatch != null) {
+            r.header("Content-Type", LineColumnarFormat.CONTENT_TYPE);
+        }
         r.withContent();
         rowBookmark = r.getContentLength();
         return r;
@@ -179,6 +179,16 @@ public class DefaultLineTcpReceiverConfiguration extends DefaultIODispatcherConf
         return LineTcpTimestampAdapter.DEFAULT_TS_INSTANCE;
     }
 
+    @Override
+    public CharSequence getWalShardColumn() {
+        return null;
+    }
+
+    @Override
+    public long getWalShardRebalanceEventCount() {
+        return 100_000;
+    }
+
     @Override
     public long getWriterIdleTimeout() {
         return 30_000;
@@ -0,0 +1,276 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cutlass.line.LineColumnarFormat;
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.DirectUtf8Sequence;
+import io.questdb.std.str.DirectUtf8String;
+
+/**
+ * Flyweight over a single table block of the columnar ILP format, see {@link LineColumnarFormat}.
+ * The block is validated once in {@link #of(long, long)}, after which the accessors read values
+ * straight from the receive buffer without further bounds checks.
+ */
+public class LineColumnarParser implements Mutable {
+    private final ObjList<Column> columns = new ObjList<>();
+    private final DirectUtf8String tableName = new DirectUtf8String();
+    private int columnCount;
+    private long hi;
+    private long p;
+    private int rowCount;
+    private int timestampIndex = -1;
+
+    /**
+     * Returns the size of the block starting at the given address, including the size prefix,
+     * or -1 when the size prefix itself is not in the buffer yet.
+     */
+    public static long getBlockSize(long lo, long hi) {
+        if (hi - lo < Integer.BYTES) {
+            return -1;
+        }
+        final int size = Unsafe.getUnsafe().getInt(lo);
+        if (size < 0) {
+            throw LineProtocolException.malformedColumnarBatch("negative block size");
+        }
+        return Integer.BYTES + (long) size;
+    }
+
+    @Override
+    public void clear() {
+        columnCount = 0;
+        rowCount = 0;
+        timestampIndex = -1;
+        tableName.clear();
+    }
+
+    public boolean getBool(int columnIndex, int row) {
+        return Unsafe.getUnsafe().getByte(columns.getQuick(columnIndex).valuesLo + row) != 0;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public DirectUtf8Sequence getColumnName(int columnIndex) {
+        return columns.getQuick(columnIndex).name;
+    }
+
+    public byte getColumnType(int columnIndex) {
+        return columns.getQuick(columnIndex).type;
+    }
+
+    public double getDouble(int columnIndex, int row) {
+        return Unsafe.getUnsafe().getDouble(columns.getQuick(columnIndex).valuesLo + (long) row * Double.BYTES);
+    }
+
+    public long getLong(int columnIndex, int row) {
+        return Unsafe.getUnsafe().getLong(columns.getQuick(columnIndex).valuesLo + (long) row * Long.BYTES);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the string value or null. The returned flyweight is reused by the next call
+     * for the same column.
+     */
+    public DirectUtf8Sequence getString(int columnIndex, int row) {
+        final Column column = columns.getQuick(columnIndex);
+        final int len = Unsafe.getUnsafe().getInt(column.valuesLo + (long) row * Integer.BYTES);
+        if (len < 0) {
+            return null;
+        }
+        final long lo = column.offsets.getQuick(row);
+        return column.value.of(lo, lo + len);
+    }
+
+    /**
+     * Returns the symbol value or null. The returned flyweight is reused by the next call
+     * for the same column.
+     */
+    public DirectUtf8Sequence getSymbol(int columnIndex, int row) {
+        final Column column = columns.getQuick(columnIndex);
+        final int key = Unsafe.getUnsafe().getInt(column.valuesLo + (long) row * Integer.BYTES);
+        if (key < 0) {
+            return null;
+        }
+        return column.value.of(column.dictionary.getQuick(2 * key), column.dictionary.getQuick(2 * key + 1));
+    }
+
+    public DirectUtf8Sequence getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Index of the designated timestamp column or -1 when the block has none.
+     */
+    public int getTimestampIndex() {
+        return timestampIndex;
+    }
+
+    /**
+     * Address of the value vector of the column.
+     */
+    public long getValuesAddress(int columnIndex) {
+        return columns.getQuick(columnIndex).valuesLo;
+    }
+
+    /**
+     * Parses the block, lo is the address of its size prefix and hi is the end of the block.
+     */
+    public void of(long lo, long hi) {
+        clear();
+        this.p = lo + Integer.BYTES;
+        this.hi = hi;
+        final int tableNameSize = readSize("table name");
+        if (tableNameSize == 0) {
+            throw LineProtocolException.malformedColumnarBatch("empty table name");
+        }
+        final long tableNameLo = readBytes(tableNameSize);
+        tableName.of(tableNameLo, tableNameLo + tableNameSize);
+        rowCount = readSize("row count");
+        final int columnCount = readSize("column count");
+        for (int i = 0; i < columnCount; i++) {
+            final Column column = nextColumn();
+            final int nameSize = readSize("column name");
+            final long nameLo = readBytes(nameSize);
+            column.name.of(nameLo, nameLo + nameSize);
+            column.type = readByte();
+            if (column.type == LineColumnarFormat.TYPE_DESIGNATED_TIMESTAMP) {
+                if (nameSize != 0 || timestampIndex != -1) {
+                    throw LineProtocolException.malformedColumnarBatch("unexpected designated timestamp column");
+                }
+                timestampIndex = i;
+            } else if (nameSize == 0) {
+                throw LineProtocolException.malformedColumnarBatch("empty column name");
+            }
+            parsePayload(column);
+            this.columnCount++;
+        }
+        if (p != hi) {
+            throw LineProtocolException.malformedColumnarBatch("unexpected bytes after the last column");
+        }
+    }
+
+    private Column nextColumn() {
+        if (columnCount < columns.size()) {
+            return columns.getQuick(columnCount);
+        }
+        final Column column = new Column();
+        columns.add(column);
+        return column;
+    }
+
+    private void parsePayload(Column column) {
+        switch (column.type) {
+            case LineColumnarFormat.TYPE_BOOLEAN:
+            case LineColumnarFormat.TYPE_DESIGNATED_TIMESTAMP:
+            case LineColumnarFormat.TYPE_DOUBLE:
+            case LineColumnarFormat.TYPE_LONG:
+            case LineColumnarFormat.TYPE_TIMESTAMP:
+                column.valuesLo = readBytes((long) rowCount * LineColumnarFormat.valueSize(column.type));
+                break;
+            case LineColumnarFormat.TYPE_SYMBOL: {
+                final int dictionarySize = readSize("symbol dictionary");
+                column.dictionary.clear();
+                for (int i = 0; i < dictionarySize; i++) {
+                    final int size = readSize("symbol value");
+                    final long lo = readBytes(size);
+                    column.dictionary.add(lo);
+                    column.dictionary.add(lo + size);
+                }
+                column.valuesLo = readBytes((long) rowCount * Integer.BYTES);
+                for (int row = 0; row < rowCount; row++) {
+                    if (Unsafe.getUnsafe().getInt(column.valuesLo + (long) row * Integer.BYTES) >= dictionarySize) {
+                        throw LineProtocolException.malformedColumnarBatch("symbol key out of dictionary bounds");
+                    }
+                }
+                break;
+            }
+            case LineColumnarFormat.TYPE_STRING: {
+                column.valuesLo = readBytes((long) rowCount * Integer.BYTES);
+                final int dataSize = readSize("string data");
+                final long dataLo = readBytes(dataSize);
+                // resolve the start of each value upfront, so that rows can be read in any order
+                column.offsets.clear();
+                long offset = dataLo;
+                for (int row = 0; row < rowCount; row++) {
+                    column.offsets.add(offset);
+                    offset += Math.max(0, Unsafe.getUnsafe().getInt(column.valuesLo + (long) row * Integer.BYTES));
+                }
+                if (offset != dataLo + dataSize) {
+                    throw LineProtocolException.malformedColumnarBatch("string lengths do not match data size");
+                }
+                break;
+            }
+            default:
+                throw LineProtocolException.malformedColumnarBatch("unknown column type ").put(column.type);
+        }
+    }
+
+    private byte readByte() {
+        if (p + Byte.BYTES > hi) {
+            throw LineProtocolException.malformedColumnarBatch("truncated block");
+        }
+        return Unsafe.getUnsafe().getByte(p++);
+    }
+
+    private long readBytes(long len) {
+        if (hi - p < len) {
+            throw LineProtocolException.malformedColumnarBatch("truncated block");
+        }
+        final long lo = p;
+        p += len;
+        return lo;
+    }
+
+    private int readSize(String what) {
+        if (p + Integer.BYTES > hi) {
+            throw LineProtocolException.malformedColumnarBatch("truncated block");
+        }
+        final int size = Unsafe.getUnsafe().getInt(p);
+        if (size < 0) {
+            throw LineProtocolException.malformedColumnarBatch("negative size of ").put(what);
+        }
+        p += Integer.BYTES;
+        return size;
+    }
+
+    private static class Column {
+        // lo and hi address pairs of the symbol dictionary values
+        private final LongList dictionary = new LongList();
+        private final DirectUtf8String name = new DirectUtf8String();
+        // start address of each string value
+        private final LongList offsets = new LongList();
+        private final DirectUtf8String value = new DirectUtf8String();
+        private byte type;
+        private long valuesLo;
+    }
+}
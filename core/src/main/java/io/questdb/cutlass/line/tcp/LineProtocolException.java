@@ -69,6 +69,11 @@ public class LineProtocolException extends CairoException {
                 .put("; invalid column name: ").put(columnName);
     }
 
+    public static LineProtocolException malformedColumnarBatch(CharSequence reason) {
+        return instance()
+                .put("malformed columnar batch: ").put(reason);
+    }
+
     public static LineProtocolException newColumnsNotAllowed(String columnName, String tableNameUtf16) {
         return instance()
                 .put("table: ").put(tableNameUtf16)
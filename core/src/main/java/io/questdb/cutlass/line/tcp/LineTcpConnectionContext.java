@@ -32,6 +32,7 @@ import io.questdb.cairo.security.DenyAllSecurityContext;
 import io.questdb.cairo.security.SecurityContextFactory;
 import io.questdb.cutlass.auth.AuthenticatorException;
 import io.questdb.cutlass.auth.SocketAuthenticator;
+import io.questdb.cutlass.line.LineMetrics;
 import io.questdb.cutlass.line.tcp.LineTcpParser.ParseResult;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
@@ -78,6 +79,8 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
     private long lastQueueFullLogMillis = 0;
     private long nextCheckIdleTime;
     private long nextCommitTime;
+    // set while reads are paused because a WAL table is too far ahead of the apply job
+    private long walApplyLagThrottleStartMillis = -1;
 
     public LineTcpConnectionContext(LineTcpReceiverConfiguration configuration, LineTcpMeasurementScheduler scheduler) {
         super(
@@ -127,6 +130,9 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         authenticator.clear();
         recvBufStart = recvBufEnd = recvBufPos = Unsafe.free(recvBufStart, recvBufEnd - recvBufStart, MemoryTag.NATIVE_ILP_RSS);
         peerDisconnected = false;
+        if (walApplyLagThrottleStartMillis != -1) {
+            releaseWalApplyLagThrottle();
+        }
         resetParser();
         ObjList<Utf8String> keys = tableUpdateDetailsUtf8.keys();
         for (int n = keys.size() - 1; n >= 0; --n) {
@@ -320,6 +326,13 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         errorRec.$();
     }
 
+    private void releaseWalApplyLagThrottle() {
+        final long throttleMillis = milliClock.getTicks() - walApplyLagThrottleStartMillis;
+        metrics.lineMetrics().walApplyLagThrottleMillisCounter().add(throttleMillis);
+        walApplyLagThrottleStartMillis = -1;
+        LOG.info().$('[').$(getFd()).$("] resuming reads after WAL apply lag [throttleMillis=").$(throttleMillis).I$();
+    }
+
     private void startNewMeasurement() {
         parser.startNextMeasurement();
         recvBufStartOfMeasurement = parser.getBufferAddress();
@@ -335,6 +348,23 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         tableUpdateDetailsUtf8.put(tableNameUtf8, tableUpdateDetails);
     }
 
+    /**
+     * Called by the scheduler when a measurement is held back because the WAL apply job lags behind
+     * the table. The context stops parsing until the measurement is accepted.
+     */
+    void onWalApplyLag(TableUpdateDetails tud) {
+        if (walApplyLagThrottleStartMillis == -1) {
+            walApplyLagThrottleStartMillis = milliClock.getTicks();
+            final long lagTxnCount = tud.getWalApplyLagTxnCount();
+            final LineMetrics lineMetrics = metrics.lineMetrics();
+            lineMetrics.walApplyLagThrottleCounter().inc();
+            lineMetrics.walApplyLagGauge().setValue(lagTxnCount);
+            LOG.info().$('[').$(getFd()).$("] pausing reads, WAL apply is lagging [table=").$(tud.getTableToken())
+                    .$(", lagTxnCount=").$(lagTxnCount)
+                    .I$();
+        }
+    }
+
     /**
      * Moves incompletely received measurement to start of the receive buffer. Also updates the state of the
      * context and protocol parser such that all pointers that point to the incomplete measurement will remain
@@ -382,6 +412,9 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
                                 }
                                 return IOContextResult.QUEUE_FULL;
                             }
+                            if (walApplyLagThrottleStartMillis != -1) {
+                                releaseWalApplyLagThrottle();
+                            }
                         } else {
                             logParseError();
                             goodMeasurement = true;
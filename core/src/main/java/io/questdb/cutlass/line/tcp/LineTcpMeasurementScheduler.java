@@ -89,6 +89,10 @@ public class LineTcpMeasurementScheduler implements Closeable {
     private final ReadWriteLock tableUpdateDetailsLock = new SimpleReadWriteLock();
     private final LowerCaseCharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsUtf16;
     private final Telemetry<TelemetryTask> telemetry;
+    // null when WAL tables are not sharded across writer threads
+    private final Utf8String walShardColumn;
+    private final long walShardRebalanceEventCount;
+    private final ObjList<WalShardRouter> walShardRouters = new ObjList<>();
     private final long writerIdleTimeout;
 
     public LineTcpMeasurementScheduler(
@@ -176,6 +180,9 @@ public class LineTcpMeasurementScheduler implements Closeable {
                     cairoConfiguration.getWalEnabledDefault()
             );
             writerIdleTimeout = lineConfiguration.getWriterIdleTimeout();
+            final CharSequence shardColumn = lineConfiguration.getWalShardColumn();
+            walShardColumn = shardColumn != null && shardColumn.length() > 0 && nWriterThreads > 1 ? new Utf8String(shardColumn) : null;
+            walShardRebalanceEventCount = lineConfiguration.getWalShardRebalanceEventCount();
             lineWalAppender = new LineWalAppender(
                     autoCreateNewColumns,
                     configuration.isStringToCharCastAllowed(),
@@ -205,6 +212,9 @@ public class LineTcpMeasurementScheduler implements Closeable {
             Misc.freeObjList(assignedTables[i]);
             assignedTables[i].clear();
         }
+        // shards that never received a row are not assigned to a writer job
+        Misc.freeObjList(walShardRouters);
+        walShardRouters.clear();
         //noinspection ForLoopReplaceableByForEach
         for (int i = 0, n = queue.length; i < n; i++) {
             Misc.free(queue[i]);
@@ -222,11 +232,18 @@ public class LineTcpMeasurementScheduler implements Closeable {
         for (int n = 0, sz = tableUpdateDetailsUtf8.size(); n < sz; n++) {
             final Utf8String tableNameUtf8 = tableUpdateDetailsUtf8.keys().get(n);
             final TableUpdateDetails tud = tableUpdateDetailsUtf8.get(tableNameUtf8);
+            final WalShardRouter shardRouter = tud.getShardRouter();
+            final long lastMeasurementMillis = shardRouter != null ? shardRouter.getLastMeasurementMillis() : tud.getLastMeasurementMillis();
 
-            if (millis - tud.getLastMeasurementMillis() >= writerIdleTimeout) {
+            if (millis - lastMeasurementMillis >= writerIdleTimeout) {
                 tableUpdateDetailsLock.writeLock().lock();
                 try {
-                    if (tud.getNetworkIOOwnerCount() == 1) {
+                    if (shardRouter != null) {
+                        // sharded tables keep their writers, they are committed by the writer jobs
+                        // on the commit interval, only the IO thread reference is dropped
+                        tableUpdateDetailsUtf8.remove(tableNameUtf8);
+                        shardRouter.removeReference(readerWorkerId);
+                    } else if (tud.getNetworkIOOwnerCount() == 1) {
                         final int writerWorkerId = tud.getWriterThreadId();
                         final long seq = getNextPublisherEventSequence(writerWorkerId);
                         if (seq > -1) {
@@ -325,6 +342,28 @@ public class LineTcpMeasurementScheduler implements Closeable {
             throw ex;
         }
 
+        final WalShardRouter shardRouter = tud.getShardRouter();
+        if (shardRouter != null) {
+            tud = shardRouter.route(parser, netIoJob.getWorkerId());
+            if (tud.isWriterInError()) {
+                try {
+                    tud = replaceShard(shardRouter, tud);
+                } catch (EntryUnavailableException ex) {
+                    LOG.info().$("could not get table writer [tableName=").$(measurementName)
+                            .$(", ex=`")
+                            .$(ex.getFlyweightMessage())
+                            .$("`]").$();
+                    return true;
+                }
+            }
+        }
+
+        if (tud.isWalApplyLagging()) {
+            // back-pressure: the context stops reading the socket until the apply job catches up
+            ctx.onWalApplyLag(tud);
+            return true;
+        }
+
         if (tud.isWal()) {
             try {
                 lineWalAppender.appendToWal(securityContext, parser, tud);
@@ -415,7 +454,7 @@ public class LineTcpMeasurementScheduler implements Closeable {
                 final int tudKeyIndex = tableUpdateDetailsUtf16.keyIndex(tableNameUtf16);
                 if (tudKeyIndex < 0) {
                     // it does, which means that table is non-WAL
-                    // we should not have "shared" WAL tables
+                    // the only "shared" WAL tables are the ones sharded across writer threads
                     tud = tableUpdateDetailsUtf16.valueAt(tudKeyIndex);
                 } else {
                     final int status = engine.getTableStatus(path, tableNameUtf16);
@@ -476,7 +515,9 @@ public class LineTcpMeasurementScheduler implements Closeable {
                                     .put(']');
                         }
                         TelemetryTask.store(telemetry, TelemetryOrigin.ILP_TCP, TelemetrySystemEvent.ILP_RESERVE_WRITER);
-                        if (engine.isWalTable(tableToken)) {
+                        if (engine.isWalTable(tableToken) && walShardColumn != null) {
+                            tud = unsafeAssignTableToWriterShards(tudKeyIndex, tableToken, Utf8String.newInstance(tableNameUtf8));
+                        } else if (engine.isWalTable(tableToken)) {
                             // create WAL-oriented TUD and DON'T add it to the global cache
                             tud = new WalTableUpdateDetails(
                                     engine,
@@ -545,6 +586,70 @@ public class LineTcpMeasurementScheduler implements Closeable {
         return tud;
     }
 
+    private TableUpdateDetails replaceShard(WalShardRouter shardRouter, TableUpdateDetails shard) {
+        tableUpdateDetailsLock.writeLock().lock();
+        try {
+            final int shardIndex = shard.getWriterThreadId();
+            final TableUpdateDetails current = shardRouter.getShard(shardIndex);
+            if (current != shard) {
+                // another IO thread replaced the shard already
+                return current;
+            }
+            final TableUpdateDetails replacement = new TableUpdateDetails(
+                    configuration,
+                    engine,
+                    null,
+                    engine.getTableWriterAPI(shard.getTableNameUtf16(), "tcpIlp"),
+                    shardIndex,
+                    netIoJobs,
+                    defaultColumnTypes,
+                    shard.getTableNameUtf8()
+            );
+            shardRouter.replaceShard(shardIndex, replacement);
+            LOG.info().$("replaced shard in error [tableName=").$(shard.getTableToken())
+                    .$(", shard=").$(shardIndex)
+                    .I$();
+            return replacement;
+        } finally {
+            tableUpdateDetailsLock.writeLock().unlock();
+        }
+    }
+
+    @NotNull
+    private TableUpdateDetails unsafeAssignTableToWriterShards(
+            int tudKeyIndex,
+            TableToken tableToken,
+            Utf8String tableNameUtf8
+    ) {
+        final TableUpdateDetails[] shards = new TableUpdateDetails[loadByWriterThread.length];
+        try {
+            for (int i = 0, n = shards.length; i < n; i++) {
+                // every writer thread appends to its own WAL of the table
+                shards[i] = new TableUpdateDetails(
+                        configuration,
+                        engine,
+                        null,
+                        engine.getTableWriterAPI(tableToken, "tcpIlp"),
+                        i,
+                        netIoJobs,
+                        defaultColumnTypes,
+                        tableNameUtf8
+                );
+            }
+        } catch (Throwable th) {
+            for (int i = 0, n = shards.length; i < n; i++) {
+                Misc.free(shards[i]);
+            }
+            throw th;
+        }
+        final WalShardRouter shardRouter = new WalShardRouter(shards, walShardColumn, walShardRebalanceEventCount);
+        walShardRouters.add(shardRouter);
+        final TableUpdateDetails tud = shards[0];
+        tableUpdateDetailsUtf16.putAt(tudKeyIndex, tud.getTableNameUtf16(), tud);
+        LOG.info().$("sharded ").$(tableToken).$(" across ").$(shards.length).$(" writer threads [column=").$(walShardColumn).I$();
+        return tud;
+    }
+
     private void unsafeCalcThreadLoad() {
         Arrays.fill(loadByWriterThread, 0);
         ObjList<CharSequence> tableNames = tableUpdateDetailsUtf16.keys();
@@ -552,6 +657,10 @@ public class LineTcpMeasurementScheduler implements Closeable {
             final CharSequence tableName = tableNames.getQuick(n);
             final TableUpdateDetails stats = tableUpdateDetailsUtf16.get(tableName);
             if (stats != null) {
+                if (stats.getShardRouter() != null) {
+                    stats.getShardRouter().addLoad(loadByWriterThread);
+                    continue;
+                }
                 loadByWriterThread[stats.getWriterThreadId()] += stats.getEventsProcessedSinceReshuffle();
             } else {
                 LOG.error().$("could not find statistic for table [name=").$(tableName).I$();
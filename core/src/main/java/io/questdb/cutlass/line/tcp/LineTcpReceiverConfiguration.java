@@ -88,6 +88,22 @@ public interface LineTcpReceiverConfiguration extends IODispatcherConfiguration
 
     LineTcpTimestampAdapter getTimestampAdapter();
 
+    /**
+     * Name of the symbol column used to shard rows of WAL tables across the writer threads.
+     * Each writer thread appends its share of the rows via its own WAL writer.
+     *
+     * @return column name or null when sharding is disabled
+     */
+    CharSequence getWalShardColumn();
+
+    /**
+     * Number of routed rows after which the shard slots of a WAL table are rebalanced
+     * between the writer threads.
+     *
+     * @return event count
+     */
+    long getWalShardRebalanceEventCount();
+
     long getWriterIdleTimeout();
 
     int getWriterQueueCapacity();
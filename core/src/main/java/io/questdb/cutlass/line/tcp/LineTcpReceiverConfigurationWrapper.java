@@ -284,6 +284,16 @@ public class LineTcpReceiverConfigurationWrapper implements LineTcpReceiverConfi
         return getDelegate().getTimestampAdapter();
     }
 
+    @Override
+    public CharSequence getWalShardColumn() {
+        return getDelegate().getWalShardColumn();
+    }
+
+    @Override
+    public long getWalShardRebalanceEventCount() {
+        return getDelegate().getWalShardRebalanceEventCount();
+    }
+
     @Override
     public long getWriterIdleTimeout() {
         return getDelegate().getWriterIdleTimeout();
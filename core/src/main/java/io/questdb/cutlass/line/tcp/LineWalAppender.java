@@ -26,6 +26,7 @@ package io.questdb.cutlass.line.tcp;
 
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.TableRecordMetadata;
+import io.questdb.cutlass.line.LineColumnarFormat;
 import io.questdb.cutlass.line.LineTcpTimestampAdapter;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
@@ -43,6 +44,7 @@ import static io.questdb.cutlass.line.tcp.TableUpdateDetails.ThreadLocalDetails.
 public class LineWalAppender {
     private static final Log LOG = LogFactory.getLog(LineWalAppender.class);
     private final boolean autoCreateNewColumns;
+    private final ColumnVectorBatch columnBatch = new ColumnVectorBatch();
     private final int maxFileNameLength;
     private final MicrosecondClock microsecondClock;
     private final boolean stringToCharCastAllowed;
@@ -72,6 +74,26 @@ public class LineWalAppender {
         }
     }
 
+    /**
+     * Appends all rows of a columnar block. Values are read typed from the column vectors,
+     * nothing is parsed from text. Columns are resolved once per block rather than per row.
+     */
+    public void appendToWal(
+            SecurityContext securityContext,
+            LineColumnarParser parser,
+            TableUpdateDetails tud
+    ) throws CommitFailedException {
+        while (!tud.isDropped()) {
+            try {
+                appendToWal0(securityContext, parser, tud);
+                break;
+            } catch (MetadataChangedException e) {
+                // do another retry, metadata has changed while resolving the columns,
+                // no rows have been appended yet
+            }
+        }
+    }
+
     public void setTimestampAdapter(byte precision) {
         switch (precision) {
             case LineTcpParser.ENTITY_UNIT_NANO:
@@ -97,6 +119,209 @@ public class LineWalAppender {
         }
     }
 
+    // true when the columnar vector holds the values in the storage format of the column
+    private static boolean isStorageType(byte columnarType, int columnType) {
+        switch (columnarType) {
+            case LineColumnarFormat.TYPE_BOOLEAN:
+                return columnType == ColumnType.BOOLEAN;
+            case LineColumnarFormat.TYPE_DOUBLE:
+                return columnType == ColumnType.DOUBLE;
+            case LineColumnarFormat.TYPE_LONG:
+                return columnType == ColumnType.LONG;
+            case LineColumnarFormat.TYPE_TIMESTAMP:
+                return columnType == ColumnType.TIMESTAMP;
+            default:
+                return false;
+        }
+    }
+
+    private static byte toEntityType(byte columnarType) {
+        switch (columnarType) {
+            case LineColumnarFormat.TYPE_BOOLEAN:
+                return LineTcpParser.ENTITY_TYPE_BOOLEAN;
+            case LineColumnarFormat.TYPE_DOUBLE:
+                return LineTcpParser.ENTITY_TYPE_FLOAT;
+            case LineColumnarFormat.TYPE_LONG:
+                return LineTcpParser.ENTITY_TYPE_INTEGER;
+            case LineColumnarFormat.TYPE_STRING:
+                return LineTcpParser.ENTITY_TYPE_STRING;
+            case LineColumnarFormat.TYPE_SYMBOL:
+                return LineTcpParser.ENTITY_TYPE_SYMBOL;
+            default:
+                return LineTcpParser.ENTITY_TYPE_TIMESTAMP;
+        }
+    }
+
+    // creates the column last reported as COLUMN_NOT_FOUND by the thread local details
+    private void addNewColumn(
+            SecurityContext securityContext,
+            TableUpdateDetails tud,
+            TableUpdateDetails.ThreadLocalDetails ld,
+            TableWriterAPI writer,
+            TableRecordMetadata metadata,
+            byte entityType
+    ) throws MetadataChangedException {
+        final String columnNameUtf16 = ld.getColNameUtf16();
+        if (autoCreateNewColumns && TableUtils.isValidColumnName(columnNameUtf16, maxFileNameLength)) {
+            int columnWriterIndex = metadata.getColumnIndexQuiet(columnNameUtf16);
+            if (columnWriterIndex < 0) {
+                securityContext.authorizeAlterTableAddColumn(writer.getTableToken());
+                try {
+                    int newColumnType = ld.getColumnType(ld.getColNameUtf8(), entityType);
+                    writer.addColumn(columnNameUtf16, newColumnType, securityContext);
+                    columnWriterIndex = metadata.getWriterIndex(metadata.getColumnIndexQuiet(columnNameUtf16));
+                    // Add the column to metadata cache too
+                    ld.addColumn(columnNameUtf16, columnWriterIndex, newColumnType);
+                } catch (CairoException e) {
+                    columnWriterIndex = metadata.getColumnIndexQuiet(columnNameUtf16);
+                    if (columnWriterIndex < 0) {
+                        // the column is still not there, something must be wrong
+                        throw e;
+                    }
+                    // all good, someone added the column concurrently
+                }
+            }
+            if (ld.getMetadataVersion() != writer.getMetadataVersion()) {
+                throw MetadataChangedException.INSTANCE;
+            }
+            ld.addColumnType(columnWriterIndex, metadata.getColumnType(columnWriterIndex));
+        } else if (!autoCreateNewColumns) {
+            throw newColumnsNotAllowed(columnNameUtf16, tud.getTableNameUtf16());
+        } else {
+            throw invalidColNameError(columnNameUtf16, tud.getTableNameUtf16());
+        }
+    }
+
+    // Copies the block vectors straight into the WAL columns when every value can be stored
+    // as is: the column types match exactly and all designated timestamps are present and valid.
+    // Otherwise returns false and the block goes down the row by row path.
+    private boolean appendColumnBatch(
+            LineColumnarParser parser,
+            TableUpdateDetails.ThreadLocalDetails ld,
+            TableWriterAPI writer
+    ) {
+        final int timestampIndex = parser.getTimestampIndex();
+        final int rowCount = parser.getRowCount();
+        if (timestampIndex < 0 || rowCount == 0) {
+            return false;
+        }
+        for (int row = 0; row < rowCount; row++) {
+            if (parser.getLong(timestampIndex, row) < 0) {
+                // server time or an invalid timestamp, both handled by the row path
+                return false;
+            }
+        }
+
+        columnBatch.of(parser.getValuesAddress(timestampIndex), rowCount);
+        for (int i = 0, n = parser.getColumnCount(); i < n; i++) {
+            final int colTypeAndIndex = ld.getColumnType(i);
+            final int columnIndex = Numbers.decodeHighShort(colTypeAndIndex);
+            if (columnIndex < 0) {
+                continue;
+            }
+            if (!isStorageType(parser.getColumnType(i), Numbers.decodeLowShort(colTypeAndIndex))) {
+                return false;
+            }
+            columnBatch.addColumn(columnIndex, parser.getValuesAddress(i));
+        }
+        writer.appendColumnBatch(columnBatch);
+        return true;
+    }
+
+    private void appendToWal0(
+            SecurityContext securityContext,
+            LineColumnarParser parser,
+            TableUpdateDetails tud
+    ) throws CommitFailedException, MetadataChangedException {
+        final TableUpdateDetails.ThreadLocalDetails ld = tud.getThreadLocalDetails(0); // IO thread id is not relevant
+        ld.resetStateIfNecessary();
+        ld.clearColumnTypes();
+
+        final TableWriterAPI writer = tud.getWriter();
+        assert writer.supportsMultipleWriters();
+        TableRecordMetadata metadata = writer.getMetadata();
+
+        final int timestampIndex = parser.getTimestampIndex();
+        // a column named after the designated timestamp overrides the block timestamp
+        int namedTimestampIndex = -1;
+        final int columnCount = parser.getColumnCount();
+        for (int i = 0; i < columnCount; i++) {
+            if (i == timestampIndex) {
+                ld.addColumnType(DUPLICATED_COLUMN, ColumnType.UNDEFINED);
+                continue;
+            }
+            final DirectUtf8Sequence columnName = parser.getColumnName(i);
+            final int columnWriterIndex = ld.getColumnWriterIndex(columnName, metadata);
+            switch (columnWriterIndex) {
+                default:
+                    final int columnType = metadata.getColumnType(columnWriterIndex);
+                    if (columnType > -1) {
+                        if (columnWriterIndex == tud.getTimestampIndex()) {
+                            if (parser.getColumnType(i) != LineColumnarFormat.TYPE_TIMESTAMP) {
+                                throw castError(tud.getTableNameUtf16(), LineColumnarFormat.nameOf(parser.getColumnType(i)), columnType, columnName);
+                            }
+                            namedTimestampIndex = i;
+                            ld.addColumnType(DUPLICATED_COLUMN, ColumnType.UNDEFINED);
+                        } else {
+                            ld.addColumnType(columnWriterIndex, columnType);
+                        }
+                        break;
+                    } else {
+                        // column has been deleted from the metadata, but it is in our utf8 cache
+                        ld.removeFromCaches(columnName);
+                        // act as if we did not find this column and fall through
+                    }
+                case COLUMN_NOT_FOUND:
+                    addNewColumn(securityContext, tud, ld, writer, metadata, toEntityType(parser.getColumnType(i)));
+                    break;
+                case DUPLICATED_COLUMN:
+                    // indicate to the second loop that writer index does not exist
+                    ld.addColumnType(DUPLICATED_COLUMN, ColumnType.UNDEFINED);
+                    break;
+            }
+        }
+
+        if (namedTimestampIndex < 0 && appendColumnBatch(parser, ld, writer)) {
+            tud.commitIfMaxUncommittedRowsCountReached();
+            return;
+        }
+
+        for (int row = 0, rowCount = parser.getRowCount(); row < rowCount; row++) {
+            long timestamp = timestampIndex > -1 ? parser.getLong(timestampIndex, row) : Numbers.LONG_NULL;
+            if (namedTimestampIndex > -1 && parser.getLong(namedTimestampIndex, row) != Numbers.LONG_NULL) {
+                timestamp = parser.getLong(namedTimestampIndex, row);
+            }
+            if (timestamp == Numbers.LONG_NULL) {
+                timestamp = microsecondClock.getTicks();
+            } else if (timestamp < 0) {
+                throw LineProtocolException.designatedTimestampMustBePositive(tud.getTableNameUtf16(), timestamp);
+            }
+
+            TableWriter.Row r = writer.newRow(timestamp);
+            try {
+                for (int i = 0; i < columnCount; i++) {
+                    int colTypeAndIndex = ld.getColumnType(i);
+                    int columnIndex = Numbers.decodeHighShort(colTypeAndIndex);
+                    if (columnIndex > -1) {
+                        putColumnarValue(r, parser, i, row, Numbers.decodeLowShort(colTypeAndIndex), columnIndex, tud);
+                    }
+                }
+                r.append();
+                tud.commitIfMaxUncommittedRowsCountReached();
+            } catch (CommitFailedException commitFailedException) {
+                throw commitFailedException;
+            } catch (CairoException th) {
+                LOG.error().$("could not write line protocol measurement [tableName=").$(tud.getTableNameUtf16()).$(", message=").$(th.getFlyweightMessage()).I$();
+                r.cancel();
+                throw th;
+            } catch (Throwable th) {
+                LOG.error().$("could not write line protocol measurement [tableName=").$(tud.getTableNameUtf16()).$(", message=").$(th.getMessage()).$(th).I$();
+                r.cancel();
+                throw th;
+            }
+        }
+    }
+
     private void appendToWal0(
             SecurityContext securityContext,
             LineTcpParser parser,
@@ -144,35 +369,7 @@ public class LineWalAppender {
                         // act as if we did not find this column and fall through
                     }
                 case COLUMN_NOT_FOUND:
-                    final String columnNameUtf16 = ld.getColNameUtf16();
-                    if (autoCreateNewColumns && TableUtils.isValidColumnName(columnNameUtf16, maxFileNameLength)) {
-                        columnWriterIndex = metadata.getColumnIndexQuiet(columnNameUtf16);
-                        if (columnWriterIndex < 0) {
-                            securityContext.authorizeAlterTableAddColumn(writer.getTableToken());
-                            try {
-                                int newColumnType = ld.getColumnType(ld.getColNameUtf8(), ent.getType());
-                                writer.addColumn(columnNameUtf16, newColumnType, securityContext);
-                                columnWriterIndex = metadata.getWriterIndex(metadata.getColumnIndexQuiet(columnNameUtf16));
-                                // Add the column to metadata cache too
-                                ld.addColumn(columnNameUtf16, columnWriterIndex, newColumnType);
-                            } catch (CairoException e) {
-                                columnWriterIndex = metadata.getColumnIndexQuiet(columnNameUtf16);
-                                if (columnWriterIndex < 0) {
-                                    // the column is still not there, something must be wrong
-                                    throw e;
-                                }
-                                // all good, someone added the column concurrently
-                            }
-                        }
-                        if (ld.getMetadataVersion() != writer.getMetadataVersion()) {
-                            throw MetadataChangedException.INSTANCE;
-                        }
-                        ld.addColumnType(columnWriterIndex, metadata.getColumnType(columnWriterIndex));
-                    } else if (!autoCreateNewColumns) {
-                        throw newColumnsNotAllowed(columnNameUtf16, tud.getTableNameUtf16());
-                    } else {
-                        throw invalidColNameError(columnNameUtf16, tud.getTableNameUtf16());
-                    }
+                    addNewColumn(securityContext, tud, ld, writer, metadata, ent.getType());
                     break;
                 case DUPLICATED_COLUMN:
                     // indicate to the second loop that writer index does not exist
@@ -431,4 +628,149 @@ public class LineWalAppender {
             throw th;
         }
     }
+
+    // null values are skipped, the row leaves such columns null
+    private void putColumnarValue(
+            TableWriter.Row r,
+            LineColumnarParser parser,
+            int i,
+            int row,
+            int colType,
+            int columnIndex,
+            TableUpdateDetails tud
+    ) {
+        switch (parser.getColumnType(i)) {
+            case LineColumnarFormat.TYPE_BOOLEAN: {
+                final boolean value = parser.getBool(i, row);
+                switch (colType) {
+                    case ColumnType.BOOLEAN:
+                        r.putBool(columnIndex, value);
+                        break;
+                    case ColumnType.BYTE:
+                        r.putByte(columnIndex, (byte) (value ? 1 : 0));
+                        break;
+                    case ColumnType.SHORT:
+                        r.putShort(columnIndex, (short) (value ? 1 : 0));
+                        break;
+                    case ColumnType.INT:
+                        r.putInt(columnIndex, value ? 1 : 0);
+                        break;
+                    case ColumnType.LONG:
+                        r.putLong(columnIndex, value ? 1 : 0);
+                        break;
+                    case ColumnType.FLOAT:
+                        r.putFloat(columnIndex, value ? 1 : 0);
+                        break;
+                    case ColumnType.DOUBLE:
+                        r.putDouble(columnIndex, value ? 1 : 0);
+                        break;
+                    default:
+                        throw castError(tud.getTableNameUtf16(), "BOOLEAN", colType, parser.getColumnName(i));
+                }
+                break;
+            }
+            case LineColumnarFormat.TYPE_LONG: {
+                final long value = parser.getLong(i, row);
+                if (value == Numbers.LONG_NULL) {
+                    break;
+                }
+                switch (colType) {
+                    case ColumnType.LONG:
+                        r.putLong(columnIndex, value);
+                        break;
+                    case ColumnType.INT:
+                        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                            throw boundsError(value, ColumnType.INT, tud.getTableNameUtf16(), tud.getWriter().getMetadata().getColumnName(columnIndex));
+                        }
+                        r.putInt(columnIndex, (int) value);
+                        break;
+                    case ColumnType.SHORT:
+                        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+                            throw boundsError(value, ColumnType.SHORT, tud.getTableNameUtf16(), tud.getWriter().getMetadata().getColumnName(columnIndex));
+                        }
+                        r.putShort(columnIndex, (short) value);
+                        break;
+                    case ColumnType.BYTE:
+                        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+                            throw boundsError(value, ColumnType.BYTE, tud.getTableNameUtf16(), tud.getWriter().getMetadata().getColumnName(columnIndex));
+                        }
+                        r.putByte(columnIndex, (byte) value);
+                        break;
+                    case ColumnType.TIMESTAMP:
+                        r.putTimestamp(columnIndex, value);
+                        break;
+                    case ColumnType.DATE:
+                        r.putDate(columnIndex, value);
+                        break;
+                    case ColumnType.DOUBLE:
+                        r.putDouble(columnIndex, value);
+                        break;
+                    case ColumnType.FLOAT:
+                        r.putFloat(columnIndex, value);
+                        break;
+                    default:
+                        throw castError(tud.getTableNameUtf16(), "LONG", colType, parser.getColumnName(i));
+                }
+                break;
+            }
+            case LineColumnarFormat.TYPE_DOUBLE: {
+                final double value = parser.getDouble(i, row);
+                if (Numbers.isNull(value)) {
+                    break;
+                }
+                switch (colType) {
+                    case ColumnType.DOUBLE:
+                        r.putDouble(columnIndex, value);
+                        break;
+                    case ColumnType.FLOAT:
+                        r.putFloat(columnIndex, (float) value);
+                        break;
+                    default:
+                        throw castError(tud.getTableNameUtf16(), "DOUBLE", colType, parser.getColumnName(i));
+                }
+                break;
+            }
+            case LineColumnarFormat.TYPE_TIMESTAMP: {
+                final long value = parser.getLong(i, row);
+                if (value == Numbers.LONG_NULL) {
+                    break;
+                }
+                switch (colType) {
+                    case ColumnType.TIMESTAMP:
+                        r.putTimestamp(columnIndex, value);
+                        break;
+                    case ColumnType.DATE:
+                        r.putDate(columnIndex, value / 1000);
+                        break;
+                    default:
+                        throw castError(tud.getTableNameUtf16(), "TIMESTAMP", colType, parser.getColumnName(i));
+                }
+                break;
+            }
+            case LineColumnarFormat.TYPE_STRING:
+            case LineColumnarFormat.TYPE_SYMBOL: {
+                final boolean symbol = parser.getColumnType(i) == LineColumnarFormat.TYPE_SYMBOL;
+                final DirectUtf8Sequence value = symbol ? parser.getSymbol(i, row) : parser.getString(i, row);
+                if (value == null) {
+                    break;
+                }
+                switch (colType) {
+                    case ColumnType.STRING:
+                        r.putStrUtf8(columnIndex, value);
+                        break;
+                    case ColumnType.SYMBOL:
+                        r.putSymUtf8(columnIndex, value);
+                        break;
+                    case ColumnType.VARCHAR:
+                        r.putVarchar(columnIndex, value);
+                        break;
+                    default:
+                        throw castError(tud.getTableNameUtf16(), symbol ? "SYMBOL" : "STRING", colType, parser.getColumnName(i));
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
 }
@@ -29,10 +29,12 @@ import io.questdb.cairo.SymbolMapReaderImpl;
 import io.questdb.cairo.TableWriterAPI;
 import io.questdb.cairo.TxReader;
 import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.wal.SharedSymbolCache;
 import io.questdb.std.Unsafe;
 import io.questdb.std.Utf8StringIntHashMap;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.str.*;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 
@@ -48,6 +50,7 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
     private final long waitIntervalBeforeReload;
     private int columnIndex;
     private long lastSymbolReaderReloadTimestamp;
+    private SharedSymbolCache.ColumnCache sharedCache;
     private int symbolIndexInTxFile;
     private TxReader txReader;
     private TableWriterAPI writerAPI;
@@ -65,6 +68,7 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
     public void close() {
         txReader = null;
         writerAPI = null;
+        sharedCache = null;
         symbolMapReader.close();
         symbolValueToKeyMap.reset();
     }
@@ -84,6 +88,17 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
             return symbolValueToKeyMap.valueAt(index);
         }
 
+        Utf8s.utf8ToUtf16Unchecked(value, tempSink);
+        if (sharedCache != null) {
+            // another connection may have resolved the value already, but its writer may know
+            // more symbols than ours, keys above our watermark would be taken for local keys
+            final int sharedKey = sharedCache.keyOf(tempSink);
+            if (sharedKey != SymbolTable.VALUE_NOT_FOUND && sharedKey < readSymbolCount(symbolIndexInTxFile, true)) {
+                symbolValueToKeyMap.putAt(index, Utf8String.newInstance(value), sharedKey);
+                return sharedKey;
+            }
+        }
+
         final long ticks = clock.getTicks();
         int symbolValueCount;
 
@@ -95,11 +110,13 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
             lastSymbolReaderReloadTimestamp = ticks;
         }
 
-        Utf8s.utf8ToUtf16Unchecked(value, tempSink);
         final int symbolKey = symbolMapReader.keyOf(tempSink);
 
         if (symbolKey != SymbolTable.VALUE_NOT_FOUND) {
             symbolValueToKeyMap.putAt(index, Utf8String.newInstance(value), symbolKey);
+            if (sharedCache != null) {
+                sharedCache.put(tempSink, symbolKey);
+            }
         }
 
         return symbolKey;
@@ -114,8 +131,28 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
             int symbolIndexInTxFile,
             TxReader txReader,
             long columnNameTxn
+    ) {
+        of(configuration, writerAPI, columnIndex, path, columnName, symbolIndexInTxFile, txReader, columnNameTxn, null);
+    }
+
+    /**
+     * Same as the other overload, but additionally resolves values through the given cache
+     * shared with the other connections of the table. The shared cache is pre-warmed with
+     * the symbols that the writer can see.
+     */
+    public void of(
+            CairoConfiguration configuration,
+            TableWriterAPI writerAPI,
+            int columnIndex,
+            Path path,
+            CharSequence columnName,
+            int symbolIndexInTxFile,
+            TxReader txReader,
+            long columnNameTxn,
+            @Nullable SharedSymbolCache.ColumnCache sharedCache
     ) {
         this.writerAPI = writerAPI;
+        this.sharedCache = sharedCache;
         this.columnIndex = columnIndex;
         this.symbolIndexInTxFile = symbolIndexInTxFile;
         final int plen = path.size();
@@ -124,6 +161,9 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
         path.trimTo(plen);
         symbolMapReader.of(configuration, path, columnName, columnNameTxn, symCount);
         symbolValueToKeyMap.clear();
+        if (sharedCache != null) {
+            sharedCache.prewarm(symbolMapReader, symCount);
+        }
     }
 
     private int readSymbolCount(int symbolIndexInTxFile, boolean initialStateOk) {
@@ -152,6 +152,18 @@ public class TableStructureAdapter implements TableStructure {
         return walEnabledDefault && PartitionBy.isPartitioned(getPartitionBy());
     }
 
+    /**
+     * Describes a table with the designated timestamp only, the rest of the columns
+     * are expected to be added by the writer.
+     */
+    public TableStructureAdapter of(CharSequence tableName) {
+        this.tableName = tableName;
+        entityNamesUtf16.clear();
+        entities.clear();
+        timestampIndex = -1;
+        return this;
+    }
+
     public TableStructureAdapter of(CharSequence tableName, LineTcpParser parser) {
         this.tableName = tableName;
         entityNamesUtf16.clear();
@@ -40,6 +40,7 @@ import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.sql.TableRecordMetadata;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
 import io.questdb.cairo.wal.MetadataService;
+import io.questdb.cairo.wal.seq.SeqTxnTracker;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.BitSet;
@@ -74,6 +75,7 @@ public class TableUpdateDetails implements Closeable {
     private final long defaultMaxUncommittedRows;
     private final CairoEngine engine;
     private final ThreadLocalDetails[] localDetailsArray;
+    private final long maxWalApplyLagTxnCount;
     private final MillisecondClock millisecondClock;
     // Set only for WAL tables, i.e. when writerThreadId == -1.
     private final SecurityContext ownSecurityContext;
@@ -92,6 +94,10 @@ public class TableUpdateDetails implements Closeable {
     private MetadataService metadataService;
     private int networkIOOwnerCount = 0;
     private long nextCommitTime;
+    // Set only for WAL tables sharded across writer threads.
+    private WalShardRouter shardRouter;
+    // Looked up on the first back-pressure check of a WAL table.
+    private SeqTxnTracker txnTracker;
     private volatile boolean writerInError;
     private int writerThreadId;
 
@@ -113,6 +119,7 @@ public class TableUpdateDetails implements Closeable {
         this.millisecondClock = cairoConfiguration.getMillisecondClock();
         this.writerTickRowsCountMod = cairoConfiguration.getWriterTickRowsCountMod();
         this.defaultMaxUncommittedRows = cairoConfiguration.getMaxUncommittedRows();
+        this.maxWalApplyLagTxnCount = cairoConfiguration.getWalMaxApplyLagTxnCount();
         this.writerAPI = writer;
         this.timestampIndex = writer.getMetadata().getTimestampIndex();
         this.tableToken = writer.getTableToken();
@@ -151,6 +158,7 @@ public class TableUpdateDetails implements Closeable {
         this.millisecondClock = cairoConfiguration.getMillisecondClock();
         this.writerTickRowsCountMod = cairoConfiguration.getWriterTickRowsCountMod();
         this.defaultMaxUncommittedRows = maxUncommittedRows;
+        this.maxWalApplyLagTxnCount = cairoConfiguration.getWalMaxApplyLagTxnCount();
         this.writerAPI = writer;
         this.timestampIndex = writer.getMetadata().getTimestampIndex();
         this.tableToken = writer.getTableToken();
@@ -231,7 +239,7 @@ public class TableUpdateDetails implements Closeable {
                 throw CommitFailedException.instance(ex, false);
             }
         }
-        if (isWal() && tableToken != engine.getTableTokenIfExists(tableToken.getTableName())) {
+        if ((isWal() || shardRouter != null) && tableToken != engine.getTableTokenIfExists(tableToken.getTableName())) {
             setWriterInError();
         }
     }
@@ -252,6 +260,10 @@ public class TableUpdateDetails implements Closeable {
         return networkIOOwnerCount;
     }
 
+    public WalShardRouter getShardRouter() {
+        return shardRouter;
+    }
+
     public String getTableNameUtf16() {
         return tableToken.getTableName();
     }
@@ -264,6 +276,20 @@ public class TableUpdateDetails implements Closeable {
         return tableToken;
     }
 
+    /**
+     * Returns the number of committed WAL transactions of the table that are waiting for the apply job.
+     * Returns 0 for non-WAL tables.
+     */
+    public long getWalApplyLagTxnCount() {
+        if (!tableToken.isWal()) {
+            return 0;
+        }
+        if (txnTracker == null) {
+            txnTracker = engine.getTableSequencerAPI().getTxnTracker(tableToken);
+        }
+        return txnTracker.getUnappliedTxnCount();
+    }
+
     public int getWriterThreadId() {
         return writerThreadId;
     }
@@ -284,6 +310,18 @@ public class TableUpdateDetails implements Closeable {
         return writerThreadId == -1;
     }
 
+    /**
+     * Returns true when the WAL apply job is behind ingestion of this table by more than
+     * the configured number of transactions and ILP should hold back further rows.
+     * Suspended tables are not held back: the apply job won't catch up until the table
+     * is resumed, so the rows are written to WAL as if there was no lag limit.
+     */
+    public boolean isWalApplyLagging() {
+        return maxWalApplyLagTxnCount > 0
+                && getWalApplyLagTxnCount() > maxWalApplyLagTxnCount
+                && !txnTracker.isSuspended();
+    }
+
     public boolean isWriterInError() {
         return writerInError;
     }
@@ -394,6 +432,10 @@ public class TableUpdateDetails implements Closeable {
         tick();
     }
 
+    void clearThreadLocalDetails(int workerId) {
+        localDetailsArray[workerId].clear();
+    }
+
     ThreadLocalDetails getThreadLocalDetails(int workerId) {
         lastMeasurementMillis = millisecondClock.getTicks();
         return localDetailsArray[workerId];
@@ -426,6 +468,10 @@ public class TableUpdateDetails implements Closeable {
         }
     }
 
+    void setShardRouter(WalShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
     public class ThreadLocalDetails implements Closeable {
         static final int COLUMN_NOT_FOUND = -1;
         static final int DUPLICATED_COLUMN = -2;
@@ -522,7 +568,8 @@ public class TableUpdateDetails implements Closeable {
                         symbolNameTemp,
                         symIndex,
                         txReader,
-                        columnNameTxn
+                        columnNameTxn,
+                        engine.getSharedSymbolCache().getColumnCache(tableToken, colWriterIndex, columnNameTxn)
                 );
                 symbolCacheByColumnIndex.extendAndSet(colWriterIndex, symCache);
                 return symCache;
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Hash;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.Utf8String;
+import io.questdb.std.str.Utf8s;
+
+import java.io.Closeable;
+import java.util.Arrays;
+
+/**
+ * Spreads ILP rows of a single WAL table across all writer threads. Each writer thread
+ * owns a shard, i.e. a {@link TableUpdateDetails} with its own WAL writer. Rows are routed
+ * to a shard by the hash of the shard column value, so that all rows of the same key land
+ * in the same WAL until the slot is moved. Slot loads are sampled on the network IO threads
+ * and every so often the busiest slot that levels the two most unequal shards is moved over.
+ */
+public class WalShardRouter implements Closeable {
+    static final int SLOT_COUNT = 256;
+    private static final Log LOG = LogFactory.getLog(WalShardRouter.class);
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+    // Registered in the shared and IO thread caches. It is also the first shard, until
+    // that one has to be replaced after a writer error.
+    private final TableUpdateDetails handle;
+    private final long rebalanceEventCount;
+    private final ObjList<TableUpdateDetails> retiredShards = new ObjList<>();
+    private final Utf8String shardColumn;
+    private final long[] shardLoad;
+    private final TableUpdateDetails[] shards;
+    // Loads are estimates, they are incremented by multiple IO threads without synchronisation.
+    private final long[] slotLoad = new long[SLOT_COUNT];
+    private final int[] slotToShard = new int[SLOT_COUNT];
+    private long eventCount;
+
+    public WalShardRouter(TableUpdateDetails[] shards, Utf8String shardColumn, long rebalanceEventCount) {
+        this.shards = shards;
+        this.handle = shards[0];
+        this.shardColumn = shardColumn;
+        this.rebalanceEventCount = rebalanceEventCount;
+        this.shardLoad = new long[shards.length];
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            slotToShard[i] = i % shards.length;
+        }
+        for (int i = 0, n = shards.length; i < n; i++) {
+            shards[i].setShardRouter(this);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = shards.length; i < n; i++) {
+            shards[i] = Misc.free(shards[i]);
+        }
+        Misc.freeObjList(retiredShards);
+        retiredShards.clear();
+        // the handle may have been retired already, closing it twice is a no-op
+        Misc.free(handle);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    void addLoad(long[] loadByWriterThread) {
+        for (int i = 0, n = shards.length; i < n; i++) {
+            final TableUpdateDetails shard = shards[i];
+            loadByWriterThread[shard.getWriterThreadId()] += shard.getEventsProcessedSinceReshuffle();
+        }
+    }
+
+    long getLastMeasurementMillis() {
+        long lastMeasurementMillis = Long.MIN_VALUE;
+        for (int i = 0, n = shards.length; i < n; i++) {
+            final long millis = shards[i].getLastMeasurementMillis();
+            // Long.MAX_VALUE stands for a shard that has not seen any rows yet
+            if (millis != Long.MAX_VALUE && millis > lastMeasurementMillis) {
+                lastMeasurementMillis = millis;
+            }
+        }
+        return lastMeasurementMillis == Long.MIN_VALUE ? Long.MAX_VALUE : lastMeasurementMillis;
+    }
+
+    TableUpdateDetails getShard(int shardIndex) {
+        return shards[shardIndex];
+    }
+
+    int getSlotShard(int slot) {
+        return slotToShard[slot];
+    }
+
+    synchronized void rebalance() {
+        Arrays.fill(shardLoad, 0);
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            shardLoad[slotToShard[i]] += slotLoad[i];
+        }
+
+        int busiest = 0;
+        int idlest = 0;
+        for (int i = 1, n = shards.length; i < n; i++) {
+            if (shardLoad[i] > shardLoad[busiest]) {
+                busiest = i;
+            }
+            if (shardLoad[i] < shardLoad[idlest]) {
+                idlest = i;
+            }
+        }
+
+        // pick the slot that brings the two shards closest to each other,
+        // a move is only worth it when it makes the gap narrower
+        final long gap = shardLoad[busiest] - shardLoad[idlest];
+        long bestGap = gap;
+        int bestSlot = -1;
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            if (slotToShard[i] == busiest && slotLoad[i] > 0) {
+                final long newGap = Math.abs(gap - 2 * slotLoad[i]);
+                if (newGap < bestGap) {
+                    bestGap = newGap;
+                    bestSlot = i;
+                }
+            }
+        }
+
+        if (bestSlot != -1) {
+            slotToShard[bestSlot] = idlest;
+            LOG.info().$("moved shard slot [table=").$(handle.getTableToken())
+                    .$(", slot=").$(bestSlot)
+                    .$(", from=").$(busiest)
+                    .$(", to=").$(idlest)
+                    .$(", gap=").$(gap)
+                    .$(", newGap=").$(bestGap)
+                    .I$();
+        }
+
+        // decay the history, recent traffic matters more
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            slotLoad[i] >>>= 1;
+        }
+    }
+
+    void removeReference(int workerId) {
+        handle.removeReference(workerId);
+        for (int i = 0, n = shards.length; i < n; i++) {
+            if (shards[i] != handle) {
+                shards[i].clearThreadLocalDetails(workerId);
+            }
+        }
+    }
+
+    synchronized void replaceShard(int shardIndex, TableUpdateDetails shard) {
+        final TableUpdateDetails retired = shards[shardIndex];
+        retiredShards.add(retired);
+        shard.setShardRouter(this);
+        shards[shardIndex] = shard;
+    }
+
+    TableUpdateDetails route(LineTcpParser parser, int networkIOWorkerId) {
+        int hash = networkIOWorkerId;
+        for (int i = 0, n = parser.getEntityCount(); i < n; i++) {
+            final LineTcpParser.ProtoEntity entity = parser.getEntity(i);
+            if (Utf8s.equalsIgnoreCaseAscii(shardColumn, entity.getName())) {
+                hash = Utf8s.hashCode(entity.getValue());
+                break;
+            }
+        }
+
+        final int slot = Hash.spread(hash) & SLOT_MASK;
+        slotLoad[slot]++;
+        if (rebalanceEventCount > 0 && ++eventCount % rebalanceEventCount == 0) {
+            rebalance();
+        }
+        return shards[slotToShard[slot]];
+    }
+}
@@ -143,6 +143,11 @@ public class DefaultPGWireConfiguration extends DefaultIODispatcherConfiguration
         return 16;
     }
 
+    @Override
+    public int getPortalPrefetchBufferSize() {
+        return 1024 * 1024;
+    }
+
     @Override
     public String getPoolName() {
         return "pgwire";
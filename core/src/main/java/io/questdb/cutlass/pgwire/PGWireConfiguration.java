@@ -76,6 +76,12 @@ public interface PGWireConfiguration extends IODispatcherConfiguration, WorkerPo
 
     int getPendingWritersCacheSize();
 
+    /**
+     * Size of the buffer, per named portal, that holds the DataRow messages encoded ahead of the
+     * client's next Execute. 0 disables the prefetch.
+     */
+    int getPortalPrefetchBufferSize();
+
     // this is used in tests to fix pseudo-random generator
     default Rnd getRandom() {
         return null;
@@ -254,6 +254,11 @@ public class PGWireConfigurationWrapper implements PGWireConfiguration {
         return getDelegate().getPendingWritersCacheSize();
     }
 
+    @Override
+    public int getPortalPrefetchBufferSize() {
+        return getDelegate().getPortalPrefetchBufferSize();
+    }
+
     @Override
     public String getPoolName() {
         return getDelegate().getPoolName();
@@ -37,6 +37,11 @@ public class PGWireMetrics implements Mutable {
     private final LongGauge connectionCountGauge;
     private final Counter errorCounter;
     private final Counter listenerStateChangeCounter;
+    private final Counter portalCloseCounter;
+    private final Counter portalFetchCounter;
+    private final Counter portalFetchMicrosCounter;
+    private final Counter portalLifetimeMicrosCounter;
+    private final Counter portalPrefetchedRowsCounter;
     private final Counter selectCacheHitCounter;
     private final Counter selectCacheMissCounter;
     private final Counter startedQueriesCounter;
@@ -51,6 +56,11 @@ public class PGWireMetrics implements Mutable {
         this.selectCacheMissCounter = metricsRegistry.newCounter("pg_wire_select_cache_misses");
         this.errorCounter = metricsRegistry.newCounter("pg_wire_errors");
         this.listenerStateChangeCounter = metricsRegistry.newCounter("pg_wire_listener_state_change_count");
+        this.portalFetchCounter = metricsRegistry.newCounter("pg_wire_portal_fetches");
+        this.portalFetchMicrosCounter = metricsRegistry.newCounter("pg_wire_portal_fetch_micros");
+        this.portalPrefetchedRowsCounter = metricsRegistry.newCounter("pg_wire_portal_prefetched_rows");
+        this.portalCloseCounter = metricsRegistry.newCounter("pg_wire_portals_closed");
+        this.portalLifetimeMicrosCounter = metricsRegistry.newCounter("pg_wire_portal_lifetime_micros");
     }
 
     public LongGauge cachedSelectsGauge() {
@@ -72,6 +82,11 @@ public class PGWireMetrics implements Mutable {
         selectCacheMissCounter.reset();
         startedQueriesCounter.reset();
         listenerStateChangeCounter.reset();
+        portalCloseCounter.reset();
+        portalFetchCounter.reset();
+        portalFetchMicrosCounter.reset();
+        portalLifetimeMicrosCounter.reset();
+        portalPrefetchedRowsCounter.reset();
     }
 
     @TestOnly
@@ -95,10 +110,37 @@ public class PGWireMetrics implements Mutable {
         completedQueriesCounter.inc();
     }
 
+    public void markPortalClose(long lifetimeMicros) {
+        portalCloseCounter.inc();
+        portalLifetimeMicrosCounter.add(lifetimeMicros);
+    }
+
+    /**
+     * Records an Execute of a named portal, from the start of the response to the last row of the batch.
+     */
+    public void markPortalFetch(long micros) {
+        portalFetchCounter.inc();
+        portalFetchMicrosCounter.add(micros);
+    }
+
+    public void markPortalPrefetch(long rowCount) {
+        portalPrefetchedRowsCounter.add(rowCount);
+    }
+
     public void markStart() {
         startedQueriesCounter.inc();
     }
 
+    @TestOnly
+    public long portalFetchCount() {
+        return portalFetchCounter.getValue();
+    }
+
+    @TestOnly
+    public long portalPrefetchedRowCount() {
+        return portalPrefetchedRowsCounter.getValue();
+    }
+
     @TestOnly
     public void resetQueryCounters() {
         startedQueriesCounter.reset();
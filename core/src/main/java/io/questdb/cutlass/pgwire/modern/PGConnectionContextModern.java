@@ -28,6 +28,7 @@ import io.questdb.FactoryProvider;
 import io.questdb.Metrics;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoException;
+import io.questdb.cairo.DataUnavailableException;
 import io.questdb.cairo.SecurityContext;
 import io.questdb.cairo.TableToken;
 import io.questdb.cairo.TableWriterAPI;
@@ -36,6 +37,8 @@ import io.questdb.cairo.security.DenyAllSecurityContext;
 import io.questdb.cairo.security.SecurityContextFactory;
 import io.questdb.cairo.sql.BindVariableService;
 import io.questdb.cairo.sql.NetworkSqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cutlass.auth.AuthenticatorException;
 import io.questdb.cutlass.auth.SocketAuthenticator;
 import io.questdb.cutlass.pgwire.BadProtocolException;
@@ -47,6 +50,7 @@ import io.questdb.griffin.CharacterStore;
 import io.questdb.griffin.CharacterStoreEntry;
 import io.questdb.griffin.CompiledQuery;
 import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContextImpl;
 import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
 import io.questdb.log.Log;
@@ -82,6 +86,7 @@ import io.questdb.std.Unsafe;
 import io.questdb.std.Vect;
 import io.questdb.std.WeakSelfReturningObjectPool;
 import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.str.DirectUtf8Sink;
 import io.questdb.std.str.DirectUtf8String;
 import io.questdb.std.str.StdoutSink;
 import io.questdb.std.str.Utf8Sequence;
@@ -105,6 +110,7 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
     public static final String TAG_ALTER_ROLE = "ALTER ROLE";
     public static final String TAG_BEGIN = "BEGIN";
     public static final String TAG_COMMIT = "COMMIT";
+    public static final String TAG_COPY = "COPY";
     public static final String TAG_CREATE_ROLE = "CREATE ROLE";
     // create as select tag
     public static final String TAG_DEALLOCATE = "DEALLOCATE";
@@ -138,10 +144,15 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
     private static final int CACHE_HIT_SELECT_INVALID = 3;
     private static final int CACHE_HIT_SELECT_VALID = 4;
     private static final int CACHE_MISS = 0;
+    private static final int COPY_OUT_ROW_CAPACITY = 1024;
     private static final Log LOG = LogFactory.getLog(PGConnectionContextModern.class);
     // Timeout to prevent getting stuck while draining socket's receive buffer
     // before closing the socket. Ensures exit if malformed client keeps sending data.
     private static final long MALFORMED_CLIENT_READ_TIMEOUT_MILLIS = 5000;
+    private static final byte MESSAGE_TYPE_COPY_DATA = 'd';
+    private static final byte MESSAGE_TYPE_COPY_DONE = 'c';
+    private static final byte MESSAGE_TYPE_COPY_IN_RESPONSE = 'G';
+    private static final byte MESSAGE_TYPE_COPY_OUT_RESPONSE = 'H';
     private static final byte MESSAGE_TYPE_READY_FOR_QUERY = 'Z';
     private static final byte MESSAGE_TYPE_SSL_SUPPORTED_RESPONSE = 'S';
     private static final int PREFIXED_MESSAGE_HEADER_LEN = 5;
@@ -154,6 +165,10 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
     private final CharacterStore characterStore;
     private final NetworkSqlExecutionCircuitBreaker circuitBreaker;
     private final PGWireConfiguration configuration;
+    private final PGCopyInDecoder copyInDecoder;
+    private final PGCopyOptions copyOptions = new PGCopyOptions();
+    private final PGCopyOutEncoder copyOutEncoder;
+    private final PGResumeCallback copyOutRef = this::copyOut0;
     private final boolean dumpNetworkTraffic;
     private final CairoEngine engine;
     private final ObjectPool<PGPipelineEntry> entryPool;
@@ -165,6 +180,7 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
     private final CharSequenceObjHashMap<PGPipelineEntry> namedStatements;
     private final ObjObjHashMap<TableToken, TableWriterAPI> pendingWriters;
     private final ArrayDeque<PGPipelineEntry> pipeline = new ArrayDeque<>();
+    private final int portalPrefetchBufferSize;
     private final Consumer<? super CharSequence> preparedStatementDeallocator = this::deallocateNamedStatement;
     private final ResponseUtf8Sink responseUtf8Sink = new ResponseUtf8Sink();
     private final Rnd rnd;
@@ -176,6 +192,14 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
     private SocketAuthenticator authenticator;
     private int bufferRemainingOffset = 0;
     private int bufferRemainingSize = 0;
+    // true between CopyInResponse and the client's CopyDone or CopyFail
+    private boolean copyIn;
+    private RecordCursor copyOutCursor;
+    private RecordCursorFactory copyOutFactory;
+    // the encoded line has not been framed into the send buffer yet
+    private boolean copyOutRowPending;
+    private long copyOutRowCount;
+    private CharSequence copySqlText;
     private boolean freezeRecvBuffer;
     private int namedStatementLimit;
     // PG wire protocol has two phases:
@@ -244,10 +268,13 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
             this.taiCache = new SimpleAssociativeCache<>(insertBlockCount, insertRowCount);
             this.taiPool = new WeakSelfReturningObjectPool<>(TypesAndInsertModern::new, insertBlockCount * insertRowCount);
             this.namedStatementLimit = configuration.getNamedStatementLimit();
+            this.portalPrefetchBufferSize = configuration.getPortalPrefetchBufferSize();
 
             this.batchCallback = new PGConnectionBatchCallback();
             FactoryProvider factoryProvider = configuration.getFactoryProvider();
             this.securityContextFactory = factoryProvider.getSecurityContextFactory();
+            this.copyInDecoder = new PGCopyInDecoder(engine.getConfiguration());
+            this.copyOutEncoder = new PGCopyOutEncoder(COPY_OUT_ROW_CAPACITY);
         } catch (Throwable th) {
             close();
             throw th;
@@ -318,6 +345,8 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
 
         prepareForNewQuery();
         clearRecvBuffer();
+        copyInEnd();
+        copyOutFree();
         clearWriters();
         // Clear every field, even if already cleaned to be on the safe side.
         Misc.clear(bindVariableTypes);
@@ -327,6 +356,8 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         Misc.clear(pendingWriters);
         Misc.clear(authenticator);
         Misc.clear(bindVariableService);
+        Misc.clear(copyOptions);
+        Misc.clear(copyOutEncoder);
         bufferRemainingOffset = 0;
         bufferRemainingSize = 0;
         freezeRecvBuffer = false;
@@ -359,6 +390,8 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
             sqlExecutionContext.with(DenyAllSecurityContext.INSTANCE, null, null, -1, null);
         }
         authenticator = Misc.free(authenticator);
+        Misc.free(copyInDecoder);
+        Misc.free(copyOutEncoder);
         tasCache = Misc.free(tasCache);
         taiCache = Misc.free(taiCache);
 
@@ -515,6 +548,7 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
 
     private void addPipelineEntry() {
         if (pipelineCurrentEntry != null) {
+            pipelineCurrentEntry.endInsertBatch();
             pipeline.add(pipelineCurrentEntry);
             pipelineCurrentEntry = null;
         }
@@ -534,6 +568,226 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         recvBufferReadOffset = 0;
     }
 
+    private void copyInEnd() {
+        copyIn = false;
+        copySqlText = null;
+        Misc.clear(copyInDecoder);
+    }
+
+    // handles messages of the COPY FROM STDIN sub-protocol, the copy ends with CopyDone or CopyFail
+    private void copyInMessage(byte type, long lo, long msgLimit) throws PeerIsSlowToReadException, PeerDisconnectedException, QueryPausedException {
+        final boolean failed = pipelineCurrentEntry != null && pipelineCurrentEntry.isError();
+        switch (type) {
+            case MESSAGE_TYPE_COPY_DATA:
+                // after an error the remaining data is discarded until the client ends the copy
+                if (!failed) {
+                    try {
+                        copyInDecoder.decode(lo, msgLimit);
+                    } catch (Throwable th) {
+                        msgKaput().put(th);
+                    }
+                }
+                return;
+            case MESSAGE_TYPE_COPY_DONE:
+                if (!failed) {
+                    try {
+                        final long rowCount = copyInDecoder.finish();
+                        if (pipelineCurrentEntry == null) {
+                            pipelineCurrentEntry = entryPool.next();
+                        }
+                        pipelineCurrentEntry.ofCopy(copySqlText, rowCount);
+                    } catch (Throwable th) {
+                        msgKaput().put(th);
+                    }
+                }
+                break;
+            case 'f': // CopyFail
+                if (!failed) {
+                    final CharSequence message = msgLimit - 1 > lo ? Utf8s.stringFromUtf8Bytes(lo, msgLimit - 1) : "";
+                    msgKaput().put("COPY from stdin failed: ").put(message);
+                }
+                break;
+            case 'H':
+            case 'S':
+                // flush and sync are ignored during the copy
+                return;
+            default:
+                if (!failed) {
+                    msgKaput().put("unexpected message during COPY from stdin [type=").put((char) type).put(']');
+                }
+                break;
+        }
+
+        copyInEnd();
+        if (pipelineCurrentEntry.isError()) {
+            // rows of the failed copy must not be committed on sync
+            clearWriters();
+            if (transactionState == IN_TRANSACTION) {
+                transactionState = ERROR_TRANSACTION;
+            }
+        }
+        msgSync();
+    }
+
+    private void copyInStart(CharSequence sqlText) {
+        final TableToken tableToken = engine.verifyTableName(copyOptions.getTableName());
+        if (tableToken.isMatView()) {
+            throw CairoException.nonCritical()
+                    .put("cannot modify materialized view [view=")
+                    .put(tableToken.getTableName())
+                    .put(']');
+        }
+        sqlExecutionContext.getSecurityContext().authorizeInsert(tableToken);
+        final TableWriterAPI writer = getTableWriterAPI(tableToken, "pgCopy");
+        pendingWriters.put(writer.getTableToken(), writer);
+        copyInDecoder.of(writer, copyOptions);
+
+        final int columnCount = copyInDecoder.getColumnCount();
+        final short format = (short) (copyOptions.getFormat() == PGCopyOptions.FORMAT_BINARY ? 1 : 0);
+        responseUtf8Sink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
+        final long addr = responseUtf8Sink.skipInt();
+        responseUtf8Sink.put((byte) format);
+        responseUtf8Sink.putNetworkShort((short) columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            responseUtf8Sink.putNetworkShort(format);
+        }
+        responseUtf8Sink.putLen(addr);
+        copySqlText = sqlText;
+        copyIn = true;
+    }
+
+    private void copyOut0() throws PeerIsSlowToReadException, PeerDisconnectedException, QueryPausedException {
+        if (copyOutCursor != null) {
+            try {
+                while (true) {
+                    if (!copyOutRowPending) {
+                        if (!copyOutCursor.hasNext()) {
+                            break;
+                        }
+                        copyOutEncoder.encodeRecord(copyOutCursor.getRecord());
+                        copyOutRowPending = true;
+                        copyOutRowCount++;
+                    }
+                    copyOutPutRow();
+                    copyOutRowPending = false;
+                }
+            } catch (DataUnavailableException e) {
+                throw QueryPausedException.instance(e.getEvent(), sqlExecutionContext.getCircuitBreaker());
+            } catch (PeerIsSlowToReadException | PeerDisconnectedException e) {
+                throw e;
+            } catch (Throwable th) {
+                copyOutFree();
+                if (transactionState == IN_TRANSACTION) {
+                    transactionState = ERROR_TRANSACTION;
+                }
+                msgKaput().put(th);
+                msgSync();
+                return;
+            }
+            copyOutFree();
+        }
+
+        if (sendBufferLimit - sendBufferPtr < PROTOCOL_TAIL_COMMAND_LENGTH) {
+            responseUtf8Sink.sendBufferAndReset();
+        }
+        responseUtf8Sink.put(MESSAGE_TYPE_COPY_DONE);
+        responseUtf8Sink.putNetworkInt(Integer.BYTES);
+        pipelineCurrentEntry = entryPool.next();
+        pipelineCurrentEntry.ofCopy(copySqlText, copyOutRowCount);
+        copySqlText = null;
+        msgSync();
+    }
+
+    private void copyOutFree() {
+        copyOutCursor = Misc.free(copyOutCursor);
+        copyOutFactory = Misc.free(copyOutFactory);
+        copyOutRowPending = false;
+        copyOutRowCount = 0;
+    }
+
+    // frames the encoded line as a CopyData message, rows are batched in the send buffer and
+    // sent only when the next one does not fit
+    private void copyOutPutRow() throws PeerIsSlowToReadException, PeerDisconnectedException {
+        final DirectUtf8Sink row = copyOutEncoder.getRow();
+        final int rowSize = row.size();
+        if (sendBufferPtr + rowSize + PREFIXED_MESSAGE_HEADER_LEN >= sendBufferLimit) {
+            responseUtf8Sink.sendBufferAndReset();
+            if (sendBufferPtr + rowSize + PREFIXED_MESSAGE_HEADER_LEN >= sendBufferLimit) {
+                throw CairoException.nonCritical().put("COPY row does not fit into send buffer [rowSize=").put(rowSize)
+                        .put(", sendBufferSize=").put(sendBufferSize).put(']');
+            }
+        }
+        responseUtf8Sink.put(MESSAGE_TYPE_COPY_DATA);
+        responseUtf8Sink.putNetworkInt(rowSize + Integer.BYTES);
+        Vect.memcpy(sendBufferPtr, row.ptr(), rowSize);
+        responseUtf8Sink.bump(rowSize);
+    }
+
+    private void copyOutStart(CharSequence sqlText) throws SqlException {
+        try (SqlCompiler compiler = engine.getSqlCompiler()) {
+            final CompiledQuery cq = compiler.compile(copyOptions.getQuery(), sqlExecutionContext);
+            if (cq.getType() != CompiledQuery.SELECT) {
+                throw SqlException.$(0, "COPY TO STDOUT supports only SELECT queries");
+            }
+            copyOutFactory = cq.getRecordCursorFactory();
+        }
+        copyOutEncoder.of(copyOptions, copyOutFactory.getMetadata());
+        sqlExecutionContext.getCircuitBreaker().resetTimer();
+        copyOutCursor = copyOutFactory.getCursor(sqlExecutionContext);
+
+        final int columnCount = copyOutFactory.getMetadata().getColumnCount();
+        responseUtf8Sink.put(MESSAGE_TYPE_COPY_OUT_RESPONSE);
+        final long addr = responseUtf8Sink.skipInt();
+        responseUtf8Sink.put((byte) 0);
+        responseUtf8Sink.putNetworkShort((short) columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            responseUtf8Sink.putNetworkShort((short) 0);
+        }
+        responseUtf8Sink.putLen(addr);
+        if (copyOptions.isHeader()) {
+            copyOutEncoder.encodeHeader(copyOutFactory.getMetadata());
+            copyOutRowPending = true;
+        }
+        copySqlText = sqlText;
+    }
+
+    /**
+     * Starts COPY FROM STDIN or COPY TO STDOUT when the simple query is such a statement. These
+     * bypass the SQL compiler because the data is exchanged over the COPY sub-protocol.
+     *
+     * @return false when the query is not a COPY to or from the client
+     */
+    private boolean copyStart(CharSequence sqlText) throws PeerIsSlowToReadException, PeerDisconnectedException, QueryPausedException {
+        try {
+            if (!copyOptions.of(sqlText)) {
+                return false;
+            }
+            if (copyOptions.isFrom()) {
+                copyInStart(sqlText);
+            } else {
+                copyOutStart(sqlText);
+            }
+        } catch (Throwable th) {
+            copyInEnd();
+            copyOutFree();
+            if (transactionState == IN_TRANSACTION) {
+                transactionState = ERROR_TRANSACTION;
+            }
+            msgKaput().put(th);
+            msgSync();
+            return true;
+        }
+
+        if (copyIn) {
+            // the response to the copy is sent once the client ends the data stream
+            responseUtf8Sink.sendBufferAndReset();
+        } else {
+            resumeCallback = copyOutRef;
+            copyOut0();
+        }
+        return true;
+    }
+
     private void doSendWithRetries(int bufferOffset, int bufferSize) throws PeerDisconnectedException, PeerIsSlowToReadException {
         int offset = bufferOffset;
         int remaining = bufferSize;
@@ -726,12 +980,6 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
             return;
         }
 
-        if (pipelineCurrentEntry != null && pipelineCurrentEntry.isStateExec()) {
-            // this is the sequence of B/E/B/E where B starts a new pipeline entry
-            pipeline.add(pipelineCurrentEntry);
-            pipelineCurrentEntry = null;
-        }
-
         // portal name
         long hi = getUtf8StrSize(lo, msgLimit, "bad portal name length (bind)", pipelineCurrentEntry);
         CharSequence portalName = getUtf16Str(lo, hi, "invalid UTF8 bytes in portal name (bind)");
@@ -741,6 +989,16 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
 
         CharSequence statementName = getUtf16Str(lo, hi, "invalid UTF8 bytes in statement name (bind)");
 
+        if (pipelineCurrentEntry != null && pipelineCurrentEntry.isStateExec()) {
+            // this is the sequence of B/E/B/E where B starts a new pipeline entry, unless
+            // it repeats the INSERT just executed, which is then batched in the same entry
+            if (portalName == null && pipelineCurrentEntry.foldInsertBind(statementName)) {
+                statementName = null;
+            } else {
+                addPipelineEntry();
+            }
+        }
+
         lookupPipelineEntryForStatementName(statementName);
 
         // Past this point the pipeline entry must not be null.
@@ -906,6 +1164,15 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         boolean isPortal = Unsafe.getUnsafe().getByte(lo) == 'P';
         // todo: we can use utf8 names in maps and also lookup 0 terminator more efficiently
         final long hi = getUtf8StrSize(lo + 1, msgLimit, "bad prepared statement name length (describe)", pipelineCurrentEntry);
+        if (pipelineCurrentEntry != null && pipelineCurrentEntry.isInsertBatchBindPending()) {
+            // describe of the unnamed portal, or of the statement, bound into the insert batch
+            final CharSequence targetName = getUtf16Str(lo + 1, hi, "invalid UTF8 bytes in describe target name");
+            if (isPortal ? targetName != null : !Chars.equalsNc(pipelineCurrentEntry.getPreparedStatementName(), targetName)) {
+                throw msgKaput().put("describe target does not match the bound statement [name=").put(targetName).put(']');
+            }
+            pipelineCurrentEntry.setInsertBatchDescState(isPortal ? PGPipelineEntry.SYNC_DESC_ROW_DESCRIPTION : PGPipelineEntry.SYNC_DESC_PARAMETER_DESCRIPTION);
+            return;
+        }
         final boolean nullTargetName;
         if (isPortal) {
             nullTargetName = lookupPipelineEntryForPortalName(
@@ -1129,6 +1396,9 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         }
         sqlExecutionContext.initNow();
         CharSequence activeSqlText = characterStore.toImmutable();
+        if (copyStart(activeSqlText)) {
+            return;
+        }
         try (SqlCompiler compiler = engine.getSqlCompiler()) {
             compiler.compileBatch(activeSqlText, sqlExecutionContext, batchCallback);
             if (pipelineCurrentEntry == null) {
@@ -1183,6 +1453,7 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         resumeCallback = null;
         responseUtf8Sink.sendBufferAndReset();
         prepareForNewQuery();
+        prefetchPortals();
     }
 
     private void outReadForNewQuery() {
@@ -1251,6 +1522,11 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         }
 
 
+        if (copyIn) {
+            copyInMessage(type, msgLo, msgLimit);
+            return;
+        }
+
         // Message types in the order they usually come over the wire. All "msg" methods
         // are called only from here and are responsible for handling individual messages.
         // Please do not create other methods that start with "msg".
@@ -1287,6 +1563,23 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         }
     }
 
+    // The response has been sent, the client is now busy with the rows. Meanwhile, the
+    // suspended portals encode the rows of their next batch. There is nothing to gain when
+    // the client's next messages have already arrived.
+    private void prefetchPortals() {
+        if (portalPrefetchBufferSize > 0 && recvBufferReadOffset == recvBufferWriteOffset) {
+            final ObjList<CharSequence> names = namedPortals.keys();
+            for (int i = 0, n = names.size(); i < n; i++) {
+                namedPortals.get(names.getQuick(i)).prefetch(
+                        sqlExecutionContext,
+                        portalPrefetchBufferSize,
+                        maxBlobSize,
+                        sendBufferSize
+                );
+            }
+        }
+    }
+
     private void prepareForNewQuery() {
         LOG.debug().$("prepare for new query").$();
         Misc.clear(bindVariableService);
@@ -1305,6 +1598,9 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         if (nextEntry == pipelineCurrentEntry) {
             return;
         }
+        if (pipelineCurrentEntry != null) {
+            pipelineCurrentEntry.endInsertBatch();
+        }
         // Alright, the client wants to use the named statement. What if they just
         // send "parse" message and want to abandon it?
         releaseToPoolIfAbandoned(pipelineCurrentEntry);
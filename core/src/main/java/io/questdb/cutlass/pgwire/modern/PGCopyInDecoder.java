@@ -0,0 +1,840 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire.modern;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.TableWriterAPI;
+import io.questdb.cairo.sql.TableRecordMetadata;
+import io.questdb.cutlass.text.types.TypeAdapter;
+import io.questdb.cutlass.text.types.TypeManager;
+import io.questdb.griffin.SqlUtil;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.NumericException;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.datetime.millitime.Dates;
+import io.questdb.std.str.DirectUtf16Sink;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.std.str.DirectUtf8String;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8s;
+
+/**
+ * Decodes the payload of CopyData messages sent by the client after COPY ... FROM STDIN and appends
+ * the rows to a table writer. Text, CSV and binary formats are supported. Rows are free to span
+ * CopyData messages, the incomplete tail of a message is kept until the next message arrives.
+ * <p>
+ * Values are converted by the same type adapters the text loader uses. Text values are parsed in
+ * place, they are copied only when they contain escape sequences or quotes.
+ */
+public class PGCopyInDecoder implements Mutable, QuietCloseable {
+    // the PGCOPY signature, the flags field and the header extension length
+    private static final int BINARY_HEADER_SIZE = 19;
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    private static final int FIELD_ADDRESS = 0;
+    private static final int FIELD_NULL = 2;
+    private static final int FIELD_SINK = 1;
+    private static final int FIELD_STRIDE = 3;
+    private final DirectUtf8Sink binarySink;
+    private final IntList columnIndexes = new IntList();
+    private final IntList columnTypes = new IntList();
+    private final DirectUtf8Sink fieldSink;
+    // field triplets: lo, hi and kind, the kind says whether lo and hi are addresses or offsets in fieldSink
+    private final LongList fields = new LongList();
+    private final ObjList<TypeAdapter> typeAdapters = new ObjList<>();
+    private final TypeManager typeManager;
+    private final DirectUtf16Sink utf16Sink;
+    private final DirectUtf8Sink utf8Sink;
+    private final DirectUtf8String value = new DirectUtf8String();
+    private long buffer;
+    private long bufferCapacity;
+    private long bufferSize;
+    private boolean endOfData;
+    private byte delimiter;
+    private byte escape;
+    private int format;
+    private boolean header;
+    private boolean headerSkipped;
+    private long lineNumber;
+    private Utf8Sequence nullString;
+    private byte quote;
+    private long rowCount;
+    private int timestampField;
+    private TableWriterAPI writer;
+
+    public PGCopyInDecoder(CairoConfiguration configuration) {
+        final int sinkSize = configuration.getTextConfiguration().getUtf8SinkSize();
+        try {
+            this.fieldSink = new DirectUtf8Sink(sinkSize);
+            this.binarySink = new DirectUtf8Sink(sinkSize);
+            this.utf16Sink = new DirectUtf16Sink(sinkSize);
+            this.utf8Sink = new DirectUtf8Sink(sinkSize);
+            this.typeManager = new TypeManager(configuration.getTextConfiguration(), utf16Sink, utf8Sink);
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    @Override
+    public void clear() {
+        columnIndexes.clear();
+        columnTypes.clear();
+        fields.clear();
+        typeAdapters.clear();
+        typeManager.clear();
+        Misc.clear(fieldSink);
+        Misc.clear(binarySink);
+        bufferSize = 0;
+        endOfData = false;
+        headerSkipped = false;
+        lineNumber = 0;
+        nullString = null;
+        rowCount = 0;
+        timestampField = -1;
+        writer = null;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(fieldSink);
+        Misc.free(binarySink);
+        Misc.free(utf16Sink);
+        Misc.free(utf8Sink);
+        buffer = Unsafe.free(buffer, bufferCapacity, MemoryTag.NATIVE_PGW_CONN);
+        bufferCapacity = 0;
+    }
+
+    /**
+     * Decodes the payload of a CopyData message.
+     *
+     * @param lo payload start address
+     * @param hi payload end address
+     */
+    public void decode(long lo, long hi) throws Exception {
+        if (endOfData) {
+            return;
+        }
+        if (bufferSize == 0) {
+            // the common case, most of the message is decoded in place
+            final long p = decode0(lo, hi, false);
+            append(p, hi);
+        } else {
+            append(lo, hi);
+            final long p = decode0(buffer, buffer + bufferSize, false);
+            compact(p);
+        }
+    }
+
+    /**
+     * Decodes the data left over from the preceding CopyData messages, such as the last
+     * line of text without the trailing newline, and returns the number of appended rows.
+     * The rows are not committed.
+     */
+    public long finish() throws Exception {
+        if (!endOfData && bufferSize > 0) {
+            final long p = decode0(buffer, buffer + bufferSize, true);
+            compact(p);
+        }
+        if (bufferSize > 0 && !endOfData) {
+            throw CairoException.nonCritical().put(
+                    format == PGCopyOptions.FORMAT_BINARY ? "unexpected end of binary COPY data" : "unterminated CSV quoted field"
+            );
+        }
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columnIndexes.size();
+    }
+
+    public int getFormat() {
+        return format;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Prepares the decoder to append rows to the given writer. The columns are those listed in the
+     * COPY statement, or all table columns in table order when the statement has no column list.
+     */
+    public void of(TableWriterAPI writer, PGCopyOptions options) {
+        clear();
+        this.writer = writer;
+        this.format = options.getFormat();
+        this.delimiter = options.getDelimiter();
+        this.quote = options.getQuote();
+        this.escape = options.getEscape();
+        this.header = options.isHeader();
+        this.nullString = options.getNullString();
+
+        final TableRecordMetadata metadata = writer.getMetadata();
+        final ObjList<CharSequence> columnNames = options.getColumnNames();
+        if (columnNames.size() == 0) {
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                if (metadata.getColumnType(i) > 0) {
+                    addColumn(metadata, i);
+                }
+            }
+        } else {
+            for (int i = 0, n = columnNames.size(); i < n; i++) {
+                final int columnIndex = metadata.getColumnIndexQuiet(columnNames.getQuick(i));
+                if (columnIndex < 0) {
+                    throw CairoException.nonCritical().put("column does not exist [table=").put(options.getTableName())
+                            .put(", column=").put(columnNames.getQuick(i)).put(']');
+                }
+                addColumn(metadata, columnIndex);
+            }
+        }
+
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex > -1) {
+            timestampField = columnIndexes.indexOf(timestampIndex, 0, columnIndexes.size());
+            if (timestampField < 0) {
+                throw CairoException.nonCritical().put("designated timestamp column must be copied [table=")
+                        .put(options.getTableName()).put(", column=").put(metadata.getColumnName(timestampIndex)).put(']');
+            }
+        }
+    }
+
+    private static long getIntegral(long lo, long len) {
+        switch ((int) len) {
+            case Byte.BYTES:
+                return Unsafe.getUnsafe().getByte(lo);
+            case Short.BYTES:
+                return Numbers.bswap(Unsafe.getUnsafe().getShort(lo));
+            case Integer.BYTES:
+                return Numbers.bswap(Unsafe.getUnsafe().getInt(lo));
+            case Long.BYTES:
+                return Numbers.bswap(Unsafe.getUnsafe().getLong(lo));
+            default:
+                throw CairoException.nonCritical().put("unexpected binary integer size [size=").put(len).put(']');
+        }
+    }
+
+    private static int hexDigit(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        final int c = b | 32;
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean isTrue(Utf8Sequence value) {
+        if (value.size() == 1) {
+            final int c = value.byteAt(0) | 32;
+            if (c == 't' || c == 'y' || c == '1') {
+                return true;
+            }
+            if (c == 'f' || c == 'n' || c == '0') {
+                return false;
+            }
+        } else if (Utf8s.equalsIgnoreCaseAscii("true", value) || Utf8s.equalsIgnoreCaseAscii("yes", value) || Utf8s.equalsIgnoreCaseAscii("on", value)) {
+            return true;
+        } else if (Utf8s.equalsIgnoreCaseAscii("false", value) || Utf8s.equalsIgnoreCaseAscii("no", value) || Utf8s.equalsIgnoreCaseAscii("off", value)) {
+            return false;
+        }
+        throw CairoException.nonCritical().put("invalid boolean value [value=").put(value).put(']');
+    }
+
+    private void addColumn(TableRecordMetadata metadata, int columnIndex) {
+        if (columnIndexes.indexOf(columnIndex, 0, columnIndexes.size()) > -1) {
+            throw CairoException.nonCritical().put("duplicate column [column=").put(metadata.getColumnName(columnIndex)).put(']');
+        }
+        final int columnType = metadata.getColumnType(columnIndex);
+        columnIndexes.add(columnIndex);
+        columnTypes.add(columnType);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.CHAR:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.VARCHAR:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.BINARY:
+                typeAdapters.add(null);
+                break;
+            default:
+                typeAdapters.add(typeManager.getTypeAdapter(columnType));
+                break;
+        }
+    }
+
+    private void addField(long lo, long hi, int kind) {
+        fields.add(lo, hi);
+        fields.add(kind);
+    }
+
+    private void append(long lo, long hi) {
+        final long len = hi - lo;
+        if (len > 0) {
+            if (bufferSize + len > bufferCapacity) {
+                final long capacity = Math.max(bufferCapacity * 2, bufferSize + len);
+                buffer = Unsafe.realloc(buffer, bufferCapacity, capacity, MemoryTag.NATIVE_PGW_CONN);
+                bufferCapacity = capacity;
+            }
+            Vect.memcpy(buffer + bufferSize, lo, len);
+            bufferSize += len;
+        }
+    }
+
+    private void compact(long p) {
+        final long len = buffer + bufferSize - p;
+        if (len > 0 && p > buffer) {
+            Vect.memmove(buffer, p, len);
+        }
+        bufferSize = len;
+    }
+
+    // returns address of the first byte that was not decoded
+    private long decode0(long lo, long hi, boolean last) throws Exception {
+        switch (format) {
+            case PGCopyOptions.FORMAT_CSV:
+                return decodeCsv(lo, hi, last);
+            case PGCopyOptions.FORMAT_BINARY:
+                return decodeBinary(lo, hi);
+            default:
+                return decodeText(lo, hi, last);
+        }
+    }
+
+    private long decodeBinary(long lo, long hi) throws Exception {
+        long p = lo;
+        if (lineNumber == 0) {
+            if (hi - p < BINARY_HEADER_SIZE) {
+                return p;
+            }
+            for (int i = 0, n = BINARY_SIGNATURE.length; i < n; i++) {
+                if (Unsafe.getUnsafe().getByte(p + i) != BINARY_SIGNATURE[i]) {
+                    throw CairoException.nonCritical().put("COPY file signature not recognized");
+                }
+            }
+            final int extensionSize = Numbers.bswap(Unsafe.getUnsafe().getInt(p + BINARY_SIGNATURE.length + Integer.BYTES));
+            if (hi - p < BINARY_HEADER_SIZE + (long) extensionSize) {
+                return p;
+            }
+            p += BINARY_HEADER_SIZE + extensionSize;
+            lineNumber++;
+        }
+
+        while (hi - p >= Short.BYTES) {
+            final short fieldCount = Numbers.bswap(Unsafe.getUnsafe().getShort(p));
+            if (fieldCount == -1) {
+                // file trailer
+                endOfData = true;
+                return hi;
+            }
+            fields.clear();
+            long q = p + Short.BYTES;
+            for (int i = 0; i < fieldCount; i++) {
+                if (hi - q < Integer.BYTES) {
+                    return p;
+                }
+                final int len = Numbers.bswap(Unsafe.getUnsafe().getInt(q));
+                q += Integer.BYTES;
+                if (len < 0) {
+                    addField(q, q, FIELD_NULL);
+                } else {
+                    if (hi - q < len) {
+                        return p;
+                    }
+                    addField(q, q + len, FIELD_ADDRESS);
+                    q += len;
+                }
+            }
+            lineNumber++;
+            writeRow();
+            p = q;
+        }
+        return p;
+    }
+
+    private long decodeCsv(long lo, long hi, boolean last) throws Exception {
+        long p = lo;
+        while (p < hi) {
+            long eol = findCsvRecordEnd(p, hi);
+            if (eol < 0) {
+                if (!last) {
+                    return p;
+                }
+                eol = hi;
+            }
+            decodeCsvRecord(p, eol);
+            p = Math.min(eol + 1, hi);
+            if (endOfData) {
+                return hi;
+            }
+        }
+        return p;
+    }
+
+    private void decodeCsvRecord(long lo, long hi) throws Exception {
+        if (hi > lo && Unsafe.getUnsafe().getByte(hi - 1) == '\r') {
+            hi--;
+        }
+        lineNumber++;
+        if (isEndOfDataMarker(lo, hi)) {
+            endOfData = true;
+            return;
+        }
+        if (skipHeader()) {
+            return;
+        }
+
+        fields.clear();
+        fieldSink.clear();
+        long p = lo;
+        while (true) {
+            final long fieldLo = p;
+            if (p < hi && Unsafe.getUnsafe().getByte(p) == quote) {
+                final long sinkLo = fieldSink.size();
+                boolean quoted = true;
+                p++;
+                while (p < hi) {
+                    final byte b = Unsafe.getUnsafe().getByte(p);
+                    if (quoted) {
+                        if (b == escape && p + 1 < hi) {
+                            final byte next = Unsafe.getUnsafe().getByte(p + 1);
+                            if (next == quote || (escape != quote && next == escape)) {
+                                fieldSink.putAny(next);
+                                p += 2;
+                                continue;
+                            }
+                        }
+                        if (b == quote) {
+                            quoted = false;
+                        } else {
+                            fieldSink.putAny(b);
+                        }
+                    } else if (b == delimiter) {
+                        break;
+                    } else if (b == quote) {
+                        quoted = true;
+                    } else {
+                        fieldSink.putAny(b);
+                    }
+                    p++;
+                }
+                if (quoted) {
+                    throw CairoException.nonCritical().put("unterminated CSV quoted field");
+                }
+                // quoted values are never null
+                addField(sinkLo, fieldSink.size(), FIELD_SINK);
+            } else {
+                while (p < hi && Unsafe.getUnsafe().getByte(p) != delimiter) {
+                    p++;
+                }
+                addField(fieldLo, p, isNullString(fieldLo, p) ? FIELD_NULL : FIELD_ADDRESS);
+            }
+            if (p == hi) {
+                break;
+            }
+            // skip delimiter
+            p++;
+        }
+        writeRow();
+    }
+
+    private long decodeText(long lo, long hi, boolean last) throws Exception {
+        long p = lo;
+        while (p < hi) {
+            long eol = p;
+            while (eol < hi && Unsafe.getUnsafe().getByte(eol) != '\n') {
+                eol++;
+            }
+            if (eol == hi && !last) {
+                return p;
+            }
+            decodeTextLine(p, eol);
+            p = Math.min(eol + 1, hi);
+            if (endOfData) {
+                return hi;
+            }
+        }
+        return p;
+    }
+
+    private void decodeTextLine(long lo, long hi) throws Exception {
+        if (hi > lo && Unsafe.getUnsafe().getByte(hi - 1) == '\r') {
+            hi--;
+        }
+        lineNumber++;
+        if (isEndOfDataMarker(lo, hi)) {
+            endOfData = true;
+            return;
+        }
+        if (skipHeader()) {
+            return;
+        }
+
+        fields.clear();
+        fieldSink.clear();
+        long fieldLo = lo;
+        boolean escaped = false;
+        long p = lo;
+        while (true) {
+            if (p == hi || Unsafe.getUnsafe().getByte(p) == delimiter) {
+                if (isNullString(fieldLo, p)) {
+                    addField(fieldLo, p, FIELD_NULL);
+                } else if (escaped) {
+                    final long sinkLo = fieldSink.size();
+                    unescape(fieldLo, p);
+                    addField(sinkLo, fieldSink.size(), FIELD_SINK);
+                } else {
+                    addField(fieldLo, p, FIELD_ADDRESS);
+                }
+                if (p == hi) {
+                    break;
+                }
+                fieldLo = ++p;
+                escaped = false;
+            } else if (Unsafe.getUnsafe().getByte(p) == '\\') {
+                // the escaped character is never a delimiter
+                escaped = true;
+                p = Math.min(p + 2, hi);
+            } else {
+                p++;
+            }
+        }
+        writeRow();
+    }
+
+    private long findCsvRecordEnd(long lo, long hi) {
+        boolean quoted = false;
+        for (long p = lo; p < hi; p++) {
+            final byte b = Unsafe.getUnsafe().getByte(p);
+            if (quoted && b == escape && escape != quote) {
+                // the escape character is followed by the escaped one
+                p++;
+            } else if (b == quote) {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    private CairoException invalidValue(int field, Utf8Sequence value, Throwable th) {
+        final CairoException e = CairoException.nonCritical().put("invalid COPY value [line=").put(lineNumber)
+                .put(", column=").put(writer.getMetadata().getColumnName(columnIndexes.getQuick(field)))
+                .put(", type=").put(ColumnType.nameOf(columnTypes.getQuick(field)));
+        if (value != null) {
+            e.put(", value=").put(value);
+        }
+        if (th instanceof CairoException) {
+            e.put(", error=").put(((CairoException) th).getFlyweightMessage());
+        }
+        return e.put(']');
+    }
+
+    private boolean isEndOfDataMarker(long lo, long hi) {
+        return hi - lo == 2 && Unsafe.getUnsafe().getByte(lo) == '\\' && Unsafe.getUnsafe().getByte(lo + 1) == '.';
+    }
+
+    private boolean isNullString(long lo, long hi) {
+        final int size = nullString.size();
+        if (hi - lo != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (Unsafe.getUnsafe().getByte(lo + i) != nullString.byteAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void putBinaryValue(TableWriter.Row row, int field, long lo, long hi) throws Exception {
+        final int columnIndex = columnIndexes.getQuick(field);
+        final int columnType = columnTypes.getQuick(field);
+        final long len = hi - lo;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                row.putBool(columnIndex, Unsafe.getUnsafe().getByte(lo) != 0);
+                break;
+            case ColumnType.BYTE:
+                row.putByte(columnIndex, (byte) getIntegral(lo, len));
+                break;
+            case ColumnType.SHORT:
+                row.putShort(columnIndex, (short) getIntegral(lo, len));
+                break;
+            case ColumnType.INT:
+                row.putInt(columnIndex, (int) getIntegral(lo, len));
+                break;
+            case ColumnType.LONG:
+                row.putLong(columnIndex, getIntegral(lo, len));
+                break;
+            case ColumnType.FLOAT:
+                row.putFloat(columnIndex, len == Float.BYTES ? Float.intBitsToFloat((int) getIntegral(lo, len)) : (float) Double.longBitsToDouble(getIntegral(lo, len)));
+                break;
+            case ColumnType.DOUBLE:
+                row.putDouble(columnIndex, len == Float.BYTES ? Float.intBitsToFloat((int) getIntegral(lo, len)) : Double.longBitsToDouble(getIntegral(lo, len)));
+                break;
+            case ColumnType.DATE:
+                // PostgreSQL dates are days since 2000-01-01, timestamps are microseconds since 2000-01-01
+                row.putDate(columnIndex, len == Integer.BYTES
+                        ? getIntegral(lo, len) * Dates.DAY_MILLIS + Numbers.JULIAN_EPOCH_OFFSET_MILLIS
+                        : getIntegral(lo, len) / 1000 + Numbers.JULIAN_EPOCH_OFFSET_MILLIS);
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(columnIndex, getTimestamp(lo, hi));
+                break;
+            case ColumnType.UUID:
+                if (len != 2 * Long.BYTES) {
+                    throw CairoException.nonCritical().put("unexpected binary UUID size [size=").put(len).put(']');
+                }
+                row.putLong128(columnIndex, getIntegral(lo + Long.BYTES, Long.BYTES), getIntegral(lo, Long.BYTES));
+                break;
+            case ColumnType.IPv4:
+                // inet is sent as family, bits, is_cidr, address length and the address
+                row.putIPv4(columnIndex, (int) getIntegral(len == Integer.BYTES ? lo : hi - Integer.BYTES, Integer.BYTES));
+                break;
+            case ColumnType.BINARY:
+                row.putBin(columnIndex, lo, len);
+                break;
+            case ColumnType.CHAR:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.VARCHAR:
+                putTextValue(row, field, value.of(lo, hi));
+                break;
+            default:
+                throw CairoException.nonCritical().put("binary COPY is not supported for column type [type=")
+                        .put(ColumnType.nameOf(columnType)).put(']');
+        }
+    }
+
+    private void putTextValue(TableWriter.Row row, int field, DirectUtf8String value) throws Exception {
+        final int columnIndex = columnIndexes.getQuick(field);
+        switch (ColumnType.tagOf(columnTypes.getQuick(field))) {
+            case ColumnType.BOOLEAN:
+                row.putBool(columnIndex, isTrue(value));
+                break;
+            case ColumnType.CHAR:
+                row.putChar(columnIndex, SqlUtil.implicitCastVarcharAsChar(value));
+                break;
+            case ColumnType.STRING:
+                row.putStr(columnIndex, toUtf16(value));
+                break;
+            case ColumnType.SYMBOL:
+                row.putSym(columnIndex, toUtf16(value));
+                break;
+            case ColumnType.VARCHAR:
+                row.putVarchar(columnIndex, value);
+                break;
+            case ColumnType.DATE:
+                row.putDate(columnIndex, SqlUtil.implicitCastVarcharAsDate(value.asAsciiCharSequence()));
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(columnIndex, SqlUtil.implicitCastVarcharAsTimestamp(value.asAsciiCharSequence()));
+                break;
+            case ColumnType.BINARY:
+                putHexBinary(row, columnIndex, value);
+                break;
+            default:
+                typeAdapters.getQuick(field).write(row, columnIndex, value, utf16Sink, utf8Sink);
+                break;
+        }
+    }
+
+    private long getTimestamp(long lo, long hi) {
+        if (hi - lo != Long.BYTES) {
+            throw CairoException.nonCritical().put("unexpected binary timestamp size [size=").put(hi - lo).put(']');
+        }
+        return getIntegral(lo, Long.BYTES) + Numbers.JULIAN_EPOCH_OFFSET_USEC;
+    }
+
+    // bytea values are sent as hex, e.g. \x0a0b
+    private void putHexBinary(TableWriter.Row row, int columnIndex, DirectUtf8String value) throws NumericException {
+        final int size = value.size();
+        if (size < 2 || value.byteAt(0) != '\\' || value.byteAt(1) != 'x') {
+            row.putBin(columnIndex, value.lo(), size);
+            return;
+        }
+        if ((size & 1) != 0) {
+            throw NumericException.INSTANCE;
+        }
+        binarySink.clear();
+        for (int i = 2; i < size; i += 2) {
+            final int h = hexDigit(value.byteAt(i));
+            final int l = hexDigit(value.byteAt(i + 1));
+            if (h < 0 || l < 0) {
+                throw NumericException.INSTANCE;
+            }
+            binarySink.putAny((byte) (h << 4 | l));
+        }
+        row.putBin(columnIndex, binarySink.ptr(), binarySink.size());
+    }
+
+    private boolean skipHeader() {
+        if (header && !headerSkipped) {
+            headerSkipped = true;
+            return true;
+        }
+        return false;
+    }
+
+    private CharSequence toUtf16(DirectUtf8String value) {
+        utf16Sink.clear();
+        if (!Utf8s.utf8ToUtf16(value.lo(), value.hi(), utf16Sink)) {
+            throw CairoException.nonCritical().put("invalid UTF8 bytes in COPY value");
+        }
+        return utf16Sink;
+    }
+
+    private void unescape(long lo, long hi) {
+        for (long p = lo; p < hi; p++) {
+            final byte b = Unsafe.getUnsafe().getByte(p);
+            if (b != '\\' || p + 1 == hi) {
+                fieldSink.putAny(b);
+                continue;
+            }
+            final byte c = Unsafe.getUnsafe().getByte(++p);
+            switch (c) {
+                case 'b':
+                    fieldSink.putAny((byte) '\b');
+                    break;
+                case 'f':
+                    fieldSink.putAny((byte) '\f');
+                    break;
+                case 'n':
+                    fieldSink.putAny((byte) '\n');
+                    break;
+                case 'r':
+                    fieldSink.putAny((byte) '\r');
+                    break;
+                case 't':
+                    fieldSink.putAny((byte) '\t');
+                    break;
+                case 'v':
+                    fieldSink.putAny((byte) 11);
+                    break;
+                case 'x': {
+                    int v = 0;
+                    int digits = 0;
+                    int d;
+                    while (digits < 2 && p + 1 < hi && (d = hexDigit(Unsafe.getUnsafe().getByte(p + 1))) > -1) {
+                        v = v << 4 | d;
+                        digits++;
+                        p++;
+                    }
+                    fieldSink.putAny(digits > 0 ? (byte) v : c);
+                    break;
+                }
+                default:
+                    if (c >= '0' && c <= '7') {
+                        int v = c - '0';
+                        byte d;
+                        for (int i = 0; i < 2 && p + 1 < hi && (d = Unsafe.getUnsafe().getByte(p + 1)) >= '0' && d <= '7'; i++) {
+                            v = v << 3 | (d - '0');
+                            p++;
+                        }
+                        fieldSink.putAny((byte) v);
+                    } else {
+                        fieldSink.putAny(c);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void writeRow() throws Exception {
+        final int fieldCount = fields.size() / FIELD_STRIDE;
+        final int columnCount = columnIndexes.size();
+        if (fieldCount != columnCount) {
+            throw CairoException.nonCritical().put(fieldCount < columnCount ? "missing data for column" : "extra data after last expected column")
+                    .put(" [line=").put(lineNumber).put(", expected=").put(columnCount).put(", actual=").put(fieldCount).put(']');
+        }
+
+        final boolean binary = format == PGCopyOptions.FORMAT_BINARY;
+        final long sinkLo = fieldSink.ptr();
+        final TableWriter.Row row;
+        if (timestampField > -1) {
+            final int offset = timestampField * FIELD_STRIDE;
+            final int kind = (int) fields.getQuick(offset + 2);
+            if (kind == FIELD_NULL) {
+                throw CairoException.nonCritical().put("designated timestamp cannot be null [line=").put(lineNumber).put(']');
+            }
+            final long base = kind == FIELD_SINK ? sinkLo : 0;
+            final long lo = base + fields.getQuick(offset);
+            final long hi = base + fields.getQuick(offset + 1);
+            long timestamp;
+            try {
+                timestamp = binary ? getTimestamp(lo, hi) : SqlUtil.implicitCastVarcharAsTimestamp(value.of(lo, hi).asAsciiCharSequence());
+            } catch (Throwable th) {
+                throw invalidValue(timestampField, binary ? null : value.of(lo, hi), th);
+            }
+            row = writer.newRow(timestamp);
+        } else {
+            row = writer.newRow();
+        }
+
+        try {
+            for (int i = 0; i < fieldCount; i++) {
+                final int offset = i * FIELD_STRIDE;
+                final int kind = (int) fields.getQuick(offset + 2);
+                if (i == timestampField || kind == FIELD_NULL) {
+                    continue;
+                }
+                final long base = kind == FIELD_SINK ? sinkLo : 0;
+                final long lo = base + fields.getQuick(offset);
+                final long hi = base + fields.getQuick(offset + 1);
+                try {
+                    if (binary) {
+                        putBinaryValue(row, i, lo, hi);
+                    } else {
+                        putTextValue(row, i, value.of(lo, hi));
+                    }
+                } catch (Throwable th) {
+                    throw invalidValue(i, binary ? null : value.of(lo, hi), th);
+                }
+            }
+            row.append();
+        } catch (Throwable th) {
+            row.cancel();
+            throw th;
+        }
+        rowCount++;
+    }
+}
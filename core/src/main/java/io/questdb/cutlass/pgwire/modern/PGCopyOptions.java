@@ -0,0 +1,443 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire.modern;
+
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlKeywords;
+import io.questdb.griffin.SqlUtil;
+import io.questdb.std.Chars;
+import io.questdb.std.GenericLexer;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8String;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Parses the COPY statements that stream data over the connection rather than to and from
+ * a server-side file:
+ * <pre>
+ * COPY table [(column, ...)] FROM STDIN [[WITH] (option, ...)]
+ * COPY {table [(column, ...)] | (query)} TO STDOUT [[WITH] (option, ...)]
+ * </pre>
+ * Supported options are FORMAT, DELIMITER, NULL, HEADER, QUOTE, ESCAPE and ENCODING, as well as
+ * the pre-9.0 option syntax, e.g. {@code WITH CSV HEADER DELIMITER AS ';'}. Statements that
+ * do not target STDIN or STDOUT are left to the SQL compiler.
+ */
+public class PGCopyOptions implements Mutable {
+    public static final int FORMAT_BINARY = 2;
+    public static final int FORMAT_CSV = 1;
+    public static final int FORMAT_TEXT = 0;
+    private static final Utf8String CSV_NULL = new Utf8String("");
+    private static final Utf8String TEXT_NULL = new Utf8String("\\N");
+    private final ObjList<CharSequence> columnNames = new ObjList<>();
+    private final GenericLexer lexer = new GenericLexer(64);
+    private final StringSink valueSink = new StringSink();
+    private int delimiter;
+    private int escape;
+    private int format;
+    private boolean from;
+    private boolean header;
+    private Utf8String nullString;
+    private int quote;
+    private String query;
+    private String tableName;
+    private int tableNamePosition;
+
+    public PGCopyOptions() {
+        lexer.defineSymbol("(");
+        lexer.defineSymbol(")");
+        lexer.defineSymbol(",");
+        lexer.defineSymbol(";");
+        lexer.defineSymbol("/*");
+        lexer.defineSymbol("*/");
+        lexer.defineSymbol("--");
+    }
+
+    @Override
+    public void clear() {
+        columnNames.clear();
+        delimiter = -1;
+        escape = -1;
+        format = FORMAT_TEXT;
+        from = false;
+        header = false;
+        nullString = null;
+        quote = -1;
+        query = null;
+        tableName = null;
+        tableNamePosition = 0;
+    }
+
+    public ObjList<CharSequence> getColumnNames() {
+        return columnNames;
+    }
+
+    public byte getDelimiter() {
+        return (byte) delimiter;
+    }
+
+    public byte getEscape() {
+        return (byte) escape;
+    }
+
+    public int getFormat() {
+        return format;
+    }
+
+    public Utf8String getNullString() {
+        return nullString;
+    }
+
+    /**
+     * Returns the text of the query whose result set is copied to STDOUT. When the statement names
+     * a table rather than a query, the query selects the listed columns of that table.
+     */
+    public CharSequence getQuery() {
+        return query;
+    }
+
+    public byte getQuote() {
+        return (byte) quote;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public int getTableNamePosition() {
+        return tableNamePosition;
+    }
+
+    public boolean isFrom() {
+        return from;
+    }
+
+    public boolean isHeader() {
+        return header;
+    }
+
+    /**
+     * Parses the SQL text.
+     *
+     * @param sqlText SQL text of a simple query message
+     * @return true when the text is a COPY FROM STDIN or COPY TO STDOUT statement, false otherwise
+     * @throws SqlException when the text is such a statement, but its options are invalid
+     */
+    public boolean of(CharSequence sqlText) throws SqlException {
+        clear();
+        lexer.of(sqlText);
+        CharSequence tok = SqlUtil.fetchNext(lexer);
+        if (tok == null || !SqlKeywords.isCopyKeyword(tok)) {
+            return false;
+        }
+
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok == null) {
+            return false;
+        }
+        int queryPosition = -1;
+        if (Chars.equals(tok, '(')) {
+            queryPosition = lexer.getPosition();
+            int depth = 1;
+            while (depth > 0) {
+                tok = SqlUtil.fetchNext(lexer);
+                if (tok == null) {
+                    return false;
+                }
+                if (Chars.equals(tok, '(')) {
+                    depth++;
+                } else if (Chars.equals(tok, ')')) {
+                    depth--;
+                }
+            }
+            query = sqlText.subSequence(queryPosition, lexer.lastTokenPosition()).toString();
+            tok = SqlUtil.fetchNext(lexer);
+        } else {
+            tableNamePosition = lexer.lastTokenPosition();
+            tableName = Chars.toString(GenericLexer.unquote(tok));
+            tok = SqlUtil.fetchNext(lexer);
+            if (tok != null && Chars.equals(tok, '(')) {
+                parseColumnNames();
+                tok = SqlUtil.fetchNext(lexer);
+            }
+        }
+
+        if (tok == null) {
+            return false;
+        }
+        if (SqlKeywords.isFromKeyword(tok)) {
+            from = true;
+        } else if (!SqlKeywords.isToKeyword(tok)) {
+            return false;
+        }
+
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok == null || !Chars.equalsLowerCaseAscii(tok, from ? "stdin" : "stdout")) {
+            return false;
+        }
+        if (from && query != null) {
+            throw SqlException.$(queryPosition, "COPY FROM STDIN does not accept a query, table name expected");
+        }
+
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok != null && SqlKeywords.isWithKeyword(tok)) {
+            tok = SqlUtil.fetchNext(lexer);
+        }
+        if (tok != null && Chars.equals(tok, '(')) {
+            parseOptionList();
+        } else {
+            while (tok != null && !Chars.equals(tok, ';')) {
+                parseLegacyOption(tok);
+                tok = SqlUtil.fetchNext(lexer);
+            }
+        }
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok != null && Chars.equals(tok, ';')) {
+            tok = SqlUtil.fetchNext(lexer);
+        }
+        if (tok != null) {
+            throw SqlException.$(lexer.lastTokenPosition(), "unexpected token [token=").put(tok).put(']');
+        }
+
+        if (query == null && !from) {
+            final StringSink sink = valueSink;
+            sink.clear();
+            sink.put("select ");
+            if (columnNames.size() == 0) {
+                sink.put('*');
+            } else {
+                for (int i = 0, n = columnNames.size(); i < n; i++) {
+                    if (i > 0) {
+                        sink.put(',');
+                    }
+                    sink.put('"').put(columnNames.getQuick(i)).put('"');
+                }
+            }
+            sink.put(" from \"").put(tableName).put('"');
+            query = sink.toString();
+        }
+        applyDefaults();
+        return true;
+    }
+
+    private static boolean isTrue(CharSequence value) {
+        return SqlKeywords.isTrueKeyword(value)
+                || SqlKeywords.isOnKeyword(value)
+                || Chars.equals(value, '1');
+    }
+
+    private void applyDefaults() throws SqlException {
+        if (format == FORMAT_BINARY) {
+            if (delimiter != -1 || nullString != null || quote != -1 || escape != -1 || header) {
+                throw SqlException.$(0, "cannot specify DELIMITER, NULL, QUOTE, ESCAPE or HEADER in BINARY mode");
+            }
+            return;
+        }
+        if (format == FORMAT_TEXT && (quote != -1 || escape != -1)) {
+            throw SqlException.$(0, "QUOTE and ESCAPE are available only in CSV mode");
+        }
+        if (delimiter == -1) {
+            delimiter = format == FORMAT_CSV ? ',' : '\t';
+        }
+        if (nullString == null) {
+            nullString = format == FORMAT_CSV ? CSV_NULL : TEXT_NULL;
+        }
+        if (quote == -1) {
+            quote = '"';
+        }
+        if (escape == -1) {
+            escape = quote;
+        }
+        if (delimiter == '\n' || delimiter == '\r' || delimiter == quote || (format == FORMAT_TEXT && delimiter == '\\')) {
+            throw SqlException.$(0, "COPY delimiter cannot be newline, carriage return, quote or backslash");
+        }
+    }
+
+    private byte expectChar(CharSequence option) throws SqlException {
+        final CharSequence value = expectString(option);
+        if (value.length() != 1 || value.charAt(0) > 127) {
+            throw SqlException.$(lexer.lastTokenPosition(), "COPY ").put(option).put(" must be a single one-byte character");
+        }
+        return (byte) value.charAt(0);
+    }
+
+    private CharSequence expectString(CharSequence option) throws SqlException {
+        CharSequence tok = SqlUtil.fetchNext(lexer);
+        if (tok != null && SqlKeywords.isAsKeyword(tok)) {
+            tok = SqlUtil.fetchNext(lexer);
+        }
+        if (tok == null) {
+            throw SqlException.$(lexer.getPosition(), "value expected for COPY option [option=").put(option).put(']');
+        }
+        // E'...' strings are used to pass control characters, e.g. DELIMITER E'\t'
+        final boolean escaped = tok.length() > 2 && (tok.charAt(0) | 32) == 'e' && Chars.isQuoted(tok.subSequence(1, tok.length()));
+        if (escaped) {
+            tok = tok.subSequence(1, tok.length());
+        } else if (!Chars.isQuoted(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "quoted string expected for COPY option [option=").put(option).put(']');
+        }
+        final StringSink sink = valueSink;
+        sink.clear();
+        for (int i = 1, n = tok.length() - 1; i < n; i++) {
+            char c = tok.charAt(i);
+            if (c == '\'' && i + 1 < n && tok.charAt(i + 1) == '\'') {
+                i++;
+            } else if (escaped && c == '\\' && i + 1 < n) {
+                c = tok.charAt(++i);
+                switch (c) {
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    default:
+                        break;
+                }
+            }
+            sink.put(c);
+        }
+        return sink;
+    }
+
+    private void parseColumnNames() throws SqlException {
+        while (true) {
+            CharSequence tok = SqlUtil.fetchNext(lexer);
+            if (tok == null || Chars.equals(tok, ')') || Chars.equals(tok, ',')) {
+                throw SqlException.$(lexer.lastTokenPosition(), "column name expected");
+            }
+            final String columnName = Chars.toString(GenericLexer.unquote(tok));
+            for (int i = 0, n = columnNames.size(); i < n; i++) {
+                if (Chars.equalsIgnoreCase(columnNames.getQuick(i), columnName)) {
+                    throw SqlException.duplicateColumn(lexer.lastTokenPosition(), columnName);
+                }
+            }
+            columnNames.add(columnName);
+            tok = SqlUtil.fetchNext(lexer);
+            if (tok != null && Chars.equals(tok, ')')) {
+                return;
+            }
+            if (tok == null || !Chars.equals(tok, ',')) {
+                throw SqlException.$(lexer.lastTokenPosition(), "',' or ')' expected");
+            }
+        }
+    }
+
+    private void parseFormat(@Nullable CharSequence tok) throws SqlException {
+        if (tok == null) {
+            throw SqlException.$(lexer.getPosition(), "COPY format expected");
+        }
+        final CharSequence name = GenericLexer.unquote(tok);
+        if (SqlKeywords.isTextKeyword(name)) {
+            format = FORMAT_TEXT;
+        } else if (Chars.equalsLowerCaseAscii(name, "csv")) {
+            format = FORMAT_CSV;
+        } else if (Chars.equalsLowerCaseAscii(name, "binary")) {
+            format = FORMAT_BINARY;
+        } else {
+            throw SqlException.$(lexer.lastTokenPosition(), "COPY format not recognized [format=").put(name).put(']');
+        }
+    }
+
+    private void parseLegacyOption(CharSequence tok) throws SqlException {
+        if (Chars.equalsLowerCaseAscii(tok, "binary")) {
+            format = FORMAT_BINARY;
+        } else if (Chars.equalsLowerCaseAscii(tok, "csv")) {
+            format = FORMAT_CSV;
+        } else if (SqlKeywords.isHeaderKeyword(tok)) {
+            header = true;
+        } else if (SqlKeywords.isDelimiterKeyword(tok)) {
+            delimiter = expectChar("DELIMITER");
+        } else if (SqlKeywords.isNullKeyword(tok)) {
+            nullString = new Utf8String(expectString("NULL"));
+        } else if (Chars.equalsLowerCaseAscii(tok, "quote")) {
+            quote = expectChar("QUOTE");
+        } else if (Chars.equalsLowerCaseAscii(tok, "escape")) {
+            escape = expectChar("ESCAPE");
+        } else {
+            throw SqlException.$(lexer.lastTokenPosition(), "unsupported COPY option [option=").put(tok).put(']');
+        }
+    }
+
+    private void parseOptionList() throws SqlException {
+        while (true) {
+            CharSequence tok = SqlUtil.fetchNext(lexer);
+            if (tok == null || Chars.equals(tok, ')') || Chars.equals(tok, ',')) {
+                throw SqlException.$(lexer.lastTokenPosition(), "COPY option expected");
+            }
+            final int optionPosition = lexer.lastTokenPosition();
+            if (SqlKeywords.isFormatKeyword(tok)) {
+                parseFormat(SqlUtil.fetchNext(lexer));
+                tok = SqlUtil.fetchNext(lexer);
+            } else if (SqlKeywords.isHeaderKeyword(tok)) {
+                tok = SqlUtil.fetchNext(lexer);
+                if (tok != null && !Chars.equals(tok, ',') && !Chars.equals(tok, ')')) {
+                    header = isTrue(GenericLexer.unquote(tok)) || Chars.equalsLowerCaseAscii(tok, "match");
+                    tok = SqlUtil.fetchNext(lexer);
+                } else {
+                    header = true;
+                }
+            } else if (SqlKeywords.isDelimiterKeyword(tok)) {
+                delimiter = expectChar("DELIMITER");
+                tok = SqlUtil.fetchNext(lexer);
+            } else if (SqlKeywords.isNullKeyword(tok)) {
+                nullString = new Utf8String(expectString("NULL"));
+                tok = SqlUtil.fetchNext(lexer);
+            } else if (Chars.equalsLowerCaseAscii(tok, "quote")) {
+                quote = expectChar("QUOTE");
+                tok = SqlUtil.fetchNext(lexer);
+            } else if (Chars.equalsLowerCaseAscii(tok, "escape")) {
+                escape = expectChar("ESCAPE");
+                tok = SqlUtil.fetchNext(lexer);
+            } else if (Chars.equalsLowerCaseAscii(tok, "encoding")) {
+                final CharSequence encoding = expectString("ENCODING");
+                if (!Chars.equalsLowerCaseAscii(encoding, "utf8") && !Chars.equalsLowerCaseAscii(encoding, "utf-8")) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "only UTF8 encoding is supported");
+                }
+                tok = SqlUtil.fetchNext(lexer);
+            } else {
+                throw SqlException.$(optionPosition, "unsupported COPY option [option=").put(tok).put(']');
+            }
+
+            if (tok != null && Chars.equals(tok, ')')) {
+                return;
+            }
+            if (tok == null || !Chars.equals(tok, ',')) {
+                throw SqlException.$(tok == null ? lexer.getPosition() : lexer.lastTokenPosition(), "',' or ')' expected");
+            }
+        }
+    }
+}
@@ -0,0 +1,424 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire.modern;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.std.BinarySequence;
+import io.questdb.std.Interval;
+import io.questdb.std.IntList;
+import io.questdb.std.Long256;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Uuid;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.datetime.millitime.DateFormatUtils;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.std.str.Utf8Sequence;
+
+import static io.questdb.std.datetime.millitime.DateFormatUtils.PG_DATE_MILLI_TIME_Z_PRINT_FORMAT;
+
+/**
+ * Renders records as lines of COPY ... TO STDOUT output in text or CSV format. Each line is
+ * rendered into a reusable buffer, the connection context frames it as a CopyData message.
+ * Values are formatted the same way as in text DataRow messages.
+ */
+public class PGCopyOutEncoder implements Mutable, QuietCloseable {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private final IntList columnTypes = new IntList();
+    private final DirectUtf8Sink rowSink;
+    private final DirectUtf8Sink valueSink;
+    private byte delimiter;
+    private byte escape;
+    private boolean csv;
+    private Utf8Sequence nullString;
+    private byte quote;
+
+    public PGCopyOutEncoder(int initialCapacity) {
+        try {
+            this.rowSink = new DirectUtf8Sink(initialCapacity);
+            this.valueSink = new DirectUtf8Sink(initialCapacity);
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    @Override
+    public void clear() {
+        columnTypes.clear();
+        Misc.clear(rowSink);
+        Misc.clear(valueSink);
+        nullString = null;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(rowSink);
+        Misc.free(valueSink);
+    }
+
+    public void encodeHeader(RecordMetadata metadata) {
+        rowSink.clear();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (i > 0) {
+                rowSink.putAny(delimiter);
+            }
+            valueSink.clear();
+            valueSink.put(metadata.getColumnName(i));
+            putValue();
+        }
+        rowSink.putAny((byte) '\n');
+    }
+
+    public void encodeRecord(Record record) {
+        rowSink.clear();
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            if (i > 0) {
+                rowSink.putAny(delimiter);
+            }
+            encodeColumn(record, i, columnTypes.getQuick(i));
+        }
+        rowSink.putAny((byte) '\n');
+    }
+
+    /**
+     * Returns the line rendered by the last encode call, including the trailing newline.
+     */
+    public DirectUtf8Sink getRow() {
+        return rowSink;
+    }
+
+    public void of(PGCopyOptions options, RecordMetadata metadata) {
+        clear();
+        if (options.getFormat() == PGCopyOptions.FORMAT_BINARY) {
+            throw CairoException.nonCritical().put("BINARY format is not supported by COPY TO STDOUT");
+        }
+        this.csv = options.getFormat() == PGCopyOptions.FORMAT_CSV;
+        this.delimiter = options.getDelimiter();
+        this.quote = options.getQuote();
+        this.escape = options.getEscape();
+        this.nullString = options.getNullString();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BOOLEAN:
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.CHAR:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                case ColumnType.STRING:
+                case ColumnType.SYMBOL:
+                case ColumnType.LONG256:
+                case ColumnType.GEOBYTE:
+                case ColumnType.GEOSHORT:
+                case ColumnType.GEOINT:
+                case ColumnType.GEOLONG:
+                case ColumnType.BINARY:
+                case ColumnType.UUID:
+                case ColumnType.IPv4:
+                case ColumnType.VARCHAR:
+                case ColumnType.INTERVAL:
+                case ColumnType.NULL:
+                    columnTypes.add(columnType);
+                    break;
+                default:
+                    throw CairoException.nonCritical().put("column type is not supported by COPY TO STDOUT [column=")
+                            .put(metadata.getColumnName(i)).put(", type=").put(ColumnType.nameOf(columnType)).put(']');
+            }
+        }
+    }
+
+    private void encodeColumn(Record record, int col, int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                rowSink.putAny((byte) (record.getBool(col) ? 't' : 'f'));
+                break;
+            case ColumnType.BYTE:
+                rowSink.put((int) record.getByte(col));
+                break;
+            case ColumnType.SHORT:
+                rowSink.put((int) record.getShort(col));
+                break;
+            case ColumnType.CHAR: {
+                final char value = record.getChar(col);
+                if (value == 0) {
+                    putNull();
+                } else {
+                    valueSink.clear();
+                    valueSink.put(value);
+                    putValue();
+                }
+                break;
+            }
+            case ColumnType.INT: {
+                final int value = record.getInt(col);
+                if (value == Numbers.INT_NULL) {
+                    putNull();
+                } else {
+                    rowSink.put(value);
+                }
+                break;
+            }
+            case ColumnType.LONG: {
+                final long value = record.getLong(col);
+                if (value == Numbers.LONG_NULL) {
+                    putNull();
+                } else {
+                    rowSink.put(value);
+                }
+                break;
+            }
+            case ColumnType.DATE: {
+                final long value = record.getDate(col);
+                if (value == Numbers.LONG_NULL) {
+                    putNull();
+                } else {
+                    PG_DATE_MILLI_TIME_Z_PRINT_FORMAT.format(value, DateFormatUtils.EN_LOCALE, null, rowSink);
+                }
+                break;
+            }
+            case ColumnType.TIMESTAMP: {
+                final long value = record.getTimestamp(col);
+                if (value == Numbers.LONG_NULL) {
+                    putNull();
+                } else {
+                    TimestampFormatUtils.PG_TIMESTAMP_FORMAT.format(value, DateFormatUtils.EN_LOCALE, null, rowSink);
+                }
+                break;
+            }
+            case ColumnType.FLOAT: {
+                final float value = record.getFloat(col);
+                if (Float.isNaN(value)) {
+                    putNull();
+                } else {
+                    rowSink.put(value);
+                }
+                break;
+            }
+            case ColumnType.DOUBLE: {
+                final double value = record.getDouble(col);
+                if (Double.isNaN(value)) {
+                    putNull();
+                } else {
+                    rowSink.put(value);
+                }
+                break;
+            }
+            case ColumnType.STRING:
+                putValue(record.getStrA(col));
+                break;
+            case ColumnType.SYMBOL:
+                putValue(record.getSymA(col));
+                break;
+            case ColumnType.VARCHAR: {
+                final Utf8Sequence value = record.getVarcharA(col);
+                if (value == null) {
+                    putNull();
+                } else {
+                    valueSink.clear();
+                    valueSink.put(value);
+                    putValue();
+                }
+                break;
+            }
+            case ColumnType.LONG256: {
+                final Long256 value = record.getLong256A(col);
+                if (value.getLong0() == Numbers.LONG_NULL
+                        && value.getLong1() == Numbers.LONG_NULL
+                        && value.getLong2() == Numbers.LONG_NULL
+                        && value.getLong3() == Numbers.LONG_NULL) {
+                    putNull();
+                } else {
+                    Numbers.appendLong256(value, rowSink);
+                }
+                break;
+            }
+            case ColumnType.GEOBYTE:
+                encodeGeoHash(record.getGeoByte(col), columnType);
+                break;
+            case ColumnType.GEOSHORT:
+                encodeGeoHash(record.getGeoShort(col), columnType);
+                break;
+            case ColumnType.GEOINT:
+                encodeGeoHash(record.getGeoInt(col), columnType);
+                break;
+            case ColumnType.GEOLONG:
+                encodeGeoHash(record.getGeoLong(col), columnType);
+                break;
+            case ColumnType.BINARY: {
+                final BinarySequence value = record.getBin(col);
+                if (value == null) {
+                    putNull();
+                } else {
+                    // bytea hex format
+                    valueSink.clear();
+                    valueSink.putAscii('\\').putAscii('x');
+                    for (long i = 0, n = value.length(); i < n; i++) {
+                        final byte b = value.byteAt(i);
+                        valueSink.putAscii(HEX_DIGITS[(b >> 4) & 0xf]).putAscii(HEX_DIGITS[b & 0xf]);
+                    }
+                    putValue();
+                }
+                break;
+            }
+            case ColumnType.UUID: {
+                final long lo = record.getLong128Lo(col);
+                final long hi = record.getLong128Hi(col);
+                if (Uuid.isNull(lo, hi)) {
+                    putNull();
+                } else {
+                    Numbers.appendUuid(lo, hi, rowSink);
+                }
+                break;
+            }
+            case ColumnType.IPv4: {
+                final int value = record.getIPv4(col);
+                if (value == Numbers.IPv4_NULL) {
+                    putNull();
+                } else {
+                    Numbers.intToIPv4Sink(rowSink, value);
+                }
+                break;
+            }
+            case ColumnType.INTERVAL: {
+                final Interval value = record.getInterval(col);
+                if (Interval.NULL.equals(value)) {
+                    putNull();
+                } else {
+                    valueSink.clear();
+                    value.toSink(valueSink);
+                    putValue();
+                }
+                break;
+            }
+            default:
+                putNull();
+                break;
+        }
+    }
+
+    private void encodeGeoHash(long value, int columnType) {
+        if (value == GeoHashes.NULL) {
+            putNull();
+            return;
+        }
+        final int bitFlags = GeoHashes.getBitFlags(columnType);
+        if (bitFlags < 0) {
+            GeoHashes.appendCharsUnsafe(value, -bitFlags, rowSink);
+        } else {
+            GeoHashes.appendBinaryStringUnsafe(value, bitFlags, rowSink);
+        }
+    }
+
+    private boolean isNullString(DirectUtf8Sink value) {
+        final int size = nullString.size();
+        if (value.size() != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (value.byteAt(i) != nullString.byteAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void putNull() {
+        rowSink.put(nullString);
+    }
+
+    private void putValue(CharSequence value) {
+        if (value == null) {
+            putNull();
+        } else {
+            valueSink.clear();
+            valueSink.put(value);
+            putValue();
+        }
+    }
+
+    // copies the value from valueSink to the line escaping or quoting it as the format requires
+    private void putValue() {
+        final DirectUtf8Sink value = valueSink;
+        final int size = value.size();
+        if (csv) {
+            boolean quoted = isNullString(value);
+            for (int i = 0; i < size && !quoted; i++) {
+                final byte b = value.byteAt(i);
+                quoted = b == delimiter || b == quote || b == '\n' || b == '\r';
+            }
+            if (!quoted) {
+                rowSink.put(value);
+                return;
+            }
+            rowSink.putAny(quote);
+            for (int i = 0; i < size; i++) {
+                final byte b = value.byteAt(i);
+                if (b == quote || b == escape) {
+                    rowSink.putAny(escape);
+                }
+                rowSink.putAny(b);
+            }
+            rowSink.putAny(quote);
+            return;
+        }
+
+        for (int i = 0; i < size; i++) {
+            final byte b = value.byteAt(i);
+            switch (b) {
+                case '\\':
+                    rowSink.putAny((byte) '\\').putAny((byte) '\\');
+                    break;
+                case '\n':
+                    rowSink.putAny((byte) '\\').putAny((byte) 'n');
+                    break;
+                case '\r':
+                    rowSink.putAny((byte) '\\').putAny((byte) 'r');
+                    break;
+                case '\t':
+                    rowSink.putAny((byte) '\\').putAny((byte) 't');
+                    break;
+                default:
+                    if (b == delimiter) {
+                        rowSink.putAny((byte) '\\');
+                    }
+                    rowSink.putAny(b);
+                    break;
+            }
+        }
+    }
+}
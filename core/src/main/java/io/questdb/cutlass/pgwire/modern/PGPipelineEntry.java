@@ -121,10 +121,14 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
     private static final int SYNC_DATA_SUSPENDED = 7;
     private static final int SYNC_DESCRIBE = 2;
     private static final int SYNC_DONE = 5;
+    private static final int SYNC_INSERT_BATCH = 8;
     private static final int SYNC_PARSE = 0;
     private final CompiledQueryImpl compiledQueryCopy;
     private final CairoEngine engine;
     private final StringSink errorMessageSink = new StringSink();
+    // describe state of each Bind/Execute pair folded into this entry after the first one,
+    // see foldInsertBind()
+    private final IntList insertBatchDescStates = new IntList();
     private final int maxRecompileAttempts;
     private final BitSet msgBindParameterFormatCodes = new BitSet();
     // stores result format codes (0=Text,1=Binary) from the latest bind message
@@ -149,6 +153,8 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
     // list of pair: column types (with format flag stored in first bit) AND additional type flag
     private final IntList pgResultSetColumnTypes;
     private final ObjList<CharSequence> portalNames = new ObjList<>();
+    // error of a cursor that failed while prefetching, it is reported after the prefetched rows
+    private final StringSink prefetchErrorSink = new StringSink();
     boolean isCopy;
     private boolean cacheHit = false;    // extended protocol cursor resume callback
     private CompiledQueryImpl compiledQuery;
@@ -159,6 +165,10 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
     // this is a "union", so should only be one, depending on SQL type
     // SELECT or EXPLAIN
     private RecordCursorFactory factory = null;
+    private int insertBatchExecCount = 0;
+    // method of the folded executions; it holds the pending writer of the batch until endInsertBatch()
+    private InsertMethod insertBatchMethod = null;
+    private int insertBatchSyncIndex = 0;
     private InsertOperation insertOp = null;
     private int msgBindParameterValueCount;
     private short msgBindSelectFormatCodeCount = 0;
@@ -171,7 +181,12 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
     private long parameterValueArenaPtr = 0;
     private PGPipelineEntry parentPreparedStatementPipelineEntry;
     private boolean portal = false;
+    private long portalFetchStartMicros = 0;
     private String portalName;
+    private long portalOpenMicros = 0;
+    // count of complete DataRow messages in the prefetch sink
+    private long prefetchRowCount = 0;
+    private PGPortalPrefetchSink prefetchSink;
     private boolean preparedStatement = false;
     private String preparedStatementName;
     // the name of the prepared statement as used by "deallocate" SQL
@@ -271,6 +286,8 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         // this makes it easier to check if a particular field has been cleared or not.
         // Once exception to this rule are fields which are guarded by !isCopy condition
 
+        // the batch writer is owned by the pending writers, it must not be closed along with the insert
+        endInsertBatch();
         if (!isCopy) {
             // if we are a copy, we do not own operations -> we cannot close them
             // so we just null them out and let the original entry close them
@@ -283,6 +300,7 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         }
 
         errorMessageSink.clear();
+        insertBatchDescStates.clear();
         msgBindParameterFormatCodes.clear();
         msgBindSelectFormatCodes.clear();
         msgParseParameterTypeOIDs.clear();
@@ -290,6 +308,7 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         pgResultSetColumnNames.clear();
         pgResultSetColumnTypes.clear();
         portalNames.clear();
+        prefetchErrorSink.clear();
         isCopy = false;
         cacheHit = false;
         compiledQuery = compiledQueryCopy;
@@ -298,6 +317,8 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         empty = false;
         errorMessagePosition = 0;
         factory = Misc.free(factory);
+        insertBatchExecCount = 0;
+        insertBatchSyncIndex = 0;
         msgBindParameterValueCount = 0;
         msgBindSelectFormatCodeCount = 0;
         outResendColumnIndex = 0;
@@ -308,8 +329,17 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
             // no need to set lo and hi to 0, as they are not used after the pointer is freed
         }
         parentPreparedStatementPipelineEntry = null;
+        if (portal) {
+            engine.getMetrics().pgWireMetrics().markPortalClose(
+                    engine.getConfiguration().getMicrosecondClock().getTicks() - portalOpenMicros
+            );
+        }
         portal = false;
+        portalFetchStartMicros = 0;
         portalName = null;
+        portalOpenMicros = 0;
+        prefetchRowCount = 0;
+        prefetchSink = Misc.free(prefetchSink);
         preparedStatement = false;
         preparedStatementName = null;
         preparedStatementNameToDeallocate = null;
@@ -334,6 +364,7 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
     }
 
     public void commit(ObjObjHashMap<TableToken, TableWriterAPI> pendingWriters) throws BadProtocolException {
+        endInsertBatch();
         try {
             for (ObjObjHashMap.Entry<TableToken, TableWriterAPI> pendingWriter : pendingWriters) {
                 final TableWriterAPI w = pendingWriter.value;
@@ -406,6 +437,44 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         return newEntry;
     }
 
+    /**
+     * Folds the Bind message of a pipelined Bind/Execute pair into this entry, when the entry is an
+     * executed INSERT of the same prepared statement. Folded executions append to the same writer
+     * and are acknowledged together at Sync, saving a pipeline entry per row. Parameter values of
+     * the folded Bind overwrite those of the previous one, which have already been executed.
+     *
+     * @param statementName name of the prepared statement the Bind message refers to
+     * @return true when the Bind was folded, false when it needs a pipeline entry of its own
+     */
+    public boolean foldInsertBind(@Nullable CharSequence statementName) {
+        if (
+                sqlType != CompiledQuery.INSERT
+                        || !stateExec
+                        || error
+                        || stateClosed
+                        || portal
+                        || preparedStatementName == null
+                        || isInsertBatchBindPending()
+                        || !Chars.equals(preparedStatementName, statementName)
+        ) {
+            return false;
+        }
+        insertBatchDescStates.add(SYNC_DESC_NONE);
+        return true;
+    }
+
+    /**
+     * Detaches the pending writer from the method reused by the folded executions of an insert batch.
+     * Must be called before the pending writers are committed or rolled back and when the entry
+     * stops being the current one, since the writer is owned by the pending writers.
+     */
+    public void endInsertBatch() {
+        if (insertBatchMethod != null) {
+            insertBatchMethod.popWriter();
+            insertBatchMethod = null;
+        }
+    }
+
     public int getErrorMessagePosition() {
         return errorMessagePosition;
     }
@@ -460,6 +529,13 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         return factory != null;
     }
 
+    /**
+     * @return true when a Bind message has been folded into this entry and is yet to be executed
+     */
+    public boolean isInsertBatchBindPending() {
+        return insertBatchExecCount < insertBatchDescStates.size();
+    }
+
     public boolean isPortal() {
         return portal;
     }
@@ -613,6 +689,9 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                             binarySequenceParamsPool,
                             taiPool
                     );
+                    if (isInsertBatchBindPending()) {
+                        insertBatchExecCount++;
+                    }
                     break;
                 case CompiledQuery.UPDATE:
                     msgExecuteUpdate(
@@ -750,7 +829,8 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
             ObjObjHashMap<TableToken, TableWriterAPI> pendingWriters,
             PGResponseSink utf8Sink
     ) throws QueryPausedException, NoSpaceLeftInResponseBufferException {
-        if (isError()) {
+        // the first execution of an insert batch has succeeded, its acknowledgement precedes the error
+        if (isError() && insertBatchDescStates.size() == 0) {
             outError(utf8Sink, pendingWriters);
         } else {
             switch (stateSync) {
@@ -812,11 +892,12 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                                     long addr = utf8Sink.skipInt();
                                     utf8Sink.put(sqlTag).putAscii(" 0 ").put(sqlAffectedRowCount).put((byte) 0);
                                     utf8Sink.putLen(addr);
-                                    stateSync = SYNC_DONE;
+                                    stateSync = insertBatchDescStates.size() > 0 ? SYNC_INSERT_BATCH : SYNC_DONE;
                                     break;
                                 }
                                 case CompiledQuery.UPDATE:
                                 case CompiledQuery.CREATE_TABLE_AS_SELECT:
+                                case CompiledQuery.COPY_REMOTE:
                                     outCommandComplete(utf8Sink, sqlAffectedRowCount);
                                     stateSync = SYNC_DONE;
                                     break;
@@ -833,8 +914,9 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                     }
                 case SYNC_DATA_EXHAUSTED:
                 case SYNC_DATA_SUSPENDED:
-                    // ignore these, they are set by outCursor() call and should be processed outside of this
-                    // switch statement
+                case SYNC_INSERT_BATCH:
+                    // ignore these, they are set by outCursor() call or the insert acknowledgement
+                    // and should be processed outside of this switch statement
                     break;
                 default:
                     assert false;
@@ -856,6 +938,10 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                         cursor = Misc.free(cursor);
                     }
                     break;
+                case SYNC_INSERT_BATCH:
+                    outInsertBatch(utf8Sink);
+                    stateSync = SYNC_DONE;
+                    break;
             }
 
             if (stateClosed) {
@@ -894,6 +980,17 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         this.outParameterTypeDescriptionTypes.addAll(tas.getOutPgParameterTypes());
     }
 
+    /**
+     * Sets up the entry to report completion of a COPY that the connection context has already executed.
+     */
+    public void ofCopy(CharSequence utf16SqlText, long rowCount) {
+        this.sqlText = utf16SqlText;
+        this.sqlType = CompiledQuery.COPY_REMOTE;
+        this.sqlTag = TAG_COPY;
+        this.sqlAffectedRowCount = rowCount;
+        setStateExec(true);
+    }
+
     public void ofEmpty(CharSequence utf16SqlText) {
         this.sqlText = utf16SqlText;
         this.empty = true;
@@ -954,7 +1051,87 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         }
     }
 
+    /**
+     * Encodes DataRow messages of a suspended named portal ahead of the client's next Execute,
+     * while the client is busy with the batch it has just received. The number of rows follows
+     * the fetch size of the client's last Execute, the bytes are capped by the prefetch buffer.
+     * Prefetch stops short, leaving the rest to the Execute, when the cursor has to wait for
+     * data or the next record does not fit. Records that would not fit the send buffer in one
+     * piece are never prefetched. An error raised by the cursor is reported to the client after
+     * the rows that have been prefetched.
+     *
+     * @param sqlExecutionContext the execution context the portal's cursor was opened with
+     * @param bufferSize          capacity of the prefetch buffer, 0 disables the prefetch
+     * @param maxBlobSize         max size of a binary value, larger values are sent as null
+     * @param sendBufferSize      size of the connection's send buffer
+     */
+    public void prefetch(SqlExecutionContext sqlExecutionContext, int bufferSize, long maxBlobSize, long sendBufferSize) {
+        if (
+                !portal
+                        || cursor == null
+                        || error
+                        || bufferSize <= 0
+                        || outResendCursorRecord
+                        || prefetchErrorSink.length() > 0
+                        || pgResultSetColumnTypes.size() == 0
+        ) {
+            return;
+        }
+        final long rowCountTarget = sqlReturnRowCountLimit - prefetchRowCount;
+        if (rowCountTarget <= 0) {
+            return;
+        }
+
+        if (prefetchSink == null) {
+            prefetchSink = new PGPortalPrefetchSink(bufferSize, maxBlobSize);
+        }
+        prefetchSink.of();
+
+        if (!sqlExecutionContext.getCircuitBreaker().isTimerSet()) {
+            sqlExecutionContext.getCircuitBreaker().resetTimer();
+        }
+
+        // outRecord() counts the rows it encodes, the count of the last Execute is restored below
+        final long sentRowCount = sqlReturnRowCount;
+        sqlReturnRowCount = 0;
+        final Record record = cursor.getRecord();
+        final int columnCount = factory.getMetadata().getColumnCount();
+        long recordStartAddress = prefetchSink.getSendBufferPtr();
+        try {
+            while (sqlReturnRowCount < rowCountTarget && cursor.hasNext()) {
+                outResendCursorRecord = true;
+                outResendRecordHeader = true;
+                outRecord(prefetchSink, record, columnCount);
+                if (prefetchSink.getSendBufferPtr() - recordStartAddress >= sendBufferSize) {
+                    // the Execute will send this record in parts
+                    prefetchSink.resetToBookmark(recordStartAddress);
+                    outResendCursorRecord = true;
+                    sqlReturnRowCount--;
+                    break;
+                }
+                recordStartAddress = prefetchSink.getSendBufferPtr();
+            }
+        } catch (Throwable th) {
+            // keep complete records only, the record that was cut short is encoded again by the Execute
+            prefetchSink.resetToBookmark(recordStartAddress);
+            outResendColumnIndex = 0;
+            outResendRecordHeader = true;
+            if (th instanceof DataUnavailableException) {
+                // the Execute will ask the cursor again, and wait for the data
+                Misc.free(((DataUnavailableException) th).getEvent());
+            } else if (!outResendCursorRecord && !(th instanceof NoSpaceLeftInResponseBufferException)) {
+                // the cursor failed to move forward, it must not be asked again
+                LOG.debug().$("unexpected error in prefetch [ex=").$(th).I$();
+                putCursorErrorMessage(prefetchErrorSink, th);
+            }
+        }
+        prefetchRowCount += sqlReturnRowCount;
+        engine.getMetrics().pgWireMetrics().markPortalPrefetch(sqlReturnRowCount);
+        sqlReturnRowCount = sentRowCount;
+    }
+
     public void rollback(ObjObjHashMap<TableToken, TableWriterAPI> pendingWriters) {
+        endInsertBatch();
         try {
             for (ObjObjHashMap.Entry<TableToken, TableWriterAPI> pendingWriter : pendingWriters) {
                 // We rely on the fact that writer will roll back itself when it is returned to the pool.
@@ -971,6 +1148,10 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         this.errorMessagePosition = errorMessagePosition;
     }
 
+    public void setInsertBatchDescState(int descState) {
+        insertBatchDescStates.setQuick(insertBatchDescStates.size() - 1, descState);
+    }
+
     public void setParentPreparedStatement(PGPipelineEntry preparedStatementPipelineEntry) {
         this.parentPreparedStatementPipelineEntry = preparedStatementPipelineEntry;
     }
@@ -981,6 +1162,7 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         // cached. All flyweight objects referenced from cache have to be internalized
         this.sqlText = Chars.toString(this.sqlText);
         this.portalName = portalName;
+        this.portalOpenMicros = engine.getConfiguration().getMicrosecondClock().getTicks();
     }
 
     public void setPreparedStatement(boolean preparedStatement, String preparedStatementName) {
@@ -1047,6 +1229,25 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         utf8Sink.bookmark();
     }
 
+    private static void putCursorErrorMessage(StringSink sink, Throwable th) {
+        if (th instanceof FlyweightMessageContainer) {
+            int errno;
+            if (th instanceof CairoException && (errno = ((CairoException) th).getErrno()) != CairoException.NON_CRITICAL) {
+                sink.put('[');
+                sink.put(errno);
+                sink.put("] ");
+            }
+            sink.put(((FlyweightMessageContainer) th).getFlyweightMessage());
+        } else {
+            String msg = th.getMessage();
+            if (msg != null) {
+                sink.put(msg);
+            } else {
+                sink.putAscii("no message provided (internal error)");
+            }
+        }
+    }
+
     private static void setBindVariableAsBin(
             int variableIndex,
             long valueAddr,
@@ -1443,6 +1644,22 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
             case IN_TRANSACTION: {
                 engine.getMetrics().pgWireMetrics().markStart();
                 try {
+                    if (insertBatchMethod != null) {
+                        // folded execution of the batch, the method and its writer are already set up
+                        copyParameterValuesToBindVariableService(
+                                sqlExecutionContext,
+                                characterStore,
+                                utf8String,
+                                binarySequenceParamsPool
+                        );
+                        try {
+                            sqlAffectedRowCount = insertBatchMethod.execute();
+                        } catch (Throwable e) {
+                            endInsertBatch();
+                            throw e;
+                        }
+                        break;
+                    }
                     for (int attempt = 1; ; attempt++) {
                         copyParameterValuesToBindVariableService(
                                 sqlExecutionContext,
@@ -1455,13 +1672,24 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                             m = insertOp.createMethod(sqlExecutionContext, writerSource);
                             try {
                                 sqlAffectedRowCount = m.execute();
-                                TableWriterAPI writer = m.popWriter();
-                                pendingWriters.put(writer.getTableToken(), writer);
-                                if (tai.hasBindVariables()) {
-                                    taiCache.put(sqlText, tai);
+                                if (isInsertBatchBindPending()) {
+                                    // first folded execution, the method got the pending writer of the batch
+                                    // and keeps it for the following ones; the first execution has cached the insert
+                                    insertBatchMethod = m;
+                                } else {
+                                    TableWriterAPI writer = m.popWriter();
+                                    pendingWriters.put(writer.getTableToken(), writer);
+                                    if (tai.hasBindVariables()) {
+                                        taiCache.put(sqlText, tai);
+                                    }
                                 }
                             } catch (Throwable e) {
-                                Misc.free(m);
+                                if (isInsertBatchBindPending()) {
+                                    // the writer belongs to the pending writers
+                                    m.popWriter();
+                                } else {
+                                    Misc.free(m);
+                                }
                                 throw e;
                             }
                             break;
@@ -2002,6 +2230,9 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         switch (stateSync) {
             case SYNC_COMPUTE_CURSOR_SIZE:
                 outComputeCursorSize();
+                if (portal) {
+                    portalFetchStartMicros = engine.getConfiguration().getMicrosecondClock().getTicks();
+                }
                 stateSync = SYNC_DATA;
             case SYNC_DATA:
                 utf8Sink.bookmark();
@@ -2029,16 +2260,29 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
 
         long recordStartAddress = utf8Sink.getSendBufferPtr();
         try {
-            if (outResendCursorRecord) {
-                outRecord(utf8Sink, record, columnCount);
+            // rows encoded ahead of this Execute precede the rows still in the cursor
+            if (prefetchRowCount > 0) {
+                outPrefetchedRecords(utf8Sink);
                 recordStartAddress = utf8Sink.getSendBufferPtr();
             }
 
-            while (sqlReturnRowCount < sqlReturnRowCountToBeSent && cursor.hasNext()) {
-                outResendCursorRecord = true;
-                outResendRecordHeader = true;
-                outRecord(utf8Sink, record, columnCount);
-                recordStartAddress = utf8Sink.getSendBufferPtr();
+            if (prefetchRowCount == 0 && prefetchErrorSink.length() > 0) {
+                if (sqlReturnRowCount < sqlReturnRowCountToBeSent) {
+                    getErrorMessageSink().put(prefetchErrorSink);
+                    prefetchErrorSink.clear();
+                }
+            } else {
+                if (outResendCursorRecord && sqlReturnRowCount < sqlReturnRowCountToBeSent) {
+                    outRecord(utf8Sink, record, columnCount);
+                    recordStartAddress = utf8Sink.getSendBufferPtr();
+                }
+
+                while (sqlReturnRowCount < sqlReturnRowCountToBeSent && cursor.hasNext()) {
+                    outResendCursorRecord = true;
+                    outResendRecordHeader = true;
+                    outRecord(utf8Sink, record, columnCount);
+                    recordStartAddress = utf8Sink.getSendBufferPtr();
+                }
             }
         } catch (DataUnavailableException e) {
             utf8Sink.resetToBookmark();
@@ -2049,23 +2293,7 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
             LOG.debug().$("unexpected error in outCursor [ex=").$(th).I$();
             // We'll be sending an error to the client, so reset to the start of the last sent message.
             utf8Sink.resetToBookmark(recordStartAddress);
-            if (th instanceof FlyweightMessageContainer) {
-                final StringSink errorMsgSink = getErrorMessageSink();
-                int errno;
-                if (th instanceof CairoException && (errno = ((CairoException) th).getErrno()) != CairoException.NON_CRITICAL) {
-                    errorMsgSink.put('[');
-                    errorMsgSink.put(errno);
-                    errorMsgSink.put("] ");
-                }
-                errorMsgSink.put(((FlyweightMessageContainer) th).getFlyweightMessage());
-            } else {
-                String msg = th.getMessage();
-                if (msg != null) {
-                    getErrorMessageSink().put(msg);
-                } else {
-                    getErrorMessageSink().putAscii("no message provided (internal error)");
-                }
-            }
+            putCursorErrorMessage(getErrorMessageSink(), th);
         }
 
         // the above loop may have exited due to the return row limit as prescribed by the portal
@@ -2079,6 +2307,11 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
             stateSync = SYNC_DATA_SUSPENDED;
         }
 
+        if (portal) {
+            engine.getMetrics().pgWireMetrics().markPortalFetch(
+                    engine.getConfiguration().getMicrosecondClock().getTicks() - portalFetchStartMicros
+            );
+        }
         engine.getMetrics().pgWireMetrics().markComplete();
     }
 
@@ -2127,6 +2360,29 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         utf8Sink.putLen(addr);
     }
 
+    // Acknowledges the Bind/Execute pairs folded into the entry. Every pair is bookmarked, so that
+    // acknowledgements that do not fit the send buffer are resumed rather than resent.
+    private void outInsertBatch(PGResponseSink utf8Sink) {
+        for (; insertBatchSyncIndex < insertBatchExecCount; insertBatchSyncIndex++) {
+            utf8Sink.bookmark();
+            outBindComplete(utf8Sink);
+            switch (insertBatchDescStates.getQuick(insertBatchSyncIndex)) {
+                case SYNC_DESC_PARAMETER_DESCRIPTION:
+                    outParameterTypeDescription(utf8Sink);
+                    // fall through
+                case SYNC_DESC_ROW_DESCRIPTION:
+                    outNoData(utf8Sink);
+                    break;
+            }
+            utf8Sink.put(MESSAGE_TYPE_COMMAND_COMPLETE);
+            long addr = utf8Sink.skipInt();
+            utf8Sink.put(sqlTag).putAscii(" 0 ").put(sqlAffectedRowCount).put((byte) 0);
+            utf8Sink.putLen(addr);
+        }
+        // an error of the execution that followed the batch must not discard the last acknowledgement
+        utf8Sink.bookmark();
+    }
+
     private void outParameterTypeDescription(PGResponseSink utf8Sink) {
         utf8Sink.put(MESSAGE_TYPE_PARAMETER_DESCRIPTION);
         final long offset = utf8Sink.skipInt();
@@ -2139,6 +2395,19 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         utf8Sink.putLen(offset);
     }
 
+    private void outPrefetchedRecords(PGResponseSink utf8Sink) {
+        while (prefetchRowCount > 0 && sqlReturnRowCount < sqlReturnRowCountToBeSent) {
+            final int size = prefetchSink.getMessageSize();
+            utf8Sink.checkCapacity(size);
+            Vect.memcpy(utf8Sink.getSendBufferPtr(), prefetchSink.getReadPtr(), size);
+            utf8Sink.bump(size);
+            utf8Sink.bookmark();
+            prefetchSink.skipMessage(size);
+            prefetchRowCount--;
+            sqlReturnRowCount++;
+        }
+    }
+
     private void outRecord(PGResponseSink utf8Sink, Record record, int columnCount) throws BadProtocolException {
         long messageLengthAddress = 0;
         // message header can be sent alone if we run out of space on the first column
@@ -2659,6 +2928,9 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
             case CompiledQuery.CREATE_USER:
                 sqlTag = TAG_CREATE_ROLE;
                 break;
+            case CompiledQuery.COPY_REMOTE:
+                sqlTag = TAG_COPY;
+                break;
             case CompiledQuery.ALTER:
                 // future-proofing ALTER execution
                 compiledQuery.ofAlter(AlterOperation.deepCloneOf(cq.getAlterOperation()));
@@ -2744,7 +3016,11 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
     }
 
     void clearState() {
+        endInsertBatch();
         error = false;
+        insertBatchDescStates.clear();
+        insertBatchExecCount = 0;
+        insertBatchSyncIndex = 0;
         stalePlanError = false;
         stateSync = SYNC_PARSE;
         stateParse = false;
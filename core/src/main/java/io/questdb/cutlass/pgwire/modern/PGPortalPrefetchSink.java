@@ -0,0 +1,316 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire.modern;
+
+import io.questdb.cutlass.pgwire.PGResponseSink;
+import io.questdb.network.NoSpaceLeftInResponseBufferException;
+import io.questdb.std.BinarySequence;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8Sink;
+import io.questdb.std.str.Utf8s;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cutlass.pgwire.modern.PGConnectionContextModern.*;
+
+/**
+ * Bounded native buffer of DataRow messages encoded ahead of the next Execute of a suspended
+ * portal. The buffer only ever holds complete messages: the writer rolls back a record that
+ * does not fit, and the reader copies them out one message at a time. Memory is allocated on
+ * the first write and released on close.
+ */
+public class PGPortalPrefetchSink implements PGResponseSink, Mutable, QuietCloseable {
+    private final int capacity;
+    private final long maxBlobSize;
+    private long bookmarkPtr = -1;
+    private long bufferLimit;
+    private long bufferPtr;
+    private long bufferStart;
+    private long readPtr;
+
+    public PGPortalPrefetchSink(int capacity, long maxBlobSize) {
+        this.capacity = capacity;
+        this.maxBlobSize = maxBlobSize;
+    }
+
+    @Override
+    public void bookmark() {
+        this.bookmarkPtr = bufferPtr;
+    }
+
+    @Override
+    public void bump(int size) {
+        bufferPtr += size;
+    }
+
+    @Override
+    public void checkCapacity(long size) {
+        if (bufferPtr + size < bufferLimit) {
+            return;
+        }
+        throw NoSpaceLeftInResponseBufferException.instance(size);
+    }
+
+    @Override
+    public void clear() {
+        bufferPtr = readPtr = bufferStart;
+        bookmarkPtr = -1;
+    }
+
+    @Override
+    public void close() {
+        if (bufferStart != 0) {
+            bufferStart = Unsafe.free(bufferStart, capacity, MemoryTag.NATIVE_PGW_PIPELINE);
+            bufferLimit = bufferPtr = readPtr = 0;
+            bookmarkPtr = -1;
+        }
+    }
+
+    @Override
+    public long getMaxBlobSize() {
+        return maxBlobSize;
+    }
+
+    /**
+     * Returns the size, including the message type byte, of the next buffered message.
+     */
+    public int getMessageSize() {
+        assert readPtr < bufferPtr;
+        return Byte.BYTES + getIntUnsafe(readPtr + Byte.BYTES);
+    }
+
+    public long getReadPtr() {
+        return readPtr;
+    }
+
+    @Override
+    public long getSendBufferPtr() {
+        return bufferPtr;
+    }
+
+    @Override
+    public long getSendBufferSize() {
+        return capacity;
+    }
+
+    @Override
+    public long getWrittenBytes() {
+        return bufferPtr - readPtr;
+    }
+
+    public boolean hasMessages() {
+        return readPtr < bufferPtr;
+    }
+
+    /**
+     * Prepares the buffer for appending messages, allocating memory on the first call and moving
+     * the messages that have not been read yet to the start of the buffer.
+     */
+    public void of() {
+        if (bufferStart == 0) {
+            bufferStart = bufferPtr = readPtr = Unsafe.malloc(capacity, MemoryTag.NATIVE_PGW_PIPELINE);
+            bufferLimit = bufferStart + capacity;
+        } else if (readPtr > bufferStart) {
+            final long len = bufferPtr - readPtr;
+            Vect.memmove(bufferStart, readPtr, len);
+            readPtr = bufferStart;
+            bufferPtr = bufferStart + len;
+        }
+        bookmarkPtr = -1;
+    }
+
+    @Override
+    public Utf8Sink put(@Nullable Utf8Sequence us) {
+        if (us != null) {
+            final int size = us.size();
+            if (size > 0) {
+                checkCapacity(size);
+                Utf8s.strCpy(us, size, bufferPtr);
+                bufferPtr += size;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public Utf8Sink put(byte b) {
+        checkCapacity(Byte.BYTES);
+        Unsafe.getUnsafe().putByte(bufferPtr++, b);
+        return this;
+    }
+
+    @Override
+    public void put(BinarySequence sequence) {
+        final long len = sequence.length();
+        if (len > maxBlobSize) {
+            setNullValue();
+        } else {
+            checkCapacity((int) (len + Integer.BYTES));
+            putInt(bufferPtr, (int) len);
+            bufferPtr += Integer.BYTES;
+            for (long x = 0; x < len; x++) {
+                Unsafe.getUnsafe().putByte(bufferPtr + x, sequence.byteAt(x));
+            }
+            bufferPtr += len;
+        }
+    }
+
+    @Override
+    public void putDirectInt(int xValue) {
+        checkCapacity(Integer.BYTES);
+        Unsafe.getUnsafe().putInt(bufferPtr, xValue);
+        bufferPtr += Integer.BYTES;
+    }
+
+    @Override
+    public void putDirectShort(short xValue) {
+        checkCapacity(Short.BYTES);
+        Unsafe.getUnsafe().putShort(bufferPtr, xValue);
+        bufferPtr += Short.BYTES;
+    }
+
+    @Override
+    public void putIntDirect(int value) {
+        checkCapacity(Integer.BYTES);
+        putIntUnsafe(0, value);
+        bufferPtr += Integer.BYTES;
+    }
+
+    @Override
+    public void putIntUnsafe(long offset, int value) {
+        Unsafe.getUnsafe().putInt(bufferPtr + offset, value);
+    }
+
+    @Override
+    public void putLen(long start) {
+        putInt(start, (int) (bufferPtr - start));
+    }
+
+    @Override
+    public void putLenEx(long start) {
+        putInt(start, (int) (bufferPtr - start - Integer.BYTES));
+    }
+
+    @Override
+    public void putNetworkDouble(double value) {
+        checkCapacity(Double.BYTES);
+        Unsafe.getUnsafe().putDouble(bufferPtr, Double.longBitsToDouble(Numbers.bswap(Double.doubleToLongBits(value))));
+        bufferPtr += Double.BYTES;
+    }
+
+    @Override
+    public void putNetworkFloat(float value) {
+        checkCapacity(Float.BYTES);
+        Unsafe.getUnsafe().putFloat(bufferPtr, Float.intBitsToFloat(Numbers.bswap(Float.floatToIntBits(value))));
+        bufferPtr += Float.BYTES;
+    }
+
+    @Override
+    public void putNetworkInt(int value) {
+        checkCapacity(Integer.BYTES);
+        putInt(bufferPtr, value);
+        bufferPtr += Integer.BYTES;
+    }
+
+    @Override
+    public void putNetworkLong(long value) {
+        checkCapacity(Long.BYTES);
+        putLong(bufferPtr, value);
+        bufferPtr += Long.BYTES;
+    }
+
+    @Override
+    public void putNetworkShort(short value) {
+        checkCapacity(Short.BYTES);
+        putShort(bufferPtr, value);
+        bufferPtr += Short.BYTES;
+    }
+
+    @Override
+    public Utf8Sink putNonAscii(long lo, long hi) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putZ(CharSequence value) {
+        put(value);
+        checkCapacity(Byte.BYTES);
+        Unsafe.getUnsafe().putByte(bufferPtr++, (byte) 0);
+    }
+
+    @Override
+    public void reset() {
+        bufferPtr = readPtr;
+    }
+
+    @Override
+    public void resetToBookmark() {
+        if (bookmarkPtr != -1) {
+            bufferPtr = bookmarkPtr;
+            bookmarkPtr = -1;
+        }
+    }
+
+    @Override
+    public void resetToBookmark(long address) {
+        bufferPtr = address;
+        bookmarkPtr = -1;
+    }
+
+    @Override
+    public int sendBufferAndReset() {
+        // prefetched messages are copied to the connection's send buffer, never sent from here
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setNullValue() {
+        putIntDirect(INT_NULL_X);
+    }
+
+    @Override
+    public long skipInt() {
+        checkCapacity(Integer.BYTES);
+        long checkpoint = bufferPtr;
+        bufferPtr += Integer.BYTES;
+        return checkpoint;
+    }
+
+    /**
+     * Moves past the next buffered message, after it has been copied to the send buffer.
+     */
+    public void skipMessage(int size) {
+        readPtr += size;
+        if (readPtr == bufferPtr) {
+            readPtr = bufferPtr = bufferStart;
+        }
+    }
+}
@@ -137,6 +137,9 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
     private final PostOrderTreeTraversalAlgo traverseAlgo = new PostOrderTreeTraversalAlgo();
     private final IntList undefinedVariables = new IntList();
     private RecordMetadata metadata;
+    // number of functions that produce non-repeatable values, e.g. now() or rnd_*(),
+    // or data not backed by table readers, e.g. tables(); never reset
+    private int nonDeterministicFunctionCount;
     private SqlCodeGenerator sqlCodeGenerator;
     private SqlExecutionContext sqlExecutionContext;
 
@@ -276,6 +279,10 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         return functionFactoryCache;
     }
 
+    public int getNonDeterministicFunctionCount() {
+        return nonDeterministicFunctionCount;
+    }
+
     /**
      * Creates function instance. When node type is {@link ExpressionNode#LITERAL} a column or parameter
      * function is returned. We will be using the supplied {@link #metadata} to resolve type of column. When node token
@@ -539,6 +546,15 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         return ex;
     }
 
+    private static boolean isNonDeterministic(@Nullable ObjList<Function> args) {
+        for (int i = 0, n = args != null ? args.size() : 0; i < n; i++) {
+            if (args.getQuick(i).isNonDeterministic()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static long parseDate(CharSequence str, int position) throws SqlException {
         try {
             return DateFormatUtils.parseDate(str);
@@ -581,6 +597,12 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
             Misc.freeObjList(args);
             throw SqlException.position(position).put("bad function factory (NULL), check log");
         }
+
+        if (factory.isCursor() || (function.isNonDeterministic() && !isNonDeterministic(args))) {
+            // functions inherit non-determinism from their args, e.g. bind variables,
+            // so we only count the functions that are the source of it
+            nonDeterministicFunctionCount++;
+        }
         return function;
     }
 
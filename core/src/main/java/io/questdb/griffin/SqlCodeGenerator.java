@@ -28,6 +28,7 @@ import io.questdb.cairo.AbstractPartitionFrameCursorFactory;
 import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.ArrayColumnTypes;
 import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.BloomFilterUtils;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoException;
@@ -51,6 +52,8 @@ import io.questdb.cairo.TableReader;
 import io.questdb.cairo.TableReaderMetadata;
 import io.questdb.cairo.TableToken;
 import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.ZoneMapFilter;
+import io.questdb.cairo.ZoneMapUtils;
 import io.questdb.cairo.map.RecordValueSink;
 import io.questdb.cairo.map.RecordValueSinkFactory;
 import io.questdb.cairo.sql.Function;
@@ -142,6 +145,7 @@ import io.questdb.griffin.engine.groupby.DistinctTimeSeriesRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.FillRangeRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.GroupByNotKeyedRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.GroupByUtils;
+import io.questdb.griffin.engine.groupby.OrderedFillRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.SampleByFillNoneNotKeyedRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.SampleByFillNoneRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.SampleByFillNullNotKeyedRecordCursorFactory;
@@ -190,6 +194,9 @@ import io.questdb.griffin.engine.join.AsOfJoinLightRecordCursorFactory;
 import io.questdb.griffin.engine.join.AsOfJoinNoKeyFastRecordCursorFactory;
 import io.questdb.griffin.engine.join.AsOfJoinNoKeyRecordCursorFactory;
 import io.questdb.griffin.engine.join.AsOfJoinRecordCursorFactory;
+import io.questdb.griffin.engine.join.AsyncAsOfJoinRecordCursorFactory;
+import io.questdb.griffin.engine.join.AsyncHashJoinBuildAtom;
+import io.questdb.griffin.engine.join.AsyncHashJoinLightRecordCursorFactory;
 import io.questdb.griffin.engine.join.CrossJoinRecordCursorFactory;
 import io.questdb.griffin.engine.join.HashJoinLightRecordCursorFactory;
 import io.questdb.griffin.engine.join.HashJoinRecordCursorFactory;
@@ -215,6 +222,7 @@ import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
 import io.questdb.griffin.engine.table.AsyncFilteredRecordCursorFactory;
 import io.questdb.griffin.engine.table.AsyncGroupByNotKeyedRecordCursorFactory;
 import io.questdb.griffin.engine.table.AsyncGroupByRecordCursorFactory;
+import io.questdb.griffin.engine.table.AsyncOrderByRecordCursorFactory;
 import io.questdb.griffin.engine.table.AsyncJitFilteredRecordCursorFactory;
 import io.questdb.griffin.engine.table.BwdPageFrameRowCursorFactory;
 import io.questdb.griffin.engine.table.DeferredSingleSymbolFilterPageFrameRecordCursorFactory;
@@ -731,6 +739,44 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         );
     }
 
+    private static @Nullable QueryModel findFillModel(QueryModel model) {
+        QueryModel curr = model;
+        while (curr != null && curr.getFillStride() == null) {
+            curr = curr.getNestedModel();
+        }
+        return curr;
+    }
+
+    private static CharSequence getFillTimestampAlias(QueryModel model, QueryModel fillModel) {
+        QueryModel temp = model;
+        ExpressionNode timestamp = model.getTimestamp();
+
+        while (timestamp == null && temp != null) {
+            temp = temp.getNestedModel();
+
+            if (temp != null) {
+                timestamp = temp.getTimestamp();
+            }
+        }
+
+        assert timestamp != null;
+
+        // look for timestamp_floor to check for an alias
+        CharSequence alias = timestamp.token;
+        final CharSequence currTimestamp = fillModel.getTimestamp().token;
+        for (int i = 0, n = model.getBottomUpColumns().size(); i < n; i++) {
+            final QueryColumn col = model.getColumns().getQuick(i);
+            final ExpressionNode ast = col.getAst();
+            if (Chars.equalsIgnoreCase("timestamp_floor", ast.token)) {
+                final CharSequence ts = ast.paramCount == 3 ? ast.args.getQuick(1).token : ast.rhs.token;
+                if (Chars.equals(ts, currTimestamp)) {
+                    alias = col.getAlias();
+                }
+            }
+        }
+        return alias;
+    }
+
     private static int getOrderByDirectionOrDefault(QueryModel model, int index) {
         final IntList direction = model.getOrderByDirectionAdvice();
         return index >= direction.size() ? ORDER_DIRECTION_ASCENDING : direction.getQuick(index);
@@ -865,6 +911,11 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             return false;
         }
 
+        if (isOrderedFillRequired(model)) {
+            // the limit has to be applied to the filled rows
+            return false;
+        }
+
         if (loFunc != null && loFunc.isConstant()
                 && hiFunc != null && hiFunc.isConstant()) {
             try {
@@ -894,6 +945,47 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return false;
     }
 
+    private void compileBloomInPredicate(
+            ZoneMapFilter zoneMapFilter,
+            ExpressionNode node,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        if (!configuration.isBloomFilterEnabled()) {
+            return;
+        }
+        // for two or more values the arguments are in reverse order with the column last
+        final ExpressionNode columnNode = node.paramCount < 3 ? node.lhs : node.args.getLast();
+        if (columnNode.type != ExpressionNode.LITERAL) {
+            return;
+        }
+        final int columnIndex = metadata.getColumnIndexQuiet(columnNode.token);
+        if (columnIndex < 0 || !BloomFilterUtils.isSupported(metadata.getColumnType(columnIndex))) {
+            return;
+        }
+        final int columnType = metadata.getColumnType(columnIndex);
+        final ObjList<Function> values = new ObjList<>(node.paramCount - 1);
+        try {
+            for (int i = 0, n = node.paramCount - 1; i < n; i++) {
+                final ExpressionNode valueNode = node.paramCount < 3 ? node.rhs : node.args.getQuick(i);
+                final Function value = compileZoneMapConstant(valueNode, metadata, executionContext);
+                if (value == null) {
+                    Misc.freeObjList(values);
+                    return;
+                }
+                values.add(value);
+                if (!ZoneMapFilter.isSupportedBloomConstantType(columnType, value.getType())) {
+                    Misc.freeObjList(values);
+                    return;
+                }
+            }
+        } catch (Throwable e) {
+            Misc.freeObjList(values);
+            throw e;
+        }
+        zoneMapFilter.addBloom(columnIndex, values);
+    }
+
     @Nullable
     private Function compileFilter(
             IntrinsicModel intrinsicModel,
@@ -993,6 +1085,124 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return null;
     }
 
+    private @Nullable ZoneMapFilter compileZoneMapFilter(
+            ExpressionNode filterExpr,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        if (!configuration.isZoneMapEnabled() && !configuration.isBloomFilterEnabled()) {
+            return null;
+        }
+        final ZoneMapFilter zoneMapFilter = new ZoneMapFilter(configuration);
+        try {
+            compileZoneMapPredicates(zoneMapFilter, filterExpr, metadata, executionContext);
+        } catch (Throwable e) {
+            Misc.free(zoneMapFilter);
+            throw e;
+        }
+        if (zoneMapFilter.size() == 0) {
+            Misc.free(zoneMapFilter);
+            return null;
+        }
+        return zoneMapFilter;
+    }
+
+    /**
+     * Returns constant or runtime constant function for the node or null when the node is not
+     * a cheap constant. Sub-queries and column expressions are not parsed.
+     */
+    private @Nullable Function compileZoneMapConstant(
+            ExpressionNode node,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        if (node.type != ExpressionNode.CONSTANT
+                && node.type != ExpressionNode.BIND_VARIABLE
+                && !(node.type == ExpressionNode.FUNCTION && node.paramCount == 0)) {
+            return null;
+        }
+        final Function constant = functionParser.parseFunction(node, metadata, executionContext);
+        if (constant.isConstant() || constant.isRuntimeConstant()) {
+            return constant;
+        }
+        Misc.free(constant);
+        return null;
+    }
+
+    private void compileZoneMapPredicates(
+            ZoneMapFilter zoneMapFilter,
+            ExpressionNode node,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        if (node == null || (node.type != ExpressionNode.OPERATION && node.type != ExpressionNode.FUNCTION) || node.paramCount < 2) {
+            return;
+        }
+        if (SqlKeywords.isAndKeyword(node.token) && node.paramCount == 2) {
+            compileZoneMapPredicates(zoneMapFilter, node.lhs, metadata, executionContext);
+            compileZoneMapPredicates(zoneMapFilter, node.rhs, metadata, executionContext);
+            return;
+        }
+        if (SqlKeywords.isInKeyword(node.token)) {
+            compileBloomInPredicate(zoneMapFilter, node, metadata, executionContext);
+            return;
+        }
+        if (node.paramCount != 2) {
+            return;
+        }
+
+        final int op;
+        if (Chars.equals(node.token, '=')) {
+            op = ZoneMapFilter.OP_EQ;
+        } else if (Chars.equals(node.token, '<')) {
+            op = ZoneMapFilter.OP_LT;
+        } else if (Chars.equals(node.token, "<=")) {
+            op = ZoneMapFilter.OP_LE;
+        } else if (Chars.equals(node.token, '>')) {
+            op = ZoneMapFilter.OP_GT;
+        } else if (Chars.equals(node.token, ">=")) {
+            op = ZoneMapFilter.OP_GE;
+        } else {
+            return;
+        }
+
+        ExpressionNode columnNode = node.lhs;
+        ExpressionNode constNode = node.rhs;
+        int columnOp = op;
+        if (columnNode.type != ExpressionNode.LITERAL) {
+            columnNode = node.rhs;
+            constNode = node.lhs;
+            columnOp = ZoneMapFilter.flip(op);
+        }
+        if (columnNode.type != ExpressionNode.LITERAL) {
+            return;
+        }
+        final int columnIndex = metadata.getColumnIndexQuiet(columnNode.token);
+        if (columnIndex < 0) {
+            return;
+        }
+        final int columnType = metadata.getColumnType(columnIndex);
+        final boolean zoneMap = configuration.isZoneMapEnabled() && ZoneMapUtils.isSupported(columnType);
+        final boolean bloomFilter = configuration.isBloomFilterEnabled() && op == ZoneMapFilter.OP_EQ && BloomFilterUtils.isSupported(columnType);
+        if (!zoneMap && !bloomFilter) {
+            return;
+        }
+
+        final Function constant = compileZoneMapConstant(constNode, metadata, executionContext);
+        if (constant == null) {
+            return;
+        }
+        if (zoneMap && ZoneMapFilter.isSupportedConstantType(columnType, constant.getType())) {
+            zoneMapFilter.add(columnIndex, columnOp, constant);
+        } else if (bloomFilter && ZoneMapFilter.isSupportedBloomConstantType(columnType, constant.getType())) {
+            final ObjList<Function> values = new ObjList<>(1);
+            values.add(constant);
+            zoneMapFilter.addBloom(columnIndex, values);
+        } else {
+            Misc.free(constant);
+        }
+    }
+
     private RecordCursorFactory createAsOfJoin(
             RecordMetadata metadata,
             RecordCursorFactory master,
@@ -1155,7 +1365,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             RecordCursorFactory slave,
             int joinType,
             Function filter,
-            JoinContext context
+            JoinContext context,
+            SqlExecutionContext executionContext
     ) {
         /*
          * JoinContext provides the following information:
@@ -1194,7 +1405,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 // For inner join we can also store per-key count to speed up size calculation.
                 valueTypes.add(ColumnType.INT); // record count for the key
 
-                return new HashJoinLightRecordCursorFactory(
+                final HashJoinLightRecordCursorFactory factory = new HashJoinLightRecordCursorFactory(
                         configuration,
                         metadata,
                         master,
@@ -1206,6 +1417,23 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                         masterMetadata.getColumnCount(),
                         context
                 );
+                if (isParallelHashJoinSupported(master, slave, executionContext)) {
+                    return new AsyncHashJoinLightRecordCursorFactory(
+                            configuration,
+                            executionContext.getMessageBus(),
+                            factory,
+                            master,
+                            slave,
+                            listColumnFilterB.getColumnIndexFactored(0),
+                            listColumnFilterA.getColumnIndexFactored(0),
+                            keyTypes.getColumnType(0),
+                            masterMetadata.getColumnCount(),
+                            context,
+                            reduceTaskFactory,
+                            executionContext.getSharedWorkerCount()
+                    );
+                }
+                return factory;
             }
 
             if (filter != null) {
@@ -2037,14 +2265,9 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     }
 
     private RecordCursorFactory generateFill(QueryModel model, RecordCursorFactory groupByFactory, SqlExecutionContext executionContext) throws SqlException {
-        // locate fill
-        QueryModel curr = model;
-
-        while (curr != null && curr.getFillStride() == null) {
-            curr = curr.getNestedModel();
-        }
-
-        if (curr == null || curr.getFillStride() == null) {
+        final QueryModel curr = findFillModel(model);
+        if (curr == null || isOrderedFillRequired(model)) {
+            // ordered fill is applied on top of the sorted group-by output
             return groupByFactory;
         }
 
@@ -2090,35 +2313,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 coerceRuntimeConstantType(fillToFunc, ColumnType.TIMESTAMP, executionContext, "to upper bound must be a constant expression convertible to a TIMESTAMP", fillTo.position);
             }
 
-
-            QueryModel temp = model;
-            ExpressionNode timestamp = model.getTimestamp();
-
-            while (timestamp == null && temp != null) {
-                temp = temp.getNestedModel();
-
-                if (temp != null) {
-                    timestamp = temp.getTimestamp();
-                }
-            }
-
-            assert timestamp != null;
-
-            // look for timestamp_floor to check for an alias
-            CharSequence alias = timestamp.token;
-            final CharSequence currTimestamp = curr.getTimestamp().token;
-            for (int i = 0, n = model.getBottomUpColumns().size(); i < n; i++) {
-                final QueryColumn col = model.getColumns().getQuick(i);
-                final ExpressionNode ast = col.getAst();
-                if (Chars.equalsIgnoreCase("timestamp_floor", ast.token)) {
-                    final CharSequence ts = ast.paramCount == 3 ? ast.args.getQuick(1).token : ast.rhs.token;
-                    if (Chars.equals(ts, currTimestamp)) {
-                        alias = col.getAlias();
-                    }
-                }
-            }
-
-            int timestampIndex = groupByFactory.getMetadata().getColumnIndexQuiet(alias);
+            int timestampIndex = groupByFactory.getMetadata().getColumnIndexQuiet(getFillTimestampAlias(model, curr));
 
             int samplingIntervalEnd = TimestampSamplerFactory.findIntervalEndIndex(fillStride.token, fillStride.position);
             long samplingInterval = TimestampSamplerFactory.parseInterval(fillStride.token, samplingIntervalEnd, fillStride.position);
@@ -2190,6 +2385,14 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         final boolean enableParallelFilter = executionContext.isParallelFilterEnabled();
         final boolean preTouchColumns = configuration.isSqlParallelFilterPreTouchEnabled();
         if (enableParallelFilter && factory.supportsPageFrameCursor()) {
+            final ZoneMapFilter zoneMapFilter;
+            try {
+                zoneMapFilter = compileZoneMapFilter(filterExpr, factory.getMetadata(), executionContext);
+            } catch (Throwable e) {
+                Misc.free(filter);
+                Misc.free(factory);
+                throw e;
+            }
             final boolean useJit = executionContext.getJitMode() != SqlJitMode.JIT_MODE_DISABLED
                     && (!model.isUpdate() || executionContext.isWalApplication());
             final boolean canCompile = factory.supportsPageFrameCursor() && JitUtil.isJitSupported();
@@ -2229,6 +2432,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                     filterExpr,
                                     factory.getMetadata()
                             ),
+                            zoneMapFilter,
                             limitLoFunction,
                             limitLoPos,
                             preTouchColumns,
@@ -2264,6 +2468,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                 filterExpr,
                                 factory.getMetadata()
                         ),
+                        zoneMapFilter,
                         limitLoFunction,
                         limitLoPos,
                         preTouchColumns,
@@ -2271,6 +2476,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 );
             } catch (Throwable e) {
                 Misc.free(filter);
+                Misc.free(zoneMapFilter);
                 Misc.free(factory);
                 throw e;
             }
@@ -2436,8 +2642,9 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                                 writeSymbolAsString,
                                                 writeStringAsVarcharA
                                         );
+                                        final RecordCursorFactory joinFactory;
                                         if (slave.supportsTimeFrameCursor() && fastAsOfJoins) {
-                                            master = new AsOfJoinFastRecordCursorFactory(
+                                            joinFactory = new AsOfJoinFastRecordCursorFactory(
                                                     configuration,
                                                     createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                                     master,
@@ -2448,7 +2655,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                                     slaveModel.getContext()
                                             );
                                         } else {
-                                            master = createAsOfJoin(
+                                            joinFactory = createAsOfJoin(
                                                     createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                                     master,
                                                     masterSink,
@@ -2458,9 +2665,20 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                                     slaveModel.getContext()
                                             );
                                         }
+                                        master = maybeCreateParallelAsOfJoin(
+                                                joinFactory,
+                                                master,
+                                                masterSink,
+                                                slave,
+                                                slaveSink,
+                                                slaveModel.getContext(),
+                                                false,
+                                                executionContext
+                                        );
                                     } else {
+                                        final RecordCursorFactory joinFactory;
                                         if (slave.supportsTimeFrameCursor()) {
-                                            master = new AsOfJoinNoKeyFastRecordCursorFactory(
+                                            joinFactory = new AsOfJoinNoKeyFastRecordCursorFactory(
                                                     configuration,
                                                     createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                                     master,
@@ -2468,13 +2686,23 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                                     masterMetadata.getColumnCount()
                                             );
                                         } else {
-                                            master = new AsOfJoinNoKeyRecordCursorFactory(
+                                            joinFactory = new AsOfJoinNoKeyRecordCursorFactory(
                                                     createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                                     master,
                                                     slave,
                                                     masterMetadata.getColumnCount()
                                             );
                                         }
+                                        master = maybeCreateParallelAsOfJoin(
+                                                joinFactory,
+                                                master,
+                                                null,
+                                                slave,
+                                                null,
+                                                slaveModel.getContext(),
+                                                false,
+                                                executionContext
+                                        );
                                     }
                                 } else {
                                     master = createFullFatJoin(
@@ -2499,30 +2727,42 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                 processJoinContext(index == 1, isSameTable(master, slave), slaveModel.getContext(), masterMetadata, slaveMetadata);
                                 if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
                                     if (isKeyedTemporalJoin(masterMetadata, slaveMetadata)) {
-                                        master = createLtJoin(
-                                                createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
-                                                master,
-                                                RecordSinkFactory.getInstance(
-                                                        asm,
-                                                        masterMetadata,
-                                                        listColumnFilterB,
-                                                        writeSymbolAsString,
-                                                        writeStringAsVarcharB
+                                        RecordSink masterSink = RecordSinkFactory.getInstance(
+                                                asm,
+                                                masterMetadata,
+                                                listColumnFilterB,
+                                                writeSymbolAsString,
+                                                writeStringAsVarcharB
+                                        );
+                                        RecordSink slaveSink = RecordSinkFactory.getInstance(
+                                                asm,
+                                                slaveMetadata,
+                                                listColumnFilterA,
+                                                writeSymbolAsString,
+                                                writeStringAsVarcharA
+                                        );
+                                        master = maybeCreateParallelAsOfJoin(
+                                                createLtJoin(
+                                                        createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                                        master,
+                                                        masterSink,
+                                                        slave,
+                                                        slaveSink,
+                                                        masterMetadata.getColumnCount(),
+                                                        slaveModel.getContext()
                                                 ),
+                                                master,
+                                                masterSink,
                                                 slave,
-                                                RecordSinkFactory.getInstance(
-                                                        asm,
-                                                        slaveMetadata,
-                                                        listColumnFilterA,
-                                                        writeSymbolAsString,
-                                                        writeStringAsVarcharA
-                                                ),
-                                                masterMetadata.getColumnCount(),
-                                                slaveModel.getContext()
+                                                slaveSink,
+                                                slaveModel.getContext(),
+                                                true,
+                                                executionContext
                                         );
                                     } else {
+                                        final RecordCursorFactory joinFactory;
                                         if (slave.supportsTimeFrameCursor()) {
-                                            master = new LtJoinNoKeyFastRecordCursorFactory(
+                                            joinFactory = new LtJoinNoKeyFastRecordCursorFactory(
                                                     configuration,
                                                     createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                                     master,
@@ -2530,13 +2770,23 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                                     masterMetadata.getColumnCount()
                                             );
                                         } else {
-                                            master = new LtJoinNoKeyRecordCursorFactory(
+                                            joinFactory = new LtJoinNoKeyRecordCursorFactory(
                                                     createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                                     master,
                                                     slave,
                                                     masterMetadata.getColumnCount()
                                             );
                                         }
+                                        master = maybeCreateParallelAsOfJoin(
+                                                joinFactory,
+                                                master,
+                                                null,
+                                                slave,
+                                                null,
+                                                slaveModel.getContext(),
+                                                true,
+                                                executionContext
+                                        );
                                     }
                                 } else {
                                     master = createFullFatJoin(
@@ -2620,7 +2870,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                         slave,
                                         joinType,
                                         filter,
-                                        slaveModel.getContext()
+                                        slaveModel.getContext(),
+                                        executionContext
                                 );
                                 masterAlias = null;
                                 break;
@@ -2661,6 +2912,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                         master.getMetadata()
                                 ),
                                 null,
+                                null,
                                 0,
                                 false,
                                 executionContext.getSharedWorkerCount()
@@ -2712,6 +2964,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                         master.getMetadata()
                                 ),
                                 null,
+                                null,
                                 0,
                                 false,
                                 executionContext.getSharedWorkerCount()
@@ -3230,6 +3483,16 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                         if (configuration.isSqlOrderBySortEnabled()
                                 && orderByColumnNames.size() == 1
                                 && LongSortedLightRecordCursorFactory.isSupportedColumnType(columnType)) {
+                            if (configuration.isSqlParallelOrderByEnabled()) {
+                                final RecordCursorFactory parallelFactory = generateParallelOrderBy(
+                                        recordCursorFactory,
+                                        orderedMetadata,
+                                        executionContext
+                                );
+                                if (parallelFactory != null) {
+                                    return parallelFactory;
+                                }
+                            }
                             return new LongSortedLightRecordCursorFactory(
                                     configuration,
                                     orderedMetadata,
@@ -3269,6 +3532,145 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    private RecordCursorFactory generateOrderedFill(
+            RecordCursorFactory factory,
+            QueryModel model,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        if (!isOrderedFillRequired(model)) {
+            return factory;
+        }
+
+        final QueryModel curr = findFillModel(model);
+        assert curr != null;
+        final ExpressionNode fillFrom = curr.getFillFrom();
+        final ExpressionNode fillTo = curr.getFillTo();
+        final ExpressionNode fillStride = curr.getFillStride();
+        Function fillFromFunc = TimestampConstant.NULL;
+        Function fillToFunc = TimestampConstant.NULL;
+        try {
+            if (!factory.recordCursorSupportsRandomAccess()) {
+                throw SqlException.$(fillStride.position, "FILL requires random access to the group-by result");
+            }
+
+            if (fillFrom != null) {
+                fillFromFunc = functionParser.parseFunction(fillFrom, EmptyRecordMetadata.INSTANCE, executionContext);
+                coerceRuntimeConstantType(fillFromFunc, ColumnType.TIMESTAMP, executionContext, "from lower bound must be a constant expression convertible to a TIMESTAMP", fillFrom.position);
+            }
+
+            if (fillTo != null) {
+                fillToFunc = functionParser.parseFunction(fillTo, EmptyRecordMetadata.INSTANCE, executionContext);
+                coerceRuntimeConstantType(fillToFunc, ColumnType.TIMESTAMP, executionContext, "to upper bound must be a constant expression convertible to a TIMESTAMP", fillTo.position);
+            }
+
+            final RecordMetadata metadata = factory.getMetadata();
+            final int timestampIndex = metadata.getColumnIndexQuiet(getFillTimestampAlias(model, curr));
+
+            // Everything that is not an aggregate or the sampled timestamp is a key.
+            keyTypes.clear();
+            listColumnFilterA.clear();
+            intHashSet.clear();
+            final ObjList<QueryColumn> columns = model.getColumns();
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                final QueryColumn column = columns.getQuick(i);
+                final int columnIndex = metadata.getColumnIndexQuiet(column.getAlias());
+                if (columnIndex < 0 || columnIndex == timestampIndex) {
+                    continue;
+                }
+                final ExpressionNode ast = column.getAst();
+                if (ast.type == ExpressionNode.FUNCTION && functionParser.getFunctionFactoryCache().isGroupBy(ast.token)) {
+                    intHashSet.add(columnIndex);
+                } else {
+                    keyTypes.add(metadata.getColumnType(columnIndex));
+                    listColumnFilterA.add(columnIndex + 1);
+                }
+            }
+
+            final IntList aggregateColumnIndexes = new IntList(intHashSet.size());
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                if (intHashSet.contains(i)) {
+                    aggregateColumnIndexes.add(i);
+                }
+            }
+
+            final int samplingIntervalEnd = TimestampSamplerFactory.findIntervalEndIndex(fillStride.token, fillStride.position);
+            final long samplingInterval = TimestampSamplerFactory.parseInterval(fillStride.token, samplingIntervalEnd, fillStride.position);
+            final char samplingIntervalUnit = fillStride.token.charAt(samplingIntervalEnd);
+            final TimestampSampler timestampSampler = TimestampSamplerFactory.getInstance(samplingInterval, samplingIntervalUnit, fillStride.position);
+
+            return new OrderedFillRecordCursorFactory(
+                    configuration,
+                    factory,
+                    keyTypes,
+                    listColumnFilterA.size() > 0 ? RecordSinkFactory.getInstance(asm, metadata, listColumnFilterA) : null,
+                    aggregateColumnIndexes,
+                    curr.getFillValues(),
+                    fillFromFunc,
+                    fillToFunc,
+                    timestampSampler,
+                    samplingInterval,
+                    samplingIntervalUnit,
+                    timestampIndex
+            );
+        } catch (Throwable e) {
+            Misc.free(fillFromFunc);
+            Misc.free(fillToFunc);
+            Misc.free(factory);
+            throw e;
+        }
+    }
+
+    private @Nullable RecordCursorFactory generateParallelOrderBy(
+            RecordCursorFactory factory,
+            RecordMetadata orderedMetadata,
+            SqlExecutionContext executionContext
+    ) {
+        if (factory.supportsPageFrameCursor()) {
+            return new AsyncOrderByRecordCursorFactory(
+                    configuration,
+                    executionContext.getMessageBus(),
+                    orderedMetadata,
+                    factory,
+                    listColumnFilterA.copy(),
+                    null,
+                    null,
+                    null,
+                    null,
+                    reduceTaskFactory,
+                    null,
+                    executionContext.getSharedWorkerCount()
+            );
+        }
+        // Steal the filter from the nested factory, if possible. We only do that for thread-safe
+        // filters, since the where clause is already consumed and per-worker filters can't be compiled.
+        if (
+                factory.supportsFilterStealing()
+                        && factory.getFilter() != null
+                        && factory.getFilter().isThreadSafe()
+        ) {
+            final RecordCursorFactory filterFactory = factory;
+            final RecordCursorFactory baseFactory = factory.getBaseFactory();
+            assert baseFactory.supportsPageFrameCursor();
+            final RecordCursorFactory parallelFactory = new AsyncOrderByRecordCursorFactory(
+                    configuration,
+                    executionContext.getMessageBus(),
+                    orderedMetadata,
+                    baseFactory,
+                    listColumnFilterA.copy(),
+                    filterFactory.getCompiledFilter(),
+                    filterFactory.getBindVarMemory(),
+                    filterFactory.getBindVarFunctions(),
+                    filterFactory.getFilter(),
+                    reduceTaskFactory,
+                    null,
+                    executionContext.getSharedWorkerCount()
+            );
+            filterFactory.halfClose();
+            return parallelFactory;
+        }
+        return null;
+    }
+
     private RecordCursorFactory generateQuery(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         RecordCursorFactory factory = generateQuery0(model, executionContext, processJoins);
         if (model.getUnionModel() != null) {
@@ -3279,18 +3681,22 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
     private RecordCursorFactory generateQuery0(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         return generateLimit(
-                generateOrderBy(
-                        generateLatestBy(
-                                generateFilter(
-                                        generateSelect(
+                generateOrderedFill(
+                        generateOrderBy(
+                                generateLatestBy(
+                                        generateFilter(
+                                                generateSelect(
+                                                        model,
+                                                        executionContext,
+                                                        processJoins
+                                                ),
                                                 model,
-                                                executionContext,
-                                                processJoins
+                                                executionContext
                                         ),
-                                        model,
-                                        executionContext
+                                        model
                                 ),
-                                model
+                                model,
+                                executionContext
                         ),
                         model,
                         executionContext
@@ -4165,7 +4571,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     );
                 }
 
-                if (tempKeyIndexesInBase.size() == 1) {
+                // keyed GROUP BY spills only in the single-threaded factory, so the memory budget rules out Rosti
+                if (tempKeyIndexesInBase.size() == 1 && configuration.getSqlSpillMemoryBudget() == 0) {
                     for (int i = 0, n = tempVaf.size(); i < n; i++) {
                         tempVaf.getQuick(i).pushValueTypes(arrayColumnTypes);
                     }
@@ -4267,6 +4674,17 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 enableParallelGroupBy = false;
             }
 
+            // Only the single-threaded keyed GROUP BY can spill its map to disk. When a memory budget is set,
+            // keyed queries that would spill run single-threaded, so that the budget is honoured.
+            if (
+                    enableParallelGroupBy
+                            && keyTypes.getColumnCount() > 0
+                            && configuration.getSqlSpillMemoryBudget() > 0
+                            && GroupByUtils.isParallelismSupported(groupByFunctions)
+            ) {
+                enableParallelGroupBy = false;
+            }
+
             if (
                     enableParallelGroupBy
                             && SqlUtil.isParallelismSupported(keyFunctions)
@@ -6019,13 +6437,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     }
 
     private void guardAgainstFillWithKeyedGroupBy(QueryModel model, ArrayColumnTypes keyTypes) throws SqlException {
-        // locate fill
-        QueryModel curr = model;
-        while (curr != null && curr.getFillStride() == null) {
-            curr = curr.getNestedModel();
-        }
-
-        if (curr == null || curr.getFillStride() == null || curr.getFillValues() == null || curr.getFillValues().size() == 0) {
+        final QueryModel curr = findFillModel(model);
+        if (curr == null || isOrderedFillRequired(model) || curr.getFillStride() == null || curr.getFillValues() == null || curr.getFillValues().size() == 0) {
             return;
         }
 
@@ -6062,6 +6475,48 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 && Chars.equalsIgnoreCase(model.getOrderByAdvice().getQuick(0).token, model.getTimestamp().token);
     }
 
+    private boolean isOrderedFillRequired(QueryModel model) {
+        if (!configuration.isSqlParallelSampleByFillEnabled() || model.getSelectModelType() != QueryModel.SELECT_MODEL_GROUP_BY) {
+            return false;
+        }
+        final QueryModel curr = findFillModel(model);
+        if (curr == null) {
+            return false;
+        }
+        final ObjList<ExpressionNode> fillValues = curr.getFillValues();
+        if (fillValues == null || fillValues.size() == 0 || isNoneKeyword(fillValues.getQuick(0).token)) {
+            return false;
+        }
+        for (int i = 0, n = fillValues.size(); i < n; i++) {
+            // linear interpolation needs to look ahead, it's done by the single-threaded SAMPLE BY
+            if (isLinearKeyword(fillValues.getQuick(i).token)) {
+                return false;
+            }
+        }
+        // the fill pass relies on the group-by output being sorted by the sampled timestamp alone
+        final LowerCaseCharSequenceIntHashMap orderHash = model.getOrderHash();
+        if (orderHash.size() != 1) {
+            return false;
+        }
+        final CharSequence orderByColumn = orderHash.keys().getQuick(0);
+        return orderHash.get(orderByColumn) == QueryModel.ORDER_DIRECTION_ASCENDING
+                && Chars.equalsIgnoreCase(orderByColumn, getFillTimestampAlias(model, curr));
+    }
+
+    private boolean isParallelHashJoinSupported(
+            RecordCursorFactory master,
+            RecordCursorFactory slave,
+            SqlExecutionContext executionContext
+    ) {
+        return configuration.isSqlParallelHashJoinEnabled()
+                && executionContext.getSharedWorkerCount() > 0
+                && keyTypes.getColumnCount() == 1
+                && AsyncHashJoinBuildAtom.isSupportedKeyType(keyTypes.getColumnType(0))
+                && master.supportsPageFrameCursor()
+                && master.getScanDirection() != RecordCursorFactory.SCAN_DIRECTION_BACKWARD
+                && slave.supportsPageFrameCursor();
+    }
+
     private boolean isSameTable(RecordCursorFactory masterFactory, RecordCursorFactory slaveFactory) {
         return masterFactory.getTableToken() != null && masterFactory.getTableToken().equals(slaveFactory.getTableToken());
     }
@@ -6119,6 +6574,42 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    private RecordCursorFactory maybeCreateParallelAsOfJoin(
+            RecordCursorFactory joinFactory,
+            RecordCursorFactory master,
+            @Nullable RecordSink masterSink,
+            RecordCursorFactory slave,
+            @Nullable RecordSink slaveSink,
+            JoinContext context,
+            boolean strict,
+            SqlExecutionContext executionContext
+    ) {
+        if (
+                configuration.isSqlParallelAsOfJoinEnabled()
+                        && executionContext.getSharedWorkerCount() > 0
+                        && master.supportsPageFrameCursor()
+                        && master.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                        && slave.supportsPageFrameCursor()
+                        && slave.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+        ) {
+            return new AsyncAsOfJoinRecordCursorFactory(
+                    configuration,
+                    executionContext.getMessageBus(),
+                    joinFactory,
+                    master,
+                    masterSink,
+                    slave,
+                    slaveSink,
+                    master.getMetadata().getColumnCount(),
+                    context,
+                    strict,
+                    reduceTaskFactory,
+                    executionContext.getSharedWorkerCount()
+            );
+        }
+        return joinFactory;
+    }
+
     private int prepareLatestByColumnIndexes(ObjList<ExpressionNode> latestBy, RecordMetadata myMeta) throws SqlException {
         keyTypes.clear();
         listColumnFilterA.clear();
@@ -45,6 +45,8 @@ import io.questdb.cairo.MapWriter;
 import io.questdb.cairo.MetadataCacheReader;
 import io.questdb.cairo.OperationCodes;
 import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.RecordSinkFactory;
 import io.questdb.cairo.SecurityContext;
 import io.questdb.cairo.SymbolMapReader;
 import io.questdb.cairo.TableColumnMetadata;
@@ -76,11 +78,14 @@ import io.questdb.cairo.sql.TableReferenceOutOfDateException;
 import io.questdb.cairo.sql.VirtualRecord;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cairo.wal.WalApplyPriority;
 import io.questdb.cairo.wal.WalUtils;
 import io.questdb.cairo.wal.WalWriterMetadata;
 import io.questdb.griffin.engine.QueryProgress;
+import io.questdb.griffin.engine.QueryResultCache;
 import io.questdb.griffin.engine.ops.AlterOperationBuilder;
 import io.questdb.griffin.engine.ops.CopyCancelFactory;
+import io.questdb.griffin.engine.ops.CopyExportFactory;
 import io.questdb.griffin.engine.ops.CopyFactory;
 import io.questdb.griffin.engine.ops.CreateMatViewOperation;
 import io.questdb.griffin.engine.ops.CreateMatViewOperationBuilder;
@@ -92,6 +97,7 @@ import io.questdb.griffin.engine.ops.GenericDropOperationBuilder;
 import io.questdb.griffin.engine.ops.InsertOperationImpl;
 import io.questdb.griffin.engine.ops.Operation;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.engine.table.parquet.ParquetExporter;
 import io.questdb.griffin.model.CopyModel;
 import io.questdb.griffin.model.ExecutionModel;
 import io.questdb.griffin.model.ExplainModel;
@@ -106,6 +112,7 @@ import io.questdb.log.LogRecord;
 import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
 import io.questdb.network.QueryPausedException;
+import io.questdb.std.BitSet;
 import io.questdb.std.BytecodeAssembler;
 import io.questdb.std.CharSequenceObjHashMap;
 import io.questdb.std.Chars;
@@ -184,6 +191,7 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
     private final ObjectPool<QueryColumn> queryColumnPool;
     private final ObjectPool<QueryModel> queryModelPool;
     private final Path renamePath;
+    private final BitSet resultCacheSymbolColumns = new BitSet();
     private final ObjectPool<ExpressionNode> sqlNodePool;
     private final ObjHashSet<TableToken> tableTokenBucket = new ObjHashSet<>();
     private final ObjList<TableWriterAPI> tableWriters = new ObjList<>();
@@ -1246,6 +1254,34 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         }
     }
 
+    private void alterTableSetWalPriority(
+            SqlExecutionContext executionContext,
+            int tableNamePosition,
+            TableToken tableToken,
+            int tableId
+    ) throws SqlException {
+        CharSequence tok = expectToken(lexer, "'priority'");
+        if (!isPriorityKeyword(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'priority' expected");
+        }
+        if (!engine.isWalTable(tableToken)) {
+            throw SqlException.$(tableNamePosition, tableToken.getTableName()).put(" is not a WAL table.");
+        }
+        tok = expectToken(lexer, "'low', 'normal' or 'high'");
+        final int priority = WalApplyPriority.resolve(tok);
+        if (priority < 0) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'low', 'normal' or 'high' expected");
+        }
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok != null && !Chars.equals(tok, ';')) {
+            throw SqlException.unexpectedToken(lexer.lastTokenPosition(), tok);
+        }
+        executionContext.getSecurityContext().authorizeAlterTableSetWalPriority(tableToken);
+        compiledQuery.ofAlter(
+                alterOperationBuilder.ofSetWalPriority(tableNamePosition, tableToken, tableId, priority).build()
+        );
+    }
+
     private void alterTableSuspend(int tableNamePosition, TableToken tableToken, ErrorTag errorTag, String errorMessage, SqlExecutionContext executionContext) {
         try {
             engine.getTableSequencerAPI().suspendTable(tableToken, errorTag, errorMessage);
@@ -1524,7 +1560,7 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
                     throw SqlException.$(lexer.lastTokenPosition(), "'column' or 'partition' expected");
                 }
             } else if (isSetKeyword(tok)) {
-                tok = expectToken(lexer, "'param', 'ttl' or 'type'");
+                tok = expectToken(lexer, "'param', 'ttl', 'type' or 'wal'");
                 if (isParamKeyword(tok)) {
                     final int paramNamePosition = lexer.getPosition();
                     tok = expectToken(lexer, "param name");
@@ -1562,8 +1598,10 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "'bypass' or 'wal' expected");
                     }
+                } else if (isWalKeyword(tok)) {
+                    alterTableSetWalPriority(executionContext, tableNamePosition, tableToken, tableMetadata.getTableId());
                 } else {
-                    throw SqlException.$(lexer.lastTokenPosition(), "'param' or 'type' expected");
+                    throw SqlException.$(lexer.lastTokenPosition(), "'param', 'ttl', 'type' or 'wal' expected");
                 }
             } else if (isResumeKeyword(tok)) {
                 parseResumeWal(tableToken, tableNamePosition, executionContext);
@@ -1707,6 +1745,28 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         );
     }
 
+    private RecordCursorFactory compileCopyExport(SqlExecutionContext executionContext, CopyModel model) throws SqlException {
+        assert model.isExport();
+
+        final ExpressionNode fileNameNode = model.getFileName();
+        final String fileName = Chars.toString(GenericLexer.assertNoDots(GenericLexer.unquote(fileNameNode.token), fileNameNode.position));
+        final RecordCursorFactory factory = query().$(model.getSelectText()).compile(executionContext).getRecordCursorFactory();
+        try {
+            for (int i = 0, n = factory.getMetadata().getColumnCount(); i < n; i++) {
+                final int columnType = factory.getMetadata().getColumnType(i);
+                if (!ParquetExporter.isSupported(columnType)) {
+                    throw SqlException.$(0, "column type is not supported by parquet export [column=")
+                            .put(factory.getMetadata().getColumnName(i))
+                            .put(", type=").put(ColumnType.nameOf(columnType)).put(']');
+                }
+            }
+            return new CopyExportFactory(configuration, factory, fileName);
+        } catch (Throwable th) {
+            Misc.free(factory);
+            throw th;
+        }
+    }
+
     private void compileDeallocate(SqlExecutionContext executionContext, @Transient CharSequence sqlText) throws SqlException {
         CharSequence statementName = GenericLexer.unquote(expectToken(lexer, "statement name"));
         CharSequence tok = SqlUtil.fetchNext(lexer);
@@ -2256,7 +2316,9 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
                     break;
                 case ExecutionModel.COPY:
                     QueryProgress.logStart(sqlId, sqlText, executionContext, false);
-                    checkMatViewModification(executionModel);
+                    if (!((CopyModel) executionModel).isExport()) {
+                        checkMatViewModification(executionModel);
+                    }
                     copy(executionContext, (CopyModel) executionModel);
                     QueryProgress.logEnd(sqlId, sqlText, executionContext, beginNanos);
                     break;
@@ -2371,7 +2433,9 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
     }
 
     private void copy(SqlExecutionContext executionContext, CopyModel copyModel) throws SqlException {
-        if (!copyModel.isCancel() && Chars.equalsLowerCaseAscii(copyModel.getFileName().token, "stdin")) {
+        if (copyModel.isExport()) {
+            compiledQuery.ofPseudoSelect(compileCopyExport(executionContext, copyModel));
+        } else if (!copyModel.isCancel() && Chars.equalsLowerCaseAscii(copyModel.getFileName().token, "stdin")) {
             // no-op implementation
             authorizeInsertForCopy(executionContext.getSecurityContext(), copyModel);
             compiledQuery.ofCopyRemote();
@@ -3557,6 +3621,18 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         }
     }
 
+    private RecordSink newResultCacheRecordSink(RecordMetadata metadata) {
+        final int columnCount = metadata.getColumnCount();
+        resultCacheSymbolColumns.clear();
+        for (int i = 0; i < columnCount; i++) {
+            if (ColumnType.isSymbol(metadata.getColumnType(i))) {
+                resultCacheSymbolColumns.set(i);
+            }
+        }
+        entityColumnFilter.of(columnCount);
+        return RecordSinkFactory.getInstance(asm, metadata, entityColumnFilter, resultCacheSymbolColumns);
+    }
+
     private void parseResumeWal(TableToken tableToken, int tableNamePosition, SqlExecutionContext executionContext) throws SqlException {
         CharSequence tok = expectToken(lexer, "'wal'");
         if (!isWalKeyword(tok)) {
@@ -3711,8 +3787,27 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
             SqlExecutionContext executionContext,
             boolean generateProgressLogger
     ) throws SqlException {
+        final int nonDeterministicFunctionCount = functionParser.getNonDeterministicFunctionCount();
         RecordCursorFactory factory = codeGenerator.generate(selectQueryModel, executionContext);
         if (generateProgressLogger) {
+            if (
+                    configuration.isSqlResultCacheEnabled()
+                            && functionParser.getNonDeterministicFunctionCount() == nonDeterministicFunctionCount
+                            && QueryResultCache.isSupported(factory.getMetadata())
+            ) {
+                try {
+                    return new QueryProgress(
+                            queryRegistry,
+                            sqlText,
+                            factory,
+                            engine.getQueryResultCache(),
+                            newResultCacheRecordSink(factory.getMetadata())
+                    );
+                } catch (Throwable th) {
+                    Misc.free(factory);
+                    throw th;
+                }
+            }
             return new QueryProgress(queryRegistry, sqlText, factory);
         } else {
             return factory;
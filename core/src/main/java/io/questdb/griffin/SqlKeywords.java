@@ -1491,6 +1491,18 @@ public class SqlKeywords {
                 && (tok.charAt(3) | 32) == 'v';
     }
 
+    public static boolean isPriorityKeyword(CharSequence tok) {
+        return tok.length() == 8
+                && (tok.charAt(0) | 32) == 'p'
+                && (tok.charAt(1) | 32) == 'r'
+                && (tok.charAt(2) | 32) == 'i'
+                && (tok.charAt(3) | 32) == 'o'
+                && (tok.charAt(4) | 32) == 'r'
+                && (tok.charAt(5) | 32) == 'i'
+                && (tok.charAt(6) | 32) == 't'
+                && (tok.charAt(7) | 32) == 'y';
+    }
+
     public static boolean isPublicKeyword(CharSequence tok, int len) {
         return len == 6
                 && (tok.charAt(0) | 32) == 'p'
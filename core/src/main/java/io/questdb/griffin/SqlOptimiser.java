@@ -2469,6 +2469,33 @@ public class SqlOptimiser implements Mutable {
         }
     }
 
+    /**
+     * Parallel fill is applied by the code generator in a single pass over the group-by
+     * output sorted by timestamp. This requires the sort to be ours, i.e. the query must not
+     * have its own ORDER BY, and rules out linear interpolation, which needs to look ahead.
+     * The fill pass generates buckets in UTC, so time zones and offsets stay on the
+     * single-threaded SAMPLE BY factories too.
+     */
+    private boolean isParallelSampleByFillSupported(QueryModel nested, ObjList<ExpressionNode> sampleByFill) {
+        if (!configuration.isSqlParallelSampleByFillEnabled() || nested.getOrderBy().size() > 0) {
+            return false;
+        }
+        final ExpressionNode sampleByOffset = nested.getSampleByOffset();
+        if (sampleByOffset != null && !isZeroOffset(sampleByOffset.token)) {
+            return false;
+        }
+        final ExpressionNode sampleByTimezoneName = nested.getSampleByTimezoneName();
+        if (sampleByTimezoneName != null && !isUTC(sampleByTimezoneName.token)) {
+            return false;
+        }
+        for (int i = 0, n = sampleByFill.size(); i < n; i++) {
+            if (isLinearKeyword(sampleByFill.getQuick(i).token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean isSimpleIntegerColumn(ExpressionNode column, QueryModel model) {
         return checkSimpleIntegerColumn(column, model) != null;
     }
@@ -4692,7 +4719,8 @@ public class SqlOptimiser implements Mutable {
     /**
      * Recursive. Replaces "sample by" models with group-by. Not all forms of "sample by"
      * can be implemented via this method. Therefore, the rewrite avoids the following:
-     * - linear and prev fills
+     * - linear and prev fills, unless parallel fill is enabled
+     * - keyed fills, unless parallel fill is enabled
      * - custom non-wall-clock alignments
      *
      * @param model the input model, it is expected to be very early in optimisation process
@@ -4729,7 +4757,7 @@ public class SqlOptimiser implements Mutable {
                     sampleBy != null
                             && timestamp != null
                             && (sampleByOffset != null && isZeroOffset(sampleByOffset.token) && (sampleByTimezoneName == null || isUTC(sampleByTimezoneName.token)))
-                            && (sampleByFillSize == 0 || (sampleByFillSize == 1 && !isPrevKeyword(sampleByFill.getQuick(0).token) && !isLinearKeyword(sampleByFill.getQuick(0).token)))
+                            && (sampleByFillSize == 0 || (sampleByFillSize == 1 && !isPrevKeyword(sampleByFill.getQuick(0).token) && !isLinearKeyword(sampleByFill.getQuick(0).token)) || isParallelSampleByFillSupported(nested, sampleByFill))
                             && sampleByUnit == null
                             && (sampleByFrom == null || ((sampleByFrom.type != BIND_VARIABLE) && (sampleByFrom.type != FUNCTION) && (sampleByFrom.type != OPERATION)))
             ) {
@@ -4834,8 +4862,9 @@ public class SqlOptimiser implements Mutable {
                         }
                     }
 
-                    if (isKeyed) {
+                    if (isKeyed && !isParallelSampleByFillSupported(nested, sampleByFill)) {
                         // drop out early, since we don't handle keyed
+                        // unless the fill can be applied in an ordered pass after the group-by
                         nested.setNestedModel(rewriteSampleBy(nested.getNestedModel()));
 
                         // join models
@@ -653,8 +653,14 @@ public class SqlParser {
         if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
             throw SqlException.$(lexer.lastTokenPosition(), "COPY is disabled ['cairo.sql.copy.root' is not set?]");
         }
+        CharSequence tok = tok(lexer, "table name or sub-query");
+        if (Chars.equals(tok, '(')) {
+            return parseCopyTo(lexer, sqlParserCallback);
+        }
+        lexer.unparseLast();
+
         ExpressionNode target = expectExpr(lexer, sqlParserCallback);
-        CharSequence tok = tok(lexer, "'from' or 'to' or 'cancel'");
+        tok = tok(lexer, "'from' or 'to' or 'cancel'");
 
         if (isCancelKeyword(tok)) {
             CopyModel model = copyModelPool.next();
@@ -745,6 +751,33 @@ public class SqlParser {
         throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
     }
 
+    // COPY (query) TO 'file' exports the query result as a parquet file
+    private ExecutionModel parseCopyTo(GenericLexer lexer, SqlParserCallback sqlParserCallback) throws SqlException {
+        final int startOfSelect = lexer.getPosition();
+        // Parse SELECT for the sake of basic SQL validation.
+        // It'll be compiled and optimized later, at the execution phase.
+        parseDml(lexer, null, startOfSelect, true, sqlParserCallback, null);
+        final int endOfSelect = lexer.getPosition() - 1;
+        final String selectText = Chars.toString(lexer.getContent().subSequence(startOfSelect, endOfSelect));
+        expectTok(lexer, ')');
+        expectTo(lexer);
+
+        final ExpressionNode fileName = expectExpr(lexer, sqlParserCallback);
+        if (fileName.token.length() < 3 && Chars.startsWith(fileName.token, '\'')) {
+            throw SqlException.$(fileName.position, "file name expected");
+        }
+
+        final CopyModel model = copyModelPool.next();
+        model.setSelectText(selectText);
+        model.setFileName(fileName);
+
+        final CharSequence tok = optTok(lexer);
+        if (tok != null && !isSemicolon(tok)) {
+            throw errUnexpected(lexer, tok);
+        }
+        return model;
+    }
+
     private ExecutionModel parseCreate(
             GenericLexer lexer,
             SqlExecutionContext executionContext,
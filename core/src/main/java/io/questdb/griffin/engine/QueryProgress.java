@@ -29,6 +29,7 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.DataUnavailableException;
+import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.SqlJitMode;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.TableToken;
@@ -55,10 +56,12 @@ import io.questdb.std.Chars;
 import io.questdb.std.FlyweightMessageContainer;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
+import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 // Factory that adds query to registry on getCursor() and removes on cursor close().
+// When the query is cacheable, it also serves and records its results via the query result cache.
 public class QueryProgress extends AbstractRecordCursorFactory implements ResourcePoolSupervisor<ReaderPool.R> {
     @SuppressWarnings("FieldMayBeFinal")
     private static Log LOG = LogFactory.getLog(QueryProgress.class);
@@ -67,18 +70,50 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
     private final boolean jit;
     private final QueryTrace queryTrace = new QueryTrace();
     private final ObjList<TableReader> readers = new ObjList<>();
+    private final QueryResultCache.RecordingRecordCursor recordingCursor;
     private final QueryRegistry registry;
+    private final QueryResultCache resultCache;
+    private final StringSink resultCacheKey;
     private long beginNanos;
+    private QueryResultCache.CachedRecordCursor cachedCursor;
     private SqlExecutionContext executionContext;
+    private boolean resultCacheKeyValid;
     private long sqlId;
 
     public QueryProgress(QueryRegistry registry, CharSequence sqlText, RecordCursorFactory base) {
+        this(registry, sqlText, base, null, null);
+    }
+
+    /**
+     * @param resultCache      cache to serve and store the query results, null when the query is not cacheable
+     * @param resultRecordSink sink that copies records to {@link QueryResultCache#newStoredColumnTypes(io.questdb.cairo.sql.RecordMetadata)}
+     */
+    public QueryProgress(
+            QueryRegistry registry,
+            CharSequence sqlText,
+            RecordCursorFactory base,
+            @Nullable QueryResultCache resultCache,
+            @Nullable RecordSink resultRecordSink
+    ) {
         super(base.getMetadata());
         this.base = base;
         this.registry = registry;
         this.cursor = new RegisteredRecordCursor();
         this.jit = base.usesCompiledFilter();
         queryTrace.queryText = Chars.toString(sqlText);
+        if (resultCache != null && resultRecordSink != null) {
+            this.resultCache = resultCache;
+            this.resultCacheKey = new StringSink();
+            this.recordingCursor = new QueryResultCache.RecordingRecordCursor(
+                    resultCache,
+                    base.getMetadata(),
+                    resultRecordSink
+            );
+        } else {
+            this.resultCache = null;
+            this.resultCacheKey = null;
+            this.recordingCursor = null;
+        }
     }
 
     public static void logEnd(
@@ -275,6 +310,13 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
             beginNanos = executionContext.getCairoEngine().getConfiguration().getNanosecondClock().getTicks();
             logStart(sqlId, sqlText, executionContext, jit);
             try {
+                if (resultCache != null) {
+                    final RecordCursor cachedCursor = getCachedCursor(executionContext);
+                    if (cachedCursor != null) {
+                        cursor.of(cachedCursor);
+                        return cursor;
+                    }
+                }
                 // Configure this factory to be the supervisor for all open table readers.
                 // We are assuming that all readers will be open on the same thread, which is
                 // typically before cursor is fetched. Readers open after fetch has begun can go
@@ -288,7 +330,12 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
                 executionContext.getCairoEngine().configureThreadLocalReaderPoolSupervisor(this);
                 final RecordCursor baseCursor = base.getCursor(executionContext);
                 executionContext.getCairoEngine().removeThreadLocalReaderPoolSupervisor();
-                cursor.of(baseCursor); // this should not fail, it is just variable assignment
+                // this should not fail, it is just variable assignment
+                if (resultCache != null && resultCacheKeyValid && readers.size() > 0) {
+                    cursor.of(recordingCursor.of(baseCursor, resultCacheKey, readers));
+                } else {
+                    cursor.of(baseCursor);
+                }
             } catch (Throwable th) {
                 executionContext.getCairoEngine().removeThreadLocalReaderPoolSupervisor();
                 cursor.close0(th);
@@ -386,6 +433,21 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
         base.close();
     }
 
+    private RecordCursor getCachedCursor(SqlExecutionContext executionContext) {
+        resultCacheKey.clear();
+        resultCacheKeyValid = QueryResultCache.putKey(resultCacheKey, queryTrace.queryText, executionContext);
+        if (resultCacheKeyValid) {
+            final QueryResultCache.Entry entry = resultCache.acquire(executionContext.getCairoEngine(), resultCacheKey);
+            if (entry != null) {
+                if (cachedCursor == null) {
+                    cachedCursor = new QueryResultCache.CachedRecordCursor(resultCache);
+                }
+                return cachedCursor.of(entry);
+            }
+        }
+        return null;
+    }
+
     class RegisteredRecordCursor implements RecordCursor {
         private RecordCursor base;
         private boolean isOpen = false;
@@ -0,0 +1,757 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.BindVariableService;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.TableReferenceOutOfDateException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceIntHashMap;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Chars;
+import io.questdb.std.IntList;
+import io.questdb.std.Long256;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8Sequence;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Server-side cache of small SELECT results. Results are keyed by the SQL text,
+ * the principal and the bind variable values. Each result also keeps the token and
+ * the txn of every table read by the query, so any commit or schema change to these
+ * tables makes the result stale. For WAL tables, the txn is the sequencer one, so the
+ * check doesn't need a table reader.
+ * <p>
+ * Results are kept in native memory. When the total size goes beyond the limit,
+ * the least recently used results are evicted. Cached results are immutable and
+ * may be read by multiple cursors concurrently.
+ */
+public class QueryResultCache implements QuietCloseable {
+    private static final Log LOG = LogFactory.getLog(QueryResultCache.class);
+    private static final long PAGE_SIZE = 16 * 1024;
+    private final CairoConfiguration configuration;
+    private final CharSequenceObjHashMap<Entry> entries = new CharSequenceObjHashMap<>();
+    // most recently used entry
+    private Entry head;
+    private long memoryUsed;
+    // least recently used entry
+    private Entry tail;
+
+    public QueryResultCache(CairoConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Returns true if records of the given metadata can be stored in the cache.
+     */
+    public static boolean isSupported(RecordMetadata metadata) {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            switch (ColumnType.tagOf(metadata.getColumnType(i))) {
+                case ColumnType.BOOLEAN:
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.CHAR:
+                case ColumnType.INT:
+                case ColumnType.IPv4:
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                case ColumnType.STRING:
+                case ColumnType.VARCHAR:
+                case ColumnType.SYMBOL:
+                case ColumnType.BINARY:
+                case ColumnType.LONG256:
+                case ColumnType.GEOBYTE:
+                case ColumnType.GEOSHORT:
+                case ColumnType.GEOINT:
+                case ColumnType.GEOLONG:
+                case ColumnType.LONG128:
+                case ColumnType.UUID:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the column types of stored records. Symbols are stored as strings,
+     * so that the cached result does not depend on the symbol tables.
+     */
+    public static ArrayColumnTypes newStoredColumnTypes(RecordMetadata metadata) {
+        final ArrayColumnTypes columnTypes = new ArrayColumnTypes();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            columnTypes.add(ColumnType.isSymbol(columnType) ? ColumnType.STRING : columnType);
+        }
+        return columnTypes;
+    }
+
+    /**
+     * Puts the cache key for the given query to the sink.
+     *
+     * @return false if the query can't be cached, e.g. when a bind variable
+     * is not defined or is of an unsupported type
+     */
+    public static boolean putKey(StringSink sink, CharSequence sqlText, SqlExecutionContext executionContext) {
+        sink.put(executionContext.getSecurityContext().getPrincipal()).put('\0').put(sqlText);
+        final BindVariableService bindVariableService = executionContext.getBindVariableService();
+        if (bindVariableService != null) {
+            for (int i = 0, n = bindVariableService.getIndexedVariableCount(); i < n; i++) {
+                sink.put('\0');
+                if (!putBindVariableValue(sink, bindVariableService.getFunction(i))) {
+                    return false;
+                }
+            }
+            final ObjList<CharSequence> names = bindVariableService.getNamedVariables();
+            for (int i = 0, n = names.size(); i < n; i++) {
+                final CharSequence name = names.getQuick(i);
+                sink.put('\0').put(name).put('=');
+                if (!putBindVariableValue(sink, bindVariableService.getFunction(name))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks up a result for the given key and checks that none of the tables read
+     * by the query have changed since the result was cached. The returned entry
+     * must be released via {@link #release(Entry)}.
+     */
+    @Nullable
+    public Entry acquire(CairoEngine engine, CharSequence key) {
+        final Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            moveToHead(entry);
+            entry.refCount++;
+        }
+
+        if (entry.isUpToDate(engine)) {
+            return entry;
+        }
+
+        synchronized (this) {
+            if (!entry.evicted) {
+                remove(entry);
+            }
+        }
+        release(entry);
+        return null;
+    }
+
+    public synchronized void clear() {
+        while (head != null) {
+            remove(head);
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    public long getMaxResultSize() {
+        return configuration.getSqlResultCacheMaxResultSize();
+    }
+
+    public synchronized long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized void release(Entry entry) {
+        if (--entry.refCount == 0 && entry.evicted) {
+            entry.close();
+        }
+    }
+
+    private static boolean putBindVariableValue(StringSink sink, @Nullable Function function) {
+        if (function == null) {
+            return false;
+        }
+        final int type = function.getType();
+        sink.put(type).put(':');
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BOOLEAN:
+                sink.put(function.getBool(null));
+                break;
+            case ColumnType.BYTE:
+                sink.put((int) function.getByte(null));
+                break;
+            case ColumnType.SHORT:
+                sink.put((int) function.getShort(null));
+                break;
+            case ColumnType.CHAR:
+                sink.put((int) function.getChar(null));
+                break;
+            case ColumnType.INT:
+                sink.put(function.getInt(null));
+                break;
+            case ColumnType.IPv4:
+                sink.put(function.getIPv4(null));
+                break;
+            case ColumnType.LONG:
+                sink.put(function.getLong(null));
+                break;
+            case ColumnType.DATE:
+                sink.put(function.getDate(null));
+                break;
+            case ColumnType.TIMESTAMP:
+                sink.put(function.getTimestamp(null));
+                break;
+            case ColumnType.FLOAT:
+                sink.put(Float.floatToRawIntBits(function.getFloat(null)));
+                break;
+            case ColumnType.DOUBLE:
+                sink.put(Double.doubleToRawLongBits(function.getDouble(null)));
+                break;
+            case ColumnType.GEOBYTE:
+                sink.put((int) function.getGeoByte(null));
+                break;
+            case ColumnType.GEOSHORT:
+                sink.put((int) function.getGeoShort(null));
+                break;
+            case ColumnType.GEOINT:
+                sink.put(function.getGeoInt(null));
+                break;
+            case ColumnType.GEOLONG:
+                sink.put(function.getGeoLong(null));
+                break;
+            case ColumnType.LONG128:
+            case ColumnType.UUID:
+                sink.put(function.getLong128Lo(null)).put(',').put(function.getLong128Hi(null));
+                break;
+            case ColumnType.LONG256:
+                final Long256 long256 = function.getLong256A(null);
+                sink.put(long256.getLong0()).put(',').put(long256.getLong1()).put(',')
+                        .put(long256.getLong2()).put(',').put(long256.getLong3());
+                break;
+            case ColumnType.STRING:
+                final CharSequence cs = function.getStrA(null);
+                if (cs != null) {
+                    // length prefix keeps the keys unambiguous
+                    sink.put(cs.length()).put(':').put(cs);
+                } else {
+                    sink.put(-1);
+                }
+                break;
+            case ColumnType.VARCHAR:
+                final Utf8Sequence us = function.getVarcharA(null);
+                if (us != null) {
+                    sink.put(us.size()).put(':').put(us);
+                } else {
+                    sink.put(-1);
+                }
+                break;
+            default:
+                return false;
+        }
+        return true;
+    }
+
+    private void moveToHead(Entry entry) {
+        if (entry != head) {
+            unlink(entry);
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            head = entry;
+            if (tail == null) {
+                tail = entry;
+            }
+        }
+    }
+
+    private synchronized void put(Entry entry) {
+        final long size = entry.getMemorySize();
+        final long memoryLimit = configuration.getSqlResultCacheMemoryLimit();
+        if (size > memoryLimit) {
+            entry.close();
+            return;
+        }
+
+        final Entry existing = entries.get(entry.key);
+        if (existing != null) {
+            remove(existing);
+        }
+        entries.put(entry.key, entry);
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        head = entry;
+        if (tail == null) {
+            tail = entry;
+        }
+        memoryUsed += size;
+
+        while (memoryUsed > memoryLimit && tail != entry) {
+            remove(tail);
+        }
+        LOG.debug().$("cached query result [rows=").$(entry.rowCount).$(", size=").$(size).I$();
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.key);
+        unlink(entry);
+        memoryUsed -= entry.getMemorySize();
+        entry.evicted = true;
+        if (entry.refCount == 0) {
+            entry.close();
+        }
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else if (head == entry) {
+            head = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        } else if (tail == entry) {
+            tail = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    /**
+     * Cursor over a cached result. Each instance keeps its own records,
+     * so the same result can be read by many cursors at the same time.
+     */
+    public static class CachedRecordCursor implements RecordCursor {
+        private final QueryResultCache cache;
+        private Entry entry;
+        private long nextRecordOffset = -1;
+        private Record recordA;
+        private Record recordB;
+
+        public CachedRecordCursor(QueryResultCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void calculateSize(SqlExecutionCircuitBreaker circuitBreaker, Counter counter) {
+            while (nextRecordOffset != -1) {
+                counter.inc();
+                nextRecordOffset = entry.chain.getNextRecordOffset(nextRecordOffset);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (entry != null) {
+                cache.release(entry);
+                entry = null;
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public Record getRecordB() {
+            if (recordB == null) {
+                recordB = entry.chain.newRecord();
+            }
+            return recordB;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return entry.symbolTables.getQuick(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRecordOffset != -1) {
+                entry.chain.recordAt(recordA, nextRecordOffset);
+                nextRecordOffset = entry.chain.getNextRecordOffset(nextRecordOffset);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            // cached symbol tables are immutable, so they can be shared
+            return entry.symbolTables.getQuick(columnIndex);
+        }
+
+        public CachedRecordCursor of(Entry entry) {
+            this.entry = entry;
+            // records belong to the chain they've been created by
+            this.recordA = entry.chain.newRecord();
+            this.recordB = null;
+            toTop();
+            return this;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            entry.chain.recordAt(record, atRowId);
+        }
+
+        @Override
+        public long size() {
+            return entry.rowCount;
+        }
+
+        @Override
+        public void toTop() {
+            nextRecordOffset = entry.rowCount > 0 ? 0 : -1;
+        }
+    }
+
+    public static class Entry implements QuietCloseable {
+        private final StoredRecordChain chain;
+        // symbol values seen in the result, null for non-symbol columns
+        private final ObjList<CachedSymbolTable> symbolTables = new ObjList<>();
+        private final ObjList<TableToken> tableTokens = new ObjList<>();
+        // txn and metadata version pairs; the txn is the sequencer one for WAL tables
+        private final LongList tableVersions = new LongList();
+        private boolean evicted;
+        private String key;
+        private Entry next;
+        private Entry prev;
+        private int refCount;
+        private long rowCount;
+
+        private Entry(ColumnTypes columnTypes, RecordSink recordSink, IntList symbolColumns) {
+            symbolTables.setPos(columnTypes.getColumnCount());
+            for (int i = 0, n = symbolColumns.size(); i < n; i++) {
+                symbolTables.setQuick(symbolColumns.getQuick(i), new CachedSymbolTable());
+            }
+            this.chain = new StoredRecordChain(columnTypes, recordSink, symbolTables);
+        }
+
+        @Override
+        public void close() {
+            Misc.free(chain);
+        }
+
+        private long getMemorySize() {
+            return chain.getMemorySize();
+        }
+
+        private boolean isUpToDate(CairoEngine engine) {
+            for (int i = 0, n = tableTokens.size(); i < n; i++) {
+                final TableToken tableToken = tableTokens.getQuick(i);
+                if (!tableToken.equals(engine.getTableTokenIfExists(tableToken.getTableName()))) {
+                    // the table must have been dropped, renamed or re-created
+                    return false;
+                }
+                if (tableToken.isWal()) {
+                    // any commit, including schema changes, moves the sequencer txn
+                    if (engine.getTableSequencerAPI().getTxnTracker(tableToken).getSeqTxn() != tableVersions.getQuick(2 * i)) {
+                        return false;
+                    }
+                    continue;
+                }
+                // non-WAL tables have no sequencer, their txn is read from the table reader
+                try (TableReader reader = engine.getReader(tableToken)) {
+                    if (reader.getTxn() != tableVersions.getQuick(2 * i)
+                            || reader.getMetadataVersion() != tableVersions.getQuick(2 * i + 1)) {
+                        return false;
+                    }
+                } catch (CairoException | TableReferenceOutOfDateException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Tees records of the base cursor into a new cache entry. The entry is published
+     * only when the base cursor is read till the end and the result is small enough.
+     */
+    public static class RecordingRecordCursor implements RecordCursor {
+        private final QueryResultCache cache;
+        private final ColumnTypes columnTypes;
+        private final RecordSink recordSink;
+        private final IntList symbolColumns = new IntList();
+        private RecordCursor base;
+        private Entry entry;
+        private CharSequence key;
+        private long maxResultSize;
+        private long prevRecordOffset;
+
+        /**
+         * @param recordSink sink that copies records to {@link #newStoredColumnTypes(RecordMetadata)}
+         */
+        public RecordingRecordCursor(QueryResultCache cache, RecordMetadata metadata, RecordSink recordSink) {
+            this.cache = cache;
+            this.columnTypes = newStoredColumnTypes(metadata);
+            this.recordSink = recordSink;
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                if (ColumnType.isSymbol(metadata.getColumnType(i))) {
+                    symbolColumns.add(i);
+                }
+            }
+        }
+
+        @Override
+        public void calculateSize(SqlExecutionCircuitBreaker circuitBreaker, Counter counter) {
+            stopRecording();
+            base.calculateSize(circuitBreaker, counter);
+        }
+
+        @Override
+        public void close() {
+            stopRecording();
+            base = Misc.free(base);
+        }
+
+        @Override
+        public Record getRecord() {
+            return base.getRecord();
+        }
+
+        @Override
+        public Record getRecordB() {
+            return base.getRecordB();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return base.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (base.hasNext()) {
+                if (entry != null) {
+                    final Record record = base.getRecord();
+                    prevRecordOffset = entry.chain.put(record, prevRecordOffset);
+                    for (int i = 0, n = symbolColumns.size(); i < n; i++) {
+                        final int columnIndex = symbolColumns.getQuick(i);
+                        entry.symbolTables.getQuick(columnIndex).add(record.getSymA(columnIndex));
+                    }
+                    entry.rowCount++;
+                    if (entry.getMemorySize() > maxResultSize) {
+                        stopRecording();
+                    }
+                }
+                return true;
+            }
+            if (entry != null) {
+                entry.key = Chars.toString(key);
+                final Entry published = entry;
+                entry = null;
+                cache.put(published);
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isUsingIndex() {
+            return base.isUsingIndex();
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return base.newSymbolTable(columnIndex);
+        }
+
+        /**
+         * Starts recording the base cursor. Table readers are the ones borrowed
+         * by the base cursor; their versions are what the recorded result is valid for.
+         */
+        public RecordingRecordCursor of(RecordCursor base, CharSequence key, ObjList<TableReader> readers) {
+            this.base = base;
+            this.key = key;
+            this.maxResultSize = cache.getMaxResultSize();
+            this.prevRecordOffset = -1;
+            try {
+                entry = new Entry(columnTypes, recordSink, symbolColumns);
+                for (int i = 0, n = readers.size(); i < n; i++) {
+                    final TableReader reader = readers.getQuick(i);
+                    final TableToken tableToken = reader.getTableToken();
+                    entry.tableTokens.add(tableToken);
+                    entry.tableVersions.add(tableToken.isWal() ? reader.getSeqTxn() : reader.getTxn(), reader.getMetadataVersion());
+                }
+            } catch (Throwable th) {
+                // recording is best-effort, the query should not fail because of it
+                LOG.error().$("could not start query result recording [error=").$(th).I$();
+                stopRecording();
+            }
+            return this;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            base.recordAt(record, atRowId);
+        }
+
+        @Override
+        public long size() {
+            return base.size();
+        }
+
+        @Override
+        public void skipRows(Counter rowCount) {
+            stopRecording();
+            base.skipRows(rowCount);
+        }
+
+        @Override
+        public void toTop() {
+            stopRecording();
+            base.toTop();
+        }
+
+        private void stopRecording() {
+            entry = Misc.free(entry);
+        }
+    }
+
+    /**
+     * Symbol table over the symbol values of a cached result. Keys are assigned in the order
+     * the values are first seen. The table is immutable once the result is published.
+     */
+    private static class CachedSymbolTable implements SymbolTable {
+        private final CharSequenceIntHashMap keys = new CharSequenceIntHashMap();
+
+        @Override
+        public CharSequence valueBOf(int key) {
+            return valueOf(key);
+        }
+
+        @Override
+        public CharSequence valueOf(int key) {
+            return key == VALUE_IS_NULL ? null : keys.keys().getQuick(key);
+        }
+
+        private void add(CharSequence value) {
+            if (value != null) {
+                final int index = keys.keyIndex(value);
+                if (index > -1) {
+                    keys.putAt(index, value, keys.size());
+                }
+            }
+        }
+
+        private int keyOf(CharSequence value) {
+            return value == null ? VALUE_IS_NULL : keys.get(value);
+        }
+    }
+
+    private static class StoredRecordChain extends RecordChain {
+        private final ObjList<CachedSymbolTable> symbolTables;
+
+        private StoredRecordChain(
+                @NotNull ColumnTypes columnTypes,
+                @NotNull RecordSink recordSink,
+                @NotNull ObjList<CachedSymbolTable> symbolTables
+        ) {
+            super(columnTypes, recordSink, PAGE_SIZE, Integer.MAX_VALUE);
+            this.symbolTables = symbolTables;
+        }
+
+        @Override
+        protected RecordChainRecord newChainRecord() {
+            return new StoredRecord(columnCount);
+        }
+
+        private long getMemorySize() {
+            return mem.size();
+        }
+
+        private long getNextRecordOffset(long recordOffset) {
+            return mem.getLong(recordOffset);
+        }
+
+        private Record newRecord() {
+            return newChainRecord();
+        }
+
+        // symbols are stored as strings, their keys come from the result's symbol tables
+        private class StoredRecord extends RecordChainRecord {
+
+            private StoredRecord(int columnCount) {
+                super(columnCount);
+            }
+
+            @Override
+            public int getInt(int col) {
+                final CachedSymbolTable symbolTable = symbolTables.getQuick(col);
+                if (symbolTable != null) {
+                    return symbolTable.keyOf(getStrA(col));
+                }
+                return super.getInt(col);
+            }
+
+            @Override
+            public CharSequence getSymA(int col) {
+                return getStrA(col);
+            }
+
+            @Override
+            public CharSequence getSymB(int col) {
+                return getStrB(col);
+            }
+        }
+    }
+}
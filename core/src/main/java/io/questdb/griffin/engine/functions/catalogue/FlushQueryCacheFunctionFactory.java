@@ -33,6 +33,7 @@ import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.QueryResultCache;
 import io.questdb.griffin.engine.functions.BooleanFunction;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
@@ -57,18 +58,21 @@ public class FlushQueryCacheFunctionFactory implements FunctionFactory {
             CairoConfiguration configuration,
             SqlExecutionContext sqlExecutionContext
     ) {
-        return new FlushQueryCacheFunction(sqlExecutionContext.getMessageBus());
+        return new FlushQueryCacheFunction(sqlExecutionContext.getMessageBus(), sqlExecutionContext.getCairoEngine().getQueryResultCache());
     }
 
     private static class FlushQueryCacheFunction extends BooleanFunction {
         private final MessageBus messageBus;
+        private final QueryResultCache resultCache;
 
-        public FlushQueryCacheFunction(MessageBus messageBus) {
+        public FlushQueryCacheFunction(MessageBus messageBus, QueryResultCache resultCache) {
             this.messageBus = messageBus;
+            this.resultCache = resultCache;
         }
 
         @Override
         public boolean getBool(Record rec) {
+            resultCache.clear();
             while (true) {
                 final long pubCursor = messageBus.getQueryCacheEventPubSeq().next();
                 if (pubCursor > -1) {
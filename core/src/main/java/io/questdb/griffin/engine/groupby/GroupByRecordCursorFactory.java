@@ -35,6 +35,8 @@ import io.questdb.cairo.map.MapFactory;
 import io.questdb.cairo.map.MapKey;
 import io.questdb.cairo.map.MapRecordCursor;
 import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.map.OrderedMap;
+import io.questdb.cairo.map.OrderedMapSpill;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
@@ -60,6 +62,8 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
     // this sink is used to copy recordKeyMap keys to dataMap
     private final RecordSink mapSink;
     private final ObjList<Function> recordFunctions;
+    // when set, the data map is flushed to disk partitions once it outgrows the memory budget
+    private final boolean spillEnabled;
 
     public GroupByRecordCursorFactory(
             @Transient @NotNull BytecodeAssembler asm,
@@ -82,6 +86,8 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             // sink will be storing record columns to map key
             this.mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, keyFunctions, null);
             final GroupByFunctionsUpdater updater = GroupByFunctionsUpdaterFactory.getInstance(asm, groupByFunctions);
+            // spilled entries are merged back with the updater, so all functions must support merge
+            this.spillEnabled = configuration.getSqlSpillMemoryBudget() > 0 && GroupByUtils.isParallelismSupported(groupByFunctions);
             this.cursor = new GroupByRecordCursor(configuration, recordFunctions, groupByFunctions, updater, keyTypes, valueTypes);
         } catch (Throwable e) {
             close();
@@ -127,20 +133,25 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         }
     }
 
+    // Whether the map spills is only known at runtime, so random access and top-K are off
+    // whenever spilling is enabled, even for the maps that stay within the budget.
     @Override
     public boolean recordCursorSupportsLongTopK() {
-        return true;
+        return !spillEnabled;
     }
 
     @Override
     public boolean recordCursorSupportsRandomAccess() {
-        return true;
+        return !spillEnabled;
     }
 
     @Override
     public void toPlan(PlanSink sink) {
         sink.type("GroupBy");
         sink.meta("vectorized").val(false);
+        if (spillEnabled) {
+            sink.meta("spill").val(true);
+        }
         sink.optAttr("keys", getKeys(recordFunctions, getMetadata()));
         sink.optAttr("values", groupByFunctions, true);
         sink.child(base);
@@ -168,9 +179,13 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         private final GroupByAllocator allocator;
         private final Map dataMap;
         private final GroupByFunctionsUpdater groupByFunctionsUpdater;
+        private final OrderedMapSpill spill;
+        private final long spillMemoryBudget;
         private SqlExecutionCircuitBreaker circuitBreaker;
         private boolean isDataMapBuilt;
         private boolean isOpen;
+        private boolean isSpilled;
+        private int partitionIndex;
         private long rowId;
 
         public GroupByRecordCursor(
@@ -184,7 +199,16 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             super(functions);
             try {
                 this.isOpen = true;
-                this.dataMap = MapFactory.createUnorderedMap(configuration, keyTypes, valueTypes);
+                if (spillEnabled) {
+                    // only the ordered map can flush its entries to the spill files
+                    this.dataMap = MapFactory.createOrderedMap(configuration, keyTypes, valueTypes);
+                    this.spill = new OrderedMapSpill(configuration);
+                    this.spillMemoryBudget = configuration.getSqlSpillMemoryBudget();
+                } else {
+                    this.dataMap = MapFactory.createUnorderedMap(configuration, keyTypes, valueTypes);
+                    this.spill = null;
+                    this.spillMemoryBudget = Long.MAX_VALUE;
+                }
                 this.groupByFunctionsUpdater = groupByFunctionsUpdater;
                 this.allocator = GroupByAllocatorFactory.createAllocator(configuration);
                 GroupByUtils.setAllocator(groupByFunctions, allocator);
@@ -199,6 +223,12 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             if (!isDataMapBuilt) {
                 buildDataMap();
             }
+            if (isSpilled) {
+                while (hasNext()) {
+                    counter.inc();
+                }
+                return;
+            }
             baseCursor.calculateSize(circuitBreaker, counter);
         }
 
@@ -207,6 +237,7 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             if (isOpen) {
                 isOpen = false;
                 Misc.free(dataMap);
+                Misc.free(spill);
                 Misc.free(allocator);
                 Misc.clearObjList(groupByFunctions);
                 super.close();
@@ -218,7 +249,18 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             if (!isDataMapBuilt) {
                 buildDataMap();
             }
-            return super.hasNext();
+            if (super.hasNext()) {
+                return true;
+            }
+            if (isSpilled) {
+                while (partitionIndex < spill.getPartitionCount() - 1) {
+                    loadPartition(partitionIndex + 1);
+                    if (super.hasNext()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
         }
 
         @Override
@@ -237,15 +279,27 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             }
             this.circuitBreaker = executionContext.getCircuitBreaker();
             Function.init(keyFunctions, managedCursor, executionContext);
+            Misc.clear(spill);
             isDataMapBuilt = false;
+            isSpilled = false;
             rowId = 0;
         }
 
+        @Override
+        public long size() {
+            return isSpilled ? -1 : super.size();
+        }
+
         @Override
         public void toTop() {
             super.toTop();
-            isDataMapBuilt = false;
-            rowId = 0;
+            if (isSpilled) {
+                // the input is consumed, so the spilled partitions are re-read from disk
+                loadPartition(0);
+            } else {
+                isDataMapBuilt = false;
+                rowId = 0;
+            }
         }
 
         private void buildDataMap() {
@@ -257,12 +311,30 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
                 MapValue value = key.createValue();
                 if (value.isNew()) {
                     groupByFunctionsUpdater.updateNew(value, baseRecord, rowId++);
+                    if (dataMap.getUsedHeapSize() > spillMemoryBudget) {
+                        ((OrderedMap) dataMap).spill(spill);
+                    }
                 } else {
                     groupByFunctionsUpdater.updateExisting(value, baseRecord, rowId++);
                 }
             }
-            super.of(dataMap.getCursor());
             isDataMapBuilt = true;
+            if (spill != null && !spill.isEmpty()) {
+                // flush the tail too, so that each key lives in exactly one partition
+                ((OrderedMap) dataMap).spill(spill);
+                isSpilled = true;
+                loadPartition(0);
+                return;
+            }
+            super.of(dataMap.getCursor());
+        }
+
+        private void loadPartition(int partitionIndex) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            this.partitionIndex = partitionIndex;
+            dataMap.clear();
+            spill.mergePartition(partitionIndex, (OrderedMap) dataMap, groupByFunctionsUpdater);
+            super.of(dataMap.getCursor());
         }
     }
 }
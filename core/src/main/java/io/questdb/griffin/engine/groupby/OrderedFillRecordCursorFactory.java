@@ -0,0 +1,517 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.map.MapRecordCursor;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.DelegatingRecord;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.VirtualRecord;
+import io.questdb.griffin.FunctionParser;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.TimestampFunction;
+import io.questdb.griffin.engine.functions.constants.ConstantFunction;
+import io.questdb.griffin.engine.functions.constants.NullConstant;
+import io.questdb.griffin.engine.functions.constants.TimestampConstant;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.griffin.SqlKeywords.*;
+
+/**
+ * Fills missing SAMPLE BY buckets on top of a group-by result sorted by the sampled timestamp.
+ * Generated instead of {@link FillRangeRecordCursorFactory} when parallel SAMPLE BY fill is enabled,
+ * which lets keyed queries and FILL(PREV) run on the parallel group-by.
+ * <p>
+ * The first pass over the sorted rows collects the distinct keys. The second pass streams the rows
+ * bucket by bucket and, once a bucket is exhausted, emits a fill row for every key that had no row
+ * in it. Keys and PREV values are read from the last row seen for the key via random access
+ * to the sorted result, so no aggregate state is kept.
+ */
+public class OrderedFillRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final int VALUE_FIRST_ROW_ID = 0;
+    private static final int VALUE_LAST_BUCKET = 2;
+    private static final int VALUE_LAST_ROW_ID = 1;
+    private final RecordCursorFactory base;
+    private final OrderedFillRecordCursor cursor;
+    private final Function fromFunc;
+    // fill function per aggregate column, null stands for PREV
+    private final ObjList<Function> placeholderFuncs;
+    private final long samplingInterval;
+    private final char samplingIntervalUnit;
+    private final Function toFunc;
+
+    public OrderedFillRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @Nullable RecordSink keySink,
+            @Transient @NotNull IntList aggregateColumnIndexes,
+            @Transient @NotNull ObjList<ExpressionNode> fillValues,
+            @NotNull Function fromFunc,
+            @NotNull Function toFunc,
+            TimestampSampler timestampSampler,
+            long samplingInterval,
+            char samplingIntervalUnit,
+            int timestampIndex
+    ) throws SqlException {
+        super(base.getMetadata());
+        this.base = base;
+        this.fromFunc = fromFunc;
+        this.toFunc = toFunc;
+        this.samplingInterval = samplingInterval;
+        this.samplingIntervalUnit = samplingIntervalUnit;
+        final int aggregateCount = aggregateColumnIndexes.size();
+        this.placeholderFuncs = new ObjList<>(aggregateCount);
+        try {
+            final RecordMetadata metadata = base.getMetadata();
+            final int fillValueCount = fillValues.size();
+            // a single NULL or PREV applies to all aggregates, constants have to be listed one per aggregate
+            final boolean fillAll = fillValueCount == 1
+                    && (isNullKeyword(fillValues.getQuick(0).token) || isPrevKeyword(fillValues.getQuick(0).token));
+            final IntList fillPositions = new IntList(metadata.getColumnCount());
+            fillPositions.setAll(metadata.getColumnCount(), 0);
+            for (int i = 0; i < aggregateCount; i++) {
+                if (!fillAll && i == fillValueCount) {
+                    throw SqlException.position(0).put("not enough values");
+                }
+                final ExpressionNode fillNode = fillValues.getQuick(fillAll ? 0 : i);
+                final int columnIndex = aggregateColumnIndexes.getQuick(i);
+                if (isNullKeyword(fillNode.token)) {
+                    placeholderFuncs.add(NullConstant.NULL);
+                } else if (isPrevKeyword(fillNode.token)) {
+                    placeholderFuncs.add(null);
+                } else if (isLinearKeyword(fillNode.token)) {
+                    throw SqlException.position(fillNode.position).put("linear interpolation is not supported when using parallel fill");
+                } else {
+                    fillPositions.setQuick(columnIndex, fillNode.position);
+                    placeholderFuncs.add(SampleByFillValueRecordCursorFactory.createPlaceHolderFunction(
+                            fillPositions,
+                            columnIndex,
+                            metadata.getColumnType(columnIndex),
+                            fillNode
+                    ));
+                }
+            }
+
+            final ObjList<Function> prevFuncs = new ObjList<>(metadata.getColumnCount());
+            final ObjList<Function> noPrevFuncs = new ObjList<>(metadata.getColumnCount());
+            final BucketTimestampFunction bucketFunc = new BucketTimestampFunction();
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                if (i == timestampIndex) {
+                    prevFuncs.add(bucketFunc);
+                    noPrevFuncs.add(bucketFunc);
+                    continue;
+                }
+                final int aggregateIndex = aggregateColumnIndexes.indexOf(i, 0, aggregateCount);
+                if (aggregateIndex < 0) {
+                    // key column, read from any row of the key
+                    final Function keyFunc = FunctionParser.createColumn(0, metadata.getColumnName(i), metadata);
+                    prevFuncs.add(keyFunc);
+                    noPrevFuncs.add(keyFunc);
+                    continue;
+                }
+                final Function placeholderFunc = placeholderFuncs.getQuick(aggregateIndex);
+                if (placeholderFunc == null) {
+                    prevFuncs.add(FunctionParser.createColumn(0, metadata.getColumnName(i), metadata));
+                    noPrevFuncs.add(NullConstant.NULL);
+                } else {
+                    prevFuncs.add(placeholderFunc);
+                    noPrevFuncs.add(placeholderFunc);
+                }
+            }
+
+            final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+            valueTypes.add(ColumnType.LONG); // first row id
+            valueTypes.add(ColumnType.LONG); // last row id
+            valueTypes.add(ColumnType.LONG); // last bucket with a row
+            this.cursor = new OrderedFillRecordCursor(
+                    keySink != null ? MapFactory.createOrderedMap(configuration, keyTypes, valueTypes) : null,
+                    keySink,
+                    bucketFunc,
+                    prevFuncs,
+                    noPrevFuncs,
+                    fromFunc,
+                    toFunc,
+                    timestampSampler,
+                    timestampIndex
+            );
+        } catch (Throwable th) {
+            // the base factory and range functions are owned by the caller until construction succeeds
+            Misc.freeObjList(placeholderFuncs);
+            throw th;
+        }
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (Throwable th) {
+            cursor.close();
+            throw th;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Fill Ordered");
+        if (fromFunc != TimestampConstant.NULL || toFunc != TimestampConstant.NULL) {
+            sink.attr("range").val('(').val(fromFunc).val(',').val(toFunc).val(')');
+        }
+        sink.attr("stride").val('\'').val(samplingInterval).val(samplingIntervalUnit).val('\'');
+        sink.attr("values").val('[');
+        for (int i = 0, n = placeholderFuncs.size(); i < n; i++) {
+            if (i > 0) {
+                sink.val(',');
+            }
+            final Function placeholderFunc = placeholderFuncs.getQuick(i);
+            if (placeholderFunc == null) {
+                sink.val("prev");
+            } else {
+                sink.val(placeholderFunc);
+            }
+        }
+        sink.val(']');
+        sink.child(base);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    public boolean usesIndex() {
+        return base.usesIndex();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+        Misc.free(cursor);
+        Misc.free(fromFunc);
+        Misc.free(toFunc);
+        Misc.freeObjList(placeholderFuncs);
+    }
+
+    private static class BucketTimestampFunction extends TimestampFunction implements ConstantFunction {
+        private long bucket;
+
+        @Override
+        public long getTimestamp(Record rec) {
+            return bucket;
+        }
+    }
+
+    private static class OrderedFillRecordCursor implements NoRandomAccessRecordCursor {
+        private final BucketTimestampFunction bucketFunc;
+        private final VirtualRecord fillNoPrevRecord;
+        private final VirtualRecord fillPrevRecord;
+        private final Function fromFunc;
+        private final RecordSink keySink;
+        private final Map map;
+        private final ObjList<Function> noPrevFuncs;
+        private final ObjList<Function> prevFuncs;
+        private final DelegatingRecord record = new DelegatingRecord();
+        private final int timestampIndex;
+        private final TimestampSampler timestampSampler;
+        private final Function toFunc;
+        private RecordCursor baseCursor;
+        private Record baseRecord;
+        private Record baseRecordB;
+        private SqlExecutionCircuitBreaker circuitBreaker;
+        private long endBucket;
+        private boolean hasPendingRow;
+        private boolean isBaseAdvancePending;
+        private boolean isFilling;
+        private boolean isInitialized;
+        private boolean isOpen;
+        private MapRecordCursor mapCursor;
+        private long nextBucket;
+        // state of the single implicit key of a non-keyed query
+        private boolean notKeyedFillPending;
+        private long notKeyedFirstRowId;
+        private long notKeyedLastBucket;
+        private long notKeyedLastRowId;
+
+        private OrderedFillRecordCursor(
+                @Nullable Map map,
+                @Nullable RecordSink keySink,
+                BucketTimestampFunction bucketFunc,
+                ObjList<Function> prevFuncs,
+                ObjList<Function> noPrevFuncs,
+                Function fromFunc,
+                Function toFunc,
+                TimestampSampler timestampSampler,
+                int timestampIndex
+        ) {
+            this.map = map;
+            this.keySink = keySink;
+            this.bucketFunc = bucketFunc;
+            this.prevFuncs = prevFuncs;
+            this.noPrevFuncs = noPrevFuncs;
+            this.fromFunc = fromFunc;
+            this.toFunc = toFunc;
+            this.timestampSampler = timestampSampler;
+            this.timestampIndex = timestampIndex;
+            this.fillPrevRecord = new VirtualRecord(prevFuncs);
+            this.fillNoPrevRecord = new VirtualRecord(noPrevFuncs);
+            this.isOpen = true;
+        }
+
+        @Override
+        public void close() {
+            if (isOpen) {
+                isOpen = false;
+                baseCursor = Misc.free(baseCursor);
+                Misc.free(map);
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!isInitialized) {
+                collectKeys();
+                isInitialized = true;
+            }
+
+            if (isBaseAdvancePending) {
+                hasPendingRow = baseCursor.hasNext();
+                isBaseAdvancePending = false;
+            }
+
+            while (true) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                if (!isFilling) {
+                    if (hasPendingRow) {
+                        final long timestamp = baseRecord.getTimestamp(timestampIndex);
+                        // rows outside the fill range are passed through as they are
+                        if (timestamp < nextBucket || bucketFunc.bucket >= endBucket) {
+                            onRow(timestamp);
+                            record.of(baseRecord);
+                            isBaseAdvancePending = true;
+                            return true;
+                        }
+                    }
+                    if (bucketFunc.bucket >= endBucket) {
+                        return false;
+                    }
+                    isFilling = true;
+                    if (map != null) {
+                        mapCursor.toTop();
+                    } else {
+                        notKeyedFillPending = true;
+                    }
+                }
+
+                if (map != null) {
+                    final MapRecord mapRecord = mapCursor.getRecord();
+                    while (mapCursor.hasNext()) {
+                        final MapValue value = mapRecord.getValue();
+                        if (value.getLong(VALUE_LAST_BUCKET) != bucketFunc.bucket) {
+                            positionFillRecord(value.getLong(VALUE_FIRST_ROW_ID), value.getLong(VALUE_LAST_ROW_ID));
+                            return true;
+                        }
+                    }
+                } else if (notKeyedFillPending) {
+                    notKeyedFillPending = false;
+                    if (notKeyedLastBucket != bucketFunc.bucket) {
+                        positionFillRecord(notKeyedFirstRowId, notKeyedLastRowId);
+                        return true;
+                    }
+                }
+
+                // the bucket is complete, move on to the next one
+                isFilling = false;
+                bucketFunc.bucket = nextBucket;
+                nextBucket = timestampSampler.nextTimestamp(nextBucket);
+            }
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            baseCursor.toTop();
+            if (map != null) {
+                map.clear();
+            }
+            isInitialized = false;
+        }
+
+        private void collectKeys() {
+            long minTimestamp = Long.MAX_VALUE;
+            long maxTimestamp = Long.MIN_VALUE;
+            notKeyedFirstRowId = Numbers.LONG_NULL;
+            notKeyedLastRowId = Numbers.LONG_NULL;
+            notKeyedLastBucket = Numbers.LONG_NULL;
+            while (baseCursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                final long timestamp = baseRecord.getTimestamp(timestampIndex);
+                minTimestamp = Math.min(minTimestamp, timestamp);
+                maxTimestamp = Math.max(maxTimestamp, timestamp);
+                if (map != null) {
+                    final MapKey key = map.withKey();
+                    keySink.copy(baseRecord, key);
+                    final MapValue value = key.createValue();
+                    if (value.isNew()) {
+                        value.putLong(VALUE_FIRST_ROW_ID, baseRecord.getRowId());
+                        value.putLong(VALUE_LAST_ROW_ID, Numbers.LONG_NULL);
+                        value.putLong(VALUE_LAST_BUCKET, Numbers.LONG_NULL);
+                    }
+                } else if (notKeyedFirstRowId == Numbers.LONG_NULL) {
+                    notKeyedFirstRowId = baseRecord.getRowId();
+                }
+            }
+            baseCursor.toTop();
+
+            final long from = fromFunc.getTimestamp(null);
+            final long to = toFunc.getTimestamp(null);
+            final boolean hasRows = minTimestamp <= maxTimestamp;
+            final long startBucket = from != Numbers.LONG_NULL ? from : (hasRows ? minTimestamp : Long.MAX_VALUE);
+            if (to != Numbers.LONG_NULL) {
+                endBucket = to;
+            } else {
+                endBucket = hasRows ? timestampSampler.nextTimestamp(maxTimestamp) : Long.MIN_VALUE;
+            }
+            // a non-keyed query has no key to fill for until there is a row or an explicit range
+            if (map == null && !hasRows && (from == Numbers.LONG_NULL || to == Numbers.LONG_NULL)) {
+                endBucket = Long.MIN_VALUE;
+            }
+            bucketFunc.bucket = startBucket;
+            nextBucket = startBucket != Long.MAX_VALUE ? timestampSampler.nextTimestamp(startBucket) : Long.MAX_VALUE;
+            hasPendingRow = baseCursor.hasNext();
+            isBaseAdvancePending = false;
+            isFilling = false;
+        }
+
+        private void of(RecordCursor baseCursor, SqlExecutionContext executionContext) throws SqlException {
+            if (!isOpen) {
+                isOpen = true;
+                if (map != null) {
+                    map.reopen();
+                }
+            }
+            this.baseCursor = baseCursor;
+            this.baseRecord = baseCursor.getRecord();
+            this.baseRecordB = baseCursor.getRecordB();
+            this.circuitBreaker = executionContext.getCircuitBreaker();
+            if (map != null) {
+                mapCursor = map.getCursor();
+            }
+            Function.initNcFunctions(prevFuncs, baseCursor, executionContext);
+            Function.initNcFunctions(noPrevFuncs, baseCursor, executionContext);
+            fromFunc.init(baseCursor, executionContext);
+            toFunc.init(baseCursor, executionContext);
+            fillPrevRecord.of(baseRecordB);
+            fillNoPrevRecord.of(baseRecordB);
+            isInitialized = false;
+        }
+
+        private void onRow(long timestamp) {
+            final long rowId = baseRecord.getRowId();
+            if (map != null) {
+                final MapKey key = map.withKey();
+                keySink.copy(baseRecord, key);
+                final MapValue value = key.findValue();
+                assert value != null;
+                value.putLong(VALUE_LAST_ROW_ID, rowId);
+                if (timestamp >= bucketFunc.bucket) {
+                    value.putLong(VALUE_LAST_BUCKET, bucketFunc.bucket);
+                }
+            } else {
+                notKeyedLastRowId = rowId;
+                if (timestamp >= bucketFunc.bucket) {
+                    notKeyedLastBucket = bucketFunc.bucket;
+                }
+            }
+        }
+
+        private void positionFillRecord(long firstRowId, long lastRowId) {
+            if (lastRowId != Numbers.LONG_NULL) {
+                baseCursor.recordAt(baseRecordB, lastRowId);
+                record.of(fillPrevRecord);
+            } else {
+                if (firstRowId != Numbers.LONG_NULL) {
+                    // keys are still needed, take them from the first row of the key
+                    baseCursor.recordAt(baseRecordB, firstRowId);
+                }
+                record.of(fillNoPrevRecord);
+            }
+        }
+    }
+}
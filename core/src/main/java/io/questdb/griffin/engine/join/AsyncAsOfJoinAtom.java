@@ -0,0 +1,356 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.SingleRecordSink;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameAddressCache;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.PageFrameMemoryPool;
+import io.questdb.cairo.sql.PageFrameMemoryRecord;
+import io.questdb.cairo.sql.PartitionFormat;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Rows;
+import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Holds the slave side of the parallel ASOF and LT joins. The slave page frames are
+ * cached once per cursor, so that each reduce task can match its slice of master rows
+ * independently: the first master timestamp of the slice is located with a binary search
+ * over the slave frames and the following ones are matched by moving forward in lockstep.
+ * <p>
+ * Keyed joins additionally look back from the matched slave row until a row with the same
+ * key is found, like {@link AsOfJoinFastRecordCursorFactory} does. The key comparison and
+ * slave record navigation use per-worker resources guarded by {@link PerWorkerLocks}.
+ * <p>
+ * Only native slave partitions are supported, since the slave timestamps are read directly
+ * from the column memory.
+ */
+public class AsyncAsOfJoinAtom implements StatefulAtom, Closeable {
+    @Nullable
+    private final RecordSink masterKeySink;
+    private final int masterTimestampIndex;
+    private final SingleRecordSink ownerMasterSinkTarget;
+    private final PageFrameMemoryPool ownerSlaveFrameMemoryPool;
+    private final PageFrameMemoryRecord ownerSlaveRecord;
+    private final SingleRecordSink ownerSlaveSinkTarget;
+    private final PerWorkerLocks perWorkerLocks;
+    private final ObjList<SingleRecordSink> perWorkerMasterSinkTargets;
+    private final ObjList<PageFrameMemoryPool> perWorkerSlaveFrameMemoryPools;
+    private final ObjList<PageFrameMemoryRecord> perWorkerSlaveRecords;
+    private final ObjList<SingleRecordSink> perWorkerSlaveSinkTargets;
+    private final PageFrameAddressCache slaveAddressCache;
+    private final LongList slaveFirstTimestamps = new LongList();
+    @Nullable
+    private final RecordSink slaveKeySink;
+    private final LongList slaveTimestampAddresses = new LongList();
+    private final int slaveTimestampIndex;
+    // ASOF matches slave rows with timestamp <= master timestamp, LT with timestamp < master timestamp
+    private final long timestampAdjustment;
+    private boolean hasParquetFrames;
+    private PageFrameCursor slaveFrameCursor;
+
+    public AsyncAsOfJoinAtom(
+            @NotNull CairoConfiguration configuration,
+            int masterTimestampIndex,
+            @Nullable RecordSink masterKeySink,
+            int slaveTimestampIndex,
+            @Nullable RecordSink slaveKeySink,
+            boolean strict,
+            int workerCount
+    ) {
+        assert (masterKeySink == null) == (slaveKeySink == null);
+        this.masterTimestampIndex = masterTimestampIndex;
+        this.masterKeySink = masterKeySink;
+        this.slaveTimestampIndex = slaveTimestampIndex;
+        this.slaveKeySink = slaveKeySink;
+        this.timestampAdjustment = strict ? 1 : 0;
+        this.slaveAddressCache = new PageFrameAddressCache(configuration);
+        this.perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
+        this.perWorkerMasterSinkTargets = new ObjList<>(workerCount);
+        this.perWorkerSlaveSinkTargets = new ObjList<>(workerCount);
+        this.perWorkerSlaveFrameMemoryPools = new ObjList<>(workerCount);
+        this.perWorkerSlaveRecords = new ObjList<>(workerCount);
+        try {
+            if (masterKeySink != null) {
+                final long maxSinkTargetHeapSize = (long) configuration.getSqlHashJoinValuePageSize() * configuration.getSqlHashJoinValueMaxPages();
+                final int parquetCacheSize = configuration.getSqlParquetFrameCacheCapacity();
+                for (int i = 0; i < workerCount; i++) {
+                    perWorkerMasterSinkTargets.add(new SingleRecordSink(maxSinkTargetHeapSize, MemoryTag.NATIVE_RECORD_CHAIN));
+                    perWorkerSlaveSinkTargets.add(new SingleRecordSink(maxSinkTargetHeapSize, MemoryTag.NATIVE_RECORD_CHAIN));
+                    perWorkerSlaveFrameMemoryPools.add(new PageFrameMemoryPool(parquetCacheSize));
+                    perWorkerSlaveRecords.add(new PageFrameMemoryRecord(PageFrameMemoryRecord.RECORD_B_LETTER));
+                }
+                ownerMasterSinkTarget = new SingleRecordSink(maxSinkTargetHeapSize, MemoryTag.NATIVE_RECORD_CHAIN);
+                ownerSlaveSinkTarget = new SingleRecordSink(maxSinkTargetHeapSize, MemoryTag.NATIVE_RECORD_CHAIN);
+                ownerSlaveFrameMemoryPool = new PageFrameMemoryPool(parquetCacheSize);
+                ownerSlaveRecord = new PageFrameMemoryRecord(PageFrameMemoryRecord.RECORD_B_LETTER);
+            } else {
+                ownerMasterSinkTarget = null;
+                ownerSlaveSinkTarget = null;
+                ownerSlaveFrameMemoryPool = null;
+                ownerSlaveRecord = null;
+            }
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    @Override
+    public void clear() {
+        slaveFrameCursor = Misc.freeIfCloseable(slaveFrameCursor);
+        slaveAddressCache.clear();
+        slaveFirstTimestamps.clear();
+        slaveTimestampAddresses.clear();
+        hasParquetFrames = false;
+        if (masterKeySink != null) {
+            Misc.freeObjListAndKeepObjects(perWorkerMasterSinkTargets);
+            Misc.freeObjListAndKeepObjects(perWorkerSlaveSinkTargets);
+            Misc.clearObjList(perWorkerSlaveFrameMemoryPools);
+            Misc.freeObjListAndKeepObjects(perWorkerSlaveRecords);
+            Misc.free(ownerMasterSinkTarget);
+            Misc.free(ownerSlaveSinkTarget);
+            Misc.clear(ownerSlaveFrameMemoryPool);
+            Misc.free(ownerSlaveRecord);
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjList(perWorkerMasterSinkTargets);
+        Misc.freeObjList(perWorkerSlaveSinkTargets);
+        Misc.freeObjList(perWorkerSlaveFrameMemoryPools);
+        Misc.freeObjList(perWorkerSlaveRecords);
+        Misc.free(ownerSlaveFrameMemoryPool);
+    }
+
+    public PageFrameAddressCache getSlaveAddressCache() {
+        return slaveAddressCache;
+    }
+
+    public SymbolTableSource getSlaveSymbolTableSource() {
+        return slaveFrameCursor;
+    }
+
+    public boolean hasParquetFrames() {
+        return hasParquetFrames;
+    }
+
+
+    /**
+     * Matches the master rows of a page frame. For each master row, the slave row id or -1,
+     * when there is no matching slave row, is added to the given list.
+     *
+     * @param masterRecord  master record initialized with the page frame memory
+     * @param frameRowCount number of rows in the master page frame
+     * @param slotId        per-worker slot id obtained from {@link #maybeAcquire(int, boolean, SqlExecutionCircuitBreaker)}
+     * @param rows          destination list of slave row ids
+     */
+    public void match(
+            PageFrameMemoryRecord masterRecord,
+            long frameRowCount,
+            int slotId,
+            DirectLongList rows,
+            SqlExecutionCircuitBreaker circuitBreaker
+    ) {
+        final int slaveFrameCount = slaveTimestampAddresses.size();
+        int slaveFrameIndex = -1;
+        long slaveRowIndex = -1;
+        for (long r = 0; r < frameRowCount; r++) {
+            masterRecord.setRowIndex(r);
+            final long target = masterRecord.getTimestamp(masterTimestampIndex) - timestampAdjustment;
+
+            // move forward in the slave unless the next slave row is already beyond the target
+            if (slaveFrameIndex == -1) {
+                if (slaveFrameCount > 0 && slaveFirstTimestamps.getQuick(0) <= target) {
+                    final long rowId = locate(target);
+                    slaveFrameIndex = Rows.toPartitionIndex(rowId);
+                    slaveRowIndex = Rows.toLocalRowID(rowId);
+                }
+            } else if (slaveRowIndex + 1 < slaveAddressCache.getFrameSize(slaveFrameIndex)) {
+                if (getSlaveTimestamp(slaveFrameIndex, slaveRowIndex + 1) <= target) {
+                    final long rowId = locate(target);
+                    slaveFrameIndex = Rows.toPartitionIndex(rowId);
+                    slaveRowIndex = Rows.toLocalRowID(rowId);
+                }
+            } else if (slaveFrameIndex + 1 < slaveFrameCount && slaveFirstTimestamps.getQuick(slaveFrameIndex + 1) <= target) {
+                final long rowId = locate(target);
+                slaveFrameIndex = Rows.toPartitionIndex(rowId);
+                slaveRowIndex = Rows.toLocalRowID(rowId);
+            }
+
+            if (slaveFrameIndex == -1) {
+                rows.add(-1);
+            } else if (masterKeySink == null) {
+                rows.add(Rows.toRowID(slaveFrameIndex, slaveRowIndex));
+            } else {
+                rows.add(lookBack(masterRecord, slaveFrameIndex, slaveRowIndex, slotId, circuitBreaker));
+            }
+        }
+    }
+
+    public int maybeAcquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (masterKeySink == null || (workerId == -1 && owner)) {
+            // Non-keyed joins don't use per-worker resources, while the owner thread
+            // is free to use its own private resources anytime.
+            return -1;
+        }
+        // All other threads, e.g. worker or work stealing threads, must always acquire a lock
+        // to use shared resources.
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    /**
+     * Caches the slave page frames. The atom takes ownership of the frame cursor.
+     */
+    public void ofSlave(@NotNull PageFrameCursor slaveFrameCursor, @NotNull RecordMetadata slaveMetadata) {
+        this.slaveFrameCursor = slaveFrameCursor;
+        slaveAddressCache.of(slaveMetadata, slaveFrameCursor.getColumnIndexes());
+        PageFrame frame;
+        int frameCount = 0;
+        while ((frame = slaveFrameCursor.next()) != null) {
+            if (frame.getPartitionHi() == frame.getPartitionLo()) {
+                continue;
+            }
+            if (frame.getFormat() != PartitionFormat.NATIVE) {
+                hasParquetFrames = true;
+                return;
+            }
+            slaveAddressCache.add(frameCount++, frame);
+            final long timestampAddress = frame.getPageAddress(slaveTimestampIndex);
+            slaveTimestampAddresses.add(timestampAddress);
+            slaveFirstTimestamps.add(Unsafe.getUnsafe().getLong(timestampAddress));
+        }
+
+        if (masterKeySink != null) {
+            for (int i = 0, n = perWorkerSlaveRecords.size(); i < n; i++) {
+                perWorkerMasterSinkTargets.getQuick(i).reopen();
+                perWorkerSlaveSinkTargets.getQuick(i).reopen();
+                perWorkerSlaveFrameMemoryPools.getQuick(i).of(slaveAddressCache);
+                perWorkerSlaveRecords.getQuick(i).of(slaveFrameCursor);
+            }
+            ownerMasterSinkTarget.reopen();
+            ownerSlaveSinkTarget.reopen();
+            ownerSlaveFrameMemoryPool.of(slaveAddressCache);
+            ownerSlaveRecord.of(slaveFrameCursor);
+        }
+    }
+
+    public void release(int slotId) {
+        perWorkerLocks.releaseSlot(slotId);
+    }
+
+    private long getSlaveTimestamp(int frameIndex, long rowIndex) {
+        return Unsafe.getUnsafe().getLong(slaveTimestampAddresses.getQuick(frameIndex) + (rowIndex << 3));
+    }
+
+    /**
+     * Returns the id of the last slave row with timestamp less than or equal to the target.
+     * The first slave timestamp must be less than or equal to the target.
+     */
+    private long locate(long target) {
+        // last frame starting at or before the target
+        int lo = 0;
+        int hi = slaveFirstTimestamps.size() - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (slaveFirstTimestamps.getQuick(mid) <= target) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        final int frameIndex = lo;
+
+        // last row in the frame at or before the target
+        long rowLo = 0;
+        long rowHi = slaveAddressCache.getFrameSize(frameIndex) - 1;
+        while (rowLo < rowHi) {
+            final long mid = (rowLo + rowHi + 1) >>> 1;
+            if (getSlaveTimestamp(frameIndex, mid) <= target) {
+                rowLo = mid;
+            } else {
+                rowHi = mid - 1;
+            }
+        }
+        return Rows.toRowID(frameIndex, rowLo);
+    }
+
+    private long lookBack(
+            PageFrameMemoryRecord masterRecord,
+            int slaveFrameIndex,
+            long slaveRowIndex,
+            int slotId,
+            SqlExecutionCircuitBreaker circuitBreaker
+    ) {
+        assert masterKeySink != null && slaveKeySink != null;
+        final SingleRecordSink masterSinkTarget = slotId == -1 ? ownerMasterSinkTarget : perWorkerMasterSinkTargets.getQuick(slotId);
+        final SingleRecordSink slaveSinkTarget = slotId == -1 ? ownerSlaveSinkTarget : perWorkerSlaveSinkTargets.getQuick(slotId);
+        final PageFrameMemoryPool slaveFrameMemoryPool = slotId == -1 ? ownerSlaveFrameMemoryPool : perWorkerSlaveFrameMemoryPools.getQuick(slotId);
+        final PageFrameMemoryRecord slaveRecord = slotId == -1 ? ownerSlaveRecord : perWorkerSlaveRecords.getQuick(slotId);
+
+        masterSinkTarget.clear();
+        masterKeySink.copy(masterRecord, masterSinkTarget);
+
+        int frameIndex = slaveFrameIndex;
+        long rowIndex = slaveRowIndex;
+        slaveFrameMemoryPool.navigateTo(frameIndex, slaveRecord);
+        while (true) {
+            slaveRecord.setRowIndex(rowIndex);
+            slaveSinkTarget.clear();
+            slaveKeySink.copy(slaveRecord, slaveSinkTarget);
+            if (masterSinkTarget.memeq(slaveSinkTarget)) {
+                return Rows.toRowID(frameIndex, rowIndex);
+            }
+            if (--rowIndex < 0) {
+                if (--frameIndex < 0) {
+                    // the whole slave was scanned, no match
+                    return -1;
+                }
+                slaveFrameMemoryPool.navigateTo(frameIndex, slaveRecord);
+                rowIndex = slaveAddressCache.getFrameSize(frameIndex) - 1;
+            }
+            circuitBreaker.statefulThrowExceptionIfTripped();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.PageFrameMemoryPool;
+import io.questdb.cairo.sql.PageFrameMemoryRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+import io.questdb.std.Rows;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Streams the parallel ASOF and LT join results. Master page frames are matched by the
+ * reduce tasks which store a slave row id, or -1, for each master row in the task. The cursor
+ * collects the tasks in the frame order, so the master order is preserved.
+ */
+class AsyncAsOfJoinRecordCursor implements NoRandomAccessRecordCursor {
+    private static final Log LOG = LogFactory.getLog(AsyncAsOfJoinRecordCursor.class);
+    private final int columnSplit;
+    private final PageFrameMemoryRecord masterRecord;
+    private final OuterJoinRecord record;
+    private final PageFrameMemoryPool slaveFrameMemoryPool;
+    private final PageFrameMemoryRecord slaveRecord;
+    private boolean allFramesActive;
+    private long cursor = -1;
+    private int frameIndex;
+    private int frameLimit;
+    private long frameRowCount;
+    private long frameRowIndex;
+    private PageFrameSequence<AsyncAsOfJoinAtom> frameSequence;
+    private boolean isOpen;
+    private DirectLongList rows;
+
+    public AsyncAsOfJoinRecordCursor(@NotNull CairoConfiguration configuration, @NotNull Record nullRecord, int columnSplit) {
+        this.columnSplit = columnSplit;
+        this.masterRecord = new PageFrameMemoryRecord(PageFrameMemoryRecord.RECORD_A_LETTER);
+        this.slaveRecord = new PageFrameMemoryRecord(PageFrameMemoryRecord.RECORD_A_LETTER);
+        this.slaveFrameMemoryPool = new PageFrameMemoryPool(configuration.getSqlParquetFrameCacheCapacity());
+        this.record = new OuterJoinRecord(columnSplit, nullRecord);
+        this.record.of(masterRecord, slaveRecord);
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            collectCursor(true);
+            if (frameSequence != null) {
+                LOG.debug()
+                        .$("closing [shard=").$(frameSequence.getShard())
+                        .$(", frameCount=").$(frameLimit)
+                        .I$();
+
+                if (frameLimit > -1) {
+                    frameSequence.await();
+                }
+                // also releases the slave page frames held by the atom
+                frameSequence.clear();
+            }
+            Misc.free(slaveFrameMemoryPool);
+        }
+    }
+
+    public void freeRecords() {
+        Misc.free(masterRecord);
+        Misc.free(slaveRecord);
+        Misc.free(slaveFrameMemoryPool);
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+        }
+        return frameSequence.getAtom().getSlaveSymbolTableSource().getSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (frameLimit == -1) {
+            frameSequence.prepareForDispatch();
+            frameLimit = frameSequence.getFrameCount() - 1;
+        }
+
+        while (true) {
+            if (frameRowIndex < frameRowCount) {
+                masterRecord.setRowIndex(frameRowIndex);
+                final long slaveRowId = rows.get(frameRowIndex++);
+                if (slaveRowId != -1) {
+                    slaveFrameMemoryPool.navigateTo(Rows.toPartitionIndex(slaveRowId), slaveRecord);
+                    slaveRecord.setRowIndex(Rows.toLocalRowID(slaveRowId));
+                    record.hasSlave(true);
+                } else {
+                    record.hasSlave(false);
+                }
+                return true;
+            }
+
+            // Release the previous queue item.
+            collectCursor(false);
+
+            if (frameIndex == frameLimit) {
+                break;
+            }
+            fetchNextFrame();
+        }
+
+        if (!allFramesActive) {
+            throwTimeoutException();
+        }
+        return false;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+        }
+        return frameSequence.getAtom().getSlaveSymbolTableSource().newSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        collectCursor(false);
+        if (frameLimit > -1) {
+            // the slave page frames are kept, only the master side is dispatched again
+            frameSequence.toTop();
+            frameIndex = -1;
+            allFramesActive = true;
+        }
+    }
+
+    private void collectCursor(boolean forceCollect) {
+        if (cursor > -1) {
+            frameSequence.collect(cursor, forceCollect);
+            // It is necessary to clear 'cursor' value
+            // because we updated frameIndex and loop can exit due to lack of frames.
+            // Non-update of 'cursor' could cause double-free.
+            cursor = -1;
+            // We also need to clear the record as it's initialized with the task's
+            // page frame memory that is now closed.
+            masterRecord.clear();
+        }
+        frameRowIndex = 0;
+        frameRowCount = 0;
+    }
+
+    private void fetchNextFrame() {
+        try {
+            while (true) {
+                cursor = frameSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = frameSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(frameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(frameSequence.getFrameCount())
+                            .$(", frameId=").$(frameSequence.getId())
+                            .$(", active=").$(frameSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+
+                    if (task.hasError()) {
+                        throw CairoException.nonCritical()
+                                .position(task.getErrorMessagePosition())
+                                .put(task.getErrorMsg())
+                                .setCancellation(task.isCancelled())
+                                .setInterruption(task.isCancelled());
+                    }
+
+                    allFramesActive &= frameSequence.isActive();
+                    frameIndex = task.getFrameIndex();
+                    rows = task.getFilteredRows();
+                    frameRowIndex = 0;
+                    // Ignore the rows if the sequence was canceled or failed.
+                    frameRowCount = frameSequence.isActive() ? rows.size() : 0;
+                    if (frameRowCount > 0) {
+                        masterRecord.init(task.getFrameMemory());
+                    }
+                    return;
+                } else if (cursor == -2) {
+                    // No frames to join.
+                    frameIndex = frameLimit;
+                    return;
+                }
+                Os.pause();
+            }
+        } catch (Throwable th) {
+            if (th instanceof CairoException) {
+                CairoException ce = (CairoException) th;
+                if (ce.isInterruption() || ce.isCancellation()) {
+                    LOG.error().$("asof join error [ex=").$(ce.getFlyweightMessage()).I$();
+                    throwTimeoutException();
+                } else {
+                    LOG.error().$("asof join error [ex=").$(th).I$();
+                    throw ce;
+                }
+            }
+            LOG.error().$("asof join error [ex=").$(th).I$();
+            throw CairoException.nonCritical().put(th.getMessage());
+        }
+    }
+
+    private void throwTimeoutException() {
+        if (frameSequence.getCancelReason() == SqlExecutionCircuitBreaker.STATE_CANCELLED) {
+            throw CairoException.queryCancelled();
+        } else {
+            throw CairoException.queryTimedOut();
+        }
+    }
+
+    void of(PageFrameSequence<AsyncAsOfJoinAtom> frameSequence) {
+        isOpen = true;
+        this.frameSequence = frameSequence;
+        final AsyncAsOfJoinAtom atom = frameSequence.getAtom();
+        slaveFrameMemoryPool.of(atom.getSlaveAddressCache());
+        masterRecord.of(frameSequence.getSymbolTableSource());
+        slaveRecord.of(atom.getSlaveSymbolTableSource());
+        slaveRecord.clear();
+        record.hasSlave(false);
+        allFramesActive = true;
+        frameLimit = -1;
+        frameIndex = -1;
+        cursor = -1;
+        frameRowIndex = 0;
+        frameRowCount = 0;
+    }
+}
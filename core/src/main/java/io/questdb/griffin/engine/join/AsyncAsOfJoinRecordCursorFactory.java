@@ -0,0 +1,219 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.PageFrameMemory;
+import io.questdb.cairo.sql.PageFrameMemoryRecord;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReduceTaskFactory;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.model.JoinContext;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.PartitionFrameCursorFactory.ORDER_ASC;
+
+/**
+ * Parallel ASOF and LT join of two page frame sources, optionally keyed.
+ * <p>
+ * Each master page frame is a time slice that is matched against the slave by the shared
+ * workers, see {@link AsyncAsOfJoinAtom}, while the query owner thread only iterates the
+ * results in the frame order. When the slave has Parquet partitions, the cursor of the
+ * single-threaded join factory is returned instead.
+ */
+public class AsyncAsOfJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory {
+    private static final PageFrameReducer MATCH = AsyncAsOfJoinRecordCursorFactory::match;
+
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncAsOfJoinRecordCursor cursor;
+    private final RecordCursorFactory fallbackFactory;
+    private final PageFrameSequence<AsyncAsOfJoinAtom> frameSequence;
+    private final boolean keyed;
+    private final boolean strict;
+    private final int workerCount;
+
+    /**
+     * The fallback factory owns the master and slave factories as well as the metadata,
+     * so they are freed when the fallback factory is closed.
+     *
+     * @param strict true for LT join, i.e. slave timestamps must be strictly less than
+     *               the master timestamp, false for ASOF join
+     */
+    public AsyncAsOfJoinRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordCursorFactory fallbackFactory,
+            @NotNull RecordCursorFactory masterFactory,
+            @Nullable RecordSink masterKeySink,
+            @NotNull RecordCursorFactory slaveFactory,
+            @Nullable RecordSink slaveKeySink,
+            int columnSplit,
+            JoinContext joinContext,
+            boolean strict,
+            @NotNull PageFrameReduceTaskFactory reduceTaskFactory,
+            int workerCount
+    ) {
+        super(fallbackFactory.getMetadata(), joinContext, masterFactory, slaveFactory);
+        this.fallbackFactory = fallbackFactory;
+        try {
+            this.frameSequence = new PageFrameSequence<>(
+                    configuration,
+                    messageBus,
+                    new AsyncAsOfJoinAtom(
+                            configuration,
+                            masterFactory.getMetadata().getTimestampIndex(),
+                            masterKeySink,
+                            slaveFactory.getMetadata().getTimestampIndex(),
+                            slaveKeySink,
+                            strict,
+                            workerCount
+                    ),
+                    MATCH,
+                    reduceTaskFactory,
+                    workerCount,
+                    PageFrameReduceTask.TYPE_ASOF_JOIN
+            );
+            this.cursor = new AsyncAsOfJoinRecordCursor(
+                    configuration,
+                    NullRecordFactory.getInstance(slaveFactory.getMetadata()),
+                    columnSplit
+            );
+            this.keyed = masterKeySink != null;
+            this.strict = strict;
+            this.workerCount = workerCount;
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return masterFactory.followedOrderByAdvice();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final AsyncAsOfJoinAtom atom = frameSequence.getAtom();
+        final PageFrameCursor slaveFrameCursor = slaveFactory.getPageFrameCursor(executionContext, ORDER_ASC);
+        try {
+            atom.ofSlave(slaveFrameCursor, slaveFactory.getMetadata());
+        } catch (Throwable th) {
+            atom.clear();
+            throw th;
+        }
+
+        if (atom.hasParquetFrames()) {
+            // Parquet slave timestamps can't be searched in place, so use the single-threaded join.
+            atom.clear();
+            return fallbackFactory.getCursor(executionContext);
+        }
+
+        try {
+            cursor.of(frameSequence.of(masterFactory, executionContext, collectSubSeq, ORDER_ASC));
+            return cursor;
+        } catch (Throwable th) {
+            atom.clear();
+            throw th;
+        }
+    }
+
+    @Override
+    public int getScanDirection() {
+        return masterFactory.getScanDirection();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(TableToken tableToken) {
+        return masterFactory.supportsUpdateRowId(tableToken);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(strict ? "Async Lt Join" : "Async AsOf Join");
+        sink.meta("workers").val(workerCount);
+        if (keyed) {
+            sink.attr("condition").val(joinContext);
+        }
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
+    private static void match(
+            int workerId,
+            @NotNull PageFrameMemoryRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final DirectLongList rows = task.getFilteredRows();
+        final long frameRowCount = task.getFrameRowCount();
+        final PageFrameSequence<AsyncAsOfJoinAtom> frameSequence = task.getFrameSequence(AsyncAsOfJoinAtom.class);
+        final AsyncAsOfJoinAtom atom = frameSequence.getAtom();
+
+        final PageFrameMemory frameMemory = task.populateFrameMemory();
+        record.init(frameMemory);
+
+        rows.clear();
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == frameSequence;
+        final int slotId = atom.maybeAcquire(workerId, owner, circuitBreaker);
+        try {
+            atom.match(record, frameRowCount, slotId, rows, circuitBreaker);
+        } finally {
+            atom.release(slotId);
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(cursor);
+        if (cursor != null) {
+            cursor.freeRecords();
+        }
+        Misc.free(frameSequence);
+        Misc.free(fallbackFactory);
+    }
+}
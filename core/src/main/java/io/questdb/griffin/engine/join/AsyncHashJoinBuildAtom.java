@@ -0,0 +1,331 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.SingleColumnType;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.map.Unordered8Map;
+import io.questdb.cairo.sql.PageFrameMemoryRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Hash;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Os;
+import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Holds the build (slave) side of the parallel hash join. Slave rows are hash partitioned
+ * into shards by the top bits of the join key hash. Each shard is an {@link Unordered8Map}
+ * from the join key to the tail of a {@link LongChain} of slave row ids.
+ * <p>
+ * A reduce task partitions the rows of its page frame in a per-worker scratch buffer and then
+ * inserts each partition into its shard under the shard's lock, trying the shards in a round-robin
+ * fashion, so that concurrent tasks rarely wait for each other. Once the build is complete, the shards
+ * are only read, so the probe side may look up keys from multiple threads.
+ */
+public class AsyncHashJoinBuildAtom implements StatefulAtom, Closeable {
+    private static final int MAX_SHARD_COUNT = 64;
+    private static final long SCRATCH_INITIAL_CAPACITY = 1024;
+    private final int columnIndex;
+    private final int columnTypeTag;
+    private final DirectLongList ownerScratch;
+    private final PerWorkerLocks perWorkerLocks;
+    // (key, row id) pairs of a page frame grouped by shard, prefixed with shard offsets
+    private final ObjList<DirectLongList> perWorkerScratches;
+    private final ObjList<LongChain> shardChains;
+    private final int shardCount;
+    private final AtomicIntegerArray shardLocks;
+    private final ObjList<Unordered8Map> shardMaps;
+    private final int shardShift;
+
+    public AsyncHashJoinBuildAtom(
+            @NotNull CairoConfiguration configuration,
+            int columnIndex,
+            int columnType,
+            int workerCount
+    ) {
+        this.columnIndex = columnIndex;
+        this.columnTypeTag = ColumnType.tagOf(columnType);
+        this.shardCount = Math.min(Numbers.ceilPow2(Math.max(workerCount, 1)) << 1, MAX_SHARD_COUNT);
+        this.shardShift = Long.SIZE - Numbers.msb(shardCount);
+        this.shardLocks = new AtomicIntegerArray(shardCount);
+        this.shardMaps = new ObjList<>(shardCount);
+        this.shardChains = new ObjList<>(shardCount);
+        this.perWorkerScratches = new ObjList<>(workerCount);
+        this.perWorkerLocks = new PerWorkerLocks(configuration, workerCount);
+        try {
+            final SingleColumnType keyTypes = new SingleColumnType(ColumnType.LONG);
+            final SingleColumnType valueTypes = new SingleColumnType(ColumnType.INT); // chain tail offset
+            for (int i = 0; i < shardCount; i++) {
+                shardMaps.add(new Unordered8Map(
+                        keyTypes,
+                        valueTypes,
+                        configuration.getSqlSmallMapKeyCapacity(),
+                        configuration.getSqlFastMapLoadFactor(),
+                        configuration.getSqlMapMaxResizes()
+                ));
+                shardChains.add(new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages()));
+            }
+            for (int i = 0; i < workerCount; i++) {
+                perWorkerScratches.add(new DirectLongList(SCRATCH_INITIAL_CAPACITY, MemoryTag.NATIVE_DEFAULT));
+            }
+            ownerScratch = new DirectLongList(SCRATCH_INITIAL_CAPACITY, MemoryTag.NATIVE_DEFAULT);
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    /**
+     * Reads the join key of the current record as a long. Only fixed-size keys up to 8 bytes
+     * are supported, see {@link #isSupportedKeyType(int)}.
+     */
+    public static long getKey(Record record, int columnIndex, int columnTypeTag) {
+        switch (columnTypeTag) {
+            case ColumnType.BOOLEAN:
+                return record.getBool(columnIndex) ? 1 : 0;
+            case ColumnType.BYTE:
+                return record.getByte(columnIndex);
+            case ColumnType.SHORT:
+                return record.getShort(columnIndex);
+            case ColumnType.CHAR:
+                return record.getChar(columnIndex);
+            case ColumnType.INT:
+                return record.getInt(columnIndex);
+            case ColumnType.IPv4:
+                return record.getIPv4(columnIndex);
+            case ColumnType.GEOBYTE:
+                return record.getGeoByte(columnIndex);
+            case ColumnType.GEOSHORT:
+                return record.getGeoShort(columnIndex);
+            case ColumnType.GEOINT:
+                return record.getGeoInt(columnIndex);
+            case ColumnType.GEOLONG:
+                return record.getGeoLong(columnIndex);
+            case ColumnType.DATE:
+                return record.getDate(columnIndex);
+            case ColumnType.TIMESTAMP:
+                return record.getTimestamp(columnIndex);
+            default:
+                return record.getLong(columnIndex);
+        }
+    }
+
+    public static boolean isSupportedKeyType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.IPv4:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.LONG:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Inserts rows of the page frame the record is initialized with into the shards.
+     * The record's row id is used as the slave row id.
+     */
+    public void build(
+            PageFrameMemoryRecord record,
+            long frameRowCount,
+            int slotId,
+            int frameIndex,
+            SqlExecutionCircuitBreaker circuitBreaker
+    ) {
+        final DirectLongList scratch = slotId == -1 ? ownerScratch : perWorkerScratches.getQuick(slotId);
+        final long requiredCapacity = shardCount + (frameRowCount << 1);
+        if (scratch.getCapacity() < requiredCapacity) {
+            scratch.setCapacity(requiredCapacity);
+        }
+        final long offsetsAddr = scratch.getAddress();
+        final long pairsAddr = offsetsAddr + ((long) shardCount << 3);
+
+        // count rows per shard, then turn the counts into shard start offsets
+        for (int i = 0; i < shardCount; i++) {
+            Unsafe.getUnsafe().putLong(offsetsAddr + ((long) i << 3), 0);
+        }
+        for (long r = 0; r < frameRowCount; r++) {
+            record.setRowIndex(r);
+            final long p = offsetsAddr + ((long) getShard(getKey(record, columnIndex, columnTypeTag)) << 3);
+            Unsafe.getUnsafe().putLong(p, Unsafe.getUnsafe().getLong(p) + 1);
+        }
+        long offset = 0;
+        long pending = 0;
+        for (int i = 0; i < shardCount; i++) {
+            final long p = offsetsAddr + ((long) i << 3);
+            final long count = Unsafe.getUnsafe().getLong(p);
+            if (count > 0) {
+                pending |= 1L << i;
+            }
+            Unsafe.getUnsafe().putLong(p, offset);
+            offset += count;
+        }
+
+        // scatter (key, row id) pairs; afterwards each offset points to the end of its shard
+        record.setRowIndex(0);
+        final long baseRowId = record.getRowId();
+        for (long r = 0; r < frameRowCount; r++) {
+            record.setRowIndex(r);
+            final long key = getKey(record, columnIndex, columnTypeTag);
+            final long p = offsetsAddr + ((long) getShard(key) << 3);
+            final long pos = Unsafe.getUnsafe().getLong(p);
+            Unsafe.getUnsafe().putLong(pairsAddr + (pos << 4), key);
+            Unsafe.getUnsafe().putLong(pairsAddr + (pos << 4) + Long.BYTES, baseRowId + r);
+            Unsafe.getUnsafe().putLong(p, pos + 1);
+        }
+
+        // insert the partitions, skipping the shards that are locked by other tasks
+        final int shardMask = shardCount - 1;
+        while (pending != 0) {
+            boolean inserted = false;
+            for (int i = 0; i < shardCount; i++) {
+                final int shard = (i + frameIndex) & shardMask;
+                if ((pending & (1L << shard)) != 0 && shardLocks.compareAndSet(shard, 0, 1)) {
+                    try {
+                        final long lo = shard > 0 ? Unsafe.getUnsafe().getLong(offsetsAddr + ((long) (shard - 1) << 3)) : 0;
+                        final long hi = Unsafe.getUnsafe().getLong(offsetsAddr + ((long) shard << 3));
+                        insert(shard, pairsAddr, lo, hi);
+                    } finally {
+                        shardLocks.set(shard, 0);
+                    }
+                    pending &= ~(1L << shard);
+                    inserted = true;
+                }
+            }
+            if (!inserted) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                Os.pause();
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0, n = shardMaps.size(); i < n; i++) {
+            Misc.free(shardMaps.getQuick(i));
+            Misc.free(shardChains.getQuick(i));
+        }
+        for (int i = 0, n = perWorkerScratches.size(); i < n; i++) {
+            perWorkerScratches.getQuick(i).resetCapacity();
+        }
+        if (ownerScratch != null) {
+            ownerScratch.resetCapacity();
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjListAndClear(shardMaps);
+        Misc.freeObjListAndClear(shardChains);
+        Misc.freeObjListAndClear(perWorkerScratches);
+        Misc.free(ownerScratch);
+    }
+
+    /**
+     * Returns a reference to the chain of slave row ids for the given key or -1 if there are
+     * no slave rows with such key. Thread-safe once the build is complete.
+     */
+    public long findChain(long key) {
+        final int shard = getShard(key);
+        final long valueAddress = shardMaps.getQuick(shard).findValueAddress(key);
+        if (valueAddress == 0) {
+            return -1;
+        }
+        return ((long) shard << 32) | Integer.toUnsignedLong(Unsafe.getUnsafe().getInt(valueAddress));
+    }
+
+    /**
+     * Returns cursor over slave row ids for the chain reference obtained from {@link #findChain(long)}.
+     * Must be called by the query owner thread only.
+     */
+    public LongChain.Cursor getChainCursor(long chainRef) {
+        return shardChains.getQuick((int) (chainRef >>> 32)).getCursor((int) chainRef);
+    }
+
+    /**
+     * Allocates shard memory. Must be called by the query owner thread before
+     * the slave frames are dispatched.
+     */
+    public void initShards() {
+        for (int i = 0; i < shardCount; i++) {
+            shardMaps.getQuick(i).reopen();
+            shardChains.getQuick(i).reopen();
+        }
+    }
+
+    public int maybeAcquireScratch(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            // Owner thread is free to use its own private scratch buffer anytime.
+            return -1;
+        }
+        // All other threads, e.g. worker or work stealing threads, must always acquire a lock
+        // to use shared resources.
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    public void releaseScratch(int slotId) {
+        perWorkerLocks.releaseSlot(slotId);
+    }
+
+    private int getShard(long key) {
+        return (int) (Hash.hashLong64(key) >>> shardShift);
+    }
+
+    private void insert(int shard, long pairsAddr, long lo, long hi) {
+        final Unordered8Map map = shardMaps.getQuick(shard);
+        final LongChain chain = shardChains.getQuick(shard);
+        for (long pos = lo; pos < hi; pos++) {
+            final MapKey key = map.withKey();
+            key.putLong(Unsafe.getUnsafe().getLong(pairsAddr + (pos << 4)));
+            final MapValue value = key.createValue();
+            final long rowId = Unsafe.getUnsafe().getLong(pairsAddr + (pos << 4) + Long.BYTES);
+            value.putInt(0, chain.put(rowId, value.isNew() ? -1 : value.getInt(0)));
+        }
+    }
+}
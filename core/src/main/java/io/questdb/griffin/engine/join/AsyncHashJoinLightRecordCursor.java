@@ -0,0 +1,352 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.PageFrameMemoryPool;
+import io.questdb.cairo.sql.PageFrameMemoryRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+import io.questdb.std.Rows;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Streams the parallel hash join results. On the first {@link #hasNext()} call the cursor
+ * waits for the slave page frames to be inserted into the shards. Master page frames are then
+ * probed by the reduce tasks which store (row index, chain reference) pairs of the matching rows
+ * in the task. The cursor collects the tasks in the frame order and iterates the chains of slave
+ * row ids, so the master order is preserved.
+ */
+class AsyncHashJoinLightRecordCursor implements NoRandomAccessRecordCursor {
+    private static final Log LOG = LogFactory.getLog(AsyncHashJoinLightRecordCursor.class);
+    private final PageFrameMemoryPool buildFrameMemoryPool;
+    private final int columnSplit;
+    private final PageFrameMemoryRecord masterRecord;
+    private final JoinRecord record;
+    private final PageFrameMemoryRecord slaveRecord;
+    private boolean allFramesActive;
+    private int buildFrameLimit;
+    private PageFrameSequence<AsyncHashJoinBuildAtom> buildSequence;
+    private long cursor = -1;
+    private int frameIndex;
+    private boolean isBuilt;
+    private boolean isOpen;
+    private long matchCount;
+    private long matchIndex;
+    private int probeFrameLimit;
+    private PageFrameSequence<AsyncHashJoinProbeAtom> probeSequence;
+    private DirectLongList rows;
+    private LongChain.Cursor slaveChainCursor;
+
+    public AsyncHashJoinLightRecordCursor(@NotNull CairoConfiguration configuration, int columnSplit) {
+        this.columnSplit = columnSplit;
+        this.masterRecord = new PageFrameMemoryRecord(PageFrameMemoryRecord.RECORD_A_LETTER);
+        this.slaveRecord = new PageFrameMemoryRecord(PageFrameMemoryRecord.RECORD_A_LETTER);
+        this.buildFrameMemoryPool = new PageFrameMemoryPool(configuration.getSqlParquetFrameCacheCapacity());
+        this.record = new JoinRecord(columnSplit);
+        this.record.of(masterRecord, slaveRecord);
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            collectCursor(true);
+            if (probeSequence != null) {
+                LOG.debug()
+                        .$("closing [shard=").$(probeSequence.getShard())
+                        .$(", frameCount=").$(probeFrameLimit)
+                        .I$();
+
+                if (probeFrameLimit > -1) {
+                    probeSequence.await();
+                }
+                probeSequence.clear();
+            }
+            if (buildSequence != null) {
+                // the build sequence is always prepared for dispatch by the factory
+                buildSequence.await();
+                buildSequence.clear();
+            }
+            Misc.free(buildFrameMemoryPool);
+        }
+    }
+
+    public void freeRecords() {
+        Misc.free(masterRecord);
+        Misc.free(slaveRecord);
+        Misc.free(buildFrameMemoryPool);
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return probeSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+        }
+        return buildSequence.getSymbolTableSource().getSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isBuilt) {
+            build();
+            isBuilt = true;
+        }
+
+        if (slaveChainCursor != null && slaveChainCursor.hasNext()) {
+            slaveRecordAt(slaveChainCursor.next());
+            return true;
+        }
+
+        while (true) {
+            if (matchIndex < matchCount) {
+                masterRecord.setRowIndex(rows.get(matchIndex << 1));
+                slaveChainCursor = buildSequence.getAtom().getChainCursor(rows.get((matchIndex << 1) + 1));
+                matchIndex++;
+                // we know that the chain has values, advance to get the first one
+                slaveChainCursor.hasNext();
+                slaveRecordAt(slaveChainCursor.next());
+                return true;
+            }
+
+            // Release the previous queue item.
+            collectCursor(false);
+            slaveChainCursor = null;
+
+            if (frameIndex == probeFrameLimit) {
+                break;
+            }
+            fetchNextFrame();
+        }
+
+        if (!allFramesActive) {
+            throwTimeoutException(probeSequence);
+        }
+        return false;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return probeSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+        }
+        return buildSequence.getSymbolTableSource().newSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        collectCursor(false);
+        slaveChainCursor = null;
+        if (isBuilt) {
+            // the shards are kept, only the master side is dispatched again
+            probeSequence.toTop();
+            frameIndex = -1;
+            matchIndex = 0;
+            matchCount = 0;
+            allFramesActive = true;
+        }
+    }
+
+    private static void throwTimeoutException(PageFrameSequence<?> frameSequence) {
+        if (frameSequence.getCancelReason() == SqlExecutionCircuitBreaker.STATE_CANCELLED) {
+            throw CairoException.queryCancelled();
+        } else {
+            throw CairoException.queryTimedOut();
+        }
+    }
+
+    private void build() {
+        buildSequence.getAtom().initShards();
+        buildFrameLimit = buildSequence.getFrameCount() - 1;
+
+        int buildFrameIndex = -1;
+        boolean allBuildFramesActive = true;
+        try {
+            do {
+                final long cursor = buildSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = buildSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(buildSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(buildSequence.getFrameCount())
+                            .$(", active=").$(buildSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+                    if (task.hasError()) {
+                        throw CairoException.nonCritical()
+                                .position(task.getErrorMessagePosition())
+                                .put(task.getErrorMsg());
+                    }
+
+                    allBuildFramesActive &= buildSequence.isActive();
+                    buildFrameIndex = task.getFrameIndex();
+
+                    buildSequence.collect(cursor, false);
+                } else if (cursor == -2) {
+                    break; // No frames to build.
+                } else {
+                    Os.pause();
+                }
+            } while (buildFrameIndex < buildFrameLimit);
+        } catch (Throwable e) {
+            LOG.error().$("hash join build error [ex=").$(e).I$();
+            if (e instanceof CairoException) {
+                CairoException ce = (CairoException) e;
+                if (ce.isInterruption()) {
+                    throwTimeoutException(buildSequence);
+                } else {
+                    throw ce;
+                }
+            }
+            throw CairoException.nonCritical().put(e.getMessage());
+        }
+
+        if (!allBuildFramesActive) {
+            throwTimeoutException(buildSequence);
+        }
+
+        probeSequence.prepareForDispatch();
+        probeFrameLimit = probeSequence.getFrameCount() - 1;
+    }
+
+    private void collectCursor(boolean forceCollect) {
+        if (cursor > -1) {
+            probeSequence.collect(cursor, forceCollect);
+            // It is necessary to clear 'cursor' value
+            // because we updated frameIndex and loop can exit due to lack of frames.
+            // Non-update of 'cursor' could cause double-free.
+            cursor = -1;
+            // We also need to clear the record as it's initialized with the task's
+            // page frame memory that is now closed.
+            masterRecord.clear();
+        }
+        matchIndex = 0;
+        matchCount = 0;
+    }
+
+    private void fetchNextFrame() {
+        try {
+            while (true) {
+                cursor = probeSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = probeSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(probeSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(probeSequence.getFrameCount())
+                            .$(", frameId=").$(probeSequence.getId())
+                            .$(", active=").$(probeSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+
+                    if (task.hasError()) {
+                        throw CairoException.nonCritical()
+                                .position(task.getErrorMessagePosition())
+                                .put(task.getErrorMsg())
+                                .setCancellation(task.isCancelled())
+                                .setInterruption(task.isCancelled());
+                    }
+
+                    allFramesActive &= probeSequence.isActive();
+                    frameIndex = task.getFrameIndex();
+                    rows = task.getFilteredRows();
+                    matchIndex = 0;
+                    // Ignore the matches if the sequence was canceled or failed.
+                    matchCount = probeSequence.isActive() ? rows.size() >>> 1 : 0;
+                    if (matchCount > 0) {
+                        masterRecord.init(task.getFrameMemory());
+                    }
+                    return;
+                } else if (cursor == -2) {
+                    // No frames to probe.
+                    frameIndex = probeFrameLimit;
+                    return;
+                }
+                Os.pause();
+            }
+        } catch (Throwable th) {
+            if (th instanceof CairoException) {
+                CairoException ce = (CairoException) th;
+                if (ce.isInterruption() || ce.isCancellation()) {
+                    LOG.error().$("hash join probe error [ex=").$(ce.getFlyweightMessage()).I$();
+                    throwTimeoutException(probeSequence);
+                } else {
+                    LOG.error().$("hash join probe error [ex=").$(th).I$();
+                    throw ce;
+                }
+            }
+            LOG.error().$("hash join probe error [ex=").$(th).I$();
+            throw CairoException.nonCritical().put(th.getMessage());
+        }
+    }
+
+    private void slaveRecordAt(long rowId) {
+        buildFrameMemoryPool.navigateTo(Rows.toPartitionIndex(rowId), slaveRecord);
+        slaveRecord.setRowIndex(Rows.toLocalRowID(rowId));
+    }
+
+    void of(
+            PageFrameSequence<AsyncHashJoinBuildAtom> buildSequence,
+            PageFrameSequence<AsyncHashJoinProbeAtom> probeSequence
+    ) {
+        isOpen = true;
+        this.buildSequence = buildSequence;
+        this.probeSequence = probeSequence;
+        buildFrameMemoryPool.of(buildSequence.getPageFrameAddressCache());
+        masterRecord.of(probeSequence.getSymbolTableSource());
+        slaveRecord.of(buildSequence.getSymbolTableSource());
+        slaveRecord.clear();
+        isBuilt = false;
+        allFramesActive = true;
+        buildFrameLimit = -1;
+        probeFrameLimit = -1;
+        frameIndex = -1;
+        cursor = -1;
+        matchIndex = 0;
+        matchCount = 0;
+        slaveChainCursor = null;
+    }
+}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.PageFrameMemory;
+import io.questdb.cairo.sql.PageFrameMemoryRecord;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReduceTaskFactory;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.model.JoinContext;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.PartitionFrameCursorFactory.ORDER_ASC;
+
+/**
+ * Parallel inner hash join on a single fixed-size key column of two page frame sources.
+ * <p>
+ * The slave page frames are hash partitioned into shards by the shared workers, see
+ * {@link AsyncHashJoinBuildAtom}, then the master page frames are probed by the shared
+ * workers, while the query owner thread only iterates the matches. When the slave has fewer
+ * rows than the configured build threshold, the cursor of the single-threaded
+ * {@link HashJoinLightRecordCursorFactory} is returned instead.
+ */
+public class AsyncHashJoinLightRecordCursorFactory extends AbstractJoinRecordCursorFactory {
+    private static final PageFrameReducer BUILD = AsyncHashJoinLightRecordCursorFactory::build;
+    private static final PageFrameReducer PROBE = AsyncHashJoinLightRecordCursorFactory::probe;
+
+    private final SCSequence buildCollectSubSeq = new SCSequence();
+    private final PageFrameSequence<AsyncHashJoinBuildAtom> buildFrameSequence;
+    private final long buildThreshold;
+    private final AsyncHashJoinLightRecordCursor cursor;
+    private final HashJoinLightRecordCursorFactory fallbackFactory;
+    private final SCSequence probeCollectSubSeq = new SCSequence();
+    private final PageFrameSequence<AsyncHashJoinProbeAtom> probeFrameSequence;
+    private final int workerCount;
+
+    /**
+     * The fallback factory owns the master and slave factories as well as the metadata,
+     * so they are freed when the fallback factory is closed.
+     */
+    public AsyncHashJoinLightRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull HashJoinLightRecordCursorFactory fallbackFactory,
+            @NotNull RecordCursorFactory masterFactory,
+            @NotNull RecordCursorFactory slaveFactory,
+            int masterKeyColumnIndex,
+            int slaveKeyColumnIndex,
+            int keyColumnType,
+            int columnSplit,
+            JoinContext joinContext,
+            @NotNull PageFrameReduceTaskFactory reduceTaskFactory,
+            int workerCount
+    ) {
+        super(fallbackFactory.getMetadata(), joinContext, masterFactory, slaveFactory);
+        this.fallbackFactory = fallbackFactory;
+        try {
+            final AsyncHashJoinBuildAtom buildAtom = new AsyncHashJoinBuildAtom(
+                    configuration,
+                    slaveKeyColumnIndex,
+                    keyColumnType,
+                    workerCount
+            );
+            this.buildFrameSequence = new PageFrameSequence<>(
+                    configuration,
+                    messageBus,
+                    buildAtom,
+                    BUILD,
+                    reduceTaskFactory,
+                    workerCount,
+                    PageFrameReduceTask.TYPE_HASH_JOIN_BUILD
+            );
+            this.probeFrameSequence = new PageFrameSequence<>(
+                    configuration,
+                    messageBus,
+                    new AsyncHashJoinProbeAtom(buildAtom, masterKeyColumnIndex, keyColumnType),
+                    PROBE,
+                    reduceTaskFactory,
+                    workerCount,
+                    PageFrameReduceTask.TYPE_HASH_JOIN_PROBE
+            );
+            this.cursor = new AsyncHashJoinLightRecordCursor(configuration, columnSplit);
+            this.buildThreshold = configuration.getSqlParallelHashJoinBuildThreshold();
+            this.workerCount = workerCount;
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return masterFactory.followedOrderByAdvice();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final PageFrameSequence<AsyncHashJoinBuildAtom> buildSequence = buildFrameSequence.of(
+                slaveFactory,
+                executionContext,
+                buildCollectSubSeq,
+                ORDER_ASC
+        );
+        final boolean small;
+        try {
+            buildSequence.prepareForDispatch();
+            small = getRowCount(buildSequence) < buildThreshold;
+        } catch (Throwable th) {
+            buildSequence.clear();
+            throw th;
+        }
+
+        if (small) {
+            // Partitioning a small slave doesn't pay off, so use the single-threaded join.
+            buildSequence.clear();
+            return fallbackFactory.getCursor(executionContext);
+        }
+
+        try {
+            cursor.of(buildSequence, probeFrameSequence.of(masterFactory, executionContext, probeCollectSubSeq, ORDER_ASC));
+            return cursor;
+        } catch (Throwable th) {
+            buildSequence.clear();
+            throw th;
+        }
+    }
+
+    @Override
+    public int getScanDirection() {
+        return masterFactory.getScanDirection();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(TableToken tableToken) {
+        return masterFactory.supportsUpdateRowId(tableToken);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Async Hash Join Light");
+        sink.meta("workers").val(workerCount);
+        sink.attr("condition").val(joinContext);
+        sink.child(masterFactory);
+        sink.child("Hash", slaveFactory);
+    }
+
+    private static void build(
+            int workerId,
+            @NotNull PageFrameMemoryRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final long frameRowCount = task.getFrameRowCount();
+        assert frameRowCount > 0;
+        final PageFrameSequence<AsyncHashJoinBuildAtom> frameSequence = task.getFrameSequence(AsyncHashJoinBuildAtom.class);
+        final AsyncHashJoinBuildAtom atom = frameSequence.getAtom();
+
+        final PageFrameMemory frameMemory = task.populateFrameMemory();
+        record.init(frameMemory);
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == frameSequence;
+        final int slotId = atom.maybeAcquireScratch(workerId, owner, circuitBreaker);
+        try {
+            atom.build(record, frameRowCount, slotId, task.getFrameIndex(), circuitBreaker);
+        } finally {
+            atom.releaseScratch(slotId);
+            task.releaseFrameMemory();
+        }
+    }
+
+    private static long getRowCount(PageFrameSequence<?> frameSequence) {
+        long rowCount = 0;
+        for (int i = 0, n = frameSequence.getFrameCount(); i < n; i++) {
+            rowCount += frameSequence.getFrameRowCount(i);
+        }
+        return rowCount;
+    }
+
+    private static void probe(
+            int workerId,
+            @NotNull PageFrameMemoryRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final DirectLongList rows = task.getFilteredRows();
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncHashJoinProbeAtom atom = task.getFrameSequence(AsyncHashJoinProbeAtom.class).getAtom();
+
+        final PageFrameMemory frameMemory = task.populateFrameMemory();
+        record.init(frameMemory);
+
+        rows.clear();
+        for (long r = 0; r < frameRowCount; r++) {
+            record.setRowIndex(r);
+            final long chainRef = atom.findChain(record);
+            if (chainRef != -1) {
+                rows.add(r);
+                rows.add(chainRef);
+            }
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(cursor);
+        if (cursor != null) {
+            cursor.freeRecords();
+        }
+        Misc.free(probeFrameSequence);
+        Misc.free(buildFrameSequence);
+        Misc.free(fallbackFactory);
+    }
+}
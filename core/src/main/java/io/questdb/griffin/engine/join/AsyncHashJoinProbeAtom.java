@@ -0,0 +1,54 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.StatefulAtom;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Holds the probe (master) side of the parallel hash join. The build side is owned
+ * by the build frame sequence, so this atom only references it.
+ */
+public class AsyncHashJoinProbeAtom implements StatefulAtom {
+    private final AsyncHashJoinBuildAtom buildAtom;
+    private final int columnIndex;
+    private final int columnTypeTag;
+
+    public AsyncHashJoinProbeAtom(@NotNull AsyncHashJoinBuildAtom buildAtom, int columnIndex, int columnType) {
+        this.buildAtom = buildAtom;
+        this.columnIndex = columnIndex;
+        this.columnTypeTag = ColumnType.tagOf(columnType);
+    }
+
+    /**
+     * Returns a reference to the chain of slave row ids matching the current
+     * master record or -1 if there are no matching rows.
+     */
+    public long findChain(Record record) {
+        return buildAtom.findChain(AsyncHashJoinBuildAtom.getKey(record, columnIndex, columnTypeTag));
+    }
+}
@@ -70,6 +70,7 @@ public class AlterOperation extends AbstractOperation implements Mutable {
     public final static short CONVERT_PARTITION_TO_NATIVE = CONVERT_PARTITION_TO_PARQUET + 1; // 19
     public final static short FORCE_DROP_PARTITION = CONVERT_PARTITION_TO_NATIVE + 1; // 20
     public final static short SET_TTL_HOURS_OR_MONTHS = FORCE_DROP_PARTITION + 1; // 21
+    public final static short SET_WAL_PRIORITY = SET_TTL_HOURS_OR_MONTHS + 1; // 22
     private static final long BIT_INDEXED = 0x1L;
     private static final long BIT_DEDUP_KEY = BIT_INDEXED << 1;
     private final static Log LOG = LogFactory.getLog(AlterOperation.class);
@@ -194,6 +195,9 @@ public class AlterOperation extends AbstractOperation implements Mutable {
                 case SET_TTL_HOURS_OR_MONTHS:
                     applyTtlHoursOrMonths(svc);
                     break;
+                case SET_WAL_PRIORITY:
+                    applyWalPriority(svc);
+                    break;
                 case RENAME_TABLE:
                     applyRenameTable(svc);
                     break;
@@ -627,6 +631,16 @@ public class AlterOperation extends AbstractOperation implements Mutable {
         }
     }
 
+    private void applyWalPriority(MetadataService svc) {
+        int walPriority = (int) extraInfo.get(0);
+        try {
+            svc.setMetaWalPriority(walPriority);
+        } catch (CairoException e) {
+            e.position(tableNamePosition);
+            throw e;
+        }
+    }
+
     private void changeColumnType(MetadataService svc) {
         if (activeExtraStrInfo.size() != 1) {
             throw CairoException.nonCritical().put("invalid change column type alter statement");
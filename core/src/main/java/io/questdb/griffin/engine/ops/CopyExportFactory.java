@@ -0,0 +1,136 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.ops;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.SingleValueRecordCursor;
+import io.questdb.griffin.engine.table.parquet.ParquetExporter;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.str.Path;
+
+/**
+ * Executes COPY (query) TO 'file' on record cursor initialization: the query result is
+ * written to a parquet file under the COPY root directory, row group by row group.
+ */
+public class CopyExportFactory extends AbstractRecordCursorFactory {
+    private final static GenericRecordMetadata METADATA = new GenericRecordMetadata();
+    private final RecordCursorFactory baseFactory;
+    private final CharSequence copyRoot;
+    private final ParquetExporter exporter;
+    private final FilesFacade ff;
+    private final String fileName;
+    private final Path path = new Path();
+    private final CopyExportRecord record = new CopyExportRecord();
+    private final SingleValueRecordCursor cursor = new SingleValueRecordCursor(record);
+    private long rowCount;
+
+    public CopyExportFactory(CairoConfiguration configuration, RecordCursorFactory baseFactory, String fileName) {
+        super(METADATA);
+        this.baseFactory = baseFactory;
+        this.fileName = fileName;
+        this.copyRoot = configuration.getSqlCopyInputRoot();
+        this.ff = configuration.getFilesFacade();
+        this.exporter = new ParquetExporter(configuration);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        // the rows are sorted by the designated timestamp only when the base factory scans forward
+        final int timestampIndex = baseFactory.getScanDirection() == SCAN_DIRECTION_FORWARD
+                ? baseFactory.getMetadata().getTimestampIndex()
+                : -1;
+        path.of(copyRoot).concat(fileName);
+        try (RecordCursor baseCursor = baseFactory.getCursor(executionContext)) {
+            exporter.of(baseFactory.getMetadata(), timestampIndex, path.$());
+            rowCount = exporter.export(baseCursor, executionContext.getCircuitBreaker());
+        } catch (Throwable th) {
+            exporter.clear();
+            ff.removeQuiet(path.$());
+            throw th;
+        }
+        exporter.clear();
+        cursor.toTop();
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Copy Export");
+        sink.meta("file").val(fileName);
+        sink.child(baseFactory);
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(baseFactory);
+        Misc.free(exporter);
+        Misc.free(path);
+        super._close();
+    }
+
+    private class CopyExportRecord implements Record {
+        @Override
+        public long getLong(int col) {
+            return rowCount;
+        }
+
+        @Override
+        public CharSequence getStrA(int col) {
+            return fileName;
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return fileName;
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return fileName.length();
+        }
+    }
+
+    static {
+        METADATA.add(new TableColumnMetadata("file", ColumnType.STRING));
+        METADATA.add(new TableColumnMetadata("rows", ColumnType.LONG));
+    }
+}
@@ -67,11 +67,19 @@ import org.jetbrains.annotations.Nullable;
  * and key SAMPLE BY columns and timestamp are marked as dedup keys. Sampling interval
  * and unit are also parsed at this stage as we want to support GROUP BY timestamp_floor(ts)
  * queries.
+ * <p>
+ * Keyed GROUP BY queries without a sampling interval are supported as long as the TIMESTAMP
+ * clause is present. If all of their aggregates can be merged, the merge plan is stored
+ * in the view definition, so that the refresh job can merge new rows into the view.
  */
 public class CreateMatViewOperationImpl implements CreateMatViewOperation {
+    // aggregates that can be merged by applying the same function to the partial results
+    private static final String[] MERGEABLE_FUNCTIONS = {"first", "first_not_null", "last", "last_not_null", "max", "min", "sum"};
     private final CharSequenceHashSet baseKeyColumnNames = new CharSequenceHashSet();
     private final LowerCaseCharSequenceObjHashMap<CreateTableColumnModel> createColumnModelMap = new LowerCaseCharSequenceObjHashMap<>();
     private final MatViewDefinition matViewDefinition = new MatViewDefinition();
+    private final ObjList<String> mergeColumnFunctions = new ObjList<>();
+    private final ObjList<String> mergeColumnNames = new ObjList<>();
     private final int refreshType;
     private final String sqlText;
     private final String timeZone;
@@ -233,6 +241,9 @@ public class CreateMatViewOperationImpl implements CreateMatViewOperation {
                 timeZone,
                 timeZoneOffset
         );
+        for (int i = 0, n = mergeColumnNames.size(); i < n; i++) {
+            matViewDefinition.addMergeColumn(mergeColumnNames.getQuick(i), mergeColumnFunctions.getQuick(i));
+        }
     }
 
     @Override
@@ -369,18 +380,44 @@ public class CreateMatViewOperationImpl implements CreateMatViewOperation {
                 }
             }
         }
+        mergeColumnNames.clear();
+        mergeColumnFunctions.clear();
         if (intervalExpr == null) {
-            throw SqlException.$(intervalPos, "materialized view query requires a sampling interval");
+            // Keyed GROUP BY view, e.g. `select sym, max(ts) ts, sum(amount) from trades`.
+            // Such view has no time buckets, so the designated timestamp has to be set explicitly.
+            if (timestamp == null || !hasAggregates(columns, optimiser)) {
+                throw SqlException.$(intervalPos, "materialized view query requires a sampling interval");
+            }
+            samplingInterval = 0;
+            samplingIntervalUnit = 0;
+            if (isIncrementallyMergeable(queryModel, optimiser, baseTableName)) {
+                for (int i = 0, n = columns.size(); i < n; i++) {
+                    final QueryColumn column = columns.getQuick(i);
+                    final ExpressionNode ast = column.getAst();
+                    String mergeFunction = null;
+                    if (optimiser.hasAggregates(ast)) {
+                        mergeFunction = getMergeFunction(ast);
+                        if (mergeFunction == null) {
+                            // Not all aggregates can be merged, the view will be refreshed in full.
+                            mergeColumnNames.clear();
+                            mergeColumnFunctions.clear();
+                            break;
+                        }
+                    }
+                    mergeColumnNames.add(Chars.toString(column.getName()));
+                    mergeColumnFunctions.add(mergeFunction);
+                }
+            }
+        } else {
+            // Parse sampling interval expression.
+            intervalExpr = GenericLexer.unquote(intervalExpr);
+            final int samplingIntervalEnd = TimestampSamplerFactory.findIntervalEndIndex(intervalExpr, intervalPos);
+            assert samplingIntervalEnd < intervalExpr.length();
+            samplingInterval = TimestampSamplerFactory.parseInterval(intervalExpr, samplingIntervalEnd, intervalPos);
+            assert samplingInterval > 0;
+            samplingIntervalUnit = intervalExpr.charAt(samplingIntervalEnd);
         }
 
-        // Parse sampling interval expression.
-        intervalExpr = GenericLexer.unquote(intervalExpr);
-        final int samplingIntervalEnd = TimestampSamplerFactory.findIntervalEndIndex(intervalExpr, intervalPos);
-        assert samplingIntervalEnd < intervalExpr.length();
-        samplingInterval = TimestampSamplerFactory.parseInterval(intervalExpr, samplingIntervalEnd, intervalPos);
-        assert samplingInterval > 0;
-        samplingIntervalUnit = intervalExpr.charAt(samplingIntervalEnd);
-
         // Mark key columns as dedup keys.
         baseKeyColumnNames.clear();
         for (int i = 0, n = columns.size(); i < n; i++) {
@@ -488,4 +525,82 @@ public class CreateMatViewOperationImpl implements CreateMatViewOperation {
             }
         }
     }
+
+    /**
+     * Returns the aggregate function that merges values of the given aggregate column
+     * computed over two disjoint sets of base table rows, or null if there is no such function.
+     */
+    private static @Nullable String getMergeFunction(ExpressionNode ast) {
+        if (ast.type != ExpressionNode.FUNCTION || ast.paramCount > 1) {
+            return null;
+        }
+        if (Chars.equalsIgnoreCase(ast.token, "count")) {
+            return "sum";
+        }
+        for (int i = 0, n = MERGEABLE_FUNCTIONS.length; i < n; i++) {
+            if (Chars.equalsIgnoreCase(ast.token, MERGEABLE_FUNCTIONS[i])) {
+                return MERGEABLE_FUNCTIONS[i];
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasAggregates(ObjList<QueryColumn> columns, SqlOptimiser optimiser) {
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            if (optimiser.hasAggregates(columns.getQuick(i).getAst())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the view query aggregates each base table row independently, so that
+     * aggregates over newly inserted rows can be merged into the existing view rows.
+     * That's the case when the base table is the driving table of the query, it doesn't
+     * participate in other joins, and there are no nested aggregates, limits or unions.
+     * Joins with other (dimension) tables are fine.
+     */
+    private boolean isIncrementallyMergeable(QueryModel queryModel, SqlOptimiser optimiser, CharSequence baseTableName) {
+        final ObjList<QueryColumn> topColumns = queryModel.getBottomUpColumns();
+        for (int i = 0, n = topColumns.size(); i < n; i++) {
+            if (topColumns.getQuick(i).isWindowColumn()) {
+                return false;
+            }
+        }
+
+        if (tableNames == null) {
+            tableNames = new CharSequenceHashSet();
+        }
+        QueryModel m = queryModel;
+        while (m != null) {
+            if (m.getLimitLo() != null || m.getUnionModel() != null) {
+                return false;
+            }
+            if (m != queryModel) {
+                if (m.getSampleBy() != null) {
+                    return false;
+                }
+                final ObjList<QueryColumn> nestedColumns = m.getBottomUpColumns();
+                for (int i = 0, n = nestedColumns.size(); i < n; i++) {
+                    if (optimiser.hasAggregates(nestedColumns.getQuick(i).getAst())) {
+                        return false;
+                    }
+                }
+            }
+            final ObjList<QueryModel> joinModels = m.getJoinModels();
+            for (int i = 1, n = joinModels.size(); i < n; i++) {
+                tableNames.clear();
+                SqlParser.collectTables(joinModels.getQuick(i), tableNames);
+                if (tableNames.contains(baseTableName)) {
+                    return false;
+                }
+            }
+            if (m.getTableName() != null) {
+                return Chars.equalsIgnoreCase(m.getTableName(), baseTableName);
+            }
+            m = m.getNestedModel();
+        }
+        return false;
+    }
 }
@@ -118,7 +118,7 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
         }
     }
 
-    static int getScanDirection(ListColumnFilter sortColumnFilter) {
+    public static int getScanDirection(ListColumnFilter sortColumnFilter) {
         assert sortColumnFilter.size() > 0;
         return SortedRecordCursorFactory.toOrder(sortColumnFilter.get(0));
     }
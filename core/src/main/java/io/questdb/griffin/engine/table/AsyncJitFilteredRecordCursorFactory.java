@@ -29,6 +29,7 @@ import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.TableToken;
+import io.questdb.cairo.ZoneMapFilter;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.PageFrameMemory;
 import io.questdb.cairo.sql.PageFrameMemoryRecord;
@@ -86,6 +87,7 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
             @NotNull Function filter,
             @NotNull PageFrameReduceTaskFactory reduceTaskFactory,
             @Nullable ObjList<Function> perWorkerFilters,
+            @Nullable ZoneMapFilter zoneMapFilter,
             @Nullable Function limitLoFunction,
             int limitLoPos,
             boolean preTouchColumns,
@@ -128,7 +130,8 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
                 REDUCER,
                 reduceTaskFactory,
                 workerCount,
-                PageFrameReduceTask.TYPE_FILTER
+                PageFrameReduceTask.TYPE_FILTER,
+                zoneMapFilter
         );
         this.limitLoFunction = limitLoFunction;
         this.limitLoPos = limitLoPos;
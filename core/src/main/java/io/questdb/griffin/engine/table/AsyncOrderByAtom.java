@@ -0,0 +1,238 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageFrameMemoryRecord;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.StatefulAtom;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.Plannable;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.PerWorkerLocks;
+import io.questdb.jit.CompiledFilter;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+import static io.questdb.griffin.engine.table.AsyncJitFilteredRecordCursorFactory.prepareBindVarMemory;
+
+/**
+ * Holds per-frame sorted runs of (key, row id) pairs built by the parallel ORDER BY.
+ * Each run is written by a single reduce task, so runs need no synchronization; the query
+ * owner thread reads them only after all frames are collected.
+ */
+public class AsyncOrderByAtom implements StatefulAtom, Closeable, Plannable {
+    private final ObjList<Function> bindVarFunctions;
+    private final MemoryCARW bindVarMemory;
+    private final int columnIndex;
+    private final int columnTypeTag;
+    private final CompiledFilter compiledFilter;
+    private final boolean descending;
+    private final ObjList<DirectLongList> frameRuns = new ObjList<>();
+    private final Function ownerFilter;
+    private final ObjList<Function> perWorkerFilters;
+    private final PerWorkerLocks perWorkerLocks;
+    private final long radixSortThreshold;
+
+    public AsyncOrderByAtom(
+            @NotNull CairoConfiguration configuration,
+            int columnIndex,
+            int columnType,
+            boolean descending,
+            @Nullable CompiledFilter compiledFilter,
+            @Nullable MemoryCARW bindVarMemory,
+            @Nullable ObjList<Function> bindVarFunctions,
+            @Nullable Function ownerFilter,
+            @Nullable ObjList<Function> perWorkerFilters,
+            int workerCount
+    ) {
+        assert perWorkerFilters == null || perWorkerFilters.size() == workerCount;
+        this.columnIndex = columnIndex;
+        this.columnTypeTag = ColumnType.tagOf(columnType);
+        this.descending = descending;
+        this.compiledFilter = compiledFilter;
+        this.bindVarMemory = bindVarMemory;
+        this.bindVarFunctions = bindVarFunctions;
+        this.ownerFilter = ownerFilter;
+        this.perWorkerFilters = perWorkerFilters;
+        this.perWorkerLocks = perWorkerFilters != null ? new PerWorkerLocks(configuration, workerCount) : null;
+        this.radixSortThreshold = configuration.getSqlOrderByRadixSortThreshold();
+    }
+
+    @Override
+    public void clear() {
+        Misc.freeObjListAndKeepObjects(frameRuns);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(compiledFilter);
+        Misc.free(bindVarMemory);
+        Misc.freeObjList(bindVarFunctions);
+        Misc.free(ownerFilter);
+        Misc.freeObjList(perWorkerFilters);
+        Misc.freeObjListAndClear(frameRuns);
+    }
+
+    public ObjList<Function> getBindVarFunctions() {
+        return bindVarFunctions;
+    }
+
+    public MemoryCARW getBindVarMemory() {
+        return bindVarMemory;
+    }
+
+    public CompiledFilter getCompiledFilter() {
+        return compiledFilter;
+    }
+
+    public Function getFilter(int slotId) {
+        if (slotId == -1 || perWorkerFilters == null) {
+            return ownerFilter;
+        }
+        return perWorkerFilters.getQuick(slotId);
+    }
+
+    /**
+     * Returns the sort key of the current record. Keys compare as unsigned 64-bit integers,
+     * so that the native radix sort can be used on them; descending order is handled by
+     * inverting the key, so all runs are always sorted ascending.
+     */
+    public long getKey(PageFrameMemoryRecord record) {
+        final long value;
+        switch (columnTypeTag) {
+            case ColumnType.INT:
+                final int intValue = record.getInt(columnIndex);
+                value = intValue != Numbers.INT_NULL ? intValue : Numbers.LONG_NULL;
+                break;
+            case ColumnType.IPv4:
+                value = record.getLongIPv4(columnIndex);
+                break;
+            default:
+                value = record.getLong(columnIndex);
+                break;
+        }
+        final long key = value ^ Long.MIN_VALUE;
+        return descending ? ~key : key;
+    }
+
+    public long getRadixSortThreshold() {
+        return radixSortThreshold;
+    }
+
+    public DirectLongList getRun(int frameIndex) {
+        return frameRuns.getQuick(frameIndex);
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        if (ownerFilter != null) {
+            ownerFilter.init(symbolTableSource, executionContext);
+        }
+
+        if (perWorkerFilters != null) {
+            final boolean current = executionContext.getCloneSymbolTables();
+            executionContext.setCloneSymbolTables(true);
+            try {
+                Function.init(perWorkerFilters, symbolTableSource, executionContext);
+            } finally {
+                executionContext.setCloneSymbolTables(current);
+            }
+        }
+
+        if (bindVarFunctions != null) {
+            Function.init(bindVarFunctions, symbolTableSource, executionContext);
+            prepareBindVarMemory(executionContext, symbolTableSource, bindVarFunctions, bindVarMemory);
+        }
+    }
+
+    @Override
+    public void initCursor() {
+        if (ownerFilter != null) {
+            ownerFilter.initCursor();
+        }
+        if (perWorkerFilters != null) {
+            // Initialize all per-worker filters on the query owner thread to avoid
+            // DataUnavailableException thrown on worker threads when filtering.
+            Function.initCursor(perWorkerFilters);
+        }
+    }
+
+    /**
+     * Allocates a run per page frame, large enough to hold all frame rows. Must be called
+     * by the query owner thread before the frames are dispatched, so that reduce tasks
+     * only write to the pre-allocated memory.
+     */
+    public void initRuns(PageFrameSequence<?> frameSequence) {
+        for (int i = 0, n = frameSequence.getFrameCount(); i < n; i++) {
+            final long capacity = Math.max(frameSequence.getFrameRowCount(i), 1) << 1;
+            DirectLongList run = frameRuns.getQuiet(i);
+            if (run == null) {
+                frameRuns.extendAndSet(i, new DirectLongList(capacity, MemoryTag.NATIVE_DEFAULT));
+            } else {
+                run.clear();
+                run.setCapacity(capacity);
+            }
+        }
+    }
+
+    public int maybeAcquireFilter(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (perWorkerLocks == null) {
+            return -1;
+        }
+        if (workerId == -1 && owner) {
+            // Owner thread is free to use its own private filter anytime.
+            return -1;
+        }
+        // All other threads, e.g. worker or work stealing threads, must always acquire a lock
+        // to use shared resources.
+        return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+    }
+
+    public void releaseFilter(int slotId) {
+        if (perWorkerLocks != null) {
+            perWorkerLocks.releaseSlot(slotId);
+        }
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val(ownerFilter);
+    }
+}
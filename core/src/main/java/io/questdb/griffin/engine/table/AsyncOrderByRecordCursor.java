@@ -0,0 +1,301 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.PageFrameMemoryPool;
+import io.questdb.cairo.sql.PageFrameMemoryRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+import io.questdb.std.Rows;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Merges the per-frame sorted runs produced by the parallel ORDER BY. The merge is lazy:
+ * a binary min-heap holds the head of each non-empty run, so that every {@link #hasNext()}
+ * call costs O(log(frameCount)) and a LIMIT on top of the sort stops the merge early.
+ * Equal keys from different frames are returned in frame order.
+ */
+class AsyncOrderByRecordCursor implements RecordCursor {
+    private static final Log LOG = LogFactory.getLog(AsyncOrderByRecordCursor.class);
+    private final PageFrameMemoryPool frameMemoryPool;
+    // frame indexes of the non-empty runs, arranged as a binary heap
+    private final IntList heap = new IntList();
+    private final PageFrameMemoryRecord record;
+    // current position (in pairs) within each run
+    private final LongList runPositions = new LongList();
+    private boolean areRunsBuilt;
+    private int frameLimit;
+    private PageFrameSequence<AsyncOrderByAtom> frameSequence;
+    private int heapSize;
+    private boolean isOpen;
+    private PageFrameMemoryRecord recordB;
+    private long rowCount;
+
+    public AsyncOrderByRecordCursor(@NotNull CairoConfiguration configuration) {
+        this.record = new PageFrameMemoryRecord(PageFrameMemoryRecord.RECORD_A_LETTER);
+        this.frameMemoryPool = new PageFrameMemoryPool(configuration.getSqlParquetFrameCacheCapacity());
+        this.isOpen = true;
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            if (frameSequence != null) {
+                LOG.debug()
+                        .$("closing [shard=").$(frameSequence.getShard())
+                        .$(", frameCount=").$(frameLimit)
+                        .I$();
+
+                if (frameLimit > -1) {
+                    frameSequence.await();
+                }
+                frameSequence.clear();
+            }
+            Misc.free(frameMemoryPool);
+        }
+    }
+
+    public void freeRecords() {
+        Misc.free(record);
+        Misc.free(recordB);
+        Misc.free(frameMemoryPool);
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public Record getRecordB() {
+        if (recordB != null) {
+            return recordB;
+        }
+        recordB = new PageFrameMemoryRecord(record, PageFrameMemoryRecord.RECORD_B_LETTER);
+        return recordB;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!areRunsBuilt) {
+            buildRuns();
+            areRunsBuilt = true;
+            initHeap();
+        }
+        if (heapSize == 0) {
+            return false;
+        }
+
+        final int frameIndex = heap.getQuick(0);
+        final DirectLongList run = frameSequence.getAtom().getRun(frameIndex);
+        final long pos = runPositions.getQuick(frameIndex);
+        final long rowId = run.get((pos << 1) + 1);
+        if (pos + 1 < run.size() >>> 1) {
+            runPositions.setQuick(frameIndex, pos + 1);
+        } else {
+            // the run is exhausted, replace it with the last heap item
+            heap.setQuick(0, heap.getQuick(--heapSize));
+        }
+        siftDown(0);
+
+        recordAt(record, rowId);
+        return true;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        final PageFrameMemoryRecord frameMemoryRecord = (PageFrameMemoryRecord) record;
+        frameMemoryPool.navigateTo(Rows.toPartitionIndex(atRowId), frameMemoryRecord);
+        frameMemoryRecord.setRowIndex(Rows.toLocalRowID(atRowId));
+    }
+
+    @Override
+    public long size() {
+        return areRunsBuilt ? rowCount : -1;
+    }
+
+    @Override
+    public void toTop() {
+        if (areRunsBuilt) {
+            initHeap();
+        }
+    }
+
+    private void buildRuns() {
+        if (frameLimit == -1) {
+            frameSequence.prepareForDispatch();
+            frameSequence.getAtom().initRuns(frameSequence);
+            frameLimit = frameSequence.getFrameCount() - 1;
+        }
+
+        int frameIndex = -1;
+        boolean allFramesActive = true;
+        try {
+            do {
+                final long cursor = frameSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = frameSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(frameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(frameSequence.getFrameCount())
+                            .$(", active=").$(frameSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+                    if (task.hasError()) {
+                        throw CairoException.nonCritical()
+                                .position(task.getErrorMessagePosition())
+                                .put(task.getErrorMsg());
+                    }
+
+                    allFramesActive &= frameSequence.isActive();
+                    frameIndex = task.getFrameIndex();
+
+                    frameSequence.collect(cursor, false);
+                } else if (cursor == -2) {
+                    break; // No frames to sort.
+                } else {
+                    Os.pause();
+                }
+            } while (frameIndex < frameLimit);
+        } catch (Throwable e) {
+            LOG.error().$("order by error [ex=").$(e).I$();
+            if (e instanceof CairoException) {
+                CairoException ce = (CairoException) e;
+                if (ce.isInterruption()) {
+                    throwTimeoutException();
+                } else {
+                    throw ce;
+                }
+            }
+            throw CairoException.nonCritical().put(e.getMessage());
+        }
+
+        if (!allFramesActive) {
+            throwTimeoutException();
+        }
+    }
+
+    private long headKey(int frameIndex) {
+        return frameSequence.getAtom().getRun(frameIndex).get(runPositions.getQuick(frameIndex) << 1);
+    }
+
+    private void initHeap() {
+        final AsyncOrderByAtom atom = frameSequence.getAtom();
+        final int frameCount = frameSequence.getFrameCount();
+        heap.setPos(frameCount);
+        runPositions.setAll(frameCount, 0);
+        heapSize = 0;
+        rowCount = 0;
+        for (int i = 0; i < frameCount; i++) {
+            final long size = atom.getRun(i).size() >>> 1;
+            if (size > 0) {
+                heap.setQuick(heapSize++, i);
+                rowCount += size;
+            }
+        }
+        for (int i = (heapSize >> 1) - 1; i > -1; i--) {
+            siftDown(i);
+        }
+    }
+
+    private boolean less(int frameIndexA, int frameIndexB) {
+        final int cmp = Long.compareUnsigned(headKey(frameIndexA), headKey(frameIndexB));
+        return cmp < 0 || (cmp == 0 && frameIndexA < frameIndexB);
+    }
+
+    private void siftDown(int pos) {
+        final int frameIndex = heap.getQuick(pos);
+        while (true) {
+            int child = (pos << 1) + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            int childFrameIndex = heap.getQuick(child);
+            if (child + 1 < heapSize) {
+                final int rightFrameIndex = heap.getQuick(child + 1);
+                if (less(rightFrameIndex, childFrameIndex)) {
+                    child++;
+                    childFrameIndex = rightFrameIndex;
+                }
+            }
+            if (!less(childFrameIndex, frameIndex)) {
+                break;
+            }
+            heap.setQuick(pos, childFrameIndex);
+            pos = child;
+        }
+        heap.setQuick(pos, frameIndex);
+    }
+
+    private void throwTimeoutException() {
+        if (frameSequence.getCancelReason() == SqlExecutionCircuitBreaker.STATE_CANCELLED) {
+            throw CairoException.queryCancelled();
+        } else {
+            throw CairoException.queryTimedOut();
+        }
+    }
+
+    void of(PageFrameSequence<AsyncOrderByAtom> frameSequence) {
+        if (!isOpen) {
+            isOpen = true;
+        }
+        this.frameSequence = frameSequence;
+        frameMemoryPool.of(frameSequence.getPageFrameAddressCache());
+        record.of(frameSequence.getSymbolTableSource());
+        if (recordB != null) {
+            recordB.of(frameSequence.getSymbolTableSource());
+        }
+        areRunsBuilt = false;
+        frameLimit = -1;
+        heapSize = 0;
+        rowCount = 0;
+    }
+}
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ListColumnFilter;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageFrameMemory;
+import io.questdb.cairo.sql.PageFrameMemoryRecord;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReduceTaskFactory;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
+import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
+import io.questdb.jit.CompiledFilter;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.PartitionFrameCursorFactory.ORDER_ASC;
+import static io.questdb.cairo.sql.PartitionFrameCursorFactory.ORDER_DESC;
+import static io.questdb.griffin.engine.table.AsyncGroupByNotKeyedRecordCursorFactory.applyCompiledFilter;
+import static io.questdb.griffin.engine.table.AsyncGroupByNotKeyedRecordCursorFactory.applyFilter;
+
+/**
+ * Parallel ORDER BY over a single int/ipv4/long/timestamp/date column.
+ * <p>
+ * Reduce tasks build (key, row id) pairs for their page frame, optionally applying
+ * a stolen filter, and radix sort them, so that the sort runs on all shared workers.
+ * The query owner thread then k-way merges the sorted runs lazily, as the rows are
+ * being fetched.
+ */
+public class AsyncOrderByRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final PageFrameReducer FILTER_AND_SORT = AsyncOrderByRecordCursorFactory::filterAndSort;
+    private static final PageFrameReducer SORT = AsyncOrderByRecordCursorFactory::sort;
+
+    private final RecordCursorFactory base;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncOrderByRecordCursor cursor;
+    private final PageFrameSequence<AsyncOrderByAtom> frameSequence;
+    private final ListColumnFilter sortColumnFilter;
+    private final int workerCount;
+
+    public AsyncOrderByRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordMetadata metadata,
+            @NotNull RecordCursorFactory base,
+            @NotNull ListColumnFilter sortColumnFilter,
+            @Nullable CompiledFilter compiledFilter,
+            @Nullable MemoryCARW bindVarMemory,
+            @Nullable ObjList<Function> bindVarFunctions,
+            @Nullable Function filter,
+            @NotNull PageFrameReduceTaskFactory reduceTaskFactory,
+            @Nullable ObjList<Function> perWorkerFilters,
+            int workerCount
+    ) {
+        super(metadata);
+        try {
+            this.base = base;
+            this.sortColumnFilter = sortColumnFilter;
+            final int columnIndex = sortColumnFilter.getColumnIndexFactored(0);
+            AsyncOrderByAtom atom = new AsyncOrderByAtom(
+                    configuration,
+                    columnIndex,
+                    base.getMetadata().getColumnType(columnIndex),
+                    sortColumnFilter.getColumnIndex(0) < 0,
+                    compiledFilter,
+                    bindVarMemory,
+                    bindVarFunctions,
+                    filter,
+                    perWorkerFilters,
+                    workerCount
+            );
+            this.frameSequence = new PageFrameSequence<>(
+                    configuration,
+                    messageBus,
+                    atom,
+                    filter != null ? FILTER_AND_SORT : SORT,
+                    reduceTaskFactory,
+                    workerCount,
+                    PageFrameReduceTask.TYPE_ORDER_BY
+            );
+            this.cursor = new AsyncOrderByRecordCursor(configuration);
+            this.workerCount = workerCount;
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public PageFrameSequence<AsyncOrderByAtom> execute(SqlExecutionContext executionContext, SCSequence collectSubSeq, int order) throws SqlException {
+        return frameSequence.of(base, executionContext, collectSubSeq, order);
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final int order = base.getScanDirection() == SCAN_DIRECTION_BACKWARD ? ORDER_DESC : ORDER_ASC;
+        cursor.of(execute(executionContext, collectSubSeq, order));
+        return cursor;
+    }
+
+    @Override
+    public int getScanDirection() {
+        return SortedRecordCursorFactory.getScanDirection(sortColumnFilter);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        if (usesCompiledFilter()) {
+            sink.type("Async JIT Radix sort light");
+        } else {
+            sink.type("Async Radix sort light");
+        }
+        sink.meta("workers").val(workerCount);
+        SortedLightRecordCursorFactory.addSortKeys(sink, sortColumnFilter);
+        sink.optAttr("filter", frameSequence.getAtom(), true);
+        sink.child(base);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return frameSequence.getAtom().getCompiledFilter() != null;
+    }
+
+    @Override
+    public boolean usesIndex() {
+        return base.usesIndex();
+    }
+
+    private static void filterAndSort(
+            int workerId,
+            @NotNull PageFrameMemoryRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final DirectLongList rows = task.getFilteredRows();
+        final PageFrameSequence<AsyncOrderByAtom> frameSequence = task.getFrameSequence(AsyncOrderByAtom.class);
+        final AsyncOrderByAtom atom = frameSequence.getAtom();
+
+        final PageFrameMemory frameMemory = task.populateFrameMemory();
+        record.init(frameMemory);
+
+        rows.clear();
+
+        final long frameRowCount = task.getFrameRowCount();
+        assert frameRowCount > 0;
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == frameSequence;
+        final int slotId = atom.maybeAcquireFilter(workerId, owner, circuitBreaker);
+        final CompiledFilter compiledFilter = atom.getCompiledFilter();
+        final Function filter = atom.getFilter(slotId);
+        try {
+            if (compiledFilter == null || frameMemory.hasColumnTops()) {
+                // Use Java-based filter when there is no compiled filter or in case of a page frame with column tops.
+                applyFilter(filter, rows, record, frameRowCount);
+            } else {
+                applyCompiledFilter(compiledFilter, atom.getBindVarMemory(), atom.getBindVarFunctions(), task);
+            }
+        } finally {
+            atom.releaseFilter(slotId);
+        }
+
+        try {
+            record.setRowIndex(0);
+            final long baseRowId = record.getRowId();
+            final DirectLongList run = atom.getRun(task.getFrameIndex());
+            final long runAddr = run.getAddress();
+            final long rowCount = rows.size();
+            for (long p = 0; p < rowCount; p++) {
+                final long r = rows.get(p);
+                record.setRowIndex(r);
+                Unsafe.getUnsafe().putLong(runAddr + (p << 4), atom.getKey(record));
+                Unsafe.getUnsafe().putLong(runAddr + (p << 4) + Long.BYTES, baseRowId + r);
+            }
+            sortRun(atom, run, rowCount);
+        } finally {
+            task.releaseFrameMemory();
+        }
+    }
+
+    private static void sort(
+            int workerId,
+            @NotNull PageFrameMemoryRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final long frameRowCount = task.getFrameRowCount();
+        assert frameRowCount > 0;
+        final AsyncOrderByAtom atom = task.getFrameSequence(AsyncOrderByAtom.class).getAtom();
+
+        final PageFrameMemory frameMemory = task.populateFrameMemory();
+        record.init(frameMemory);
+
+        try {
+            record.setRowIndex(0);
+            final long baseRowId = record.getRowId();
+            final DirectLongList run = atom.getRun(task.getFrameIndex());
+            final long runAddr = run.getAddress();
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                Unsafe.getUnsafe().putLong(runAddr + (r << 4), atom.getKey(record));
+                Unsafe.getUnsafe().putLong(runAddr + (r << 4) + Long.BYTES, baseRowId + r);
+            }
+            sortRun(atom, run, frameRowCount);
+        } finally {
+            task.releaseFrameMemory();
+        }
+    }
+
+    private static void sortRun(AsyncOrderByAtom atom, DirectLongList run, long rowCount) {
+        run.setPos(rowCount << 1);
+        if (rowCount > atom.getRadixSortThreshold()) {
+            final long cpySize = rowCount << 4;
+            final long cpyAddr = Unsafe.malloc(cpySize, MemoryTag.NATIVE_DEFAULT);
+            try {
+                Vect.radixSortLongIndexAscInPlace(run.getAddress(), rowCount, cpyAddr);
+            } finally {
+                Unsafe.free(cpyAddr, cpySize, MemoryTag.NATIVE_DEFAULT);
+            }
+        } else if (rowCount > 1) {
+            Vect.quickSortLongIndexAscInPlace(run.getAddress(), rowCount);
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+        Misc.free(cursor);
+        Misc.free(frameSequence);
+    }
+}
@@ -0,0 +1,390 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table.parquet;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.StringTypeDriver;
+import io.questdb.cairo.VarcharTypeDriver;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.IntList;
+import io.questdb.std.Long256;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Transient;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.Utf8StringSink;
+
+/**
+ * Writes records to a parquet file one row group at a time. Rows are buffered in the
+ * in-memory column format of a table partition until a row group is full; the first row
+ * group is written by {@link PartitionEncoder}, which also creates the file, subsequent ones
+ * are appended by {@link PartitionUpdater}. Memory use is bounded by the row group size
+ * regardless of the number of exported rows.
+ * <p>
+ * Symbols are written as varchar, since their keys are local to the source table.
+ */
+public class ParquetExporter implements Mutable, QuietCloseable {
+    private static final long BUFFER_PAGE_SIZE = 64 * 1024;
+    private static final CharSequence TABLE_NAME = "export";
+    private final ObjList<MemoryCARW> auxMems = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final long compressionCodec;
+    private final ObjList<MemoryCARW> dataMems = new ObjList<>();
+    private final int dataPageSize;
+    private final PartitionDescriptor descriptor = new PartitionDescriptor();
+    private final FilesFacade ff;
+    private final long fileOpenOpts;
+    private final int parquetVersion;
+    private final Path path = new Path();
+    private final int rowGroupSize;
+    private final boolean statisticsEnabled;
+    private final PartitionUpdater updater;
+    private final Utf8StringSink utf8Sink = new Utf8StringSink();
+    private long bufferedRowCount;
+    private RecordMetadata metadata;
+    private int rowGroupCount;
+    private int timestampIndex;
+    private long totalRowCount;
+
+    public ParquetExporter(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.fileOpenOpts = configuration.getWriterFileOpenOpts();
+        this.compressionCodec = ParquetCompression.packCompressionCodecLevel(
+                configuration.getPartitionEncoderParquetCompressionCodec(),
+                configuration.getPartitionEncoderParquetCompressionLevel()
+        );
+        this.statisticsEnabled = configuration.isPartitionEncoderParquetStatisticsEnabled();
+        this.rowGroupSize = Math.max(1, configuration.getPartitionEncoderParquetRowGroupSize());
+        this.dataPageSize = configuration.getPartitionEncoderParquetDataPageSize();
+        this.parquetVersion = configuration.getPartitionEncoderParquetVersion();
+        this.updater = new PartitionUpdater(ff);
+    }
+
+    public static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.VARCHAR:
+            case ColumnType.BINARY:
+            case ColumnType.LONG256:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+            case ColumnType.LONG128:
+            case ColumnType.UUID:
+            case ColumnType.IPv4:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public void append(Record record) {
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final MemoryCARW data = dataMems.getQuick(i);
+            final int columnType = metadata.getColumnType(i);
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BOOLEAN:
+                    data.putBool(record.getBool(i));
+                    break;
+                case ColumnType.BYTE:
+                    data.putByte(record.getByte(i));
+                    break;
+                case ColumnType.SHORT:
+                    data.putShort(record.getShort(i));
+                    break;
+                case ColumnType.CHAR:
+                    data.putChar(record.getChar(i));
+                    break;
+                case ColumnType.INT:
+                    data.putInt(record.getInt(i));
+                    break;
+                case ColumnType.IPv4:
+                    data.putInt(record.getIPv4(i));
+                    break;
+                case ColumnType.LONG:
+                    data.putLong(record.getLong(i));
+                    break;
+                case ColumnType.DATE:
+                    data.putLong(record.getDate(i));
+                    break;
+                case ColumnType.TIMESTAMP:
+                    data.putLong(record.getTimestamp(i));
+                    break;
+                case ColumnType.FLOAT:
+                    data.putFloat(record.getFloat(i));
+                    break;
+                case ColumnType.DOUBLE:
+                    data.putDouble(record.getDouble(i));
+                    break;
+                case ColumnType.GEOBYTE:
+                    data.putByte(record.getGeoByte(i));
+                    break;
+                case ColumnType.GEOSHORT:
+                    data.putShort(record.getGeoShort(i));
+                    break;
+                case ColumnType.GEOINT:
+                    data.putInt(record.getGeoInt(i));
+                    break;
+                case ColumnType.GEOLONG:
+                    data.putLong(record.getGeoLong(i));
+                    break;
+                case ColumnType.LONG128:
+                case ColumnType.UUID:
+                    data.putLong(record.getLong128Lo(i));
+                    data.putLong(record.getLong128Hi(i));
+                    break;
+                case ColumnType.LONG256: {
+                    final Long256 value = record.getLong256A(i);
+                    data.putLong(value.getLong0());
+                    data.putLong(value.getLong1());
+                    data.putLong(value.getLong2());
+                    data.putLong(value.getLong3());
+                    break;
+                }
+                case ColumnType.STRING:
+                    StringTypeDriver.appendValue(auxMems.getQuick(i), data, record.getStrA(i));
+                    break;
+                case ColumnType.BINARY:
+                    auxMems.getQuick(i).putLong(data.putBin(record.getBin(i)));
+                    break;
+                case ColumnType.VARCHAR:
+                    VarcharTypeDriver.appendValue(auxMems.getQuick(i), data, record.getVarcharA(i));
+                    break;
+                case ColumnType.SYMBOL: {
+                    final CharSequence value = record.getSymA(i);
+                    if (value != null) {
+                        utf8Sink.clear();
+                        utf8Sink.put(value);
+                        VarcharTypeDriver.appendValue(auxMems.getQuick(i), data, utf8Sink);
+                    } else {
+                        VarcharTypeDriver.appendValue(auxMems.getQuick(i), data, null);
+                    }
+                    break;
+                }
+                default:
+                    throw new UnsupportedOperationException();
+            }
+        }
+        totalRowCount++;
+        if (++bufferedRowCount == rowGroupSize) {
+            writeRowGroup();
+        }
+    }
+
+    @Override
+    public void clear() {
+        updater.close();
+        descriptor.clear();
+        for (int i = 0, n = dataMems.size(); i < n; i++) {
+            dataMems.getQuick(i).truncate();
+            auxMems.getQuick(i).truncate();
+        }
+        columnTypes.clear();
+        metadata = null;
+        bufferedRowCount = 0;
+        rowGroupCount = 0;
+        totalRowCount = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(updater);
+        Misc.free(descriptor);
+        Misc.freeObjListAndClear(dataMems);
+        Misc.freeObjListAndClear(auxMems);
+        Misc.free(path);
+    }
+
+    /**
+     * Appends all records of the cursor and finishes the file.
+     *
+     * @return number of exported rows
+     */
+    public long export(RecordCursor cursor, SqlExecutionCircuitBreaker circuitBreaker) {
+        final Record record = cursor.getRecord();
+        while (cursor.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            append(record);
+        }
+        return finish();
+    }
+
+    /**
+     * Writes the buffered rows and the file footer.
+     *
+     * @return number of exported rows
+     */
+    public long finish() {
+        if (totalRowCount == 0) {
+            throw CairoException.nonCritical().put("query returned no rows, there is nothing to export");
+        }
+        if (bufferedRowCount > 0) {
+            writeRowGroup();
+        }
+        if (rowGroupCount > 1) {
+            updater.updateFileMetadata();
+        }
+        updater.close();
+        return totalRowCount;
+    }
+
+    public long getRowCount() {
+        return totalRowCount;
+    }
+
+    /**
+     * Prepares the exporter for the given result set.
+     *
+     * @param metadata       metadata of the exported records
+     * @param timestampIndex index of the column the records are sorted by, or -1
+     * @param path           path of the parquet file, an existing file is overwritten
+     */
+    public void of(RecordMetadata metadata, int timestampIndex, @Transient LPSZ path) {
+        clear();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (!isSupported(columnType)) {
+                throw CairoException.nonCritical().put("column type is not supported by parquet export [column=")
+                        .put(metadata.getColumnName(i)).put(", type=").put(ColumnType.nameOf(columnType)).put(']');
+            }
+        }
+        this.metadata = metadata;
+        this.timestampIndex = timestampIndex;
+        this.path.of(path);
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            columnTypes.add(ColumnType.isSymbol(columnType) ? ColumnType.VARCHAR : columnType);
+            if (dataMems.size() == i) {
+                dataMems.add(Vm.getCARWInstance(BUFFER_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT));
+                auxMems.add(Vm.getCARWInstance(BUFFER_PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT));
+            }
+        }
+        resetBuffers();
+    }
+
+    private void resetBuffers() {
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            dataMems.getQuick(i).truncate();
+            final MemoryCARW auxMem = auxMems.getQuick(i);
+            auxMem.truncate();
+            final int columnType = columnTypes.getQuick(i);
+            if (ColumnType.isVarSize(columnType) && ColumnType.tagOf(columnType) != ColumnType.VARCHAR) {
+                // string and binary aux vectors hold row count + 1 offsets
+                auxMem.putLong(0);
+            }
+        }
+        bufferedRowCount = 0;
+    }
+
+    private void writeRowGroup() {
+        descriptor.of(TABLE_NAME, bufferedRowCount, timestampIndex);
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final int columnType = columnTypes.getQuick(i);
+            final MemoryCARW data = dataMems.getQuick(i);
+            if (ColumnType.isVarSize(columnType)) {
+                final MemoryCARW aux = auxMems.getQuick(i);
+                descriptor.addColumn(
+                        metadata.getColumnName(i),
+                        columnType,
+                        i,
+                        0,
+                        data.getPageAddress(0),
+                        data.getAppendOffset(),
+                        aux.getPageAddress(0),
+                        aux.getAppendOffset(),
+                        0,
+                        0
+                );
+            } else {
+                descriptor.addColumn(
+                        metadata.getColumnName(i),
+                        columnType,
+                        i,
+                        0,
+                        data.getPageAddress(0),
+                        data.getAppendOffset(),
+                        0,
+                        0,
+                        0,
+                        0
+                );
+            }
+        }
+
+        if (rowGroupCount == 0) {
+            PartitionEncoder.encodeWithOptions(
+                    descriptor,
+                    path,
+                    compressionCodec,
+                    statisticsEnabled,
+                    rowGroupSize,
+                    dataPageSize,
+                    parquetVersion
+            );
+        } else {
+            if (rowGroupCount == 1) {
+                updater.of(
+                        path.$(),
+                        fileOpenOpts,
+                        ff.length(path.$()),
+                        timestampIndex,
+                        compressionCodec,
+                        statisticsEnabled,
+                        rowGroupSize,
+                        dataPageSize
+                );
+            }
+            updater.updateRowGroup(PartitionUpdater.APPEND_ROW_GROUP, descriptor);
+        }
+        rowGroupCount++;
+        resetBuffers();
+    }
+}
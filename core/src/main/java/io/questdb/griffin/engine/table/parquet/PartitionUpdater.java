@@ -38,6 +38,8 @@ import io.questdb.std.Unsafe;
 import io.questdb.std.str.LPSZ;
 
 public class PartitionUpdater implements QuietCloseable {
+    // row group id that appends a new row group rather than replacing an existing one
+    public static final short APPEND_ROW_GROUP = -1;
     private static final Log LOG = LogFactory.getLog(PartitionUpdater.class);
     private final FilesFacade ff;
     private long ptr;
@@ -38,6 +38,7 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     private ExpressionNode fileName;
     private boolean header;
     private int partitionBy;
+    private String selectText; // query of COPY (query) TO 'file'
     private ExpressionNode target; // holds table name (new import) or import id (cancel model)
     private CharSequence timestampColumnName;
     private CharSequence timestampFormat;
@@ -56,6 +57,7 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         partitionBy = -1;
         delimiter = -1;
         atomicity = -1;
+        selectText = null;
     }
 
     public int getAtomicity() {
@@ -79,6 +81,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return partitionBy;
     }
 
+    public String getSelectText() {
+        return selectText;
+    }
+
     @Override
     public CharSequence getTableName() {
         return target.token;
@@ -101,6 +107,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return cancel;
     }
 
+    public boolean isExport() {
+        return selectText != null;
+    }
+
     public boolean isHeader() {
         return header;
     }
@@ -129,6 +139,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.partitionBy = partitionBy;
     }
 
+    public void setSelectText(String selectText) {
+        this.selectText = selectText;
+    }
+
     public void setTarget(ExpressionNode tableName) {
         this.target = tableName;
     }
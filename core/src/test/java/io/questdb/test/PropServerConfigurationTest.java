@@ -447,6 +447,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals("quest", configuration.getPGWireConfiguration().getReadOnlyPassword());
         Assert.assertEquals("user", configuration.getPGWireConfiguration().getReadOnlyUsername());
         Assert.assertEquals(10_000, configuration.getPGWireConfiguration().getNamedStatementLimit());
+        Assert.assertEquals(1024 * 1024, configuration.getPGWireConfiguration().getPortalPrefetchBufferSize());
 
         Assert.assertEquals(128, configuration.getCairoConfiguration().getColumnPurgeQueueCapacity());
         Assert.assertEquals(127, configuration.getCairoConfiguration().getMaxFileNameLength());
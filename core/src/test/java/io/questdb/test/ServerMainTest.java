@@ -176,7 +176,7 @@ public class ServerMainTest extends AbstractBootstrapTest {
                             compiler,
                             executionContext,
                             "(show parameters) where property_path not in (" +
-                                    "'cairo.root', 'cairo.sql.backup.root', 'cairo.sql.copy.root', 'cairo.sql.copy.work.root', " +
+                                    "'cairo.root', 'cairo.sql.backup.root', 'cairo.sql.copy.root', 'cairo.sql.copy.work.root', 'cairo.sql.spill.root', " +
                                     "'cairo.writer.misc.append.page.size', 'line.tcp.io.worker.count', " +
                                     "'wal.apply.worker.count', 'mat.view.refresh.worker.count'" +
                                     ") order by 1",
@@ -314,6 +314,9 @@ public class ServerMainTest extends AbstractBootstrapTest {
                                     "cairo.sql.max.symbol.not.equals.count\tQDB_CAIRO_SQL_MAX_SYMBOL_NOT_EQUALS_COUNT\t100\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.page.frame.max.rows\tQDB_CAIRO_SQL_PAGE_FRAME_MAX_ROWS\t1000000\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.page.frame.min.rows\tQDB_CAIRO_SQL_PAGE_FRAME_MIN_ROWS\t100000\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.page.frame.prefetch.enabled\tQDB_CAIRO_SQL_PAGE_FRAME_PREFETCH_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.page.frame.prefetch.frames\tQDB_CAIRO_SQL_PAGE_FRAME_PREFETCH_FRAMES\t8\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.page.frame.prefetch.queue.depth\tQDB_CAIRO_SQL_PAGE_FRAME_PREFETCH_QUEUE_DEPTH\t64\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.parallel.filter.enabled\tQDB_CAIRO_SQL_PARALLEL_FILTER_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.parallel.filter.pretouch.enabled\tQDB_CAIRO_SQL_PARALLEL_FILTER_PRETOUCH_ENABLED\ttrue\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.parallel.groupby.enabled\tQDB_CAIRO_SQL_PARALLEL_GROUPBY_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
@@ -322,9 +325,23 @@ public class ServerMainTest extends AbstractBootstrapTest {
                                     "cairo.sql.parallel.groupby.presize.enabled\tQDB_CAIRO_SQL_PARALLEL_GROUPBY_PRESIZE_ENABLED\ttrue\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.parallel.groupby.presize.max.capacity\tQDB_CAIRO_SQL_PARALLEL_GROUPBY_PRESIZE_MAX_CAPACITY\t100000000\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.parallel.groupby.presize.max.heap.size\tQDB_CAIRO_SQL_PARALLEL_GROUPBY_PRESIZE_MAX_HEAP_SIZE\t1073741824\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.parallel.orderby.enabled\tQDB_CAIRO_SQL_PARALLEL_ORDERBY_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.parallel.sampleby.fill.enabled\tQDB_CAIRO_SQL_PARALLEL_SAMPLEBY_FILL_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.parallel.hashjoin.enabled\tQDB_CAIRO_SQL_PARALLEL_HASHJOIN_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.parallel.hashjoin.build.threshold\tQDB_CAIRO_SQL_PARALLEL_HASHJOIN_BUILD_THRESHOLD\t1000000\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.parallel.asofjoin.enabled\tQDB_CAIRO_SQL_PARALLEL_ASOFJOIN_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.spill.memory.budget\tQDB_CAIRO_SQL_SPILL_MEMORY_BUDGET\t0\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.spill.partition.count\tQDB_CAIRO_SQL_SPILL_PARTITION_COUNT\t16\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.parallel.work.stealing.threshold\tQDB_CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD\t16\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.parallel.read.parquet.enabled\tQDB_CAIRO_SQL_PARALLEL_READ_PARQUET_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
+                                    "cairo.zone.map.enabled\tQDB_CAIRO_ZONE_MAP_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
+                                    "cairo.zone.map.block.row.count\tQDB_CAIRO_ZONE_MAP_BLOCK_ROW_COUNT\t100000\tdefault\tfalse\tfalse\n" +
+                                    "cairo.bloom.filter.enabled\tQDB_CAIRO_BLOOM_FILTER_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
+                                    "cairo.bloom.filter.bits.per.row\tQDB_CAIRO_BLOOM_FILTER_BITS_PER_ROW\t10\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.parquet.frame.cache.capacity\tQDB_CAIRO_SQL_PARQUET_FRAME_CACHE_CAPACITY\t3\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.result.cache.enabled\tQDB_CAIRO_SQL_RESULT_CACHE_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.result.cache.max.result.size\tQDB_CAIRO_SQL_RESULT_CACHE_MAX_RESULT_SIZE\t1048576\tdefault\tfalse\tfalse\n" +
+                                    "cairo.sql.result.cache.memory.limit\tQDB_CAIRO_SQL_RESULT_CACHE_MEMORY_LIMIT\t67108864\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.rename.table.model.pool.capacity\tQDB_CAIRO_SQL_RENAME_TABLE_MODEL_POOL_CAPACITY\t16\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.sampleby.page.size\tQDB_CAIRO_SQL_SAMPLEBY_PAGE_SIZE\t0\tdefault\tfalse\tfalse\n" +
                                     "cairo.sql.sampleby.default.alignment.calendar\tQDB_CAIRO_SQL_SAMPLEBY_DEFAULT_ALIGNMENT_CALENDAR\ttrue\tdefault\tfalse\tfalse\n" +
@@ -361,8 +378,14 @@ public class ServerMainTest extends AbstractBootstrapTest {
                                     "cairo.volumes\tQDB_CAIRO_VOLUMES\t\tdefault\tfalse\tfalse\n" +
                                     "cairo.wal.apply.enabled\tQDB_CAIRO_WAL_APPLY_ENABLED\ttrue\tdefault\tfalse\tfalse\n" +
                                     "cairo.wal.apply.look.ahead.txn.count\tQDB_CAIRO_WAL_APPLY_LOOK_AHEAD_TXN_COUNT\t20\tdefault\tfalse\tfalse\n" +
+                                    "cairo.wal.apply.coalesce.txn.count\tQDB_CAIRO_WAL_APPLY_COALESCE_TXN_COUNT\t1\tdefault\tfalse\tfalse\n" +
+                                    "cairo.wal.apply.schedule.batch.size\tQDB_CAIRO_WAL_APPLY_SCHEDULE_BATCH_SIZE\t1\tdefault\tfalse\tfalse\n" +
+                                    "cairo.wal.max.apply.lag.txn.count\tQDB_CAIRO_WAL_MAX_APPLY_LAG_TXN_COUNT\t0\tdefault\tfalse\tfalse\n" +
+                                    "cairo.wal.shared.symbol.cache.enabled\tQDB_CAIRO_WAL_SHARED_SYMBOL_CACHE_ENABLED\ttrue\tdefault\tfalse\tfalse\n" +
+                                    "cairo.o3.dedup.skip.unchanged.enabled\tQDB_CAIRO_O3_DEDUP_SKIP_UNCHANGED_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
                                     "cairo.wal.apply.table.time.quota\tQDB_CAIRO_WAL_APPLY_TABLE_TIME_QUOTA\t1000\tdefault\tfalse\tfalse\n" +
                                     "cairo.wal.apply.parallel.sql.enabled\tQDB_CAIRO_WAL_APPLY_PARALLEL_SQL_ENABLED\ttrue\tdefault\tfalse\tfalse\n" +
+                                    "cairo.wal.apply.parallel.decode.enabled\tQDB_CAIRO_WAL_APPLY_PARALLEL_DECODE_ENABLED\tfalse\tdefault\tfalse\tfalse\n" +
                                     "cairo.wal.enabled.default\tQDB_CAIRO_WAL_ENABLED_DEFAULT\tfalse\tconf\tfalse\tfalse\n" +
                                     "cairo.wal.inactive.writer.ttl\tQDB_CAIRO_WAL_INACTIVE_WRITER_TTL\t120000\tdefault\tfalse\tfalse\n" +
                                     "cairo.wal.max.lag.txn.count\tQDB_CAIRO_WAL_MAX_LAG_TXN_COUNT\t-1\tdefault\tfalse\tfalse\n" +
@@ -520,6 +543,8 @@ public class ServerMainTest extends AbstractBootstrapTest {
                                     "line.tcp.symbol.cache.wait.before.reload\tQDB_LINE_TCP_SYMBOL_CACHE_WAIT_BEFORE_RELOAD\t500000\tdefault\tfalse\tfalse\n" +
                                     "line.tcp.timestamp\tQDB_LINE_TCP_TIMESTAMP\tn\tdefault\tfalse\tfalse\n" +
                                     "line.tcp.undocumented.string.to.char.cast.allowed\tQDB_LINE_TCP_UNDOCUMENTED_STRING_TO_CHAR_CAST_ALLOWED\tfalse\tdefault\tfalse\tfalse\n" +
+                                    "line.tcp.wal.shard.column\tQDB_LINE_TCP_WAL_SHARD_COLUMN\t\tdefault\tfalse\tfalse\n" +
+                                    "line.tcp.wal.shard.rebalance.event.count\tQDB_LINE_TCP_WAL_SHARD_REBALANCE_EVENT_COUNT\t100000\tdefault\tfalse\tfalse\n" +
                                     "line.tcp.writer.halt.on.error\tQDB_LINE_TCP_WRITER_HALT_ON_ERROR\tfalse\tdefault\tfalse\tfalse\n" +
                                     "line.tcp.writer.queue.capacity\tQDB_LINE_TCP_WRITER_QUEUE_CAPACITY\t128\tdefault\tfalse\tfalse\n" +
                                     "line.tcp.writer.worker.affinity\tQDB_LINE_TCP_WRITER_WORKER_AFFINITY\t\tdefault\tfalse\tfalse\n" +
@@ -578,6 +603,7 @@ public class ServerMainTest extends AbstractBootstrapTest {
                                     "pg.net.recv.buf.size\tQDB_PG_NET_RECV_BUF_SIZE\t-1\tdefault\tfalse\tfalse\n" +
                                     "pg.password\tQDB_PG_PASSWORD\t****\tdefault\ttrue\ttrue\n" +
                                     "pg.pending.writers.cache.capacity\tQDB_PG_PENDING_WRITERS_CACHE_CAPACITY\t16\tdefault\tfalse\tfalse\n" +
+                                    "pg.portal.prefetch.buffer.size\tQDB_PG_PORTAL_PREFETCH_BUFFER_SIZE\t1048576\tdefault\tfalse\tfalse\n" +
                                     "pg.readonly.password\tQDB_PG_READONLY_PASSWORD\t****\tdefault\ttrue\ttrue\n" +
                                     "pg.readonly.user\tQDB_PG_READONLY_USER\tuser\tdefault\tfalse\ttrue\n" +
                                     "pg.readonly.user.enabled\tQDB_PG_READONLY_USER_ENABLED\tfalse\tdefault\tfalse\ttrue\n" +
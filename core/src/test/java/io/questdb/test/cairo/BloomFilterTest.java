@@ -0,0 +1,155 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cairo;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.BloomFilterUtils;
+import io.questdb.cairo.TableToken;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BloomFilterTest extends AbstractCairoTest {
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_BLOOM_FILTER_ENABLED, "true");
+        setProperty(PropertyKey.CAIRO_ZONE_MAP_BLOCK_ROW_COUNT, 1024);
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MIN_ROWS, 1024);
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, 1024);
+        super.setUp();
+    }
+
+    @Test
+    public void testBloomFilesWritten() throws Exception {
+        assertMemoryLeak(() -> {
+            execute(
+                    "create table x as (" +
+                            "select ('v' || x)::varchar v, rnd_uuid4() u, ('s' || (x % 10))::symbol s, ('i' || (x % 10))::symbol index i, x l, timestamp_sequence(0, 1000000) ts " +
+                            "from long_sequence(5000)" +
+                            ") timestamp(ts) partition by day"
+            );
+
+            final FilesFacade ff = configuration.getFilesFacade();
+            final TableToken tableToken = engine.verifyTableName("x");
+            try (Path path = new Path()) {
+                path.of(configuration.getDbRoot()).concat(tableToken).concat("1970-01-01");
+                final int plen = path.size();
+                Assert.assertTrue(ff.exists(BloomFilterUtils.bfFile(path.trimTo(plen), "v", -1)));
+                Assert.assertTrue(ff.exists(BloomFilterUtils.bfFile(path.trimTo(plen), "u", -1)));
+                Assert.assertTrue(ff.exists(BloomFilterUtils.bfFile(path.trimTo(plen), "s", -1)));
+                // indexed symbols and other types are not covered
+                Assert.assertFalse(ff.exists(BloomFilterUtils.bfFile(path.trimTo(plen), "i", -1)));
+                Assert.assertFalse(ff.exists(BloomFilterUtils.bfFile(path.trimTo(plen), "l", -1)));
+
+                final long fd = ff.openRO(BloomFilterUtils.bfFile(path.trimTo(plen), "v", -1));
+                Assert.assertTrue(fd > -1);
+                try {
+                    Assert.assertEquals(1024, ff.readNonNegativeLong(fd, BloomFilterUtils.HEADER_OFFSET_BLOCK_ROW_COUNT));
+                    Assert.assertEquals(4, ff.readNonNegativeLong(fd, BloomFilterUtils.HEADER_OFFSET_BLOCK_COUNT));
+                    Assert.assertEquals(2048, ff.readNonNegativeLong(fd, BloomFilterUtils.HEADER_OFFSET_BLOCK_SIZE));
+                } finally {
+                    ff.close(fd);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testEqualityAndInLookups() throws Exception {
+        assertMemoryLeak(() -> {
+            execute(
+                    "create table x as (" +
+                            "select ('v' || x)::varchar v, to_uuid(x, x) u, ('s' || (x / 1000))::symbol s, x l, timestamp_sequence(0, 1000000) ts " +
+                            "from long_sequence(10000)" +
+                            ") timestamp(ts) partition by day"
+            );
+
+            assertSql(
+                    "l\n" +
+                            "4242\n",
+                    "select l from x where v = 'v4242'"
+            );
+            assertSql(
+                    "l\n" +
+                            "7\n" +
+                            "9999\n",
+                    "select l from x where v in ('v7', 'v9999', 'nope')"
+            );
+            assertSql(
+                    "l\n" +
+                            "1234\n",
+                    "select l from x where u = to_uuid(1234, 1234)"
+            );
+            assertSql(
+                    "count\n" +
+                            "1000\n",
+                    "select count() from x where s = 's3'"
+            );
+            assertSql(
+                    "count\n" +
+                            "2000\n",
+                    "select count() from x where s in ('s1', 's9')"
+            );
+            assertSql(
+                    "count\n" +
+                            "0\n",
+                    "select count() from x where s = 'missing'"
+            );
+            bindVariableService.clear();
+            bindVariableService.setStr(0, "v10000");
+            assertSql(
+                    "l\n" +
+                            "10000\n",
+                    "select l from x where v = $1"
+            );
+        });
+    }
+
+    @Test
+    public void testNullValuesAndColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x l, timestamp_sequence(0, 1000000) ts from long_sequence(3000)) timestamp(ts) partition by day");
+            execute("alter table x add column v varchar");
+            execute("insert into x select 3000 + x, timestamp_sequence(3000000000, 1000000), case when x % 2 = 0 then null else ('v' || x)::varchar end from long_sequence(3000)");
+
+            assertSql(
+                    "l\tv\n" +
+                            "4001\tv1001\n",
+                    "select l, v from x where v = 'v1001'"
+            );
+            assertSql(
+                    "count\n" +
+                            "4500\n",
+                    "select count() from x where v = null"
+            );
+        });
+    }
+}
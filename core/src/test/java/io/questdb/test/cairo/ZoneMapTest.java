@@ -0,0 +1,166 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cairo;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.ZoneMapUtils;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZoneMapTest extends AbstractCairoTest {
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_ZONE_MAP_ENABLED, "true");
+        setProperty(PropertyKey.CAIRO_ZONE_MAP_BLOCK_ROW_COUNT, 1024);
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MIN_ROWS, 1024);
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, 1024);
+        super.setUp();
+    }
+
+    @Test
+    public void testFilterResultsWithColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x::int a, timestamp_sequence(0, 1000000) ts from long_sequence(10000)) timestamp(ts) partition by day");
+            execute("alter table x add column b long");
+            execute("insert into x select (10000 + x)::int, timestamp_sequence(10000000000, 1000000), x from long_sequence(5000)");
+
+            assertSql(
+                    "count\tmin\tmax\n" +
+                            "1000\t4001\t5000\n",
+                    "select count(), min(b), max(b) from x where b > 4000"
+            );
+            assertSql(
+                    "count\n" +
+                            "0\n",
+                    "select count() from x where b = 0"
+            );
+            assertSql(
+                    "a\tb\n" +
+                            "14242\t4242\n",
+                    "select a, b from x where b = 4242"
+            );
+        });
+    }
+
+    @Test
+    public void testFilterResultsMatch() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x l, (x % 100)::int i, x * 0.5 d, timestamp_sequence(0, 100000) ts from long_sequence(20000)) timestamp(ts) partition by hour");
+
+            assertSql(
+                    "l\ti\td\tts\n" +
+                            "12345\t45\t6172.5\t1970-01-01T00:20:34.400000Z\n",
+                    "select * from x where l = 12345"
+            );
+            assertSql(
+                    "count\n" +
+                            "100\n",
+                    "select count() from x where l > 19900"
+            );
+            assertSql(
+                    "count\n" +
+                            "10\n",
+                    "select count() from x where 10 >= l"
+            );
+            assertSql(
+                    "count\n" +
+                            "3\n",
+                    "select count() from x where d >= 9999.0 and d < 10000.5"
+            );
+            assertSql(
+                    "count\n" +
+                            "0\n",
+                    "select count() from x where l < 0 and i = 1"
+            );
+            bindVariableService.clear();
+            bindVariableService.setLong(0, 15000);
+            assertSql(
+                    "count\n" +
+                            "5001\n",
+                    "select count() from x where l >= $1"
+            );
+        });
+    }
+
+    @Test
+    public void testOutOfOrderInsertUpdatesZoneMaps() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x l, timestamp_sequence(0, 1000000) ts from long_sequence(10000)) timestamp(ts) partition by day");
+            assertSql(
+                    "count\n" +
+                            "0\n",
+                    "select count() from x where l < 0"
+            );
+
+            // rewrites the partition and shifts rows within zone map blocks
+            execute("insert into x select -x, timestamp_sequence(500500000, 1000000) from long_sequence(3)");
+
+            assertSql(
+                    "l\tts\n" +
+                            "-1\t1970-01-01T00:08:20.500000Z\n" +
+                            "-2\t1970-01-01T00:08:21.500000Z\n" +
+                            "-3\t1970-01-01T00:08:22.500000Z\n",
+                    "select * from x where l < 0"
+            );
+        });
+    }
+
+    @Test
+    public void testZoneMapFilesWritten() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x l, x::symbol s, timestamp_sequence(0, 1000000) ts from long_sequence(5000)) timestamp(ts) partition by day");
+
+            final FilesFacade ff = configuration.getFilesFacade();
+            final TableToken tableToken = engine.verifyTableName("x");
+            try (Path path = new Path()) {
+                path.of(configuration.getDbRoot()).concat(tableToken).concat("1970-01-01");
+                final int plen = path.size();
+                Assert.assertTrue(ff.exists(ZoneMapUtils.zmFile(path.trimTo(plen), "l", -1)));
+                Assert.assertFalse(ff.exists(ZoneMapUtils.zmFile(path.trimTo(plen), "s", -1)));
+                Assert.assertFalse(ff.exists(ZoneMapUtils.zmFile(path.trimTo(plen), "ts", -1)));
+
+                final long fd = ff.openRO(ZoneMapUtils.zmFile(path.trimTo(plen), "l", -1));
+                Assert.assertTrue(fd > -1);
+                try {
+                    Assert.assertEquals(1024, ff.readNonNegativeLong(fd, ZoneMapUtils.HEADER_OFFSET_BLOCK_ROW_COUNT));
+                    Assert.assertEquals(4, ff.readNonNegativeLong(fd, ZoneMapUtils.HEADER_OFFSET_BLOCK_COUNT));
+                    Assert.assertEquals(1025, ff.readNonNegativeLong(fd, ZoneMapUtils.getBlockOffset(1) + ZoneMapUtils.BLOCK_OFFSET_MIN));
+                    Assert.assertEquals(2048, ff.readNonNegativeLong(fd, ZoneMapUtils.getBlockOffset(1) + ZoneMapUtils.BLOCK_OFFSET_MAX));
+                    Assert.assertEquals(0, ff.readNonNegativeLong(fd, ZoneMapUtils.getBlockOffset(1) + ZoneMapUtils.BLOCK_OFFSET_NULL_COUNT));
+                } finally {
+                    ff.close(fd);
+                }
+            }
+        });
+    }
+}
@@ -40,6 +40,7 @@ import io.questdb.std.DirectLongLongHeap;
 import io.questdb.std.DirectLongLongMinHeap;
 import io.questdb.std.MemoryTag;
 import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
 import io.questdb.std.str.Utf8Sequence;
 import io.questdb.test.AbstractCairoTest;
 import io.questdb.test.tools.TestUtils;
@@ -52,6 +53,45 @@ import java.util.function.Consumer;
 
 public class Unordered8MapTest extends AbstractCairoTest {
 
+    @Test
+    public void testFindValueAddress() throws Exception {
+        final Rnd rnd = TestUtils.generateRandom(LOG);
+        TestUtils.assertMemoryLeak(() -> {
+            SingleColumnType keyTypes = new SingleColumnType(ColumnType.LONG);
+            SingleColumnType valueTypes = new SingleColumnType(ColumnType.LONG);
+
+            HashMap<Long, Long> oracle = new HashMap<>();
+            try (Unordered8Map map = new Unordered8Map(keyTypes, valueTypes, 64, 0.8, Integer.MAX_VALUE)) {
+                Assert.assertEquals(0, map.findValueAddress(0));
+
+                final int N = 10000;
+                for (int i = 0; i < N; i++) {
+                    MapKey key = map.withKey();
+                    long l = i == 0 ? 0 : rnd.nextLong();
+                    key.putLong(l);
+
+                    MapValue value = key.createValue();
+                    value.putLong(0, ~l);
+
+                    oracle.put(l, ~l);
+                }
+
+                for (Map.Entry<Long, Long> e : oracle.entrySet()) {
+                    long address = map.findValueAddress(e.getKey());
+                    Assert.assertNotEquals(0, address);
+                    Assert.assertEquals((long) e.getValue(), Unsafe.getUnsafe().getLong(address));
+                }
+
+                for (int i = 0; i < N; i++) {
+                    long l = rnd.nextLong();
+                    if (!oracle.containsKey(l)) {
+                        Assert.assertEquals(0, map.findValueAddress(l));
+                    }
+                }
+            }
+        });
+    }
+
     @Test
     public void testFuzz() throws Exception {
         final Rnd rnd = TestUtils.generateRandom(LOG);
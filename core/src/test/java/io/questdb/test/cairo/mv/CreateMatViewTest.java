@@ -274,6 +274,70 @@ public class CreateMatViewTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testCreateMatViewKeyedGroupBy() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(TABLE1);
+
+            final String query = "select k, max(ts) ts, sum(v) s, count() c, first(v) f from " + TABLE1;
+            execute("create materialized view test as (" + query + ") timestamp(ts) partition by year");
+
+            try (TableMetadata metadata = engine.getTableMetadata(engine.getTableTokenIfExists("test"))) {
+                assertEquals(1, metadata.getTimestampIndex());
+                assertTrue(metadata.isDedupKey(0));
+                assertTrue(metadata.isDedupKey(1));
+                assertFalse(metadata.isDedupKey(2));
+                assertFalse(metadata.isDedupKey(3));
+                assertFalse(metadata.isDedupKey(4));
+            }
+            assertMatViewDefinition("test", query, TABLE1, 0, (char) 0);
+            assertMatViewMetadata("test", query, TABLE1, 0, (char) 0);
+
+            final MatViewDefinition matViewDefinition = getMatViewDefinition("test");
+            assertNotNull(matViewDefinition);
+            assertNull(matViewDefinition.getTimestampSampler());
+            assertMergePlan(matViewDefinition, "k:null,ts:max,s:sum,c:sum,f:first");
+
+            final TableToken matViewToken = engine.getTableTokenIfExists("test");
+            try (BlockFileReader reader = new BlockFileReader(configuration); Path path = new Path()) {
+                path.of(configuration.getDbRoot());
+                final MatViewDefinition readDefinition = new MatViewDefinition();
+                MatViewDefinition.readFrom(readDefinition, reader, path, path.size(), matViewToken);
+                assertMergePlan(readDefinition, "k:null,ts:max,s:sum,c:sum,f:first");
+            }
+        });
+    }
+
+    @Test
+    public void testCreateMatViewKeyedGroupByNoTimestamp() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(TABLE1);
+
+            try {
+                execute("create materialized view test as (select k, max(ts) ts, sum(v) s from " + TABLE1 + ") partition by year");
+                fail("Expected SqlException missing");
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "materialized view query requires a sampling interval");
+            }
+            assertNull(getMatViewDefinition("test"));
+        });
+    }
+
+    @Test
+    public void testCreateMatViewKeyedGroupByNotMergeable() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(TABLE1);
+
+            final String query = "select k, max(ts) ts, avg(v) a from " + TABLE1;
+            execute("create materialized view test as (" + query + ") timestamp(ts) partition by year");
+
+            final MatViewDefinition matViewDefinition = getMatViewDefinition("test");
+            assertNotNull(matViewDefinition);
+            // avg() can't be merged, so the view is always refreshed in full
+            assertEquals(0, matViewDefinition.getMergeColumnCount());
+        });
+    }
+
     @Test
     public void testCreateMatViewKeyedSampleBy() throws Exception {
         assertMemoryLeak(() -> {
@@ -1361,6 +1425,17 @@ public class CreateMatViewTest extends AbstractCairoTest {
         }
     }
 
+    private static void assertMergePlan(MatViewDefinition matViewDefinition, String expected) {
+        sink.clear();
+        for (int i = 0, n = matViewDefinition.getMergeColumnCount(); i < n; i++) {
+            if (i > 0) {
+                sink.put(',');
+            }
+            sink.put(matViewDefinition.getMergeColumnName(i)).put(':').put(String.valueOf(matViewDefinition.getMergeColumnFunction(i)));
+        }
+        TestUtils.assertEquals(expected, sink);
+    }
+
     private static MatViewDefinition getMatViewDefinition(String viewName) {
         final TableToken matViewToken = engine.getTableTokenIfExists(viewName);
         if (matViewToken == null) {
@@ -29,8 +29,10 @@ import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.TableToken;
+import io.questdb.cairo.file.BlockFileReader;
 import io.questdb.cairo.mv.MatViewRefreshExecutionContext;
 import io.questdb.cairo.mv.MatViewRefreshJob;
+import io.questdb.cairo.mv.MatViewRefreshState;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.SqlCompiler;
@@ -1067,6 +1069,158 @@ public class MatViewTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testKeyedGroupByIncrementalRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            execute(
+                    "create table base_price (" +
+                            "sym varchar, price double, amount long, ts timestamp" +
+                            ") timestamp(ts) partition by DAY WAL"
+            );
+
+            final String viewSql = "select sym, max(ts) ts, sum(amount) total, count() cnt, min(price) min_price, " +
+                    "max(price) max_price, first(price) first_price, last(price) last_price from base_price";
+            execute("create materialized view price_totals as (" + viewSql + ") timestamp(ts) partition by YEAR");
+
+            execute(
+                    "insert into base_price values('gbpusd', 1.320, 10, '2024-09-10T12:01')" +
+                            ",('gbpusd', 1.323, 20, '2024-09-10T12:02')" +
+                            ",('jpyusd', 103.21, 5, '2024-09-10T12:02')" +
+                            ",('gbpusd', 1.321, 30, '2024-09-10T13:02')"
+            );
+            drainQueues();
+            assertKeyedViewMatchesSqlOverBaseTable(viewSql, "price_totals");
+
+            // in-order rows are merged into the existing view rows
+            execute(
+                    "insert into base_price values('gbpusd', 1.319, 15, '2024-09-11T10:00')" +
+                            ",('eurusd', 1.101, 7, '2024-09-11T10:01')" +
+                            ",('jpyusd', 103.25, 8, '2024-09-11T11:02')"
+            );
+            drainQueues();
+            assertKeyedViewMatchesSqlOverBaseTable(viewSql, "price_totals");
+
+            execute("insert into base_price values('gbpusd', 1.331, 3, '2024-09-12T09:00')");
+            drainQueues();
+            assertKeyedViewMatchesSqlOverBaseTable(viewSql, "price_totals");
+
+            // O3 rows make the view refresh in full
+            execute(
+                    "insert into base_price values('gbpusd', 1.300, 11, '2024-09-09T10:00')" +
+                            ",('chfusd', 0.851, 4, '2024-09-12T12:00')"
+            );
+            drainQueues();
+            assertKeyedViewMatchesSqlOverBaseTable(viewSql, "price_totals");
+
+            assertQueryNoLeakCheck(
+                    "sym\tts\ttotal\tcnt\tmin_price\tmax_price\tfirst_price\tlast_price\n" +
+                            "chfusd\t2024-09-12T12:00:00.000000Z\t4\t1\t0.851\t0.851\t0.851\t0.851\n" +
+                            "eurusd\t2024-09-11T10:01:00.000000Z\t7\t1\t1.101\t1.101\t1.101\t1.101\n" +
+                            "gbpusd\t2024-09-12T09:00:00.000000Z\t89\t6\t1.3\t1.331\t1.3\t1.331\n" +
+                            "jpyusd\t2024-09-11T11:02:00.000000Z\t13\t2\t103.21\t103.25\t103.21\t103.25\n",
+                    "price_totals order by sym"
+            );
+        });
+    }
+
+    @Test
+    public void testKeyedGroupByJoinIncrementalRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            execute(
+                    "create table base_price (" +
+                            "sym varchar, price double, amount long, ts timestamp" +
+                            ") timestamp(ts) partition by DAY WAL"
+            );
+            execute("create table lot_sizes (sym varchar, lot_size long)");
+            execute("insert into lot_sizes values ('gbpusd', 1000), ('jpyusd', 100)");
+
+            final String viewSql = "select b.sym, max(b.ts) ts, sum(b.amount * l.lot_size) notional, count() cnt " +
+                    "from base_price b join lot_sizes l on (sym)";
+            execute("create materialized view notional with base base_price as (" + viewSql + ") timestamp(ts) partition by YEAR");
+
+            execute(
+                    "insert into base_price values('gbpusd', 1.320, 10, '2024-09-10T12:01')" +
+                            ",('jpyusd', 103.21, 5, '2024-09-10T12:02')" +
+                            ",('eurusd', 1.101, 7, '2024-09-10T12:03')"
+            );
+            drainQueues();
+            assertKeyedViewMatchesSqlOverBaseTable(viewSql, "notional");
+
+            execute(
+                    "insert into base_price values('gbpusd', 1.319, 15, '2024-09-11T10:00')" +
+                            ",('jpyusd', 103.25, 8, '2024-09-11T11:02')"
+            );
+            drainQueues();
+            assertKeyedViewMatchesSqlOverBaseTable(viewSql, "notional");
+
+            assertQueryNoLeakCheck(
+                    "sym\tts\tnotional\tcnt\n" +
+                            "gbpusd\t2024-09-11T10:00:00.000000Z\t25000\t2\n" +
+                            "jpyusd\t2024-09-11T11:02:00.000000Z\t1300\t2\n",
+                    "notional order by sym"
+            );
+        });
+    }
+
+    @Test
+    public void testKeyedGroupByUpsertRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            execute(
+                    "create table base_price (" +
+                            "sym varchar, price double, amount long, ts timestamp" +
+                            ") timestamp(ts) partition by DAY WAL"
+            );
+
+            // first(ts) doesn't move on merge, so only the rows of the changed keys are written
+            final String viewSql = "select sym, first(ts) ts, sum(amount) total, last(price) last_price from base_price";
+            execute("create materialized view price_firsts as (" + viewSql + ") timestamp(ts) partition by YEAR");
+
+            execute(
+                    "insert into base_price values('gbpusd', 1.320, 10, '2024-09-10T12:01')" +
+                            ",('jpyusd', 103.21, 5, '2024-09-10T12:02')" +
+                            ",('eurusd', 1.101, 7, '2024-09-10T12:03')"
+            );
+            drainQueues();
+            assertKeyedViewMatchesSqlOverBaseTable(viewSql, "price_firsts");
+
+            execute(
+                    "insert into base_price values('gbpusd', 1.319, 15, '2024-09-11T10:00')" +
+                            ",('chfusd', 0.851, 4, '2024-09-11T11:02')"
+            );
+            drainQueues();
+            assertKeyedViewMatchesSqlOverBaseTable(viewSql, "price_firsts");
+
+            assertQueryNoLeakCheck(
+                    "sym\tts\ttotal\tlast_price\n" +
+                            "chfusd\t2024-09-11T11:02:00.000000Z\t4\t0.851\n" +
+                            "eurusd\t2024-09-10T12:03:00.000000Z\t7\t1.101\n" +
+                            "gbpusd\t2024-09-10T12:01:00.000000Z\t25\t1.319\n" +
+                            "jpyusd\t2024-09-10T12:02:00.000000Z\t5\t103.21\n",
+                    "price_firsts order by sym"
+            );
+
+            // the base table max timestamp seen by the refresh is persisted along with the view state
+            final TableToken viewToken = engine.verifyTableName("price_firsts");
+            final MatViewRefreshState state = engine.getMatViewGraph().getViewRefreshState(viewToken);
+            Assert.assertNotNull(state);
+            try (
+                    Path path = new Path();
+                    BlockFileReader reader = new BlockFileReader(configuration)
+            ) {
+                reader.of(path.of(configuration.getDbRoot()).concat(viewToken).concat(MatViewRefreshState.MAT_VIEW_STATE_FILE_NAME).$());
+                final MatViewRefreshState actualState = new MatViewRefreshState(
+                        state.getViewDefinition(),
+                        false,
+                        (event, tableToken, baseTableTxn, errorMessage, latencyUs) -> {
+                        }
+                );
+                MatViewRefreshState.readFrom(reader, actualState);
+                Assert.assertEquals(parseFloorPartialTimestamp("2024-09-11T11:02"), actualState.getLastRefreshBaseMaxTimestamp());
+                Assert.assertEquals(state.getLastRefreshBaseTxn(), actualState.getLastRefreshBaseTxn());
+            }
+        });
+    }
+
     @Test
     public void testQueryError() throws Exception {
         assertMemoryLeak(() -> {
@@ -1957,6 +2111,17 @@ public class MatViewTest extends AbstractCairoTest {
         }
     }
 
+    private static void assertKeyedViewMatchesSqlOverBaseTable(String viewSql, String viewName) throws SqlException {
+        try (SqlCompiler compiler = engine.getSqlCompiler()) {
+            TestUtils.assertEquals(
+                    compiler,
+                    sqlExecutionContext,
+                    "select * from (" + viewSql + ") order by sym",
+                    viewName + " order by sym"
+            );
+        }
+    }
+
     private static void assertViewMatchesSqlOverBaseTable(String viewSql) throws SqlException {
         try (SqlCompiler compiler = engine.getSqlCompiler()) {
             TestUtils.assertEquals(
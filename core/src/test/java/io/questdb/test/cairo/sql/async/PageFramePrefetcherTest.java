@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cairo.sql.async;
+
+import io.questdb.cairo.sql.async.PageFramePrefetcher;
+import io.questdb.std.LongList;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class PageFramePrefetcherTest extends AbstractCairoTest {
+
+    @Test
+    public void testAddRangeContainingScheduledRange() throws Exception {
+        assertMemoryLeak(() -> {
+            try (PageFramePrefetcher prefetcher = new PageFramePrefetcher(configuration)) {
+                prefetcher.addRange(1, 100, 200);
+                prefetcher.addRange(1, 50, 300);
+                // both the head and the tail around the scheduled range are read
+                assertReads("[1,100,100,1,50,50,1,200,100]", prefetcher.getReads());
+
+                prefetcher.addRange(1, 0, 300);
+                assertReads("[1,100,100,1,50,50,1,200,100,1,0,50]", prefetcher.getReads());
+            }
+        });
+    }
+
+    @Test
+    public void testAddRangeDisjoint() throws Exception {
+        assertMemoryLeak(() -> {
+            try (PageFramePrefetcher prefetcher = new PageFramePrefetcher(configuration)) {
+                prefetcher.addRange(1, 0, 100);
+                prefetcher.addRange(1, 200, 300);
+                // the gap between the ranges has not been read
+                prefetcher.addRange(1, 100, 200);
+                prefetcher.addRange(2, 0, 100);
+                assertReads("[1,0,100,1,200,100,1,100,100,2,0,100]", prefetcher.getReads());
+            }
+        });
+    }
+
+    @Test
+    public void testAddRangeOverlapping() throws Exception {
+        assertMemoryLeak(() -> {
+            try (PageFramePrefetcher prefetcher = new PageFramePrefetcher(configuration)) {
+                prefetcher.addRange(1, 100, 200);
+                // contained
+                prefetcher.addRange(1, 120, 180);
+                // tail
+                prefetcher.addRange(1, 150, 250);
+                // head
+                prefetcher.addRange(1, 50, 150);
+                // adjacent
+                prefetcher.addRange(1, 250, 300);
+                assertReads("[1,100,100,1,200,50,1,50,50,1,250,50]", prefetcher.getReads());
+            }
+        });
+    }
+
+    private static void assertReads(String expected, LongList reads) {
+        TestUtils.assertEquals(expected, reads.toString());
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cairo.wal;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.wal.WalWriter;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Test;
+
+public class WalParallelDecodeTest extends AbstractCairoTest {
+    private static final int ROWS_PER_WRITER = 1000;
+
+    @Test
+    public void testParallelSymbolRemap() throws Exception {
+        testSymbolRemap(true);
+    }
+
+    @Test
+    public void testSerialSymbolRemap() throws Exception {
+        testSymbolRemap(false);
+    }
+
+    private void testSymbolRemap(boolean parallel) throws Exception {
+        setProperty(PropertyKey.CAIRO_WAL_APPLY_PARALLEL_DECODE_ENABLED, String.valueOf(parallel));
+        assertMemoryLeak(() -> {
+            execute("create table x (sym1 symbol, sym2 symbol, sym3 symbol, v long, ts timestamp) timestamp(ts) partition by hour wal");
+            final TableToken tableToken = engine.verifyTableName("x");
+
+            // Two concurrent WAL writers assign their own symbol keys, so the second
+            // writer's keys don't match the table's and have to be remapped on apply.
+            try (
+                    WalWriter walWriter1 = engine.getWalWriter(tableToken);
+                    WalWriter walWriter2 = engine.getWalWriter(tableToken)
+            ) {
+                for (int i = 0; i < ROWS_PER_WRITER; i++) {
+                    appendRow(walWriter1, "a" + (i % 10), "c" + (i % 5), i, i);
+                    appendRow(walWriter2, "b" + (i % 10), "c" + (4 - i % 5), -i, i);
+                    if (i % 100 == 99) {
+                        walWriter1.commit();
+                        walWriter2.commit();
+                    }
+                }
+            }
+            drainWalQueue();
+
+            assertSql(
+                    "count\tsum\n" +
+                            "2000\t0\n",
+                    "select count(), sum(v) from x"
+            );
+            final StringSink expected = new StringSink();
+            expected.put("sym1\tcount\n");
+            for (int i = 0; i < 10; i++) {
+                expected.put('a').put(i).put("\t100\n");
+            }
+            for (int i = 0; i < 10; i++) {
+                expected.put('b').put(i).put("\t100\n");
+            }
+            assertSql(expected, "select sym1, count() from x order by sym1");
+            assertSql(
+                    "sym2\tcount\n" +
+                            "c0\t400\n" +
+                            "c1\t400\n" +
+                            "c2\t400\n" +
+                            "c3\t400\n" +
+                            "c4\t400\n",
+                    "select sym2, count() from x order by sym2"
+            );
+            assertSql(
+                    "count\n" +
+                            "0\n",
+                    "select count() from x where sym3 != (abs(v) % 5)::string"
+            );
+        });
+    }
+
+    private static void appendRow(WalWriter walWriter, String sym1, String sym2, long v, long ts) {
+        final TableWriter.Row row = walWriter.newRow(ts * 1_000_000L);
+        row.putSym(0, sym1);
+        row.putSym(1, sym2);
+        row.putSym(2, String.valueOf(Math.abs(v) % 5));
+        row.putLong(3, v);
+        row.append();
+    }
+}
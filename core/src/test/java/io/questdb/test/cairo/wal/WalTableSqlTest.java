@@ -27,6 +27,7 @@ package io.questdb.test.cairo.wal;
 import io.questdb.PropertyKey;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.MetadataCacheReader;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.TableToken;
@@ -38,6 +39,7 @@ import io.questdb.cairo.sql.InsertMethod;
 import io.questdb.cairo.sql.InsertOperation;
 import io.questdb.cairo.wal.ApplyWal2TableJob;
 import io.questdb.cairo.wal.CheckWalTransactionsJob;
+import io.questdb.cairo.wal.WalApplyPriority;
 import io.questdb.cairo.wal.WalPurgeJob;
 import io.questdb.cairo.wal.WalUtils;
 import io.questdb.cairo.wal.WalWriter;
@@ -59,6 +61,7 @@ import io.questdb.std.Unsafe;
 import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
 import io.questdb.std.str.Utf8s;
 import io.questdb.test.AbstractCairoTest;
 import io.questdb.test.cairo.Overrides;
@@ -430,6 +433,50 @@ public class WalTableSqlTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testCoalesceWalTransactions() throws Exception {
+        assertMemoryLeak(() -> {
+            node1.setProperty(PropertyKey.CAIRO_WAL_APPLY_COALESCE_TXN_COUNT, 100);
+            execute("create table x (sym symbol, v long, ts timestamp) timestamp(ts) partition by day wal");
+            execute("insert into x values ('a', 1, '2024-01-01T00:00:01')");
+            drainWalQueue();
+
+            // the symbol is known to the table, these transactions coalesce, one of them is out of order
+            execute("insert into x values ('a', 2, '2024-01-01T00:00:03')");
+            execute("insert into x values ('a', 3, '2024-01-01T00:00:02')");
+            execute("insert into x values ('a', 4, '2024-01-02T00:00:00')");
+            // null and new symbols start a new block
+            execute("insert into x values (null, 5, '2024-01-01T00:00:00')");
+            execute("insert into x values ('b', 6, '2024-01-01T00:00:04')");
+            execute("insert into x values ('b', 7, '2024-01-01T00:00:05')");
+            drainWalQueue();
+
+            assertSql(
+                    "sym\tv\tts\n" +
+                            "\t5\t2024-01-01T00:00:00.000000Z\n" +
+                            "a\t1\t2024-01-01T00:00:01.000000Z\n" +
+                            "a\t3\t2024-01-01T00:00:02.000000Z\n" +
+                            "a\t2\t2024-01-01T00:00:03.000000Z\n" +
+                            "b\t6\t2024-01-01T00:00:04.000000Z\n" +
+                            "b\t7\t2024-01-01T00:00:05.000000Z\n" +
+                            "a\t4\t2024-01-02T00:00:00.000000Z\n",
+                    "x"
+            );
+            assertSql(
+                    "sym\tcount\n" +
+                            "\t1\n" +
+                            "a\t4\n" +
+                            "b\t2\n",
+                    "select sym, count() from x where sym in ('a', 'b') or sym is null order by sym"
+            );
+            assertSql(
+                    "name\tsuspended\twriterTxn\tsequencerTxn\n" +
+                            "x\tfalse\t7\t7\n",
+                    "select name, suspended, writerTxn, sequencerTxn from wal_tables()"
+            );
+        });
+    }
+
     @Test
     public void testConvertToFromWalWithLagSet() throws Exception {
         String tableName = testName.getMethodName();
@@ -883,6 +930,81 @@ public class WalTableSqlTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testDedupReplayChangedColumnValue() throws Exception {
+        assertDedupReplay(
+                " (ts timestamp, sym symbol, v varchar, s string, d double) timestamp(ts) partition by DAY WAL dedup upsert keys(ts, sym)",
+                "insert into %s values ('2022-02-24T01', 'a', 'v1', 's1', 1.0), ('2022-02-24T01', 'b', 'v2', 's2', 2.0)",
+                "insert into %s values ('2022-02-24T01', 'a', 'v1', 's1', 1.0), ('2022-02-24T01', 'b', 'v2', null, 2.0), ('2022-02-25T01', 'a', null, 's3', 3.0)"
+        );
+    }
+
+    @Test
+    public void testDedupReplayDuplicateKeyBeforeDedupEnabled() throws Exception {
+        assertDedupReplay(
+                " (ts timestamp, k symbol, v long) timestamp(ts) partition by DAY WAL",
+                "insert into %s values ('2022-02-24T01', 'k', 1)",
+                "insert into %s values ('2022-02-24T01', 'k', 1), ('2022-02-24T01', 'k', 2), ('2022-02-25T01', 'k', 3)",
+                "alter table %s dedup enable upsert keys(ts, k)"
+        );
+    }
+
+    @Test
+    public void testDedupReplayLastPartition() throws Exception {
+        assertDedupReplay(
+                " (ts timestamp, k symbol, v long) timestamp(ts) partition by DAY WAL dedup upsert keys(ts, k)",
+                "insert into %s values ('2022-02-25T01', 'a', 3), ('2022-02-25T02', 'a', 4)",
+                "insert into %s values ('2022-02-24T01', 'a', 1), ('2022-02-25T01', 'a', 3), ('2022-02-25T01', 'b', 3), ('2022-02-25T02', 'a', 4), ('2022-02-25T03', 'a', 5)"
+        );
+    }
+
+    @Test
+    public void testDedupReplaySkipsUnchangedPartitions() throws Exception {
+        setProperty(PropertyKey.CAIRO_O3_DEDUP_SKIP_UNCHANGED_ENABLED, "true");
+        assertMemoryLeak(() -> {
+            String tableName = testName.getMethodName();
+            execute("create table " + tableName + " (ts timestamp, sym symbol, v varchar, s string, d double)" +
+                    " timestamp(ts) partition by DAY WAL dedup upsert keys(ts, sym)");
+            String values = "('2022-02-24T01', 'a', 'v1', 's1', 1.0), ('2022-02-24T01', 'b', 'v2', null, 2.0), " +
+                    "('2022-02-25T01', 'a', null, 's3', 3.0), ('2022-02-25T02', 'a', 'v4', 's4', null)";
+            execute("insert into " + tableName + " values " + values);
+            execute("insert into " + tableName + " values ('2022-02-26T01', 'a', 'v5', 's5', 5.0)");
+            drainWalQueue();
+
+            TableToken token = engine.verifyTableName(tableName);
+            try (TxReader txReader = new TxReader(engine.getConfiguration().getFilesFacade())) {
+                txReader.ofRO(Path.getThreadLocal(root).concat(token).concat(TXN_FILE_NAME).$(), PartitionBy.DAY);
+                txReader.unsafeLoadAll();
+                final long nameTxn0 = txReader.getPartitionNameTxn(0);
+                final long nameTxn1 = txReader.getPartitionNameTxn(1);
+
+                // replayed rows do not rewrite the partitions
+                execute("insert into " + tableName + " values " + values);
+                drainWalQueue();
+                txReader.unsafeLoadAll();
+                Assert.assertEquals(nameTxn0, txReader.getPartitionNameTxn(0));
+                Assert.assertEquals(nameTxn1, txReader.getPartitionNameTxn(1));
+
+                // a changed value rewrites its partition only
+                execute("insert into " + tableName + " values ('2022-02-24T01', 'a', 'v1', 's1', 1.0), ('2022-02-25T02', 'a', 'v4', 's4', 4.0)");
+                drainWalQueue();
+                txReader.unsafeLoadAll();
+                Assert.assertEquals(nameTxn0, txReader.getPartitionNameTxn(0));
+                Assert.assertNotEquals(nameTxn1, txReader.getPartitionNameTxn(1));
+            }
+
+            assertSql(
+                    "ts\tsym\tv\ts\td\n" +
+                            "2022-02-24T01:00:00.000000Z\ta\tv1\ts1\t1.0\n" +
+                            "2022-02-24T01:00:00.000000Z\tb\tv2\t\t2.0\n" +
+                            "2022-02-25T01:00:00.000000Z\ta\t\ts3\t3.0\n" +
+                            "2022-02-25T02:00:00.000000Z\ta\tv4\ts4\t4.0\n" +
+                            "2022-02-26T01:00:00.000000Z\ta\tv5\ts5\t5.0\n",
+                    tableName
+            );
+        });
+    }
+
     @Test
     public void testDropFailedWhileDataFileLocked() throws Exception {
         testDropFailedWhileDataFileLocked("x.d");
@@ -1962,6 +2084,48 @@ public class WalTableSqlTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testSetWalPriority() throws Exception {
+        assertMemoryLeak(() -> {
+            String tableName = testName.getMethodName();
+            execute("create table " + tableName + " (x long, ts timestamp) timestamp(ts) partition by DAY WAL");
+            execute("create table nonWal (x long, ts timestamp) timestamp(ts) partition by DAY BYPASS WAL");
+            TableToken token = engine.verifyTableName(tableName);
+            Assert.assertEquals(WalApplyPriority.NORMAL, engine.getTableSequencerAPI().getTxnTracker(token).getWalPriority());
+
+            execute("alter table " + tableName + " set wal priority high");
+            drainWalQueue();
+            Assert.assertEquals(WalApplyPriority.HIGH, engine.getTableSequencerAPI().getTxnTracker(token).getWalPriority());
+            execute("alter table " + tableName + " set wal priority Low");
+            drainWalQueue();
+            Assert.assertEquals(WalApplyPriority.LOW, engine.getTableSequencerAPI().getTxnTracker(token).getWalPriority());
+
+            // the priority survives writer re-open, it is stored in the table metadata
+            engine.releaseAllWriters();
+            try (TableWriter writer = getWriter(token)) {
+                Assert.assertEquals(WalApplyPriority.LOW, writer.getMetaWalPriority());
+            }
+            try (MetadataCacheReader metadataRO = engine.getMetadataCache().readLock()) {
+                Assert.assertEquals(WalApplyPriority.LOW, metadataRO.getTable(token).getWalPriority());
+            }
+
+            String sql = "alter table " + tableName + " set wal priority urgent";
+            assertExceptionNoLeakCheck(sql, sql.indexOf("urgent"), "'low', 'normal' or 'high' expected");
+            sql = "alter table " + tableName + " set wal prio";
+            assertExceptionNoLeakCheck(sql, sql.indexOf("prio"), "'priority' expected");
+            assertExceptionNoLeakCheck("alter table nonWal set wal priority high", 12, "nonWal is not a WAL table");
+            Assert.assertEquals(WalApplyPriority.LOW, engine.getTableSequencerAPI().getTxnTracker(token).getWalPriority());
+
+            // low priority tables still get their transactions applied
+            execute("insert into " + tableName + " values (1, '2022-02-24T01')");
+            execute("insert into " + tableName + " values (2, '2022-02-24T00')");
+            drainWalQueue();
+            assertSql("x\tts\n" +
+                    "2\t2022-02-24T00:00:00.000000Z\n" +
+                    "1\t2022-02-24T01:00:00.000000Z\n", tableName);
+        });
+    }
+
     @Test
     public void testSuspendedTablesTriedOnceOnStart() throws Exception {
         FilesFacade ff = new TestFilesFacadeImpl() {
@@ -2104,6 +2268,28 @@ public class WalTableSqlTest extends AbstractCairoTest {
         });
     }
 
+    // Replays rows into a table with and without skipping unchanged partitions, the contents must be the same.
+    private void assertDedupReplay(String ddl, String replaySql, String... setupSqls) throws Exception {
+        assertMemoryLeak(() -> {
+            final StringSink expected = new StringSink();
+            final StringSink actual = new StringSink();
+            for (int i = 0; i < 2; i++) {
+                final boolean skipUnchanged = i == 1;
+                final String tableName = testName.getMethodName() + '_' + skipUnchanged;
+                setProperty(PropertyKey.CAIRO_O3_DEDUP_SKIP_UNCHANGED_ENABLED, String.valueOf(skipUnchanged));
+                execute("create table " + tableName + ddl);
+                for (String sql : setupSqls) {
+                    execute(String.format(sql, tableName));
+                }
+                drainWalQueue();
+                execute(String.format(replaySql, tableName));
+                drainWalQueue();
+                printSql(tableName, skipUnchanged ? actual : expected);
+            }
+            TestUtils.assertEquals(expected, actual);
+        });
+    }
+
     private void checkTableFilesExist(TableToken sysTableName, String partition, String fileName, boolean value) {
         Path sysPath = Path.PATH.get().of(configuration.getDbRoot()).concat(sysTableName).concat(TXN_FILE_NAME);
         Assert.assertEquals(Utf8s.toString(sysPath), value, Files.exists(sysPath.$()));
@@ -28,6 +28,8 @@ import io.questdb.PropertyKey;
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
 import io.questdb.cairo.wal.*;
 import io.questdb.griffin.SqlUtil;
 import io.questdb.griffin.engine.ops.AlterOperationBuilder;
@@ -725,6 +727,81 @@ public class WalWriterTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testAppendColumnBatch() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x (ts timestamp, l long, d double, s string, v varchar, i int) timestamp(ts) partition by day wal");
+            try (WalWriter walWriter = engine.getWalWriter(engine.verifyTableName("x"))) {
+                appendColumnBatch(walWriter);
+                assertEquals(4, walWriter.getSegmentRowCount());
+                walWriter.commit();
+            }
+            drainWalQueue();
+            assertSql(
+                    "ts\tl\td\ts\tv\ti\n" +
+                            "1970-01-01T00:00:01.000000Z\tnull\tnull\t\t\tnull\n" +
+                            "1970-01-01T00:00:02.000000Z\t2\t2.5\tb\tb\t2\n" +
+                            "1970-01-01T00:00:03.000000Z\t3\t3.5\tc\tc-value-longer-than-inlined\tnull\n" +
+                            "1970-01-01T00:00:04.000000Z\t4\t4.5\td\td\tnull\n",
+                    "x"
+            );
+        });
+    }
+
+    @Test
+    public void testAppendColumnBatchNonWal() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x (ts timestamp, l long, d double, s string, v varchar, i int) timestamp(ts) partition by day bypass wal");
+            try (TableWriter writer = getWriter("x")) {
+                appendColumnBatch(writer);
+                writer.commit();
+            }
+            assertSql(
+                    "ts\tl\td\ts\tv\ti\n" +
+                            "1970-01-01T00:00:01.000000Z\tnull\tnull\t\t\tnull\n" +
+                            "1970-01-01T00:00:02.000000Z\t2\t2.5\tb\tb\t2\n" +
+                            "1970-01-01T00:00:03.000000Z\t3\t3.5\tc\tc-value-longer-than-inlined\tnull\n" +
+                            "1970-01-01T00:00:04.000000Z\t4\t4.5\td\td\tnull\n",
+                    "x"
+            );
+        });
+    }
+
+    @Test
+    public void testAppendColumnBatchRejectsSymbolColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x (ts timestamp, sym symbol, l long) timestamp(ts) partition by day wal");
+            try (
+                    WalWriter walWriter = engine.getWalWriter(engine.verifyTableName("x"));
+                    MemoryCARW timestamps = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+                    MemoryCARW keys = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT)
+            ) {
+                timestamps.putLong(1_000_000);
+                keys.putInt(0);
+                final ColumnVectorBatch batch = new ColumnVectorBatch().of(timestamps.getAddress(), 1);
+                batch.addColumn(1, keys.getAddress());
+                try {
+                    walWriter.appendColumnBatch(batch);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "column cannot be appended from a vector");
+                }
+
+                // the writer is still usable
+                TableWriter.Row row = walWriter.newRow(2_000_000);
+                row.putLong(2, 2);
+                row.append();
+                walWriter.commit();
+            }
+            drainWalQueue();
+            assertSql(
+                    "ts\tsym\tl\n" +
+                            "1970-01-01T00:00:02.000000Z\t\t2\n",
+                    "x"
+            );
+        });
+    }
+
     @Test
     public void testCancelRowDoesNotStartsNewSegment() throws Exception {
         assertMemoryLeak(() -> {
@@ -3226,6 +3303,56 @@ public class WalWriterTest extends AbstractCairoTest {
         });
     }
 
+    // appends one row via newRow() followed by a batch of three, one of them out of order,
+    // leaving column "i" out of the batch
+    private static void appendColumnBatch(TableWriterAPI writer) {
+        TableWriter.Row row = writer.newRow(2_000_000);
+        row.putLong(1, 2);
+        row.putDouble(2, 2.5);
+        row.putStr(3, "b");
+        row.putVarchar(4, new Utf8String("b"));
+        row.putInt(5, 2);
+        row.append();
+
+        try (
+                MemoryCARW timestamps = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+                MemoryCARW longs = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+                MemoryCARW doubles = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+                MemoryCARW strData = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+                MemoryCARW strAux = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+                MemoryCARW varcharData = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+                MemoryCARW varcharAux = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT)
+        ) {
+            timestamps.putLong(3_000_000);
+            timestamps.putLong(1_000_000);
+            timestamps.putLong(4_000_000);
+
+            longs.putLong(3);
+            longs.putLong(Numbers.LONG_NULL);
+            longs.putLong(4);
+
+            doubles.putDouble(3.5);
+            doubles.putDouble(Double.NaN);
+            doubles.putDouble(4.5);
+
+            strAux.putLong(0);
+            strAux.putLong(strData.putStr("c"));
+            strAux.putLong(strData.putStr(null));
+            strAux.putLong(strData.putStr("d"));
+
+            VarcharTypeDriver.appendValue(varcharAux, varcharData, new Utf8String("c-value-longer-than-inlined"));
+            VarcharTypeDriver.appendValue(varcharAux, varcharData, null);
+            VarcharTypeDriver.appendValue(varcharAux, varcharData, new Utf8String("d"));
+
+            final ColumnVectorBatch batch = new ColumnVectorBatch().of(timestamps.getAddress(), 3);
+            batch.addColumn(1, longs.getAddress());
+            batch.addColumn(2, doubles.getAddress());
+            batch.addColumn(3, strData.getAddress(), strAux.getAddress());
+            batch.addColumn(4, varcharData.getAddress(), varcharAux.getAddress());
+            writer.appendColumnBatch(batch);
+        }
+    }
+
     private static Path constructPath(Path path, TableToken tableName, CharSequence walName, long segment, CharSequence fileName) {
         return segment < 0
                 ? path.concat(tableName).slash().concat(walName).slash().concat(fileName)
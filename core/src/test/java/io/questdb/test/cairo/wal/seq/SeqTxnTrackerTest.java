@@ -24,11 +24,14 @@
 
 package io.questdb.test.cairo.wal.seq;
 
+import io.questdb.cairo.wal.WalApplyPriority;
 import io.questdb.cairo.wal.seq.SeqTxnTracker;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.SOCountDownLatch;
 import io.questdb.std.Rnd;
+import io.questdb.std.datetime.microtime.MicrosecondClockImpl;
+import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Test;
 
@@ -40,13 +43,34 @@ import static org.junit.Assert.*;
 public class SeqTxnTrackerTest {
     private static final Log LOG = LogFactory.getLog(SeqTxnTrackerTest.class);
 
+    @Test
+    public void testApplyDeadline() {
+        final SeqTxnTracker tracker = new SeqTxnTracker(MicrosecondClockImpl.INSTANCE);
+        final long now = Long.MAX_VALUE / 2;
+        // nothing to apply, the deadline is the target lag of the priority from now
+        assertEquals(now + Timestamps.SECOND_MICROS, tracker.getApplyDeadline(now));
+
+        tracker.notifyOnCommit(1);
+        final long normalDeadline = tracker.getApplyDeadline(now);
+        // the table has been waiting since the commit
+        assertTrue(normalDeadline < now);
+
+        tracker.setWalPriority(WalApplyPriority.HIGH);
+        assertTrue(tracker.getApplyDeadline(now) < normalDeadline);
+        tracker.setWalPriority(WalApplyPriority.LOW);
+        assertTrue(tracker.getApplyDeadline(now) > normalDeadline);
+
+        tracker.updateWriterTxns(1, 1);
+        assertEquals(now + WalApplyPriority.getTargetLagMicros(WalApplyPriority.LOW), tracker.getApplyDeadline(now));
+    }
+
     @Test
     public void testConcurrentInitTxns() throws Exception {
         LOG.info().$("testConcurrentInitTxns").$();
         TestUtils.assertMemoryLeak(() -> {
             final int threads = 4;
 
-            final SeqTxnTracker tracker = new SeqTxnTracker();
+            final SeqTxnTracker tracker = new SeqTxnTracker(MicrosecondClockImpl.INSTANCE);
             assertFalse(tracker.isInitialised());
 
             final CyclicBarrier startBarrier = new CyclicBarrier(threads);
@@ -87,7 +111,7 @@ public class SeqTxnTrackerTest {
         TestUtils.assertMemoryLeak(() -> {
             final int threads = 4;
 
-            final SeqTxnTracker tracker = new SeqTxnTracker();
+            final SeqTxnTracker tracker = new SeqTxnTracker(MicrosecondClockImpl.INSTANCE);
             tracker.initTxns(1, 1, false);
             assertTrue(tracker.isInitialised());
 
@@ -129,7 +153,7 @@ public class SeqTxnTrackerTest {
         TestUtils.assertMemoryLeak(() -> {
             final int threads = 4;
 
-            final SeqTxnTracker tracker = new SeqTxnTracker();
+            final SeqTxnTracker tracker = new SeqTxnTracker(MicrosecondClockImpl.INSTANCE);
             tracker.initTxns(1, 1, false);
             assertTrue(tracker.isInitialised());
 
@@ -169,7 +193,7 @@ public class SeqTxnTrackerTest {
     public void testMemoryPressureLevels() {
         final Rnd rnd = TestUtils.generateRandom(LOG);
         final String tableName = "table1";
-        final SeqTxnTracker tracker = new SeqTxnTracker();
+        final SeqTxnTracker tracker = new SeqTxnTracker(MicrosecondClockImpl.INSTANCE);
         assertEquals("initial memory pressure level", 0, tracker.getMemoryPressureLevel());
         tracker.updateInflightPartitions(2);
         tracker.onOutOfMemory(0, tableName, rnd);
@@ -182,7 +206,7 @@ public class SeqTxnTrackerTest {
     public void testMemoryPressureRegulationEasesOffOnSuccess() {
         final Rnd rnd = TestUtils.generateRandom(LOG);
         final String tableName = "table1";
-        final SeqTxnTracker tracker = new SeqTxnTracker();
+        final SeqTxnTracker tracker = new SeqTxnTracker(MicrosecondClockImpl.INSTANCE);
         int expectedParallelism = 16;
         tracker.updateInflightPartitions(expectedParallelism);
         tracker.onOutOfMemory(0, tableName, rnd);
@@ -206,7 +230,7 @@ public class SeqTxnTrackerTest {
     public void testMemoryPressureRegulationGivesUpEventually() {
         final Rnd rnd = TestUtils.generateRandom(LOG);
         final String tableName = "table1";
-        final SeqTxnTracker tracker = new SeqTxnTracker();
+        final SeqTxnTracker tracker = new SeqTxnTracker(MicrosecondClockImpl.INSTANCE);
         int maxFailuresToGiveUp = 10;
         retryBlock:
         {
@@ -223,7 +247,7 @@ public class SeqTxnTrackerTest {
     public void testMemoryPressureRegulationIntroducesBackoff() {
         final Rnd rnd = TestUtils.generateRandom(LOG);
         final String tableName = "table1";
-        final SeqTxnTracker tracker = new SeqTxnTracker();
+        final SeqTxnTracker tracker = new SeqTxnTracker(MicrosecondClockImpl.INSTANCE);
 
         tracker.onOutOfMemory(0, tableName, rnd);
         assertTrue(tracker.shouldBackOffDueToMemoryPressure(0));
@@ -233,7 +257,7 @@ public class SeqTxnTrackerTest {
     public void testMemoryPressureRegulationReducesParallelism() {
         final Rnd rnd = TestUtils.generateRandom(LOG);
         final String tableName = "table1";
-        final SeqTxnTracker tracker = new SeqTxnTracker();
+        final SeqTxnTracker tracker = new SeqTxnTracker(MicrosecondClockImpl.INSTANCE);
         int expectedParallelism = 16;
         tracker.updateInflightPartitions(expectedParallelism);
         while (true) {
@@ -246,4 +270,19 @@ public class SeqTxnTrackerTest {
             assertEquals(expectedParallelism, tracker.getMaxO3MergeParallelism());
         }
     }
+
+    @Test
+    public void testUnappliedTxnCount() {
+        final SeqTxnTracker tracker = new SeqTxnTracker(MicrosecondClockImpl.INSTANCE);
+        tracker.notifyOnCommit(5);
+        // apply job has not reported the writer txn yet
+        assertEquals(0, tracker.getUnappliedTxnCount());
+
+        tracker.updateWriterTxns(2, 2);
+        assertEquals(3, tracker.getUnappliedTxnCount());
+        tracker.notifyOnCommit(7);
+        assertEquals(5, tracker.getUnappliedTxnCount());
+        tracker.updateWriterTxns(7, 7);
+        assertEquals(0, tracker.getUnappliedTxnCount());
+    }
 }
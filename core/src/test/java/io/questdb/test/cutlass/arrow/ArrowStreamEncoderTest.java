@@ -0,0 +1,237 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.arrow;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameAddressCache;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.PageFrameMemoryPool;
+import io.questdb.cairo.sql.PartitionFrameCursorFactory;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cutlass.arrow.ArrowStreamEncoder;
+import io.questdb.std.IntList;
+import io.questdb.std.Unsafe;
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class ArrowStreamEncoderTest extends AbstractCairoTest {
+    private static final int HEADER_DICTIONARY_BATCH = 2;
+    private static final int HEADER_RECORD_BATCH = 3;
+    private static final int HEADER_SCHEMA = 1;
+
+    @Test
+    public void testPageFramesMatchRecords() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (" +
+                    "select" +
+                    " rnd_boolean() b," +
+                    " rnd_byte() bt," +
+                    " rnd_short() sh," +
+                    " rnd_int(0, 1000, 2) i," +
+                    " rnd_long(0, 1000, 2) l," +
+                    " rnd_float(2) f," +
+                    " rnd_double(2) d," +
+                    " rnd_symbol(4, 4, 4, 2) s," +
+                    " rnd_date(to_date('2024', 'yyyy'), to_date('2025', 'yyyy'), 2) dt," +
+                    " timestamp_sequence(0, 1000000) ts" +
+                    " from long_sequence(100)" +
+                    ") timestamp(ts)");
+
+            try (
+                    RecordCursorFactory factory = select("x");
+                    ArrowStreamEncoder encoder = new ArrowStreamEncoder()
+            ) {
+                Assert.assertTrue(ArrowStreamEncoder.supportsPageFrames(factory.getMetadata()));
+                Assert.assertTrue(factory.supportsPageFrameCursor());
+
+                final byte[] fromRecords;
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    encoder.of(factory.getMetadata(), cursor);
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    encodeHeader(encoder, out);
+                    final Record record = cursor.getRecord();
+                    while (cursor.hasNext()) {
+                        encoder.appendRecord(record);
+                    }
+                    encoder.encodeBatch();
+                    drain(encoder, out);
+                    encoder.encodeEndOfStream();
+                    drain(encoder, out);
+                    fromRecords = out.toByteArray();
+                }
+
+                final byte[] fromFrames;
+                try (
+                        PageFrameCursor frameCursor = factory.getPageFrameCursor(sqlExecutionContext, PartitionFrameCursorFactory.ORDER_ASC);
+                        PageFrameMemoryPool frameMemoryPool = new PageFrameMemoryPool(1)
+                ) {
+                    final PageFrameAddressCache frameAddressCache = new PageFrameAddressCache(configuration);
+                    frameAddressCache.of(factory.getMetadata(), frameCursor.getColumnIndexes());
+                    frameMemoryPool.of(frameAddressCache);
+                    encoder.of(factory.getMetadata(), frameCursor);
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    encodeHeader(encoder, out);
+                    int frameIndex = 0;
+                    PageFrame frame;
+                    while ((frame = frameCursor.next()) != null) {
+                        frameAddressCache.add(frameIndex, frame);
+                        encoder.encodeFrame(frameMemoryPool.navigateTo(frameIndex), frameAddressCache.getFrameSize(frameIndex));
+                        frameIndex++;
+                        drain(encoder, out);
+                    }
+                    Assert.assertEquals(1, frameIndex);
+                    encoder.encodeEndOfStream();
+                    drain(encoder, out);
+                    fromFrames = out.toByteArray();
+                }
+
+                Assert.assertArrayEquals(fromRecords, fromFrames);
+
+                final IntList headerTypes = new IntList();
+                final long rowCount = readStream(fromFrames, headerTypes);
+                Assert.assertEquals(100, rowCount);
+                Assert.assertEquals("[1,2,3]", headerTypes.toString());
+            }
+        });
+    }
+
+    @Test
+    public void testRecordBatches() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    RecordCursorFactory factory = select("select x, 'v' || x s, rnd_uuid4() u, cast(x as symbol) sym from long_sequence(25)");
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext);
+                    ArrowStreamEncoder encoder = new ArrowStreamEncoder()
+            ) {
+                Assert.assertFalse(ArrowStreamEncoder.supportsPageFrames(factory.getMetadata()));
+                encoder.of(factory.getMetadata(), cursor);
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                encodeHeader(encoder, out);
+                final Record record = cursor.getRecord();
+                while (cursor.hasNext()) {
+                    encoder.appendRecord(record);
+                    if (encoder.isBatchFull(10)) {
+                        encoder.encodeBatch();
+                        drain(encoder, out);
+                    }
+                }
+                Assert.assertEquals(5, encoder.getBatchRowCount());
+                encoder.encodeBatch();
+                drain(encoder, out);
+                encoder.encodeEndOfStream();
+                drain(encoder, out);
+
+                final IntList headerTypes = new IntList();
+                Assert.assertEquals(25, readStream(out.toByteArray(), headerTypes));
+                // the symbol column of a function cursor has no static symbol table, it is sent as strings
+                Assert.assertEquals("[1,3,3,3]", headerTypes.toString());
+            }
+        });
+    }
+
+    @Test
+    public void testUnsupportedType() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    RecordCursorFactory factory = select("select to_long128(1, 2) v from long_sequence(1)");
+                    ArrowStreamEncoder encoder = new ArrowStreamEncoder()
+            ) {
+                try {
+                    encoder.of(factory.getMetadata(), null);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    Assert.assertTrue(e.getMessage().contains("column type is not supported by Arrow export [column=v, type=LONG128]"));
+                }
+            }
+        });
+    }
+
+    private static void drain(ArrowStreamEncoder encoder, ByteArrayOutputStream out) {
+        while (!encoder.isSent()) {
+            final long address = encoder.getSegmentAddress();
+            // copy in small steps to exercise partial sends
+            final int n = Math.min(encoder.getSegmentRemaining(), 7);
+            for (int i = 0; i < n; i++) {
+                out.write(Unsafe.getUnsafe().getByte(address + i));
+            }
+            encoder.advance(n);
+        }
+    }
+
+    private static void encodeHeader(ArrowStreamEncoder encoder, ByteArrayOutputStream out) {
+        encoder.encodeSchema();
+        drain(encoder, out);
+        while (encoder.encodeNextDictionary()) {
+            drain(encoder, out);
+        }
+    }
+
+    private static int field(ByteBuffer buf, int table, int field) {
+        final int vtable = table - buf.getInt(table);
+        final int vtableSize = buf.getShort(vtable);
+        final int entry = 4 + 2 * field;
+        return entry < vtableSize ? buf.getShort(vtable + entry) : 0;
+    }
+
+    // walks the messages of the stream, returns the total number of rows in record batches
+    private static long readStream(byte[] stream, IntList headerTypes) {
+        final ByteBuffer buf = ByteBuffer.wrap(stream).order(ByteOrder.LITTLE_ENDIAN);
+        long rowCount = 0;
+        int pos = 0;
+        while (true) {
+            Assert.assertEquals(-1, buf.getInt(pos));
+            final int metadataSize = buf.getInt(pos + 4);
+            if (metadataSize == 0) {
+                Assert.assertEquals(stream.length, pos + 8);
+                return rowCount;
+            }
+            Assert.assertEquals(0, metadataSize % 8);
+            final int message = pos + 8;
+            final int root = message + buf.getInt(message);
+            final int headerType = buf.get(root + field(buf, root, 1));
+            final int bodyLengthField = field(buf, root, 3);
+            final long bodyLength = bodyLengthField != 0 ? buf.getLong(root + bodyLengthField) : 0;
+            if (headerType == HEADER_RECORD_BATCH) {
+                final int headerField = root + field(buf, root, 2);
+                final int header = headerField + buf.getInt(headerField);
+                rowCount += buf.getLong(header + field(buf, header, 0));
+            } else {
+                Assert.assertTrue(headerType == HEADER_SCHEMA || headerType == HEADER_DICTIONARY_BATCH);
+            }
+            headerTypes.add(headerType);
+            Assert.assertEquals(0, bodyLength % 8);
+            pos = message + metadataSize + (int) bodyLength;
+        }
+    }
+}
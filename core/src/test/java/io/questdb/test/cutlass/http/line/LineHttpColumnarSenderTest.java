@@ -0,0 +1,177 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.http.line;
+
+import io.questdb.PropertyKey;
+import io.questdb.client.Sender;
+import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.test.AbstractBootstrapTest;
+import io.questdb.test.TestServerMain;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static io.questdb.PropertyKey.DEBUG_FORCE_RECV_FRAGMENTATION_CHUNK_SIZE;
+
+public class LineHttpColumnarSenderTest extends AbstractBootstrapTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        TestUtils.unchecked(() -> createDummyConfiguration());
+        dbPath.parent().$();
+    }
+
+    @Test
+    public void testCastError() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.start();
+                int port = serverMain.getHttpServerPort();
+
+                try (Sender sender = Sender.fromConfig("http::addr=localhost:" + port + ";")) {
+                    sender.table("x").longColumn("v", 1).at(Instant.parse("2024-09-09T14:00:00.000000Z"));
+                }
+
+                try (Sender sender = Sender.fromConfig("http::addr=localhost:" + port + ";protocol_version=2;auto_flush=off;")) {
+                    sender.table("x").stringColumn("v", "a").at(Instant.parse("2024-09-09T14:00:01.000000Z"));
+                    try {
+                        sender.flush();
+                        Assert.fail();
+                    } catch (LineSenderException e) {
+                        TestUtils.assertContains(e.getMessage(), "cast error from protocol type: STRING to column type: LONG");
+                        TestUtils.assertContains(e.getMessage(), "http-status=400");
+                    }
+                }
+
+                serverMain.awaitTable("x");
+                serverMain.assertSql("select v, timestamp from x", "v\ttimestamp\n" +
+                        "1\t2024-09-09T14:00:00.000000Z\n");
+            }
+        });
+    }
+
+    @Test
+    public void testFragmentedBlocks() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables(
+                    DEBUG_FORCE_RECV_FRAGMENTATION_CHUNK_SIZE.getEnvVarName(), "3",
+                    PropertyKey.HTTP_RECEIVE_BUFFER_SIZE.getEnvVarName(), "4096"
+            )) {
+                serverMain.start();
+                int port = serverMain.getHttpServerPort();
+
+                final int rowCount = 10_000;
+                try (Sender sender = Sender.builder(Sender.Transport.HTTP)
+                        .address("localhost:" + port)
+                        .protocolVersion(2)
+                        .autoFlushRows(50)
+                        .build()
+                ) {
+                    for (int i = 0; i < rowCount; i++) {
+                        sender.table("fragmented")
+                                .symbol("tag", "value" + i % 10)
+                                .stringColumn("s", "row" + i)
+                                .longColumn("l", i)
+                                .at(i, ChronoUnit.SECONDS);
+                    }
+                }
+
+                serverMain.awaitTable("fragmented");
+                serverMain.assertSql("select count(), count_distinct(tag), sum(l), max(timestamp) from fragmented",
+                        "count\tcount_distinct\tsum\tmax\n" +
+                                "10000\t10\t49995000\t1970-01-01T02:46:39.000000Z\n");
+            }
+        });
+    }
+
+    @Test
+    public void testProtocolVersionNotSupportedOverTcp() {
+        try {
+            Sender.builder(Sender.Transport.TCP).address("localhost:9009").protocolVersion(2).build();
+            Assert.fail();
+        } catch (LineSenderException e) {
+            TestUtils.assertContains(e.getMessage(), "protocol version 2 is not supported for TCP protocol");
+        }
+        try {
+            Sender.builder(Sender.Transport.HTTP).protocolVersion(3);
+            Assert.fail();
+        } catch (LineSenderException e) {
+            TestUtils.assertContains(e.getMessage(), "unsupported protocol version [protocolVersion=3]");
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.start();
+                int port = serverMain.getHttpServerPort();
+
+                try (Sender sender = Sender.fromConfig("http::addr=localhost:" + port + ";protocol_version=2;auto_flush=off;")) {
+                    sender.table("trades")
+                            .symbol("sym", "AAPL")
+                            .stringColumn("note", "ünïcode")
+                            .longColumn("qty", 10)
+                            .doubleColumn("px", 1.5)
+                            .boolColumn("ok", true)
+                            .timestampColumn("ts2", 1, ChronoUnit.HOURS)
+                            .at(Instant.parse("2024-09-09T14:00:00.000000Z"));
+                    sender.table("quotes")
+                            .symbol("sym", "AAPL")
+                            .doubleColumn("bid", 1.25)
+                            .at(Instant.parse("2024-09-09T14:00:00.000000Z"));
+                    sender.table("trades")
+                            .symbol("sym", "MSFT")
+                            .longColumn("qty", 20)
+                            .at(Instant.parse("2024-09-09T14:00:01.000000Z"));
+                    sender.table("trades")
+                            .symbol("sym", "AAPL")
+                            .stringColumn("note", "x")
+                            .longColumn("qty", 30)
+                            .doubleColumn("px", 2.5)
+                            .boolColumn("ok", false)
+                            .at(Instant.parse("2024-09-09T14:00:02.000000Z"));
+                    sender.flush();
+                }
+
+                serverMain.awaitTable("trades");
+                serverMain.awaitTable("quotes");
+                serverMain.assertSql("select sym, note, qty, px, ok, ts2, timestamp from trades",
+                        "sym\tnote\tqty\tpx\tok\tts2\ttimestamp\n" +
+                                "AAPL\tünïcode\t10\t1.5\ttrue\t1970-01-01T01:00:00.000000Z\t2024-09-09T14:00:00.000000Z\n" +
+                                "MSFT\t\t20\tnull\tfalse\t\t2024-09-09T14:00:01.000000Z\n" +
+                                "AAPL\tx\t30\t2.5\tfalse\t\t2024-09-09T14:00:02.000000Z\n");
+                serverMain.assertSql("select sym, bid, timestamp from quotes",
+                        "sym\tbid\ttimestamp\n" +
+                                "AAPL\t1.25\t2024-09-09T14:00:00.000000Z\n");
+            }
+        });
+    }
+}
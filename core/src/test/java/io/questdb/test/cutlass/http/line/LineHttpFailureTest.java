@@ -27,9 +27,11 @@ package io.questdb.test.cutlass.http.line;
 import io.questdb.Bootstrap;
 import io.questdb.DefaultBootstrapConfiguration;
 import io.questdb.DefaultHttpClientConfiguration;
+import io.questdb.PropertyKey;
 import io.questdb.ServerMain;
 import io.questdb.cairo.TableToken;
 import io.questdb.cairo.pool.PoolListener;
+import io.questdb.cutlass.http.HttpConstants;
 import io.questdb.cutlass.http.client.HttpClient;
 import io.questdb.cutlass.http.client.HttpClientException;
 import io.questdb.cutlass.http.client.HttpClientFactory;
@@ -477,6 +479,80 @@ public class LineHttpFailureTest extends AbstractBootstrapTest {
         });
     }
 
+    @Test
+    public void testWalApplyLagBackPressure() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables(
+                    PropertyKey.DEV_MODE_ENABLED.getEnvVarName(), "true",
+                    PropertyKey.CAIRO_WAL_APPLY_ENABLED.getEnvVarName(), "false",
+                    PropertyKey.CAIRO_WAL_MAX_APPLY_LAG_TXN_COUNT.getEnvVarName(), "1"
+            )) {
+                serverMain.start();
+                String line = "line,sym1=123 field1=123i 1234567890000000000\n";
+
+                try (HttpClient httpClient = HttpClientFactory.newPlainTextInstance(new DefaultHttpClientConfiguration())) {
+                    // nothing applies WAL transactions, so they pile up
+                    assertWriteStatus(serverMain, httpClient, line, "204");
+                    assertWriteStatus(serverMain, httpClient, line, "204");
+
+                    try (
+                            HttpClient.ResponseHeaders resp = httpClient.newRequest("localhost", serverMain.getHttpServerPort()).POST()
+                                    .url("/write ")
+                                    .withContent()
+                                    .putAscii(line)
+                                    .send()
+                    ) {
+                        resp.await();
+                        TestUtils.assertEquals("503", resp.getStatusCode());
+                        TestUtils.assertEquals("1", resp.getHeader(HttpConstants.HEADER_RETRY_AFTER));
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testWalApplyLagSuspendedTable() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables(
+                    PropertyKey.DEV_MODE_ENABLED.getEnvVarName(), "true",
+                    PropertyKey.CAIRO_WAL_MAX_APPLY_LAG_TXN_COUNT.getEnvVarName(), "1"
+            )) {
+                serverMain.start();
+                String line = "line,sym1=123 field1=123i 1234567890000000000\n";
+
+                try (HttpClient httpClient = HttpClientFactory.newPlainTextInstance(new DefaultHttpClientConfiguration())) {
+                    assertWriteStatus(serverMain, httpClient, line, "204");
+                    serverMain.awaitTxn("line", 1);
+
+                    // suspended table won't catch up until resumed, ingestion is not held back
+                    serverMain.compile("alter table line suspend wal");
+                    assertWriteStatus(serverMain, httpClient, line, "204");
+                    assertWriteStatus(serverMain, httpClient, line, "204");
+                    assertWriteStatus(serverMain, httpClient, line, "204");
+
+                    serverMain.compile("alter table line resume wal");
+                    serverMain.awaitTxn("line", 4);
+                    serverMain.assertSql("select count() from line", "count\n" +
+                            "4\n");
+                }
+            }
+        });
+    }
+
+    private static void assertWriteStatus(TestServerMain serverMain, HttpClient httpClient, String line, String expectedStatus) {
+        try (
+                HttpClient.ResponseHeaders resp = httpClient.newRequest("localhost", serverMain.getHttpServerPort()).POST()
+                        .url("/write ")
+                        .withContent()
+                        .putAscii(line)
+                        .send()
+        ) {
+            resp.await();
+            TestUtils.assertEquals(expectedStatus, resp.getStatusCode());
+        }
+    }
+
     @NotNull
     private static AtomicInteger countWalWriterTakenFromPool(TestServerMain serverMain) {
         AtomicInteger walWriterTaken = new AtomicInteger();
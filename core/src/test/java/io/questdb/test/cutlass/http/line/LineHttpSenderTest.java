@@ -408,6 +408,47 @@ public class LineHttpSenderTest extends AbstractBootstrapTest {
         });
     }
 
+    @Test
+    public void testInsertWithIlpHttp_varcharColumnFragmented() throws Exception {
+        Rnd rnd = TestUtils.generateRandom(LOG);
+        TestUtils.assertMemoryLeak(() -> {
+            // lines are split at random places across the receive chunks
+            int fragmentation = 1 + rnd.nextInt(64);
+            LOG.info().$("=== fragmentation=").$(fragmentation).$();
+            try (final TestServerMain serverMain = startWithEnvVariables(
+                    PropertyKey.HTTP_RECEIVE_BUFFER_SIZE.getEnvVarName(), "2048",
+                    DEBUG_FORCE_RECV_FRAGMENTATION_CHUNK_SIZE.getEnvVarName(), String.valueOf(fragmentation)
+            )) {
+                serverMain.start();
+
+                String tableName = "logs";
+                serverMain.ddl("create table " + tableName + " (host symbol, msg varchar, ts timestamp) timestamp(ts) partition by DAY WAL");
+
+                int count = 1000;
+                int port = serverMain.getHttpServerPort();
+                StringBuilder expectedString = new StringBuilder("msg\n");
+                try (Sender sender = Sender.builder(Sender.Transport.HTTP)
+                        .address("localhost:" + port)
+                        .autoFlushRows(Integer.MAX_VALUE) // we want to flush manually
+                        .build()
+                ) {
+                    for (int i = 0; i < count; i++) {
+                        String msg = "GET /index.html \"q=" + i + "\", \\ ok=true Ä" + "x".repeat(i % 100);
+                        sender.table(tableName)
+                                .symbol("host", "host" + i % 7)
+                                .stringColumn("msg", msg)
+                                .atNow();
+                        expectedString.append(msg).append('\n');
+                    }
+                    sender.flush();
+                }
+
+                serverMain.awaitTxn(tableName, 1);
+                serverMain.assertSql("SELECT msg FROM " + tableName, expectedString.toString());
+            }
+        });
+    }
+
     @Test
     public void testLineHttpDisabled() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
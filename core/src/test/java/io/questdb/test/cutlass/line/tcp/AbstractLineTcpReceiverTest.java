@@ -113,6 +113,7 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
     protected NetworkFacade nf = NetworkFacadeImpl.INSTANCE;
     protected int partitionByDefault = PartitionBy.DAY;
     protected boolean useLegacyStringDefault = true;
+    protected String walShardColumn = null;
 
     protected final LineTcpReceiverConfiguration lineConfiguration = new DefaultLineTcpReceiverConfiguration() {
         @Override
@@ -189,6 +190,11 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
             return msgBufferSize;
         }
 
+        @Override
+        public CharSequence getWalShardColumn() {
+            return walShardColumn;
+        }
+
         @Override
         public long getWriterIdleTimeout() {
             return minIdleMsBeforeWriterRelease;
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.line.tcp;
+
+import io.questdb.cutlass.line.LineColumnarFormat;
+import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.cutlass.line.http.LineColumnarBatch;
+import io.questdb.cutlass.line.tcp.LineColumnarParser;
+import io.questdb.cutlass.line.tcp.LineProtocolException;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LineColumnarParserTest {
+
+    @Test
+    public void testCancelRow() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    LineColumnarBatch batch = new LineColumnarBatch();
+                    DirectUtf8Sink sink = new DirectUtf8Sink(256)
+            ) {
+                batch.table("t");
+                batch.stringColumn("s", "keep");
+                batch.at(1);
+                batch.table("t");
+                batch.stringColumn("s", "cancelled");
+                batch.longColumn("l", 42);
+                batch.cancelRow();
+                batch.encode(sink);
+
+                LineColumnarParser parser = new LineColumnarParser();
+                parser.of(sink.ptr(), sink.ptr() + sink.size());
+                Assert.assertEquals(1, parser.getRowCount());
+                // the column first seen in the cancelled row carries no values
+                Assert.assertEquals(2, parser.getColumnCount());
+                TestUtils.assertEquals("keep", parser.getString(0, 0));
+            }
+        });
+    }
+
+    @Test
+    public void testColumnTypeChange() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (LineColumnarBatch batch = new LineColumnarBatch()) {
+                batch.table("t");
+                batch.longColumn("x", 1);
+                batch.at(1);
+                batch.table("t");
+                try {
+                    batch.doubleColumn("x", 1.0);
+                    Assert.fail();
+                } catch (LineSenderException e) {
+                    TestUtils.assertContains(e.getMessage(), "column type cannot change within a batch [table=t, column=x]");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testMalformedBlock() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    LineColumnarBatch batch = new LineColumnarBatch();
+                    DirectUtf8Sink sink = new DirectUtf8Sink(256)
+            ) {
+                batch.table("t");
+                batch.symbol("sym", "a");
+                batch.stringColumn("s", "abc");
+                batch.at(1);
+                batch.encode(sink);
+
+                final long lo = sink.ptr();
+                final long hi = lo + sink.size();
+                final LineColumnarParser parser = new LineColumnarParser();
+
+                // the block is cut short
+                assertMalformed(parser, lo, hi - 1, "truncated block");
+
+                // the block size prefix is negative
+                final int blockSize = Unsafe.getUnsafe().getInt(lo);
+                Unsafe.getUnsafe().putInt(lo, -1);
+                try {
+                    LineColumnarParser.getBlockSize(lo, hi);
+                    Assert.fail();
+                } catch (LineProtocolException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "negative block size");
+                }
+                Unsafe.getUnsafe().putInt(lo, blockSize);
+
+                // the string length exceeds the data, the string column is followed by
+                // its data size, data and then by the designated timestamp column
+                final long stringLengthAddr = hi - Long.BYTES - Byte.BYTES - Integer.BYTES - 3 - Integer.BYTES - Integer.BYTES;
+                Assert.assertEquals(3, Unsafe.getUnsafe().getInt(stringLengthAddr));
+                Unsafe.getUnsafe().putInt(stringLengthAddr, 4);
+                assertMalformed(parser, lo, hi, "string lengths do not match data size");
+            }
+        });
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    LineColumnarBatch batch = new LineColumnarBatch();
+                    DirectUtf8Sink sink = new DirectUtf8Sink(256)
+            ) {
+                batch.table("t");
+                batch.symbol("sym", "ab");
+                batch.stringColumn("s", "héllo");
+                batch.longColumn("l", 42);
+                batch.boolColumn("b", true);
+                batch.at(1_000);
+
+                batch.table("other");
+                batch.doubleColumn("d", 1.5);
+                batch.at(Long.MIN_VALUE);
+
+                batch.table("t");
+                batch.symbol("sym", "cd");
+                batch.doubleColumn("d", 2.5);
+                batch.timestampColumn("ts", 7);
+                batch.at(2_000);
+
+                batch.table("t");
+                batch.symbol("sym", "ab");
+                batch.at(3_000);
+                batch.encode(sink);
+
+                final LineColumnarParser parser = new LineColumnarParser();
+                long lo = sink.ptr();
+                final long hi = lo + sink.size();
+                long blockSize = LineColumnarParser.getBlockSize(lo, hi);
+                parser.of(lo, lo + blockSize);
+
+                TestUtils.assertEquals("t", parser.getTableName());
+                Assert.assertEquals(3, parser.getRowCount());
+                Assert.assertEquals(7, parser.getColumnCount());
+                Assert.assertEquals(6, parser.getTimestampIndex());
+                Assert.assertEquals(LineColumnarFormat.TYPE_DESIGNATED_TIMESTAMP, parser.getColumnType(6));
+
+                TestUtils.assertEquals("sym", parser.getColumnName(0));
+                Assert.assertEquals(LineColumnarFormat.TYPE_SYMBOL, parser.getColumnType(0));
+                TestUtils.assertEquals("ab", parser.getSymbol(0, 0));
+                TestUtils.assertEquals("cd", parser.getSymbol(0, 1));
+                TestUtils.assertEquals("ab", parser.getSymbol(0, 2));
+
+                TestUtils.assertEquals("s", parser.getColumnName(1));
+                TestUtils.assertEquals("héllo", parser.getString(1, 0));
+                Assert.assertNull(parser.getString(1, 1));
+                Assert.assertNull(parser.getString(1, 2));
+
+                Assert.assertEquals(42, parser.getLong(2, 0));
+                Assert.assertEquals(Numbers.LONG_NULL, parser.getLong(2, 1));
+
+                Assert.assertTrue(parser.getBool(3, 0));
+                Assert.assertFalse(parser.getBool(3, 1));
+
+                TestUtils.assertEquals("d", parser.getColumnName(4));
+                Assert.assertTrue(Double.isNaN(parser.getDouble(4, 0)));
+                Assert.assertEquals(2.5, parser.getDouble(4, 1), 0.0);
+
+                Assert.assertEquals(LineColumnarFormat.TYPE_TIMESTAMP, parser.getColumnType(5));
+                Assert.assertEquals(7, parser.getLong(5, 1));
+                Assert.assertEquals(Numbers.LONG_NULL, parser.getLong(5, 2));
+
+                Assert.assertEquals(1_000, parser.getLong(6, 0));
+                Assert.assertEquals(3_000, parser.getLong(6, 2));
+
+                lo += blockSize;
+                blockSize = LineColumnarParser.getBlockSize(lo, hi);
+                Assert.assertEquals(hi, lo + blockSize);
+                parser.of(lo, hi);
+                TestUtils.assertEquals("other", parser.getTableName());
+                Assert.assertEquals(1, parser.getRowCount());
+                Assert.assertEquals(1.5, parser.getDouble(0, 0), 0.0);
+                Assert.assertEquals(Long.MIN_VALUE, parser.getLong(1, 0));
+
+                // the batch is reusable once cleared
+                batch.clear();
+                sink.clear();
+                batch.encode(sink);
+                Assert.assertEquals(0, sink.size());
+            }
+        });
+    }
+
+    private static void assertMalformed(LineColumnarParser parser, long lo, long hi, String expected) {
+        try {
+            parser.of(lo, hi);
+            Assert.fail();
+        } catch (LineProtocolException e) {
+            TestUtils.assertContains(e.getFlyweightMessage(), expected);
+        }
+    }
+}
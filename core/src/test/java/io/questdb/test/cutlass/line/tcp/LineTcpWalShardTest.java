@@ -0,0 +1,87 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.line.tcp;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.wal.seq.TransactionLogCursor;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.IntHashSet;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LineTcpWalShardTest extends AbstractLineTcpReceiverTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        node1.setProperty(PropertyKey.CAIRO_WAL_ENABLED_DEFAULT, true);
+        walShardColumn = "room";
+    }
+
+    @Test
+    public void testRowsAreSpreadAcrossWriterThreads() throws Exception {
+        runInContext((receiver) -> {
+            final StringBuilder lineData = new StringBuilder();
+            for (int i = 0; i < 64; i++) {
+                lineData.append("plug,room=r").append(i).append(" watts=").append(i).append("i ").append((i + 1) * 1_000_000_000L).append('\n');
+            }
+            sendToSocket(lineData.toString());
+
+            TestUtils.assertEventually(() -> {
+                drainWalQueue();
+                try {
+                    assertSql(
+                            "count\tsum\n" +
+                                    "64\t2016\n",
+                            "select count(), sum(watts) from plug"
+                    );
+                } catch (SqlException e) {
+                    throw new AssertionError(e);
+                }
+            });
+
+            // each writer thread committed rows to its own WAL
+            final TableToken tableToken = engine.verifyTableName("plug");
+            final IntHashSet walIds = new IntHashSet();
+            try (TransactionLogCursor cursor = engine.getTableSequencerAPI().getCursor(tableToken, 0)) {
+                while (cursor.hasNext()) {
+                    if (cursor.getWalId() > 0) {
+                        walIds.add(cursor.getWalId());
+                    }
+                }
+            }
+            Assert.assertEquals(2, walIds.size());
+        });
+    }
+
+    @Override
+    protected int getWorkerCount() {
+        return 2;
+    }
+}
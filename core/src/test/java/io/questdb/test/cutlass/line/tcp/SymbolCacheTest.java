@@ -26,6 +26,7 @@ package io.questdb.test.cutlass.line.tcp;
 
 import io.questdb.cairo.AlterTableContextException;
 import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnVectorBatch;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.SecurityContext;
 import io.questdb.cairo.TableReader;
@@ -36,6 +37,7 @@ import io.questdb.cairo.TableWriterAPI;
 import io.questdb.cairo.TxReader;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.sql.TableRecordMetadata;
+import io.questdb.cairo.wal.SharedSymbolCache;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMR;
 import io.questdb.cutlass.line.tcp.DefaultLineTcpReceiverConfiguration;
@@ -441,6 +443,90 @@ public class SymbolCacheTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testSharedCache() throws Exception {
+        String tableName = "tb1";
+        FilesFacade ff = new TestFilesFacadeImpl();
+        TestUtils.assertMemoryLeak(() -> {
+            DefaultLineTcpReceiverConfiguration receiverConfiguration = new DefaultLineTcpReceiverConfiguration() {
+                @Override
+                public long getSymbolCacheWaitBeforeReload() {
+                    return 0;
+                }
+            };
+            try (Path path = new Path();
+                 SymbolCache cache1 = new SymbolCache(receiverConfiguration);
+                 SymbolCache cache2 = new SymbolCache(receiverConfiguration)
+            ) {
+                TableModel model = new TableModel(configuration, tableName, PartitionBy.DAY)
+                        .col("symCol", ColumnType.SYMBOL);
+                AbstractCairoTest.create(model);
+                long mem = Unsafe.malloc(DBCS_MAX_SIZE, MemoryTag.NATIVE_DEFAULT);
+                DirectUtf8String dus = new DirectUtf8String();
+                TableToken tableToken = engine.verifyTableName(tableName);
+                try (
+                        TableWriter writer = newOffPoolWriter(configuration, tableName);
+                        TxReader txReader = new TxReader(ff).ofRO(
+                                path.of(configuration.getDbRoot()).concat(tableToken).concat(TXN_FILE_NAME).$(),
+                                PartitionBy.DAY
+                        )
+                ) {
+                    int symColIndex = writer.getColumnIndex("symCol");
+
+                    TableWriter.Row r = writer.newRow();
+                    r.putSym(symColIndex, "sym1");
+                    r.append();
+                    r = writer.newRow();
+                    r.putSym(symColIndex, "sym2");
+                    r.append();
+                    writer.commit();
+                    txReader.unsafeLoadAll();
+
+                    SharedSymbolCache.ColumnCache sharedCache = new SharedSymbolCache.ColumnCache();
+                    cache1.of(
+                            configuration,
+                            new TestTableWriterAPI(2),
+                            symColIndex,
+                            path.of(configuration.getDbRoot()).concat(tableToken),
+                            "symCol",
+                            symColIndex,
+                            txReader,
+                            -1,
+                            sharedCache
+                    );
+                    // the first user pre-warms the shared cache
+                    Assert.assertEquals(2, sharedCache.size());
+                    Assert.assertEquals(1, sharedCache.keyOf("sym2"));
+
+                    int rc = cache1.keyOf(copyUtf8StringChars("sym2", mem, dus));
+                    Assert.assertEquals(1, rc);
+                    Assert.assertEquals(1, cache1.getCacheValueCount());
+
+                    cache2.of(
+                            configuration,
+                            new TestTableWriterAPI(1),
+                            symColIndex,
+                            path.of(configuration.getDbRoot()).concat(tableToken),
+                            "symCol",
+                            symColIndex,
+                            txReader,
+                            -1,
+                            sharedCache
+                    );
+                    // the key is above the watermark of the second writer
+                    rc = cache2.keyOf(copyUtf8StringChars("sym2", mem, dus));
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, rc);
+                    Assert.assertEquals(0, cache2.getCacheValueCount());
+                    rc = cache2.keyOf(copyUtf8StringChars("sym1", mem, dus));
+                    Assert.assertEquals(0, rc);
+                    Assert.assertEquals(1, cache2.getCacheValueCount());
+                } finally {
+                    Unsafe.free(mem, DBCS_MAX_SIZE, MemoryTag.NATIVE_DEFAULT);
+                }
+            }
+        });
+    }
+
     @Test
     public void testSimpleInteraction() throws Exception {
         String tableName = "tb1";
@@ -797,6 +883,10 @@ public class SymbolCacheTest extends AbstractCairoTest {
         public void addColumn(CharSequence columnName, int columnType, int symbolCapacity, boolean symbolCacheFlag, boolean isIndexed, int indexValueBlockCapacity, boolean isSequential) {
         }
 
+        @Override
+        public void appendColumnBatch(ColumnVectorBatch batch) {
+        }
+
         @Override
         public long apply(AlterOperation alterOp, boolean contextAllowsAnyStructureChanges) throws AlterTableContextException {
             return 0;
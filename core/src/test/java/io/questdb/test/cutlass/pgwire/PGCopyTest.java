@@ -0,0 +1,263 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.pgwire;
+
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.util.PSQLException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.util.Collection;
+
+@RunWith(Parameterized.class)
+public class PGCopyTest extends BasePGTest {
+
+    public PGCopyTest(LegacyMode legacyMode) {
+        super(legacyMode);
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> testParams() {
+        return legacyModeParams();
+    }
+
+    @Test
+    public void testCopyFromStdinBinary() throws Exception {
+        skipInLegacyMode();
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            execute("create table x (a int, s varchar, ts timestamp) timestamp(ts) partition by day wal");
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.write("PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1));
+                out.writeInt(0);
+                out.writeInt(0);
+                // 2024-01-01T00:00:00Z in microseconds since 2000-01-01
+                final long ts = 757382400000000L;
+                for (int i = 0; i < 2; i++) {
+                    out.writeShort(3);
+                    out.writeInt(4);
+                    out.writeInt(i + 1);
+                    if (i == 0) {
+                        final byte[] s = "héllo".getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(s.length);
+                        out.write(s);
+                    } else {
+                        out.writeInt(-1);
+                    }
+                    out.writeInt(8);
+                    out.writeLong(ts + i * 1_000_000L);
+                }
+                out.writeShort(-1);
+            }
+
+            final CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            final long rows = copyManager.copyIn("COPY x FROM STDIN (FORMAT binary)", new ByteArrayInputStream(bytes.toByteArray()));
+            Assert.assertEquals(2, rows);
+
+            drainWalQueue();
+            assertSql(
+                    "a\ts\tts\n" +
+                            "1\théllo\t2024-01-01T00:00:00.000000Z\n" +
+                            "2\t\t2024-01-01T00:00:01.000000Z\n",
+                    "x"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyFromStdinCsv() throws Exception {
+        skipInLegacyMode();
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            execute("create table x (a int, s string, ts timestamp) timestamp(ts) partition by day wal");
+
+            final CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            final long rows = copyManager.copyIn(
+                    "COPY x (ts, s, a) FROM STDIN WITH (FORMAT csv, HEADER true)",
+                    new StringReader(
+                            "ts,s,a\n" +
+                                    "2024-01-01T00:00:00.000000Z,\"a,b\",1\r\n" +
+                                    "2024-01-01T00:00:01.000000Z,\"say \"\"hi\"\"\n\",2\n" +
+                                    "2024-01-01T00:00:02.000000Z,,3\n" +
+                                    "2024-01-01T00:00:03.000000Z,\"\",\n"
+                    )
+            );
+            Assert.assertEquals(4, rows);
+
+            drainWalQueue();
+            assertSql(
+                    "a\ts\tts\n" +
+                            "1\ta,b\t2024-01-01T00:00:00.000000Z\n" +
+                            "2\tsay \"hi\"\n\t2024-01-01T00:00:01.000000Z\n" +
+                            "3\t\t2024-01-01T00:00:02.000000Z\n" +
+                            "null\t\t2024-01-01T00:00:03.000000Z\n",
+                    "x"
+            );
+            assertSql("count\n1\n", "select count() from x where s = ''");
+        });
+    }
+
+    @Test
+    public void testCopyFromStdinInvalidValueRollsBack() throws Exception {
+        skipInLegacyMode();
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            execute("create table x (a int, ts timestamp) timestamp(ts) partition by day wal");
+
+            final CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                copyManager.copyIn(
+                        "COPY x FROM STDIN",
+                        new StringReader("1\t2024-01-01T00:00:00.000000Z\nabc\t2024-01-01T00:00:01.000000Z\n")
+                );
+                Assert.fail();
+            } catch (PSQLException e) {
+                TestUtils.assertContains(e.getMessage(), "abc");
+            }
+
+            // the connection is usable after the failed copy
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("insert into x values (2, '2024-01-01T00:00:02.000000Z')");
+            }
+
+            drainWalQueue();
+            assertSql(
+                    "a\tts\n" +
+                            "2\t2024-01-01T00:00:02.000000Z\n",
+                    "x"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyFromStdinMatViewFails() throws Exception {
+        skipInLegacyMode();
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            execute("create table x (a int, ts timestamp) timestamp(ts) partition by day wal");
+            execute("create materialized view x_1h as (select sum(a) a, ts from x sample by 1h) partition by day");
+
+            final CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                copyManager.copyIn(
+                        "COPY x_1h FROM STDIN",
+                        new StringReader("1\t2024-01-01T00:00:00.000000Z\n")
+                );
+                Assert.fail();
+            } catch (PSQLException e) {
+                TestUtils.assertContains(e.getMessage(), "cannot modify materialized view [view=x_1h]");
+            }
+
+            drainWalQueue();
+            assertSql("count\n0\n", "select count() from x_1h");
+        });
+    }
+
+    @Test
+    public void testCopyFromStdinText() throws Exception {
+        skipInLegacyMode();
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            execute("create table x (a int, b boolean, s symbol, v varchar, d double, ts timestamp) timestamp(ts) partition by day wal");
+
+            final CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            final long rows = copyManager.copyIn(
+                    "COPY x FROM STDIN",
+                    new StringReader(
+                            "1\tt\tsym1\ttab\\there\t1.5\t2024-01-01T00:00:00.000000Z\n" +
+                                    "\\N\tf\t\\N\tline\\nbreak\t\\N\t2024-01-01T00:00:01.000000Z\n" +
+                                    "\\.\n"
+                    )
+            );
+            Assert.assertEquals(2, rows);
+
+            drainWalQueue();
+            assertSql(
+                    "a\tb\ts\tv\td\tts\n" +
+                            "1\ttrue\tsym1\ttab\there\t1.5\t2024-01-01T00:00:00.000000Z\n" +
+                            "null\tfalse\t\tline\nbreak\tnull\t2024-01-01T00:00:01.000000Z\n",
+                    "x"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyToStdoutCsv() throws Exception {
+        skipInLegacyMode();
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            execute("create table x as (" +
+                    "select x::int a, case when x = 2 then null else 'v,' || x end s, timestamp_sequence('2024-01-01', 1000000) ts " +
+                    "from long_sequence(3)" +
+                    ") timestamp(ts) partition by day");
+
+            final CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            final StringWriter writer = new StringWriter();
+            final long rows = copyManager.copyOut("COPY (select a, s from x where a > 1) TO STDOUT WITH (FORMAT csv, HEADER)", writer);
+            Assert.assertEquals(2, rows);
+            Assert.assertEquals(
+                    "a,s\n" +
+                            "2,\n" +
+                            "3,\"v,3\"\n",
+                    writer.toString()
+            );
+        });
+    }
+
+    @Test
+    public void testCopyToStdoutText() throws Exception {
+        skipInLegacyMode();
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            execute("create table x as (" +
+                    "select x::int a, case when x = 2 then null else 'a\tb\\' || x end s, timestamp_sequence('2024-01-01', 1000000) ts " +
+                    "from long_sequence(3)" +
+                    ") timestamp(ts) partition by day");
+
+            final CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            final StringWriter writer = new StringWriter();
+            final long rows = copyManager.copyOut("COPY x TO STDOUT", writer);
+            Assert.assertEquals(3, rows);
+            Assert.assertEquals(
+                    "1\ta\\tb\\\\1\t2024-01-01 00:00:00.000000\n" +
+                            "2\t\\N\t2024-01-01 00:00:01.000000\n" +
+                            "3\ta\\tb\\\\3\t2024-01-01 00:00:02.000000\n",
+                    writer.toString()
+            );
+
+            // the connection is usable after the copy
+            try (Statement statement = connection.createStatement()) {
+                Assert.assertTrue(statement.execute("select count() from x"));
+            }
+        });
+    }
+}
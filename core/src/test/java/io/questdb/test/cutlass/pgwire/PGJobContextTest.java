@@ -98,6 +98,7 @@ import org.postgresql.util.PSQLException;
 
 import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.sql.BatchUpdateException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -4052,6 +4053,48 @@ if __name__ == "__main__":
         testFetchDisconnectReleasesReader(query);
     }
 
+    @Test
+    public void testFetchPortalPrefetch() throws Exception {
+        Assume.assumeFalse(legacyMode); // only modern PGWire server prefetches portal rows
+        // fetch works only in extended query mode
+        assertWithPgServer(CONN_AWARE_EXTENDED, (connection, binary, mode, port) -> {
+            connection.setAutoCommit(false);
+            try (PreparedStatement pstmt = connection.prepareStatement(
+                    "create table xx as (" +
+                            "select x, rnd_str(100, 100, 0) s" +
+                            " from long_sequence(55000) )")) {
+                pstmt.execute();
+            }
+            final long prefetchedRowCount = configuration.getMetrics().pgWireMetrics().portalPrefetchedRowCount();
+            final long fetchCount = configuration.getMetrics().pgWireMetrics().portalFetchCount();
+            // a batch of 10k rows does not fit the 1MB prefetch buffer, the Execute encodes the rest
+            try (PreparedStatement statement = connection.prepareStatement("select * from xx")) {
+                statement.setFetchSize(10_000);
+                try (ResultSet rs = statement.executeQuery()) {
+                    long count = 0;
+                    while (rs.next()) {
+                        Assert.assertEquals(++count, rs.getLong(1));
+                        Assert.assertEquals(100, rs.getString(2).length());
+                    }
+                    Assert.assertEquals(55_000, count);
+                }
+            }
+            // a batch of 1k rows is encoded ahead of the Execute in full
+            try (PreparedStatement statement = connection.prepareStatement("select x from xx where x > 50000")) {
+                statement.setFetchSize(1_000);
+                try (ResultSet rs = statement.executeQuery()) {
+                    long count = 50_000;
+                    while (rs.next()) {
+                        Assert.assertEquals(++count, rs.getLong(1));
+                    }
+                    Assert.assertEquals(55_000, count);
+                }
+            }
+            Assert.assertTrue(configuration.getMetrics().pgWireMetrics().portalPrefetchedRowCount() > prefetchedRowCount);
+            Assert.assertTrue(configuration.getMetrics().pgWireMetrics().portalFetchCount() >= fetchCount + 11);
+        });
+    }
+
     @Test
     public void testFetchTablePartitions() throws Exception {
         assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
@@ -6494,6 +6537,102 @@ nodejs code:
         );
     }
 
+    @Test
+    public void testLargeBatchInsertMethodAutoCommit() throws Exception {
+        skipOnWalRun(); // non-partitioned table
+
+        assertWithPgServer(
+                CONN_AWARE_EXTENDED,
+                (connection, binary, mode, port) -> {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.executeUpdate("create table test_large_batch(id long,val int)");
+                    }
+                    final int rowCount = 20_000;
+                    try (PreparedStatement batchInsert = connection.prepareStatement("insert into test_large_batch(id,val) values(?,?)")) {
+                        // pipelined Bind/Execute pairs of a named statement are batched into a single pipeline entry,
+                        // their acknowledgements exceed the send buffer
+                        for (int j = 0; j < 2; j++) {
+                            for (int i = 0; i < rowCount; i++) {
+                                batchInsert.clearParameters();
+                                batchInsert.setLong(1, i);
+                                batchInsert.setInt(2, j);
+                                batchInsert.addBatch();
+                            }
+                            int[] counts = batchInsert.executeBatch();
+                            Assert.assertEquals(rowCount, counts.length);
+                            for (int i = 0; i < rowCount; i++) {
+                                Assert.assertEquals(1, counts[i]);
+                            }
+                        }
+                    }
+
+                    StringSink sink = new StringSink();
+                    String expected = "val[INTEGER],count[BIGINT],sum[BIGINT],min[BIGINT],max[BIGINT]\n" +
+                            "0,20000,199990000,0,19999\n" +
+                            "1,20000,199990000,0,19999\n";
+                    Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery("select val, count(*), sum(id), min(id), max(id) from test_large_batch order by val");
+                    assertResultSet(expected, sink, rs);
+                },
+                () -> {
+                    // Small fragmentation chunk makes this test very slow. Set the fragmentation to be near the send buffer size.
+                    forceSendFragmentationChunkSize = Math.max(1024, forceSendFragmentationChunkSize);
+                }
+        );
+    }
+
+    @Test
+    public void testLargeBatchInsertMethodRowFails() throws Exception {
+        skipOnWalRun(); // non-partitioned table
+
+        assertWithPgServer(CONN_AWARE_EXTENDED, (connection, binary, mode, port) -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("create table test_large_batch(id long, val int, ts timestamp) timestamp(ts)");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement batchInsert = connection.prepareStatement("insert into test_large_batch(id,val,ts) values(?,?,?)")) {
+                for (int i = 0; i < 5; i++) {
+                    batchInsert.clearParameters();
+                    batchInsert.setLong(1, i);
+                    batchInsert.setInt(2, 1);
+                    // the row in the middle of the batch fails
+                    batchInsert.setLong(3, i == 2 ? -100 : i);
+                    batchInsert.addBatch();
+                }
+
+                try {
+                    batchInsert.executeBatch();
+                    Assert.fail();
+                } catch (BatchUpdateException e) {
+                    // the rows before the failed one are acknowledged with BindComplete and CommandComplete,
+                    // the driver reports the index of the first unacknowledged entry
+                    TestUtils.assertContains(e.getMessage(), "Batch entry 2 ");
+                    TestUtils.assertContains(e.getMessage(), "timestamp before 1970-01-01 is not allowed");
+                    connection.rollback();
+                }
+
+                // the connection is usable after the failed batch
+                for (int i = 0; i < 5; i++) {
+                    batchInsert.clearParameters();
+                    batchInsert.setLong(1, i);
+                    batchInsert.setInt(2, 2);
+                    batchInsert.setLong(3, i);
+                    batchInsert.addBatch();
+                }
+                int[] counts = batchInsert.executeBatch();
+                Assert.assertEquals(5, counts.length);
+                connection.commit();
+            }
+
+            StringSink sink = new StringSink();
+            String expected = "val[INTEGER],count[BIGINT]\n" +
+                    "2,5\n";
+            Statement statement = connection.createStatement();
+            ResultSet rs = statement.executeQuery("select val, count(*) from test_large_batch order by val");
+            assertResultSet(expected, sink, rs);
+        });
+    }
+
     @Test
     public void testLargeOutput() throws Exception {
         skipOnWalRun(); // non-partitioned table
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CursorPrinter;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GroupBySpillTest extends AbstractCairoTest {
+    private static final int ROW_COUNT = 100_000;
+
+    @Before
+    public void setUp() {
+        // spill is only supported by the single-threaded GROUP BY
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_ENABLED, "false");
+        setProperty(PropertyKey.CAIRO_SQL_SPILL_PARTITION_COUNT, 4);
+        super.setUp();
+    }
+
+    @Test
+    public void testCursorToTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            setProperty(PropertyKey.CAIRO_SQL_SPILL_MEMORY_BUDGET, 4096);
+            try (
+                    RecordCursorFactory factory = select("select k, count(), sum(v) from x");
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                Assert.assertFalse(factory.recordCursorSupportsRandomAccess());
+                Assert.assertEquals(-1, cursor.size());
+
+                final StringSink firstPass = new StringSink();
+                CursorPrinter.println(cursor, factory.getMetadata(), firstPass);
+                cursor.toTop();
+                TestUtils.assertCursor(firstPass, cursor, factory.getMetadata(), true, sink);
+
+                cursor.toTop();
+                final RecordCursor.Counter counter = new RecordCursor.Counter();
+                cursor.calculateSize(sqlExecutionContext.getCircuitBreaker(), counter);
+                Assert.assertEquals(1000, counter.get());
+            }
+        });
+    }
+
+    @Test
+    public void testLongKey() throws Exception {
+        assertSpillMatchesInMemory("select k, count(), sum(v), min(v), max(v) from x order by k");
+    }
+
+    @Test
+    public void testNoSpillUnderBudget() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            setProperty(PropertyKey.CAIRO_SQL_SPILL_MEMORY_BUDGET, Integer.MAX_VALUE);
+            assertSql(
+                    "count\n" +
+                            "1000\n",
+                    "select count() from (select k, count() from x)"
+            );
+        });
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        assertMemoryLeak(() -> {
+            setProperty(PropertyKey.CAIRO_SQL_SPILL_MEMORY_BUDGET, 4096);
+            execute("create table y (k long, v long)");
+            assertPlanNoLeakCheck(
+                    "select k, sum(v) from y",
+                    "GroupBy vectorized: false spill: true\n" +
+                            "  keys: [k]\n" +
+                            "  values: [sum(v)]\n" +
+                            "    PageFrame\n" +
+                            "        Row forward scan\n" +
+                            "        Frame forward scan on: y\n"
+            );
+        });
+    }
+
+    @Test
+    public void testPlanParallelGroupByEnabled() throws Exception {
+        assertMemoryLeak(() -> {
+            setProperty(PropertyKey.CAIRO_SQL_SPILL_MEMORY_BUDGET, 4096);
+            sqlExecutionContext.setParallelGroupByEnabled(true);
+            try {
+                execute("create table y (k long, v long)");
+                // the memory budget keeps keyed GROUP BY single-threaded, since only that factory spills
+                assertPlanNoLeakCheck(
+                        "select k, sum(v) from y",
+                        "GroupBy vectorized: false spill: true\n" +
+                                "  keys: [k]\n" +
+                                "  values: [sum(v)]\n" +
+                                "    PageFrame\n" +
+                                "        Row forward scan\n" +
+                                "        Frame forward scan on: y\n"
+                );
+            } finally {
+                sqlExecutionContext.setParallelGroupByEnabled(false);
+            }
+        });
+    }
+
+    @Test
+    public void testVarcharKey() throws Exception {
+        assertSpillMatchesInMemory("select s, count(), sum(v), first(v), last(v) from x order by s");
+    }
+
+    private void assertSpillMatchesInMemory(String query) throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final StringSink expected = new StringSink();
+            printSql(query, expected);
+
+            setProperty(PropertyKey.CAIRO_SQL_SPILL_MEMORY_BUDGET, 4096);
+            printSql(query);
+            TestUtils.assertEquals(expected, sink);
+        });
+    }
+
+    private void createTable() throws Exception {
+        execute(
+                "create table x as (" +
+                        "  select" +
+                        "    (x * 7919) % 1000 k," +
+                        "    ('key_' || ((x * 7919) % 1000))::varchar s," +
+                        "    x v" +
+                        "  from long_sequence(" + ROW_COUNT + ")" +
+                        ")"
+        );
+    }
+}
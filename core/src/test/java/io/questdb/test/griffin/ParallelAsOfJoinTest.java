@@ -0,0 +1,229 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.WorkerPool;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static io.questdb.PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT;
+
+@RunWith(Parameterized.class)
+public class ParallelAsOfJoinTest extends AbstractCairoTest {
+    private static final int PAGE_FRAME_COUNT = 4; // also used to set queue size, so must be a power of 2
+    private static final int PAGE_FRAME_MAX_ROWS = 1000;
+    private static final int ROW_COUNT = 10 * PAGE_FRAME_MAX_ROWS;
+    private final boolean convertToParquet;
+
+    public ParallelAsOfJoinTest(boolean convertToParquet) {
+        this.convertToParquet = convertToParquet;
+    }
+
+    @Parameterized.Parameters(name = "parquet={0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+                {true},
+                {false},
+        });
+    }
+
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_ASOFJOIN_ENABLED, "true");
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, PAGE_FRAME_MAX_ROWS);
+        // We intentionally use small values for shard count and reduce
+        // queue capacity to exhibit various edge cases.
+        setProperty(CAIRO_PAGE_FRAME_SHARD_COUNT, 2);
+        setProperty(PropertyKey.CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY, PAGE_FRAME_COUNT);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD, 1);
+        super.setUp();
+    }
+
+    @Test
+    public void testAsOfJoinIntKey() throws Exception {
+        testParallelAsOfJoin(
+                "select x.ts, x.l, y.ts, y.v from x asof join y on (l)",
+                "select x.ts, x.l, y.ts, y.v from x asof join (select * from y where v > 0) y on (l)"
+        );
+    }
+
+    @Test
+    public void testAsOfJoinNoKey() throws Exception {
+        testParallelAsOfJoin(
+                "select x.ts, x.v, y.ts, y.v from x asof join y",
+                "select x.ts, x.v, y.ts, y.v from x asof join (select * from y where v > 0) y"
+        );
+    }
+
+    @Test
+    public void testAsOfJoinSymbolKey() throws Exception {
+        testParallelAsOfJoin(
+                "select x.ts, x.s, y.ts, y.s, y.v from x asof join y on (s)",
+                "select x.ts, x.s, y.ts, y.s, y.v from x asof join (select * from y where v > 0) y on (s)"
+        );
+    }
+
+    @Test
+    public void testEmptySlave() throws Exception {
+        testParallelAsOfJoin(
+                "select x.ts, x.v, y.ts, y.v from x asof join (select * from y where ts < 0) y on (l)",
+                "select x.ts, x.v, y.ts, y.v from x asof join (select * from y where v < 0) y on (l)"
+        );
+    }
+
+    @Test
+    public void testLtJoinIntKey() throws Exception {
+        testParallelAsOfJoin(
+                "select x.ts, x.l, y.ts, y.v from x lt join y on (l)",
+                "select x.ts, x.l, y.ts, y.v from x lt join (select * from y where v > 0) y on (l)"
+        );
+    }
+
+    @Test
+    public void testLtJoinNoKey() throws Exception {
+        testParallelAsOfJoin(
+                "select x.ts, x.v, y.ts, y.v from x lt join y",
+                "select x.ts, x.v, y.ts, y.v from x lt join (select * from y where v > 0) y"
+        );
+    }
+
+    @Test
+    public void testMasterOrderIsPreserved() throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTables(engine, sqlExecutionContext);
+                    try (
+                            RecordCursorFactory factory = compiler.compile("select x.v, y.v from x asof join y on (l)", sqlExecutionContext).getRecordCursorFactory();
+                            RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+                    ) {
+                        final Record record = cursor.getRecord();
+                        for (int i = 0; i < 2; i++) {
+                            long count = 0;
+                            while (cursor.hasNext()) {
+                                Assert.assertEquals(++count, record.getLong(0));
+                            }
+                            Assert.assertEquals(ROW_COUNT, count);
+                            cursor.toTop();
+                        }
+                    }
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTables(engine, sqlExecutionContext);
+                    TestUtils.printSql(engine, sqlExecutionContext, "explain select * from x asof join y on (l)", sink);
+                    TestUtils.assertContains(sink, "Async AsOf Join workers: 4");
+                    TestUtils.assertContains(sink, "condition: y.l=x.l");
+
+                    TestUtils.printSql(engine, sqlExecutionContext, "explain select * from x lt join y", sink);
+                    TestUtils.assertContains(sink, "Async Lt Join workers: 4");
+
+                    // the slave doesn't support page frames
+                    TestUtils.printSql(engine, sqlExecutionContext, "explain select * from x asof join (select * from y where v > 0) y", sink);
+                    Assert.assertEquals(-1, sink.toString().indexOf("Async AsOf Join"));
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testSlaveStartsAfterMaster() throws Exception {
+        testParallelAsOfJoin(
+                "select x.ts, x.v, y.ts, y.v from x asof join (select * from y where ts > '1970-01-01T01:00:00') y on (l)",
+                "select x.ts, x.v, y.ts, y.v from x asof join (select * from y where ts > '1970-01-01T01:00:00' and v > 0) y on (l)"
+        );
+    }
+
+    private static void createTables(CairoEngine engine, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        engine.execute(
+                "create table x as (" +
+                        "  select" +
+                        "    (x * 1000000)::timestamp ts," +
+                        "    (x * 7919) % 101 l," +
+                        "    rnd_symbol('a','b','c','d') s," +
+                        "    x v" +
+                        "  from long_sequence(" + ROW_COUNT + ")" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+        engine.execute(
+                "create table y as (" +
+                        "  select" +
+                        // every other master timestamp has an exact slave match
+                        "    (x * 2000000)::timestamp ts," +
+                        // some of the master keys are missing
+                        "    (x * 13) % 97 l," +
+                        "    rnd_symbol('a','b','c') s," +
+                        "    x v" +
+                        "  from long_sequence(" + (ROW_COUNT / 2) + ")" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private void testParallelAsOfJoin(String query, String expectedQuery) throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTables(engine, sqlExecutionContext);
+                    if (convertToParquet) {
+                        engine.execute("alter table x convert partition to parquet where ts >= 0", sqlExecutionContext);
+                        engine.execute("alter table y convert partition to parquet where ts >= 0", sqlExecutionContext);
+                    }
+                    TestUtils.assertSqlCursors(engine, sqlExecutionContext, expectedQuery, query, LOG);
+                },
+                configuration,
+                LOG
+        );
+    }
+}
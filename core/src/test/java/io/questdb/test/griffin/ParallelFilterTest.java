@@ -439,6 +439,48 @@ public class ParallelFilterTest extends AbstractCairoTest {
         testInTimestamp(SqlJitMode.JIT_MODE_ENABLED);
     }
 
+    @Test
+    public void testPageFramePrefetch() throws Exception {
+        Assume.assumeTrue(ioURingFacade.isAvailable());
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_PREFETCH_ENABLED, "true");
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_PREFETCH_FRAMES, 2);
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_PREFETCH_QUEUE_DEPTH, 4);
+        WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    engine.execute(
+                            "CREATE TABLE x (" +
+                                    "  ts TIMESTAMP," +
+                                    "  id LONG," +
+                                    "  s VARCHAR" +
+                                    ") timestamp (ts) PARTITION BY HOUR;",
+                            sqlExecutionContext
+                    );
+                    engine.execute(
+                            "insert into x select (x * 1000000)::timestamp, x, 'v' || (x % 10) from long_sequence(10000)",
+                            sqlExecutionContext
+                    );
+                    if (convertToParquet) {
+                        engine.execute("alter table x convert partition to parquet where ts >= 0", sqlExecutionContext);
+                    }
+
+                    for (int i = 0; i < 3; i++) {
+                        TestUtils.assertSql(
+                                engine,
+                                sqlExecutionContext,
+                                "select count(), sum(id) from x where s = 'v3'",
+                                sink,
+                                "count\tsum\n" +
+                                        "1000\t4998000\n"
+                        );
+                    }
+                },
+                configuration,
+                LOG
+        );
+    }
+
     @Test
     public void testParallelStressSymbolMultipleThreadsMultipleWorkersJitDisabled() throws Exception {
         testParallelStressSymbol(symbolQueryNoLimit, expectedSymbolNoLimit, 4, 4, SqlJitMode.JIT_MODE_DISABLED);
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.WorkerPool;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static io.questdb.PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT;
+
+@RunWith(Parameterized.class)
+public class ParallelHashJoinTest extends AbstractCairoTest {
+    private static final int PAGE_FRAME_COUNT = 4; // also used to set queue size, so must be a power of 2
+    private static final int PAGE_FRAME_MAX_ROWS = 1000;
+    private static final int ROW_COUNT = 10 * PAGE_FRAME_MAX_ROWS;
+    private final boolean convertToParquet;
+
+    public ParallelHashJoinTest(boolean convertToParquet) {
+        this.convertToParquet = convertToParquet;
+    }
+
+    @Parameterized.Parameters(name = "parquet={0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+                {true},
+                {false},
+        });
+    }
+
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_HASHJOIN_ENABLED, "true");
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_HASHJOIN_BUILD_THRESHOLD, PAGE_FRAME_MAX_ROWS);
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, PAGE_FRAME_MAX_ROWS);
+        // We intentionally use small values for shard count and reduce
+        // queue capacity to exhibit various edge cases.
+        setProperty(CAIRO_PAGE_FRAME_SHARD_COUNT, 2);
+        setProperty(PropertyKey.CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY, PAGE_FRAME_COUNT);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD, 1);
+        super.setUp();
+    }
+
+    @Test
+    public void testEmptyMaster() throws Exception {
+        testParallelHashJoin(
+                "select x.ts, x.l, y.v from (select * from x where ts < 0) x join y on (l) order by x.ts, y.v",
+                "select x.ts, x.l, y.v from (select * from x where ts < 0) x join (select * from y where v > 0) y on (l) order by x.ts, y.v"
+        );
+    }
+
+    @Test
+    public void testFallbackToSingleThreadedJoin() throws Exception {
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_HASHJOIN_BUILD_THRESHOLD, 10 * ROW_COUNT);
+        testParallelHashJoin(
+                "select x.ts, x.l, y.v from x join y on (l) order by x.ts, y.v",
+                "select x.ts, x.l, y.v from x join (select * from y where v > 0) y on (l) order by x.ts, y.v"
+        );
+    }
+
+    @Test
+    public void testIntKeyWithNulls() throws Exception {
+        testParallelHashJoin(
+                "select x.ts, x.i, y.v from x join y on (i) order by x.ts, y.v",
+                "select x.ts, x.i, y.v from x join (select * from y where v > 0) y on (i) order by x.ts, y.v"
+        );
+    }
+
+    @Test
+    public void testLongKey() throws Exception {
+        testParallelHashJoin(
+                "select x.ts, x.l, y.v from x join y on (l) order by x.ts, y.v",
+                "select x.ts, x.l, y.v from x join (select * from y where v > 0) y on (l) order by x.ts, y.v"
+        );
+    }
+
+    @Test
+    public void testMasterOrderIsPreserved() throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTables(engine, sqlExecutionContext);
+                    try (
+                            RecordCursorFactory factory = compiler.compile("select x.v, y.v from x join y on (l)", sqlExecutionContext).getRecordCursorFactory();
+                            RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+                    ) {
+                        final Record record = cursor.getRecord();
+                        for (int i = 0; i < 2; i++) {
+                            long count = 0;
+                            long prev = Long.MIN_VALUE;
+                            while (cursor.hasNext()) {
+                                final long v = record.getLong(0);
+                                Assert.assertTrue(v >= prev);
+                                prev = v;
+                                count++;
+                            }
+                            Assert.assertTrue(count > 0);
+                            cursor.toTop();
+                        }
+                    }
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTables(engine, sqlExecutionContext);
+                    TestUtils.printSql(engine, sqlExecutionContext, "explain select * from x join y on (l)", sink);
+                    TestUtils.assertContains(sink, "Async Hash Join Light workers: 4");
+                    TestUtils.assertContains(sink, "condition: y.l=x.l");
+
+                    // symbol keys are not supported
+                    TestUtils.printSql(engine, sqlExecutionContext, "explain select * from x join y on (s)", sink);
+                    Assert.assertEquals(-1, sink.toString().indexOf("Async Hash Join"));
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testTimestampKey() throws Exception {
+        testParallelHashJoin(
+                "select x.v, y.v from x join y on x.ts = y.ts order by x.v, y.v",
+                "select x.v, y.v from x join (select * from y where v > 0) y on x.ts = y.ts order by x.v, y.v"
+        );
+    }
+
+    private static void createTables(CairoEngine engine, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        engine.execute(
+                "create table x as (" +
+                        "  select" +
+                        "    (x * 1000000)::timestamp ts," +
+                        // keys shuffled across all frames
+                        "    (x * 7919) % 1009 l," +
+                        "    case when x % 97 = 0 then null else ((x * 31) % 503)::int end i," +
+                        "    rnd_symbol('a','b','c') s," +
+                        "    x v" +
+                        "  from long_sequence(" + ROW_COUNT + ")" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+        engine.execute(
+                "create table y as (" +
+                        "  select" +
+                        "    (x * 2000000)::timestamp ts," +
+                        // some of the master keys are missing
+                        "    (x * 13) % 997 l," +
+                        "    case when x % 89 = 0 then null else ((x * 17) % 509)::int end i," +
+                        "    rnd_symbol('a','b','c') s," +
+                        "    x v" +
+                        "  from long_sequence(" + (ROW_COUNT / 2) + ")" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private void testParallelHashJoin(String query, String expectedQuery) throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTables(engine, sqlExecutionContext);
+                    if (convertToParquet) {
+                        engine.execute("alter table x convert partition to parquet where ts >= 0", sqlExecutionContext);
+                        engine.execute("alter table y convert partition to parquet where ts >= 0", sqlExecutionContext);
+                    }
+                    TestUtils.assertSqlCursors(engine, sqlExecutionContext, expectedQuery, query, LOG);
+                },
+                configuration,
+                LOG
+        );
+    }
+}
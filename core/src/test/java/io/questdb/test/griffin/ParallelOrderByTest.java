@@ -0,0 +1,216 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.WorkerPool;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static io.questdb.PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT;
+
+@RunWith(Parameterized.class)
+public class ParallelOrderByTest extends AbstractCairoTest {
+    private static final int PAGE_FRAME_COUNT = 4; // also used to set queue size, so must be a power of 2
+    private static final int PAGE_FRAME_MAX_ROWS = 1000;
+    private static final int ROW_COUNT = 10 * PAGE_FRAME_MAX_ROWS;
+    private final boolean convertToParquet;
+
+    public ParallelOrderByTest(boolean convertToParquet) {
+        this.convertToParquet = convertToParquet;
+    }
+
+    @Parameterized.Parameters(name = "parquet={0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+                {true},
+                {false},
+        });
+    }
+
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_ORDERBY_ENABLED, "true");
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, PAGE_FRAME_MAX_ROWS);
+        // We intentionally use small values for shard count and reduce
+        // queue capacity to exhibit various edge cases.
+        setProperty(CAIRO_PAGE_FRAME_SHARD_COUNT, 2);
+        setProperty(PropertyKey.CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY, PAGE_FRAME_COUNT);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD, 1);
+        super.setUp();
+    }
+
+    @Test
+    public void testEmptyResult() throws Exception {
+        testParallelOrderBy(
+                "select l from x where l > 1000000 order by l",
+                "select l from x where l > 1000000 order by l limit " + ROW_COUNT
+        );
+    }
+
+    @Test
+    public void testFilterIntDesc() throws Exception {
+        testParallelOrderBy(
+                "select i, l from x where i > 0 order by i desc",
+                "select i, l from x where i > 0 order by i desc limit " + ROW_COUNT
+        );
+    }
+
+    @Test
+    public void testFilterLongAsc() throws Exception {
+        testParallelOrderBy(
+                "select * from x where s = 'a' order by l",
+                "select * from x where s = 'a' order by l limit " + ROW_COUNT
+        );
+    }
+
+    @Test
+    public void testIntAsc() throws Exception {
+        testParallelOrderBy(
+                "select i from x order by i",
+                "select i from x order by i limit " + ROW_COUNT
+        );
+    }
+
+    @Test
+    public void testLongAsc() throws Exception {
+        testParallelOrderBy(
+                "select * from x order by l",
+                "select * from x order by l limit " + ROW_COUNT
+        );
+    }
+
+    @Test
+    public void testLongDesc() throws Exception {
+        testParallelOrderBy(
+                "select * from x order by l desc",
+                "select * from x order by l desc limit " + ROW_COUNT
+        );
+    }
+
+    @Test
+    public void testNullsDesc() throws Exception {
+        testParallelOrderBy(
+                "select n from x order by n desc",
+                "select n from x order by n desc limit " + ROW_COUNT
+        );
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    TestUtils.printSql(engine, sqlExecutionContext, "explain select * from x where i > 0 order by l desc", sink);
+                    TestUtils.assertContains(sink, "Radix sort light workers: 4");
+                    TestUtils.assertContains(sink, "keys: [l desc]");
+                    TestUtils.assertContains(sink, "filter: 0<i");
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testToTop() throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    try (
+                            RecordCursorFactory factory = compiler.compile("select l from x order by l", sqlExecutionContext).getRecordCursorFactory();
+                            RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+                    ) {
+                        final Record record = cursor.getRecord();
+                        for (int i = 0; i < 2; i++) {
+                            long count = 0;
+                            long prev = Long.MIN_VALUE;
+                            while (cursor.hasNext()) {
+                                final long l = record.getLong(0);
+                                Assert.assertTrue(l >= prev);
+                                prev = l;
+                                count++;
+                            }
+                            Assert.assertEquals(ROW_COUNT, count);
+                            Assert.assertEquals(ROW_COUNT, cursor.size());
+                            cursor.toTop();
+                        }
+                    }
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    private static void createTable(CairoEngine engine, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        engine.execute(
+                "create table x as (" +
+                        "  select" +
+                        "    (x * 1000000)::timestamp ts," +
+                        // distinct values shuffled across all frames
+                        "    (x * 7919) % 10007 l," +
+                        "    case when x % 100 = 0 then null else x end n," +
+                        "    case when x % 99 = 0 then null else ((x * 7927) % 10009)::int end i," +
+                        "    rnd_symbol('a','b','c') s" +
+                        "  from long_sequence(" + ROW_COUNT + ")" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private void testParallelOrderBy(String query, String expectedQuery) throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    if (convertToParquet) {
+                        engine.execute("alter table x convert partition to parquet where ts >= 0", sqlExecutionContext);
+                    }
+                    TestUtils.assertSqlCursors(engine, sqlExecutionContext, expectedQuery, query, LOG);
+                },
+                configuration,
+                LOG
+        );
+    }
+}
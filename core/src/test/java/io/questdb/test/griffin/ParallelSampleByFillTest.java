@@ -0,0 +1,191 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Chars;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelSampleByFillTest extends AbstractCairoTest {
+    private static final int ROW_COUNT = 1000;
+
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_SAMPLEBY_FILL_ENABLED, "true");
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, 100);
+        super.setUp();
+    }
+
+    @Test
+    public void testKeyedFillNull() throws Exception {
+        testParallelFill(
+                "select s, avg(d) a, sum(l) sl, ts from x sample by 10m fill(null)",
+                "ts, s"
+        );
+    }
+
+    @Test
+    public void testKeyedFillPrev() throws Exception {
+        testParallelFill(
+                "select s, avg(d) a, last(l) ll, ts from x sample by 10m fill(prev)",
+                "ts, s"
+        );
+    }
+
+    @Test
+    public void testKeyedFillValues() throws Exception {
+        testParallelFill(
+                "select s, avg(d) a, sum(l) sl, ts from x sample by 10m fill(1.5, 42)",
+                "ts, s"
+        );
+    }
+
+    @Test
+    public void testKeyedMixedFill() throws Exception {
+        testParallelFill(
+                "select ts, s, first(d) f, count() c from x sample by 10m fill(prev, 0)",
+                "ts, s"
+        );
+    }
+
+    @Test
+    public void testNotEnoughFillValues() throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    try {
+                        TestUtils.printSql(engine, sqlExecutionContext, "select s, avg(d), sum(l), ts from x sample by 10m fill(1.5)", sink);
+                        throw new AssertionError("exception expected");
+                    } catch (SqlException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "not enough values");
+                    }
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testNotKeyedFillPrev() throws Exception {
+        testParallelFill(
+                "select avg(d) a, max(l) ml, ts from x sample by 10m fill(prev)",
+                "ts"
+        );
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    TestUtils.printSql(engine, sqlExecutionContext, "explain select s, avg(d), ts from x sample by 10m fill(prev)", sink);
+                    TestUtils.assertContains(sink, "Fill Ordered");
+                    TestUtils.assertContains(sink, "values: [prev]");
+                    TestUtils.assertContains(sink, "Async Group By");
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    @Test
+    public void testPlanFillLinear() throws Exception {
+        assertSingleThreadedPlan("explain select s, avg(d), ts from x sample by 10m fill(linear)");
+        assertSingleThreadedPlan("explain select avg(d), sum(l), ts from x sample by 10m fill(prev, linear)");
+    }
+
+    @Test
+    public void testPlanOffset() throws Exception {
+        assertSingleThreadedPlan("explain select s, avg(d), ts from x sample by 10m fill(prev) align to calendar with offset '00:05'");
+    }
+
+    @Test
+    public void testPlanTimeZone() throws Exception {
+        assertSingleThreadedPlan("explain select s, avg(d), ts from x sample by 10m fill(prev) align to calendar time zone 'Europe/London'");
+    }
+
+    private static void assertSingleThreadedPlan(String query) throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    TestUtils.printSql(engine, sqlExecutionContext, query, sink);
+                    TestUtils.assertContains(sink, "Sample By");
+                    Assert.assertFalse(Chars.contains(sink, "Fill Ordered"));
+                },
+                configuration,
+                LOG
+        );
+    }
+
+    private static void createTable(CairoEngine engine, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        engine.execute(
+                "create table x as (" +
+                        "  select" +
+                        // 25 minutes between rows leaves gaps in the 10-minute buckets
+                        "    (x * 25 * 60000000)::timestamp ts," +
+                        "    rnd_symbol('a','b','c') s," +
+                        "    rnd_double() d," +
+                        "    rnd_long(0, 100, 0) l" +
+                        "  from long_sequence(" + ROW_COUNT + ")" +
+                        ") timestamp(ts) partition by day",
+                sqlExecutionContext
+        );
+    }
+
+    private void testParallelFill(String query, String orderBy) throws Exception {
+        final WorkerPool pool = new WorkerPool(() -> 4);
+        TestUtils.execute(
+                pool,
+                (engine, compiler, sqlExecutionContext) -> {
+                    createTable(engine, sqlExecutionContext);
+                    // an explicit ORDER BY keeps SAMPLE BY on the single-threaded fill path
+                    TestUtils.assertSqlCursors(
+                            engine,
+                            sqlExecutionContext,
+                            query + " order by " + orderBy,
+                            "select * from (" + query + ") order by " + orderBy,
+                            LOG
+                    );
+                },
+                configuration,
+                LOG
+        );
+    }
+}
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.engine.QueryResultCache;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryResultCacheTest extends AbstractCairoTest {
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_RESULT_CACHE_ENABLED, "true");
+        super.setUp();
+    }
+
+    @Test
+    public void testBindVariablesArePartOfKey() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x id, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts) partition by day");
+
+            bindVariableService.clear();
+            bindVariableService.setLong(0, 3);
+            assertSql("id\n1\n2\n", "select id from x where id < $1");
+            bindVariableService.setLong(0, 4);
+            assertSql("id\n1\n2\n3\n", "select id from x where id < $1");
+            Assert.assertEquals(2, getResultCache().getSize());
+
+            bindVariableService.setLong(0, 3);
+            assertSql("id\n1\n2\n", "select id from x where id < $1");
+            Assert.assertEquals(2, getResultCache().getSize());
+        });
+    }
+
+    @Test
+    public void testCommitInvalidatesResult() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x id, timestamp_sequence(0, 1000000) ts from long_sequence(3)) timestamp(ts) partition by day");
+
+            final String query = "select count(), sum(id) from x";
+            assertSql("count\tsum\n3\t6\n", query);
+            Assert.assertEquals(1, getResultCache().getSize());
+            assertSql("count\tsum\n3\t6\n", query);
+
+            execute("insert into x values (4, '1970-01-02')");
+            assertSql("count\tsum\n4\t10\n", query);
+            Assert.assertEquals(1, getResultCache().getSize());
+
+            execute("alter table x add column s symbol");
+            assertSql("count\tsum\n4\t10\n", query);
+            Assert.assertEquals(1, getResultCache().getSize());
+        });
+    }
+
+    @Test
+    public void testDropTableInvalidatesResult() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x id from long_sequence(3))");
+            assertSql("id\n1\n2\n3\n", "select * from x");
+            Assert.assertEquals(1, getResultCache().getSize());
+
+            execute("drop table x");
+            execute("create table x as (select x + 10 id from long_sequence(2))");
+            assertSql("id\n11\n12\n", "select * from x");
+            Assert.assertEquals(1, getResultCache().getSize());
+        });
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x id, rnd_str(100, 100, 0) s from long_sequence(100))");
+
+            assertSql("count\n100\n", "select count() from x");
+            Assert.assertEquals(1, getResultCache().getSize());
+            final long entrySize = getResultCache().getMemoryUsed();
+
+            setProperty(PropertyKey.CAIRO_SQL_RESULT_CACHE_MEMORY_LIMIT, entrySize);
+            assertSql("count\n50\n", "select count() from x where id > 50");
+            Assert.assertEquals(1, getResultCache().getSize());
+
+            // larger than the limit
+            printSql("select * from x");
+            Assert.assertEquals(1, getResultCache().getSize());
+            Assert.assertEquals(entrySize, getResultCache().getMemoryUsed());
+        });
+    }
+
+    @Test
+    public void testFlushQueryCache() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x id from long_sequence(3))");
+            assertSql("id\n1\n2\n3\n", "select * from x");
+            Assert.assertEquals(1, getResultCache().getSize());
+
+            assertSql("flush_query_cache\ntrue\n", "select flush_query_cache()");
+            Assert.assertEquals(0, getResultCache().getSize());
+        });
+    }
+
+    @Test
+    public void testLargeResultNotCached() throws Exception {
+        setProperty(PropertyKey.CAIRO_SQL_RESULT_CACHE_MAX_RESULT_SIZE, 1024);
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x id, rnd_str(100, 100, 0) s from long_sequence(100))");
+            printSql("select * from x");
+            Assert.assertEquals(0, getResultCache().getSize());
+        });
+    }
+
+    @Test
+    public void testNonDeterministicQueryNotCached() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x id, timestamp_sequence(0, 1000000) ts from long_sequence(3)) timestamp(ts) partition by day");
+            printSql("select id, rnd_int() from x");
+            printSql("select * from x where ts < now()");
+            printSql("select * from x cross join long_sequence(2)");
+            printSql("select * from tables()");
+            Assert.assertEquals(0, getResultCache().getSize());
+        });
+    }
+
+    @Test
+    public void testPartiallyReadResultNotCached() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x id from long_sequence(10))");
+            try (
+                    RecordCursorFactory factory = select("select * from x");
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                Assert.assertTrue(cursor.hasNext());
+                Assert.assertTrue(cursor.hasNext());
+            }
+            Assert.assertEquals(0, getResultCache().getSize());
+        });
+    }
+
+    @Test
+    public void testResultCacheDisabled() throws Exception {
+        setProperty(PropertyKey.CAIRO_SQL_RESULT_CACHE_ENABLED, "false");
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x id from long_sequence(3))");
+            assertSql("id\n1\n2\n3\n", "select * from x");
+            Assert.assertEquals(0, getResultCache().getSize());
+        });
+    }
+
+    @Test
+    public void testSymbolTables() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x (sym symbol, ts timestamp) timestamp(ts) partition by day wal");
+            execute(
+                    "insert into x values ('a', '2024-01-01T00:00:00.000000Z'), (null, '2024-01-01T00:00:01.000000Z')," +
+                            "('b', '2024-01-02T00:00:00.000000Z'), ('a', '2024-01-02T00:00:01.000000Z')"
+            );
+            drainWalQueue();
+
+            final String query = "select sym from x";
+            assertSql("sym\na\n\nb\na\n", query);
+            Assert.assertEquals(1, getResultCache().getSize());
+
+            // served from the cache, symbol keys resolve through the cached symbol tables
+            try (
+                    RecordCursorFactory factory = select(query);
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                final SymbolTable symbolTable = cursor.getSymbolTable(0);
+                final SymbolTable newSymbolTable = cursor.newSymbolTable(0);
+                final Record record = cursor.getRecord();
+                int rows = 0;
+                while (cursor.hasNext()) {
+                    final int key = record.getInt(0);
+                    TestUtils.assertEquals(record.getSymA(0), symbolTable.valueOf(key));
+                    TestUtils.assertEquals(record.getSymA(0), newSymbolTable.valueBOf(key));
+                    rows++;
+                }
+                Assert.assertEquals(4, rows);
+            }
+            Assert.assertEquals(1, getResultCache().getSize());
+        });
+    }
+
+    @Test
+    public void testSymbolsAndVarSizeColumns() throws Exception {
+        assertMemoryLeak(() -> {
+            execute(
+                    "create table x (sym symbol, s string, v varchar, u uuid, l256 long256, d double, ts timestamp) timestamp(ts) partition by day wal"
+            );
+            execute(
+                    "insert into x values " +
+                            "('a', 'foo', 'bar', '11111111-1111-1111-1111-111111111111', '0x01', 1.5, '2024-01-01T00:00:00.000000Z')," +
+                            "(null, null, null, null, null, null, '2024-01-01T00:00:01.000000Z')," +
+                            "('b', 'ёж', 'ёж', '22222222-2222-2222-2222-222222222222', '0x02', -2.5, '2024-01-02T00:00:00.000000Z')"
+            );
+            drainWalQueue();
+
+            final String expected = "sym\ts\tv\tu\tl256\td\tts\n" +
+                    "a\tfoo\tbar\t11111111-1111-1111-1111-111111111111\t0x01\t1.5\t2024-01-01T00:00:00.000000Z\n" +
+                    "\t\t\t\t\tnull\t2024-01-01T00:00:01.000000Z\n" +
+                    "b\tёж\tёж\t22222222-2222-2222-2222-222222222222\t0x02\t-2.5\t2024-01-02T00:00:00.000000Z\n";
+            assertSql(expected, "x");
+            Assert.assertEquals(1, getResultCache().getSize());
+            // served from the cache
+            assertSql(expected, "x");
+            Assert.assertEquals(1, getResultCache().getSize());
+
+            execute("insert into x values ('c', 'c', 'c', null, null, 0.0, '2024-01-03T00:00:00.000000Z')");
+            // not applied yet, so the recomputed result is the same
+            assertSql(expected, "x");
+            drainWalQueue();
+            assertSql(
+                    expected + "c\tc\tc\t\t\t0.0\t2024-01-03T00:00:00.000000Z\n",
+                    "x"
+            );
+        });
+    }
+
+    private static QueryResultCache getResultCache() {
+        return engine.getQueryResultCache();
+    }
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine.table.parquet;
+
+import io.questdb.PropertyKey;
+import io.questdb.std.Files;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParquetExporterTest extends AbstractCairoTest {
+
+    @Before
+    public void setUp() {
+        // small row groups, so that the exports below span several of them
+        setProperty(PropertyKey.CAIRO_PARTITION_ENCODER_PARQUET_ROW_GROUP_SIZE, 3);
+        super.setUp();
+        inputRoot = root;
+    }
+
+    @Test
+    public void testCopyToAllTypes() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select" +
+                    " case when x % 2 = 0 then cast(x as int) end id," +
+                    " case when x % 2 = 0 then rnd_str(4,4,4,2) end as a_str," +
+                    " case when x % 2 = 0 then rnd_varchar(1, 40, 1) end as a_varchar," +
+                    " rnd_boolean() a_boolean," +
+                    " rnd_short() a_short," +
+                    " rnd_byte() a_byte," +
+                    " rnd_char() a_char," +
+                    " rnd_uuid4() a_uuid," +
+                    " rnd_double() a_double," +
+                    " rnd_float() a_float," +
+                    " rnd_symbol(4,4,4,2) as a_sym," +
+                    " cast(rnd_timestamp('2015','2016',2) as date) as a_date," +
+                    " rnd_long256() a_long256," +
+                    " rnd_ipv4() a_ip," +
+                    " rnd_geohash(4) a_geo_byte," +
+                    " rnd_geohash(8) a_geo_short," +
+                    " rnd_geohash(16) a_geo_int," +
+                    " rnd_geohash(32) a_geo_long," +
+                    " rnd_bin(10, 20, 2) a_bin," +
+                    " timestamp_sequence('2015', 1000000) as a_ts" +
+                    " from long_sequence(10)) timestamp (a_ts) partition by DAY");
+
+            assertSql(
+                    "file\trows\n" +
+                            "x.parquet\t10\n",
+                    "copy (select * from x) to 'x.parquet'"
+            );
+            assertSqlCursors(
+                    "select id, a_str, a_varchar, a_boolean, a_short, a_byte, a_char, a_uuid, a_double, a_float," +
+                            " a_sym::varchar a_sym, a_date, a_long256, a_ip, a_geo_byte, a_geo_short, a_geo_int, a_geo_long," +
+                            " a_bin, a_ts from x",
+                    "select * from read_parquet('x.parquet')"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyToExactRowGroups() throws Exception {
+        assertMemoryLeak(() -> {
+            assertSql(
+                    "file\trows\n" +
+                            "x.parquet\t6\n",
+                    "copy (select x, rnd_str(4,4,4,2) s from long_sequence(6)) to 'x.parquet'"
+            );
+            assertSql(
+                    "count\tsum\n" +
+                            "6\t21\n",
+                    "select count(), sum(x) from read_parquet('x.parquet')"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyToNoRows() throws Exception {
+        assertException(
+                "copy (select x from long_sequence(10) where x < 0) to 'x.parquet'",
+                -1,
+                "query returned no rows"
+        );
+        try (Path path = new Path()) {
+            Assert.assertFalse(Files.exists(path.of(root).concat("x.parquet").$()));
+        }
+    }
+
+    @Test
+    public void testCopyToOverwritesFile() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("copy (select x from long_sequence(10)) to 'x.parquet'");
+            execute("copy (select x from long_sequence(2)) to 'x.parquet'");
+            assertSql(
+                    "x\n" +
+                            "1\n" +
+                            "2\n",
+                    "select * from read_parquet('x.parquet')"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyToSingleRowGroup() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("copy (select x, x::varchar v from long_sequence(2)) to 'x.parquet'");
+            assertSql(
+                    "x\tv\n" +
+                            "1\t1\n" +
+                            "2\t2\n",
+                    "select * from read_parquet('x.parquet')"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyToSyntax() throws Exception {
+        assertException(
+                "copy (select x from long_sequence(10)) 'x.parquet'",
+                39,
+                "'to' expected"
+        );
+        assertException(
+                "copy (select x from long_sequence(10)) to 'x.parquet' with header true",
+                54,
+                "unexpected token"
+        );
+        assertException(
+                "copy (select x from long_sequence(10)) to '../x.parquet'",
+                42,
+                "'.' is not allowed"
+        );
+    }
+}